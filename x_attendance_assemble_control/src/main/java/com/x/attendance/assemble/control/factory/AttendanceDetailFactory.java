@@ -2,10 +2,13 @@ package com.x.attendance.assemble.control.factory;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -123,18 +126,68 @@ public class AttendanceDetailFactory extends AbstractFactory {
 	 */
 	//@MethodDescribe("按指定的开始时间，结束时间列示未被分析的AttendanceDetail信息列表")
 	public List<String> getAllAnalysenessDetails(String startDateString, String endDateString, String personName ) throws Exception {
-		DateOperation dateOperation = new DateOperation();
 		EntityManager em = this.entityManagerContainer().get( AttendanceDetail.class );
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<String> cq = cb.createQuery(String.class);
 		Root<AttendanceDetail> root = cq.from( AttendanceDetail.class);
-		
-		//一般始终为true, id is not null
-		Predicate p = root.get( AttendanceDetail_.id ).isNotNull();
-		p = cb.and( p, root.get( AttendanceDetail_.archiveTime ).isNull()); //要未归档的，才再次进行分析
+		Predicate p = this.analysenessPredicate( cb, root, startDateString, endDateString );
 		if( StringUtils.isNotEmpty( personName ) ) {
 			p = cb.and( p, cb.equal( root.get(AttendanceDetail_.empName ), personName)); //匹配员工姓名
 		}
+		cq.select( root.get( AttendanceDetail_.id ) );
+		return em.createQuery(cq.where(p)).setMaxResults(20000).getResultList();
+	}
+
+	/**
+	 * 一次性查询多个员工在时间范围内需要分析的打卡记录，条件与getAllAnalysenessDetails相同
+	 * @param startDateString
+	 * @param endDateString
+	 * @param personNames
+	 * @return
+	 * @throws Exception
+	 */
+	public List<AttendanceDetail> listAnalysenessDetails(String startDateString, String endDateString, List<String> personNames ) throws Exception {
+		if( ListTools.isEmpty( personNames ) ){
+			return new ArrayList<AttendanceDetail>();
+		}
+		EntityManager em = this.entityManagerContainer().get( AttendanceDetail.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<AttendanceDetail> cq = cb.createQuery(AttendanceDetail.class);
+		Root<AttendanceDetail> root = cq.from( AttendanceDetail.class);
+		Predicate p = this.analysenessPredicate( cb, root, startDateString, endDateString );
+		p = cb.and( p, root.get(AttendanceDetail_.empName ).in( personNames ));
+		cq.orderBy( cb.asc( root.get( AttendanceDetail_.empName ) ), cb.asc( root.get( AttendanceDetail_.recordDateString ) ) );
+		return em.createQuery(cq.where(p)).getResultList();
+	}
+
+	/**
+	 * 按员工统计时间范围内需要分析的打卡记录数量，条件与getAllAnalysenessDetails相同
+	 * @param startDateString
+	 * @param endDateString
+	 * @return
+	 * @throws Exception
+	 */
+	public Map<String, Long> countAnalysenessDetailsGroupByPerson(String startDateString, String endDateString ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( AttendanceDetail.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<AttendanceDetail> root = cq.from( AttendanceDetail.class);
+		Predicate p = this.analysenessPredicate( cb, root, startDateString, endDateString );
+		cq.multiselect( root.get( AttendanceDetail_.empName ), cb.count( root ) ).where( p ).groupBy( root.get( AttendanceDetail_.empName ) );
+		Map<String, Long> map = new LinkedHashMap<>();
+		for( Tuple o : em.createQuery( cq ).getResultList() ){
+			if( StringUtils.isNotEmpty( o.get( 0, String.class ) ) ){
+				map.put( o.get( 0, String.class ), o.get( 1, Long.class ) );
+			}
+		}
+		return map;
+	}
+
+	private Predicate analysenessPredicate( CriteriaBuilder cb, Root<AttendanceDetail> root, String startDateString, String endDateString ) {
+		DateOperation dateOperation = new DateOperation();
+		//一般始终为true, id is not null
+		Predicate p = root.get( AttendanceDetail_.id ).isNotNull();
+		p = cb.and( p, root.get( AttendanceDetail_.archiveTime ).isNull()); //要未归档的，才再次进行分析
 		Date startDate = null;
 		Date endDate = null;
 		try{
@@ -165,9 +218,7 @@ public class AttendanceDetailFactory extends AbstractFactory {
 				p = cb.and( p, root.get( AttendanceDetail_.recordStatus).in( statusArray ));
 			}
 		}
-		
-		cq.select( root.get( AttendanceDetail_.id ) );
-		return em.createQuery(cq.where(p)).setMaxResults(20000).getResultList();
+		return p;
 	}
 	
 	/**
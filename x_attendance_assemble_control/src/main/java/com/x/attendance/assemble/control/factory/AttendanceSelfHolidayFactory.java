@@ -272,4 +272,22 @@ public class AttendanceSelfHolidayFactory extends AbstractFactory {
 		cq.select(root.get(AttendanceSelfHoliday_.id));
 		return em.createQuery(cq.where(p)).getResultList();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * 一次性查询多个员工的休假记录，用于批量分析打卡记录
+	 * @param personNames
+	 * @return
+	 * @throws Exception
+	 */
+	public List<AttendanceSelfHoliday> listWithPersonNames( List<String> personNames ) throws Exception {
+		if( personNames == null || personNames.isEmpty() ) {
+			return new ArrayList<AttendanceSelfHoliday>();
+		}
+		EntityManager em = this.entityManagerContainer().get(AttendanceSelfHoliday.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<AttendanceSelfHoliday> cq = cb.createQuery(AttendanceSelfHoliday.class);
+		Root<AttendanceSelfHoliday> root = cq.from( AttendanceSelfHoliday.class);
+		Predicate p = root.get(AttendanceSelfHoliday_.employeeName ).in( personNames );
+		return em.createQuery(cq.where(p)).getResultList();
+	}
+}
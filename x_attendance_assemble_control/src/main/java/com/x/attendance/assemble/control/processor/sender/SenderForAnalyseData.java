@@ -1,11 +1,12 @@
 package com.x.attendance.assemble.control.processor.sender;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-import com.x.attendance.assemble.control.processor.EntityAnalyseData;
 import com.x.attendance.assemble.control.processor.monitor.StatusSystemImportOpt;
 import com.x.attendance.assemble.control.processor.thread.DataProcessThreadFactory;
+import com.x.attendance.assemble.control.processor.thread.OperatorDataAnalyseBatch;
 import com.x.attendance.assemble.control.service.AttendanceDetailServiceAdv;
 import com.x.attendance.entity.AttendanceStatisticalCycle;
 import com.x.attendance.entity.AttendanceWorkDayConfig;
@@ -14,7 +15,7 @@ import com.x.base.core.project.logger.LoggerFactory;
 
 /**
  * 将所有需要分析的数据发送到数据分析队列，由相应的处理器进行数据分析操作
- * 根据员工姓名进行分组，避免多次操作员工排班信息
+ * 根据员工姓名进行分区，由批量分析处理器按分区一次性读取数据并行分析
  * 
  * @author O2LEE
  *
@@ -27,20 +28,27 @@ public class SenderForAnalyseData {
 	public void execute(List<String> personNames, String startDate, String endDate, List<AttendanceWorkDayConfig> attendanceWorkDayConfigList, Map<String, Map<String, List<AttendanceStatisticalCycle>>> topUnitAttendanceStatisticalCycleMap, Boolean debugger ) {
 		
 		StatusSystemImportOpt statusSystemImportOpt = StatusSystemImportOpt.getInstance();
-		List<String> ids = null;
+		Map<String, Long> detailCounts = null;
+		List<String> analysePersonNames = new ArrayList<>();
+		long total = 0;
 		
-		for ( String personName : personNames ) {
-			try {
-				ids = attendanceDetailServiceAdv.getAllAnalysenessDetails( startDate, endDate, personName );
-				if( ids != null && !ids.isEmpty() ) {
-					statusSystemImportOpt.setProcessing( true );
-					statusSystemImportOpt.setProcessing_analysis( true );
-					statusSystemImportOpt.increaseProcess_analysis_total( ids.size() );
-					DataProcessThreadFactory.getInstance().submit( new EntityAnalyseData( "analyse", personName, ids, attendanceWorkDayConfigList, topUnitAttendanceStatisticalCycleMap ), debugger );
+		try {
+			//先一次性统计所有员工需要分析的数据总数，避免分析过程中总数与完成数量相同而提前结束
+			detailCounts = attendanceDetailServiceAdv.countAnalysenessDetailsGroupByPerson( startDate, endDate );
+			for ( String personName : personNames ) {
+				if( detailCounts.containsKey( personName ) ) {
+					analysePersonNames.add( personName );
+					total += detailCounts.get( personName );
 				}
-			} catch (Exception e) {
-				logger.error(e);
 			}
+			if( !analysePersonNames.isEmpty() ) {
+				statusSystemImportOpt.setProcessing( true );
+				statusSystemImportOpt.setProcessing_analysis( true );
+				statusSystemImportOpt.increaseProcess_analysis_total( total );
+				DataProcessThreadFactory.getInstance().submit( new OperatorDataAnalyseBatch( analysePersonNames, detailCounts, startDate, endDate, attendanceWorkDayConfigList, topUnitAttendanceStatisticalCycleMap, debugger ) );
+			}
+		} catch (Exception e) {
+			logger.error(e);
 		}
 	}
 	
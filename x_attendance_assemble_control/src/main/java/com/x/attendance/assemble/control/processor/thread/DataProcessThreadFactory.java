@@ -1,5 +1,6 @@
 package com.x.attendance.assemble.control.processor.thread;
 
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -25,6 +26,12 @@ public class DataProcessThreadFactory {
      * 5.当线程池中的线程数量大于corePoolSize时，如果某线程空闲时间超过keepAliveTime，线程将被终止。这样，线程池可以动态的调整池中的线程数。 
      */  
 	private static ThreadPoolExecutor threadpool = null;
+
+	/* 缓冲队列的容量，队列满时由提交任务的线程直接执行，避免丢弃数据或者无限积压 */
+	private static final int QUEUE_CAPACITY = 1000;
+
+	/* 打卡数据批量分析使用的线程池，按CPU核数并行 */
+	private static ForkJoinPool analysePool = null;
 	 
 	private DataProcessThreadFactory() {
 		/** 
@@ -34,9 +41,10 @@ public class DataProcessThreadFactory {
 	     * keepAliveTime -当线程数大于核心时，此为终止前多余的空闲线程等待新任务的最长时间，线程池维护线程所允许的空闲时间。  
 	     * unit - keepAliveTime参数的时间单位，线程池维护线程所允许的空闲时间的单位:秒 。  
 	     * workQueue - 执行前用于保持任务的队列（缓冲队列）。此队列仅保持由execute 方法提交的 Runnable 任务。  
-	     * RejectedExecutionHandler -线程池对拒绝任务的处理策略(重试添加当前的任务，自动重复调用execute()方法) 
+	     * RejectedExecutionHandler -线程池对拒绝任务的处理策略(由提交任务的线程直接执行，使数据的提交速度与处理速度保持一致) 
 	     */
-		threadpool = new ThreadPoolExecutor( 20, 40, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadPoolExecutor.DiscardOldestPolicy() );
+		threadpool = new ThreadPoolExecutor( 20, 40, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>( QUEUE_CAPACITY ), new ThreadPoolExecutor.CallerRunsPolicy() );
+		analysePool = new ForkJoinPool( Runtime.getRuntime().availableProcessors() );
 	}
 	
 	public static DataProcessThreadFactory getInstance() {
@@ -56,6 +64,11 @@ public class DataProcessThreadFactory {
 	
 	public void showdown() {
 		threadpool.shutdownNow();
+		analysePool.shutdownNow();
+	}
+
+	public void submit( OperatorDataAnalyseBatch batch ) {
+		analysePool.execute( batch );
 	}
 	
 	public void submit( AbStractDataForOperator data, Boolean debugger ) {
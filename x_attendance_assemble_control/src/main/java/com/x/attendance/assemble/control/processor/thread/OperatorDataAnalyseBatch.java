@@ -0,0 +1,199 @@
+package com.x.attendance.assemble.control.processor.thread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
+
+import com.x.attendance.assemble.control.Business;
+import com.x.attendance.assemble.control.processor.monitor.StatusSystemImportOpt;
+import com.x.attendance.assemble.control.service.AttendanceDetailAnalyseService;
+import com.x.attendance.assemble.control.service.AttendanceScheduleSettingServiceAdv;
+import com.x.attendance.entity.AttendanceDetail;
+import com.x.attendance.entity.AttendanceScheduleSetting;
+import com.x.attendance.entity.AttendanceSelfHoliday;
+import com.x.attendance.entity.AttendanceStatisticalCycle;
+import com.x.attendance.entity.AttendanceWorkDayConfig;
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+
+/**
+ * 批量分析打卡数据<br/>
+ * 按员工拆分为多个分区并行分析，每个分区使用独立的emc，一次性查询分区内所有员工的打卡记录和休假记录，在内存中分析后按批次提交。<br/>
+ * 只有分析结果发生变化的打卡记录才会记录统计需求，同一个统计需求在一个批次中只记录一次。
+ */
+public class OperatorDataAnalyseBatch extends RecursiveAction {
+
+	private static final long serialVersionUID = -6051806370236640325L;
+
+	private static  Logger logger = LoggerFactory.getLogger( OperatorDataAnalyseBatch.class );
+
+	/* 每个分区分析的员工数量 */
+	private static final int PARTITION_SIZE = 50;
+
+	/* 每个事务提交的打卡记录数量 */
+	private static final int COMMIT_SIZE = 500;
+
+	private List<String> personNames = null;
+	private Map<String, Long> detailCounts = null;
+	private String startDate = null;
+	private String endDate = null;
+	private List<AttendanceWorkDayConfig> attendanceWorkDayConfigList = null;
+	private Map<String, Map<String, List<AttendanceStatisticalCycle>>> topUnitAttendanceStatisticalCycleMap = null;
+	private Boolean debugger = false;
+
+	/**
+	 * @param personNames 需要分析的员工
+	 * @param detailCounts 每个员工需要分析的打卡记录数量，已经计入分析总数，用于分区结束时校正总数
+	 * @param startDate
+	 * @param endDate
+	 * @param attendanceWorkDayConfigList
+	 * @param topUnitAttendanceStatisticalCycleMap
+	 * @param debugger
+	 */
+	public OperatorDataAnalyseBatch( List<String> personNames, Map<String, Long> detailCounts, String startDate, String endDate,
+			List<AttendanceWorkDayConfig> attendanceWorkDayConfigList, Map<String, Map<String, List<AttendanceStatisticalCycle>>> topUnitAttendanceStatisticalCycleMap, Boolean debugger ) {
+		this.personNames = personNames;
+		this.detailCounts = detailCounts;
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.attendanceWorkDayConfigList = attendanceWorkDayConfigList;
+		this.topUnitAttendanceStatisticalCycleMap = topUnitAttendanceStatisticalCycleMap;
+		this.debugger = debugger;
+	}
+
+	@Override
+	protected void compute() {
+		if( personNames.size() > PARTITION_SIZE ) {
+			int middle = personNames.size() / 2;
+			invokeAll(
+				new OperatorDataAnalyseBatch( new ArrayList<>( personNames.subList( 0, middle ) ), detailCounts, startDate, endDate, attendanceWorkDayConfigList, topUnitAttendanceStatisticalCycleMap, debugger ),
+				new OperatorDataAnalyseBatch( new ArrayList<>( personNames.subList( middle, personNames.size() ) ), detailCounts, startDate, endDate, attendanceWorkDayConfigList, topUnitAttendanceStatisticalCycleMap, debugger )
+			);
+		}else {
+			analyse();
+		}
+	}
+
+	private void analyse() {
+		StatusSystemImportOpt statusSystemImportOpt = StatusSystemImportOpt.getInstance();
+		AttendanceDetailAnalyseService attendanceDetailAnalyseService = new AttendanceDetailAnalyseService();
+		long start = System.currentTimeMillis();
+		long expected = 0;
+		long loaded = -1;
+		long reported = 0;
+		long error = 0;
+		long changed = 0;
+		for( String personName : personNames ) {
+			expected += detailCounts.getOrDefault( personName, 0L );
+		}
+		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
+			Business business = new Business( emc );
+			List<AttendanceDetail> details = business.getAttendanceDetailFactory().listAnalysenessDetails( startDate, endDate, personNames );
+			loaded = details.size();
+			//查询时的数量和实际读取到的数量可能不同，以实际读取到的为准
+			statusSystemImportOpt.increaseProcess_analysis_total( loaded - expected );
+
+			Map<String, List<AttendanceSelfHoliday>> selfHolidays = listSelfHolidays( business );
+			Map<String, AttendanceScheduleSetting> schedules = new HashMap<>();
+			AttendanceScheduleSettingServiceAdv attendanceScheduleSettingServiceAdv = new AttendanceScheduleSettingServiceAdv();
+			List<AttendanceDetail> changes = new ArrayList<>();
+			long count = 0;
+			long batchError = 0;
+
+			emc.beginTransaction( AttendanceDetail.class );
+			for( AttendanceDetail detail : details ) {
+				if( !schedules.containsKey( detail.getEmpName() ) ) {
+					schedules.put( detail.getEmpName(), getSchedule( attendanceScheduleSettingServiceAdv, detail.getEmpName() ));
+				}
+				String signature = signature( detail );
+				try {
+					if( attendanceDetailAnalyseService.analyseAttendanceDetailWithoutCommit( detail, schedules.get( detail.getEmpName() ),
+							selfHolidays.get( detail.getEmpName() ), attendanceWorkDayConfigList, topUnitAttendanceStatisticalCycleMap, debugger )
+							&& !signature.equals( signature( detail ) ) ) {
+						changes.add( detail );
+					}
+				}catch( Exception e ) {
+					batchError++;
+					logger.warn( "attendance detail analyse got an exception.id:" + detail.getId() );
+					logger.error( e );
+					detail.setRecordStatus( -1 );
+					detail.setDescription( "系统在分析打卡数据时发生异常" );
+				}
+				emc.check( detail, CheckPersistType.all );
+				count++;
+				if( count % COMMIT_SIZE == 0 ) {
+					emc.commit();
+					statusSystemImportOpt.increaseProcess_analysis_count( count - reported - batchError );
+					statusSystemImportOpt.increaseProcess_analysis_error( batchError );
+					attendanceDetailAnalyseService.recordStatisticRequireLogs( changes, debugger );
+					reported = count;
+					error += batchError;
+					changed += changes.size();
+					batchError = 0;
+					changes.clear();
+					emc.beginTransaction( AttendanceDetail.class );
+				}
+			}
+			emc.commit();
+			statusSystemImportOpt.increaseProcess_analysis_count( count - reported - batchError );
+			statusSystemImportOpt.increaseProcess_analysis_error( batchError );
+			attendanceDetailAnalyseService.recordStatisticRequireLogs( changes, debugger );
+			reported = count;
+			error += batchError;
+			changed += changes.size();
+		} catch ( Exception e ) {
+			logger.warn( "attendance detail analyse partition got an exception.persons:" + personNames );
+			logger.error( e );
+			//未提交的数据全部记为失败，保证分析总数与完成数量一致
+			statusSystemImportOpt.increaseProcess_analysis_error( ( loaded < 0 ? expected : loaded ) - reported );
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		logger.info( "attendance detail analyse partition completed, persons:{}, details:{}, changed:{}, error:{}, elapsed:{}ms, throughput:{}/s.",
+				personNames.size(), reported, changed, error, elapsed, ( elapsed == 0 ? reported : reported * 1000 / elapsed ) );
+	}
+
+	/**
+	 * 一次性查询分区内所有员工的休假记录，按员工分组
+	 */
+	private Map<String, List<AttendanceSelfHoliday>> listSelfHolidays( Business business ) {
+		Map<String, List<AttendanceSelfHoliday>> map = new HashMap<>();
+		try {
+			for( AttendanceSelfHoliday o : business.getAttendanceSelfHolidayFactory().listWithPersonNames( personNames ) ) {
+				map.computeIfAbsent( o.getEmployeeName(), k -> new ArrayList<>() ).add( o );
+			}
+		}catch( Exception e ) {
+			logger.warn( "system list attendance self holiday info with employee names got an exception.persons:" + personNames );
+			logger.error(e);
+		}
+		return map;
+	}
+
+	private AttendanceScheduleSetting getSchedule( AttendanceScheduleSettingServiceAdv attendanceScheduleSettingServiceAdv, String personName ) {
+		try{
+			return attendanceScheduleSettingServiceAdv.getAttendanceScheduleSettingWithPerson( personName, debugger );
+		}catch( Exception e ){
+			logger.warn( "system get unit schedule setting for employee with unit names got an exception." + personName );
+			logger.error(e);
+		}
+		return null;
+	}
+
+	/**
+	 * 参与统计的分析结果，分析前后相同的打卡记录不需要重新统计
+	 */
+	private String signature( AttendanceDetail detail ) {
+		return Objects.toString( detail.getRecordStatus() ) + "#" + detail.getUnitName() + "#" + detail.getTopUnitName()
+				+ "#" + detail.getCycleYear() + "#" + detail.getCycleMonth() + "#" + detail.getRecordDateString()
+				+ "#" + detail.getIsLate() + "#" + detail.getLateTimeDuration() + "#" + detail.getIsLeaveEarlier() + "#" + detail.getLeaveEarlierTimeDuration()
+				+ "#" + detail.getIsAbsent() + "#" + detail.getAbsence() + "#" + detail.getAbsentDayTime() + "#" + detail.getAttendance()
+				+ "#" + detail.getIsLackOfTime() + "#" + detail.getWorkTimeDuration() + "#" + detail.getIsWorkOvertime() + "#" + detail.getWorkOvertimeTimeDuration()
+				+ "#" + detail.getIsAbnormalDuty() + "#" + detail.getAbnormalDutyDayTime() + "#" + detail.getIsGetSelfHolidays() + "#" + detail.getSelfHolidayDayTime()
+				+ "#" + detail.getIsWeekend() + "#" + detail.getIsHoliday() + "#" + detail.getIsWorkday();
+	}
+}
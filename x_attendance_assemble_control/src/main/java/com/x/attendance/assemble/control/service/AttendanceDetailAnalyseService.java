@@ -3,6 +3,7 @@ package com.x.attendance.assemble.control.service;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -256,78 +257,10 @@ public class AttendanceDetailAnalyseService {
 			}
 			
 			if( check ){
-				if( attendanceScheduleSetting != null ){
-					detail.setTopUnitName( attendanceScheduleSetting.getTopUnitName() );
-					if( StringUtils.isNotEmpty( attendanceScheduleSetting.getUnitName() ) && !"*".equals( attendanceScheduleSetting.getUnitName() )) {
-						detail.setUnitName( attendanceScheduleSetting.getUnitName() );
-					}else {
-						detail.setUnitName( userManagerService.getUnitNameWithPersonName( detail.getEmpName() ) );
-					}
-					detail.setOnWorkTime( attendanceScheduleSetting.getOnDutyTime() );
-					detail.setOffWorkTime( attendanceScheduleSetting.getOffDutyTime() );
-				}
-				if( recordDate != null ){
-					detail.setRecordDate( recordDate );
-				}
-			}
-			if( check ){
-				try{
-					setSelfHolidays( detail, attendanceSelfHolidayList, dateOperation, debugger );
-				}catch( Exception e ){
-					check = false;
-					logger.warn( "system analyse employee self holiday for detail got an exception." + detail.getEmpName() );
-					logger.error(e);
-					saveAnalyseResultAndStatus( emc, detail.getId(), -1, "系统在根据打卡信息，请假信息分析员工请假情况时发生异常" );
-				}
-			}
-			if( check ){
-				try{
-					detail.setIsWeekend( dateOperation.isWeekend( detail.getRecordDate() ));
-				}catch( Exception e ){
-					check = false;
-					logger.warn( "system analyse record date may be weekend got an exception." + detail.getRecordDateString() );
-					logger.error(e);
-					saveAnalyseResultAndStatus( emc, detail.getId(), -1, "系统在分析打卡日期是否是周末时发生异常, recordDate:" + detail.getRecordDateString() );
-				}
-			}
-			if( check ){
-				try{
-					detail.setIsHoliday( isHoliday( detail, attendanceWorkDayConfigList, dateOperation ) );
-				}catch( Exception e ){
-					check = false;
-					logger.warn( "system analyse record date may be holiday got an exception." + detail.getRecordDateString() );
-					logger.error(e);
-					saveAnalyseResultAndStatus( emc, detail.getId(), -1, "系统在分析打卡日期是否是节假日时发生异常, recordDate:"+ detail.getRecordDateString() );
-				}
-			}
-			if( check ){
-				try{
-					detail.setIsWorkday( isWorkday( detail, attendanceWorkDayConfigList, dateOperation ) );
-				}catch( Exception e ){
+				String failure = analyse( detail, attendanceScheduleSetting, recordDate, attendanceSelfHolidayList, attendanceWorkDayConfigList, topUnitAttendanceStatisticalCycleMap, dateOperation, debugger );
+				if( failure != null ){
 					check = false;
-					logger.warn( "system analyse record date may be workday got an exception." + detail.getRecordDateString() );
-					logger.error(e);
-					saveAnalyseResultAndStatus( emc, detail.getId(), -1, "系统在分析打卡日期是否是工作日时发生异常" );
-				}
-			}	
-			if( check ){
-				try{
-					analyseAttendanceDetailStatisticCycle( detail, topUnitAttendanceStatisticalCycleMap, debugger );
-				}catch( Exception e ){
-					check = false;
-					logger.warn( "system analyse detail statistic cycle got an exception." + detail.getEmpName() );
-					logger.error(e);
-					saveAnalyseResultAndStatus( emc, detail.getId(), -1, "系统在根据打卡信息以及排班信息进一步分析打卡信息统计周期时发生异常" );
-				}
-			}
-			if( check ){
-				try{
-					analyseAttendanceDetail( detail, attendanceScheduleSetting, dateOperation, debugger );
-				}catch( Exception e ){
-					check = false;
-					logger.warn( "system analyse detail by on and off work time for advance analyse got an exception." + detail.getEmpName() );
-					logger.error(e);
-					saveAnalyseResultAndStatus( emc, detail.getId(), -1, "系统在根据打卡信息排班信息进一步分析员工出勤情况时发生异常" );
+					saveAnalyseResultAndStatus( emc, detail.getId(), -1, failure );
 				}
 			}
 			if( check ){
@@ -347,113 +280,185 @@ public class AttendanceDetailAnalyseService {
 		}
 		return false;
 	}
+	/**
+	 * 批量分析时使用：对一条已经在当前emc中管理的打卡数据进行分析，只修改数据，由调用方统一提交事务
+	 * 分析失败时与单条分析一样将状态设置为-1，并记录失败原因
+	 * @param detail
+	 * @param attendanceScheduleSetting
+	 * @param attendanceSelfHolidayList
+	 * @param attendanceWorkDayConfigList
+	 * @param topUnitAttendanceStatisticalCycleMap
+	 * @param debugger
+	 * @return 是否分析成功
+	 * @throws Exception
+	 */
+	public boolean analyseAttendanceDetailWithoutCommit( AttendanceDetail detail,
+			AttendanceScheduleSetting attendanceScheduleSetting, List<AttendanceSelfHoliday> attendanceSelfHolidayList,
+			List<AttendanceWorkDayConfig> attendanceWorkDayConfigList, Map<String, Map<String, List<AttendanceStatisticalCycle>>> topUnitAttendanceStatisticalCycleMap,
+			Boolean debugger ) throws Exception{
+		DateOperation dateOperation = new DateOperation();
+		Date recordDate = null;
+		if( attendanceScheduleSetting == null ){
+			setAnalyseResultAndStatus( detail, -1, "未查询到员工[" + detail.getEmpName() + "]所在组织的排班信息" );
+			return false;
+		}
+		if( StringUtils.isEmpty( detail.getRecordDateString() ) ){
+			setAnalyseResultAndStatus( detail, -1, "系统格式化记录的打卡日期发生异常，未能设置日期格式的打卡时间属性为空" );
+			return false;
+		}
+		try{
+			recordDate = dateOperation.getDateFromString( detail.getRecordDateString());
+		}catch(Exception e){
+			setAnalyseResultAndStatus( detail, -1, "系统格式化记录的打卡日期发生异常，未能设置日期格式的打卡时间属性recordDate，日期recordDateString：" + detail.getRecordDateString() );
+			return false;
+		}
+		detail.refresh(); //将打卡数据里分析过的状态全部清空，还原成未分析的数据
+		String failure = analyse( detail, attendanceScheduleSetting, recordDate, attendanceSelfHolidayList, attendanceWorkDayConfigList, topUnitAttendanceStatisticalCycleMap, dateOperation, debugger );
+		if( failure != null ){
+			setAnalyseResultAndStatus( detail, -1, failure );
+			return false;
+		}
+		detail.setRecordStatus( 1 );
+		detail.setDescription("员工打卡记录分析完成！" );
+		return true;
+	}
+
+	/**
+	 * 对已经还原成未分析状态的打卡数据进行分析，只修改数据，不操作数据库
+	 * @return 分析失败的原因，分析成功返回null
+	 */
+	private String analyse( AttendanceDetail detail, AttendanceScheduleSetting attendanceScheduleSetting, Date recordDate,
+			List<AttendanceSelfHoliday> attendanceSelfHolidayList, List<AttendanceWorkDayConfig> attendanceWorkDayConfigList,
+			Map<String, Map<String, List<AttendanceStatisticalCycle>>> topUnitAttendanceStatisticalCycleMap,
+			DateOperation dateOperation, Boolean debugger ) throws Exception{
+		detail.setTopUnitName( attendanceScheduleSetting.getTopUnitName() );
+		if( StringUtils.isNotEmpty( attendanceScheduleSetting.getUnitName() ) && !"*".equals( attendanceScheduleSetting.getUnitName() )) {
+			detail.setUnitName( attendanceScheduleSetting.getUnitName() );
+		}else {
+			detail.setUnitName( userManagerService.getUnitNameWithPersonName( detail.getEmpName() ) );
+		}
+		detail.setOnWorkTime( attendanceScheduleSetting.getOnDutyTime() );
+		detail.setOffWorkTime( attendanceScheduleSetting.getOffDutyTime() );
+		if( recordDate != null ){
+			detail.setRecordDate( recordDate );
+		}
+		try{
+			setSelfHolidays( detail, attendanceSelfHolidayList, dateOperation, debugger );
+		}catch( Exception e ){
+			logger.warn( "system analyse employee self holiday for detail got an exception." + detail.getEmpName() );
+			logger.error(e);
+			return "系统在根据打卡信息，请假信息分析员工请假情况时发生异常";
+		}
+		try{
+			detail.setIsWeekend( dateOperation.isWeekend( detail.getRecordDate() ));
+		}catch( Exception e ){
+			logger.warn( "system analyse record date may be weekend got an exception." + detail.getRecordDateString() );
+			logger.error(e);
+			return "系统在分析打卡日期是否是周末时发生异常, recordDate:" + detail.getRecordDateString();
+		}
+		try{
+			detail.setIsHoliday( isHoliday( detail, attendanceWorkDayConfigList, dateOperation ) );
+		}catch( Exception e ){
+			logger.warn( "system analyse record date may be holiday got an exception." + detail.getRecordDateString() );
+			logger.error(e);
+			return "系统在分析打卡日期是否是节假日时发生异常, recordDate:"+ detail.getRecordDateString();
+		}
+		try{
+			detail.setIsWorkday( isWorkday( detail, attendanceWorkDayConfigList, dateOperation ) );
+		}catch( Exception e ){
+			logger.warn( "system analyse record date may be workday got an exception." + detail.getRecordDateString() );
+			logger.error(e);
+			return "系统在分析打卡日期是否是工作日时发生异常";
+		}
+		try{
+			analyseAttendanceDetailStatisticCycle( detail, topUnitAttendanceStatisticalCycleMap, debugger );
+		}catch( Exception e ){
+			logger.warn( "system analyse detail statistic cycle got an exception." + detail.getEmpName() );
+			logger.error(e);
+			return "系统在根据打卡信息以及排班信息进一步分析打卡信息统计周期时发生异常";
+		}
+		try{
+			analyseAttendanceDetail( detail, attendanceScheduleSetting, dateOperation, debugger );
+		}catch( Exception e ){
+			logger.warn( "system analyse detail by on and off work time for advance analyse got an exception." + detail.getEmpName() );
+			logger.error(e);
+			return "系统在根据打卡信息排班信息进一步分析员工出勤情况时发生异常";
+		}
+		return null;
+	}
+
 	/**
 	 * 根据打卡数据来记录与这条数据相关的统计需求记录
 	 * @param detail
 	 * @throws Exception 
 	 */
 	public void recordStatisticRequireLog( AttendanceDetail detail, Boolean debugger ) throws Exception{
+		List<AttendanceDetail> details = new ArrayList<AttendanceDetail>();
+		details.add( detail );
+		recordStatisticRequireLogs( details, debugger );
+	}
+
+	/**
+	 * 根据一批打卡数据来记录相关的统计需求记录
+	 * 同一个员工，组织在同一个周期或者同一天的统计需求只查询和记录一次，在一个事务中提交
+	 * @param details
+	 * @throws Exception 
+	 */
+	public void recordStatisticRequireLogs( List<AttendanceDetail> details, Boolean debugger ) throws Exception{
 		//数据分析完成，那么需要记录一下需要统计的信息数据
-		AttendanceStatisticRequireLog attendanceStatisticRequireLog = null;
-		AttendanceStatisticRequireLogFactory attendanceStatisticRequireLogFactory = null;
-		Business business = null;
+		Map<String, AttendanceStatisticRequireLog> requires = new LinkedHashMap<>();
+		for( AttendanceDetail detail : details ){
+			addStatisticRequire( requires, "员工每月统计", "PERSON_PER_MONTH", detail.getEmpName(), detail.getCycleYear(), detail.getCycleMonth(), null );
+			addStatisticRequire( requires, "组织每月统计", "UNIT_PER_MONTH", detail.getUnitName(), detail.getCycleYear(), detail.getCycleMonth(), null );
+			addStatisticRequire( requires, "顶层组织每月统计", "TOPUNIT_PER_MONTH", detail.getTopUnitName(), detail.getCycleYear(), detail.getCycleMonth(), null );
+			addStatisticRequire( requires, "组织每日统计", "UNIT_PER_DAY", detail.getUnitName(), detail.getCycleYear(), detail.getCycleMonth(), detail.getRecordDateString() );
+			addStatisticRequire( requires, "顶层组织每日统计", "TOPUNIT_PER_DAY", detail.getTopUnitName(), detail.getCycleYear(), detail.getCycleMonth(), detail.getRecordDateString() );
+		}
+		if( requires.isEmpty() ){
+			return;
+		}
 		List<AttendanceStatisticRequireLog> logList = null;
 		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
-			business = new Business(emc);
-			attendanceStatisticRequireLogFactory = business.getAttendanceStatisticRequireLogFactory();
-			//个人统计每月统计
-			logList = null;
-			logList = attendanceStatisticRequireLogFactory.getByNameKeyAndStatus("PERSON_PER_MONTH", detail.getEmpName(), detail.getCycleYear(), detail.getCycleMonth(), null, "WAITING");
-			if( logList == null || logList.size() == 0 ){
-				logger.debug( debugger, ">>>>>>>>>>统计数据不存在：PERSON_PER_MONTH，"+ detail.getEmpName() + ", " + detail.getCycleYear() + ", " + detail.getCycleMonth() + ", null, WAITING" );
-				attendanceStatisticRequireLog = new AttendanceStatisticRequireLog();
-				attendanceStatisticRequireLog.setStatisticName("员工每月统计");
-				attendanceStatisticRequireLog.setStatisticType("PERSON_PER_MONTH");
-				attendanceStatisticRequireLog.setStatisticKey( detail.getEmpName() );
-				attendanceStatisticRequireLog.setStatisticYear( detail.getCycleYear() );
-				attendanceStatisticRequireLog.setStatisticMonth( detail.getCycleMonth() );
-				emc.beginTransaction( AttendanceStatisticRequireLog.class );
-				emc.persist( attendanceStatisticRequireLog, CheckPersistType.all);	
-				emc.commit();
-			}else{
-				logger.debug( debugger, ">>>>>>>>>>统计数据已存在：PERSON_PER_MONTH，"+ detail.getEmpName() + ", " + detail.getCycleYear() + ", " + detail.getCycleMonth() + ", null, WAITING" );
-			}
-			//组织按月统计
-			logList = null;
-			logList = attendanceStatisticRequireLogFactory.getByNameKeyAndStatus("UNIT_PER_MONTH", detail.getUnitName(), detail.getCycleYear(), detail.getCycleMonth(), null, "WAITING");
-			if( logList == null || logList.size() == 0 ){
-				logger.debug( debugger, ">>>>>>>>>>统计数据不存在：UNIT_PER_MONTH，"+ detail.getUnitName() + ", " + detail.getCycleYear() + ", " + detail.getCycleMonth() + ", null, WAITING" );
-				attendanceStatisticRequireLog = new AttendanceStatisticRequireLog();
-				attendanceStatisticRequireLog.setStatisticName("组织每月统计");
-				attendanceStatisticRequireLog.setStatisticType("UNIT_PER_MONTH");
-				attendanceStatisticRequireLog.setStatisticKey( detail.getUnitName() );
-				attendanceStatisticRequireLog.setStatisticYear( detail.getCycleYear() );
-				attendanceStatisticRequireLog.setStatisticMonth( detail.getCycleMonth() );
-				emc.beginTransaction( AttendanceStatisticRequireLog.class );
-				emc.persist( attendanceStatisticRequireLog, CheckPersistType.all);	
-				emc.commit();
-			}else{
-				logger.debug( debugger, ">>>>>>>>>>统计数据已存在：UNIT_PER_MONTH，"+ detail.getUnitName() + ", " + detail.getCycleYear() + ", " + detail.getCycleMonth() + ", null, WAITING" );
-			}
-			//顶层组织按月统计
-			logList = null;
-			logList = attendanceStatisticRequireLogFactory.getByNameKeyAndStatus("TOPUNIT_PER_MONTH", detail.getTopUnitName(), detail.getCycleYear(), detail.getCycleMonth(), null, "WAITING");
-			if( logList == null || logList.size() == 0 ){
-				logger.debug( debugger, ">>>>>>>>>>统计数据不存在：TOPUNIT_PER_MONTH，"+ detail.getTopUnitName() + ", " + detail.getCycleYear() + ", " + detail.getCycleMonth() + ", null, WAITING" );
-				attendanceStatisticRequireLog = new AttendanceStatisticRequireLog();
-				attendanceStatisticRequireLog.setStatisticName("顶层组织每月统计");
-				attendanceStatisticRequireLog.setStatisticType("TOPUNIT_PER_MONTH");
-				attendanceStatisticRequireLog.setStatisticKey( detail.getTopUnitName() );
-				attendanceStatisticRequireLog.setStatisticYear( detail.getCycleYear() );
-				attendanceStatisticRequireLog.setStatisticMonth( detail.getCycleMonth() );
-				emc.beginTransaction( AttendanceStatisticRequireLog.class );
-				emc.persist( attendanceStatisticRequireLog, CheckPersistType.all);	
-				emc.commit();
-			}else{
-				logger.debug( debugger, ">>>>>>>>>>统计数据已存在：TOPUNIT_PER_MONTH，"+ detail.getTopUnitName() + ", " + detail.getCycleYear() + ", " + detail.getCycleMonth() + ", null, WAITING" );
-			}
-			//组织每日统计
-			logList = null;
-			logList = attendanceStatisticRequireLogFactory.getByNameKeyAndStatus("UNIT_PER_DAY", detail.getUnitName(), null, null, detail.getRecordDateString(), "WAITING");
-			if( logList == null || logList.size() == 0 ){
-				logger.debug( debugger, ">>>>>>>>>>统计数据不存在：UNIT_PER_DAY，"+ detail.getUnitName() + ", null, null , "+ detail.getRecordDateString() +", WAITING" );
-				attendanceStatisticRequireLog = new AttendanceStatisticRequireLog();
-				attendanceStatisticRequireLog.setStatisticName("组织每日统计");
-				attendanceStatisticRequireLog.setStatisticType("UNIT_PER_DAY");
-				attendanceStatisticRequireLog.setStatisticKey( detail.getUnitName() );
-				attendanceStatisticRequireLog.setStatisticYear( detail.getCycleYear() );
-				attendanceStatisticRequireLog.setStatisticMonth( detail.getCycleMonth() );
-				attendanceStatisticRequireLog.setStatisticDay( detail.getRecordDateString() );
-				emc.beginTransaction( AttendanceStatisticRequireLog.class );
-				emc.persist( attendanceStatisticRequireLog, CheckPersistType.all);	
-				emc.commit();
-			}else{
-				logger.debug( debugger, ">>>>>>>>>>统计数据已存在：UNIT_PER_DAY，"+ detail.getUnitName() + ", null, null , "+ detail.getRecordDateString() +", WAITING" );
-			}
-			//顶层组织每日统计
-			logList = null;
-			logList = attendanceStatisticRequireLogFactory.getByNameKeyAndStatus("TOPUNIT_PER_DAY", detail.getTopUnitName(), null, null, detail.getRecordDateString(), "WAITING");
-			if( logList == null || logList.size() == 0 ){
-				logger.debug( debugger, ">>>>>>>>>>统计数据不存在：TOPUNIT_PER_DAY，"+ detail.getTopUnitName() + ", null, null , "+ detail.getRecordDateString() +", WAITING" );
-				attendanceStatisticRequireLog = new AttendanceStatisticRequireLog();
-				attendanceStatisticRequireLog.setStatisticName("顶层组织每日统计");
-				attendanceStatisticRequireLog.setStatisticType("TOPUNIT_PER_DAY");
-				attendanceStatisticRequireLog.setStatisticKey( detail.getTopUnitName() );
-				attendanceStatisticRequireLog.setStatisticYear( detail.getCycleYear() );
-				attendanceStatisticRequireLog.setStatisticMonth( detail.getCycleMonth() );
-				attendanceStatisticRequireLog.setStatisticDay( detail.getRecordDateString() );
-				emc.beginTransaction( AttendanceStatisticRequireLog.class );
-				emc.persist( attendanceStatisticRequireLog, CheckPersistType.all);	
-				emc.commit();
-			}else{
-				logger.debug( debugger, ">>>>>>>>>>统计数据已存在：TOPUNIT_PER_DAY，"+ detail.getTopUnitName() + ", null, null , "+ detail.getRecordDateString() +", WAITING" );
+			AttendanceStatisticRequireLogFactory attendanceStatisticRequireLogFactory = new Business(emc).getAttendanceStatisticRequireLogFactory();
+			emc.beginTransaction( AttendanceStatisticRequireLog.class );
+			for( AttendanceStatisticRequireLog require : requires.values() ){
+				//每月统计按周期查询，每日统计按日期查询
+				if( StringUtils.isEmpty( require.getStatisticDay() ) ){
+					logList = attendanceStatisticRequireLogFactory.getByNameKeyAndStatus( require.getStatisticType(), require.getStatisticKey(), require.getStatisticYear(), require.getStatisticMonth(), null, "WAITING");
+				}else{
+					logList = attendanceStatisticRequireLogFactory.getByNameKeyAndStatus( require.getStatisticType(), require.getStatisticKey(), null, null, require.getStatisticDay(), "WAITING");
+				}
+				if( logList == null || logList.size() == 0 ){
+					logger.debug( debugger, ">>>>>>>>>>统计数据不存在："+ require.getStatisticType() + "，" + require.getStatisticKey() + ", " + require.getStatisticYear() + ", " + require.getStatisticMonth() + ", " + require.getStatisticDay() + ", WAITING" );
+					emc.persist( require, CheckPersistType.all);
+				}else{
+					logger.debug( debugger, ">>>>>>>>>>统计数据已存在："+ require.getStatisticType() + "，" + require.getStatisticKey() + ", " + require.getStatisticYear() + ", " + require.getStatisticMonth() + ", " + require.getStatisticDay() + ", WAITING" );
+				}
 			}
+			emc.commit();
 		}catch(Exception e){
 			logger.warn("系统在向数据库新增统计需求时发生异常" );
 			logger.error(e);
 		}
 	}
-	
+
+	private void addStatisticRequire( Map<String, AttendanceStatisticRequireLog> requires, String statisticName, String statisticType,
+			String statisticKey, String statisticYear, String statisticMonth, String statisticDay ) {
+		String key = statisticType + "#" + statisticKey + "#" + statisticYear + "#" + statisticMonth + "#" + statisticDay;
+		if( !requires.containsKey( key ) ){
+			AttendanceStatisticRequireLog attendanceStatisticRequireLog = new AttendanceStatisticRequireLog();
+			attendanceStatisticRequireLog.setStatisticName( statisticName );
+			attendanceStatisticRequireLog.setStatisticType( statisticType );
+			attendanceStatisticRequireLog.setStatisticKey( statisticKey );
+			attendanceStatisticRequireLog.setStatisticYear( statisticYear );
+			attendanceStatisticRequireLog.setStatisticMonth( statisticMonth );
+			if( statisticDay != null ){
+				attendanceStatisticRequireLog.setStatisticDay( statisticDay );
+			}
+			requires.put( key, attendanceStatisticRequireLog );
+		}
+	}
+
 	/**
 	 * 根据员工休假数据来记录与这条数据相关的统计需求记录
 	 * @param detail
@@ -1082,6 +1087,14 @@ public class AttendanceDetailAnalyseService {
 		}
 	}
 	
+	private void setAnalyseResultAndStatus( AttendanceDetail detail, int status, String description) {
+		detail.setRecordStatus( status );
+		detail.setDescription( description );
+		if( detail.getEmpName() != null ){
+			detail.setEmpName( detail.getEmpName().trim() );
+		}
+	}
+
 	private void saveAnalyseResultAndStatus( EntityManagerContainer emc, String id, int status, String description) throws Exception {
 		AttendanceDetail detail = emc.find( id, AttendanceDetail.class );
 		emc.beginTransaction( AttendanceDetail.class );
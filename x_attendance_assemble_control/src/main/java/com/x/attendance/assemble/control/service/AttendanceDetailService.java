@@ -1,6 +1,7 @@
 package com.x.attendance.assemble.control.service;
 
 import java.util.List;
+import java.util.Map;
 
 import com.x.attendance.assemble.common.date.DateOperation;
 import com.x.attendance.assemble.control.Business;
@@ -123,6 +124,11 @@ public class AttendanceDetailService {
 		return business.getAttendanceDetailFactory().getAllAnalysenessDetails( startDate, endDate, personName );	
 	}
 
+	public Map<String, Long> countAnalysenessDetailsGroupByPerson( EntityManagerContainer emc, String startDate, String endDate ) throws Exception {
+		Business business =  new Business( emc );
+		return business.getAttendanceDetailFactory().countAnalysenessDetailsGroupByPerson( startDate, endDate );
+	}
+
 	/**
 	 * 
 	 * @param emc
@@ -131,6 +131,14 @@ public class AttendanceDetailServiceAdv {
 		}
 	}
 	
+	public Map<String, Long> countAnalysenessDetailsGroupByPerson( String startDate, String endDate ) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			return attendanceDetailService.countAnalysenessDetailsGroupByPerson( emc, startDate, endDate );
+		} catch ( Exception e ) {
+			throw e;
+		}
+	}
+
 	public List<String> getAllAnalysenessPersonNames( String startDate, String endDate ) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			return attendanceDetailService.getAllAnalysenessPersonNames( emc, startDate, endDate );
@@ -4,12 +4,17 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -35,6 +40,7 @@ import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.entity.annotation.RestrictFlag;
 import com.x.base.core.entity.tools.JpaObjectTools;
 import com.x.base.core.project.bean.WrapCopier;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.exception.ExceptionWhen;
 import com.x.base.core.project.gson.GsonPropertyObject;
 import com.x.base.core.project.tools.ListTools;
@@ -45,6 +51,11 @@ public class EntityManagerContainer extends EntityManagerContainerBasic {
 	public static final Integer DEFAULT_PAGESIZE = 20;
 	public static final Integer MAX_PAGESIZE = 1000;
 
+	private static final int FETCH_EXECUTOR_MAX_THREAD = 4;
+	private static final int FETCH_EXECUTOR_QUEUE_SIZE = 256;
+
+	private static volatile ExecutorService fetchExecutor;
+
 	public EntityManagerContainer(EntityManagerContainerFactory entityManagerContainerFactory) {
 		super(entityManagerContainerFactory);
 	}
@@ -355,18 +366,15 @@ public class EntityManagerContainer extends EntityManagerContainerBasic {
 		CriteriaQuery<T> cq = cb.createQuery(cls);
 		Root<T> root = cq.from(cls);
 		final List<String> list = ListTools.trim(new ArrayList<>(ids), true, true);
-		cq.select(root).where(cb.isMember(root.get(JpaObject.id_FIELDNAME), cb.literal(list)));
-		List<T> os = em.createQuery(cq).getResultList();
+		List<T> os = new ArrayList<>();
+		for (List<String> part : ListTools.batch(list, entityManagerContainerFactory.getInClauseLimit(cls))) {
+			cq.select(root).where(cb.isMember(root.get(JpaObject.id_FIELDNAME), cb.literal(part)));
+			os.addAll(em.createQuery(cq).getResultList());
+		}
 		if (!ordered) {
-			return new ArrayList<T>(os);
+			return os;
 		}
-		List<T> ordering = new ArrayList<>(os);
-		Collections.sort(ordering, new Comparator<T>() {
-			public int compare(T t1, T t2) {
-				return Integer.compare(list.indexOf(t1.getId()), list.indexOf(t2.getId()));
-			}
-		});
-		return ordering;
+		return ListTools.orderWithKeys(os, list, JpaObject::getId);
 	}
 
 	public <T extends JpaObject> List<T> listEqual(Class<T> cls, String attribute, Object value) throws Exception {
@@ -945,8 +953,25 @@ public class EntityManagerContainer extends EntityManagerContainerBasic {
 				}
 			}
 		} catch (Exception e) {
+			commitNotifyMap.clear();
 			throw new Exception("commit error", e);
 		}
+		for (Entry<Class<? extends JpaObject>, List<Object>> en : commitNotifyMap.entrySet()) {
+			ApplicationCache.notify(en.getKey(), en.getValue());
+		}
+		commitNotifyMap.clear();
+	}
+
+	/**
+	 * 在下一次commit成功后通知缓存更新,提交前通知会导致其他节点在提交前重新读取到旧的数据并缓存.
+	 */
+	public <T extends JpaObject> void notifyAfterCommit(Class<T> clz, Object... keys) {
+		List<Object> list = commitNotifyMap.computeIfAbsent(clz, k -> new ArrayList<>());
+		for (Object o : keys) {
+			if (!list.contains(o)) {
+				list.add(o);
+			}
+		}
 	}
 
 	public void flush() throws Exception {
@@ -1047,15 +1072,86 @@ public class EntityManagerContainer extends EntityManagerContainerBasic {
 
 	public <T extends JpaObject> List<T> fetch(Collection<String> ids, Class<T> clz, List<String> attributes)
 			throws Exception {
+		return this.fetchOrdered(ids, clz, attributes);
+	}
+
+	public <T extends JpaObject, W extends GsonPropertyObject> List<T> fetch(Collection<String> ids, Class<T> clz,
+			Class<W> wrapClass) throws Exception {
+		List<String> list = new ArrayList<>();
+		for (Field field : FieldUtils.getAllFields(wrapClass)) {
+			Field jpaField = FieldUtils.getField(clz, field.getName(), true);
+			if ((null != jpaField) && (!Collection.class.isAssignableFrom(jpaField.getType()))) {
+				list.add(field.getName());
+			}
+		}
+		return this.fetch(ids, clz, list);
+	}
+
+	public <T extends JpaObject, W extends GsonPropertyObject> List<W> fetch(Collection<String> ids,
+			WrapCopier<T, W> copier) throws Exception {
+		List<T> os = this.fetch(ids, copier.getOrigClass(), copier.getCopyFields());
+		return copier.copy(os);
+	}
+
+	public <T extends JpaObject> List<T> fetchOrdered(Collection<String> ids, Class<T> clz) throws Exception {
+		return this.fetchOrdered(ids, clz, JpaObject.singularAttributeField(clz, true, true));
+	}
+
+	public <T extends JpaObject, W extends GsonPropertyObject> List<W> fetchOrdered(Collection<String> ids,
+			WrapCopier<T, W> copier) throws Exception {
+		List<T> os = this.fetchOrdered(ids, copier.getOrigClass(), copier.getCopyFields());
+		return copier.copy(os);
+	}
+
+	/**
+	 * 按ids顺序批量获取对象,ids按数据库允许的in子句长度分段,多段且当前没有事务时分段并行查询.
+	 */
+	public <T extends JpaObject> List<T> fetchOrdered(Collection<String> ids, Class<T> clz, List<String> attributes)
+			throws Exception {
 		List<T> list = new ArrayList<>();
 		if (ids.isEmpty()) {
 			return list;
 		}
 		List<String> idList = new ArrayList<>(ids);
-		if (!attributes.contains(JpaObject.id_FIELDNAME)) {
-			attributes.add(JpaObject.id_FIELDNAME);
+		List<String> fields = new ArrayList<>(attributes);
+		if (!fields.contains(JpaObject.id_FIELDNAME)) {
+			fields.add(JpaObject.id_FIELDNAME);
 		}
+		List<List<String>> parts = ListTools.batch(idList, entityManagerContainerFactory.getInClauseLimit(clz));
 		EntityManager em = this.get(clz);
+		if ((parts.size() == 1) || em.getTransaction().isActive()) {
+			for (List<String> part : parts) {
+				list.addAll(this.fetchIn(em, part, clz, fields));
+			}
+		} else {
+			List<Future<List<T>>> futures = new ArrayList<>();
+			for (List<String> part : parts) {
+				futures.add(fetchExecutor().submit(() -> {
+					EntityManager partEntityManager = entityManagerContainerFactory.createEntityManager(clz);
+					try {
+						return this.fetchIn(partEntityManager, part, clz, fields);
+					} finally {
+						partEntityManager.close();
+					}
+				}));
+			}
+			try {
+				for (Future<List<T>> future : futures) {
+					list.addAll(future.get());
+				}
+			} catch (ExecutionException e) {
+				for (Future<List<T>> future : futures) {
+					future.cancel(true);
+				}
+				throw new Exception("fetch " + clz.getName() + " with " + idList.size() + " ids error.", e.getCause());
+			}
+		}
+		return ListTools.orderWithKeys(list, idList, JpaObject::getId);
+	}
+
+	private <T extends JpaObject> List<T> fetchIn(EntityManager em, List<String> ids, Class<T> clz,
+			List<String> attributes) throws Exception {
+		List<T> list = new ArrayList<>();
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
 		Root<T> root = cq.from(clz);
@@ -1063,7 +1159,7 @@ public class EntityManagerContainer extends EntityManagerContainerBasic {
 		for (String str : attributes) {
 			selections.add(root.get(str));
 		}
-		cq.multiselect(selections).where(root.get(JpaObject.id_FIELDNAME).in(idList));
+		cq.multiselect(selections).where(root.get(JpaObject.id_FIELDNAME).in(ids));
 		for (Tuple o : em.createQuery(cq).getResultList()) {
 			T t = clz.newInstance();
 			for (int i = 0; i < attributes.size(); i++) {
@@ -1071,31 +1167,28 @@ public class EntityManagerContainer extends EntityManagerContainerBasic {
 			}
 			list.add(t);
 		}
-		List<T> ordering = new ArrayList<>(list);
-		Collections.sort(ordering, new Comparator<T>() {
-			public int compare(T t1, T t2) {
-				return Integer.compare(idList.indexOf(t1.getId()), idList.indexOf(t2.getId()));
-			}
-		});
-		return ordering;
+		return list;
 	}
 
-	public <T extends JpaObject, W extends GsonPropertyObject> List<T> fetch(Collection<String> ids, Class<T> clz,
-			Class<W> wrapClass) throws Exception {
-		List<String> list = new ArrayList<>();
-		for (Field field : FieldUtils.getAllFields(wrapClass)) {
-			Field jpaField = FieldUtils.getField(clz, field.getName(), true);
-			if ((null != jpaField) && (!Collection.class.isAssignableFrom(jpaField.getType()))) {
-				list.add(field.getName());
+	/* 分段并行查询使用的线程池,线程数有限以避免占满数据库连接池,其他按批次并行查询的地方共用该线程池 */
+	public static ExecutorService fetchExecutor() {
+		if (null == fetchExecutor) {
+			synchronized (EntityManagerContainer.class) {
+				if (null == fetchExecutor) {
+					int size = Math.min(FETCH_EXECUTOR_MAX_THREAD, Runtime.getRuntime().availableProcessors());
+					AtomicInteger count = new AtomicInteger(0);
+					ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+							new ArrayBlockingQueue<>(FETCH_EXECUTOR_QUEUE_SIZE), r -> {
+								Thread thread = new Thread(r, "EntityManagerContainer-fetch-" + count.incrementAndGet());
+								thread.setDaemon(true);
+								return thread;
+							}, new ThreadPoolExecutor.CallerRunsPolicy());
+					executor.allowCoreThreadTimeOut(true);
+					fetchExecutor = executor;
+				}
 			}
 		}
-		return this.fetch(ids, clz, list);
-	}
-
-	public <T extends JpaObject, W extends GsonPropertyObject> List<W> fetch(Collection<String> ids,
-			WrapCopier<T, W> copier) throws Exception {
-		List<T> os = this.fetch(ids, copier.getOrigClass(), copier.getCopyFields());
-		return copier.copy(os);
+		return fetchExecutor;
 	}
 
 	/* 仅在单一数据库可用 */
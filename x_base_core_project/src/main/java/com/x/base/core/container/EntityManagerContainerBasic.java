@@ -3,6 +3,7 @@ package com.x.base.core.container;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,6 +30,9 @@ public abstract class EntityManagerContainerBasic implements AutoCloseable {
 
 	protected Map<Class<? extends JpaObject>, EntityManager> entityManagerMap = new ConcurrentHashMap<Class<? extends JpaObject>, EntityManager>();
 
+	/* 提交成功后需要通知的缓存,回滚时丢弃 */
+	protected Map<Class<? extends JpaObject>, List<Object>> commitNotifyMap = new LinkedHashMap<Class<? extends JpaObject>, List<Object>>();
+
 	public <T extends JpaObject> EntityManager get(Class<T> cls) throws Exception {
 		Class<T> clazz = (Class<T>) entityManagerContainerFactory.assignableFrom(cls);
 		EntityManager em = fromEntityManagers(clazz);
@@ -57,6 +61,7 @@ public abstract class EntityManagerContainerBasic implements AutoCloseable {
 	}
 
 	public void rollback() {
+		commitNotifyMap.clear();
 		for (EntityManager em : entityManagerMap.values()) {
 			if ((null != em) && em.getTransaction().isActive()) {
 				em.getTransaction().rollback();
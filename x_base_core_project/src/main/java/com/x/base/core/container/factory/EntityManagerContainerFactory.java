@@ -6,10 +6,16 @@ import java.sql.DriverManager;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.entity.JpaObject;
 import com.x.base.core.entity.annotation.CheckPersist;
@@ -19,6 +25,12 @@ public class EntityManagerContainerFactory extends SliceEntityManagerContainerFa
 
 	private volatile static EntityManagerContainerFactory instance;
 
+	/* 没有数据库方言限制时 in 子句的默认最大长度,oracle 限制为1000,sqlserver 限制参数个数为2100 */
+	public static final Integer DEFAULT_IN_CLAUSE_LIMIT = 1000;
+
+	/* class 与 in 子句最大长度映射表 */
+	private Map<Class<?>, Integer> inClauseLimitMap = new ConcurrentHashMap<>();
+
 	public static void init(String webApplicationDirectory, List<String> entities) throws Exception {
 		synchronized (EntityManagerContainerFactory.class) {
 			if (instance != null) {
@@ -125,4 +137,29 @@ public class EntityManagerContainerFactory extends SliceEntityManagerContainerFa
 	public List<Field> getRestrictFlagFields(Class<?> clazz) throws Exception {
 		return restrictFlagMap.get(assignableFrom(clazz));
 	}
+
+	/* 获取实体所在数据库单条 in 子句允许的最大参数个数 */
+	public Integer getInClauseLimit(Class<?> clazz) throws Exception {
+		Class<?> cls = assignableFrom(clazz);
+		Integer limit = inClauseLimitMap.get(cls);
+		if (null == limit) {
+			limit = DEFAULT_IN_CLAUSE_LIMIT;
+			EntityManagerFactory emf = entityManagerFactoryMap.get(cls);
+			if (emf instanceof OpenJPAEntityManagerFactorySPI) {
+				OpenJPAConfiguration configuration = ((OpenJPAEntityManagerFactorySPI) emf).getConfiguration();
+				if (configuration instanceof JDBCConfiguration) {
+					limit = inClauseLimit(((JDBCConfiguration) configuration).getDBDictionaryInstance());
+				}
+			}
+			inClauseLimitMap.put(cls, limit);
+		}
+		return limit;
+	}
+
+	public static Integer inClauseLimit(DBDictionary dictionary) {
+		if ((null != dictionary) && (dictionary.inClauseLimit > 0)) {
+			return Math.min(dictionary.inClauseLimit, DEFAULT_IN_CLAUSE_LIMIT);
+		}
+		return DEFAULT_IN_CLAUSE_LIMIT;
+	}
 }
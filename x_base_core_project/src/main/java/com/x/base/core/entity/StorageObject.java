@@ -5,7 +5,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 
 import javax.persistence.MappedSuperclass;
@@ -119,6 +121,40 @@ public abstract class StorageObject extends SliceJpaObject {
 		return this.updateContent(mapping, input);
 	}
 
+	/**
+	 * 将本地文件等可靠来源的流直接写入存储,不先拷贝到内存,用于分块上传合并后的大文件.<br/>
+	 * 写入失败时删除已经写入的部分内容.
+	 */
+	public Long saveContentDirectly(StorageMapping mapping, InputStream input, String name) throws Exception {
+		this.setName(name);
+		this.setDeepPath(mapping.getDeepPath());
+		this.setExtension(StringUtils.lowerCase(FilenameUtils.getExtension(name)));
+		long length = -1L;
+		FileSystemManager manager = this.getFileSystemManager();
+		String prefix = this.getPrefix(mapping);
+		String path = this.path();
+		if (StringUtils.isEmpty(path)) {
+			throw new Exception("path can not be empty.");
+		}
+		FileSystemOptions options = this.getOptions(mapping);
+		try (FileObject fo = manager.resolveFile(prefix + PATHSEPARATOR + path, options)) {
+			try (OutputStream output = fo.getContent().getOutputStream()) {
+				length = IOUtils.copyLarge(input, output);
+			} catch (Exception e) {
+				fo.delete();
+				throw e;
+			}
+			this.setLength(length);
+			if (!Objects.equals(StorageProtocol.webdav, mapping.getProtocol())) {
+				/* webdav关闭会试图去关闭commons.httpClient */
+				manager.closeFileSystem(fo.getFileSystem());
+			}
+		}
+		this.setStorage(mapping.getName());
+		this.setLastUpdateTime(new Date());
+		return length;
+	}
+
 	/** 更新Content内容 */
 	public Long updateContent(StorageMapping mapping, byte[] bytes) throws Exception {
 		try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes)) {
@@ -202,6 +238,26 @@ public abstract class StorageObject extends SliceJpaObject {
 		return length;
 	}
 
+	/** 将指定范围的内容流出到output,length小于0时读取到结尾 */
+	public Long readContent(StorageMapping mapping, OutputStream output, long offset, long length) throws Exception {
+		long count = -1L;
+		FileSystemManager manager = this.getFileSystemManager();
+		String prefix = this.getPrefix(mapping);
+		String path = this.path();
+		FileSystemOptions options = this.getOptions(mapping);
+		try (FileObject fo = manager.resolveFile(prefix + PATHSEPARATOR + path, options)) {
+			if (fo.exists() && fo.isFile()) {
+				try (InputStream input = fo.getContent().getInputStream()) {
+					count = IOUtils.copyLarge(input, output, offset, length);
+				}
+			} else {
+				throw new Exception(fo.getPublicURIString() + " not existed, object:" + this.toString() + ".");
+			}
+			manager.closeFileSystem(fo.getFileSystem());
+		}
+		return count;
+	}
+
 	/** 检查是否存在内容 */
 	public boolean existContent(StorageMapping mapping) throws Exception {
 		FileSystemManager manager = this.getFileSystemManager();
@@ -216,6 +272,86 @@ public abstract class StorageObject extends SliceJpaObject {
 		}
 	}
 
+	/** 内容的长度,不存在时返回null */
+	public Long contentLength(StorageMapping mapping) throws Exception {
+		FileSystemManager manager = this.getFileSystemManager();
+		String prefix = this.getPrefix(mapping);
+		String path = this.path();
+		FileSystemOptions options = this.getOptions(mapping);
+		try (FileObject fo = manager.resolveFile(prefix + PATHSEPARATOR + path, options)) {
+			Long length = null;
+			if (fo.exists() && fo.isFile()) {
+				length = fo.getContent().getSize();
+			}
+			manager.closeFileSystem(fo.getFileSystem());
+			return length;
+		}
+	}
+
+	/** 将内容移动到target的位置,target已经存在时覆盖,用于先写入临时位置,写完后再发布 */
+	public void moveContent(StorageMapping mapping, StorageObject target) throws Exception {
+		FileSystemManager manager = this.getFileSystemManager();
+		String prefix = this.getPrefix(mapping);
+		String path = this.path();
+		String targetPath = target.path();
+		if (StringUtils.isEmpty(path) || StringUtils.isEmpty(targetPath)) {
+			throw new Exception("path can not be empty.");
+		}
+		FileSystemOptions options = this.getOptions(mapping);
+		try (FileObject fo = manager.resolveFile(prefix + PATHSEPARATOR + path, options);
+				FileObject to = manager.resolveFile(prefix + PATHSEPARATOR + targetPath, options)) {
+			if (fo.exists() && fo.isFile()) {
+				fo.moveTo(to);
+			} else {
+				throw new Exception(fo.getPublicURIString() + " not existed, object:" + this.toString() + ".");
+			}
+			if (!Objects.equals(StorageProtocol.webdav, mapping.getProtocol())) {
+				/* webdav关闭会试图去关闭commons.httpClient */
+				manager.closeFileSystem(fo.getFileSystem());
+			}
+		}
+	}
+
+	/** 列示path对应的目录下的文件名,目录不存在时返回空列表 */
+	protected List<String> listContentFolder(StorageMapping mapping) throws Exception {
+		FileSystemManager manager = this.getFileSystemManager();
+		String prefix = this.getPrefix(mapping);
+		String path = this.path();
+		if (StringUtils.isEmpty(path)) {
+			throw new Exception("path can not be empty.");
+		}
+		FileSystemOptions options = this.getOptions(mapping);
+		List<String> list = new ArrayList<>();
+		try (FileObject fo = manager.resolveFile(prefix + PATHSEPARATOR + path, options)) {
+			if (fo.exists() && fo.isFolder()) {
+				for (FileObject o : fo.getChildren()) {
+					if (o.isFile()) {
+						list.add(o.getName().getBaseName());
+					}
+				}
+			}
+			manager.closeFileSystem(fo.getFileSystem());
+		}
+		return list;
+	}
+
+	/** 删除path对应的目录及目录下的所有内容 */
+	protected void deleteContentFolder(StorageMapping mapping) throws Exception {
+		FileSystemManager manager = this.getFileSystemManager();
+		String prefix = this.getPrefix(mapping);
+		String path = this.path();
+		if (StringUtils.isEmpty(path)) {
+			throw new Exception("path can not be empty.");
+		}
+		FileSystemOptions options = this.getOptions(mapping);
+		try (FileObject fo = manager.resolveFile(prefix + PATHSEPARATOR + path, options)) {
+			if (fo.exists() && fo.isFolder()) {
+				fo.deleteAll();
+			}
+			manager.closeFileSystem(fo.getFileSystem());
+		}
+	}
+
 	/** 删除内容,同时判断上一级目录(只判断一级)是否为空,为空则删除上一级目录 */
 	public void deleteContent(StorageMapping mapping) throws Exception {
 		FileSystemManager manager = this.getFileSystemManager();
@@ -38,6 +38,7 @@ import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.queue.AbstractQueue;
 import com.x.base.core.project.schedule.AbstractJob;
 import com.x.base.core.project.schedule.JobReportListener;
+import com.x.base.core.project.schedule.ScheduleLease;
 import com.x.base.core.project.schedule.ScheduleLocalRequest;
 import com.x.base.core.project.schedule.ScheduleRequest;
 import com.x.base.core.project.schedule.SchedulerFactoryProperties;
@@ -271,9 +272,20 @@ public class Context extends AbstractContext {
 	 * "schedule")不一样,在log中记录这个值.
 	 */
 	public <T extends AbstractJob> void fireScheduleOnLocal(Class<T> cls, Integer delay) throws Exception {
+		this.fireScheduleOnLocal(cls, delay, null);
+	}
+
+	/**
+	 * leaseToken为center为此次运行申请的租约令牌,运行期间由节点续约.
+	 */
+	public <T extends AbstractJob> void fireScheduleOnLocal(Class<T> cls, Integer delay, Long leaseToken)
+			throws Exception {
 		/* 需要单独生成一个独立任务,保证group和预约的任务不重复 */
 		JobDataMap jobDataMap = new JobDataMap();
 		jobDataMap.put("context", this);
+		if (null != leaseToken) {
+			jobDataMap.put(ScheduleLease.LEASETOKEN, leaseToken);
+		}
 		JobDetail jobDetail = JobBuilder.newJob(cls).withIdentity(cls.getName(), clazz.getName())
 				.usingJobData(jobDataMap).withDescription(Config.node()).build();
 		/* 经过测试0代表不重复,仅运行一次 */
@@ -0,0 +1,49 @@
+package com.x.base.core.project.config;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.XGsonBuilder;
+import com.x.base.core.project.tools.DefaultCharset;
+
+public class Cms extends ConfigObject {
+
+	/* 文档阅读权限展开为人员,每个人员一条Review */
+	public static final String REVIEWMODE_PERSON = "person";
+
+	/* 文档阅读权限保存组织,群组,角色和人员,查询时与当前用户所属的组织,群组,角色匹配 */
+	public static final String REVIEWMODE_PRINCIPAL = "principal";
+
+	public static final String DEFAULT_REVIEWMODE = REVIEWMODE_PERSON;
+
+	public static Cms defaultInstance() {
+		return new Cms();
+	}
+
+	public Cms() {
+		this.reviewMode = DEFAULT_REVIEWMODE;
+	}
+
+	@FieldDescribe("文档阅读权限模式,person:展开为人员,principal:保存组织,群组,角色和人员,在查询时匹配.切换后需要刷新文档的Review.")
+	private String reviewMode;
+
+	public String getReviewMode() {
+		return StringUtils.isEmpty(reviewMode) ? DEFAULT_REVIEWMODE : reviewMode;
+	}
+
+	public Boolean principalReview() {
+		return StringUtils.equalsIgnoreCase(REVIEWMODE_PRINCIPAL, this.getReviewMode());
+	}
+
+	public void setReviewMode(String reviewMode) {
+		this.reviewMode = reviewMode;
+	}
+
+	public void save() throws Exception {
+		File file = new File(Config.base(), Config.PATH_CONFIG_CMS);
+		FileUtils.write(file, XGsonBuilder.toJson(this), DefaultCharset.charset);
+	}
+}
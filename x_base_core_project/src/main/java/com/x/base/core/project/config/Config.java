@@ -72,6 +72,7 @@ public class Config {
 	public static final String PATH_CONFIG_COMMUNICATE = "config/communicate.json";
 	public static final String PATH_CONFIG_EXMAIL = "config/exmail.json";
 	public static final String PATH_CONFIG_PORTAL = "config/portal.json";
+	public static final String PATH_CONFIG_CMS = "config/cms.json";
 
 	public static final String DIR_COMMONS = "commons";
 	public static final String DIR_COMMONS_TESS4J_TESSDATA = "commons/tess4j/tessdata";
@@ -1213,6 +1214,23 @@ public class Config {
 		return instance().portal;
 	}
 
+	public Cms cms;
+
+	public static Cms cms() throws Exception {
+		if (null == instance().cms) {
+			synchronized (Config.class) {
+				if (null == instance().cms) {
+					Cms obj = BaseTools.readConfigObject(PATH_CONFIG_CMS, Cms.class);
+					if (null == obj) {
+						obj = Cms.defaultInstance();
+					}
+					instance().cms = obj;
+				}
+			}
+		}
+		return instance().cms;
+	}
+
 	public static Object resource(String name) throws Exception {
 		return initialContext().lookup(name);
 	}
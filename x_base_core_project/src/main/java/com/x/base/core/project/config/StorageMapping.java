@@ -1,6 +1,9 @@
 package com.x.base.core.project.config;
 
+import java.io.File;
+
 import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.entity.StorageProtocol;
 import com.x.base.core.project.gson.GsonPropertyObject;
@@ -34,6 +37,15 @@ public class StorageMapping extends GsonPropertyObject {
 
 	}
 
+	/* 本地目录存储,不需要存储服务器,测试时使用临时目录 */
+	public StorageMapping(File dir) {
+		this.protocol = StorageProtocol.file;
+		this.name = dir.getName();
+		this.weight = 100;
+		this.deepPath = false;
+		this.prefix = StringUtils.removeStart(dir.getAbsolutePath(), "/");
+	}
+
 	/* 默认是false */
 	public Boolean getDeepPath() {
 		return BooleanUtils.isTrue(this.deepPath);
@@ -78,9 +78,34 @@ public class CipherConnectionAction {
 		return ConnectionAction.multiFormPost(address, headers, fileName, bytes, map);
 	}
 
+	/* 最近签发的cipher token,间隔内的调用共用 */
+	private static volatile CipherToken cipherToken;
+
 	public static List<NameValuePair> cipher() throws Exception {
-		EffectivePerson effectivePerson = EffectivePerson.cipher(Config.token().getCipher());
-		return ListTools.toList(new NameValuePair(HttpToken.X_Token, effectivePerson.getToken()));
+		String key = Config.token().getCipher();
+		long now = System.currentTimeMillis();
+		CipherToken o = cipherToken;
+		if ((null == o) || (!StringUtils.equals(o.key, key)) || ((now - o.issueTime) > HttpToken.REISSUE_INTERVAL)) {
+			o = new CipherToken(key, EffectivePerson.cipher(key).getToken(), now);
+			cipherToken = o;
+		}
+		return ListTools.toList(new NameValuePair(HttpToken.X_Token, o.token));
+	}
+
+	private static class CipherToken {
+
+		private final String key;
+
+		private final String token;
+
+		private final long issueTime;
+
+		private CipherToken(String key, String token, long issueTime) {
+			this.key = key;
+			this.token = token;
+			this.issueTime = issueTime;
+		}
+
 	}
 
 	public static String trim(String uri) {
@@ -0,0 +1,326 @@
+package com.x.base.core.project.derivative;
+
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.entity.StorageObject;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.tools.StringTools;
+
+/**
+ * 由存储对象生成的衍生内容,例如缩略图,缩放后的图片和office预览.<br/>
+ * 衍生内容不保存在数据库中,按(来源标识,转换规格)确定存储路径,与来源存放在同一个存储器中.<br/>
+ * 衍生内容不是实体,存储器的读写委托给内部的存储对象,需要按存储对象输出时使用storageObject().
+ */
+public class Derivative {
+
+	private static Logger logger = LoggerFactory.getLogger(Derivative.class);
+
+	public static final String FOLDER = "derivative";
+
+	public static final String PATHSEPARATOR = StorageObject.PATHSEPARATOR;
+
+	/* 来源与按内容寻址的衍生内容之间的引用记录所在的目录 */
+	private static final String REFERENCE = "reference";
+
+	/* 写入中的临时文件后缀,写完后改名为正式路径,其他节点不会读到不完整的内容 */
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private String key;
+
+	private String spec;
+
+	private Content content;
+
+	/**
+	 * @param key  来源标识,使用key(md5)或者key(StorageObject)生成
+	 * @param spec 转换规格,同时作为文件名,需要带扩展名,例如:fit_200x200.png
+	 */
+	public Derivative(String key, String spec) {
+		this.key = key;
+		this.spec = spec;
+		this.content = new Content(key + PATHSEPARATOR + spec, spec);
+	}
+
+	/**
+	 * 内容寻址的来源(例如OriginFile),相同内容共享衍生内容.
+	 */
+	public static String key(String md5) {
+		return StringUtils.substring(md5, 0, 2) + PATHSEPARATOR + md5;
+	}
+
+	/**
+	 * 可以修改内容的来源,按长度和最后更新时间区分版本,删除来源时可以删除所有版本的衍生内容.
+	 */
+	public static String key(StorageObject storageObject) {
+		return folder(storageObject) + PATHSEPARATOR + version(storageObject);
+	}
+
+	private static String folder(StorageObject storageObject) {
+		return StringUtils.lowerCase(storageObject.getClass().getSimpleName()) + PATHSEPARATOR
+				+ storageObject.getId();
+	}
+
+	private static String version(StorageObject storageObject) {
+		return DigestUtils.md5Hex(storageObject.getLength() + "#" + ((null == storageObject.getLastUpdateTime()) ? ""
+				: storageObject.getLastUpdateTime().getTime()));
+	}
+
+	/**
+	 * 删除来源所有版本的衍生内容,同时删除来源对按内容寻址的衍生内容的引用,没有其他引用的随之删除.
+	 */
+	public static void delete(StorageMapping mapping, StorageObject storageObject) throws Exception {
+		String folder = folder(storageObject);
+		for (String name : new Content(folder + PATHSEPARATOR + REFERENCE, null).list(mapping)) {
+			release(mapping, unescape(name), escape(folder));
+		}
+		new Content(folder, null).deleteFolder(mapping);
+		DerivativeStore.evict(mapping, folder);
+	}
+
+	/**
+	 * 删除来源的衍生内容,失败时只记录日志.<br/>
+	 * 衍生内容可以重新生成,残留的衍生内容不再被引用,不能因此影响来源的删除,在来源的删除提交之后调用.
+	 */
+	public static void deleteQuietly(StorageMapping mapping, StorageObject storageObject) {
+		try {
+			delete(mapping, storageObject);
+		} catch (Exception e) {
+			logger.error(e);
+		}
+	}
+
+	/**
+	 * 记录来源引用了按内容寻址的衍生内容(例如按md5保存的抽取文本),删除来源时释放引用.<br/>
+	 * 先写衍生内容一侧的记录,中途失败时只会多出引用,不会提前删除仍在使用的衍生内容.
+	 */
+	public static void reference(StorageMapping mapping, StorageObject storageObject, String key) throws Exception {
+		String folder = folder(storageObject);
+		Content forward = new Content(folder + PATHSEPARATOR + REFERENCE + PATHSEPARATOR + escape(key),
+				escape(key));
+		if (null == forward.contentLength(mapping)) {
+			new Content(key + PATHSEPARATOR + REFERENCE + PATHSEPARATOR + escape(folder), escape(folder))
+					.saveContent(mapping, new byte[0], escape(folder));
+			forward.saveContent(mapping, new byte[0], escape(key));
+		}
+	}
+
+	private static void release(StorageMapping mapping, String key, String referrer) throws Exception {
+		new Content(key + PATHSEPARATOR + REFERENCE + PATHSEPARATOR + referrer, referrer).deleteContent(mapping);
+		if (new Content(key + PATHSEPARATOR + REFERENCE, null).list(mapping).isEmpty()) {
+			Content content = new Content(key, null);
+			List<String> specs = content.list(mapping);
+			content.deleteFolder(mapping);
+			DerivativeStore.evict(mapping, key, specs);
+		}
+	}
+
+	/* 引用记录以文件名保存标识,标识中的路径分隔符替换为点 */
+	private static String escape(String key) {
+		return StringUtils.replace(key, PATHSEPARATOR, ".");
+	}
+
+	private static String unescape(String name) {
+		return StringUtils.replace(name, ".", PATHSEPARATOR);
+	}
+
+	public String getId() {
+		return content.getId();
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getSpec() {
+		return spec;
+	}
+
+	public String path() throws Exception {
+		return content.path();
+	}
+
+	public String getStorage() {
+		return content.getStorage();
+	}
+
+	public Long getLength() {
+		return content.getLength();
+	}
+
+	/**
+	 * 按存储对象输出,例如构造WoStorageFile
+	 */
+	public StorageObject storageObject() {
+		return content;
+	}
+
+	/**
+	 * 标记为存储器中已经存在的衍生内容
+	 */
+	void located(StorageMapping mapping, Long length) {
+		content.setStorage(mapping.getName());
+		content.setDeepPath(mapping.getDeepPath());
+		content.setLength(length);
+	}
+
+	/**
+	 * 存储器中内容的长度,写入中的临时文件不计算在内,不存在时返回null
+	 */
+	Long contentLength(StorageMapping mapping) throws Exception {
+		return content.contentLength(mapping);
+	}
+
+	/**
+	 * 先写入临时文件,写完后改名为正式路径.
+	 */
+	void saveContent(StorageMapping mapping, byte[] bytes) throws Exception {
+		Content temporary = new Content(content.getId() + "." + StringTools.uniqueToken() + TEMPORARY_SUFFIX, spec);
+		temporary.saveContent(mapping, bytes, spec);
+		try {
+			temporary.moveContent(mapping, content);
+		} catch (Exception e) {
+			temporary.deleteContent(mapping);
+			throw e;
+		}
+		/* 衍生内容由key和spec确定,不记录生成时间,保持ETag稳定 */
+		this.located(mapping, temporary.getLength());
+	}
+
+	public byte[] readContent(StorageMapping mapping) throws Exception {
+		return content.readContent(mapping);
+	}
+
+	public Long readContent(StorageMapping mapping, OutputStream output) throws Exception {
+		return content.readContent(mapping, output);
+	}
+
+	/**
+	 * 衍生内容在存储器中的位置,路径为 derivative/来源标识/转换规格.
+	 */
+	private static class Content extends StorageObject {
+
+		private static final long serialVersionUID = -6580310497716640185L;
+
+		private String id;
+
+		private String storage;
+
+		private Long length;
+
+		private String name;
+
+		private String extension;
+
+		private Date lastUpdateTime;
+
+		private Boolean deepPath;
+
+		private Content(String id, String name) {
+			this.id = id;
+			this.name = name;
+			this.extension = StringUtils.lowerCase(FilenameUtils.getExtension(name));
+		}
+
+		private void deleteFolder(StorageMapping mapping) throws Exception {
+			this.deleteContentFolder(mapping);
+		}
+
+		private List<String> list(StorageMapping mapping) throws Exception {
+			return this.listContentFolder(mapping);
+		}
+
+		@Override
+		public String path() throws Exception {
+			if (StringUtils.isEmpty(id)) {
+				throw new Exception("key and spec can not be empty.");
+			}
+			return FOLDER + PATHSEPARATOR + id;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public void onPersist() throws Exception {
+			/* 衍生内容不保存在数据库中 */
+		}
+
+		@Override
+		public String getStorage() {
+			return storage;
+		}
+
+		@Override
+		public void setStorage(String storage) {
+			this.storage = storage;
+		}
+
+		@Override
+		public Long getLength() {
+			return length;
+		}
+
+		@Override
+		public void setLength(Long length) {
+			this.length = length;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getExtension() {
+			return extension;
+		}
+
+		@Override
+		public void setExtension(String extension) {
+			this.extension = extension;
+		}
+
+		@Override
+		public Date getLastUpdateTime() {
+			return lastUpdateTime;
+		}
+
+		@Override
+		public void setLastUpdateTime(Date lastUpdateTime) {
+			this.lastUpdateTime = lastUpdateTime;
+		}
+
+		@Override
+		public Boolean getDeepPath() {
+			return BooleanUtils.isTrue(deepPath);
+		}
+
+		@Override
+		public void setDeepPath(Boolean deepPath) {
+			this.deepPath = deepPath;
+		}
+
+	}
+
+}
@@ -0,0 +1,230 @@
+package com.x.base.core.project.derivative;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.entity.StorageObject;
+import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+/**
+ * 衍生内容的生成和查找.<br/>
+ * 1.衍生内容保存在存储器中,所有节点共享,只生成一次.<br/>
+ * 2.生成在有界的线程池中进行,队列满时拒绝,不会因为大量预览请求耗尽内存和cpu.<br/>
+ * 3.同一个节点上对同一衍生内容的并发请求合并为一次生成.<br/>
+ * 4.生成器返回null(格式不支持或转换失败)时不保存,下次请求重新尝试.<br/>
+ * 5.内容先写入临时文件,写完后改名为正式路径,查找时只会看到已经写完的衍生内容.
+ */
+public class DerivativeStore {
+
+	private static Logger logger = LoggerFactory.getLogger(DerivativeStore.class);
+
+	private static final int QUEUE_SIZE = 1000;
+
+	private static final int EXISTS_SIZE = 20000;
+
+	/* 等待生成的最长时间 */
+	private static final int WAIT_SECONDS = 300;
+
+	private static final ThreadPoolExecutor EXECUTOR = executor();
+
+	/* 正在生成的衍生内容 */
+	private static final Map<String, CompletableFuture<Derivative>> INFLIGHT = new ConcurrentHashMap<>();
+
+	/*
+	 * 已经确认存在的衍生内容长度,避免每次请求都访问存储器.缓存名包含StorageObject,来源删除后通知所有节点按来源清除.
+	 */
+	private static final Ehcache EXISTS = ApplicationCache.instance().getCache(
+			ApplicationCache.concreteCacheKey(StorageObject.class.getName(), Derivative.class.getName()),
+			EXISTS_SIZE, ApplicationCache.MINUTES_60, ApplicationCache.MINUTES_120);
+
+	private DerivativeStore() {
+	}
+
+	public interface Generator {
+		/**
+		 * 生成衍生内容,无法生成时返回null
+		 */
+		byte[] generate() throws Exception;
+	}
+
+	private static ThreadPoolExecutor executor() {
+		int size = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+		AtomicInteger count = new AtomicInteger(0);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(QUEUE_SIZE), r -> {
+					Thread thread = new Thread(r, "derivative-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * 查找已经存在的衍生内容,不存在时返回null,不会触发生成.
+	 */
+	public static Derivative find(StorageMapping mapping, String key, String spec) throws Exception {
+		Derivative derivative = new Derivative(key, spec);
+		String cacheKey = cacheKey(mapping, key, spec);
+		Element element = EXISTS.get(cacheKey);
+		Long length;
+		if (null != element) {
+			length = (Long) element.getObjectValue();
+		} else {
+			length = derivative.contentLength(mapping);
+			if ((null == length) || (length < 1)) {
+				return null;
+			}
+			EXISTS.put(new Element(cacheKey, length));
+		}
+		derivative.located(mapping, length);
+		return derivative;
+	}
+
+	/**
+	 * 获取衍生内容,不存在时提交生成并等待完成,无法生成时返回null.
+	 */
+	public static Derivative get(StorageMapping mapping, String key, String spec, Generator generator)
+			throws Exception {
+		Derivative derivative = find(mapping, key, spec);
+		if (null != derivative) {
+			return derivative;
+		}
+		try {
+			return submit(mapping, key, spec, generator).get(WAIT_SECONDS, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			throw new Exception("wait derivative timeout, key:" + key + ", spec:" + spec + ".");
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
+	}
+
+	/**
+	 * 在后台预先生成衍生内容,队列已满时放弃,不影响调用者.
+	 */
+	public static void prepare(StorageMapping mapping, String key, String spec, Generator generator) {
+		try {
+			if (null == find(mapping, key, spec)) {
+				submit(mapping, key, spec, generator);
+			}
+		} catch (Exception e) {
+			logger.warn("prepare derivative:{}/{} skipped:{}.", key, spec, e.getMessage());
+		}
+	}
+
+	private static CompletableFuture<Derivative> submit(StorageMapping mapping, String key, String spec,
+			Generator generator) throws Exception {
+		String flight = mapping.getName() + ":" + key + Derivative.PATHSEPARATOR + spec;
+		CompletableFuture<Derivative> future = new CompletableFuture<>();
+		CompletableFuture<Derivative> exist = INFLIGHT.putIfAbsent(flight, future);
+		if (null != exist) {
+			return exist;
+		}
+		try {
+			EXECUTOR.execute(() -> {
+				/* 先移除再完成,完成后的请求不会再拿到已经结束的结果 */
+				try {
+					Derivative derivative = generate(mapping, key, spec, generator);
+					INFLIGHT.remove(flight, future);
+					future.complete(derivative);
+				} catch (Throwable t) {
+					INFLIGHT.remove(flight, future);
+					future.completeExceptionally(t);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			INFLIGHT.remove(flight, future);
+			throw new Exception("derivative queue is full, key:" + key + ", spec:" + spec + ".");
+		}
+		return future;
+	}
+
+	private static Derivative generate(StorageMapping mapping, String key, String spec, Generator generator)
+			throws Exception {
+		/* 排队期间可能已经由其他节点生成 */
+		Derivative derivative = find(mapping, key, spec);
+		if (null != derivative) {
+			return derivative;
+		}
+		byte[] bytes = generator.generate();
+		if ((null == bytes) || (bytes.length == 0)) {
+			logger.debug("derivative:{}/{} not generated.", key, spec);
+			return null;
+		}
+		return save(mapping, key, spec, bytes);
+	}
+
+	/**
+	 * 直接保存由调用者生成的衍生内容,长度为0的内容视为不存在,需要保存空结果时由调用者使用标记代替.
+	 */
+	public static Derivative save(StorageMapping mapping, String key, String spec, byte[] bytes) throws Exception {
+		if ((null == bytes) || (bytes.length == 0)) {
+			throw new Exception("derivative content can not be empty, key:" + key + ", spec:" + spec + ".");
+		}
+		Derivative derivative = new Derivative(key, spec);
+		derivative.saveContent(mapping, bytes);
+		EXISTS.put(new Element(cacheKey(mapping, key, spec), derivative.getLength()));
+		return derivative;
+	}
+
+	/*
+	 * 缓存键以来源所在目录开头,用#分隔,与ApplicationCache接收清除通知时按前缀匹配的规则一致.
+	 */
+	private static String cacheKey(StorageMapping mapping, String key, String spec) {
+		return ApplicationCache.concreteCacheKey(folder(mapping, StringUtils.substringBeforeLast(key,
+				Derivative.PATHSEPARATOR)), StringUtils.substringAfterLast(key, Derivative.PATHSEPARATOR)
+						+ Derivative.PATHSEPARATOR + spec);
+	}
+
+	private static String folder(StorageMapping mapping, String folder) {
+		return mapping.getName() + ":" + folder;
+	}
+
+	/**
+	 * 来源被删除后清除缓存的存在标记,folder为来源所在的目录(类型/标识),本节点立即清除,其他节点通过缓存通知清除.
+	 */
+	static void evict(StorageMapping mapping, String folder) throws Exception {
+		String prefix = folder(mapping, folder) + "#";
+		List<Object> removes = new ArrayList<>();
+		for (Object o : EXISTS.getKeys()) {
+			if (StringUtils.startsWith(o.toString(), prefix)) {
+				removes.add(o);
+			}
+		}
+		EXISTS.removeAll(removes);
+		ApplicationCache.notify(StorageObject.class, folder(mapping, folder));
+	}
+
+	/**
+	 * 按内容寻址的衍生内容被删除后清除缓存的存在标记,specs为删除的转换规格.
+	 */
+	static void evict(StorageMapping mapping, String key, List<String> specs) throws Exception {
+		List<Object> removes = new ArrayList<>();
+		for (String spec : specs) {
+			removes.add(cacheKey(mapping, key, spec));
+		}
+		if (!removes.isEmpty()) {
+			EXISTS.removeAll(removes);
+			ApplicationCache.notify(StorageObject.class, removes);
+		}
+	}
+
+}
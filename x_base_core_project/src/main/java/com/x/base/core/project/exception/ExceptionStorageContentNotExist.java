@@ -0,0 +1,13 @@
+package com.x.base.core.project.exception;
+
+import com.x.base.core.entity.StorageObject;
+
+public class ExceptionStorageContentNotExist extends PromptException {
+
+	private static final long serialVersionUID = 5104529471052493265L;
+
+	public ExceptionStorageContentNotExist(StorageObject storageObject) {
+		super("标识为:{} 的 {} 对象的存储内容不存在.", storageObject.getId(), storageObject.nameOfEntity());
+	}
+
+}
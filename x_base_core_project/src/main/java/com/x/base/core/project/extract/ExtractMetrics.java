@@ -0,0 +1,173 @@
+package com.x.base.core.project.extract;
+
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+
+public class ExtractMetrics extends GsonPropertyObject {
+
+	@FieldDescribe("工作线程数量.")
+	private Integer poolSize;
+
+	@FieldDescribe("执行中数量.")
+	private Integer active;
+
+	@FieldDescribe("排队数量.")
+	private Integer depth;
+
+	@FieldDescribe("请求数量.")
+	private Long requestCount;
+
+	@FieldDescribe("命中已经抽取文本的数量.")
+	private Long cacheHitCount;
+
+	@FieldDescribe("合并到正在进行的抽取的数量.")
+	private Long coalescedCount;
+
+	@FieldDescribe("完成抽取的数量.")
+	private Long extractedCount;
+
+	@FieldDescribe("抽取失败数量.")
+	private Long failedCount;
+
+	@FieldDescribe("超时数量.")
+	private Long timeoutCount;
+
+	@FieldDescribe("队列已满被拒绝的数量.")
+	private Long rejectedCount;
+
+	@FieldDescribe("超过大小限制跳过的数量.")
+	private Long oversizeCount;
+
+	@FieldDescribe("文本超过长度限制被截断的数量.")
+	private Long truncatedCount;
+
+	@FieldDescribe("完成抽取的文件字节数.")
+	private Long extractedBytes;
+
+	@FieldDescribe("平均每个文件的抽取时间,毫秒.")
+	private Long averageElapsed;
+
+	@FieldDescribe("每秒抽取的字节数.")
+	private Double throughput;
+
+	public Integer getPoolSize() {
+		return poolSize;
+	}
+
+	public void setPoolSize(Integer poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	public Integer getActive() {
+		return active;
+	}
+
+	public void setActive(Integer active) {
+		this.active = active;
+	}
+
+	public Integer getDepth() {
+		return depth;
+	}
+
+	public void setDepth(Integer depth) {
+		this.depth = depth;
+	}
+
+	public Long getRequestCount() {
+		return requestCount;
+	}
+
+	public void setRequestCount(Long requestCount) {
+		this.requestCount = requestCount;
+	}
+
+	public Long getCacheHitCount() {
+		return cacheHitCount;
+	}
+
+	public void setCacheHitCount(Long cacheHitCount) {
+		this.cacheHitCount = cacheHitCount;
+	}
+
+	public Long getCoalescedCount() {
+		return coalescedCount;
+	}
+
+	public void setCoalescedCount(Long coalescedCount) {
+		this.coalescedCount = coalescedCount;
+	}
+
+	public Long getExtractedCount() {
+		return extractedCount;
+	}
+
+	public void setExtractedCount(Long extractedCount) {
+		this.extractedCount = extractedCount;
+	}
+
+	public Long getFailedCount() {
+		return failedCount;
+	}
+
+	public void setFailedCount(Long failedCount) {
+		this.failedCount = failedCount;
+	}
+
+	public Long getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	public void setTimeoutCount(Long timeoutCount) {
+		this.timeoutCount = timeoutCount;
+	}
+
+	public Long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	public void setRejectedCount(Long rejectedCount) {
+		this.rejectedCount = rejectedCount;
+	}
+
+	public Long getOversizeCount() {
+		return oversizeCount;
+	}
+
+	public void setOversizeCount(Long oversizeCount) {
+		this.oversizeCount = oversizeCount;
+	}
+
+	public Long getTruncatedCount() {
+		return truncatedCount;
+	}
+
+	public void setTruncatedCount(Long truncatedCount) {
+		this.truncatedCount = truncatedCount;
+	}
+
+	public Long getExtractedBytes() {
+		return extractedBytes;
+	}
+
+	public void setExtractedBytes(Long extractedBytes) {
+		this.extractedBytes = extractedBytes;
+	}
+
+	public Long getAverageElapsed() {
+		return averageElapsed;
+	}
+
+	public void setAverageElapsed(Long averageElapsed) {
+		this.averageElapsed = averageElapsed;
+	}
+
+	public Double getThroughput() {
+		return throughput;
+	}
+
+	public void setThroughput(Double throughput) {
+		this.throughput = throughput;
+	}
+
+}
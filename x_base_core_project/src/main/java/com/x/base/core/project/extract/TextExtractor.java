@@ -0,0 +1,442 @@
+package com.x.base.core.project.extract;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+
+import com.x.base.core.entity.StorageObject;
+import com.x.base.core.project.config.Config;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
+import com.x.base.core.project.derivative.DerivativeStore;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.tools.DefaultCharset;
+import com.x.base.core.project.tools.ExtractTextTools;
+
+/**
+ * 文本抽取服务,用于全文索引和预览.<br/>
+ * 1.内容以流的方式写入本地临时文件,同时计算md5,不需要把整个文件读入内存.<br/>
+ * 2.抽取在独立的有界线程池中进行,每个文件从开始抽取时计时,超时后中断抽取,调用者继续处理下一个文件.<br/>
+ * 3.pdf按内存上限解析,超出部分使用临时文件;office等需要完整读入内存的格式按大小限制跳过;抽取的文本有长度上限.<br/>
+ * 4.抽取的文本按内容md5保存为衍生内容,复制到不同工作的相同附件只抽取一次;抽取失败和超时不保存.<br/>
+ * 5.附件记录对文本的引用,所有引用的附件都删除后文本随之删除.
+ */
+public class TextExtractor {
+
+	private static Logger logger = LoggerFactory.getLogger(TextExtractor.class);
+
+	/* 每个文件的抽取时间上限 */
+	public static final int TIMEOUT_SECONDS = 60;
+
+	/* pdf解析使用的内存上限,超出部分写入临时文件 */
+	public static final long PDF_MEMORY_BUDGET = 1024L * 1024 * 16;
+
+	/* pdf文件大小上限 */
+	public static final long PDF_MAX_LENGTH = 1024L * 1024 * 512;
+
+	/* 抽取文本的长度上限,超出部分截断 */
+	public static final int TEXT_MAX_LENGTH = 1024 * 1024 * 8;
+
+	private static final int QUEUE_SIZE = 200;
+
+	private static final String TYPE_WORD = "word";
+	private static final String TYPE_EXCEL = "excel";
+	private static final String TYPE_PDF = "pdf";
+	private static final String TYPE_TEXT = "text";
+	private static final String TYPE_IMAGE = "image";
+
+	/* 抽取结果保存目录的前缀,与其他按md5保存的衍生内容分开,按引用删除时不影响其他衍生内容 */
+	private static final String FOLDER = "text";
+
+	/* 空文本保存为单个字节的标记,长度为0的衍生内容视为不存在 */
+	private static final byte[] EMPTY_TEXT = new byte[] { 0 };
+
+	private static final ThreadPoolExecutor EXECUTOR = executor();
+
+	/* 抽取开始后计时,超时后结束等待并中断抽取线程 */
+	private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "extract-watchdog");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/* 正在抽取的文本,按内容md5和类型合并相同的请求 */
+	private static final Map<String, CompletableFuture<String>> INFLIGHT = new ConcurrentHashMap<>();
+
+	private static final long START = System.currentTimeMillis();
+	private static final LongAdder REQUEST_COUNT = new LongAdder();
+	private static final LongAdder CACHE_HIT_COUNT = new LongAdder();
+	private static final LongAdder COALESCED_COUNT = new LongAdder();
+	private static final LongAdder EXTRACTED_COUNT = new LongAdder();
+	private static final LongAdder FAILED_COUNT = new LongAdder();
+	private static final LongAdder TIMEOUT_COUNT = new LongAdder();
+	private static final LongAdder REJECTED_COUNT = new LongAdder();
+	private static final LongAdder OVERSIZE_COUNT = new LongAdder();
+	private static final LongAdder TRUNCATED_COUNT = new LongAdder();
+	private static final LongAdder EXTRACTED_BYTES = new LongAdder();
+	private static final LongAdder ELAPSED = new LongAdder();
+
+	private TextExtractor() {
+	}
+
+	private static ThreadPoolExecutor executor() {
+		int size = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		AtomicInteger count = new AtomicInteger(0);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(QUEUE_SIZE), r -> {
+					Thread thread = new Thread(r, "extract-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * 按文件名判断抽取的类型,不支持或者未开启时返回null
+	 */
+	private static String type(String name, Boolean office, Boolean pdf, Boolean txt, Boolean image) {
+		String ext = StringUtils.lowerCase(StringUtils.substringAfterLast(name, "."));
+		if (StringUtils.isEmpty(ext)) {
+			return null;
+		}
+		if (Boolean.TRUE.equals(office)) {
+			if (StringUtils.equalsAny(ext, "doc", "docx")) {
+				return TYPE_WORD;
+			}
+			if (StringUtils.equalsAny(ext, "xls", "xlsx")) {
+				return TYPE_EXCEL;
+			}
+		}
+		if (Boolean.TRUE.equals(pdf) && StringUtils.equals(ext, "pdf")) {
+			return TYPE_PDF;
+		}
+		if (Boolean.TRUE.equals(txt) && StringUtils.equals(ext, "txt")) {
+			return TYPE_TEXT;
+		}
+		if (Boolean.TRUE.equals(image) && StringUtils.equalsAny(ext, "jpg", "png", "gif", "bmp", "jpeg", "jpe")) {
+			return TYPE_IMAGE;
+		}
+		return null;
+	}
+
+	private static long maxLength(String type) {
+		return StringUtils.equals(TYPE_PDF, type) ? PDF_MAX_LENGTH : ExtractTextTools.MAXLENGTH;
+	}
+
+	/**
+	 * 抽取存储对象的文本,抽取结果保存在存储对象所在的存储器中.<br/>
+	 * 不支持的类型或者超过大小限制返回null,抽取失败或超时抛出异常.
+	 */
+	public static String extract(StorageObject storageObject, StorageMapping mapping, Boolean office, Boolean pdf,
+			Boolean txt, Boolean image) throws Exception {
+		String type = type(storageObject.getName(), office, pdf, txt, image);
+		if (null == type) {
+			return null;
+		}
+		REQUEST_COUNT.increment();
+		if ((null != storageObject.getLength()) && (storageObject.getLength() > maxLength(type))) {
+			OVERSIZE_COUNT.increment();
+			return null;
+		}
+		File file = spool();
+		try {
+			String md5;
+			try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+				MessageDigest digest = MessageDigest.getInstance("MD5");
+				DigestOutputStream dos = new DigestOutputStream(output, digest);
+				storageObject.readContent(mapping, dos);
+				dos.flush();
+				md5 = Hex.encodeHexString(digest.digest());
+			}
+			String text = extract(file, md5, type, mapping);
+			if ((null != text) && (file.length() > 0)) {
+				Derivative.reference(mapping, storageObject, key(md5));
+			}
+			return text;
+		} finally {
+			FileUtils.deleteQuietly(file);
+		}
+	}
+
+	/**
+	 * 抽取流的文本,不保存抽取结果.<br/>
+	 * 不支持的类型或者超过大小限制返回null,抽取失败或超时抛出异常.
+	 */
+	public static String extract(InputStream input, String name, Boolean office, Boolean pdf, Boolean txt,
+			Boolean image) throws Exception {
+		String type = type(name, office, pdf, txt, image);
+		if (null == type) {
+			return null;
+		}
+		REQUEST_COUNT.increment();
+		File file = spool();
+		try {
+			String md5;
+			try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+				MessageDigest digest = MessageDigest.getInstance("MD5");
+				DigestOutputStream dos = new DigestOutputStream(output, digest);
+				IOUtils.copyLarge(input, dos);
+				dos.flush();
+				md5 = Hex.encodeHexString(digest.digest());
+			}
+			return extract(file, md5, type, null);
+		} finally {
+			FileUtils.deleteQuietly(file);
+		}
+	}
+
+	private static File spool() throws Exception {
+		File dir = Config.dir_local_temp();
+		FileUtils.forceMkdir(dir);
+		return File.createTempFile("extract_", ".tmp", dir);
+	}
+
+	private static String key(String md5) {
+		return FOLDER + Derivative.PATHSEPARATOR + Derivative.key(md5);
+	}
+
+	private static String extract(File file, String md5, String type, StorageMapping mapping) throws Exception {
+		if (file.length() == 0) {
+			return "";
+		}
+		if (file.length() > maxLength(type)) {
+			OVERSIZE_COUNT.increment();
+			return null;
+		}
+		String key = key(md5);
+		String spec = "text_" + type + ".txt";
+		if (null != mapping) {
+			Derivative derivative = DerivativeStore.find(mapping, key, spec);
+			if (null != derivative) {
+				CACHE_HIT_COUNT.increment();
+				byte[] bytes = derivative.readContent(mapping);
+				return Arrays.equals(EMPTY_TEXT, bytes) ? "" : new String(bytes, DefaultCharset.charset_utf_8);
+			}
+		}
+		String flight = md5 + "#" + type;
+		CompletableFuture<String> future = new CompletableFuture<>();
+		CompletableFuture<String> exist = INFLIGHT.putIfAbsent(flight, future);
+		if (null != exist) {
+			COALESCED_COUNT.increment();
+			return await(exist);
+		}
+		try {
+			EXECUTOR.execute(() -> {
+				long start = System.currentTimeMillis();
+				Thread worker = Thread.currentThread();
+				ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+					/* 与清除中断状态互斥,抽取已经结束时不会中断线程池中的下一个任务 */
+					synchronized (future) {
+						if (future.completeExceptionally(
+								new Exception("extract text timeout, length:" + file.length() + "."))) {
+							TIMEOUT_COUNT.increment();
+							INFLIGHT.remove(flight, future);
+							worker.interrupt();
+						}
+					}
+				}, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				try {
+					String text = parse(file, type);
+					if (null != mapping) {
+						DerivativeStore.save(mapping, key, spec,
+								text.isEmpty() ? EMPTY_TEXT : text.getBytes(DefaultCharset.charset_utf_8));
+					}
+					INFLIGHT.remove(flight, future);
+					if (future.complete(text)) {
+						EXTRACTED_COUNT.increment();
+						EXTRACTED_BYTES.add(file.length());
+					}
+				} catch (Throwable t) {
+					INFLIGHT.remove(flight, future);
+					if (future.completeExceptionally(t)) {
+						FAILED_COUNT.increment();
+					}
+				} finally {
+					watchdog.cancel(false);
+					synchronized (future) {
+						Thread.interrupted();
+					}
+					ELAPSED.add(System.currentTimeMillis() - start);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			REJECTED_COUNT.increment();
+			INFLIGHT.remove(flight, future);
+			throw new Exception("extract queue is full, file md5:" + md5 + ".");
+		}
+		return await(future);
+	}
+
+	/**
+	 * 等待抽取结束,超时由抽取开始时启动的计时处理,排队的时间不计算在内.
+	 */
+	private static String await(CompletableFuture<String> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
+	}
+
+	private static String parse(File file, String type) throws Exception {
+		BudgetWriter writer = new BudgetWriter(TEXT_MAX_LENGTH);
+		try {
+			switch (type) {
+			case TYPE_PDF:
+				try (PDDocument document = PDDocument.load(file,
+						MemoryUsageSetting.setupMixed(PDF_MEMORY_BUDGET).setTempDir(file.getParentFile()))) {
+					PDFTextStripper stripper = new PDFTextStripper();
+					stripper.setStartPage(1);
+					stripper.setEndPage(document.getNumberOfPages());
+					stripper.writeText(document, writer);
+				}
+				break;
+			case TYPE_TEXT:
+				try (Reader reader = new InputStreamReader(new BufferedInputStream(new FileInputStream(file)),
+						DefaultCharset.charset)) {
+					IOUtils.copyLarge(reader, writer);
+				}
+				break;
+			case TYPE_IMAGE:
+				return StringUtils.defaultString(ExtractTextTools.image(FileUtils.readFileToByteArray(file)));
+			default:
+				try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+					new AutoDetectParser().parse(input, new BodyContentHandler(writer), new Metadata(),
+							new ParseContext());
+				}
+				break;
+			}
+		} catch (Exception e) {
+			if (!limitReached(e)) {
+				throw e;
+			}
+			TRUNCATED_COUNT.increment();
+			logger.debug("extract text truncated, length:{}.", file.length());
+		}
+		return writer.toString();
+	}
+
+	private static boolean limitReached(Throwable t) {
+		while (null != t) {
+			if (t instanceof TextLimitException) {
+				return true;
+			}
+			t = t.getCause();
+		}
+		return false;
+	}
+
+	public static ExtractMetrics metrics() {
+		ExtractMetrics metrics = new ExtractMetrics();
+		metrics.setPoolSize(EXECUTOR.getMaximumPoolSize());
+		metrics.setActive(EXECUTOR.getActiveCount());
+		metrics.setDepth(EXECUTOR.getQueue().size());
+		metrics.setRequestCount(REQUEST_COUNT.sum());
+		metrics.setCacheHitCount(CACHE_HIT_COUNT.sum());
+		metrics.setCoalescedCount(COALESCED_COUNT.sum());
+		metrics.setExtractedCount(EXTRACTED_COUNT.sum());
+		metrics.setFailedCount(FAILED_COUNT.sum());
+		metrics.setTimeoutCount(TIMEOUT_COUNT.sum());
+		metrics.setRejectedCount(REJECTED_COUNT.sum());
+		metrics.setOversizeCount(OVERSIZE_COUNT.sum());
+		metrics.setTruncatedCount(TRUNCATED_COUNT.sum());
+		metrics.setExtractedBytes(EXTRACTED_BYTES.sum());
+		long finished = EXTRACTED_COUNT.sum() + FAILED_COUNT.sum();
+		metrics.setAverageElapsed((finished == 0) ? 0L : ELAPSED.sum() / finished);
+		double seconds = Math.max(1, (System.currentTimeMillis() - START) / 1000);
+		metrics.setThroughput(EXTRACTED_BYTES.sum() / seconds);
+		return metrics;
+	}
+
+	private static class TextLimitException extends IOException {
+
+		private static final long serialVersionUID = 4101947342457367071L;
+
+		TextLimitException(int limit) {
+			super("text length exceeds limit:" + limit + ".");
+		}
+	}
+
+	/**
+	 * 限制长度的文本输出,线程被中断时停止写入,使超时的抽取能够尽快结束.
+	 */
+	private static class BudgetWriter extends Writer {
+
+		private final StringBuilder buffer = new StringBuilder();
+
+		private final int limit;
+
+		BudgetWriter(int limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException("extract text interrupted.");
+			}
+			int remain = limit - buffer.length();
+			if (len > remain) {
+				buffer.append(cbuf, off, remain);
+				throw new TextLimitException(limit);
+			}
+			buffer.append(cbuf, off, len);
+		}
+
+		@Override
+		public void flush() {
+			/* 内容保存在内存中 */
+		}
+
+		@Override
+		public void close() {
+			/* 内容保存在内存中 */
+		}
+
+		@Override
+		public String toString() {
+			return buffer.toString();
+		}
+	}
+
+}
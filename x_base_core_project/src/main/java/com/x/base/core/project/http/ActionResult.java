@@ -38,6 +38,9 @@ public class ActionResult<T> implements Serializable {
 
 	protected Long position = 0L;
 
+	/* 分页游标,翻页时作为id回传 */
+	protected String cursor;
+
 	protected String prompt;
 
 	public transient Throwable throwable;
@@ -76,6 +79,14 @@ public class ActionResult<T> implements Serializable {
 		return str;
 	}
 
+	/**
+	 * 直接写入输出,不生成中间字符串
+	 */
+	public void toJson(Appendable writer) {
+		this.spent = (new Date()).getTime() - date.getTime();
+		XGsonBuilder.instance().toJson(this, writer);
+	}
+
 	public String toCompactJson() {
 		this.spent = (new Date()).getTime() - date.getTime();
 		String str = XGsonBuilder.compactInstance().toJson(this);
@@ -109,6 +120,14 @@ public class ActionResult<T> implements Serializable {
 		this.position = position;
 	}
 
+	public String getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
 	public Long getSize() {
 		return size;
 	}
@@ -83,6 +83,17 @@ public class EffectivePerson extends GsonPropertyObject {
 		}
 	}
 
+	/**
+	 * 使用已经验证过的token,不重新生成
+	 */
+	static EffectivePerson withToken(String distinguishedName, TokenType tokenType, String token) {
+		EffectivePerson effectivePerson = new EffectivePerson();
+		effectivePerson.setDistinguishedName(distinguishedName);
+		effectivePerson.setTokenType(tokenType);
+		effectivePerson.token = token;
+		return effectivePerson;
+	}
+
 	private String concreteToken(String key) throws Exception {
 		return Crypto.encrypt(this.getTokenType().toString()
 				+ (DateFormatUtils.format(new Date(), DateTools.formatCompact_yyyyMMddHHmmss)
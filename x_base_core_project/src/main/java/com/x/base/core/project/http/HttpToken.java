@@ -2,7 +2,9 @@ package com.x.base.core.project.http;
 
 import java.net.URLDecoder;
 import java.util.Date;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,6 +37,20 @@ public class HttpToken {
 	private static final String RegularExpression_IP = "([1-9]|[1-9]\\d|1\\d{2}|2[0-4]\\d|25[0-5])(\\.(\\d|[1-9]\\d|1\\d{2}|2[0-4]\\d|25[0-5])){3}";
 	private static final String RegularExpression_Token = "^(anonymous|user|manager|cipher)([2][0][1-2][0-9][0-1][0-9][0-3][0-9][0-5][0-9][0-5][0-9][0-5][0-9])(\\S{1,})$";
 
+	private static final Pattern PATTERN_TOKEN = Pattern.compile(RegularExpression_Token, Pattern.CASE_INSENSITIVE);
+
+	/* 重新签发token的最小间隔,间隔内的请求继续使用原来的token */
+	public static final long REISSUE_INTERVAL = 60000L;
+
+	/* cipher token有效时长 */
+	private static final long CIPHER_EXPIRED = 60000L * 20;
+
+	/* 已验证token缓存的数量上限 */
+	private static final int VERIFIED_CACHE_SIZE = 20000;
+
+	/* 已经验证过的token,key为token */
+	private static final Map<String, Verified> VERIFIED = new ConcurrentHashMap<>();
+
 	public EffectivePerson who(HttpServletRequest request, HttpServletResponse response, String key) throws Exception {
 		EffectivePerson effectivePerson = this.who(this.getToken(request), key);
 		effectivePerson.setRemoteAddress(this.remoteAddress(request));
@@ -58,47 +74,99 @@ public class HttpToken {
 			return EffectivePerson.anonymous();
 		}
 		try {
-			String plain = "";
-			try {
-				plain = Crypto.decrypt(token, key);
-			} catch (Exception e) {
-				logger.warn("can not decrypt token:{}, {}.", token, e.getMessage());
-				return EffectivePerson.anonymous();
-			}
-			Pattern pattern = Pattern.compile(RegularExpression_Token, Pattern.CASE_INSENSITIVE);
-			Matcher matcher = pattern.matcher(plain);
-			if (!matcher.find()) {
-				/* 不报错,跳过错误,将用户设置为anonymous */
-				logger.warn("token format error:{}.", plain);
-				return EffectivePerson.anonymous();
-			}
-			Date date = DateUtils.parseDate(matcher.group(2), DateTools.formatCompact_yyyyMMddHHmmss);
-			TokenType tokenType = TokenType.valueOf(matcher.group(1));
-			long diff = (new Date().getTime() - date.getTime());
-			diff = Math.abs(diff);
-			if (TokenType.user.equals(tokenType) || TokenType.manager.equals(tokenType)) {
-				if (diff > (60000L * Config.person().getTokenExpiredMinutes())) {
-					// throw new Exception("token expired." + token);
-					/* 不报错,跳过错误,将用户设置为anonymous */
-					logger.warn("token expired:{}.", plain);
+			Verified verified = VERIFIED.get(token);
+			if ((null == verified) || (!StringUtils.equals(verified.key, key))) {
+				verified = this.verify(token, key);
+				if (null == verified) {
 					return EffectivePerson.anonymous();
 				}
+				cache(token, verified);
 			}
-			if (TokenType.cipher.equals(tokenType)) {
-				if (diff > (60000 * 20)) {
+			long now = System.currentTimeMillis();
+			long diff = Math.abs(now - verified.issueTime);
+			if (diff > expired(verified.tokenType)) {
+				VERIFIED.remove(token);
+				if (!TokenType.cipher.equals(verified.tokenType)) {
 					/* 不报错,跳过错误,将用户设置为anonymous */
-					return EffectivePerson.anonymous();
+					logger.warn("token expired:{}.", verified.distinguishedName);
 				}
+				return EffectivePerson.anonymous();
 			}
-			EffectivePerson effectivePerson = new EffectivePerson(URLDecoder.decode(matcher.group(3), "utf-8"),
-					tokenType, key);
-			return effectivePerson;
+			if ((diff < REISSUE_INTERVAL) && (!TokenType.anonymous.equals(verified.tokenType))) {
+				/* token刚刚签发过,继续使用原来的token,不重新加密 */
+				return EffectivePerson.withToken(verified.distinguishedName, verified.tokenType, token);
+			}
+			return new EffectivePerson(verified.distinguishedName, verified.tokenType, key);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 		return EffectivePerson.anonymous();
 	}
 
+	/* 解密并解析token,无法识别的token返回null */
+	private Verified verify(String token, String key) throws Exception {
+		String plain = "";
+		try {
+			plain = Crypto.decrypt(token, key);
+		} catch (Exception e) {
+			logger.warn("can not decrypt token:{}, {}.", token, e.getMessage());
+			return null;
+		}
+		Matcher matcher = PATTERN_TOKEN.matcher(plain);
+		if (!matcher.find()) {
+			/* 不报错,跳过错误,将用户设置为anonymous */
+			logger.warn("token format error:{}.", plain);
+			return null;
+		}
+		Date date = DateUtils.parseDate(matcher.group(2), DateTools.formatCompact_yyyyMMddHHmmss);
+		TokenType tokenType = TokenType.valueOf(matcher.group(1));
+		return new Verified(key, tokenType, URLDecoder.decode(matcher.group(3), "utf-8"), date.getTime());
+	}
+
+	private static long expired(TokenType tokenType) throws Exception {
+		if (TokenType.user.equals(tokenType) || TokenType.manager.equals(tokenType)) {
+			return 60000L * Config.person().getTokenExpiredMinutes();
+		}
+		if (TokenType.cipher.equals(tokenType)) {
+			return CIPHER_EXPIRED;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	private static void cache(String token, Verified verified) throws Exception {
+		if (VERIFIED.size() >= VERIFIED_CACHE_SIZE) {
+			long now = System.currentTimeMillis();
+			long max = Math.max(CIPHER_EXPIRED, 60000L * Config.person().getTokenExpiredMinutes());
+			VERIFIED.entrySet().removeIf(o -> Math.abs(now - o.getValue().issueTime) > max);
+			if (VERIFIED.size() >= VERIFIED_CACHE_SIZE) {
+				VERIFIED.clear();
+			}
+		}
+		VERIFIED.put(token, verified);
+	}
+
+	/**
+	 * 已经验证过的token,过期时间每次重新判断
+	 */
+	private static class Verified {
+
+		private final String key;
+
+		private final TokenType tokenType;
+
+		private final String distinguishedName;
+
+		private final long issueTime;
+
+		private Verified(String key, TokenType tokenType, String distinguishedName, long issueTime) {
+			this.key = key;
+			this.tokenType = tokenType;
+			this.distinguishedName = distinguishedName;
+			this.issueTime = issueTime;
+		}
+
+	}
+
 	public void deleteToken(HttpServletRequest request, HttpServletResponse response) throws Exception {
 		try {
 			String cookie = X_Token + "=; path=/; domain=" + this.domain(request) + "; max-age=0";
@@ -0,0 +1,92 @@
+package com.x.base.core.project.jaxrs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * http Range请求中的一个范围,start和end都包含在内.
+ */
+public class ByteRange {
+
+	private static final String PREFIX = "bytes=";
+
+	/* 一次请求允许的最多范围数量,超过时按完整内容输出 */
+	private static final int MAX_COUNT = 16;
+
+	private long start;
+
+	private long end;
+
+	public ByteRange(long start, long end) {
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * 解析Range头,没有Range头,格式错误或者范围过多时返回null,按完整内容输出;<br/>
+	 * 所有范围都超出内容长度时返回空列表,应该返回416.
+	 */
+	public static List<ByteRange> parse(String header, long length) {
+		if (StringUtils.isBlank(header) || (!StringUtils.startsWithIgnoreCase(header.trim(), PREFIX))) {
+			return null;
+		}
+		String[] parts = StringUtils.split(header.trim().substring(PREFIX.length()), ',');
+		if ((parts.length == 0) || (parts.length > MAX_COUNT)) {
+			return null;
+		}
+		List<ByteRange> list = new ArrayList<>();
+		for (String part : parts) {
+			String str = part.trim();
+			int idx = str.indexOf('-');
+			if (idx < 0) {
+				return null;
+			}
+			String first = str.substring(0, idx).trim();
+			String last = str.substring(idx + 1).trim();
+			if ((first.isEmpty() && last.isEmpty()) || (!first.isEmpty() && !StringUtils.isNumeric(first))
+					|| (!last.isEmpty() && !StringUtils.isNumeric(last))) {
+				return null;
+			}
+			try {
+				if (first.isEmpty()) {
+					/* 最后n个字节 */
+					long suffix = Long.parseLong(last);
+					if ((suffix > 0) && (length > 0)) {
+						list.add(new ByteRange(Math.max(0, length - suffix), length - 1));
+					}
+				} else {
+					long start = Long.parseLong(first);
+					long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+					if ((!last.isEmpty()) && (Long.parseLong(last) < start)) {
+						return null;
+					}
+					if (start < length) {
+						list.add(new ByteRange(start, end));
+					}
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return list;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	public long length() {
+		return end - start + 1;
+	}
+
+	public String contentRange(long total) {
+		return "bytes " + start + "-" + end + "/" + total;
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.x.base.core.project.jaxrs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 分页游标,记录边界行的排序值和序号.<br/>
+ * 客户端将上一次返回的游标作为id回传,服务端直接从游标中取得排序值,不再需要按id查询边界行.
+ */
+public class KeysetCursor {
+
+	public static final String PREFIX = "~";
+
+	private static final String SPLIT = ":";
+
+	private static final String TYPE_STRING = "s";
+	private static final String TYPE_DATE = "d";
+	private static final String TYPE_INTEGER = "i";
+	private static final String TYPE_LONG = "l";
+	private static final String TYPE_DOUBLE = "f";
+	private static final String TYPE_BOOLEAN = "b";
+
+	private Object sequence;
+
+	private Long rank;
+
+	public KeysetCursor(Object sequence, Long rank) {
+		this.sequence = sequence;
+		this.rank = rank;
+	}
+
+	public static boolean isCursor(String str) {
+		return StringUtils.startsWith(str, PREFIX);
+	}
+
+	/* 无法解析返回null */
+	public static KeysetCursor decode(String str) {
+		if (!isCursor(str)) {
+			return null;
+		}
+		try {
+			String text = new String(Base64.getUrlDecoder().decode(StringUtils.substring(str, PREFIX.length())),
+					StandardCharsets.UTF_8);
+			String[] parts = StringUtils.splitPreserveAllTokens(text, SPLIT, 3);
+			if (parts.length != 3) {
+				return null;
+			}
+			Long rank = StringUtils.isEmpty(parts[1]) ? null : Long.valueOf(parts[1]);
+			return new KeysetCursor(value(parts[0], parts[2]), rank);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/* 排序值类型不支持时返回null */
+	public String encode() {
+		String type = type(sequence);
+		if (null == type) {
+			return null;
+		}
+		String value = (sequence instanceof Date) ? Long.toString(((Date) sequence).getTime())
+				: sequence.toString();
+		String text = type + SPLIT + (null == rank ? "" : rank.toString()) + SPLIT + value;
+		return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static String encode(Object sequence, Long rank) {
+		return new KeysetCursor(sequence, rank).encode();
+	}
+
+	private static String type(Object o) {
+		if (o instanceof String) {
+			return TYPE_STRING;
+		} else if (o instanceof Date) {
+			return TYPE_DATE;
+		} else if (o instanceof Integer) {
+			return TYPE_INTEGER;
+		} else if (o instanceof Long) {
+			return TYPE_LONG;
+		} else if (o instanceof Double) {
+			return TYPE_DOUBLE;
+		} else if (o instanceof Boolean) {
+			return TYPE_BOOLEAN;
+		}
+		return null;
+	}
+
+	private static Object value(String type, String value) throws Exception {
+		switch (type) {
+		case TYPE_STRING:
+			return value;
+		case TYPE_DATE:
+			return new Date(Long.parseLong(value));
+		case TYPE_INTEGER:
+			return Integer.valueOf(value);
+		case TYPE_LONG:
+			return Long.valueOf(value);
+		case TYPE_DOUBLE:
+			return Double.valueOf(value);
+		case TYPE_BOOLEAN:
+			return Boolean.valueOf(value);
+		default:
+			throw new Exception("unknown cursor type:" + type + ".");
+		}
+	}
+
+	public Object getSequence() {
+		return sequence;
+	}
+
+	public Long getRank() {
+		return rank;
+	}
+
+}
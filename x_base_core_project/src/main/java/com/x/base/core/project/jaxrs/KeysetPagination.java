@@ -0,0 +1,276 @@
+package com.x.base.core.project.jaxrs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.entity.JpaObject;
+import com.x.base.core.project.cache.ApplicationCache;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+/**
+ * 基于排序值的分页查询.<br/>
+ * 同一形状(条件字段,like分词个数,排序)的查询使用同一个参数化的jpql模板,便于查询编译缓存命中;排序值参数始终放在最后,
+ * 有无边界值的模板条件部分相同.总数可以通过estimateCount从缓存读取,实体更新通知时缓存被清空.
+ */
+public class KeysetPagination {
+
+	private static final int TEMPLATE_CACHE_SIZE = 4096;
+
+	private static final int COUNT_CACHE_SIZE = 2000;
+
+	/* 查询形状与jpql模板的映射表 */
+	private static final Map<String, String> TEMPLATES = new ConcurrentHashMap<>();
+
+	private static final String EQUAL = "eq";
+	private static final String NOT_EQUAL = "ne";
+	private static final String LIKE = "lk";
+	private static final String IN = "in";
+	private static final String NOT_IN = "ni";
+	private static final String MEMBER = "mb";
+	private static final String NOT_MEMBER = "nm";
+	private static final String BETWEEN = "bt";
+
+	private Class<? extends JpaObject> cls;
+
+	private String sequenceField;
+
+	private boolean desc;
+
+	private boolean andJoin;
+
+	/* 条件形状,每个元素为 类型,字段名,参数个数 */
+	private List<Object[]> parts = new ArrayList<>();
+
+	private List<Object> values = new ArrayList<>();
+
+	private String shape;
+
+	public KeysetPagination(Class<? extends JpaObject> cls, String sequenceField, String order, EqualsTerms equals,
+			NotEqualsTerms notEquals, LikeTerms likes, InTerms ins, NotInTerms notIns, MemberTerms members,
+			NotMemberTerms notMembers, BetweenTerms betweens, boolean andJoin) {
+		this.cls = cls;
+		this.sequenceField = sequenceField;
+		this.desc = StringUtils.equalsIgnoreCase(order, StandardJaxrsAction.DESC);
+		this.andJoin = andJoin;
+		if (null != equals) {
+			for (Entry<String, Object> en : equals.entrySet()) {
+				this.part(EQUAL, en.getKey(), en.getValue());
+			}
+		}
+		if (null != notEquals) {
+			for (Entry<String, Object> en : notEquals.entrySet()) {
+				this.part(NOT_EQUAL, en.getKey(), en.getValue());
+			}
+		}
+		if (null != likes) {
+			for (Entry<String, Object> en : likes.entrySet()) {
+				List<String> tokens = likeTokens(null == en.getValue() ? "" : en.getValue().toString());
+				if (!tokens.isEmpty()) {
+					parts.add(new Object[] { LIKE, en.getKey(), tokens.size() });
+					for (String token : tokens) {
+						values.add("%" + token + "%");
+					}
+				}
+			}
+		}
+		if (null != ins) {
+			for (Entry<String, Collection<?>> en : ins.entrySet()) {
+				this.part(IN, en.getKey(), en.getValue());
+			}
+		}
+		if (null != notIns) {
+			for (Entry<String, Collection<?>> en : notIns.entrySet()) {
+				this.part(NOT_IN, en.getKey(), en.getValue());
+			}
+		}
+		if (null != members) {
+			for (Entry<String, Object> en : members.entrySet()) {
+				this.part(MEMBER, en.getKey(), en.getValue());
+			}
+		}
+		if (null != notMembers) {
+			for (Entry<String, Object> en : notMembers.entrySet()) {
+				this.part(NOT_MEMBER, en.getKey(), en.getValue());
+			}
+		}
+		if (null != betweens) {
+			for (Entry<String, List<Object>> en : betweens.entrySet()) {
+				parts.add(new Object[] { BETWEEN, en.getKey(), 2 });
+				values.add(en.getValue().get(0));
+				values.add(en.getValue().get(1));
+			}
+		}
+		StringBuilder builder = new StringBuilder(cls.getName()).append(andJoin ? "&" : "|");
+		for (Object[] part : parts) {
+			builder.append(part[0]).append(part[1]).append(part[2]).append(",");
+		}
+		this.shape = builder.toString();
+	}
+
+	private void part(String type, String key, Object value) {
+		parts.add(new Object[] { type, key, 1 });
+		values.add(value);
+	}
+
+	/**
+	 * like按空格分词后使用or连接,去除重复的词以及包含了其他词的词(%ab%已经覆盖%abc%),减少条件数量.
+	 */
+	public static List<String> likeTokens(String value) {
+		List<String> list = new ArrayList<>();
+		for (String s : StringUtils.split(value, " ")) {
+			if (!list.contains(s)) {
+				list.add(s);
+			}
+		}
+		List<String> tokens = new ArrayList<>();
+		for (String s : list) {
+			boolean covered = false;
+			for (String o : list) {
+				if ((!StringUtils.equals(s, o)) && StringUtils.contains(s, o)) {
+					covered = true;
+					break;
+				}
+			}
+			if (!covered) {
+				tokens.add(s);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * 查询一页数据
+	 *
+	 * @param selection 选择的内容,如 o 或者 o.id
+	 * @param sequence  边界行的排序值,为空从头开始
+	 * @param next      true向后翻页,false向前翻页
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> list(EntityManager em, String selection, Object sequence, boolean next, int max)
+			throws Exception {
+		boolean asc = (next != desc);
+		String jpql = this.jpql("SELECT " + selection, (null == sequence) ? null : (asc ? ">" : "<"),
+				asc ? StandardJaxrsAction.ASC : StandardJaxrsAction.DESC);
+		return this.query(em, jpql, sequence).setMaxResults(max).getResultList();
+	}
+
+	/* 排序在sequence之前的数量+1,即sequence所在行的序号 */
+	public Long rank(EntityManager em, Object sequence) throws Exception {
+		String jpql = this.jpql("SELECT count(o)", (null == sequence) ? null : (desc ? ">" : "<"), null);
+		return (Long) this.query(em, jpql, sequence).getSingleResult() + 1;
+	}
+
+	public Long count(EntityManager em) throws Exception {
+		return (Long) this.query(em, this.jpql("SELECT count(o)", null, null), null).getSingleResult();
+	}
+
+	/* 从缓存中获取总数,缓存有效期1分钟,对象更新通知时清空 */
+	public Long estimateCount(EntityManager em) throws Exception {
+		Ehcache cache = ApplicationCache.instance().getCache(
+				ApplicationCache.concreteCacheKey(cls.getName(), KeysetPagination.class.getName()), COUNT_CACHE_SIZE,
+				ApplicationCache.MINUTES_1, ApplicationCache.MINUTES_1);
+		String key = ApplicationCache.concreteCacheKey(shape, StringUtils.join(values, ","));
+		Element element = cache.get(key);
+		if ((null != element) && (null != element.getObjectValue())) {
+			return (Long) element.getObjectValue();
+		}
+		Long count = this.count(em);
+		cache.put(new Element(key, count));
+		return count;
+	}
+
+	private Query query(EntityManager em, String jpql, Object sequence) {
+		Query query = em.createQuery(jpql);
+		for (int i = 0; i < values.size(); i++) {
+			query.setParameter(i + 1, values.get(i));
+		}
+		if (null != sequence) {
+			query.setParameter(values.size() + 1, sequence);
+		}
+		return query;
+	}
+
+	private String jpql(String select, String sequenceOperator, String orderDirection) {
+		String key = select + "#" + sequenceOperator + "#" + orderDirection + "#" + sequenceField + "#" + shape;
+		String jpql = TEMPLATES.get(key);
+		if (null == jpql) {
+			if (TEMPLATES.size() > TEMPLATE_CACHE_SIZE) {
+				TEMPLATES.clear();
+			}
+			jpql = this.template(select, sequenceOperator, orderDirection);
+			TEMPLATES.put(key, jpql);
+		}
+		return jpql;
+	}
+
+	private String template(String select, String sequenceOperator, String orderDirection) {
+		List<String> ps = new ArrayList<>();
+		List<String> ors = new ArrayList<>();
+		int index = 1;
+		/* 排序值参数始终在最后 */
+		if (null != sequenceOperator) {
+			ps.add("o." + sequenceField + " " + sequenceOperator + " ?" + (values.size() + 1));
+		}
+		for (Object[] part : parts) {
+			String type = (String) part[0];
+			String key = (String) part[1];
+			switch (type) {
+			case EQUAL:
+				ps.add("o." + key + " = ?" + index++);
+				break;
+			case NOT_EQUAL:
+				ps.add("(o." + key + " <> ?" + index + " or o." + key + " is null)");
+				index++;
+				break;
+			case LIKE:
+				for (int i = 0; i < (Integer) part[2]; i++) {
+					ors.add("o." + key + " Like ?" + index++);
+				}
+				break;
+			case IN:
+				ps.add("o." + key + " in ?" + index++);
+				break;
+			case NOT_IN:
+				ps.add("o." + key + " not in ?" + index++);
+				break;
+			case MEMBER:
+				ps.add("?" + index++ + " member of o." + key);
+				break;
+			case NOT_MEMBER:
+				ps.add("?" + index++ + " not member of o." + key);
+				break;
+			case BETWEEN:
+				ps.add("(o." + key + " between ?" + index + " AND ?" + (index + 1) + ")");
+				index += 2;
+				break;
+			default:
+				break;
+			}
+		}
+		/* like有点特殊,多个like用or相联 */
+		if (!ors.isEmpty()) {
+			ps.add("(" + StringUtils.join(ors, " or ") + ")");
+		}
+		StringBuilder builder = new StringBuilder(select).append(" FROM ").append(cls.getCanonicalName())
+				.append(" o");
+		if (!ps.isEmpty()) {
+			builder.append(" where ").append(StringUtils.join(ps, (andJoin ? " and " : " or ")));
+		}
+		if (null != orderDirection) {
+			builder.append(" order by o.").append(sequenceField).append(" ").append(orderDirection);
+		}
+		return builder.toString();
+	}
+
+}
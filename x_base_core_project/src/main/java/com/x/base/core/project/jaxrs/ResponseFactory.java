@@ -1,14 +1,22 @@
 package com.x.base.core.project.jaxrs;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.util.List;
 import java.util.Objects;
 import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jetty.http.HttpHeader;
 
@@ -17,6 +25,7 @@ import com.x.base.core.project.gson.XGsonBuilder;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.HttpMediaType;
 import com.x.base.core.project.tools.DefaultCharset;
+import com.x.base.core.project.tools.StringTools;
 
 public class ResponseFactory {
 
@@ -26,6 +35,12 @@ public class ResponseFactory {
 	// public static final String Content_Length = "Content-Length";
 	public static final String Accept_Ranges = "Accept-Ranges";
 	public static final String Content_Type = "Content-Type";
+	public static final String Content_Encoding = "Content-Encoding";
+	public static final String Cache_Control = "Cache-Control";
+	public static final String Vary = "Vary";
+
+	/* 按hash访问的设计内容不会变化,缓存一年 */
+	private static final String CACHE_CONTROL_IMMUTABLE = "private, max-age=31536000, immutable";
 
 	public static <T> Response getDefaultActionResultResponse(ActionResult<T> result) {
 		if (result.getType().equals(ActionResult.Type.error)) {
@@ -35,10 +50,16 @@ public class ResponseFactory {
 				return Response.serverError().entity(result.toJson()).cacheControl(defaultCacheControl).build();
 			}
 		} else {
-			if ((null != result.getData()) && (result.getData() instanceof WoFile)) {
+			if ((null != result.getData()) && (result.getData() instanceof WoStreamFile)) {
+				WoStreamFile wo = (WoStreamFile) result.getData();
+				return storageFileResponse(wo, Response.ok(streaming(wo, 0, -1)), wo.getLength()).build();
+			} else if ((null != result.getData()) && (result.getData() instanceof WoFile)) {
 				WoFile wo = (WoFile) result.getData();
 				return Response.ok(wo.getBytes()).header(Content_Disposition, wo.getContentDisposition())
 						.header(Content_Type, wo.getContentType()).header(Accept_Ranges, "bytes").build();
+			} else if ((null != result.getData()) && (result.getData() instanceof WoArtifact)) {
+				WoArtifact wo = (WoArtifact) result.getData();
+				return Response.ok(wo.getBytes()).type(wo.getContentType()).tag(new EntityTag(wo.getHash())).build();
 			} else if ((null != result.getData()) && (result.getData() instanceof WoText)) {
 				WoText wo = (WoText) result.getData();
 				return Response.ok(wo.getText()).cacheControl(defaultCacheControl).type(HttpMediaType.TEXT_PLAIN_UTF_8)
@@ -65,7 +86,7 @@ public class ResponseFactory {
 							.cacheControl(defaultCacheControl).build();
 				}
 			} else {
-				return Response.ok(result.toJson()).cacheControl(defaultCacheControl).build();
+				return Response.ok(streaming(result)).cacheControl(defaultCacheControl).build();
 			}
 		}
 	}
@@ -78,7 +99,10 @@ public class ResponseFactory {
 				return Response.serverError().entity(result.toJson()).build();
 			}
 		} else {
-			if ((null != result.getData()) && (result.getData() instanceof WoFile)) {
+			if ((null != result.getData()) && (result.getData() instanceof WoStreamFile)) {
+				/* 直接从存储或者本地文件流出的文件 */
+				return getStorageFileResponse(request, (WoStreamFile) result.getData());
+			} else if ((null != result.getData()) && (result.getData() instanceof WoFile)) {
 				/* 附件,二进制流文件 */
 				WoFile wo = (WoFile) result.getData();
 				EntityTag tag = new EntityTag(etagWoFile(wo));
@@ -87,6 +111,9 @@ public class ResponseFactory {
 				}
 				return Response.ok(wo.getBytes()).header(Content_Disposition, wo.getContentDisposition())
 						.header(Content_Type, wo.getContentType()).header(Accept_Ranges, "bytes").tag(tag).build();
+			} else if ((null != result.getData()) && (result.getData() instanceof WoArtifact)) {
+				/* 预先生成的设计内容 */
+				return getArtifactResponse(request, (WoArtifact) result.getData());
 			} else if ((null != result.getData()) && (result.getData() instanceof WoText)) {
 				/* 纯文本text */
 				WoText wo = (WoText) result.getData();
@@ -127,11 +154,156 @@ public class ResponseFactory {
 				if (notModified(request, tag)) {
 					return Response.notModified().tag(tag).build();
 				}
-				return Response.ok(result.toJson()).tag(tag).build();
+				return Response.ok(streaming(result)).tag(tag).build();
 			}
 		}
 	}
 
+	/**
+	 * 使用调用者提供的版本(如对象的updateTime,设计的hash)作为ETag,不需要序列化数据计算.<br/>
+	 * 请求的If-None-Match与版本一致时返回304,调用者在读取和组装数据之前调用,版本为空或不一致时返回null.
+	 */
+	public static Response getNotModifiedResponse(HttpServletRequest request, String version) {
+		if (StringUtils.isEmpty(version)) {
+			return null;
+		}
+		EntityTag tag = new EntityTag(etagVersion(version));
+		if (notModified(request, tag)) {
+			return Response.notModified().tag(tag).build();
+		}
+		return null;
+	}
+
+	/**
+	 * 与getEntityTagActionResultResponse相同,默认的json结果使用版本作为ETag,版本为空时按数据计算.
+	 */
+	public static <T> Response getEntityTagActionResultResponse(HttpServletRequest request, ActionResult<T> result,
+			String version) {
+		if (StringUtils.isEmpty(version) || (!result.getType().equals(ActionResult.Type.success))
+				|| (!isDefault(result.getData()))) {
+			return getEntityTagActionResultResponse(request, result);
+		}
+		EntityTag tag = new EntityTag(etagVersion(version));
+		if (notModified(request, tag)) {
+			return Response.notModified().tag(tag).build();
+		}
+		return Response.ok(streaming(result)).tag(tag).build();
+	}
+
+	private static boolean isDefault(Object o) {
+		return !((o instanceof WoFile) || (o instanceof WoArtifact) || (o instanceof WoText)
+				|| (o instanceof WoContentType) || (o instanceof WoCallback) || (o instanceof WoSeeOther)
+				|| (o instanceof WoTemporaryRedirect));
+	}
+
+	/**
+	 * 输出预先生成的设计内容,使用内容hash作为ETag,客户端接受gzip时直接输出压缩后的内容.
+	 */
+	public static Response getArtifactResponse(HttpServletRequest request, WoArtifact wo) {
+		EntityTag tag = new EntityTag(wo.getHash());
+		Response.ResponseBuilder builder;
+		if (notModified(request, tag)) {
+			builder = Response.notModified();
+		} else if ((null != wo.getGzipBytes()) && StringUtils
+				.containsIgnoreCase(request.getHeader(HttpHeader.ACCEPT_ENCODING.toString()), "gzip")) {
+			builder = Response.ok(wo.getGzipBytes()).type(wo.getContentType()).header(Content_Encoding, "gzip");
+		} else {
+			builder = Response.ok(wo.getBytes()).type(wo.getContentType());
+		}
+		builder.tag(tag).header(Vary, HttpHeader.ACCEPT_ENCODING.toString());
+		if (wo.getImmutable()) {
+			builder.header(Cache_Control, CACHE_CONTROL_IMMUTABLE);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 从存储或者本地文件直接流出文件,支持单个和多个范围的Range请求,If-Range与ETag不一致时输出完整内容.
+	 */
+	public static Response getStorageFileResponse(HttpServletRequest request, WoStreamFile wo) {
+		EntityTag tag = new EntityTag(wo.getETag());
+		if (notModified(request, tag)) {
+			return Response.notModified().tag(tag).build();
+		}
+		Long length = wo.getLength();
+		List<ByteRange> ranges = null;
+		String ifRange = request.getHeader(HttpHeader.IF_RANGE.toString());
+		if ((null != length)
+				&& (StringUtils.isEmpty(ifRange) || StringUtils.equals(ifRange, "\"" + tag.getValue() + "\""))) {
+			ranges = ByteRange.parse(request.getHeader(HttpHeader.RANGE.toString()), length);
+		}
+		if (null == ranges) {
+			return storageFileResponse(wo, Response.ok(streaming(wo, 0, -1)), length).tag(tag).build();
+		}
+		if (ranges.isEmpty()) {
+			return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+					.header(HttpHeader.CONTENT_RANGE.toString(), "bytes */" + length).tag(tag).build();
+		}
+		if (ranges.size() == 1) {
+			ByteRange range = ranges.get(0);
+			Response.ResponseBuilder builder = Response.status(Response.Status.PARTIAL_CONTENT)
+					.entity(streaming(wo, range.getStart(), range.length()));
+			return storageFileResponse(wo, builder, range.length())
+					.header(HttpHeader.CONTENT_RANGE.toString(), range.contentRange(length)).tag(tag).build();
+		}
+		String boundary = StringTools.uniqueToken();
+		StreamingOutput output = multipart(wo, ranges, length, boundary);
+		return Response.status(Response.Status.PARTIAL_CONTENT).entity(output)
+				.header(Content_Disposition, wo.getContentDisposition())
+				.header(Content_Type, "multipart/byteranges; boundary=" + boundary).header(Accept_Ranges, "bytes")
+				.tag(tag).build();
+	}
+
+	private static Response.ResponseBuilder storageFileResponse(WoStreamFile wo, Response.ResponseBuilder builder,
+			Long length) {
+		builder.header(Content_Disposition, wo.getContentDisposition()).header(Content_Type, wo.getContentType())
+				.header(Accept_Ranges, "bytes");
+		if (null != length) {
+			builder.header(HttpHeader.CONTENT_LENGTH.toString(), length);
+		}
+		return builder;
+	}
+
+	/* 多个范围时按multipart/byteranges输出 */
+	private static StreamingOutput multipart(WoStreamFile wo, List<ByteRange> ranges, long length, String boundary) {
+		return output -> {
+			try {
+				for (ByteRange range : ranges) {
+					output.write(("\r\n--" + boundary + "\r\n" + Content_Type + ": " + wo.getContentType() + "\r\n"
+							+ HttpHeader.CONTENT_RANGE.toString() + ": " + range.contentRange(length) + "\r\n\r\n")
+									.getBytes(DefaultCharset.charset_utf_8));
+					wo.write(output, range.getStart(), range.length());
+				}
+				output.write(("\r\n--" + boundary + "--\r\n").getBytes(DefaultCharset.charset_utf_8));
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+		};
+	}
+
+	private static StreamingOutput streaming(WoStreamFile wo, long offset, long length) {
+		return output -> {
+			try {
+				wo.write(output, offset, length);
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+		};
+	}
+
+	/* 将结果直接序列化到输出流 */
+	private static <T> StreamingOutput streaming(ActionResult<T> result) {
+		return output -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, DefaultCharset.charset_utf_8));
+			result.toJson(writer);
+			writer.flush();
+		};
+	}
+
 	private static boolean notModified(HttpServletRequest request, EntityTag tag) {
 		String If_None_Match = request.getHeader(HttpHeader.IF_NONE_MATCH.toString());
 		if (StringUtils.isNotEmpty(If_None_Match)) {
@@ -162,10 +334,22 @@ public class ResponseFactory {
 
 	private static String etagDefault(Object o) {
 		CRC32 crc = new CRC32();
-		crc.update(XGsonBuilder.toJson(o).getBytes(DefaultCharset.charset_utf_8));
+		/* 序列化的同时计算,不生成中间字符串 */
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new CheckedOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, crc), DefaultCharset.charset_utf_8))) {
+			XGsonBuilder.instance().toJson(o, writer);
+		} catch (IOException e) {
+			crc.update(XGsonBuilder.toJson(o).getBytes(DefaultCharset.charset_utf_8));
+		}
 		return crc.getValue() + "";
 	}
 
+	private static String etagVersion(String version) {
+		CRC32 crc = new CRC32();
+		crc.update(version.getBytes(DefaultCharset.charset_utf_8));
+		return "v" + crc.getValue();
+	}
+
 	private static String callback(WoCallback woCallback) {
 		ActionResult<Object> result = new ActionResult<>();
 		result.setData(woCallback.getObject());
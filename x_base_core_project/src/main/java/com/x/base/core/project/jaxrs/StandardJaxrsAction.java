@@ -2,12 +2,9 @@ package com.x.base.core.project.jaxrs;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.Map.Entry;
 
 import javax.persistence.EntityManager;
-import javax.persistence.Query;
 import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -16,14 +13,13 @@ import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Selection;
 
 import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.collections4.map.ListOrderedMap;
 import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.JpaObject;
+import com.x.base.core.entity.tools.JpaObjectTools;
 import com.x.base.core.project.bean.WrapCopier;
-import com.x.base.core.project.exception.ExceptionWhen;
 import com.x.base.core.project.gson.GsonPropertyObject;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.tools.ListTools;
@@ -43,7 +39,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * 
 	 * @param cls           实体类
 	 * @param wcls          wrap类
-	 * @param id            上一页最后一条的ID
+	 * @param id            上一页最后一条的ID,或者上一次查询返回的游标
 	 * @param count         每页条目数:pagesize
 	 * @param sequenceField 作分页序列的属性名
 	 * @param equals        等于的条件集合
@@ -53,6 +49,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * @param notIns        NOT IN查询条件集合
 	 * @param members       隶属于
 	 * @param notMembers    非隶属于
+	 * @param betweens      区间条件集合
 	 * @param andJoin       条件的连接方式
 	 * @param order         排序方式ASC|DESC
 	 * @return
@@ -62,122 +59,11 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 			Class<W> wcls, String id, Integer count, String sequenceField, EqualsTerms equals, NotEqualsTerms notEquals,
 			LikeTerms likes, InTerms ins, NotInTerms notIns, MemberTerms members, NotMemberTerms notMembers,
 			BetweenTerms betweens, boolean andJoin, String order) throws Exception {
-		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				sequence = PropertyUtils.getProperty(emc.find(id, cls, ExceptionWhen.not_found), sequenceField);
-			}
-			EntityManager em = emc.get(cls);
-			String str = "SELECT o FROM " + cls.getCanonicalName() + " o";
-			/* 预编译的SQL语句的参数序号，必须由1开始 */
-			Integer index = 1;
-			List<String> ps = new ArrayList<>();
-			List<Object> vs = new ArrayList<>();
-			// 如果sequence值不为空，那么从sequence开始，如果为空则从头开始
-			if (null != sequence) {
-				ps.add("o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? "<" : ">")
-						+ (" ?" + (index)));
-				vs.add(sequence);
-				index++;
-			}
-			// 以下组织各种条件子句，放到List<String> ps里，相应的值放到List<Object> vs里
-			if (null != equals && (!equals.isEmpty())) {
-				for (Entry<String, Object> en : equals.entrySet()) {
-					ps.add("o." + en.getKey() + (" = ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notEquals && (!notEquals.isEmpty())) {
-				for (Entry<String, Object> en : notEquals.entrySet()) {
-					ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			// like有点特殊，多个like一般用or相联
-			if (null != likes && (!likes.isEmpty())) {
-				List<String> ors = new ArrayList<>();
-				for (Entry<String, Object> en : likes.entrySet()) {
-					for (String s : StringUtils.split(en.getValue().toString(), " ")) {
-						ors.add("o." + en.getKey() + (" Like ?" + index));
-						vs.add("%" + s + "%");
-						index++;
-					}
-				}
-				ps.add("(" + StringUtils.join(ors, " or ") + ")");
-			}
-			if (null != ins && (!ins.isEmpty())) {
-				for (Entry<String, Collection<?>> en : ins.entrySet()) {
-					ps.add("o." + en.getKey() + (" in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notIns && (!notIns.isEmpty())) {
-				for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-					ps.add("o." + en.getKey() + (" not in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != members && (!members.isEmpty())) {
-				for (Entry<String, Object> en : members.entrySet()) {
-					ps.add(("?" + index) + (" member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notMembers && (!notMembers.isEmpty())) {
-				for (Entry<String, Object> en : notMembers.entrySet()) {
-					ps.add(("?" + index) + (" not member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != betweens && (!betweens.isEmpty())) {
-				for (Entry<String, List<Object>> en : betweens.entrySet()) {
-					ps.add("(o." + en.getKey() + (" between ?" + index) + " AND ?" + (index + 1) + ")");
-					vs.add(en.getValue().get(0));
-					vs.add(en.getValue().get(1));
-					index++;
-					index++;
-				}
-			}
-			// 使用指定的方式将条件子句组合起来
-			if (!ps.isEmpty()) {
-				str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-			}
-			// 排序
-			str += " order by o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? DESC : ASC);
-			Query query = em.createQuery(str, cls);
-			// 为查询设置所有的参数值
-			for (int i = 0; i < vs.size(); i++) {
-				query.setParameter(i + 1, vs.get(i));
-			}
-
-			List<W> wraps = new ArrayList<W>();
-			// 限制查询的条数，一般就取一页的条目数，最多为超过list_max
-			@SuppressWarnings("unchecked")
-			List<T> list = query.setMaxResults(Math.max(Math.min(count, list_max), list_min)).getResultList();
-			if (!list.isEmpty()) {
-				// 查询初始的编号
-				Long rank = this.rank(emc, cls, sequenceField, PropertyUtils.getProperty(list.get(0), sequenceField),
-						equals, notEquals, likes, ins, notIns, members, notMembers, andJoin, order);
-				Constructor<W> constructor = wcls.getConstructor(new Class[] { cls });
-				for (T t : list) {
-					W w = (W) constructor.newInstance(new Object[] { t });
-					PropertyUtils.setProperty(w, "rank", rank++);
-					wraps.add(w);
-				}
-			}
-			ActionResult<List<W>> result = new ActionResult<>();
-			result.setData(wraps);
-			// 设置查询结果的总条目数
-			result.setCount(this.count(emc, cls, equals, notEquals, likes, ins, notIns, members, notMembers, andJoin));
-			return result;
-		}
+		Constructor<W> constructor = wcls.getConstructor(new Class[] { cls });
+		return this.standardList(cls, t -> constructor.newInstance(new Object[] { t }), id, count, sequenceField,
+				new KeysetPagination(cls, sequenceField, order, equals, notEquals, likes, ins, notIns, members,
+						notMembers, betweens, andJoin),
+				true);
 	}
 
 	/**
@@ -186,7 +72,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * [2015年12月24日 李义添加了注释内容，代码没有改变]
 	 * 
 	 * @param copier        对象转换类
-	 * @param id            上一页最后一条的ID
+	 * @param id            上一页最后一条的ID,或者上一次查询返回的游标
 	 * @param count         每页条目数:pagesize
 	 * @param sequenceField 作分页序列的属性名
 	 * @param equals        等于的条件集合
@@ -196,6 +82,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * @param notIns        NOT IN查询条件集合
 	 * @param members       隶属于
 	 * @param notMembers    非隶属于
+	 * @param betweens      区间条件集合
 	 * @param andJoin       条件的连接方式
 	 * @param order         排序方式ASC|DESC
 	 * @return
@@ -206,124 +93,9 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 			InTerms ins, NotInTerms notIns, MemberTerms members, NotMemberTerms notMembers, BetweenTerms betweens,
 			boolean andJoin, String order) throws Exception {
 		Class<T> tClass = (Class<T>) copier.getOrigClass();
-		Class<W> wClass = (Class<W>) copier.getDestClass();
-		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				sequence = PropertyUtils.getProperty(emc.find(id, tClass, ExceptionWhen.not_found), sequenceField);
-			}
-			EntityManager em = emc.get(tClass);
-			String str = "SELECT o FROM " + tClass.getCanonicalName() + " o";
-			/* 预编译的SQL语句的参数序号，必须由1开始 */
-			Integer index = 1;
-			List<String> ps = new ArrayList<>();
-			List<Object> vs = new ArrayList<>();
-			// 如果sequence值不为空，那么从sequence开始，如果为空则从头开始
-			if (null != sequence) {
-				ps.add("o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? "<" : ">")
-						+ (" ?" + (index)));
-				vs.add(sequence);
-				index++;
-			}
-			// 以下组织各种条件子句，放到List<String> ps里，相应的值放到List<Object> vs里
-			if (null != equals && (!equals.isEmpty())) {
-				for (Entry<String, Object> en : equals.entrySet()) {
-					ps.add("o." + en.getKey() + (" = ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notEquals && (!notEquals.isEmpty())) {
-				for (Entry<String, Object> en : notEquals.entrySet()) {
-					ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			// like有点特殊，多个like一般用or相联
-			if (null != likes && (!likes.isEmpty())) {
-				List<String> ors = new ArrayList<>();
-				for (Entry<String, Object> en : likes.entrySet()) {
-					for (String s : StringUtils.split(en.getValue().toString(), " ")) {
-						ors.add("o." + en.getKey() + (" Like ?" + index));
-						vs.add("%" + s + "%");
-						index++;
-					}
-				}
-				ps.add("(" + StringUtils.join(ors, " or ") + ")");
-			}
-			if (null != ins && (!ins.isEmpty())) {
-				for (Entry<String, Collection<?>> en : ins.entrySet()) {
-					ps.add("o." + en.getKey() + (" in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notIns && (!notIns.isEmpty())) {
-				for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-					ps.add("o." + en.getKey() + (" not in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != members && (!members.isEmpty())) {
-				for (Entry<String, Object> en : members.entrySet()) {
-					ps.add(("?" + index) + (" member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notMembers && (!notMembers.isEmpty())) {
-				for (Entry<String, Object> en : notMembers.entrySet()) {
-					ps.add(("?" + index) + (" not member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != betweens && (!betweens.isEmpty())) {
-				for (Entry<String, List<Object>> en : betweens.entrySet()) {
-					ps.add("(o." + en.getKey() + (" between ?" + index) + " AND ?" + (index + 1) + ")");
-					vs.add(en.getValue().get(0));
-					vs.add(en.getValue().get(1));
-					index++;
-					index++;
-				}
-			}
-			// 使用指定的方式将条件子句组合起来
-			if (!ps.isEmpty()) {
-				str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-			}
-			// 排序
-			str += " order by o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? DESC : ASC);
-			Query query = em.createQuery(str, tClass);
-			// 为查询设置所有的参数值
-			for (int i = 0; i < vs.size(); i++) {
-				query.setParameter(i + 1, vs.get(i));
-			}
-			List<W> wraps = new ArrayList<W>();
-			// 限制查询的条数，一般就取一页的条目数，最多为超过list_max
-			@SuppressWarnings("unchecked")
-			List<T> list = query.setMaxResults(Math.max(Math.min(count, list_max), list_min)).getResultList();
-			if (!list.isEmpty()) {
-				// 查询初始的编号
-				Long rank = this.rank(emc, tClass, sequenceField, PropertyUtils.getProperty(list.get(0), sequenceField),
-						equals, notEquals, likes, ins, notIns, members, notMembers, andJoin, order);
-				// 为输出的结果进行编号
-				for (T t : list) {
-					W w = wClass.newInstance();
-					copier.copy(t, w);
-					PropertyUtils.setProperty(w, "rank", rank++);
-					wraps.add(w);
-				}
-			}
-			ActionResult<List<W>> result = new ActionResult<>();
-			result.setData(wraps);
-			// 设置查询结果的总条目数
-			result.setCount(
-					this.count(emc, tClass, equals, notEquals, likes, ins, notIns, members, notMembers, andJoin));
-			return result;
-		}
+		return this.standardList(tClass, copier(copier), id, count, sequenceField, new KeysetPagination(tClass,
+				sequenceField, order, equals, notEquals, likes, ins, notIns, members, notMembers, betweens, andJoin),
+				true);
 	}
 
 	/**
@@ -333,7 +105,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * 
 	 * @param cls           实体类
 	 * @param wcls          wrap类
-	 * @param id            上一页最后一条的ID
+	 * @param id            上一页最后一条的ID,或者上一次查询返回的游标
 	 * @param count         每页条目数:pagesize
 	 * @param sequenceField 作分页序列的属性名
 	 * @param equals        等于的条件集合
@@ -343,6 +115,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * @param notIns        NOT IN查询条件集合
 	 * @param members       隶属于
 	 * @param notMembers    非隶属于
+	 * @param betweens      区间条件集合
 	 * @param andJoin       条件的连接方式
 	 * @param order         排序方式ASC|DESC
 	 * @return
@@ -352,123 +125,11 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 			Class<W> wcls, String id, Integer count, String sequenceField, EqualsTerms equals, NotEqualsTerms notEquals,
 			LikeTerms likes, InTerms ins, NotInTerms notIns, MemberTerms members, NotMemberTerms notMembers,
 			BetweenTerms betweens, boolean andJoin, String order) throws Exception {
-		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				sequence = PropertyUtils.getProperty(emc.find(id, cls, ExceptionWhen.not_found), sequenceField);
-			}
-			EntityManager em = emc.get(cls);
-			String str = "SELECT o FROM " + cls.getCanonicalName() + " o";
-			/* 预编译的SQL语句的参数序号，必须由1开始 */
-			Integer index = 1;
-			List<String> ps = new ArrayList<>();
-			List<Object> vs = new ArrayList<>();
-			// 如果sequence值不为空，那么从sequence开始，如果为空则从头开始
-			if (null != sequence) {
-				ps.add("o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? ">" : "<")
-						+ (" ?" + (index)));
-				vs.add(sequence);
-				index++;
-			}
-			// 以下组织各种条件子句，放到List<String> ps里，相应的值放到List<Object> vs里
-			if (null != equals && (!equals.isEmpty())) {
-				for (Entry<String, Object> en : equals.entrySet()) {
-					ps.add("o." + en.getKey() + (" = ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notEquals && (!notEquals.isEmpty())) {
-				for (Entry<String, Object> en : notEquals.entrySet()) {
-					ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			// like有点特殊，多个like一般用or相联
-			if (null != likes && (!likes.isEmpty())) {
-				List<String> ors = new ArrayList<>();
-				for (Entry<String, Object> en : likes.entrySet()) {
-					for (String s : StringUtils.split(en.getValue().toString(), " ")) {
-						ors.add("o." + en.getKey() + (" Like ?" + index));
-						vs.add("%" + s + "%");
-						index++;
-					}
-				}
-				ps.add("(" + StringUtils.join(ors, " or ") + ")");
-			}
-			if (null != ins && (!ins.isEmpty())) {
-				for (Entry<String, Collection<?>> en : ins.entrySet()) {
-					ps.add("o." + en.getKey() + (" in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notIns && (!notIns.isEmpty())) {
-				for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-					ps.add("o." + en.getKey() + (" not in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != members && (!members.isEmpty())) {
-				for (Entry<String, Object> en : members.entrySet()) {
-					ps.add(("?" + index) + (" member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notMembers && (!notMembers.isEmpty())) {
-				for (Entry<String, Object> en : notMembers.entrySet()) {
-					ps.add(("?" + index) + (" not member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != betweens && (!betweens.isEmpty())) {
-				for (Entry<String, List<Object>> en : betweens.entrySet()) {
-					ps.add("(o." + en.getKey() + (" between ?" + index) + " AND ?" + (index + 1) + ")");
-					vs.add(en.getValue().get(0));
-					vs.add(en.getValue().get(1));
-					index++;
-					index++;
-				}
-			}
-			// 使用指定的方式将条件子句组合起来
-			if (!ps.isEmpty()) {
-				str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-			}
-			// 排序
-			str += " order by o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? ASC : DESC);
-			Query query = em.createQuery(str, cls);
-			// 为查询设置所有的参数值
-			for (int i = 0; i < vs.size(); i++) {
-				query.setParameter(i + 1, vs.get(i));
-			}
-			List<W> wraps = new ArrayList<W>();
-			// 限制查询的条数，一般就取一页的条目数，最多为超过list_max
-			@SuppressWarnings("unchecked")
-			List<T> list = query.setMaxResults(Math.max(Math.min(count, list_max), list_min)).getResultList();
-			if (!list.isEmpty()) {
-				// 查询初始的编号
-				Long rank = this.rank(emc, cls, sequenceField,
-						PropertyUtils.getProperty(list.get(list.size() - 1), sequenceField), equals, notEquals, likes,
-						ins, notIns, members, notMembers, andJoin, order);
-				Constructor<W> constructor = wcls.getConstructor(new Class[] { cls });
-				// 为输出的结果进行编号
-				for (int i = list.size() - 1; i >= 0; i--) {
-					W w = (W) constructor.newInstance(new Object[] { list.get(i) });
-					PropertyUtils.setProperty(w, "rank", rank++);
-					wraps.add(w);
-				}
-			}
-			ActionResult<List<W>> result = new ActionResult<>();
-			result.setData(wraps);
-			// 设置查询结果的总条目数
-			result.setCount(this.count(emc, cls, equals, notEquals, likes, ins, notIns, members, notMembers, andJoin));
-			return result;
-		}
+		Constructor<W> constructor = wcls.getConstructor(new Class[] { cls });
+		return this.standardList(cls, t -> constructor.newInstance(new Object[] { t }), id, count, sequenceField,
+				new KeysetPagination(cls, sequenceField, order, equals, notEquals, likes, ins, notIns, members,
+						notMembers, betweens, andJoin),
+				false);
 	}
 
 	/**
@@ -476,7 +137,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * 
 	 * [2015年12月24日 李义添加了注释内容，代码没有改变]
 	 * 
-	 * @param id            上一页最后一条的ID
+	 * @param id            上一页最后一条的ID,或者上一次查询返回的游标
 	 * @param count         每页条目数:pagesize
 	 * @param sequenceField 作分页序列的属性名
 	 * @param equals        等于的条件集合
@@ -486,6 +147,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * @param notIns        NOT IN查询条件集合
 	 * @param members       隶属于
 	 * @param notMembers    非隶属于
+	 * @param betweens      区间条件集合
 	 * @param andJoin       条件的连接方式
 	 * @param order         排序方式ASC|DESC
 	 * @return
@@ -496,273 +158,99 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 			InTerms ins, NotInTerms notIns, MemberTerms members, NotMemberTerms notMembers, BetweenTerms betweens,
 			boolean andJoin, String order) throws Exception {
 		Class<T> tClass = (Class<T>) copier.getOrigClass();
+		return this.standardList(tClass, copier(copier), id, count, sequenceField, new KeysetPagination(tClass,
+				sequenceField, order, equals, notEquals, likes, ins, notIns, members, notMembers, betweens, andJoin),
+				false);
+	}
+
+	private interface Converter<T, W> {
+		W convert(T t) throws Exception;
+	}
+
+	private static <T extends JpaObject, W> Converter<T, W> copier(WrapCopier<T, W> copier) {
 		Class<W> wClass = (Class<W>) copier.getDestClass();
+		return t -> {
+			W w = wClass.newInstance();
+			copier.copy(t, w);
+			return w;
+		};
+	}
+
+	private <T extends JpaObject, W> ActionResult<List<W>> standardList(Class<T> cls, Converter<T, W> converter,
+			String id, Integer count, String sequenceField, KeysetPagination pagination, boolean next)
+			throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				sequence = PropertyUtils.getProperty(emc.find(id, tClass, ExceptionWhen.not_found), sequenceField);
-			}
-			EntityManager em = emc.get(tClass);
-			String str = "SELECT o FROM " + tClass.getCanonicalName() + " o";
-			/* 预编译的SQL语句的参数序号，必须由1开始 */
-			Integer index = 1;
-			List<String> ps = new ArrayList<>();
-			List<Object> vs = new ArrayList<>();
-			// 如果sequence值不为空，那么从sequence开始，如果为空则从头开始
-			if (null != sequence) {
-				ps.add("o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? ">" : "<")
-						+ (" ?" + (index)));
-				vs.add(sequence);
-				index++;
-			}
-			// 以下组织各种条件子句，放到List<String> ps里，相应的值放到List<Object> vs里
-			if (null != equals && (!equals.isEmpty())) {
-				for (Entry<String, Object> en : equals.entrySet()) {
-					ps.add("o." + en.getKey() + (" = ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notEquals && (!notEquals.isEmpty())) {
-				for (Entry<String, Object> en : notEquals.entrySet()) {
-					ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			// like有点特殊，多个like一般用or相联
-			if (null != likes && (!likes.isEmpty())) {
-				List<String> ors = new ArrayList<>();
-				for (Entry<String, Object> en : likes.entrySet()) {
-					for (String s : StringUtils.split(en.getValue().toString(), " ")) {
-						ors.add("o." + en.getKey() + (" Like ?" + index));
-						vs.add("%" + s + "%");
-						index++;
-					}
-				}
-				ps.add("(" + StringUtils.join(ors, " or ") + ")");
-			}
-			if (null != ins && (!ins.isEmpty())) {
-				for (Entry<String, Collection<?>> en : ins.entrySet()) {
-					ps.add("o." + en.getKey() + (" in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notIns && (!notIns.isEmpty())) {
-				for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-					ps.add("o." + en.getKey() + (" not in ?" + index));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != members && (!members.isEmpty())) {
-				for (Entry<String, Object> en : members.entrySet()) {
-					ps.add(("?" + index) + (" member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != notMembers && (!notMembers.isEmpty())) {
-				for (Entry<String, Object> en : notMembers.entrySet()) {
-					ps.add(("?" + index) + (" not member of o." + en.getKey()));
-					vs.add(en.getValue());
-					index++;
-				}
-			}
-			if (null != betweens && (!betweens.isEmpty())) {
-				for (Entry<String, List<Object>> en : betweens.entrySet()) {
-					ps.add("(o." + en.getKey() + (" between ?" + index) + " AND ?" + (index + 1) + ")");
-					vs.add(en.getValue().get(0));
-					vs.add(en.getValue().get(1));
-					index++;
-					index++;
-				}
-			}
-			// 使用指定的方式将条件子句组合起来
-			if (!ps.isEmpty()) {
-				str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-			}
-			// 排序
-			str += " order by o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? ASC : DESC);
-			Query query = em.createQuery(str, tClass);
-			// 为查询设置所有的参数值
-			for (int i = 0; i < vs.size(); i++) {
-				query.setParameter(i + 1, vs.get(i));
-			}
+			// 先获取上一页边界行的sequence值，id为游标时直接从游标中读取，如果有值的话，以此sequence值作为依据取后续的count条数据
+			KeysetCursor cursor = this.cursor(emc, cls, id, sequenceField, true);
+			EntityManager em = emc.get(cls);
+			List<T> list = pagination.list(em, "o", (null == cursor) ? null : cursor.getSequence(), next,
+					this.max(count));
 			List<W> wraps = new ArrayList<W>();
-			// 限制查询的条数，一般就取一页的条目数，最多为超过list_max
-			@SuppressWarnings("unchecked")
-			List<T> list = query.setMaxResults(Math.max(Math.min(count, list_max), list_min)).getResultList();
+			ActionResult<List<W>> result = new ActionResult<>();
 			if (!list.isEmpty()) {
-				// 查询初始的编号
-				Long rank = this.rank(emc, tClass, sequenceField,
-						PropertyUtils.getProperty(list.get(list.size() - 1), sequenceField), equals, notEquals, likes,
-						ins, notIns, members, notMembers, andJoin, order);
-				// 为输出的结果进行编号
-				for (int i = list.size() - 1; i >= 0; i--) {
-					W w = wClass.newInstance();
-					copier.copy(list.get(i), w);
+				Object first = PropertyUtils.getProperty(list.get(0), sequenceField);
+				Object last = PropertyUtils.getProperty(list.get(list.size() - 1), sequenceField);
+				// 查询初始的编号，向前翻页时查询结果为倒序
+				Long rank = this.rank(em, pagination, cursor, next, list.size(), next ? first : last);
+				result.setCursor(KeysetCursor.encode(last, next ? rank + list.size() - 1 : rank));
+				for (int i = 0; i < list.size(); i++) {
+					W w = converter.convert(list.get(next ? i : list.size() - 1 - i));
 					PropertyUtils.setProperty(w, "rank", rank++);
 					wraps.add(w);
 				}
 			}
-			ActionResult<List<W>> result = new ActionResult<>();
 			result.setData(wraps);
 			// 设置查询结果的总条目数
-			result.setCount(
-					this.count(emc, tClass, equals, notEquals, likes, ins, notIns, members, notMembers, andJoin));
+			result.setCount(this.count(em, pagination, cursor));
 			return result;
 		}
 	}
 
-	private <T extends JpaObject> Long rank(EntityManagerContainer emc, Class<T> cls, String sequenceField,
-			Object sequence, ListOrderedMap<String, Object> equals, ListOrderedMap<String, Object> notEquals,
-			ListOrderedMap<String, Object> likes, ListOrderedMap<String, Collection<?>> ins,
-			ListOrderedMap<String, Collection<?>> notIns, ListOrderedMap<String, Object> members,
-			ListOrderedMap<String, Object> notMembers, boolean andJoin, String order) throws Exception {
-		EntityManager em = emc.get(cls);
-		String str = "SELECT count(o) FROM " + cls.getCanonicalName() + " o";
-		/* 预编译的SQL语句的参数序号，必须由1开始 */
-		Integer index = 1;
-		List<String> ps = new ArrayList<>();
-		List<Object> vs = new ArrayList<>();
-		if (null != sequence) {
-			ps.add("o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? ">" : "<")
-					+ (" ?" + (index)));
-			vs.add(sequence);
-			index++;
-		}
-		if (null != equals && (!equals.isEmpty())) {
-			for (Entry<String, Object> en : equals.entrySet()) {
-				ps.add("o." + en.getKey() + (" = ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notEquals && (!notEquals.isEmpty())) {
-			for (Entry<String, Object> en : notEquals.entrySet()) {
-				ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != likes && (!likes.isEmpty())) {
-			List<String> ors = new ArrayList<>();
-			for (Entry<String, Object> en : likes.entrySet()) {
-				ors.add("o." + en.getKey() + (" Like ?" + index));
-				vs.add("%" + en.getValue() + "%");
-				index++;
-			}
-			ps.add("(" + StringUtils.join(ors, " or ") + ")");
+	/**
+	 * 获取边界行的排序值和序号，id为游标时直接从游标中读取，否则按id查询边界行的排序值
+	 */
+	private <T extends JpaObject> KeysetCursor cursor(EntityManagerContainer emc, Class<T> cls, String id,
+			String sequenceField, boolean exceptionWhenNotFound) throws Exception {
+		if (StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
+			return null;
 		}
-		if (null != ins && (!ins.isEmpty())) {
-			for (Entry<String, Collection<?>> en : ins.entrySet()) {
-				ps.add("o." + en.getKey() + (" in ?" + index));
-				vs.add(en.getValue());
-				index++;
+		if (KeysetCursor.isCursor(id)) {
+			KeysetCursor cursor = KeysetCursor.decode(id);
+			if (null == cursor) {
+				throw new Exception("invalid cursor: " + id + ".");
 			}
+			return cursor;
 		}
-		if (null != notIns && (!notIns.isEmpty())) {
-			for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-				ps.add("o." + en.getKey() + (" not in ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
+		T t = null;
+		if (StringUtils.isNotEmpty(id) && JpaObjectTools.withinDefinedLength(id, cls, JpaObject.id_FIELDNAME)) {
+			t = emc.fetch(id, cls, ListTools.toList(sequenceField));
 		}
-		if (null != members && (!members.isEmpty())) {
-			for (Entry<String, Object> en : members.entrySet()) {
-				ps.add(("?" + index) + (" member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
+		if (null == t) {
+			if (exceptionWhenNotFound) {
+				throw new Exception("can not find entity id: " + id + ", class: " + cls.getCanonicalName() + ".");
 			}
+			return null;
 		}
-		if (null != notMembers && (!notMembers.isEmpty())) {
-			for (Entry<String, Object> en : notMembers.entrySet()) {
-				ps.add(("?" + index) + (" not member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (!ps.isEmpty()) {
-			str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-		}
-		Query query = em.createQuery(str, cls);
-		for (int i = 0; i < vs.size(); i++) {
-			query.setParameter(i + 1, vs.get(i));
-		}
-		return (Long) query.getSingleResult() + 1;
+		Object sequence = PropertyUtils.getProperty(t, sequenceField);
+		return (null == sequence) ? null : new KeysetCursor(sequence, null);
 	}
 
-	private <T extends JpaObject> Long count(EntityManagerContainer emc, Class<T> cls, EqualsTerms equals,
-			NotEqualsTerms notEquals, LikeTerms likes, InTerms ins, NotInTerms notIns, MemberTerms members,
-			NotMemberTerms notMembers, boolean andJoin) throws Exception {
-		EntityManager em = emc.get(cls);
-		String str = "SELECT count(o) FROM " + cls.getCanonicalName() + " o";
-		/* 预编译的SQL语句的参数序号，必须由1开始 */
-		Integer index = 1;
-		List<String> ps = new ArrayList<>();
-		List<Object> vs = new ArrayList<>();
-		if (null != equals && (!equals.isEmpty())) {
-			for (Entry<String, Object> en : equals.entrySet()) {
-				ps.add("o." + en.getKey() + (" = ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notEquals && (!notEquals.isEmpty())) {
-			for (Entry<String, Object> en : notEquals.entrySet()) {
-				ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-				vs.add(en.getValue());
-				index++;
-			}
+	/* 游标中有序号时直接推算,否则查询 */
+	private Long rank(EntityManager em, KeysetPagination pagination, KeysetCursor cursor, boolean next, int size,
+			Object sequence) throws Exception {
+		if ((null != cursor) && (null != cursor.getRank())) {
+			return next ? cursor.getRank() + 1 : Math.max(cursor.getRank() - size, 1);
 		}
-		if (null != likes && (!likes.isEmpty())) {
-			List<String> ors = new ArrayList<>();
-			for (Entry<String, Object> en : likes.entrySet()) {
-				ors.add("o." + en.getKey() + (" Like ?" + index));
-				vs.add("%" + en.getValue() + "%");
-				index++;
-			}
-			ps.add("(" + StringUtils.join(ors, " or ") + ")");
-		}
-		if (null != ins && (!ins.isEmpty())) {
-			for (Entry<String, Collection<?>> en : ins.entrySet()) {
-				ps.add("o." + en.getKey() + (" in ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notIns && (!notIns.isEmpty())) {
-			for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-				ps.add("o." + en.getKey() + (" not in ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != members && (!members.isEmpty())) {
-			for (Entry<String, Object> en : members.entrySet()) {
-				ps.add(("?" + index) + (" member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notMembers && (!notMembers.isEmpty())) {
-			for (Entry<String, Object> en : notMembers.entrySet()) {
-				ps.add(("?" + index) + (" not member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (!ps.isEmpty()) {
-			str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-		}
-		Query query = em.createQuery(str, cls);
-		for (int i = 0; i < vs.size(); i++) {
-			query.setParameter(i + 1, vs.get(i));
-		}
-		return (Long) query.getSingleResult();
+		return pagination.rank(em, sequence);
+	}
+
+	/* 翻页时使用缓存的总数 */
+	private Long count(EntityManager em, KeysetPagination pagination, KeysetCursor cursor) throws Exception {
+		return (null == cursor) ? pagination.count(em) : pagination.estimateCount(em);
+	}
+
+	private int max(Integer count) {
+		return Math.max(Math.min(count, list_max), list_min);
 	}
 
 	/**
@@ -771,7 +259,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * [2015年12月24日 李义添加了注释内容，代码没有改变]
 	 * 
 	 * @param copier        对象转换类
-	 * @param id            上一页最后一条的ID
+	 * @param id            上一页最后一条的ID,或者上一次查询返回的游标
 	 * @param count         每页条目数:pagesize
 	 * @param sequenceField 作分页序列的属性名
 	 * @param equals        等于的条件集合
@@ -781,6 +269,7 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	 * @param notIns        NOT IN查询条件集合
 	 * @param members       隶属于
 	 * @param notMembers    非隶属于
+	 * @param betweens      区间条件集合
 	 * @param andJoin       条件的连接方式
 	 * @param order         排序方式ASC|DESC
 	 * @return
@@ -790,225 +279,49 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 			EntityManagerContainer emc, WrapCopier<T, W> copier, String id, Integer count, String sequenceField,
 			EqualsTerms equals, NotEqualsTerms notEquals, LikeTerms likes, InTerms ins, NotInTerms notIns,
 			MemberTerms members, NotMemberTerms notMembers, boolean andJoin, String order) throws Exception {
-		Class<T> tClass = (Class<T>) copier.getOrigClass();
-		/** 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据 */
-		Object sequence = null;
-		if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-			Object o = emc.find(id, tClass);
-			if (null != o) {
-				sequence = PropertyUtils.getProperty(o, sequenceField);
-			}
-		}
-		EntityManager em = emc.get(tClass);
-		String str = "SELECT o.id FROM " + tClass.getCanonicalName() + " o";
-		/** 预编译的SQL语句的参数序号，必须由1开始 */
-		Integer index = 1;
-		List<String> ps = new ArrayList<>();
-		List<Object> vs = new ArrayList<>();
-		/** 如果sequence值不为空，那么从sequence开始，如果为空则从头开始 */
-		if (null != sequence) {
-			ps.add("o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? "<" : ">")
-					+ (" ?" + (index)));
-			vs.add(sequence);
-			index++;
-		}
-		/** 以下组织各种条件子句，放到List<String> ps里，相应的值放到List<Object> vs里 */
-		if (null != equals && (!equals.isEmpty())) {
-			for (Entry<String, Object> en : equals.entrySet()) {
-				ps.add("o." + en.getKey() + (" = ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notEquals && (!notEquals.isEmpty())) {
-			for (Entry<String, Object> en : notEquals.entrySet()) {
-				ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		/** like有点特殊，多个like一般用or相联 */
-		if (null != likes && (!likes.isEmpty())) {
-			List<String> ors = new ArrayList<>();
-			for (Entry<String, Object> en : likes.entrySet()) {
-				for (String s : StringUtils.split(en.getValue().toString(), " ")) {
-					ors.add("o." + en.getKey() + (" Like ?" + index));
-					vs.add("%" + s + "%");
-					index++;
-				}
-			}
-			ps.add("(" + StringUtils.join(ors, " or ") + ")");
-		}
-		if (null != ins && (!ins.isEmpty())) {
-			for (Entry<String, Collection<?>> en : ins.entrySet()) {
-				ps.add("o." + en.getKey() + (" in ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notIns && (!notIns.isEmpty())) {
-			for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-				ps.add("o." + en.getKey() + (" not in ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != members && (!members.isEmpty())) {
-			for (Entry<String, Object> en : members.entrySet()) {
-				ps.add(("?" + index) + (" member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notMembers && (!notMembers.isEmpty())) {
-			for (Entry<String, Object> en : notMembers.entrySet()) {
-				ps.add(("?" + index) + (" not member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		/** 使用指定的方式将条件子句组合起来 */
-		if (!ps.isEmpty()) {
-			str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-		}
-		/** 排序 */
-		str += " order by o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? DESC : ASC);
-		Query query = em.createQuery(str, tClass);
-		/** 为查询设置所有的参数值 */
-		for (int i = 0; i < vs.size(); i++) {
-			query.setParameter(i + 1, vs.get(i));
-		}
-		/** 限制查询的条数，一般就取一页的条目数，最多为超过list_max */
-		@SuppressWarnings("unchecked")
-		List<String> ids = query.setMaxResults(Math.max(Math.min(count, list_max), list_min)).getResultList();
-		/** 获取所有符合条件的id */
-		List<W> wos = emc.fetch(ids, copier);
-		if (!wos.isEmpty()) {
-			/** 查询初始的编号 */
-			Long rank = this.rank(emc, tClass, sequenceField, PropertyUtils.getProperty(wos.get(0), sequenceField),
-					equals, notEquals, likes, ins, notIns, members, notMembers, andJoin, order);
-			/** 为输出的结果进行编号 */
-			for (W w : wos) {
-				PropertyUtils.setProperty(w, "rank", rank++);
-			}
-		}
-		ActionResult<List<W>> result = new ActionResult<>();
-		result.setData(wos);
-		/** 设置查询结果的总条目数 */
-		result.setCount(this.count(emc, tClass, equals, notEquals, likes, ins, notIns, members, notMembers, andJoin));
-		return result;
+		return this.standardFetchAttributeList(emc, copier, id, count, sequenceField, equals, notEquals, likes, ins,
+				notIns, members, notMembers, andJoin, order, true);
 	}
 
 	public <T extends JpaObject, W extends GsonPropertyObject> ActionResult<List<W>> standardFetchAttributeListPrev(
 			EntityManagerContainer emc, WrapCopier<T, W> copier, String id, Integer count, String sequenceField,
 			EqualsTerms equals, NotEqualsTerms notEquals, LikeTerms likes, InTerms ins, NotInTerms notIns,
 			MemberTerms members, NotMemberTerms notMembers, boolean andJoin, String order) throws Exception {
+		return this.standardFetchAttributeList(emc, copier, id, count, sequenceField, equals, notEquals, likes, ins,
+				notIns, members, notMembers, andJoin, order, false);
+	}
+
+	private <T extends JpaObject, W extends GsonPropertyObject> ActionResult<List<W>> standardFetchAttributeList(
+			EntityManagerContainer emc, WrapCopier<T, W> copier, String id, Integer count, String sequenceField,
+			EqualsTerms equals, NotEqualsTerms notEquals, LikeTerms likes, InTerms ins, NotInTerms notIns,
+			MemberTerms members, NotMemberTerms notMembers, boolean andJoin, String order, boolean next)
+			throws Exception {
 		Class<T> tClass = (Class<T>) copier.getOrigClass();
-		/** 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据 */
-		Object sequence = null;
-		if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-			Object o = emc.find(id, tClass);
-			if (null != o) {
-				sequence = PropertyUtils.getProperty(o, sequenceField);
-			}
-		}
+		KeysetPagination pagination = new KeysetPagination(tClass, sequenceField, order, equals, notEquals, likes,
+				ins, notIns, members, notMembers, null, andJoin);
+		/** 先获取上一页边界行的sequence值，id为游标时直接从游标中读取 */
+		KeysetCursor cursor = this.cursor(emc, tClass, id, sequenceField, false);
 		EntityManager em = emc.get(tClass);
-		String str = "SELECT o.id FROM " + tClass.getCanonicalName() + " o";
-		/** 预编译的SQL语句的参数序号，必须由1开始 */
-		Integer index = 1;
-		List<String> ps = new ArrayList<>();
-		List<Object> vs = new ArrayList<>();
-		/** 如果sequence值不为空，那么从sequence开始，如果为空则从头开始 */
-		if (null != sequence) {
-			ps.add("o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? ">" : "<")
-					+ (" ?" + (index)));
-			vs.add(sequence);
-			index++;
-		}
-		/** 以下组织各种条件子句，放到List<String> ps里，相应的值放到List<Object> vs里 */
-		if (null != equals && (!equals.isEmpty())) {
-			for (Entry<String, Object> en : equals.entrySet()) {
-				ps.add("o." + en.getKey() + (" = ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notEquals && (!notEquals.isEmpty())) {
-			for (Entry<String, Object> en : notEquals.entrySet()) {
-				ps.add("(o." + en.getKey() + (" <> ?" + index) + " or o." + en.getKey() + " is null)");
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		/** like有点特殊，多个like一般用or相联 */
-		if (null != likes && (!likes.isEmpty())) {
-			List<String> ors = new ArrayList<>();
-			for (Entry<String, Object> en : likes.entrySet()) {
-				for (String s : StringUtils.split(en.getValue().toString(), " ")) {
-					ors.add("o." + en.getKey() + (" Like ?" + index));
-					vs.add("%" + s + "%");
-					index++;
-				}
-			}
-			ps.add("(" + StringUtils.join(ors, " or ") + ")");
-		}
-		if (null != ins && (!ins.isEmpty())) {
-			for (Entry<String, Collection<?>> en : ins.entrySet()) {
-				ps.add("o." + en.getKey() + (" in ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notIns && (!notIns.isEmpty())) {
-			for (Entry<String, Collection<?>> en : notIns.entrySet()) {
-				ps.add("o." + en.getKey() + (" not in ?" + index));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != members && (!members.isEmpty())) {
-			for (Entry<String, Object> en : members.entrySet()) {
-				ps.add(("?" + index) + (" member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		if (null != notMembers && (!notMembers.isEmpty())) {
-			for (Entry<String, Object> en : notMembers.entrySet()) {
-				ps.add(("?" + index) + (" not member of o." + en.getKey()));
-				vs.add(en.getValue());
-				index++;
-			}
-		}
-		/** 使用指定的方式将条件子句组合起来 */
-		if (!ps.isEmpty()) {
-			str += " where " + StringUtils.join(ps, (andJoin ? " and " : " or "));
-		}
-		/** 排序 */
-		str += " order by o." + sequenceField + " " + (StringUtils.equalsIgnoreCase(order, DESC) ? ASC : DESC);
-		Query query = em.createQuery(str, tClass);
-		/** 为查询设置所有的参数值 */
-		for (int i = 0; i < vs.size(); i++) {
-			query.setParameter(i + 1, vs.get(i));
-		}
 		/** 限制查询的条数，一般就取一页的条目数，最多为超过list_max */
-		@SuppressWarnings("unchecked")
-		List<String> ids = query.setMaxResults(Math.max(Math.min(count, list_max), list_min)).getResultList();
+		List<String> ids = pagination.list(em, "o.id", (null == cursor) ? null : cursor.getSequence(), next,
+				this.max(count));
+		/** 获取所有符合条件的id */
 		List<W> wos = emc.fetch(ids, copier);
+		ActionResult<List<W>> result = new ActionResult<>();
 		if (!wos.isEmpty()) {
+			Object first = PropertyUtils.getProperty(wos.get(0), sequenceField);
+			Object last = PropertyUtils.getProperty(wos.get(wos.size() - 1), sequenceField);
 			/** 查询初始的编号 */
-			Long rank = this.rank(emc, tClass, sequenceField,
-					PropertyUtils.getProperty(wos.get(wos.size() - 1), sequenceField), equals, notEquals, likes, ins,
-					notIns, members, notMembers, andJoin, order);
+			Long rank = this.rank(em, pagination, cursor, next, wos.size(), next ? first : last);
+			result.setCursor(KeysetCursor.encode(last, next ? rank + wos.size() - 1 : rank));
 			/** 为输出的结果进行编号 */
-			for (int i = wos.size() - 1; i >= 0; i--) {
-				PropertyUtils.setProperty(wos.get(i), "rank", rank++);
+			for (int i = 0; i < wos.size(); i++) {
+				PropertyUtils.setProperty(wos.get(next ? i : wos.size() - 1 - i), "rank", rank++);
 			}
 		}
-		ActionResult<List<W>> result = new ActionResult<>();
 		result.setData(wos);
 		/** 设置查询结果的总条目数 */
-		result.setCount(this.count(emc, tClass, equals, notEquals, likes, ins, notIns, members, notMembers, andJoin));
+		result.setCount(this.count(em, pagination, cursor));
 		return result;
 	}
 
@@ -1027,14 +340,9 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 		Class<T> tClass = (Class<T>) copier.getOrigClass();
 		Class<W> wClass = (Class<W>) copier.getDestClass();
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				T t = emc.fetch(id, tClass, ListTools.toList(sequenceField));
-				if (null != t) {
-					sequence = PropertyUtils.getProperty(t, sequenceField);
-				}
-			}
+			// 先获取上一页边界行的sequence值，id为游标时直接从游标中读取，如果有值的话，以此sequence值作为依据取后续的count条数据
+			KeysetCursor cursor = this.cursor(emc, tClass, id, sequenceField, false);
+			Object sequence = (null == cursor) ? null : cursor.getSequence();
 			EntityManager em = emc.get(tClass);
 			CriteriaBuilder cb = em.getCriteriaBuilder();
 			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
@@ -1075,6 +383,10 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 				ws.add(w);
 			}
 			ActionResult<List<W>> result = new ActionResult<>();
+			if ((!os.isEmpty()) && fields.contains(sequenceField)) {
+				result.setCursor(KeysetCursor.encode(
+						os.get(os.size() - 1).get(selections.get(fields.indexOf(sequenceField))), null));
+			}
 			result.setData(ws);
 			// 设置查询结果的总条目数
 			result.setCount(this.count(emc, tClass, predicate));
@@ -1087,14 +399,9 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 		Class<T> tClass = (Class<T>) copier.getOrigClass();
 		Class<W> wClass = (Class<W>) copier.getDestClass();
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				T t = emc.fetch(id, tClass, ListTools.toList(sequenceField));
-				if (null != t) {
-					sequence = PropertyUtils.getProperty(t, sequenceField);
-				}
-			}
+			// 先获取上一页边界行的sequence值，id为游标时直接从游标中读取，如果有值的话，以此sequence值作为依据取后续的count条数据
+			KeysetCursor cursor = this.cursor(emc, tClass, id, sequenceField, false);
+			Object sequence = (null == cursor) ? null : cursor.getSequence();
 			EntityManager em = emc.get(tClass);
 			CriteriaBuilder cb = em.getCriteriaBuilder();
 			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
@@ -1139,6 +446,10 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 			}
 
 			ActionResult<List<W>> result = new ActionResult<>();
+			if ((!os.isEmpty()) && fields.contains(sequenceField)) {
+				result.setCursor(KeysetCursor.encode(
+						os.get(os.size() - 1).get(selections.get(fields.indexOf(sequenceField))), null));
+			}
 			result.setData(ws);
 			// 设置查询结果的总条目数
 			result.setCount(this.count(emc, tClass, predicate));
@@ -1149,14 +460,9 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	public <T extends JpaObject> ActionResult<List<T>> standardListNext(Class<T> cls, String id, Integer count,
 			String sequenceField, String order, Predicate predicate) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				T t = emc.fetch(id, cls, ListTools.toList(sequenceField));
-				if (null != t) {
-					sequence = PropertyUtils.getProperty(t, sequenceField);
-				}
-			}
+			// 先获取上一页边界行的sequence值，id为游标时直接从游标中读取，如果有值的话，以此sequence值作为依据取后续的count条数据
+			KeysetCursor cursor = this.cursor(emc, cls, id, sequenceField, false);
+			Object sequence = (null == cursor) ? null : cursor.getSequence();
 
 			EntityManager em = emc.get(cls);
 			CriteriaBuilder cb = em.getCriteriaBuilder();
@@ -1181,6 +487,10 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 					.getResultList();
 
 			ActionResult<List<T>> result = new ActionResult<>();
+			if (!os.isEmpty()) {
+				result.setCursor(KeysetCursor.encode(PropertyUtils.getProperty(os.get(os.size() - 1), sequenceField),
+						null));
+			}
 			result.setData(new ArrayList<T>(os));
 			// 设置查询结果的总条目数
 			result.setCount(this.count(emc, cls, predicate));
@@ -1191,14 +501,9 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 	public <T extends JpaObject> ActionResult<List<T>> standardListPrev(Class<T> cls, String id, Integer count,
 			String sequenceField, String order, Predicate predicate) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			// 先获取上一页最后一条的sequence值，如果有值的话，以此sequence值作为依据取后续的count条数据
-			Object sequence = null;
-			if (!StringUtils.equalsIgnoreCase(id, EMPTY_SYMBOL)) {
-				T t = emc.fetch(id, cls, ListTools.toList(sequenceField));
-				if (null != t) {
-					sequence = PropertyUtils.getProperty(t, sequenceField);
-				}
-			}
+			// 先获取上一页边界行的sequence值，id为游标时直接从游标中读取，如果有值的话，以此sequence值作为依据取后续的count条数据
+			KeysetCursor cursor = this.cursor(emc, cls, id, sequenceField, false);
+			Object sequence = (null == cursor) ? null : cursor.getSequence();
 			EntityManager em = emc.get(cls);
 			CriteriaBuilder cb = em.getCriteriaBuilder();
 			CriteriaQuery<T> cq = cb.createQuery(cls);
@@ -1228,6 +533,10 @@ public abstract class StandardJaxrsAction extends AbstractJaxrsAction {
 			}
 
 			ActionResult<List<T>> result = new ActionResult<>();
+			if (!os.isEmpty()) {
+				result.setCursor(KeysetCursor.encode(PropertyUtils.getProperty(os.get(os.size() - 1), sequenceField),
+						null));
+			}
 			result.setData(wos);
 			// 设置查询结果的总条目数
 			result.setCount(this.count(emc, cls, predicate));
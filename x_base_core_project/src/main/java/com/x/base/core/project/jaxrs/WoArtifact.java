@@ -0,0 +1,94 @@
+package com.x.base.core.project.jaxrs;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.XGsonBuilder;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.HttpMediaType;
+import com.x.base.core.project.tools.DefaultCharset;
+
+/**
+ * 预先生成的设计内容(表单,页面,部件等),只在设计修改后生成一次.<br/>
+ * 按内容计算hash作为ETag,同时保存gzip压缩后的内容,输出时不需要再序列化和压缩.
+ */
+public class WoArtifact {
+
+	@FieldDescribe("内容hash.")
+	private String hash;
+	@FieldDescribe("类型")
+	private String contentType;
+	@FieldDescribe("字节内容.")
+	private byte[] bytes;
+	@FieldDescribe("gzip压缩后的内容,压缩后没有变小时为null.")
+	private byte[] gzipBytes;
+	@FieldDescribe("按hash访问的内容不会变化,可以长期缓存.")
+	private boolean immutable = false;
+
+	public WoArtifact(byte[] bytes, String contentType) throws Exception {
+		this(bytes, contentType, DigestUtils.sha1Hex(bytes));
+	}
+
+	public WoArtifact(byte[] bytes, String contentType, String hash) throws Exception {
+		this.bytes = bytes;
+		this.contentType = contentType;
+		this.hash = hash;
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length / 4 + 64)) {
+			try (GZIPOutputStream gzip = new GZIPOutputStream(baos)) {
+				gzip.write(bytes);
+			}
+			if (baos.size() < bytes.length) {
+				this.gzipBytes = baos.toByteArray();
+			}
+		}
+	}
+
+	private WoArtifact(WoArtifact o) {
+		this.hash = o.hash;
+		this.contentType = o.contentType;
+		this.bytes = o.bytes;
+		this.gzipBytes = o.gzipBytes;
+	}
+
+	/**
+	 * 将结果序列化为json内容,hash只按data计算,不受生成时间等影响,集群中各节点生成的hash相同
+	 */
+	public static WoArtifact json(ActionResult<?> result) throws Exception {
+		return new WoArtifact(result.toJson().getBytes(DefaultCharset.charset_utf_8),
+				HttpMediaType.APPLICATION_JSON_UTF_8,
+				DigestUtils.sha1Hex(XGsonBuilder.toJson(result.getData()).getBytes(DefaultCharset.charset_utf_8)));
+	}
+
+	/**
+	 * 按hash访问时使用,共用内容,不修改缓存的对象
+	 */
+	public WoArtifact immutable() {
+		WoArtifact o = new WoArtifact(this);
+		o.immutable = true;
+		return o;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public byte[] getGzipBytes() {
+		return gzipBytes;
+	}
+
+	public boolean getImmutable() {
+		return immutable;
+	}
+
+}
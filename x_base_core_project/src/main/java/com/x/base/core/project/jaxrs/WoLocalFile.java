@@ -0,0 +1,48 @@
+package com.x.base.core.project.jaxrs;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.tools.DefaultCharset;
+
+/**
+ * 直接从本地文件流出的文件,例如临时目录中生成的导出文件,不需要将文件读入内存.<br/>
+ * ETag按文件路径,长度和最后修改时间计算.
+ */
+public abstract class WoLocalFile extends WoStreamFile {
+
+	@FieldDescribe("本地文件.")
+	private transient File file;
+
+	public WoLocalFile(File file, String contentType, String contentDisposition) {
+		super(contentType, contentDisposition);
+		this.file = file;
+	}
+
+	@Override
+	public Long getLength() {
+		return file.length();
+	}
+
+	@Override
+	public String getETag() {
+		CRC32 crc = new CRC32();
+		crc.update((file.getAbsolutePath() + "#" + file.length() + "#" + file.lastModified())
+				.getBytes(DefaultCharset.charset_utf_8));
+		return crc.getValue() + "";
+	}
+
+	@Override
+	public long write(OutputStream output, long offset, long length) throws Exception {
+		try (InputStream input = new FileInputStream(file)) {
+			return IOUtils.copyLarge(input, output, offset, length);
+		}
+	}
+
+}
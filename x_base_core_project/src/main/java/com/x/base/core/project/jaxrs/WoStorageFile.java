@@ -0,0 +1,78 @@
+package com.x.base.core.project.jaxrs;
+
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+import com.x.base.core.entity.StorageObject;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.exception.ExceptionStorageContentNotExist;
+import com.x.base.core.project.tools.DefaultCharset;
+
+/**
+ * 直接从存储流出的文件,不在内存中保存文件内容,支持Range请求.<br/>
+ * ETag按存储对象的标识,长度和最后更新时间计算,不需要读取内容.
+ */
+public abstract class WoStorageFile extends WoStreamFile {
+
+	@FieldDescribe("存储对象.")
+	private transient StorageObject storageObject;
+
+	@FieldDescribe("存储位置.")
+	private transient StorageMapping mapping;
+
+	@FieldDescribe("存储中内容的实际长度.")
+	private transient Long contentLength;
+
+	public WoStorageFile(StorageObject storageObject, StorageMapping mapping, String contentType,
+			String contentDisposition) {
+		super(contentType, contentDisposition);
+		this.storageObject = storageObject;
+		this.mapping = mapping;
+	}
+
+	/**
+	 * 在构建响应之前检查存储中的内容,内容不存在时抛出异常,响应头和Range按存储中的实际长度计算.<br/>
+	 * 输出时响应头已经发出,不能再报告错误,所以需要在execute中调用.
+	 */
+	public void check() throws Exception {
+		Long length = storageObject.contentLength(mapping);
+		if (null == length) {
+			throw new ExceptionStorageContentNotExist(storageObject);
+		}
+		this.contentLength = length;
+	}
+
+	@Override
+	public Long getLength() {
+		if (null != contentLength) {
+			return contentLength;
+		}
+		Long length = storageObject.getLength();
+		return ((null == length) || (length < 0)) ? null : length;
+	}
+
+	@Override
+	public String getETag() {
+		CRC32 crc = new CRC32();
+		crc.update((storageObject.getId() + "#" + storageObject.getLength() + "#"
+				+ ((null == storageObject.getLastUpdateTime()) ? "" : storageObject.getLastUpdateTime().getTime()))
+						.getBytes(DefaultCharset.charset_utf_8));
+		return crc.getValue() + "";
+	}
+
+	@Override
+	public long write(OutputStream output, long offset, long length) throws Exception {
+		return storageObject.readContent(mapping, output, offset, length);
+	}
+
+	@Override
+	public byte[] getBytes() {
+		try {
+			return storageObject.readContent(mapping);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.x.base.core.project.jaxrs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+/**
+ * 输出时直接写入响应流的文件,不在内存中保存文件内容,支持Range请求.
+ */
+public abstract class WoStreamFile extends WoFile {
+
+	public WoStreamFile(String contentType, String contentDisposition) {
+		super(null, contentType, contentDisposition);
+	}
+
+	/**
+	 * 内容长度,未知时返回null,此时不支持Range请求
+	 */
+	public abstract Long getLength();
+
+	public abstract String getETag();
+
+	/**
+	 * 将指定范围的内容写入output,length小于0时写到结尾
+	 */
+	public abstract long write(OutputStream output, long offset, long length) throws Exception;
+
+	/**
+	 * 内容需要读入内存时使用,例如转换为base64
+	 */
+	@Override
+	public byte[] getBytes() {
+		try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+			this.write(output, 0, -1);
+			return output.toByteArray();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
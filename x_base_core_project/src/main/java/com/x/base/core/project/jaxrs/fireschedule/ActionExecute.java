@@ -16,11 +16,16 @@ class ActionExecute extends BaseAction {
 
 	ActionResult<Wo> execute(EffectivePerson effectivePerson, @Context ServletContext servletContext, String className)
 			throws Exception {
+		return this.execute(effectivePerson, servletContext, className, null);
+	}
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, @Context ServletContext servletContext, String className,
+			Long leaseToken) throws Exception {
 		logger.debug(effectivePerson, "execute:{}.", className);
 		ActionResult<Wo> result = new ActionResult<>();
 		com.x.base.core.project.Context ctx = com.x.base.core.project.Context.fromServletContext(servletContext);
 		Class<?> clz = Class.forName(className);
-		ctx.fireScheduleOnLocal((Class<AbstractJob>) clz, 1);
+		ctx.fireScheduleOnLocal((Class<AbstractJob>) clz, 1, leaseToken);
 		Wo wo = new Wo();
 		wo.setValue(true);
 		result.setData(wo);
@@ -33,6 +33,19 @@ public class FireScheduleAction extends StandardJaxrsAction {
 		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result));
 	}
 
+	@JaxrsMethodDescribe(value = "接受x_program_center发送过来的运行schedule,运行期间使用租约令牌续约.", action = ActionExecute.class)
+	@GET
+	@Path("classname/{className}/lease/{leaseToken}")
+	public void executeWithLease(@Suspended final AsyncResponse asyncResponse,
+			@Context ServletContext servletContext, @Context HttpServletRequest request,
+			@JaxrsParameterDescribe("运行类") @PathParam("className") String className,
+			@JaxrsParameterDescribe("租约令牌") @PathParam("leaseToken") Long leaseToken) throws Exception {
+		EffectivePerson effectivePerson = this.effectivePerson(request);
+		ActionResult<ActionExecute.Wo> result = new ActionExecute().execute(effectivePerson, servletContext, className,
+				leaseToken);
+		asyncResponse.resume(ResponseFactory.getDefaultActionResultResponse(result));
+	}
+
 	public static class Wo extends WrapBoolean {
 		public Wo(Boolean value) {
 			super(value);
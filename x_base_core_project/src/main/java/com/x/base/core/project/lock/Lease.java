@@ -0,0 +1,86 @@
+package com.x.base.core.project.lock;
+
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+
+/**
+ * 租约锁的申请结果,success为false时owner,token和expireTime为当前持有者的租约.
+ */
+public class Lease extends GsonPropertyObject {
+
+	@FieldDescribe("是否成功.")
+	private Boolean success;
+
+	@FieldDescribe("锁定值.")
+	private String key;
+
+	@FieldDescribe("持有者.")
+	private String owner;
+
+	@FieldDescribe("防护令牌,每次重新授予租约时单调递增,写入时用于拒绝过期持有者的请求.")
+	private Long token;
+
+	@FieldDescribe("租约到期时间,毫秒.")
+	private Long expireTime;
+
+	public Lease() {
+	}
+
+	Lease(String key, String owner, long token, long expireTime) {
+		this.key = key;
+		this.owner = owner;
+		this.token = token;
+		this.expireTime = expireTime;
+	}
+
+	Lease copy(boolean success) {
+		Lease o = new Lease(key, owner, token, expireTime);
+		o.success = success;
+		return o;
+	}
+
+	boolean expired(long now) {
+		return expireTime <= now;
+	}
+
+	public Boolean getSuccess() {
+		return success;
+	}
+
+	public void setSuccess(Boolean success) {
+		this.success = success;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	public Long getToken() {
+		return token;
+	}
+
+	public void setToken(Long token) {
+		this.token = token;
+	}
+
+	public Long getExpireTime() {
+		return expireTime;
+	}
+
+	public void setExpireTime(Long expireTime) {
+		this.expireTime = expireTime;
+	}
+
+}
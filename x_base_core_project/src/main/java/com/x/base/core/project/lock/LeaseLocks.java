@@ -0,0 +1,103 @@
+package com.x.base.core.project.lock;
+
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.config.Config;
+import com.x.base.core.project.connection.CipherConnectionAction;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.jaxrs.WrapBoolean;
+
+/**
+ * 通过center申请的租约锁,用于流程平台,内容管理,协作等多个节点上的编辑锁定.<br/>
+ * 租约保存在center内存中,持有者需要在到期前续约,释放或者到期后其他人才能申请;写入时可以比较令牌拒绝已经失去租约的持有者.
+ */
+public class LeaseLocks {
+
+	private static final String PATH = "leaselock";
+
+	private static final String PATH_ACQUIRE = "acquire";
+
+	private static final String PATH_RENEW = "renew";
+
+	private static final String PATH_RELEASE = "release";
+
+	private LeaseLocks() {
+	}
+
+	public static Lease acquire(String key, String owner, long ttl) throws Exception {
+		return CipherConnectionAction
+				.put(false, Config.url_x_program_center_jaxrs(PATH, PATH_ACQUIRE), new Wi(key, owner, null, ttl))
+				.getData(Lease.class);
+	}
+
+	public static Lease renew(String key, String owner, long token, long ttl) throws Exception {
+		return CipherConnectionAction
+				.put(false, Config.url_x_program_center_jaxrs(PATH, PATH_RENEW), new Wi(key, owner, token, ttl))
+				.getData(Lease.class);
+	}
+
+	public static boolean release(String key, String owner, long token) throws Exception {
+		WrapBoolean wo = CipherConnectionAction
+				.put(false, Config.url_x_program_center_jaxrs(PATH, PATH_RELEASE), new Wi(key, owner, token, null))
+				.getData(WrapBoolean.class);
+		return (null != wo) && Boolean.TRUE.equals(wo.getValue());
+	}
+
+	public static class Wi extends GsonPropertyObject {
+
+		@FieldDescribe("锁定值.")
+		private String key;
+
+		@FieldDescribe("持有者.")
+		private String owner;
+
+		@FieldDescribe("令牌.")
+		private Long token;
+
+		@FieldDescribe("租约时长,毫秒.")
+		private Long ttl;
+
+		public Wi() {
+		}
+
+		public Wi(String key, String owner, Long token, Long ttl) {
+			this.key = key;
+			this.owner = owner;
+			this.token = token;
+			this.ttl = ttl;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public void setKey(String key) {
+			this.key = key;
+		}
+
+		public String getOwner() {
+			return owner;
+		}
+
+		public void setOwner(String owner) {
+			this.owner = owner;
+		}
+
+		public Long getToken() {
+			return token;
+		}
+
+		public void setToken(Long token) {
+			this.token = token;
+		}
+
+		public Long getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Long ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
+}
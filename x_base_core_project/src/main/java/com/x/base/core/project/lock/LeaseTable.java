@@ -0,0 +1,126 @@
+package com.x.base.core.project.lock;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 内存中的租约表,每个锁定值同时只有一个持有者.<br/>
+ * 申请,续约和释放在ConcurrentHashMap.compute中完成,同一个锁定值上的操作是原子的,不存在先查询后插入的竞争.<br/>
+ * 同一个持有者重复申请视为续约,令牌不变;租约到期后由其他持有者申请时授予新的令牌.令牌以启动时间为初值,重启后仍然递增.
+ */
+public class LeaseTable {
+
+	private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+	private final AtomicLong sequence;
+
+	private final LongSupplier clock;
+
+	public LeaseTable() {
+		this(System::currentTimeMillis);
+	}
+
+	public LeaseTable(LongSupplier clock) {
+		this.clock = clock;
+		this.sequence = new AtomicLong(clock.getAsLong());
+	}
+
+	/**
+	 * 申请租约
+	 * 
+	 * @param key   锁定值
+	 * @param owner 持有者
+	 * @param ttl   租约时长,毫秒
+	 */
+	public Lease acquire(String key, String owner, long ttl) {
+		Lease[] result = new Lease[1];
+		leases.compute(key, (k, v) -> {
+			long now = clock.getAsLong();
+			if ((null != v) && (!v.expired(now)) && (!Objects.equals(v.getOwner(), owner))) {
+				result[0] = v.copy(false);
+				return v;
+			}
+			Lease lease;
+			if ((null != v) && (!v.expired(now))) {
+				lease = new Lease(k, owner, v.getToken(), now + ttl);
+			} else {
+				lease = new Lease(k, owner, sequence.incrementAndGet(), now + ttl);
+			}
+			result[0] = lease.copy(true);
+			return lease;
+		});
+		return result[0];
+	}
+
+	/**
+	 * 续约,只有持有者和令牌都一致且租约未到期时成功.
+	 */
+	public Lease renew(String key, String owner, long token, long ttl) {
+		Lease[] result = new Lease[1];
+		leases.computeIfPresent(key, (k, v) -> {
+			long now = clock.getAsLong();
+			if (this.hold(v, owner, token, now)) {
+				Lease lease = new Lease(k, owner, token, now + ttl);
+				result[0] = lease.copy(true);
+				return lease;
+			}
+			result[0] = v.expired(now) ? null : v.copy(false);
+			return v.expired(now) ? null : v;
+		});
+		return (null == result[0]) ? this.none(key) : result[0];
+	}
+
+	/**
+	 * 释放租约,返回是否由当前持有者释放.
+	 */
+	public boolean release(String key, String owner, long token) {
+		boolean[] result = new boolean[1];
+		leases.computeIfPresent(key, (k, v) -> {
+			long now = clock.getAsLong();
+			if (this.hold(v, owner, token, now)) {
+				result[0] = true;
+				return null;
+			}
+			return v.expired(now) ? null : v;
+		});
+		return result[0];
+	}
+
+	/**
+	 * 查询当前有效的租约,没有持有者时返回null.
+	 */
+	public Lease get(String key) {
+		Lease lease = leases.get(key);
+		if ((null == lease) || lease.expired(clock.getAsLong())) {
+			return null;
+		}
+		return lease.copy(true);
+	}
+
+	/**
+	 * 清除到期的租约,租约在访问时也会判断是否到期,这里只用于回收长时间没有访问的锁定值.
+	 */
+	public void clean() {
+		long now = clock.getAsLong();
+		leases.entrySet().removeIf(o -> o.getValue().expired(now));
+	}
+
+	public int size() {
+		return leases.size();
+	}
+
+	private boolean hold(Lease lease, String owner, long token, long now) {
+		return (!lease.expired(now)) && Objects.equals(lease.getOwner(), owner) && (lease.getToken() == token);
+	}
+
+	private Lease none(String key) {
+		Lease lease = new Lease();
+		lease.setKey(key);
+		lease.setSuccess(false);
+		return lease;
+	}
+
+}
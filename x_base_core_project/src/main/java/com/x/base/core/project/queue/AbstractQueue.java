@@ -1,12 +1,21 @@
 package com.x.base.core.project.queue;
 
+import java.io.File;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google.gson.Gson;
+import com.x.base.core.project.config.Config;
 import com.x.base.core.project.gson.XGsonBuilder;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
@@ -17,7 +26,14 @@ public abstract class AbstractQueue<T> {
 
 	private static Gson gson = XGsonBuilder.instance();
 
-	private LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+	public static final int DEFAULT_CAPACITY = 100000;
+
+	private static final String JOURNAL_DIR = "queue";
+
+	/* 所有已经启动的队列,用于输出指标 */
+	private static final List<AbstractQueue<?>> QUEUES = new CopyOnWriteArrayList<>();
+
+	private LinkedBlockingQueue<Envelope> queue = new LinkedBlockingQueue<>(this.capacity());
 
 	private volatile boolean turn = false;
 
@@ -25,13 +41,26 @@ public abstract class AbstractQueue<T> {
 
 	private String className = this.getClass().getName();
 
-	private List<Object> executings = new CopyOnWriteArrayList<>();
+	/* 排队和执行中的消息按key计数,contains不需要遍历队列 */
+	private Map<Object, Integer> index = new ConcurrentHashMap<>();
+
+	private Map<Object, Integer> executings = new ConcurrentHashMap<>();
+
+	private QueueJournal journal;
+
+	private LongAdder sentCount = new LongAdder();
+
+	private LongAdder executedCount = new LongAdder();
+
+	private LongAdder failedCount = new LongAdder();
+
+	private volatile long startTime = System.currentTimeMillis();
 
 	public boolean executing(T t) {
 		if (null == t) {
 			return false;
 		} else {
-			return executings.contains(t);
+			return executings.containsKey(this.key(t));
 		}
 	}
 
@@ -39,10 +68,37 @@ public abstract class AbstractQueue<T> {
 		if (null == t) {
 			return false;
 		}
-		if (this.queue.contains(t)) {
-			return true;
+		return index.containsKey(this.key(t));
+	}
+
+	/**
+	 * 消息去重使用的key,默认为消息本身(equals/hashCode)
+	 */
+	protected Object key(T t) {
+		return t;
+	}
+
+	/**
+	 * 内存队列的容量,队列满时send阻塞
+	 */
+	protected int capacity() {
+		return DEFAULT_CAPACITY;
+	}
+
+	/**
+	 * 是否将消息写入本地日志,重启后重放未执行完成的消息
+	 */
+	protected boolean durable() {
+		return false;
+	}
+
+	/* 消息类型,用于重放时反序列化 */
+	protected Type type() {
+		Type type = this.getClass().getGenericSuperclass();
+		while (!(type instanceof ParameterizedType)) {
+			type = ((Class<?>) type).getGenericSuperclass();
 		}
-		return this.executing(t);
+		return ((ParameterizedType) type).getActualTypeArguments()[0];
 	}
 
 	/**
@@ -56,7 +112,7 @@ public abstract class AbstractQueue<T> {
 
 	/**
 	 * 初始化一个定长线程池
-	 * 
+	 *
 	 * @param count
 	 * @throws Exception
 	 */
@@ -70,7 +126,34 @@ public abstract class AbstractQueue<T> {
 	}
 
 	public void send(T t) throws Exception {
-		queue.put(t);
+		Envelope envelope = new Envelope(t);
+		if (null != journal) {
+			envelope.offset = journal.append(gson.toJson(t));
+		}
+		this.index(envelope);
+		queue.put(envelope);
+		sentCount.increment();
+	}
+
+	/**
+	 * 在给定的时间内放入队列,队列满时返回false
+	 */
+	public boolean offer(T t, long timeout, TimeUnit unit) throws Exception {
+		Envelope envelope = new Envelope(t);
+		if (null != journal) {
+			envelope.offset = journal.append(gson.toJson(t));
+		}
+		this.index(envelope);
+		if (!queue.offer(envelope, timeout, unit)) {
+			this.unindex(envelope);
+			if (null != journal) {
+				/* 没有进入队列的消息直接完成,避免阻塞检查点 */
+				journal.complete(envelope.offset);
+			}
+			return false;
+		}
+		sentCount.increment();
+		return true;
 	}
 
 	public void start() {
@@ -78,37 +161,33 @@ public abstract class AbstractQueue<T> {
 			return;
 		}
 		turn = true;
+		startTime = System.currentTimeMillis();
+		if (this.durable()) {
+			this.openJournal();
+		}
 		executorService = Executors.newFixedThreadPool(fixedSize);
+		QUEUES.add(this);
 		new Thread() {
 			public void run() {
-				Object o = null;
+				Envelope o = null;
 				while (turn) {
 					try {
 						o = queue.take();
-						if (null != o) {
-							executings.add(o);
-							if (o instanceof StopSignal) {
-								turn = false;
-								break;
-							}
-							logger.debug("queue class: {} execute on message: {}.", className, gson.toJson(o));
-							// 从线程池中获取空闲线程执行QueueProcessThread操作
-							if (fixedSize <= 1) {
-								execute((T) o);
-							} else {
-								executorService.execute(new QueueProcessThread(abstractQueue, o));
-							}
+						if (o.stop) {
+							turn = false;
+							break;
+						}
+						if (logger.isDebug()) {
+							logger.debug("queue class: {} execute on message: {}.", className, gson.toJson(o.body));
+						}
+						// 从线程池中获取空闲线程执行QueueProcessThread操作
+						if (fixedSize <= 1) {
+							process(o);
+						} else {
+							executorService.execute(new QueueProcessThread<>(abstractQueue, o));
 						}
 					} catch (Exception e) {
 						e.printStackTrace();
-					} finally {
-						try {
-							if (null != o) {
-								executings.remove(o);
-							}
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
 					}
 				}
 			}
@@ -117,19 +196,73 @@ public abstract class AbstractQueue<T> {
 		logger.info("queue class: {} start.", className);
 	}
 
+	private void openJournal() {
+		try {
+			journal = new QueueJournal(new File(new File(Config.dir_local(), JOURNAL_DIR), className));
+			Type type = this.type();
+			journal.replay((offset, text) -> {
+				Envelope envelope = new Envelope(gson.fromJson(text, type));
+				envelope.offset = offset;
+				this.index(envelope);
+				if (!queue.offer(envelope)) {
+					/* 超出容量的部分保留在日志中,下次启动时再重放 */
+					this.unindex(envelope);
+				}
+			});
+			logger.info("queue class: {} replay {} message from journal.", className, queue.size());
+		} catch (Exception e) {
+			logger.error(e);
+			journal = null;
+		}
+	}
+
+	/* 执行消息并维护索引,日志和计数 */
+	@SuppressWarnings("unchecked")
+	void process(Object o) {
+		Envelope envelope = (Envelope) o;
+		executings.merge(envelope.key, 1, Integer::sum);
+		try {
+			execute((T) envelope.body);
+			executedCount.increment();
+		} catch (Exception e) {
+			failedCount.increment();
+			e.printStackTrace();
+		} finally {
+			this.decrement(executings, envelope.key);
+			this.unindex(envelope);
+			if ((null != journal) && (envelope.offset >= 0)) {
+				try {
+					journal.complete(envelope.offset);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
 	protected abstract void execute(T t) throws Exception;
 
 	public void stop() {
 		try {
 			this.queue.clear();
-			queue.put(new StopSignal());
-			logger.info("queue class: {} stop.", className);
+			this.index.clear();
+			queue.put(new Envelope(null, true));
+			logger.info("queue class: {} stop, metrics: {}.", className, this.metrics());
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
 			if (executorService != null) {
 				executorService.shutdown();
 			}
+			QUEUES.remove(this);
+			if (null != journal) {
+				try {
+					/* 未执行的消息仍在检查点之后,下次启动时重放 */
+					journal.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
 		}
 	}
 
@@ -137,6 +270,69 @@ public abstract class AbstractQueue<T> {
 		return this.queue.isEmpty();
 	}
 
-	private static class StopSignal {
+	public QueueMetrics metrics() {
+		QueueMetrics metrics = new QueueMetrics();
+		metrics.setClassName(className);
+		metrics.setDurable(null != journal);
+		metrics.setCapacity(this.capacity());
+		metrics.setDepth(queue.size());
+		metrics.setExecuting(executings.size());
+		Envelope head = queue.peek();
+		metrics.setOldestAge((null == head) ? 0L : System.currentTimeMillis() - head.time);
+		metrics.setSentCount(sentCount.sum());
+		metrics.setExecutedCount(executedCount.sum());
+		metrics.setFailedCount(failedCount.sum());
+		long seconds = Math.max(1L, (System.currentTimeMillis() - startTime) / 1000);
+		metrics.setThroughput((double) executedCount.sum() / seconds);
+		if (null != journal) {
+			metrics.setJournalCheckpoint(journal.getCheckpoint());
+			metrics.setJournalPending(journal.pendingCount());
+		}
+		return metrics;
+	}
+
+	public static List<QueueMetrics> listMetrics() {
+		List<QueueMetrics> list = new ArrayList<>();
+		for (AbstractQueue<?> o : QUEUES) {
+			list.add(o.metrics());
+		}
+		return list;
+	}
+
+	private void index(Envelope envelope) {
+		index.merge(envelope.key, 1, Integer::sum);
+	}
+
+	private void unindex(Envelope envelope) {
+		this.decrement(index, envelope.key);
+	}
+
+	private void decrement(Map<Object, Integer> map, Object key) {
+		map.computeIfPresent(key, (k, v) -> (v <= 1) ? null : v - 1);
+	}
+
+	/* 队列中的消息,记录入队时间和日志位置 */
+	private class Envelope {
+
+		private Object body;
+
+		private Object key;
+
+		private long time = System.currentTimeMillis();
+
+		private long offset = -1;
+
+		private boolean stop = false;
+
+		@SuppressWarnings("unchecked")
+		private Envelope(Object body) {
+			this.body = body;
+			this.key = (null == body) ? this : key((T) body);
+		}
+
+		private Envelope(Object body, boolean stop) {
+			this(body);
+			this.stop = stop;
+		}
 	}
 }
@@ -0,0 +1,224 @@
+package com.x.base.core.project.queue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 队列的本地预写日志.<br/>
+ * 消息在进入内存队列前追加到内存映射的分段文件中,每条记录为 长度,crc32,内容.消费完成后推进检查点,检查点之前的分段文件被删除.
+ * 启动时从检查点开始重放未完成的消息,保证至少执行一次.并发消费时检查点为未完成消息中最小的位置.
+ */
+public class QueueJournal {
+
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final String CHECKPOINT_FILE = "checkpoint";
+
+	private static final int HEADER_SIZE = 8;
+
+	/* 完成多少条消息后写入一次检查点 */
+	private static final int CHECKPOINT_INTERVAL = 100;
+
+	private File dir;
+
+	private int segmentSize;
+
+	/* 分段起始位置与文件 */
+	private TreeMap<Long, File> segments = new TreeMap<>();
+
+	private RandomAccessFile activeFile;
+
+	private MappedByteBuffer active;
+
+	private long activeBase;
+
+	/* 已追加但是没有完成的消息位置 */
+	private NavigableSet<Long> pendings = new ConcurrentSkipListSet<>();
+
+	private volatile long checkpoint = 0;
+
+	private int completeCount = 0;
+
+	public QueueJournal(File dir) throws Exception {
+		this(dir, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public QueueJournal(File dir, int segmentSize) throws Exception {
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+		FileUtils.forceMkdir(dir);
+		File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+		if (null != files) {
+			for (File file : files) {
+				segments.put(Long.parseLong(StringUtils.removeEnd(file.getName(), SEGMENT_SUFFIX)), file);
+			}
+		}
+		File checkpointFile = new File(dir, CHECKPOINT_FILE);
+		if (checkpointFile.exists()) {
+			this.checkpoint = Long.parseLong(
+					StringUtils.trim(new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8)));
+		}
+	}
+
+	/**
+	 * 重放检查点之后的消息,返回后可以继续追加.
+	 *
+	 * @param consumer 消息位置与内容
+	 */
+	public synchronized void replay(BiConsumer<Long, String> consumer) throws Exception {
+		long end = -1;
+		for (Long base : new ArrayList<>(segments.keySet())) {
+			File file = segments.get(base);
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				end = base;
+				while (buffer.remaining() >= HEADER_SIZE) {
+					int position = buffer.position();
+					int length = buffer.getInt();
+					int crc = buffer.getInt();
+					if ((length <= 0) || (length > buffer.remaining())) {
+						break;
+					}
+					byte[] bytes = new byte[length];
+					buffer.get(bytes);
+					if (crc != crc(bytes)) {
+						/* 写入过程中中断的记录,之后的内容无效 */
+						break;
+					}
+					long offset = base + position;
+					end = offset + HEADER_SIZE + length;
+					if (offset >= checkpoint) {
+						pendings.add(offset);
+						consumer.accept(offset, new String(bytes, StandardCharsets.UTF_8));
+					}
+				}
+			}
+		}
+		/* 重放之后从新的分段开始追加,不在旧分段的尾部写入 */
+		this.roll(Math.max(end, checkpoint), 0);
+	}
+
+	/* 追加一条消息,返回消息位置 */
+	public synchronized long append(String text) throws Exception {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		int size = HEADER_SIZE + bytes.length;
+		if ((null == active) || (active.remaining() < size)) {
+			this.roll((null == active) ? this.nextBase() : activeBase + active.position(), size);
+		}
+		long offset = activeBase + active.position();
+		/* 先占住位置,写入内容后再写长度,中断时长度为0,重放时视为结束 */
+		int position = active.position();
+		active.position(position + HEADER_SIZE);
+		active.put(bytes);
+		active.putInt(position + 4, crc(bytes));
+		active.putInt(position, bytes.length);
+		pendings.add(offset);
+		return offset;
+	}
+
+	/* 消息执行完成,推进检查点 */
+	public void complete(long offset) throws Exception {
+		pendings.remove(offset);
+		boolean write = false;
+		synchronized (this) {
+			completeCount++;
+			if (completeCount >= CHECKPOINT_INTERVAL) {
+				completeCount = 0;
+				write = true;
+			}
+		}
+		if (write) {
+			this.checkpoint();
+		}
+	}
+
+	/* 写入检查点并删除已经全部完成的分段 */
+	public synchronized void checkpoint() throws Exception {
+		Long first = pendings.isEmpty() ? null : pendings.first();
+		long position = (null != first) ? first : ((null == active) ? checkpoint : activeBase + active.position());
+		if (position <= checkpoint) {
+			return;
+		}
+		this.checkpoint = position;
+		File temp = new File(dir, CHECKPOINT_FILE + ".tmp");
+		Files.write(temp.toPath(), Long.toString(position).getBytes(StandardCharsets.UTF_8));
+		Files.move(temp.toPath(), new File(dir, CHECKPOINT_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		List<Long> removes = new ArrayList<>();
+		for (Long base : segments.keySet()) {
+			Long next = segments.higherKey(base);
+			if ((null != next) && (next <= position) && (base != activeBase)) {
+				removes.add(base);
+			}
+		}
+		for (Long base : removes) {
+			FileUtils.deleteQuietly(segments.remove(base));
+		}
+	}
+
+	public long getCheckpoint() {
+		return checkpoint;
+	}
+
+	public int pendingCount() {
+		return pendings.size();
+	}
+
+	public synchronized void close() throws Exception {
+		this.checkpoint();
+		this.release();
+	}
+
+	private long nextBase() {
+		return segments.isEmpty() ? checkpoint : Math.max(checkpoint, segments.lastKey());
+	}
+
+	private void roll(long base, int size) throws Exception {
+		this.release();
+		/* 已有同名分段(重放结束位置恰好是分段起点)时向后移动 */
+		while (segments.containsKey(base)) {
+			base++;
+		}
+		File file = new File(dir, String.format("%020d", base) + SEGMENT_SUFFIX);
+		activeFile = new RandomAccessFile(file, "rw");
+		active = activeFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, size));
+		activeBase = base;
+		segments.put(base, file);
+	}
+
+	private void release() throws Exception {
+		if (null != active) {
+			active.force();
+			active = null;
+		}
+		if (null != activeFile) {
+			activeFile.close();
+			activeFile = null;
+		}
+	}
+
+	private static int crc(byte[] bytes) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(bytes);
+		return (int) crc32.getValue();
+	}
+
+}
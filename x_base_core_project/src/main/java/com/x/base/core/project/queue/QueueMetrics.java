@@ -0,0 +1,140 @@
+package com.x.base.core.project.queue;
+
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+
+public class QueueMetrics extends GsonPropertyObject {
+
+	@FieldDescribe("队列类名.")
+	private String className;
+
+	@FieldDescribe("是否写入本地日志.")
+	private Boolean durable;
+
+	@FieldDescribe("容量.")
+	private Integer capacity;
+
+	@FieldDescribe("排队数量.")
+	private Integer depth;
+
+	@FieldDescribe("执行中数量.")
+	private Integer executing;
+
+	@FieldDescribe("最早排队消息的等待时间,毫秒.")
+	private Long oldestAge;
+
+	@FieldDescribe("入队数量.")
+	private Long sentCount;
+
+	@FieldDescribe("执行成功数量.")
+	private Long executedCount;
+
+	@FieldDescribe("执行失败数量.")
+	private Long failedCount;
+
+	@FieldDescribe("每秒执行数量.")
+	private Double throughput;
+
+	@FieldDescribe("日志检查点.")
+	private Long journalCheckpoint;
+
+	@FieldDescribe("日志中未完成的消息数量.")
+	private Integer journalPending;
+
+	public String getClassName() {
+		return className;
+	}
+
+	public void setClassName(String className) {
+		this.className = className;
+	}
+
+	public Boolean getDurable() {
+		return durable;
+	}
+
+	public void setDurable(Boolean durable) {
+		this.durable = durable;
+	}
+
+	public Integer getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(Integer capacity) {
+		this.capacity = capacity;
+	}
+
+	public Integer getDepth() {
+		return depth;
+	}
+
+	public void setDepth(Integer depth) {
+		this.depth = depth;
+	}
+
+	public Integer getExecuting() {
+		return executing;
+	}
+
+	public void setExecuting(Integer executing) {
+		this.executing = executing;
+	}
+
+	public Long getOldestAge() {
+		return oldestAge;
+	}
+
+	public void setOldestAge(Long oldestAge) {
+		this.oldestAge = oldestAge;
+	}
+
+	public Long getSentCount() {
+		return sentCount;
+	}
+
+	public void setSentCount(Long sentCount) {
+		this.sentCount = sentCount;
+	}
+
+	public Long getExecutedCount() {
+		return executedCount;
+	}
+
+	public void setExecutedCount(Long executedCount) {
+		this.executedCount = executedCount;
+	}
+
+	public Long getFailedCount() {
+		return failedCount;
+	}
+
+	public void setFailedCount(Long failedCount) {
+		this.failedCount = failedCount;
+	}
+
+	public Double getThroughput() {
+		return throughput;
+	}
+
+	public void setThroughput(Double throughput) {
+		this.throughput = throughput;
+	}
+
+	public Long getJournalCheckpoint() {
+		return journalCheckpoint;
+	}
+
+	public void setJournalCheckpoint(Long journalCheckpoint) {
+		this.journalCheckpoint = journalCheckpoint;
+	}
+
+	public Integer getJournalPending() {
+		return journalPending;
+	}
+
+	public void setJournalPending(Integer journalPending) {
+		this.journalPending = journalPending;
+	}
+
+}
@@ -2,22 +2,18 @@ package com.x.base.core.project.queue;
 
 public class QueueProcessThread<T> implements Runnable {
 
-	private T o = null;
+	private Object o = null;
 
 	private AbstractQueue<T> queue = null;
 
-	public QueueProcessThread(AbstractQueue<T> queue, T o) {
+	public QueueProcessThread(AbstractQueue<T> queue, Object o) {
 		this.queue = queue;
 		this.o = o;
 	}
 
 	@Override
 	public void run() {
-		try {
-			queue.execute(o);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		queue.process(o);
 	}
 
 }
@@ -1,6 +1,7 @@
 package com.x.base.core.project.schedule;
 
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
 
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
@@ -20,11 +21,19 @@ public abstract class AbstractJob implements Job {
 			if (LOCK.contains(this.getClass().getName())) {
 				throw new ExceptionScheduleLastNotEnd(this.getClass().getName());
 			}
+			/* center触发的运行在运行期间续约 */
+			Object token = jobExecutionContext.getMergedJobDataMap().get(ScheduleLease.LEASETOKEN);
+			ScheduledFuture<?> renew = (token instanceof Long)
+					? ScheduleLease.keep(this.getClass().getName(), (Long) token)
+					: null;
 			try {
 				LOCK.add(this.getClass().getName());
 				this.schedule(jobExecutionContext);
 			} finally {
 				LOCK.remove(this.getClass().getName());
+				if (null != renew) {
+					renew.cancel(false);
+				}
 			}
 		} catch (Exception e) {
 			logger.error(e);
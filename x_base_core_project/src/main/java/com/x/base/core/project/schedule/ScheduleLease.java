@@ -0,0 +1,64 @@
+package com.x.base.core.project.schedule;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.BooleanUtils;
+
+import com.x.base.core.project.config.Config;
+import com.x.base.core.project.lock.Lease;
+import com.x.base.core.project.lock.LeaseLocks;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+
+/**
+ * center触发schedule时为每次运行申请一个租约,租约持有者为运行节点.<br/>
+ * 运行期间节点定时续约,运行结束后center收到运行报告时释放;节点宕机后租约到期,center判断为未完成的运行并重新触发.<br/>
+ * 同一个schedule同时只有一个有效租约,保证集群中同一个schedule不会并发运行.
+ */
+public class ScheduleLease {
+
+	private static Logger logger = LoggerFactory.getLogger(ScheduleLease.class);
+
+	/* JobDataMap中保存租约令牌的键 */
+	public static final String LEASETOKEN = "leaseToken";
+
+	/* 租约时长 */
+	public static final long TTL = 5 * 60 * 1000L;
+
+	/* 续约间隔 */
+	private static final long RENEW_INTERVAL = 60 * 1000L;
+
+	private static final ScheduledExecutorService RENEW_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "ScheduleLease-renew");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private ScheduleLease() {
+	}
+
+	public static String key(String className) {
+		return "schedule#" + className;
+	}
+
+	/**
+	 * 运行期间定时续约,返回值用于运行结束后停止续约
+	 */
+	public static ScheduledFuture<?> keep(String className, long token) {
+		return RENEW_EXECUTOR.scheduleWithFixedDelay(() -> {
+			try {
+				Lease lease = LeaseLocks.renew(key(className), Config.node(), token, TTL);
+				if (BooleanUtils.isNotTrue(lease.getSuccess())) {
+					logger.warn("renew schedule lease failure, className: {}, token: {}, owner: {}.", className, token,
+							lease.getOwner());
+				}
+			} catch (Exception e) {
+				logger.error(e);
+			}
+		}, RENEW_INTERVAL, RENEW_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+}
@@ -27,6 +27,8 @@ public class ScheduleLogRequest extends GsonPropertyObject {
 
 	private Boolean success;
 
+	private Long leaseToken;
+
 	public ScheduleLogRequest(JobExecutionContext jobExecutionContext, JobExecutionException jobExecutionException) {
 		JobDetail jobDetail = jobExecutionContext.getJobDetail();
 		this.className = jobDetail.getKey().getName();
@@ -35,6 +37,10 @@ public class ScheduleLogRequest extends GsonPropertyObject {
 		this.type = jobExecutionContext.getTrigger().getDescription();
 		this.elapsed = jobExecutionContext.getJobRunTime();
 		this.fireTime = jobExecutionContext.getFireTime();
+		Object token = jobExecutionContext.getMergedJobDataMap().get(ScheduleLease.LEASETOKEN);
+		if (token instanceof Long) {
+			this.leaseToken = (Long) token;
+		}
 		if (null != jobExecutionException) {
 			this.stackTrace = ExceptionUtils.getStackTrace(jobExecutionException);
 			this.success = false;
@@ -107,4 +113,12 @@ public class ScheduleLogRequest extends GsonPropertyObject {
 		this.success = success;
 	}
 
-}
\ No newline at end of file
+	public Long getLeaseToken() {
+		return leaseToken;
+	}
+
+	public void setLeaseToken(Long leaseToken) {
+		this.leaseToken = leaseToken;
+	}
+
+}
@@ -16,7 +16,9 @@ public class SchedulerFactoryProperties extends Properties {
 		properties.setProperty("org.quartz.scheduler.rmi.proxy", "false");
 		properties.setProperty("org.quartz.scheduler.wrapJobExecutionInUserTransaction", "false");
 		properties.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
-		properties.setProperty("org.quartz.threadPool.threadCount", "2");
+		/* 长时间运行的任务不阻塞其他任务 */
+		properties.setProperty("org.quartz.threadPool.threadCount",
+				Integer.toString(Math.max(4, Runtime.getRuntime().availableProcessors())));
 		properties.setProperty("org.quartz.threadPool.threadPriority", "5");
 		properties.setProperty("org.quartz.threadPool.threadsInheritContextClassLoaderOfInitializingThread", "true");
 		properties.setProperty("org.quartz.jobStore.misfireThreshold", "60000");
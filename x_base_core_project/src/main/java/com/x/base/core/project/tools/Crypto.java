@@ -4,12 +4,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.SecureRandom;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -30,6 +33,45 @@ public class Crypto {
 
 	private final static String RSA = "RSA";
 
+	/* 缓存的密钥数量上限,实际使用的密钥只有配置中的几个 */
+	private final static int SECRETKEY_CACHE_SIZE = 64;
+
+	/* SecretKey可以共用,按原始密钥缓存 */
+	private static final Map<String, SecretKey> SECRETKEYS = new ConcurrentHashMap<>();
+
+	/* Cipher不是线程安全的,每个线程使用一个 */
+	private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
+	/* SecureRandom是线程安全的,共用一个 */
+	private static final SecureRandom SECURERANDOM = new SecureRandom();
+
+	private static SecretKey secretKey(byte[] key) throws Exception {
+		/* ISO-8859-1每个字节对应一个字符,不会丢失信息 */
+		String str = new String(key, StandardCharsets.ISO_8859_1);
+		SecretKey secretKey = SECRETKEYS.get(str);
+		if (null == secretKey) {
+			// 从原始密钥数据创建DESKeySpec对象
+			DESKeySpec dks = new DESKeySpec(key);
+			// 创建一个密钥工厂，然后用它把DESKeySpec转换成SecretKey对象
+			SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(DES);
+			secretKey = keyFactory.generateSecret(dks);
+			if (SECRETKEYS.size() >= SECRETKEY_CACHE_SIZE) {
+				SECRETKEYS.clear();
+			}
+			SECRETKEYS.put(str, secretKey);
+		}
+		return secretKey;
+	}
+
+	private static Cipher cipher() throws Exception {
+		Cipher cipher = CIPHERS.get();
+		if (null == cipher) {
+			cipher = Cipher.getInstance(cipher_init);
+			CIPHERS.set(cipher);
+		}
+		return cipher;
+	}
+
 	public static String encrypt(String data, String key) throws Exception {
 		byte[] bt = encrypt(data.getBytes(), key.getBytes());
 		String str = Base64.encodeBase64URLSafeString(bt);
@@ -37,17 +79,10 @@ public class Crypto {
 	}
 
 	public static byte[] encrypt(byte[] data, byte[] key) throws Exception {
-		// 生成一个可信任的随机数源
-		SecureRandom sr = new SecureRandom();
-		// 从原始密钥数据创建DESKeySpec对象
-		DESKeySpec dks = new DESKeySpec(key);
-		// 创建一个密钥工厂，然后用它把DESKeySpec转换成SecretKey对象
-		SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(DES);
-		SecretKey securekey = keyFactory.generateSecret(dks);
 		// Cipher对象实际完成加密操作
-		Cipher cipher = Cipher.getInstance(cipher_init);
+		Cipher cipher = cipher();
 		// 用密钥初始化Cipher对象
-		cipher.init(Cipher.ENCRYPT_MODE, securekey, sr);
+		cipher.init(Cipher.ENCRYPT_MODE, secretKey(key), SECURERANDOM);
 		return cipher.doFinal(data);
 	}
 
@@ -62,17 +97,10 @@ public class Crypto {
 	}
 
 	public static byte[] decrypt(byte[] data, byte[] key) throws Exception {
-		// 生成一个可信任的随机数源
-		SecureRandom sr = new SecureRandom();
-		// 从原始密钥数据创建DESKeySpec对象
-		DESKeySpec dks = new DESKeySpec(key);
-		// 创建一个密钥工厂，然后用它把DESKeySpec转换成SecretKey对象
-		SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(DES);
-		SecretKey securekey = keyFactory.generateSecret(dks);
 		// Cipher对象实际完成解密操作
-		Cipher cipher = Cipher.getInstance(cipher_init);
+		Cipher cipher = cipher();
 		// 用密钥初始化Cipher对象
-		cipher.init(Cipher.DECRYPT_MODE, securekey, sr);
+		cipher.init(Cipher.DECRYPT_MODE, secretKey(key), SECURERANDOM);
 		return cipher.doFinal(data);
 	}
 
@@ -1,14 +1,23 @@
 package com.x.base.core.project.tools;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
 public class ImageTools {
 
 	private final static int HUE_FACTOR = 16;
@@ -47,4 +56,68 @@ public class ImageTools {
 		return value;
 	}
 
+	/**
+	 * 读取图片,按目标尺寸进行隔行采样解码,解码后的图片不小于目标尺寸的两倍,避免大图完整解码占用内存.<br/>
+	 * width或height不大于0时不进行采样,无法识别的格式返回null.
+	 */
+	public static BufferedImage read(byte[] bytes, int width, int height) throws Exception {
+		try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+			if (null == input) {
+				return null;
+			}
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				return null;
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				int sampling = Math.min(sampling(reader.getWidth(0), width), sampling(reader.getHeight(0), height));
+				ImageReadParam param = reader.getDefaultReadParam();
+				if (sampling > 1) {
+					param.setSourceSubsampling(sampling, sampling, 0, 0);
+				}
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * 只读取图片的宽度和高度,不解码图片内容,无法识别的格式返回null.
+	 */
+	public static Dimension dimension(byte[] bytes) throws Exception {
+		try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+			if (null == input) {
+				return null;
+			}
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				return null;
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				return new Dimension(reader.getWidth(0), reader.getHeight(0));
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private static int sampling(int source, int target) {
+		if (target <= 0) {
+			return 1;
+		}
+		return Math.max(1, source / (target * 2));
+	}
+
+	public static byte[] png(BufferedImage image) throws Exception {
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			ImageIO.write(image, "png", baos);
+			return baos.toByteArray();
+		}
+	}
+
 }
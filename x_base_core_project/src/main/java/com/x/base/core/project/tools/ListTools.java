@@ -4,12 +4,14 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.beanutils.PropertyUtils;
@@ -352,6 +354,44 @@ public class ListTools {
 		return result;
 	}
 
+	/*
+	 * 按照keys的顺序对list进行稳定排序,不在keys中的元素排在最前,与按keys.indexOf排序结果一致,复杂度为O(n)
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T, K> List<T> orderWithKeys(Collection<T> list, List<K> keys, Function<T, K> keyFunction) {
+		List<T> result = new ArrayList<>();
+		if (null == list || list.isEmpty()) {
+			return result;
+		}
+		if (null == keys || keys.isEmpty()) {
+			result.addAll(list);
+			return result;
+		}
+		Map<K, Integer> positions = new HashMap<>(keys.size() * 2);
+		for (int i = 0; i < keys.size(); i++) {
+			positions.putIfAbsent(keys.get(i), i + 1);
+		}
+		Object[] os = list.toArray();
+		int[] slots = new int[os.length];
+		int[] starts = new int[keys.size() + 2];
+		for (int i = 0; i < os.length; i++) {
+			Integer position = positions.get(keyFunction.apply((T) os[i]));
+			slots[i] = (null == position) ? 0 : position;
+			starts[slots[i] + 1]++;
+		}
+		for (int i = 1; i < starts.length; i++) {
+			starts[i] += starts[i - 1];
+		}
+		Object[] ordered = new Object[os.length];
+		for (int i = 0; i < os.length; i++) {
+			ordered[starts[slots[i]]++] = os[i];
+		}
+		for (Object o : ordered) {
+			result.add((T) o);
+		}
+		return result;
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <T> List<T> toList(T... ts) {
 		List<T> list = new ArrayList<>();
@@ -0,0 +1,85 @@
+package com.x.base.core.project.test.container;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.jdbc.sql.H2Dictionary;
+import org.apache.openjpa.jdbc.sql.MySQLDictionary;
+import org.apache.openjpa.jdbc.sql.OracleDictionary;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.tools.ListTools;
+
+public class TestClient {
+
+	/* 数据库方言没有限制时使用默认值,有限制时不超过默认值 */
+	@Test
+	public void testInClauseLimit() {
+		Assert.assertEquals(EntityManagerContainerFactory.DEFAULT_IN_CLAUSE_LIMIT,
+				EntityManagerContainerFactory.inClauseLimit(null));
+		Assert.assertEquals(EntityManagerContainerFactory.DEFAULT_IN_CLAUSE_LIMIT,
+				EntityManagerContainerFactory.inClauseLimit(new H2Dictionary()));
+		Assert.assertEquals(EntityManagerContainerFactory.DEFAULT_IN_CLAUSE_LIMIT,
+				EntityManagerContainerFactory.inClauseLimit(new MySQLDictionary()));
+		Assert.assertEquals(Integer.valueOf(1000), EntityManagerContainerFactory.inClauseLimit(new OracleDictionary()));
+		DBDictionary dictionary = new H2Dictionary();
+		dictionary.inClauseLimit = 300;
+		Assert.assertEquals(Integer.valueOf(300), EntityManagerContainerFactory.inClauseLimit(dictionary));
+		dictionary.inClauseLimit = 5000;
+		Assert.assertEquals(EntityManagerContainerFactory.DEFAULT_IN_CLAUSE_LIMIT,
+				EntityManagerContainerFactory.inClauseLimit(dictionary));
+	}
+
+	/* 按 in 子句限制分段后乱序返回,按 id 顺序还原 */
+	@Test
+	public void testBatchAndOrder() throws Exception {
+		List<String> ids = ids(2500);
+		DBDictionary dictionary = new H2Dictionary();
+		dictionary.inClauseLimit = 300;
+		int limit = EntityManagerContainerFactory.inClauseLimit(dictionary);
+		List<List<String>> parts = ListTools.batch(ids, limit);
+		Assert.assertEquals(9, parts.size());
+		List<String> os = new ArrayList<>();
+		for (List<String> part : parts) {
+			Assert.assertTrue(part.size() <= limit);
+			List<String> copy = new ArrayList<>(part);
+			Collections.shuffle(copy, new Random(part.size()));
+			os.addAll(0, copy);
+		}
+		Assert.assertEquals(ids, ListTools.orderWithKeys(os, ids, Function.identity()));
+	}
+
+	/* 不在 keys 中的排在最前,重复的 key 保持原有相对顺序 */
+	@Test
+	public void testOrderWithKeys() {
+		List<String> keys = ListTools.toList("c", "a", "b", "a");
+		List<String> list = ListTools.toList("a", "x", "b", "c", "b");
+		Assert.assertEquals(ListTools.toList("x", "c", "a", "b", "b"),
+				ListTools.orderWithKeys(list, keys, Function.identity()));
+		List<String[]> pairs = new ArrayList<>();
+		pairs.add(new String[] { "b", "1" });
+		pairs.add(new String[] { "a", "2" });
+		pairs.add(new String[] { "b", "3" });
+		List<String[]> ordered = ListTools.orderWithKeys(pairs, ListTools.toList("a", "b"), o -> o[0]);
+		Assert.assertEquals("2", ordered.get(0)[1]);
+		Assert.assertEquals("1", ordered.get(1)[1]);
+		Assert.assertEquals("3", ordered.get(2)[1]);
+		Assert.assertTrue(ListTools.orderWithKeys(null, keys, Function.identity()).isEmpty());
+		Assert.assertEquals(list, ListTools.orderWithKeys(list, null, Function.identity()));
+	}
+
+	private List<String> ids(int count) {
+		List<String> list = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			list.add(String.format("%08d", i));
+		}
+		return list;
+	}
+
+}
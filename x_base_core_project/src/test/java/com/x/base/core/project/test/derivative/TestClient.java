@@ -0,0 +1,102 @@
+package com.x.base.core.project.test.derivative;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
+import com.x.base.core.project.derivative.DerivativeStore;
+import com.x.base.core.project.tools.ImageTools;
+
+/**
+ * 衍生内容测试,32个请求同时获取同一个缩略图只生成一次,之后直接从存储读取;无法生成时不保存结果.<br/>
+ * 大图按目标尺寸采样解码,不需要完整解码原图.
+ */
+public class TestClient {
+
+	private static final int THREADS = 32;
+
+	@Test
+	public void testSingleFlight() throws Exception {
+		File dir = Files.createTempDirectory("derivative").toFile();
+		try {
+			StorageMapping mapping = new StorageMapping(dir);
+			String key = Derivative.key("0123456789abcdef0123456789abcdef");
+			AtomicInteger generated = new AtomicInteger();
+			DerivativeStore.Generator generator = () -> {
+				generated.incrementAndGet();
+				Thread.sleep(200);
+				return new byte[] { 1, 2, 3, 4, 5 };
+			};
+			CountDownLatch latch = new CountDownLatch(1);
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			List<Future<Derivative>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					latch.await();
+					return DerivativeStore.get(mapping, key, "fit_200x200.png", generator);
+				}));
+			}
+			latch.countDown();
+			for (Future<Derivative> future : futures) {
+				Derivative derivative = future.get();
+				Assert.assertEquals(5L, derivative.getLength().longValue());
+			}
+			executor.shutdown();
+			Assert.assertEquals(1, generated.get());
+			Derivative derivative = DerivativeStore.get(mapping, key, "fit_200x200.png", generator);
+			Assert.assertEquals(1, generated.get());
+			Assert.assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, derivative.readContent(mapping));
+			Assert.assertNotNull(DerivativeStore.find(mapping, key, "fit_200x200.png"));
+			Assert.assertNull(DerivativeStore.find(mapping, key, "fit_400x400.png"));
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	@Test
+	public void testNotGenerated() throws Exception {
+		File dir = Files.createTempDirectory("derivative").toFile();
+		try {
+			StorageMapping mapping = new StorageMapping(dir);
+			String key = Derivative.key("fedcba9876543210fedcba9876543210");
+			AtomicInteger generated = new AtomicInteger();
+			DerivativeStore.Generator generator = () -> {
+				generated.incrementAndGet();
+				return null;
+			};
+			Assert.assertNull(DerivativeStore.get(mapping, key, "office.pdf", generator));
+			Assert.assertNull(DerivativeStore.get(mapping, key, "office.pdf", generator));
+			Assert.assertEquals(2, generated.get());
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	@Test
+	public void testSubsampling() throws Exception {
+		byte[] bytes = ImageTools.png(new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB));
+		Dimension dimension = ImageTools.dimension(bytes);
+		Assert.assertEquals(4000, dimension.width);
+		Assert.assertEquals(3000, dimension.height);
+		BufferedImage image = ImageTools.read(bytes, 200, 200);
+		Assert.assertTrue(image.getWidth() >= 400 && image.getWidth() < 4000);
+		Assert.assertTrue(image.getHeight() >= 400 && image.getHeight() < 3000);
+		image = ImageTools.read(bytes, 0, 200);
+		Assert.assertEquals(4000, image.getWidth());
+	}
+
+}
@@ -0,0 +1,331 @@
+package com.x.base.core.project.test.extract;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.entity.StorageObject;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
+import com.x.base.core.project.derivative.DerivativeStore;
+import com.x.base.core.project.extract.ExtractMetrics;
+import com.x.base.core.project.extract.TextExtractor;
+import com.x.base.core.project.tools.DefaultCharset;
+
+/**
+ * 文本抽取基准测试,生成pdf,docx,xlsx和txt组成的测试文件集,每个文件以不同附件的身份重复抽取.<br/>
+ * 相同内容只解析一次,之后直接读取保存的文本;多个请求同时抽取同一个文件时合并为一次解析.
+ */
+public class TestClient {
+
+	private static final String MARK = "o2oa-extract-mark";
+
+	private static final int COPIES = 5;
+
+	private String line(int i) {
+		return "line " + i + " " + MARK + " the quick brown fox jumps over the lazy dog.";
+	}
+
+	private byte[] pdf(int pages) throws Exception {
+		try (PDDocument document = new PDDocument(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			for (int p = 0; p < pages; p++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA, 10);
+					content.setLeading(12);
+					content.newLineAtOffset(40, 750);
+					for (int i = 0; i < 50; i++) {
+						content.showText(line(p * 50 + i));
+						content.newLine();
+					}
+					content.endText();
+				}
+			}
+			document.save(baos);
+			return baos.toByteArray();
+		}
+	}
+
+	private byte[] docx(int paragraphs) throws Exception {
+		try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			for (int i = 0; i < paragraphs; i++) {
+				document.createParagraph().createRun().setText(line(i));
+			}
+			document.write(baos);
+			return baos.toByteArray();
+		}
+	}
+
+	private byte[] xlsx(int rows) throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			XSSFSheet sheet = workbook.createSheet();
+			for (int i = 0; i < rows; i++) {
+				XSSFRow row = sheet.createRow(i);
+				row.createCell(0).setCellValue(i);
+				row.createCell(1).setCellValue(line(i));
+			}
+			workbook.write(baos);
+			return baos.toByteArray();
+		}
+	}
+
+	private byte[] txt(int lines) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			builder.append(line(i)).append("\n");
+		}
+		return builder.toString().getBytes(DefaultCharset.charset);
+	}
+
+	private Map<String, byte[]> corpus() throws Exception {
+		Map<String, byte[]> map = new LinkedHashMap<>();
+		map.put("report.pdf", pdf(200));
+		map.put("notice.docx", docx(5000));
+		map.put("sheet.xlsx", xlsx(5000));
+		map.put("readme.txt", txt(20000));
+		return map;
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		File dir = Files.createTempDirectory("extract").toFile();
+		try {
+			StorageMapping mapping = new StorageMapping(dir);
+			Map<String, byte[]> corpus = this.corpus();
+			ExtractMetrics before = TextExtractor.metrics();
+			for (int copy = 0; copy < COPIES; copy++) {
+				for (Map.Entry<String, byte[]> entry : corpus.entrySet()) {
+					/* 每个副本是不同的附件,内容相同 */
+					Source source = new Source("copy" + copy + "_" + entry.getKey(), entry.getKey());
+					source.saveContent(mapping, entry.getValue(), entry.getKey());
+					String text = TextExtractor.extract(source, mapping, true, true, true, false);
+					Assert.assertTrue(entry.getKey(), text.contains(MARK));
+				}
+			}
+			ExtractMetrics after = TextExtractor.metrics();
+			Assert.assertEquals(corpus.size(), after.getExtractedCount() - before.getExtractedCount());
+			Assert.assertEquals((COPIES - 1) * corpus.size(), after.getCacheHitCount() - before.getCacheHitCount());
+			Assert.assertEquals(0L, after.getFailedCount() - before.getFailedCount());
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	@Test
+	public void testCoalesce() throws Exception {
+		byte[] bytes = pdf(300);
+		ExtractMetrics before = TextExtractor.metrics();
+		int threads = 8;
+		CountDownLatch latch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<String>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(() -> {
+				latch.await();
+				try (InputStream input = new java.io.ByteArrayInputStream(bytes)) {
+					return TextExtractor.extract(input, "coalesce.pdf", true, true, true, false);
+				}
+			}));
+		}
+		latch.countDown();
+		for (Future<String> future : futures) {
+			Assert.assertTrue(future.get().contains(MARK));
+		}
+		executor.shutdown();
+		ExtractMetrics after = TextExtractor.metrics();
+		long extracted = after.getExtractedCount() - before.getExtractedCount();
+		long coalesced = after.getCoalescedCount() - before.getCoalescedCount();
+		Assert.assertEquals(threads, extracted + coalesced);
+		Assert.assertTrue(extracted < threads);
+	}
+
+	/* 没有文字的pdf抽取出空文本,空文本同样保存,第二个附件直接读取 */
+	@Test
+	public void testEmptyText() throws Exception {
+		File dir = Files.createTempDirectory("extract").toFile();
+		try {
+			StorageMapping mapping = new StorageMapping(dir);
+			byte[] bytes = pdf(0);
+			ExtractMetrics before = TextExtractor.metrics();
+			for (int copy = 0; copy < 2; copy++) {
+				Source source = new Source("empty" + copy, "empty.pdf");
+				source.saveContent(mapping, bytes, "empty.pdf");
+				Assert.assertEquals("", TextExtractor.extract(source, mapping, true, true, true, false));
+			}
+			ExtractMetrics after = TextExtractor.metrics();
+			Assert.assertEquals(1L, after.getExtractedCount() - before.getExtractedCount());
+			Assert.assertEquals(1L, after.getCacheHitCount() - before.getCacheHitCount());
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	/* 按md5保存的文本在所有引用的附件都删除后删除 */
+	@Test
+	public void testReference() throws Exception {
+		File dir = Files.createTempDirectory("extract").toFile();
+		try {
+			StorageMapping mapping = new StorageMapping(dir);
+			byte[] bytes = txt(10);
+			String key = "text/" + Derivative.key(DigestUtils.md5Hex(bytes));
+			Source first = new Source("first", "readme.txt");
+			Source second = new Source("second", "readme.txt");
+			for (Source source : new Source[] { first, second }) {
+				source.saveContent(mapping, bytes, "readme.txt");
+				Assert.assertTrue(TextExtractor.extract(source, mapping, true, true, true, false).contains(MARK));
+			}
+			Assert.assertNotNull(DerivativeStore.find(mapping, key, "text_text.txt"));
+			Derivative.delete(mapping, first);
+			Assert.assertNotNull(DerivativeStore.find(mapping, key, "text_text.txt"));
+			Derivative.delete(mapping, second);
+			Assert.assertNull(DerivativeStore.find(mapping, key, "text_text.txt"));
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	@Test
+	public void testUnsupported() throws Exception {
+		try (InputStream input = new java.io.ByteArrayInputStream(new byte[] { 1, 2, 3 })) {
+			Assert.assertNull(TextExtractor.extract(input, "archive.zip", true, true, true, false));
+		}
+		File file = File.createTempFile("extract", ".docx");
+		try {
+			try (OutputStream output = new FileOutputStream(file)) {
+				output.write(docx(10));
+			}
+			try (InputStream input = new FileInputStream(file)) {
+				/* 未开启office抽取 */
+				Assert.assertNull(TextExtractor.extract(input, "notice.docx", false, true, true, false));
+			}
+		} finally {
+			FileUtils.deleteQuietly(file);
+		}
+	}
+
+	public static class Source extends StorageObject {
+
+		private static final long serialVersionUID = 1L;
+
+		private String id;
+		private String storage;
+		private Long length;
+		private String name;
+		private String extension;
+		private Date lastUpdateTime;
+		private Boolean deepPath;
+
+		public Source(String id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		@Override
+		public String path() throws Exception {
+			return "source/" + id;
+		}
+
+		@Override
+		public void onPersist() throws Exception {
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public String getStorage() {
+			return storage;
+		}
+
+		@Override
+		public void setStorage(String storage) {
+			this.storage = storage;
+		}
+
+		@Override
+		public Long getLength() {
+			return length;
+		}
+
+		@Override
+		public void setLength(Long length) {
+			this.length = length;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getExtension() {
+			return extension;
+		}
+
+		@Override
+		public void setExtension(String extension) {
+			this.extension = extension;
+		}
+
+		@Override
+		public Date getLastUpdateTime() {
+			return lastUpdateTime;
+		}
+
+		@Override
+		public void setLastUpdateTime(Date lastUpdateTime) {
+			this.lastUpdateTime = lastUpdateTime;
+		}
+
+		@Override
+		public Boolean getDeepPath() {
+			return deepPath;
+		}
+
+		@Override
+		public void setDeepPath(Boolean deepPath) {
+			this.deepPath = deepPath;
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.x.base.core.project.test.http;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.DESKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.time.DateFormatUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.http.HttpToken;
+import com.x.base.core.project.http.TokenType;
+import com.x.base.core.project.tools.Crypto;
+import com.x.base.core.project.tools.DateTools;
+
+/**
+ * 每个请求识别token的开销对比,原来每次创建SecretKeyFactory,Cipher,编译正则表达式并重新加密生成token;<br/>
+ * 现在Cipher按线程复用,验证过的token缓存,间隔内不重新签发.
+ */
+public class TestClient {
+
+	private static final String KEY = "xplatform";
+
+	private static final int TOKEN_COUNT = 200;
+
+	private static final int REQUEST_COUNT = 50000;
+
+	private static final String REGULAREXPRESSION_TOKEN = "^(anonymous|user|manager|cipher)([2][0][1-2][0-9][0-1][0-9][0-3][0-9][0-5][0-9][0-5][0-9][0-5][0-9])(\\S{1,})$";
+
+	private byte[] des(int mode, byte[] data, byte[] key) throws Exception {
+		DESKeySpec dks = new DESKeySpec(key);
+		SecretKeyFactory keyFactory = SecretKeyFactory.getInstance("DES");
+		SecretKey securekey = keyFactory.generateSecret(dks);
+		Cipher cipher = Cipher.getInstance("DES");
+		cipher.init(mode, securekey, new SecureRandom());
+		return cipher.doFinal(data);
+	}
+
+	/* 原来的方式,解密,解析后重新加密生成token */
+	private String before(String token) throws Exception {
+		String plain = new String(
+				des(Cipher.DECRYPT_MODE, Base64.decodeBase64(URLDecoder.decode(token, "UTF-8")), KEY.getBytes()));
+		Pattern pattern = Pattern.compile(REGULAREXPRESSION_TOKEN, Pattern.CASE_INSENSITIVE);
+		Matcher matcher = pattern.matcher(plain);
+		Assert.assertTrue(matcher.find());
+		Date date = DateUtils.parseDate(matcher.group(2), DateTools.formatCompact_yyyyMMddHHmmss);
+		Assert.assertTrue(Math.abs(System.currentTimeMillis() - date.getTime()) < 60000L * 20);
+		String name = URLDecoder.decode(matcher.group(3), "utf-8");
+		String reissue = matcher.group(1) + DateFormatUtils.format(new Date(), DateTools.formatCompact_yyyyMMddHHmmss)
+				+ URLEncoder.encode(name, "utf-8");
+		byte[] bytes = des(Cipher.ENCRYPT_MODE, reissue.getBytes(), KEY.getBytes());
+		URLEncoder.encode(Base64.encodeBase64URLSafeString(bytes), "UTF-8");
+		return name;
+	}
+
+	@Test
+	public void testWho() throws Exception {
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < TOKEN_COUNT; i++) {
+			tokens.add(Crypto.encrypt(TokenType.cipher.toString()
+					+ DateFormatUtils.format(new Date(), DateTools.formatCompact_yyyyMMddHHmmss) + "cipher" + i, KEY));
+		}
+		HttpToken httpToken = new HttpToken();
+		for (int i = 0; i < 2000; i++) {
+			this.before(tokens.get(i % TOKEN_COUNT));
+			httpToken.who(tokens.get(i % TOKEN_COUNT), KEY);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < REQUEST_COUNT; i++) {
+			this.before(tokens.get(i % TOKEN_COUNT));
+		}
+		long beforeCost = (System.nanoTime() - start) / REQUEST_COUNT;
+		start = System.nanoTime();
+		for (int i = 0; i < REQUEST_COUNT; i++) {
+			EffectivePerson effectivePerson = httpToken.who(tokens.get(i % TOKEN_COUNT), KEY);
+			Assert.assertEquals(TokenType.cipher, effectivePerson.getTokenType());
+			Assert.assertEquals(tokens.get(i % TOKEN_COUNT), effectivePerson.getToken());
+		}
+		long afterCost = (System.nanoTime() - start) / REQUEST_COUNT;
+		System.out.println(REQUEST_COUNT + " requests, before: " + beforeCost + "ns/request, after: " + afterCost
+				+ "ns/request.");
+		Assert.assertTrue(afterCost < beforeCost);
+	}
+
+	@Test
+	public void testInvalid() throws Exception {
+		HttpToken httpToken = new HttpToken();
+		String token = Crypto.encrypt(TokenType.cipher.toString() + "20190101000000cipher", KEY);
+		Assert.assertTrue(httpToken.who(token, KEY).isAnonymous());
+		Assert.assertTrue(httpToken.who("abcdefghijklmnopqrstuvwx", KEY).isAnonymous());
+		String plain = TokenType.cipher.toString()
+				+ DateFormatUtils.format(new Date(), DateTools.formatCompact_yyyyMMddHHmmss) + "cipher";
+		Assert.assertEquals(plain, Crypto.decrypt(Crypto.encrypt(plain, KEY), KEY));
+		Assert.assertTrue(httpToken.who(Crypto.encrypt(plain, KEY), "otherkey").isAnonymous());
+	}
+
+}
@@ -0,0 +1,297 @@
+package com.x.base.core.project.test.jaxrs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.project.gson.XGsonBuilder;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.jaxrs.ByteRange;
+import com.x.base.core.project.jaxrs.KeysetCursor;
+import com.x.base.core.project.jaxrs.KeysetPagination;
+import com.x.base.core.project.jaxrs.ResponseFactory;
+import com.x.base.core.project.jaxrs.WoArtifact;
+import com.x.base.core.project.jaxrs.WoLocalFile;
+import com.x.base.core.project.jaxrs.WoStorageFile;
+import com.x.base.core.project.tools.DefaultCharset;
+import com.x.base.core.project.tools.ListTools;
+
+public class TestClient {
+
+	@Test
+	public void testCursor() {
+		Date date = new Date();
+		for (Object o : new Object[] { "20191010102030a1b2c3:x", date, 12, 12L, 1.5d, true }) {
+			String str = KeysetCursor.encode(o, 21L);
+			Assert.assertTrue(KeysetCursor.isCursor(str));
+			KeysetCursor cursor = KeysetCursor.decode(str);
+			Assert.assertEquals(o, cursor.getSequence());
+			Assert.assertEquals(Long.valueOf(21L), cursor.getRank());
+		}
+		Assert.assertNull(KeysetCursor.decode("(0)"));
+		Assert.assertNull(KeysetCursor.decode("~@@@"));
+		Assert.assertNull(KeysetCursor.decode(KeysetCursor.encode("a", null)).getRank());
+	}
+
+	@Test
+	public void testLikeTokens() {
+		Assert.assertEquals(ListTools.toList("ab", "x"), KeysetPagination.likeTokens("abc ab  x ab xyz"));
+		Assert.assertTrue(KeysetPagination.likeTokens("   ").isEmpty());
+	}
+
+	private HttpServletRequest request(String ifNoneMatch) {
+		return this.request(ifNoneMatch, null);
+	}
+
+	private HttpServletRequest request(String ifNoneMatch, String acceptEncoding) {
+		return (HttpServletRequest) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+					if (StringUtils.equals(method.getName(), "getHeader")) {
+						return StringUtils.equalsIgnoreCase("If-None-Match", (String) args[0]) ? ifNoneMatch
+								: acceptEncoding;
+					}
+					return null;
+				});
+	}
+
+	/* 模拟大的表单,页面和视图结果 */
+	private ActionResult<Map<String, Object>> payload() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("data", StringUtils.repeat("{\"html\":\"<div>表单</div>\"},", 20000));
+		List<Map<String, Object>> grid = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("bundle", "bundle" + i);
+			row.put("title", "标题" + i);
+			row.put("number", i);
+			grid.add(row);
+		}
+		map.put("grid", grid);
+		ActionResult<Map<String, Object>> result = new ActionResult<>();
+		result.setData(map);
+		return result;
+	}
+
+	private long allocated() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/* 原来的方式,序列化data计算ETag,再序列化整个结果为字符串 */
+	private byte[] before(ActionResult<Map<String, Object>> result) {
+		CRC32 crc = new CRC32();
+		crc.update(XGsonBuilder.toJson(result.getData()).getBytes(DefaultCharset.charset_utf_8));
+		return result.toJson().getBytes(DefaultCharset.charset_utf_8);
+	}
+
+	private void after(ActionResult<Map<String, Object>> result) throws Exception {
+		Response response = ResponseFactory.getEntityTagActionResultResponse(this.request(null), result);
+		((StreamingOutput) response.getEntity()).write(NullOutputStream.NULL_OUTPUT_STREAM);
+	}
+
+	@Test
+	public void testEntityTag() throws Exception {
+		ActionResult<Map<String, Object>> result = this.payload();
+		for (int i = 0; i < 5; i++) {
+			this.before(result);
+			this.after(result);
+		}
+		int rounds = 20;
+		long start = this.allocated();
+		for (int i = 0; i < rounds; i++) {
+			this.before(result);
+		}
+		long before = (this.allocated() - start) / rounds / 1024;
+		start = this.allocated();
+		for (int i = 0; i < rounds; i++) {
+			this.after(result);
+		}
+		long after = (this.allocated() - start) / rounds / 1024;
+		System.out.println("response of " + this.before(result).length / 1024 + "KB, before: " + before
+				+ "KB allocated/request, after: " + after + "KB allocated/request.");
+		Assert.assertTrue(after < before);
+		String tag = ResponseFactory.getEntityTagActionResultResponse(this.request(null), result).getEntityTag()
+				.getValue();
+		Assert.assertEquals(304, ResponseFactory.getEntityTagActionResultResponse(this.request("\"" + tag + "\""), result)
+				.getStatus());
+	}
+
+	@Test
+	public void testVersion() throws Exception {
+		Assert.assertNull(ResponseFactory.getNotModifiedResponse(this.request(null), "form#1"));
+		Assert.assertNull(ResponseFactory.getNotModifiedResponse(this.request("\"abc\""), null));
+		String tag = ResponseFactory.getEntityTagActionResultResponse(this.request(null), this.payload(), "form#1")
+				.getEntityTag().getValue();
+		Response response = ResponseFactory.getNotModifiedResponse(this.request("\"" + tag + "\""), "form#1");
+		Assert.assertEquals(304, response.getStatus());
+		Assert.assertNull(ResponseFactory.getNotModifiedResponse(this.request("\"" + tag + "\""), "form#2"));
+	}
+
+	@Test
+	public void testArtifact() throws Exception {
+		WoArtifact wo = WoArtifact.json(this.payload());
+		Response response = ResponseFactory.getArtifactResponse(this.request(null, "gzip, deflate"), wo);
+		Assert.assertEquals("gzip", response.getHeaderString(ResponseFactory.Content_Encoding));
+		Assert.assertTrue(((byte[]) response.getEntity()).length < wo.getBytes().length / 4);
+		Assert.assertNull(response.getHeaderString(ResponseFactory.Cache_Control));
+		response = ResponseFactory.getArtifactResponse(this.request(null), wo.immutable());
+		Assert.assertNull(response.getHeaderString(ResponseFactory.Content_Encoding));
+		Assert.assertSame(wo.getBytes(), response.getEntity());
+		Assert.assertTrue(StringUtils.contains(response.getHeaderString(ResponseFactory.Cache_Control), "immutable"));
+		response = ResponseFactory.getArtifactResponse(this.request("\"" + wo.getHash() + "\"", "gzip"), wo);
+		Assert.assertEquals(304, response.getStatus());
+		Assert.assertEquals(wo.getHash(), WoArtifact.json(this.payload()).getHash());
+	}
+
+	@Test
+	public void testByteRange() {
+		List<ByteRange> list = ByteRange.parse("bytes=0-99, 200-, -50", 1000);
+		Assert.assertEquals(3, list.size());
+		Assert.assertEquals("bytes 0-99/1000", list.get(0).contentRange(1000));
+		Assert.assertEquals(800, list.get(1).length());
+		Assert.assertEquals(950, list.get(2).getStart());
+		Assert.assertEquals(999, ByteRange.parse("bytes=500-5000", 1000).get(0).getEnd());
+		Assert.assertTrue(ByteRange.parse("bytes=1000-", 1000).isEmpty());
+		Assert.assertNull(ByteRange.parse("bytes=9-1", 1000));
+		Assert.assertNull(ByteRange.parse("bytes=-", 1000));
+		Assert.assertNull(ByteRange.parse("items=0-1", 1000));
+		Assert.assertNull(ByteRange.parse(null, 1000));
+	}
+
+	private HttpServletRequest requestWithHeaders(Map<String, String> headers) {
+		return (HttpServletRequest) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+					if (StringUtils.equals(method.getName(), "getHeader")) {
+						return headers.get(args[0]);
+					}
+					return null;
+				});
+	}
+
+	/* 内容在内存中的存储文件,按范围输出 */
+	private WoStorageFile file(byte[] bytes) {
+		return new WoStorageFile(null, null, "text/plain", "attachment; filename=a.txt") {
+
+			@Override
+			public Long getLength() {
+				return (long) bytes.length;
+			}
+
+			@Override
+			public String getETag() {
+				return "100";
+			}
+
+			@Override
+			public long write(OutputStream output, long offset, long length) throws Exception {
+				int count = (int) ((length < 0) ? (bytes.length - offset) : length);
+				output.write(bytes, (int) offset, count);
+				return count;
+			}
+		};
+	}
+
+	private String body(Response response) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		((StreamingOutput) response.getEntity()).write(output);
+		return new String(output.toByteArray(), DefaultCharset.charset_utf_8);
+	}
+
+	@Test
+	public void testStorageFileRange() throws Exception {
+		WoStorageFile wo = this.file("0123456789".getBytes(DefaultCharset.charset_utf_8));
+		Map<String, String> headers = new HashMap<>();
+		Response response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertEquals("bytes", response.getHeaderString(ResponseFactory.Accept_Ranges));
+		Assert.assertEquals("10", response.getHeaderString("Content-Length"));
+		Assert.assertEquals("0123456789", this.body(response));
+
+		headers.put("Range", "bytes=2-4");
+		response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+		Assert.assertEquals(206, response.getStatus());
+		Assert.assertEquals("bytes 2-4/10", response.getHeaderString("Content-Range"));
+		Assert.assertEquals("3", response.getHeaderString("Content-Length"));
+		Assert.assertEquals("234", this.body(response));
+
+		headers.put("Range", "bytes=-2");
+		response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+		Assert.assertEquals("89", this.body(response));
+
+		headers.put("Range", "bytes=0-1,8-");
+		response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+		Assert.assertEquals(206, response.getStatus());
+		String boundary = StringUtils.substringAfter(response.getHeaderString(ResponseFactory.Content_Type),
+				"boundary=");
+		Assert.assertTrue(StringUtils.isNotEmpty(boundary));
+		String body = this.body(response);
+		Assert.assertTrue(body.contains("Content-Range: bytes 0-1/10\r\n\r\n01\r\n--" + boundary));
+		Assert.assertTrue(body.contains("Content-Range: bytes 8-9/10\r\n\r\n89\r\n--" + boundary + "--"));
+
+		headers.put("Range", "bytes=10-");
+		response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+		Assert.assertEquals(416, response.getStatus());
+		Assert.assertEquals("bytes */10", response.getHeaderString("Content-Range"));
+
+		/* If-Range与ETag不一致时输出完整内容 */
+		headers.put("Range", "bytes=2-4");
+		headers.put("If-Range", "\"1\"");
+		response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertEquals("0123456789", this.body(response));
+		headers.put("If-Range", "\"100\"");
+		response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+		Assert.assertEquals(206, response.getStatus());
+
+		headers.put("If-None-Match", "\"100\"");
+		Assert.assertEquals(304, ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo).getStatus());
+	}
+
+	/* 本地文件直接流出,按范围读取文件,不读入内存 */
+	@Test
+	public void testLocalFileRange() throws Exception {
+		File file = File.createTempFile("local", ".txt");
+		try {
+			FileUtils.writeStringToFile(file, "0123456789", DefaultCharset.charset_utf_8);
+			WoLocalFile wo = new WoLocalFile(file, "text/plain", "attachment; filename=a.txt") {
+			};
+			Map<String, String> headers = new HashMap<>();
+			Response response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+			Assert.assertEquals(200, response.getStatus());
+			Assert.assertEquals("10", response.getHeaderString("Content-Length"));
+			Assert.assertEquals("0123456789", this.body(response));
+			headers.put("Range", "bytes=3-5");
+			response = ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo);
+			Assert.assertEquals(206, response.getStatus());
+			Assert.assertEquals("345", this.body(response));
+			headers.put("Range", "bytes=-2");
+			Assert.assertEquals("89", this.body(ResponseFactory.getStorageFileResponse(this.requestWithHeaders(headers), wo)));
+			Assert.assertEquals("0123456789", new String(wo.getBytes(), DefaultCharset.charset_utf_8));
+			ActionResult<WoLocalFile> result = new ActionResult<>();
+			result.setData(wo);
+			Assert.assertTrue(ResponseFactory.getDefaultActionResultResponse(result).getEntity() instanceof StreamingOutput);
+		} finally {
+			FileUtils.deleteQuietly(file);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.x.base.core.project.test.lock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.project.lock.Lease;
+import com.x.base.core.project.lock.LeaseTable;
+
+/**
+ * 租约锁的竞争测试,64个编辑者同时锁定同一个值,任意时刻只能有一个持有者,每次授予的令牌单调递增.
+ */
+public class TestClient {
+
+	private static final int EDITOR_COUNT = 64;
+
+	private static final int ROUNDS = 2000;
+
+	private static final String KEY = "work#1";
+
+	@Test
+	public void testContention() throws Exception {
+		LeaseTable table = new LeaseTable();
+		AtomicReference<String> holder = new AtomicReference<>();
+		AtomicLong lastToken = new AtomicLong();
+		AtomicInteger granted = new AtomicInteger();
+		AtomicInteger violations = new AtomicInteger();
+		AtomicLong cost = new AtomicLong();
+		CountDownLatch latch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(EDITOR_COUNT);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < EDITOR_COUNT; i++) {
+			String editor = "editor" + i + "@p@P";
+			futures.add(executor.submit(() -> {
+				latch.await();
+				for (int j = 0; j < ROUNDS; j++) {
+					long start = System.nanoTime();
+					Lease lease = table.acquire(KEY, editor, 60000);
+					cost.addAndGet(System.nanoTime() - start);
+					if (lease.getSuccess()) {
+						if (!holder.compareAndSet(null, editor)) {
+							violations.incrementAndGet();
+						}
+						if (lease.getToken() <= lastToken.get()) {
+							violations.incrementAndGet();
+						}
+						lastToken.set(lease.getToken());
+						granted.incrementAndGet();
+						holder.set(null);
+						Assert.assertTrue(table.release(KEY, editor, lease.getToken()));
+					} else {
+						Assert.assertNotEquals(editor, lease.getOwner());
+					}
+				}
+				return null;
+			}));
+		}
+		latch.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		System.out.println(EDITOR_COUNT + " editors, " + (EDITOR_COUNT * ROUNDS) + " acquires, granted: " + granted.get()
+				+ ", " + (cost.get() / (EDITOR_COUNT * ROUNDS)) + "ns/acquire.");
+		Assert.assertEquals(0, violations.get());
+		Assert.assertTrue(granted.get() > 0);
+		Assert.assertEquals(0, table.size());
+	}
+
+	@Test
+	public void testExpireAndFencing() {
+		long[] now = new long[] { 1000L };
+		LeaseTable table = new LeaseTable(() -> now[0]);
+		Lease a = table.acquire(KEY, "a", 100);
+		Assert.assertTrue(a.getSuccess());
+		/* 同一持有者重复申请为续约,令牌不变 */
+		now[0] = 1050L;
+		Lease renew = table.acquire(KEY, "a", 100);
+		Assert.assertTrue(renew.getSuccess());
+		Assert.assertEquals(a.getToken(), renew.getToken());
+		Assert.assertEquals(Long.valueOf(1150L), renew.getExpireTime());
+		Lease b = table.acquire(KEY, "b", 100);
+		Assert.assertFalse(b.getSuccess());
+		Assert.assertEquals("a", b.getOwner());
+		/* 到期后由b获得新的令牌,a使用旧令牌续约和释放都失败 */
+		now[0] = 1200L;
+		b = table.acquire(KEY, "b", 100);
+		Assert.assertTrue(b.getSuccess());
+		Assert.assertTrue(b.getToken() > a.getToken());
+		Assert.assertFalse(table.renew(KEY, "a", a.getToken(), 100).getSuccess());
+		Assert.assertFalse(table.release(KEY, "a", a.getToken()));
+		Assert.assertTrue(table.renew(KEY, "b", b.getToken(), 100).getSuccess());
+		now[0] = 1400L;
+		table.clean();
+		Assert.assertNull(table.get(KEY));
+		Assert.assertEquals(0, table.size());
+	}
+
+}
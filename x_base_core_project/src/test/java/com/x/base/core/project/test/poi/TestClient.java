@@ -4,7 +4,15 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 
+import java.io.OutputStream;
+
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.junit.Test;
 
@@ -22,4 +30,51 @@ public class TestClient {
 		}
 
 	}
+
+	/* 比较XSSFWorkbook与SXSSFWorkbook写出不同行数时的堆内存峰值,每隔一定行数gc后采样存活对象占用 */
+	@Test
+	public void testStreamingHeap() throws Exception {
+		for (int count : new int[] { 10000, 30000, 60000 }) {
+			long xssf = 0;
+			try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+				xssf = write(workbook, count);
+			}
+			long sxssf = 0;
+			SXSSFWorkbook workbook = new SXSSFWorkbook(200);
+			try {
+				workbook.setCompressTempFiles(true);
+				sxssf = write(workbook, count);
+			} finally {
+				workbook.dispose();
+				workbook.close();
+			}
+			System.out.println("rows:" + count + ", xssf peak heap:" + (xssf / 1024) + "KB, sxssf peak heap:"
+					+ (sxssf / 1024) + "KB.");
+		}
+	}
+
+	private long write(Workbook workbook, int count) throws Exception {
+		long base = used();
+		long peak = 0;
+		Sheet sheet = workbook.createSheet("grid");
+		for (int i = 0; i < count; i++) {
+			Row row = sheet.createRow(i);
+			for (int j = 0; j < 20; j++) {
+				row.createCell(j).setCellValue("value" + i + "_" + j);
+			}
+			if ((i + 1) % 10000 == 0) {
+				peak = Math.max(peak, used() - base);
+			}
+		}
+		try (OutputStream os = new NullOutputStream()) {
+			workbook.write(os);
+		}
+		return Math.max(peak, used() - base);
+	}
+
+	private long used() {
+		System.gc();
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
 }
@@ -0,0 +1,79 @@
+package com.x.base.core.project.test.queue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.project.queue.AbstractQueue;
+import com.x.base.core.project.queue.QueueJournal;
+
+public class TestClient {
+
+	/* 完成的消息推进检查点,重新打开后只重放未完成的消息 */
+	@Test
+	public void testJournalReplay() throws Exception {
+		File dir = Files.createTempDirectory("journal").toFile();
+		try {
+			QueueJournal journal = new QueueJournal(dir, 1024);
+			journal.replay((offset, text) -> {
+			});
+			List<Long> offsets = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				offsets.add(journal.append("message" + i));
+			}
+			for (int i = 0; i < 60; i++) {
+				journal.complete(offsets.get(i));
+			}
+			journal.close();
+			Assert.assertEquals((long) offsets.get(60), journal.getCheckpoint());
+			List<String> replays = new ArrayList<>();
+			journal = new QueueJournal(dir, 1024);
+			journal.replay((offset, text) -> replays.add(text));
+			Assert.assertEquals(40, replays.size());
+			Assert.assertEquals("message60", replays.get(0));
+			/* 重放后继续追加,不覆盖未完成的消息 */
+			journal.append("message100");
+			/* 不关闭模拟进程中断 */
+			List<String> again = new ArrayList<>();
+			new QueueJournal(dir, 1024).replay((offset, text) -> again.add(text));
+			Assert.assertEquals(41, again.size());
+			Assert.assertEquals("message100", again.get(40));
+			System.out.println("segments:" + dir.list().length + ".");
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	@Test
+	public void testContains() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		CountDownLatch executed = new CountDownLatch(2);
+		AbstractQueue<String> queue = new AbstractQueue<String>() {
+			@Override
+			protected void execute(String t) throws Exception {
+				latch.await(10, TimeUnit.SECONDS);
+				executed.countDown();
+			}
+		};
+		queue.start();
+		queue.send("a");
+		queue.send("b");
+		Assert.assertTrue(queue.contains("a"));
+		Assert.assertTrue(queue.contains("b"));
+		Assert.assertFalse(queue.contains("c"));
+		latch.countDown();
+		Assert.assertTrue(executed.await(10, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		Assert.assertFalse(queue.contains("a"));
+		Assert.assertEquals(Long.valueOf(2), queue.metrics().getExecutedCount());
+		queue.stop();
+	}
+
+}
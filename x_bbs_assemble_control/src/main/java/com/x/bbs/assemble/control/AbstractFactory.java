@@ -21,4 +21,25 @@ public abstract class AbstractFactory {
 		return this.business.entityManagerContainer();
 	}
 
-}
\ No newline at end of file
+	/**
+	 * 批量更新语句中累加数量的赋值，数量为空时按0计算，由数据库完成累加
+	 * @param field
+	 * @param parameter 差值参数名
+	 * @return
+	 */
+	protected String increase( String field, String parameter ) {
+		return "o." + field + " = case when o." + field + " is null then :" + parameter + " else o." + field + " + :" + parameter + " end";
+	}
+
+	/**
+	 * 批量更新语句中累加今日数量的赋值，今日数量所属日期(todayDate)不是当天(参数today)时今日数量按0计算<br/>
+	 * 需要放在todayDate的赋值之前
+	 * @param field
+	 * @param parameter 差值参数名
+	 * @return
+	 */
+	protected String increaseToday( String field, String parameter ) {
+		return "o." + field + " = case when o.todayDate = :today and o." + field + " is not null then o." + field + " + :" + parameter + " else :" + parameter + " end";
+	}
+
+}
@@ -43,9 +43,10 @@ public class ThisApplication {
 			context().startQueue( queueNewReplyNotify );
 			context().startQueue( queueNewSubjectNotify );
 
-			context.schedule( SubjectTotalStatisticTask.class, "0 10 * * * ?");
-			context.schedule( SubjectReplyTotalStatisticTask.class, "0 40 * * * ?");
-			context.schedule( UserSubjectReplyPermissionStatisticTask.class, "0 0/30 * * * ?");
+			//统计数量实时维护，每天零点对账，今日数量在日期变化后从0重新计数
+			context.schedule( SubjectTotalStatisticTask.class, "0 0 0 * * ?");
+			context.schedule( SubjectReplyTotalStatisticTask.class, "0 30 0 * * ?");
+			context.schedule( UserSubjectReplyPermissionStatisticTask.class, "0 0 0 * * ?");
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
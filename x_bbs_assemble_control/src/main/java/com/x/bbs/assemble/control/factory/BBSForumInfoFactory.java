@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -93,4 +94,37 @@ public class BBSForumInfoFactory extends AbstractFactory {
 		cq.orderBy( cb.asc( root.get( BBSForumInfo_.orderNumber ) ) );
 		return em.createQuery( cq.where(p) ).setMaxResults( 1000 ).getResultList();
 	}
+
+	/**
+	 * 统计对账时按差值更新统计数量，不覆盖对账期间发贴、回贴实时修改的数量，需要在事务中调用<br/>
+	 * 今日数量所属日期不是当天时今日数量按0计算，差值即为今日数量，同时将日期更新为当天<br/>
+	 * 对账期间今日数量所属日期已经被修改时不更新，由下次对账修正
+	 * @param id
+	 * @param todayDate 读取统计数量时的今日数量所属日期
+	 * @param today 当天日期
+	 * @param changes 差值，顺序：sectionTotal, subjectTotal, replyTotal, subjectTotalToday, replyTotalToday
+	 * @return 是否更新成功
+	 * @throws Exception
+	 */
+	public boolean changeStatistic( String id, String todayDate, String today, Long[] changes ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSForumInfo.class );
+		String jpql = "update " + BBSForumInfo.class.getName() + " o set "
+				+ increase( "sectionTotal", "change0" ) + ", "
+				+ increase( "subjectTotal", "change1" ) + ", "
+				+ increase( "replyTotal", "change2" ) + ", "
+				+ increaseToday( "subjectTotalToday", "change3" ) + ", "
+				+ increaseToday( "replyTotalToday", "change4" )
+				+ ", o.todayDate = :today where o.id = :id";
+		jpql += ( todayDate == null ? " and o.todayDate is null" : " and o.todayDate = :todayDate" );
+		Query query = em.createQuery( jpql );
+		for( int i = 0; i < changes.length; i++ ){
+			query.setParameter( "change" + i, changes[i] );
+		}
+		query.setParameter( "today", today );
+		query.setParameter( "id", id );
+		if( todayDate != null ){
+			query.setParameter( "todayDate", todayDate );
+		}
+		return query.executeUpdate() > 0;
+	}
 }
@@ -2,9 +2,12 @@ package com.x.bbs.assemble.control.factory;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -387,4 +390,69 @@ public class BBSReplyInfoFactory extends AbstractFactory {
 		cq.select( root.get( BBSReplyInfo_.id ) );
 		return em.createQuery(cq.where(p)).getResultList();
 	}
+
+	/**
+	 * 按回贴人分组统计回贴数量
+	 * @param startTime 不为空时只统计该时间之后发表的回贴
+	 * @return
+	 * @throws Exception
+	 */
+	public Map<String, Long> countGroupByCreatorName( Date startTime ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSReplyInfo.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<BBSReplyInfo> root = cq.from( BBSReplyInfo.class );
+		Predicate p = cb.isNotNull( root.get( BBSReplyInfo_.creatorName ) );
+		if( startTime != null ){
+			p = cb.and( p, cb.greaterThanOrEqualTo( root.get( BBSReplyInfo_.createTime ), startTime ) );
+		}
+		cq.multiselect( root.get( BBSReplyInfo_.creatorName ), cb.count( root ) ).where( p ).groupBy( root.get( BBSReplyInfo_.creatorName ) );
+		Map<String, Long> map = new LinkedHashMap<>();
+		for( Tuple o : em.createQuery( cq ).getResultList() ){
+			if( StringUtils.isNotEmpty( o.get( 0, String.class ) ) ){
+				map.put( o.get( 0, String.class ), o.get( 1, Long.class ) );
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * 按主题分组统计回贴数量
+	 * @return
+	 * @throws Exception
+	 */
+	public Map<String, Long> countGroupBySubjectId() throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSReplyInfo.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<BBSReplyInfo> root = cq.from( BBSReplyInfo.class );
+		cq.multiselect( root.get( BBSReplyInfo_.subjectId ), cb.count( root ) ).groupBy( root.get( BBSReplyInfo_.subjectId ) );
+		Map<String, Long> map = new LinkedHashMap<>();
+		for( Tuple o : em.createQuery( cq ).getResultList() ){
+			if( StringUtils.isNotEmpty( o.get( 0, String.class ) ) ){
+				map.put( o.get( 0, String.class ), o.get( 1, Long.class ) );
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * 按论坛、主版块、版块分组统计回贴数量<br/>
+	 * 顺序：forumId, mainSectionId, sectionId, count
+	 * @param startTime 不为空时只统计该时间之后发表的回贴
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Tuple> countGroupBySection( Date startTime ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSReplyInfo.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<BBSReplyInfo> root = cq.from( BBSReplyInfo.class );
+		cq.multiselect( root.get( BBSReplyInfo_.forumId ), root.get( BBSReplyInfo_.mainSectionId ), root.get( BBSReplyInfo_.sectionId ), cb.count( root ) );
+		if( startTime != null ){
+			cq.where( cb.greaterThanOrEqualTo( root.get( BBSReplyInfo_.createTime ), startTime ) );
+		}
+		cq.groupBy( root.get( BBSReplyInfo_.forumId ), root.get( BBSReplyInfo_.mainSectionId ), root.get( BBSReplyInfo_.sectionId ) );
+		return em.createQuery( cq ).getResultList();
+	}
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -272,5 +273,37 @@ public class BBSSectionInfoFactory extends AbstractFactory {
 		Predicate p = cb.equal( root.get( BBSSectionInfo_.forumId ), forumId);
 		cq.select( root.get( BBSSectionInfo_.id ) );
 		return em.createQuery(cq.where(p)).getResultList();
-	}	
+	}
+
+	/**
+	 * 统计对账时按差值更新统计数量，不覆盖对账期间发贴、回贴实时修改的数量，需要在事务中调用<br/>
+	 * 今日数量所属日期不是当天时今日数量按0计算，差值即为今日数量，同时将日期更新为当天<br/>
+	 * 对账期间今日数量所属日期已经被修改时不更新，由下次对账修正
+	 * @param id
+	 * @param todayDate 读取统计数量时的今日数量所属日期
+	 * @param today 当天日期
+	 * @param changes 差值，顺序：subjectTotal, replyTotal, subjectTotalToday, replyTotalToday
+	 * @return 是否更新成功
+	 * @throws Exception
+	 */
+	public boolean changeStatistic( String id, String todayDate, String today, Long[] changes ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSSectionInfo.class );
+		String jpql = "update " + BBSSectionInfo.class.getName() + " o set "
+				+ increase( "subjectTotal", "change0" ) + ", "
+				+ increase( "replyTotal", "change1" ) + ", "
+				+ increaseToday( "subjectTotalToday", "change2" ) + ", "
+				+ increaseToday( "replyTotalToday", "change3" )
+				+ ", o.todayDate = :today where o.id = :id";
+		jpql += ( todayDate == null ? " and o.todayDate is null" : " and o.todayDate = :todayDate" );
+		Query query = em.createQuery( jpql );
+		for( int i = 0; i < changes.length; i++ ){
+			query.setParameter( "change" + i, changes[i] );
+		}
+		query.setParameter( "today", today );
+		query.setParameter( "id", id );
+		if( todayDate != null ){
+			query.setParameter( "todayDate", todayDate );
+		}
+		return query.executeUpdate() > 0;
+	}
 }
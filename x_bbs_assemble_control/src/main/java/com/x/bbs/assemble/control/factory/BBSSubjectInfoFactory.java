@@ -2,9 +2,13 @@ package com.x.bbs.assemble.control.factory;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -496,7 +500,7 @@ public class BBSSubjectInfoFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Long> cq = cb.createQuery(Long.class);
 		Root<BBSSubjectInfo> root = cq.from(BBSSubjectInfo.class);
-		Predicate p = cb.isTrue( root.get( BBSSubjectInfo_.isCreamSubject ) );
+		Predicate p = cb.isTrue( root.get( BBSSubjectInfo_.isOriginalSubject ) );
 		if( StringUtils.isNotEmpty( userName ) ){
 			p = cb.and( p, cb.equal( root.get( BBSSubjectInfo_.creatorName ), userName ) );
 		}
@@ -530,7 +534,7 @@ public class BBSSubjectInfoFactory extends AbstractFactory {
 		Root<BBSSubjectInfo> root = cq.from(BBSSubjectInfo.class);
 		Predicate p = cb.greaterThanOrEqualTo( root.get( BBSSubjectInfo_.createTime ), dateOperation.getTodayStartTime() );
 		if( StringUtils.isNotEmpty( forumId ) ){
-			p = cb.or( p, cb.equal( root.get( BBSSubjectInfo_.forumId ), forumId ) );
+			p = cb.and( p, cb.equal( root.get( BBSSubjectInfo_.forumId ), forumId ) );
 		}
 		cq.select( cb.count( root ) );		
 		return em.createQuery(cq.where(p)).getSingleResult();
@@ -770,4 +774,87 @@ public class BBSSubjectInfoFactory extends AbstractFactory {
 		return em.createQuery(cq.where(p)).getSingleResult();
 	}
 
+
+	/**
+	 * 按发贴人分组统计主题数量
+	 * @param startTime 不为空时只统计该时间之后发表的主题
+	 * @param isCream 为true时只统计精华主题
+	 * @param isOriginal 为true时只统计原创主题
+	 * @return
+	 * @throws Exception
+	 */
+	public Map<String, Long> countGroupByCreatorName( Date startTime, Boolean isCream, Boolean isOriginal ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSSubjectInfo.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<BBSSubjectInfo> root = cq.from( BBSSubjectInfo.class );
+		Predicate p = cb.isNotNull( root.get( BBSSubjectInfo_.creatorName ) );
+		if( startTime != null ){
+			p = cb.and( p, cb.greaterThanOrEqualTo( root.get( BBSSubjectInfo_.createTime ), startTime ) );
+		}
+		if( isCream != null && isCream ){
+			p = cb.and( p, cb.isTrue( root.get( BBSSubjectInfo_.isCreamSubject ) ) );
+		}
+		if( isOriginal != null && isOriginal ){
+			p = cb.and( p, cb.isTrue( root.get( BBSSubjectInfo_.isOriginalSubject ) ) );
+		}
+		cq.multiselect( root.get( BBSSubjectInfo_.creatorName ), cb.count( root ) ).where( p ).groupBy( root.get( BBSSubjectInfo_.creatorName ) );
+		Map<String, Long> map = new LinkedHashMap<>();
+		for( Tuple o : em.createQuery( cq ).getResultList() ){
+			if( StringUtils.isNotEmpty( o.get( 0, String.class ) ) ){
+				map.put( o.get( 0, String.class ), o.get( 1, Long.class ) );
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * 按论坛、主版块、版块分组统计主题数量<br/>
+	 * 顺序：forumId, mainSectionId, sectionId, count
+	 * @param startTime 不为空时只统计该时间之后发表的主题
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Tuple> countGroupBySection( Date startTime ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSSubjectInfo.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<BBSSubjectInfo> root = cq.from( BBSSubjectInfo.class );
+		cq.multiselect( root.get( BBSSubjectInfo_.forumId ), root.get( BBSSubjectInfo_.mainSectionId ), root.get( BBSSubjectInfo_.sectionId ), cb.count( root ) );
+		if( startTime != null ){
+			cq.where( cb.greaterThanOrEqualTo( root.get( BBSSubjectInfo_.createTime ), startTime ) );
+		}
+		cq.groupBy( root.get( BBSSubjectInfo_.forumId ), root.get( BBSSubjectInfo_.mainSectionId ), root.get( BBSSubjectInfo_.sectionId ) );
+		return em.createQuery( cq ).getResultList();
+	}
+
+	/**
+	 * 查询所有主题的回复数量<br/>
+	 * 顺序：id, replyTotal
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Tuple> listAllReplyTotal() throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSSubjectInfo.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<BBSSubjectInfo> root = cq.from( BBSSubjectInfo.class );
+		cq.multiselect( root.get( BBSSubjectInfo_.id ), root.get( BBSSubjectInfo_.replyTotal ) );
+		return em.createQuery( cq ).getResultList();
+	}
+
+	/**
+	 * 统计对账时按差值更新主题的回复数量，不覆盖对账期间回贴实时修改的数量，需要在事务中调用
+	 * @param id
+	 * @param change 回复数量的差值
+	 * @return 是否更新成功
+	 * @throws Exception
+	 */
+	public boolean changeReplyTotal( String id, Long change ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSSubjectInfo.class );
+		Query query = em.createQuery( "update " + BBSSubjectInfo.class.getName() + " o set " + increase( "replyTotal", "change" ) + " where o.id = :id" );
+		query.setParameter( "change", change );
+		query.setParameter( "id", id );
+		return query.executeUpdate() > 0;
+	}
 }
@@ -4,12 +4,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import com.x.base.core.project.exception.ExceptionWhen;
+import com.x.base.core.project.tools.ListTools;
 import com.x.bbs.assemble.control.AbstractFactory;
 import com.x.bbs.assemble.control.Business;
 import com.x.bbs.entity.BBSUserInfo;
@@ -58,4 +61,93 @@ public class BBSUserInfoFactory extends AbstractFactory {
 		Predicate p = cb.equal( root.get(BBSUserInfo_.userName), userName );
 		return em.createQuery(cq.where(p)).getResultList();
 	}
+
+	//@MethodDescribe( "列示指定姓名列表的BBSUserInfo实体信息列表" )
+	public List<BBSUserInfo> listByUserNames( List<String> userNames ) throws Exception {
+		List<BBSUserInfo> list = new ArrayList<BBSUserInfo>();
+		if( ListTools.isEmpty( userNames ) ){
+			return list;
+		}
+		EntityManager em = this.entityManagerContainer().get(BBSUserInfo.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		for( List<String> names : ListTools.batch( userNames, 500 ) ){
+			CriteriaQuery<BBSUserInfo> cq = cb.createQuery(BBSUserInfo.class);
+			Root<BBSUserInfo> root = cq.from(BBSUserInfo.class);
+			Predicate p = root.get( BBSUserInfo_.userName ).in( names );
+			list.addAll( em.createQuery(cq.where(p)).getResultList() );
+		}
+		return list;
+	}
+	
+	/**
+	 * 查询所有用户的发贴、回贴统计数量，不查询权限等大字段<br/>
+	 * 顺序：id, userName, subjectCount, subjectCountToday, replyCount, replyCountToday, creamCount, originalCount, todayDate
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Tuple> listAllStatistic() throws Exception {
+		EntityManager em = this.entityManagerContainer().get(BBSUserInfo.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+		Root<BBSUserInfo> root = cq.from(BBSUserInfo.class);
+		cq.multiselect( root.get( BBSUserInfo_.id ), root.get( BBSUserInfo_.userName ), 
+				root.get( BBSUserInfo_.subjectCount ), root.get( BBSUserInfo_.subjectCountToday ), 
+				root.get( BBSUserInfo_.replyCount ), root.get( BBSUserInfo_.replyCountToday ), 
+				root.get( BBSUserInfo_.creamCount ), root.get( BBSUserInfo_.originalCount ), 
+				root.get( BBSUserInfo_.todayDate ) );
+		return em.createQuery( cq ).getResultList();
+	}
+
+	/**
+	 * 统计对账时按差值更新统计数量，不覆盖对账期间发贴、回贴实时修改的数量，需要在事务中调用<br/>
+	 * 今日数量所属日期不是当天时今日数量按0计算，差值即为今日数量，同时将日期更新为当天<br/>
+	 * 对账期间今日数量所属日期已经被修改时不更新，由下次对账修正
+	 * @param id
+	 * @param todayDate 读取统计数量时的今日数量所属日期
+	 * @param today 当天日期
+	 * @param changes 差值，顺序：subjectCount, replyCount, creamCount, originalCount, subjectCountToday, replyCountToday
+	 * @return 是否更新成功
+	 * @throws Exception
+	 */
+	public boolean changeStatistic( String id, String todayDate, String today, Long[] changes ) throws Exception {
+		return this.changeStatistic( id, true, todayDate, today, changes );
+	}
+
+	/**
+	 * 发贴、回贴时按变化量更新统计数量，由数据库完成累加，同时发贴的请求以及统计对账不会互相覆盖，需要在事务中调用<br/>
+	 * 今日数量所属日期不是当天时今日数量按0计算，变化量即为今日数量，同时将日期更新为当天
+	 * @param id
+	 * @param today 当天日期
+	 * @param changes 变化量，顺序同changeStatistic( id, todayDate, today, changes )
+	 * @return 是否更新成功
+	 * @throws Exception
+	 */
+	public boolean changeStatistic( String id, String today, Long[] changes ) throws Exception {
+		return this.changeStatistic( id, false, null, today, changes );
+	}
+
+	private boolean changeStatistic( String id, boolean checkTodayDate, String todayDate, String today, Long[] changes ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( BBSUserInfo.class );
+		String jpql = "update " + BBSUserInfo.class.getName() + " o set "
+				+ increase( "subjectCount", "change0" ) + ", "
+				+ increase( "replyCount", "change1" ) + ", "
+				+ increase( "creamCount", "change2" ) + ", "
+				+ increase( "originalCount", "change3" ) + ", "
+				+ increaseToday( "subjectCountToday", "change4" ) + ", "
+				+ increaseToday( "replyCountToday", "change5" )
+				+ ", o.todayDate = :today where o.id = :id";
+		if( checkTodayDate ){
+			jpql += ( todayDate == null ? " and o.todayDate is null" : " and o.todayDate = :todayDate" );
+		}
+		Query query = em.createQuery( jpql );
+		for( int i = 0; i < changes.length; i++ ){
+			query.setParameter( "change" + i, changes[i] );
+		}
+		query.setParameter( "today", today );
+		query.setParameter( "id", id );
+		if( checkTodayDate && todayDate != null ){
+			query.setParameter( "todayDate", todayDate );
+		}
+		return query.executeUpdate() > 0;
+	}
 }
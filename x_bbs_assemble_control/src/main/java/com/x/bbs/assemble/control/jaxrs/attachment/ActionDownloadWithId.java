@@ -2,10 +2,11 @@ package com.x.bbs.assemble.control.jaxrs.attachment;
 
 import javax.servlet.http.HttpServletRequest;
 
+import com.x.base.core.entity.StorageObject;
 import com.x.base.core.project.config.StorageMapping;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
-import com.x.base.core.project.jaxrs.WoFile;
+import com.x.base.core.project.jaxrs.WoStorageFile;
 import com.x.bbs.assemble.control.ThisApplication;
 import com.x.bbs.entity.BBSSubjectAttachment;
 
@@ -19,17 +20,19 @@ public class ActionDownloadWithId extends BaseAction {
 			throw new Exception("附件不存在。id:" + id ) ;
 		}else {
 			StorageMapping mapping = ThisApplication.context().storageMappings().get(BBSSubjectAttachment.class, attachment.getStorage());
-			Wo wo = new Wo(attachment.readContent(mapping), 
+			Wo wo = new Wo(attachment, mapping, 
 					this.contentType(false, attachment.getName()), 
 					this.contentDisposition(false, attachment.getName()));
+			wo.check();
 			result.setData(wo);
 		}
 		return result;
 	}
 
-	public static class Wo extends WoFile {
-		public Wo(byte[] bytes, String contentType, String contentDisposition) {
-			super(bytes, contentType, contentDisposition);
+	public static class Wo extends WoStorageFile {
+		public Wo(StorageObject storageObject, StorageMapping mapping, String contentType,
+				String contentDisposition) {
+			super(storageObject, mapping, contentType, contentDisposition);
 		}
 	}
 
@@ -20,6 +20,7 @@ import com.x.bbs.assemble.control.jaxrs.replyinfo.exception.ExceptionCountEmpty;
 import com.x.bbs.assemble.control.jaxrs.replyinfo.exception.ExceptionPageEmpty;
 import com.x.bbs.assemble.control.jaxrs.replyinfo.exception.ExceptionReplyInfoProcess;
 import com.x.bbs.entity.BBSReplyInfo;
+import com.x.bbs.entity.BBSUserInfo;
 
 public class ActionListMyReplyForPages extends BaseAction {
 
@@ -31,6 +32,7 @@ public class ActionListMyReplyForPages extends BaseAction {
 		List<Wo> wraps = new ArrayList<>();
 		List<BBSReplyInfo> replyInfoList = null;
 		List<BBSReplyInfo> replyInfoList_out = new ArrayList<BBSReplyInfo>();
+		BBSUserInfo userInfo = null;
 		Long total = 0L;
 		Boolean check = true;
 
@@ -50,7 +52,13 @@ public class ActionListMyReplyForPages extends BaseAction {
 		}
 		if (check) {
 			try {
-				total = replyInfoService.countReplyByUserName(effectivePerson.getDistinguishedName());
+				// 优先使用用户信息中实时维护的回贴量，没有用户信息时再统计
+				userInfo = userInfoService.getByUserName(effectivePerson.getDistinguishedName());
+				if (userInfo != null && userInfo.getReplyCount() != null) {
+					total = userInfo.getReplyCount();
+				} else {
+					total = replyInfoService.countReplyByUserName(effectivePerson.getDistinguishedName());
+				}
 			} catch (Exception e) {
 				check = false;
 				Exception exception = new ExceptionReplyInfoProcess(e,
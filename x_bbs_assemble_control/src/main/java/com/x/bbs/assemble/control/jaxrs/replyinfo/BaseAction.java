@@ -10,6 +10,7 @@ import com.x.bbs.assemble.control.service.BBSOperationRecordService;
 import com.x.bbs.assemble.control.service.BBSReplyInfoService;
 import com.x.bbs.assemble.control.service.BBSSectionInfoServiceAdv;
 import com.x.bbs.assemble.control.service.BBSSubjectInfoService;
+import com.x.bbs.assemble.control.service.BBSUserInfoService;
 import com.x.bbs.assemble.control.service.UserManagerService;
 import com.x.bbs.assemble.control.service.UserPermissionService;
 import com.x.bbs.entity.BBSSubjectInfo;
@@ -21,6 +22,7 @@ public class BaseAction extends StandardJaxrsAction{
 	protected UserPermissionService UserPermissionService = new UserPermissionService();
 	protected BBSReplyInfoService replyInfoService = new BBSReplyInfoService();
 	protected BBSSubjectInfoService subjectInfoService = new BBSSubjectInfoService();
+	protected BBSUserInfoService userInfoService = new BBSUserInfoService();
 	protected BBSSectionInfoServiceAdv sectionInfoServiceAdv = new BBSSectionInfoServiceAdv();
 	protected BBSForumInfoServiceAdv forumInfoServiceAdv = new BBSForumInfoServiceAdv();
 	protected BBSOperationRecordService operationRecordService = new BBSOperationRecordService();
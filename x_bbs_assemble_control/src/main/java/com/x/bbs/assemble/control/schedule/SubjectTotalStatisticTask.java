@@ -1,20 +1,15 @@
 package com.x.bbs.assemble.control.schedule;
 
-import java.util.List;
-
 import org.quartz.JobExecutionContext;
-import org.quartz.JobExecutionException;
 
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.schedule.AbstractJob;
-import com.x.base.core.project.tools.ListTools;
-import com.x.bbs.assemble.control.service.BBSForumInfoServiceAdv;
 import com.x.bbs.assemble.control.service.BBSForumSubjectStatisticService;
-import com.x.bbs.entity.BBSForumInfo;
 
 /**
- * 定时代理，对所有的论坛以及版块进行主题和回贴数、参与人数的统计。 1、遍历所有论坛 2、对每一个论坛，每一个主版块以及子版块进行数据统计
+ * 定时代理，对所有的论坛以及版块的主题和回贴数进行对账。
+ * 论坛以及版块的统计数量在发贴、回贴、删除时实时维护，每天零点按论坛、版块分组统计一次，按差值更新不一致的数量。今日主题和回贴数按日期在第一次修改时从0重新计数。
  * 
  * @author LIYI
  *
@@ -22,21 +17,16 @@ import com.x.bbs.entity.BBSForumInfo;
 public class SubjectTotalStatisticTask extends AbstractJob {
 
 	private Logger logger = LoggerFactory.getLogger(SubjectTotalStatisticTask.class);
-	private BBSForumInfoServiceAdv forumInfoServiceAdv = new BBSForumInfoServiceAdv();
 	private BBSForumSubjectStatisticService forumSubjectStatisticService = new BBSForumSubjectStatisticService();
 
 	@Override
 	public void schedule(JobExecutionContext jobExecutionContext) throws Exception {
-		List<BBSForumInfo> forumInfoList = null;
 		try {
-			forumInfoList = forumInfoServiceAdv.listAll();
-			if (ListTools.isNotEmpty(forumInfoList)) {
-				forumSubjectStatisticService.statisticSubjectTotalAndReplayTotalForForum(forumInfoList);
-			}
-			logger.info("Timertask[SubjectReplyTotalStatisticTask] completed and excute success.");
+			int count = forumSubjectStatisticService.statisticSubjectTotalAndReplayTotalForForum();
+			logger.info("Timertask[SubjectTotalStatisticTask] completed and excute success, " + count + " forum and section updated.");
 		} catch (Exception e) {
 			logger.warn("SubjectTotalStatisticTask got an exception.");
 			logger.error(e);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -1,115 +1,160 @@
 package com.x.bbs.assemble.control.service;
 
-import com.alibaba.druid.util.StringUtils;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Tuple;
+
+import org.apache.commons.lang3.StringUtils;
+
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
-import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.tools.DateTools;
 import com.x.base.core.project.tools.ListTools;
+import com.x.bbs.assemble.common.date.DateOperation;
 import com.x.bbs.assemble.control.Business;
 import com.x.bbs.entity.BBSForumInfo;
 import com.x.bbs.entity.BBSSectionInfo;
 import com.x.bbs.entity.BBSSubjectInfo;
 
-import java.util.List;
-
+/**
+ * 论坛、版块、主题统计数量对账服务类<br/>
+ * 发贴、回贴、删除时统计数量已经实时维护，这里按论坛、版块、主题分组统计一次，只按差值更新统计数量不一致的记录
+ */
 public class BBSForumSubjectStatisticService {
-	
-	public void statisticSubjectTotalAndReplayTotalForForum( List<BBSForumInfo> forumInfoList ) throws Exception {
-		if( forumInfoList  == null || forumInfoList.isEmpty() ){
-			throw new Exception( "forumInfoList is null, return null!" );
-		}
-		
-		forumInfoList.forEach( f -> {
-			Business business = null;
-			List<BBSSectionInfo> mainSectionList = null;
-			List<BBSSectionInfo> sectionList = null;
-			Long count = 0L;
-			try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
-				business = new Business( emc );
-				emc.beginTransaction( BBSForumInfo.class );
-				emc.beginTransaction( BBSSectionInfo.class );
-				
-				mainSectionList = business.sectionInfoFactory().listMainSectionByForumId( f.getId() );
-				if( ListTools.isNotEmpty( mainSectionList ) ){
-					for( BBSSectionInfo mainSectionInfo : mainSectionList ){
-						sectionList = business.sectionInfoFactory().listSubSectionByMainSectionId( mainSectionInfo.getId() );
-						if( ListTools.isNotEmpty( sectionList ) ){
-							for( BBSSectionInfo sectionInfo : mainSectionList ){
-								//统计版块下面的贴子数量
-								count = business.subjectInfoFactory().countByMainAndSubSectionId( sectionInfo.getId(), null );
-								sectionInfo.setSubjectTotal( count.longValue() );
-								count = business.replyInfoFactory().countBySectionId( sectionInfo.getId() );
-								sectionInfo.setReplyTotal( count.longValue() );
-								count = business.subjectInfoFactory().countSubjectForTodayBySectionId( sectionInfo.getId() );
-								sectionInfo.setSubjectTotalToday( count.longValue() );
-								count = business.replyInfoFactory().countReplyForTodayBySectionId( mainSectionInfo.getId() );
-								sectionInfo.setReplyTotalToday( count.longValue() );
-								if( StringUtils.isEmpty( sectionInfo.getReplyMessageNotifyType() )){
-									sectionInfo.setReplyMessageNotifyType("0,0,0");
-								}
-								emc.check( sectionInfo, CheckPersistType.all );
-							}
-						}
-						//统计主版块下面的贴子数量
-						count = business.subjectInfoFactory().countByMainAndSubSectionId( mainSectionInfo.getId(), null );
-						mainSectionInfo.setSubjectTotal( count.longValue() );
-						count = business.replyInfoFactory().countBySectionId( mainSectionInfo.getId() );
-						mainSectionInfo.setReplyTotal( count.longValue() );
-						count = business.subjectInfoFactory().countSubjectForTodayBySectionId( mainSectionInfo.getId() );
-						mainSectionInfo.setSubjectTotalToday( count.longValue() );
-						count = business.replyInfoFactory().countReplyForTodayBySectionId( mainSectionInfo.getId() );
-						mainSectionInfo.setReplyTotalToday( count.longValue() );
-						if( StringUtils.isEmpty( mainSectionInfo.getReplyMessageNotifyType() )){
-							mainSectionInfo.setReplyMessageNotifyType("0,0,0");
-						}
-						emc.check( mainSectionInfo, CheckPersistType.all );
-					}
+
+	/**
+	 * 对所有论坛以及版块的主题数量、回贴数量、今日主题数量、今日回贴数量进行对账<br/>
+	 * 版块的数量包括主版块ID或者版块ID为该版块的主题和回贴，与版块的实时统计方式一致<br/>
+	 * 只按差值更新统计数量不一致的论坛和版块，不覆盖对账期间发贴、回贴实时修改的数量
+	 * @return 更新的论坛和版块数量
+	 * @throws Exception
+	 */
+	public int statisticSubjectTotalAndReplayTotalForForum() throws Exception {
+		Date todayStartTime = new DateOperation().getTodayStartTime();
+		String today = DateTools.formatDate( todayStartTime );
+		Map<String, Long[]> forumStatistics = new HashMap<>();
+		Map<String, Long[]> sectionStatistics = new HashMap<>();
+		Map<String, Long> sectionTotals = new HashMap<>();
+		Long[] statistic = null;
+		Long[] changes = null;
+		int count = 0;
+		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
+			Business business = new Business( emc );
+			put( forumStatistics, sectionStatistics, business.subjectInfoFactory().countGroupBySection( null ), 0 );
+			put( forumStatistics, sectionStatistics, business.subjectInfoFactory().countGroupBySection( todayStartTime ), 1 );
+			put( forumStatistics, sectionStatistics, business.replyInfoFactory().countGroupBySection( null ), 2 );
+			put( forumStatistics, sectionStatistics, business.replyInfoFactory().countGroupBySection( todayStartTime ), 3 );
+
+			emc.beginTransaction( BBSSectionInfo.class );
+			for( BBSSectionInfo sectionInfo : business.sectionInfoFactory().listAll() ){
+				sectionTotals.merge( sectionInfo.getForumId(), 1L, Long::sum );
+				statistic = sectionStatistics.getOrDefault( sectionInfo.getId(), empty() );
+				changes = new Long[]{
+						statistic[0] - value( sectionInfo.getSubjectTotal() ),
+						statistic[2] - value( sectionInfo.getReplyTotal() ),
+						statistic[1] - value( sectionInfo.getSubjectTotalToday() ),
+						statistic[3] - value( sectionInfo.getReplyTotalToday() ) };
+				if( changed( changes ) && business.sectionInfoFactory().changeStatistic( sectionInfo.getId(), sectionInfo.getTodayDate(), today, changes ) ){
+					count++;
 				}
+			}
+			emc.commit();
 
-				//统计论坛版块数量
-				count = business.sectionInfoFactory().countAllSectionByForumId( f.getId() );
-				f.setSectionTotal( count.longValue() );
-				//统计论坛下面的贴子数量
-				count = business.subjectInfoFactory().countByForumId( f.getId(), null );
-				f.setSubjectTotal( count.longValue() );
-				count = business.replyInfoFactory().countByForumId( f.getId() );
-				f.setReplyTotal( count.longValue() );
-				count = business.subjectInfoFactory().countForTodayByForumId( f.getId() );
-				f.setSubjectTotalToday( count.longValue() );
-				count = business.replyInfoFactory().countForTodayByForumId( f.getId() );
-				f.setReplyTotalToday( count.longValue() );
-				emc.check( f, CheckPersistType.all );
-				emc.commit();
-			}catch( Exception e ){
-				e.printStackTrace();
+			emc.beginTransaction( BBSForumInfo.class );
+			for( BBSForumInfo forumInfo : business.forumInfoFactory().listAll() ){
+				statistic = forumStatistics.getOrDefault( forumInfo.getId(), empty() );
+				changes = new Long[]{
+						sectionTotals.getOrDefault( forumInfo.getId(), 0L ) - value( forumInfo.getSectionTotal() ),
+						statistic[0] - value( forumInfo.getSubjectTotal() ),
+						statistic[2] - value( forumInfo.getReplyTotal() ),
+						statistic[1] - value( forumInfo.getSubjectTotalToday() ),
+						statistic[3] - value( forumInfo.getReplyTotalToday() ) };
+				if( changed( changes ) && business.forumInfoFactory().changeStatistic( forumInfo.getId(), forumInfo.getTodayDate(), today, changes ) ){
+					count++;
+				}
 			}
-		});
-	}
-	
-	public void statisticReplyTotalForSubjects( List<BBSSubjectInfo> subjectIds ) throws Exception {
-		if( subjectIds  == null || subjectIds.isEmpty() ){
-			throw new Exception( "subjectIds is null, return null!" );
+			emc.commit();
+		}catch( Exception e ){
+			throw e;
 		}
-		subjectIds.forEach( s -> {
-			Business business = null;
-			BBSSubjectInfo subject = null;
-			Long count = 0L;
-			try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
-				business = new Business( emc );
+		return count;
+	}
+
+	/**
+	 * 对所有主题的回复数量进行对账，按主题分组统计一次回贴数量，只按差值更新回复数量不一致的主题
+	 * @return 更新的主题数量
+	 * @throws Exception
+	 */
+	public int statisticReplyTotalForSubjects() throws Exception {
+		Map<String, Long> changes = new HashMap<>();
+		int count = 0;
+		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
+			Business business = new Business( emc );
+			Map<String, Long> replyTotals = business.replyInfoFactory().countGroupBySubjectId();
+			for( Tuple o : business.subjectInfoFactory().listAllReplyTotal() ){
+				Long change = replyTotals.getOrDefault( o.get( 0, String.class ), 0L ) - value( o.get( 1, Long.class ) );
+				if( change != 0 ){
+					changes.put( o.get( 0, String.class ), change );
+				}
+			}
+			for( List<String> ids : ListTools.batch( new ArrayList<>( changes.keySet() ), 500 ) ){
 				emc.beginTransaction( BBSSubjectInfo.class );
-				subject = emc.find( s.getId(), BBSSubjectInfo.class );
-				if( subject != null ){
-					count = business.replyInfoFactory().countBySubjectId( s.getId() );
-					subject.setReplyTotal( count.longValue() );
-					emc.check( subject, CheckPersistType.all );
+				for( String id : ids ){
+					if( business.subjectInfoFactory().changeReplyTotal( id, changes.get( id ) ) ){
+						count++;
+					}
 				}
 				emc.commit();
-			}catch( Exception e ){
-				e.printStackTrace();
 			}
-		});
-		
-		
-		
+		}catch( Exception e ){
+			throw e;
+		}
+		return count;
+	}
+
+	/**
+	 * 将按论坛、主版块、版块分组的统计数量累加到论坛和版块上
+	 * @param forumStatistics
+	 * @param sectionStatistics
+	 * @param tuples forumId, mainSectionId, sectionId, count
+	 * @param index
+	 */
+	private void put( Map<String, Long[]> forumStatistics, Map<String, Long[]> sectionStatistics, List<Tuple> tuples, int index ) {
+		for( Tuple o : tuples ){
+			String forumId = o.get( 0, String.class );
+			String mainSectionId = o.get( 1, String.class );
+			String sectionId = o.get( 2, String.class );
+			Long count = o.get( 3, Long.class );
+			if( StringUtils.isNotEmpty( forumId ) ){
+				forumStatistics.computeIfAbsent( forumId, k -> empty() )[index] += count;
+			}
+			if( StringUtils.isNotEmpty( mainSectionId ) ){
+				sectionStatistics.computeIfAbsent( mainSectionId, k -> empty() )[index] += count;
+			}
+			if( StringUtils.isNotEmpty( sectionId ) && !sectionId.equals( mainSectionId ) ){
+				sectionStatistics.computeIfAbsent( sectionId, k -> empty() )[index] += count;
+			}
+		}
+	}
+
+	private Long[] empty() {
+		return new Long[]{ 0L, 0L, 0L, 0L };
+	}
+
+	private boolean changed( Long[] changes ) {
+		for( Long change : changes ){
+			if( change != 0 ){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private long value( Long count ) {
+		return count == null ? 0L : count;
 	}
-}
\ No newline at end of file
+}
@@ -10,7 +10,9 @@ import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
+import com.x.bbs.assemble.common.date.DateOperation;
 import com.x.bbs.assemble.control.Business;
+import com.x.bbs.assemble.control.service.bean.UserStatisticChange;
 import com.x.bbs.entity.BBSForumInfo;
 import com.x.bbs.entity.BBSReplyInfo;
 import com.x.bbs.entity.BBSSectionInfo;
@@ -24,6 +26,8 @@ import com.x.bbs.entity.BBSSubjectInfo;
 public class BBSReplyInfoService {
 	
 	private static  Logger logger = LoggerFactory.getLogger( BBSReplyInfoService.class );
+	private DateOperation dateOperation = new DateOperation();
+	private BBSUserInfoService userInfoService = new BBSUserInfoService();
 	
 	/**
 	 * 根据传入的ID从数据库查询BBSReplyInfo对象
@@ -52,6 +56,7 @@ public class BBSReplyInfoService {
 		BBSSectionInfo _sectionInfo = null;
 		BBSSectionInfo _mainSectoinInfo = null;
 		BBSForumInfo _forumInfo = null;
+		UserStatisticChange userStatisticChange = new UserStatisticChange();
 		if( _bBSReplyInfo.getId() == null ){
 			_bBSReplyInfo.setId( BBSReplyInfo.createId() );
 		}
@@ -79,6 +84,7 @@ public class BBSReplyInfoService {
 				//创建一个新的记录
 				_bBSReplyInfo.setOrderNumber( ( maxOrderNumber + 1 ) );
 				emc.persist( _bBSReplyInfo, CheckPersistType.all);
+				userStatisticChange.reply( _bBSReplyInfo.getCreatorName(), new Date(), 1 );
 			}else{
 				//更新一条记录
 				_bBSReplyInfo.setCreateTime( _bBSReplyInfo_tmp.getCreateTime() );
@@ -105,9 +111,11 @@ public class BBSReplyInfoService {
 				}
 			}
 			if( _forumInfo != null ){
+				_forumInfo.setReplyTotalToday( _forumInfo.getReplyTotalToday() + 1 );
 				_forumInfo.setReplyTotal( _forumInfo.getReplyTotal() + 1 );
 				emc.check( _forumInfo, CheckPersistType.all );
 			}
+			userInfoService.changeStatistic( emc, userStatisticChange );
 			emc.commit();
 		}catch( Exception e ){
 			logger.warn( "system find BBSReplyInfo{'id':'"+_bBSReplyInfo.getId()+"'} got an exception!" );
@@ -127,6 +135,8 @@ public class BBSReplyInfoService {
 		BBSSectionInfo _sectionInfo = null;
 		BBSSectionInfo _mainSectoinInfo = null;
 		BBSForumInfo _forumInfo = null;
+		UserStatisticChange userStatisticChange = new UserStatisticChange();
+		Boolean today = false;
 		if( id == null || id.isEmpty() ){
 			throw new Exception( "id is null, system can not delete any object." );
 		}
@@ -146,6 +156,8 @@ public class BBSReplyInfoService {
 				_sectionInfo = emc.find( replyInfo.getSectionId(), BBSSectionInfo.class );
 				_subjectInfo = emc.find( replyInfo.getSubjectId(), BBSSubjectInfo.class );
 				emc.remove( replyInfo, CheckRemoveType.all );
+				userStatisticChange.reply( replyInfo.getCreatorName(), replyInfo.getCreateTime(), -1 );
+				today = dateOperation.isTheSameDate( new Date(), replyInfo.getCreateTime() );
 				if( _subjectInfo != null ){
 					if( _subjectInfo.getReplyTotal() > 0 ){
 						_subjectInfo.setReplyTotal( _subjectInfo.getReplyTotal() - 1 );
@@ -155,23 +167,33 @@ public class BBSReplyInfoService {
 				if( _sectionInfo != null ){
 					if( _sectionInfo.getReplyTotal() > 0 ){
 						_sectionInfo.setReplyTotal( _sectionInfo.getReplyTotal() - 1 );
-						emc.check( _sectionInfo, CheckPersistType.all );
 					}
+					if( today && _sectionInfo.getReplyTotalToday() > 0 ){
+						_sectionInfo.setReplyTotalToday( _sectionInfo.getReplyTotalToday() - 1 );
+					}
+					emc.check( _sectionInfo, CheckPersistType.all );
 				}
 				if( _mainSectoinInfo != null ){
 					if( !_mainSectoinInfo.getId().equals( _sectionInfo.getId() )){
 						if( _mainSectoinInfo.getReplyTotal() > 0 ){
 							_mainSectoinInfo.setReplyTotal( _mainSectoinInfo.getReplyTotal() - 1 );
-							emc.check( _mainSectoinInfo, CheckPersistType.all );
 						}
+						if( today && _mainSectoinInfo.getReplyTotalToday() > 0 ){
+							_mainSectoinInfo.setReplyTotalToday( _mainSectoinInfo.getReplyTotalToday() - 1 );
+						}
+						emc.check( _mainSectoinInfo, CheckPersistType.all );
 					}
 				}
 				if( _forumInfo != null ){
 					if( _forumInfo.getReplyTotal() > 0 ){
 						_forumInfo.setReplyTotal( _forumInfo.getReplyTotal() - 1 );
-						emc.check( _forumInfo, CheckPersistType.all );
 					}
+					if( today && _forumInfo.getReplyTotalToday() > 0 ){
+						_forumInfo.setReplyTotalToday( _forumInfo.getReplyTotalToday() - 1 );
+					}
+					emc.check( _forumInfo, CheckPersistType.all );
 				}
+				userInfoService.changeStatistic( emc, userStatisticChange );
 				emc.commit();
 			}
 		} catch ( Exception e ) {
@@ -2,6 +2,7 @@ package com.x.bbs.assemble.control.service;
 
 import java.util.List;
 
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
@@ -13,6 +14,7 @@ import com.x.base.core.project.tools.ListTools;
 import com.x.bbs.assemble.common.date.DateOperation;
 import com.x.bbs.assemble.control.Business;
 import com.x.bbs.assemble.control.ThisApplication;
+import com.x.bbs.assemble.control.service.bean.UserStatisticChange;
 import com.x.bbs.entity.BBSForumInfo;
 import com.x.bbs.entity.BBSPermissionInfo;
 import com.x.bbs.entity.BBSPermissionRole;
@@ -32,6 +34,7 @@ import com.x.bbs.entity.BBSUserRole;
 public class BBSSectionInfoServiceAdv {
 	private DateOperation dateOperation = new DateOperation();
 	private BBSSectionInfoService sectionInfoService = new BBSSectionInfoService();
+	private BBSUserInfoService userInfoService = new BBSUserInfoService();
 	
 	/**
 	 * 根据传入的ID从数据库查询BBSSectionInfo对象
@@ -185,6 +188,7 @@ public class BBSSectionInfoServiceAdv {
 		Long subjectTotalToday = 0L;
 		Long replyTotal = 0L;
 		Long replyTotalToday = 0L;
+		UserStatisticChange userStatisticChange = new UserStatisticChange();
 		
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			business = new Business(emc);
@@ -239,6 +243,13 @@ public class BBSSectionInfoServiceAdv {
 							emc.remove( subjectContent, CheckRemoveType.all );
 						}
 						emc.remove( subjectInfo, CheckRemoveType.all );
+						userStatisticChange.subject( subjectInfo.getCreatorName(), subjectInfo.getCreateTime(), -1 );
+						if( BooleanUtils.isTrue( subjectInfo.getIsCreamSubject() ) ){
+							userStatisticChange.cream( subjectInfo.getCreatorName(), -1 );
+						}
+						if( BooleanUtils.isTrue( subjectInfo.getIsOriginalSubject() ) ){
+							userStatisticChange.original( subjectInfo.getCreatorName(), -1 );
+						}
 					}
 				}
 			}
@@ -271,6 +282,7 @@ public class BBSSectionInfoServiceAdv {
 				if( ListTools.isNotEmpty( replyList )) {
 					for( BBSReplyInfo replyInfo : replyList ) {
 						emc.remove( replyInfo, CheckRemoveType.all );
+						userStatisticChange.reply( replyInfo.getCreatorName(), replyInfo.getCreateTime(), -1 );
 					}
 				}
 			}
@@ -329,6 +341,7 @@ public class BBSSectionInfoServiceAdv {
 				
 				emc.check( forumInfo, CheckPersistType.all );
 			}
+			userInfoService.changeStatistic( emc, userStatisticChange );
 			emc.commit();
 		}catch( Exception e ){
 			throw e;
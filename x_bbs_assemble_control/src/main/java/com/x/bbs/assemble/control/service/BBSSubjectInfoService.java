@@ -12,7 +12,9 @@ import com.x.base.core.project.tools.ListTools;
 import com.x.bbs.assemble.common.date.DateOperation;
 import com.x.bbs.assemble.control.Business;
 import com.x.bbs.assemble.control.ThisApplication;
+import com.x.bbs.assemble.control.service.bean.UserStatisticChange;
 import com.x.bbs.entity.*;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
@@ -28,6 +30,7 @@ public class BBSSubjectInfoService {
 	
 	private static  Logger logger = LoggerFactory.getLogger( BBSSubjectInfoService.class );
 	private DateOperation dateOperation = new DateOperation();
+	private BBSUserInfoService userInfoService = new BBSUserInfoService();
 
 	/**
 	 * 根据传入的ID从数据库查询BBSSubjectInfo对象
@@ -124,6 +127,7 @@ public class BBSSubjectInfoService {
 		BBSForumInfo _forumInfo_tmp = null;
 		BBSSectionInfo _sectionInfo_tmp = null;
 		BBSSubjectContent _subjectContent = null;
+		UserStatisticChange userStatisticChange = new UserStatisticChange();
 		Boolean exists = false;
 		if( _bBSSubjectInfo.getId() == null ){
 			_bBSSubjectInfo.setId( BBSSubjectInfo.createId() );
@@ -150,6 +154,13 @@ public class BBSSubjectInfoService {
 		}
 		if( _subjectInfo_tmp == null ){
 			emc.persist( _bBSSubjectInfo, CheckPersistType.all);
+			userStatisticChange.subject( _bBSSubjectInfo.getCreatorName(), new Date(), 1 );
+			if( BooleanUtils.isTrue( _bBSSubjectInfo.getIsCreamSubject() ) ){
+				userStatisticChange.cream( _bBSSubjectInfo.getCreatorName(), 1 );
+			}
+			if( BooleanUtils.isTrue( _bBSSubjectInfo.getIsOriginalSubject() ) ){
+				userStatisticChange.original( _bBSSubjectInfo.getCreatorName(), 1 );
+			}
 			if( _forumInfo_tmp != null ){
 				_forumInfo_tmp.setSubjectTotalToday( _forumInfo_tmp.getSubjectTotalToday() + 1 );
 				_forumInfo_tmp.setSubjectTotal( _forumInfo_tmp.getSubjectTotal() + 1 );
@@ -167,6 +178,8 @@ public class BBSSubjectInfoService {
 				emc.check( _sectionInfo_tmp, CheckPersistType.all );	
 			}
 		}else{
+			userStatisticChange.cream( _subjectInfo_tmp.getCreatorName(), BooleanUtils.toInteger( _bBSSubjectInfo.getIsCreamSubject(), 1, 0, 0 ) - BooleanUtils.toInteger( _subjectInfo_tmp.getIsCreamSubject(), 1, 0, 0 ) );
+			userStatisticChange.original( _subjectInfo_tmp.getCreatorName(), BooleanUtils.toInteger( _bBSSubjectInfo.getIsOriginalSubject(), 1, 0, 0 ) - BooleanUtils.toInteger( _subjectInfo_tmp.getIsOriginalSubject(), 1, 0, 0 ) );
 			_bBSSubjectInfo.copyTo( _subjectInfo_tmp, JpaObject.FieldsUnmodify  );
 			emc.check( _subjectInfo_tmp, CheckPersistType.all );
 		}
@@ -206,6 +219,7 @@ public class BBSSubjectInfoService {
 				}
 			}
 		}
+		userInfoService.changeStatistic( emc, userStatisticChange );
 		emc.commit();
 		return _bBSSubjectInfo;
 	}
@@ -237,6 +251,7 @@ public class BBSSubjectInfoService {
 		List<String> attachmentIds = null;
 		StorageMapping mapping = null;
 		Business business = null;
+		UserStatisticChange userStatisticChange = new UserStatisticChange();
 		Date today = new Date();
 		if( subjectId == null || subjectId.isEmpty() ){
 			throw new Exception( "id is null, system can not delete any object." );
@@ -292,9 +307,10 @@ public class BBSSubjectInfoService {
 		if( ListTools.isNotEmpty( replyInfoList ) ){
 			for( BBSReplyInfo reply : replyInfoList ){
 				emc.remove( reply, CheckRemoveType.all );
+				userStatisticChange.reply( reply.getCreatorName(), reply.getCreateTime(), -1 );
 				if( forumInfo != null ){
 					if( forumInfo.getReplyTotal() > 0 ){
-						forumInfo.setReplyTotal( forumInfo.getReplyTotalToday() - 1 );
+						forumInfo.setReplyTotal( forumInfo.getReplyTotal() - 1 );
 					}					
 					if( dateOperation.isTheSameDate( today, reply.getCreateTime() ) && forumInfo.getReplyTotalToday() > 0 ){
 						forumInfo.setReplyTotalToday( forumInfo.getReplyTotalToday() - 1 );
@@ -302,7 +318,7 @@ public class BBSSubjectInfoService {
 				}
 				if( mainSectionInfo != null ){
 					if( mainSectionInfo.getReplyTotal() > 0 ){
-						mainSectionInfo.setReplyTotal( mainSectionInfo.getReplyTotalToday() - 1 );
+						mainSectionInfo.setReplyTotal( mainSectionInfo.getReplyTotal() - 1 );
 					}
 					if( dateOperation.isTheSameDate( today, reply.getCreateTime() ) && mainSectionInfo.getReplyTotalToday() > 0){
 						mainSectionInfo.setReplyTotalToday( mainSectionInfo.getReplyTotalToday() - 1 );
@@ -310,7 +326,7 @@ public class BBSSubjectInfoService {
 				}
 				if( sectionInfo != null ){
 					if( sectionInfo.getReplyTotal() > 0 ){
-						sectionInfo.setReplyTotal( sectionInfo.getReplyTotalToday() - 1 );
+						sectionInfo.setReplyTotal( sectionInfo.getReplyTotal() - 1 );
 					}
 					if( dateOperation.isTheSameDate( today, reply.getCreateTime() ) && sectionInfo.getReplyTotalToday() > 0 ){
 						sectionInfo.setReplyTotalToday( sectionInfo.getReplyTotalToday() - 1 );
@@ -356,6 +372,13 @@ public class BBSSubjectInfoService {
 				emc.check( sectionInfo, CheckPersistType.all );
 			}
 			emc.remove( subjectInfo, CheckRemoveType.all );
+			userStatisticChange.subject( subjectInfo.getCreatorName(), subjectInfo.getCreateTime(), -1 );
+			if( BooleanUtils.isTrue( subjectInfo.getIsCreamSubject() ) ){
+				userStatisticChange.cream( subjectInfo.getCreatorName(), -1 );
+			}
+			if( BooleanUtils.isTrue( subjectInfo.getIsOriginalSubject() ) ){
+				userStatisticChange.original( subjectInfo.getCreatorName(), -1 );
+			}
 		}
 		if( voteOptionGroupList != null && voteOptionGroupList.size() > 0 ){
 			for( BBSVoteOptionGroup voteOptionGroup : voteOptionGroupList ){
@@ -372,6 +395,7 @@ public class BBSSubjectInfoService {
 				emc.remove( voteRecord, CheckRemoveType.all );
 			}
 		}
+		userInfoService.changeStatistic( emc, userStatisticChange );
 		emc.commit();
 	}
 
@@ -462,12 +486,15 @@ public class BBSSubjectInfoService {
 			throw new Exception( "subjectId is null." );
 		}
 		BBSSubjectInfo subjectInfo = null;
+		UserStatisticChange userStatisticChange = new UserStatisticChange();
 		subjectInfo = emc.find( subjectId, BBSSubjectInfo.class );			
 		emc.beginTransaction( BBSSubjectInfo.class );			
+		userStatisticChange.cream( subjectInfo.getCreatorName(), BooleanUtils.toInteger( isCream, 1, 0, 0 ) - BooleanUtils.toInteger( subjectInfo.getIsCreamSubject(), 1, 0, 0 ) );
 		subjectInfo.setIsCreamSubject( isCream );
 		subjectInfo.setScreamSetterName( setterName );
 		subjectInfo.setScreamSetterTime( new Date() );			
 		emc.check( subjectInfo, CheckPersistType.all );
+		userInfoService.changeStatistic( emc, userStatisticChange );
 		emc.commit();
 		return subjectInfo;
 	}
@@ -622,12 +649,15 @@ public class BBSSubjectInfoService {
 			throw new Exception( "subjectId is null." );
 		}
 		BBSSubjectInfo subjectInfo = null;
+		UserStatisticChange userStatisticChange = new UserStatisticChange();
 		subjectInfo = emc.find( subjectId, BBSSubjectInfo.class );			
 		emc.beginTransaction( BBSSubjectInfo.class );			
+		userStatisticChange.original( subjectInfo.getCreatorName(), BooleanUtils.toInteger( isOriginalSubject, 1, 0, 0 ) - BooleanUtils.toInteger( subjectInfo.getIsOriginalSubject(), 1, 0, 0 ) );
 		subjectInfo.setIsOriginalSubject(isOriginalSubject);
 		subjectInfo.setOriginalSetterName( name );
 		subjectInfo.setOriginalSetterTime( new Date() );		
 		emc.check( subjectInfo, CheckPersistType.all );
+		userInfoService.changeStatistic( emc, userStatisticChange );
 		emc.commit();
 		return subjectInfo;
 	}
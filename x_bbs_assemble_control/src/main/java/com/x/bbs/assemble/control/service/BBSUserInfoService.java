@@ -1,7 +1,16 @@
 package com.x.bbs.assemble.control.service;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.Tuple;
+
+import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
@@ -10,8 +19,11 @@ import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.tools.DateTools;
 import com.x.base.core.project.tools.ListTools;
+import com.x.bbs.assemble.common.date.DateOperation;
 import com.x.bbs.assemble.control.Business;
+import com.x.bbs.assemble.control.service.bean.UserStatisticChange;
 import com.x.bbs.entity.BBSUserInfo;
 
 /**
@@ -331,4 +343,131 @@ public class BBSUserInfoService {
 			throw e;
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * 在调用方的事务中将发贴、回贴统计数量的变化更新到用户信息中，由调用方提交事务<br/>
+	 * 由数据库按变化量累加，同一用户同时发贴以及统计对账不会互相覆盖<br/>
+	 * 没有用户信息的用户不创建，由每日的统计对账补齐
+	 * @param emc
+	 * @param change
+	 * @throws Exception
+	 */
+	public void changeStatistic( EntityManagerContainer emc, UserStatisticChange change ) throws Exception {
+		if( change == null || change.isEmpty() ){
+			return;
+		}
+		Business business = new Business( emc );
+		List<BBSUserInfo> userInfoList = business.userInfoFactory().listByUserNames( new ArrayList<>( change.getUserNames() ) );
+		if( ListTools.isEmpty( userInfoList ) ){
+			return;
+		}
+		String today = DateTools.formatDate( new Date() );
+		Set<String> changed = new HashSet<>();
+		emc.beginTransaction( BBSUserInfo.class );
+		for( BBSUserInfo userInfo : userInfoList ){
+			//同名用户信息只更新第一条
+			if( !changed.add( userInfo.getUserName() ) ){
+				continue;
+			}
+			UserStatisticChange.Change o = change.getChange( userInfo.getUserName() );
+			business.userInfoFactory().changeStatistic( userInfo.getId(), today, new Long[] { o.getSubjectCount(), o.getReplyCount(),
+					o.getCreamCount(), o.getOriginalCount(), o.getSubjectCountToday(), o.getReplyCountToday() } );
+		}
+	}
+
+	/**
+	 * 按发贴人、回贴人分组统计所有用户的发贴、回贴数量，与用户信息中实时维护的统计数量对账<br/>
+	 * 只按差值更新统计数量不一致的用户信息，不覆盖对账期间发贴、回贴实时修改的数量<br/>
+	 * 有发贴或者回贴但是没有用户信息的用户，创建用户信息
+	 * @return 更新和创建的用户数量
+	 * @throws Exception
+	 */
+	public int statisticSubjectAndReply() throws Exception {
+		Date todayStartTime = new DateOperation().getTodayStartTime();
+		String today = DateTools.formatDate( todayStartTime );
+		Map<String, Long[]> statistics = new HashMap<>();
+		Map<String, Long[]> changes = new HashMap<>();
+		Map<String, String> todayDates = new HashMap<>();
+		int count = 0;
+		Set<String> userNames = new HashSet<>();
+		BBSUserInfo userInfo = null;
+		Long[] statistic = null;
+		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
+			Business business = new Business( emc );
+			put( statistics, business.subjectInfoFactory().countGroupByCreatorName( null, null, null ), 0 );
+			put( statistics, business.subjectInfoFactory().countGroupByCreatorName( todayStartTime, null, null ), 1 );
+			put( statistics, business.replyInfoFactory().countGroupByCreatorName( null ), 2 );
+			put( statistics, business.replyInfoFactory().countGroupByCreatorName( todayStartTime ), 3 );
+			put( statistics, business.subjectInfoFactory().countGroupByCreatorName( null, true, null ), 4 );
+			put( statistics, business.subjectInfoFactory().countGroupByCreatorName( null, null, true ), 5 );
+			for( Tuple o : business.userInfoFactory().listAllStatistic() ){
+				//同名用户信息只对账第一条
+				if( StringUtils.isEmpty( o.get( 1, String.class ) ) || !userNames.add( o.get( 1, String.class ) ) ){
+					continue;
+				}
+				statistic = statistics.get( o.get( 1, String.class ) );
+				if( statistic == null ){
+					statistic = new Long[]{ 0L, 0L, 0L, 0L, 0L, 0L };
+				}
+				//今日数量所属日期不是当天的，今日数量按0计算
+				boolean current = StringUtils.equals( today, o.get( 8, String.class ) );
+				Long[] change = new Long[]{
+						statistic[0] - value( o.get( 2, Long.class ) ),
+						statistic[2] - value( o.get( 4, Long.class ) ),
+						statistic[4] - value( o.get( 6, Long.class ) ),
+						statistic[5] - value( o.get( 7, Long.class ) ),
+						statistic[1] - ( current ? value( o.get( 3, Long.class ) ) : 0L ),
+						statistic[3] - ( current ? value( o.get( 5, Long.class ) ) : 0L ) };
+				for( Long c : change ){
+					if( c != 0 ){
+						changes.put( o.get( 0, String.class ), change );
+						todayDates.put( o.get( 0, String.class ), o.get( 8, String.class ) );
+						break;
+					}
+				}
+			}
+			for( List<String> ids : ListTools.batch( new ArrayList<>( changes.keySet() ), 500 ) ){
+				emc.beginTransaction( BBSUserInfo.class );
+				for( String id : ids ){
+					if( business.userInfoFactory().changeStatistic( id, todayDates.get( id ), today, changes.get( id ) ) ){
+						count++;
+					}
+				}
+				emc.commit();
+			}
+			statistics.keySet().removeAll( userNames );
+			if( !statistics.isEmpty() ){
+				emc.beginTransaction( BBSUserInfo.class );
+				for( Map.Entry<String, Long[]> entry : statistics.entrySet() ){
+					statistic = entry.getValue();
+					userInfo = new BBSUserInfo();
+					userInfo.setUserName( entry.getKey() );
+					userInfo.setNickName( entry.getKey() );
+					userInfo.setMobile("");
+					userInfo.setSubjectCount( statistic[0] );
+					userInfo.setSubjectCountToday( statistic[1] );
+					userInfo.setReplyCount( statistic[2] );
+					userInfo.setReplyCountToday( statistic[3] );
+					userInfo.setCreamCount( statistic[4] );
+					userInfo.setOriginalCount( statistic[5] );
+					userInfo.setPermissionContent( "{}" );
+					emc.persist( userInfo, CheckPersistType.all );
+				}
+				emc.commit();
+			}
+		}catch( Exception e ){
+			throw e;
+		}
+		return count + statistics.size();
+	}
+
+	private long value( Long count ) {
+		return count == null ? 0L : count;
+	}
+
+	private void put( Map<String, Long[]> statistics, Map<String, Long> counts, int index ) {
+		for( Map.Entry<String, Long> entry : counts.entrySet() ){
+			statistics.computeIfAbsent( entry.getKey(), k -> new Long[]{ 0L, 0L, 0L, 0L, 0L, 0L } )[index] = entry.getValue();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.x.bbs.assemble.control.service.bean;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.bbs.assemble.common.date.DateOperation;
+
+/**
+ * 用户发贴、回贴统计数量的变化量，按用户姓名记录。<br/>
+ * 发贴、回贴、删除、设置精华和原创时记录变化量，在同一个事务中更新到用户信息中，不再定时逐个用户统计。
+ */
+public class UserStatisticChange {
+
+	private DateOperation dateOperation = new DateOperation();
+
+	private Date today = new Date();
+
+	private Map<String, Change> changes = new HashMap<>();
+
+	/**
+	 * 发表或者删除主题，主题是今天发表的同时调整今日发贴量
+	 * @param userName
+	 * @param createTime
+	 * @param count 发表为1，删除为-1
+	 */
+	public void subject( String userName, Date createTime, long count ) {
+		Change change = this.get( userName );
+		if( change != null ){
+			change.subjectCount += count;
+			if( dateOperation.isTheSameDate( today, createTime ) ){
+				change.subjectCountToday += count;
+			}
+		}
+	}
+
+	/**
+	 * 发表或者删除回贴，回贴是今天发表的同时调整今日回贴量
+	 * @param userName
+	 * @param createTime
+	 * @param count 发表为1，删除为-1
+	 */
+	public void reply( String userName, Date createTime, long count ) {
+		Change change = this.get( userName );
+		if( change != null ){
+			change.replyCount += count;
+			if( dateOperation.isTheSameDate( today, createTime ) ){
+				change.replyCountToday += count;
+			}
+		}
+	}
+
+	public void cream( String userName, long count ) {
+		Change change = this.get( userName );
+		if( change != null ){
+			change.creamCount += count;
+		}
+	}
+
+	public void original( String userName, long count ) {
+		Change change = this.get( userName );
+		if( change != null ){
+			change.originalCount += count;
+		}
+	}
+
+	public Boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	public Set<String> getUserNames() {
+		return changes.keySet();
+	}
+
+	public Change getChange( String userName ) {
+		return changes.get( userName );
+	}
+
+	private Change get( String userName ) {
+		if( StringUtils.isEmpty( userName ) ){
+			return null;
+		}
+		return changes.computeIfAbsent( userName, k -> new Change() );
+	}
+
+	public static class Change {
+
+		private long subjectCount = 0L;
+
+		private long subjectCountToday = 0L;
+
+		private long replyCount = 0L;
+
+		private long replyCountToday = 0L;
+
+		private long creamCount = 0L;
+
+		private long originalCount = 0L;
+
+		public long getSubjectCount() {
+			return subjectCount;
+		}
+
+		public long getSubjectCountToday() {
+			return subjectCountToday;
+		}
+
+		public long getReplyCount() {
+			return replyCount;
+		}
+
+		public long getReplyCountToday() {
+			return replyCountToday;
+		}
+
+		public long getCreamCount() {
+			return creamCount;
+		}
+
+		public long getOriginalCount() {
+			return originalCount;
+		}
+	}
+}
@@ -6,6 +6,8 @@ import com.x.base.core.entity.SliceJpaObject;
 import com.x.base.core.entity.annotation.CheckPersist;
 import com.x.base.core.entity.annotation.ContainerEntity;
 import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.tools.DateTools;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.openjpa.persistence.PersistentCollection;
 import org.apache.openjpa.persistence.jdbc.ContainerTable;
 import org.apache.openjpa.persistence.jdbc.ElementColumn;
@@ -14,6 +16,7 @@ import org.apache.openjpa.persistence.jdbc.Index;
 
 import javax.persistence.*;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -225,6 +228,12 @@ public class BBSForumInfo extends SliceJpaObject {
 	@CheckPersist(allowEmpty = false)
 	private Long replyTotalToday = 0L;
 
+	public static final String todayDate_FIELDNAME = "todayDate";
+	@FieldDescribe("今日数量所属日期:yyyy-MM-dd,日期变化后今日数量按0计算.")
+	@Column(length = JpaObject.length_16B, name = ColumnNamePrefix + todayDate_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private String todayDate;
+
 	public static final String creatorName_FIELDNAME = "creatorName";
 	@FieldDescribe("创建人姓名")
 	@Column(length = JpaObject.length_255B, name = ColumnNamePrefix + creatorName_FIELDNAME)
@@ -421,21 +430,50 @@ public class BBSForumInfo extends SliceJpaObject {
 	}
 
 	public Long getSubjectTotalToday() {
-		return subjectTotalToday;
+		return this.isToday() ? subjectTotalToday : 0L;
 	}
 
 	public void setSubjectTotalToday(Long subjectTotalToday) {
+		this.today();
 		this.subjectTotalToday = subjectTotalToday;
 	}
 
 	public Long getReplyTotalToday() {
-		return replyTotalToday;
+		return this.isToday() ? replyTotalToday : 0L;
 	}
 
 	public void setReplyTotalToday(Long replyTotalToday) {
+		this.today();
 		this.replyTotalToday = replyTotalToday;
 	}
 
+	public String getTodayDate() {
+		return todayDate;
+	}
+
+	public void setTodayDate(String todayDate) {
+		this.todayDate = todayDate;
+	}
+
+	/**
+	 * 今日数量所属日期是否为当天,不是当天的今日数量不再有效
+	 */
+	private boolean isToday() {
+		return StringUtils.equals(DateTools.formatDate(new Date()), this.todayDate);
+	}
+
+	/**
+	 * 修改今日数量前调用,日期变化后今日数量从0开始重新计数
+	 */
+	private void today() {
+		String date = DateTools.formatDate(new Date());
+		if (!StringUtils.equals(date, this.todayDate)) {
+			this.subjectTotalToday = 0L;
+			this.replyTotalToday = 0L;
+			this.todayDate = date;
+		}
+	}
+
 	public String getForumColor() {
 		return forumColor;
 	}
@@ -535,6 +573,7 @@ public class BBSForumInfo extends SliceJpaObject {
 	}
 
 	public long minusSubjectTotalToday(Long count) {
+		this.today();
 		if (this.subjectTotalToday == null || this.subjectTotalToday < 0) {
 			this.subjectTotalToday = 0L;
 		}
@@ -548,6 +587,7 @@ public class BBSForumInfo extends SliceJpaObject {
 	}
 
 	public long addSubjectTotalToday(Long count) {
+		this.today();
 		if (this.subjectTotalToday == null || this.subjectTotalToday < 0) {
 			this.subjectTotalToday = 0L;
 		}
@@ -585,6 +625,7 @@ public class BBSForumInfo extends SliceJpaObject {
 	}
 
 	public long minusReplyTotalToday(Long count) {
+		this.today();
 		if (this.replyTotalToday == null || this.replyTotalToday < 0) {
 			this.replyTotalToday = 0L;
 		}
@@ -598,6 +639,7 @@ public class BBSForumInfo extends SliceJpaObject {
 	}
 
 	public long addReplyTotalToday(Long count) {
+		this.today();
 		if (this.replyTotalToday == null || this.replyTotalToday < 0) {
 			this.replyTotalToday = 0L;
 		}
@@ -15,6 +15,7 @@ import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.persistence.UniqueConstraint;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.openjpa.persistence.jdbc.Index;
 
 import com.x.base.core.entity.JpaObject;
@@ -22,6 +23,7 @@ import com.x.base.core.entity.SliceJpaObject;
 import com.x.base.core.entity.annotation.CheckPersist;
 import com.x.base.core.entity.annotation.ContainerEntity;
 import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.tools.DateTools;
 
 /**
  * 论坛用户信息表
@@ -130,6 +132,12 @@ public class BBSUserInfo extends SliceJpaObject {
 	@CheckPersist(allowEmpty = true)
 	private Long replyCountToday = 0L;
 
+	public static final String todayDate_FIELDNAME = "todayDate";
+	@FieldDescribe("今日数量所属日期:yyyy-MM-dd,日期变化后今日数量按0计算.")
+	@Column(length = JpaObject.length_16B, name = ColumnNamePrefix + todayDate_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private String todayDate;
+
 	public static final String creamCount_FIELDNAME = "creamCount";
 	@FieldDescribe("精华贴数")
 	@Column(name = ColumnNamePrefix + creamCount_FIELDNAME)
@@ -355,18 +363,47 @@ public class BBSUserInfo extends SliceJpaObject {
 	}
 
 	public Long getSubjectCountToday() {
-		return subjectCountToday;
+		return this.isToday() ? subjectCountToday : 0L;
 	}
 
 	public void setSubjectCountToday(Long subjectCountToday) {
+		this.today();
 		this.subjectCountToday = subjectCountToday;
 	}
 
 	public Long getReplyCountToday() {
-		return replyCountToday;
+		return this.isToday() ? replyCountToday : 0L;
 	}
 
 	public void setReplyCountToday(Long replyCountToday) {
+		this.today();
 		this.replyCountToday = replyCountToday;
 	}
+
+	public String getTodayDate() {
+		return todayDate;
+	}
+
+	public void setTodayDate(String todayDate) {
+		this.todayDate = todayDate;
+	}
+
+	/**
+	 * 今日数量所属日期是否为当天,不是当天的今日数量不再有效
+	 */
+	private boolean isToday() {
+		return StringUtils.equals(DateTools.formatDate(new Date()), this.todayDate);
+	}
+
+	/**
+	 * 修改今日数量前调用,日期变化后今日数量从0开始重新计数
+	 */
+	private void today() {
+		String date = DateTools.formatDate(new Date());
+		if (!StringUtils.equals(date, this.todayDate)) {
+			this.subjectCountToday = 0L;
+			this.replyCountToday = 0L;
+			this.todayDate = date;
+		}
+	}
 }
\ No newline at end of file
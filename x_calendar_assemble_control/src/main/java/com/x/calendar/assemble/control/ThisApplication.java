@@ -4,6 +4,7 @@ import com.x.base.core.project.Context;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.message.MessageConnector;
 import com.x.base.core.project.tools.ListTools;
+import com.x.calendar.assemble.control.recurrence.AlarmWheel;
 import com.x.calendar.assemble.control.schedule.AlarmTrigger;
 import com.x.calendar.assemble.control.schedule.CheckEventComment;
 import com.x.calendar.assemble.control.service.UserManagerService;
@@ -16,6 +17,7 @@ public class ThisApplication {
 
 	protected static Context context;
 	public static final String CalendarMANAGER = "CalendarManager";
+	public static final AlarmWheel alarmWheel = new AlarmWheel(AlarmTrigger::fire);
 	public static Context context() {
 		return context;
 	}
@@ -23,7 +25,8 @@ public class ThisApplication {
 	public static void init() throws Exception {
 		try {
 			MessageConnector.start(context());
-			//每30秒检查一次需要推送的消息
+			alarmWheel.start();
+			//每30秒将之后一分钟内需要推送的消息放入提醒时间轮
 			context.schedule(AlarmTrigger.class, "0/30 * * * * ?");
 			//每两小时检查一次comment信息的引用情况，删除多余的不必要的数据
 			context.schedule(CheckEventComment.class, "* * */2 * * ?");
@@ -34,6 +37,7 @@ public class ThisApplication {
 
 	public static void destroy() {
 		try {
+			alarmWheel.stop();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
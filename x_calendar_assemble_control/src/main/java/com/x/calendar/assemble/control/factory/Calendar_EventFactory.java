@@ -1,9 +1,12 @@
 package com.x.calendar.assemble.control.factory;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -218,17 +221,59 @@ public class Calendar_EventFactory extends AbstractFactory {
 		return false;
 	}
 
-	public List<String> listNeedAlarmEventIds(Date date) throws Exception {
+	/**
+	 * 查询需要提醒的日程事件列表,提醒时间在指定时间之前并且还未提醒
+	 * @param date
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Calendar_Event> listNeedAlarm(Date date) throws Exception {
 		EntityManager em = this.entityManagerContainer().get(Calendar_Event.class);
 		CriteriaBuilder cb = em.getCriteriaBuilder();
-		CriteriaQuery<String> cq = cb.createQuery(String.class);
+		CriteriaQuery<Calendar_Event> cq = cb.createQuery(Calendar_Event.class);
 		Root<Calendar_Event> root = cq.from(Calendar_Event.class);
-		Predicate p = cb.lessThanOrEqualTo( root.get(Calendar_Event_.alarmTime), date );
+		Predicate p = cb.lessThan( root.get(Calendar_Event_.alarmTime), date );
 		p = cb.and( p, cb.isFalse( root.get(Calendar_Event_.alarmAlready ) ));
-		cq.select(root.get(Calendar_Event_.id));
 		return em.createQuery(cq.where(p)).getResultList();
 	}
 
+	/**
+	 * 认领日程事件的提醒，将提醒标识由未提醒改为已提醒，多个节点同时发送同一个提醒时只有一个节点认领成功，需要在事务中调用
+	 * @param id
+	 * @return 是否认领成功
+	 * @throws Exception
+	 */
+	public boolean claimAlarm( String id ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( Calendar_Event.class );
+		Query query = em.createQuery( "update " + Calendar_Event.class.getName()
+				+ " o set o.alarmAlready = true where o.id = :id and o.alarmAlready = false" );
+		query.setParameter( "id", id );
+		return query.executeUpdate() > 0;
+	}
+
+	/**
+	 * 查询重复主体已经存在记录的日程事件的重复主体ID和开始时间(yyyy-MM-dd HH:mm:ss)
+	 * @param repeatMasterIds
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Tuple> listStartTimeStrWithRepeatMasters( List<String> repeatMasterIds ) throws Exception {
+		List<Tuple> list = new ArrayList<>();
+		if( ListTools.isEmpty( repeatMasterIds ) ){
+			return list;
+		}
+		EntityManager em = this.entityManagerContainer().get(Calendar_Event.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		for( List<String> ids : ListTools.batch( repeatMasterIds, 500 ) ) {
+			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
+			Root<Calendar_Event> root = cq.from(Calendar_Event.class);
+			Predicate p = root.get( Calendar_Event_.repeatMasterId ).in( ids );
+			cq.multiselect( root.get(Calendar_Event_.repeatMasterId), root.get(Calendar_Event_.startTimeStr) );
+			list.addAll( em.createQuery(cq.where(p)).getResultList() );
+		}
+		return list;
+	}
+
 	public List<String> listWithBundle(String bundle) throws Exception {
 		if( StringUtils.isEmpty( bundle ) ) {
 			throw new Exception("bundle is null!");
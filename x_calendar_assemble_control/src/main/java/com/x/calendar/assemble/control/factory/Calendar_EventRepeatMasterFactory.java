@@ -1,9 +1,11 @@
 package com.x.calendar.assemble.control.factory;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -70,6 +72,56 @@ public class Calendar_EventRepeatMasterFactory extends AbstractFactory {
 		return em.createQuery(cq.where(p)).getResultList();
 	}
 
+	/**
+	 * 列示指定日历的所有重复主体信息
+	 * @param calendarIds
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Calendar_EventRepeatMaster> listWithCalendarIds( List<String> calendarIds ) throws Exception {
+		List<Calendar_EventRepeatMaster> list = new ArrayList<>();
+		if( ListTools.isEmpty( calendarIds ) ){
+			return list;
+		}
+		EntityManager em = this.entityManagerContainer().get(Calendar_EventRepeatMaster.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		for( List<String> ids : ListTools.batch( calendarIds, 500 ) ) {
+			CriteriaQuery<Calendar_EventRepeatMaster> cq = cb.createQuery(Calendar_EventRepeatMaster.class);
+			Root<Calendar_EventRepeatMaster> root = cq.from(Calendar_EventRepeatMaster.class);
+			Predicate p = root.get( Calendar_EventRepeatMaster_.calendarId ).in( ids );
+			list.addAll( em.createQuery(cq.where(p)).getResultList() );
+		}
+		return list;
+	}
+
+	/**
+	 * 列示所有设置了提醒的重复主体信息
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Calendar_EventRepeatMaster> listWithAlarm() throws Exception {
+		EntityManager em = this.entityManagerContainer().get(Calendar_EventRepeatMaster.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Calendar_EventRepeatMaster> cq = cb.createQuery(Calendar_EventRepeatMaster.class);
+		Root<Calendar_EventRepeatMaster> root = cq.from(Calendar_EventRepeatMaster.class);
+		Predicate p = cb.isTrue( root.get( Calendar_EventRepeatMaster_.alarm ) );
+		return em.createQuery(cq.where(p)).getResultList();
+	}
+
+	/**
+	 * 列示所有存在重复主体的日历ID
+	 * @return
+	 * @throws Exception
+	 */
+	public List<String> listCalendarIds() throws Exception {
+		EntityManager em = this.entityManagerContainer().get(Calendar_EventRepeatMaster.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<String> cq = cb.createQuery(String.class);
+		Root<Calendar_EventRepeatMaster> root = cq.from(Calendar_EventRepeatMaster.class);
+		cq.select(root.get(Calendar_EventRepeatMaster_.calendarId));
+		return em.createQuery(cq.distinct(true)).getResultList();
+	}
+
 	/**
 	 * 根据条件查询指定的日历信息ID列表
 	 * @param title
@@ -181,4 +233,22 @@ public class Calendar_EventRepeatMasterFactory extends AbstractFactory {
 		
 		return em.createQuery(cq.distinct(true).where(p)).getResultList();
 	}
+
+	/**
+	 * 认领重复主体展开的日程事件的一次提醒，只有提醒时间晚于已经发送的最后提醒时间时才能认领成功
+	 * 多个节点同时发送同一个提醒时只有一个节点认领成功，需要在事务中调用
+	 * @param repeatMasterId
+	 * @param alarmTime
+	 * @return 是否认领成功
+	 * @throws Exception
+	 */
+	public boolean claimAlarm( String repeatMasterId, Date alarmTime ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( Calendar_EventRepeatMaster.class );
+		Query query = em.createQuery( "update " + Calendar_EventRepeatMaster.class.getName()
+				+ " o set o.alarmFiredTime = :alarmTime where o.id = :id"
+				+ " and ( o.alarmFiredTime is null or o.alarmFiredTime < :alarmTime )" );
+		query.setParameter( "id", repeatMasterId );
+		query.setParameter( "alarmTime", alarmTime );
+		return query.executeUpdate() > 0;
+	}
 }
\ No newline at end of file
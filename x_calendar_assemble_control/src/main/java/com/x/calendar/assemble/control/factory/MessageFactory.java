@@ -1,7 +1,6 @@
 package com.x.calendar.assemble.control.factory;
 
 import com.x.base.core.container.EntityManagerContainer;
-import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.project.message.MessageConnector;
 import com.x.base.core.project.tools.ListTools;
 import com.x.calendar.core.entity.Calendar_Event;
@@ -17,11 +16,7 @@ public class MessageFactory {
 			}
 		}
 		
-		event = emc.find( event.getId(), Calendar_Event.class );
-		emc.beginTransaction( Calendar_Event.class );
-		event.setAlarmAlready( true );
-		emc.check( event, CheckPersistType.all );
-		emc.commit();
+		//提醒标识在发送前认领提醒时已经更新
 	}
 	
 }
\ No newline at end of file
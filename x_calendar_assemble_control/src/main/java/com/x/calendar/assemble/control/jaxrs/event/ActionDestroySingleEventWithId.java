@@ -39,7 +39,7 @@ public class ActionDestroySingleEventWithId extends BaseAction {
 
 		if( check ){
 			try {
-				calendar_event = calendar_EventServiceAdv.get( id );
+				calendar_event = calendar_EventServiceAdv.getForUpdate( id );
 				if( calendar_event == null ) {
 					check = false;
 					Exception exception = new ExceptionEventNotExists( id );
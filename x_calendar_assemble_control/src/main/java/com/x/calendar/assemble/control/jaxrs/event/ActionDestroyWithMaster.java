@@ -39,7 +39,7 @@ public class ActionDestroyWithMaster extends BaseAction {
 		
 		if( check ){
 			try {
-				calendar_event = calendar_EventServiceAdv.get( eventId );
+				calendar_event = calendar_EventServiceAdv.getForUpdate( eventId );
 				if( calendar_event == null ) {
 					check = false;
 					Exception exception = new ExceptionEventNotExists( eventId );
@@ -22,9 +22,9 @@ import com.x.calendar.core.entity.Calendar_Event;
 
 /**
  * 根据条件和权限列示能访问到的符合条件的日历信息
- * 1、查询时间段内有多少重复事件主体需要进行事件生成
- * 2、生成事件
- * 3、根据条件查询日程事件信息列表
+ * 1、根据条件查询已经生成记录的日程事件信息列表
+ * 2、根据条件将查询时间段内的重复事件主体展开为日程事件(不持久化)
+ * 3、合并两部分日程事件信息列表
  * @author O2LEE
  *
  */
@@ -39,7 +39,6 @@ private Logger logger = LoggerFactory.getLogger( ActionListWithCondition.class )
 		List<Calendar_Event> calendar_EventList = null;
 		Boolean check = true;
 		Wi wi = null;
-		List<String> ids = null;
 		List<String> unitNames = null;
 		List<String> groupNames = null;
 		String personName = effectivePerson.getDistinguishedName();
@@ -84,7 +83,7 @@ private Logger logger = LoggerFactory.getLogger( ActionListWithCondition.class )
 					wi.setCalendarIds( calendarServiceAdv.listWithCondition(personName, unitNames, groupNames) );
 				}
 				if( ListTools.isNotEmpty( wi.getCalendarIds()  ) ) {
-					ids = calendar_EventServiceAdv.listWithCondition( wi.getKey(), wi.getEventType(), wi.getSource(), wi.getCreatePerson(), wi.getCalendarIds(),
+					calendar_EventList = calendar_EventServiceAdv.listWithCondition( wi.getKey(), wi.getEventType(), wi.getSource(), wi.getCreatePerson(), wi.getCalendarIds(),
 							personName, unitNames, groupNames, wi.getStartTime(), wi.getEndTime() );
 				}
 			} catch (Exception e) {
@@ -109,8 +108,7 @@ private Logger logger = LoggerFactory.getLogger( ActionListWithCondition.class )
 		}
 		
 		if( check ){
-			if( ListTools.isNotEmpty( ids )) {
-				calendar_EventList = calendar_EventServiceAdv.list(ids);
+			if( ListTools.isNotEmpty( calendar_EventList )) {
 				try {
 					wrapEvents = WoCalendar_Event.copier.copy( calendar_EventList );
 					if( ListTools.isNotEmpty( wrapEvents )) {
@@ -24,9 +24,9 @@ import com.x.calendar.core.entity.Calendar_Event;
 
 /**
  * 根据条件和权限列示能访问到的符合条件的日历信息(输出简单的列表，不按天组织)
- * 1、查询时间段内有多少重复事件主体需要进行事件生成
- * 2、生成事件
- * 3、根据条件查询日程事件信息列表
+ * 1、根据条件查询已经生成记录的日程事件信息列表
+ * 2、根据条件将查询时间段内的重复事件主体展开为日程事件(不持久化)
+ * 3、合并两部分日程事件信息列表
  * @author O2LEE
  *
  */
@@ -41,7 +41,6 @@ private Logger logger = LoggerFactory.getLogger( ActionSimpleListWithCondition.c
 		Boolean check = true;
 		Boolean manager = false;
 		Wi wi = null;
-		List<String> ids = null;
 		List<String> unitNames = null;
 		List<String> groupNames = null;
 		String personName = effectivePerson.getDistinguishedName();
@@ -80,7 +79,7 @@ private Logger logger = LoggerFactory.getLogger( ActionSimpleListWithCondition.c
 		if( check ){
 			if( manager ) {
 				try {
-					ids = calendar_EventServiceAdv.listWithCondition( wi.getKey(), wi.getEventType(), wi.getSource(), wi.getCreatePerson(), wi.getCalendarIds(), 
+					calendar_EventList = calendar_EventServiceAdv.listWithCondition( wi.getKey(), wi.getEventType(), wi.getSource(), wi.getCreatePerson(), wi.getCalendarIds(), 
 							null, null, null, wi.getStartTime(), wi.getEndTime() );
 				} catch (Exception e) {
 					check = false;
@@ -97,7 +96,7 @@ private Logger logger = LoggerFactory.getLogger( ActionSimpleListWithCondition.c
 						wi.setCalendarIds( calendarServiceAdv.listWithCondition(personName, unitNames, groupNames) );
 					}
 					if( ListTools.isNotEmpty( wi.getCalendarIds()  ) ) {
-						ids = calendar_EventServiceAdv.listWithCondition( wi.getKey(), wi.getEventType(), wi.getSource(), wi.getCreatePerson(), wi.getCalendarIds(),
+						calendar_EventList = calendar_EventServiceAdv.listWithCondition( wi.getKey(), wi.getEventType(), wi.getSource(), wi.getCreatePerson(), wi.getCalendarIds(),
 								personName, unitNames, groupNames, wi.getStartTime(), wi.getEndTime() );
 					}
 				} catch (Exception e) {
@@ -110,8 +109,7 @@ private Logger logger = LoggerFactory.getLogger( ActionSimpleListWithCondition.c
 		}
 		
 		if( check ){
-			if( ListTools.isNotEmpty( ids )) {
-				calendar_EventList = calendar_EventServiceAdv.list(ids);
+			if( ListTools.isNotEmpty( calendar_EventList )) {
 				try {
 					wos = Wo.copier.copy( calendar_EventList );
 					if( ListTools.isNotEmpty( wos )) {
@@ -65,7 +65,7 @@ public class ActionUpdateAfterEventId extends BaseAction {
 		
 		if( check ){
 			try {
-				calendar_Event = calendar_EventServiceAdv.get( id );
+				calendar_Event = calendar_EventServiceAdv.getForUpdate( id );
 			} catch (Exception e) {
 				check = false;
 				Exception exception = new ExceptionEventProcess( e, "系统根据ID查询指定日历记录信息时发生异常.ID:" + id );
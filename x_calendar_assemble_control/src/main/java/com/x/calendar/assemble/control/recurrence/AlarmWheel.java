@@ -0,0 +1,188 @@
+package com.x.calendar.assemble.control.recurrence;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.calendar.core.entity.Calendar_Event;
+
+/**
+ * 日程提醒时间轮.<br/>
+ * 默认每秒前进一格,提醒按到期时间放入对应的格子,超过一圈的记录剩余圈数.<br/>
+ * 定时任务按时间窗口从索引中查出即将到期的提醒放入时间轮,到期后批量交给Listener发送,不再轮询数据库逐条读取.<br/>
+ * 同一个日程事件的同一个提醒时间只会放入一次,日程修改后原有的提醒仍然会到期,由Listener在发送前校验.
+ */
+public class AlarmWheel {
+
+	private static Logger logger = LoggerFactory.getLogger(AlarmWheel.class);
+
+	private static final long TICK = 1000L;
+
+	private static final int WHEEL_SIZE = 512;
+
+	/* 已经到期的提醒标识保留时间,避免重复放入 */
+	private static final long KEEP = 1000L * 60 * 60;
+
+	private final Listener listener;
+
+	/* 每一格的时间 */
+	private final long tickDuration;
+
+	private final List<LinkedList<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+
+	private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+	private final Map<String, Long> scheduled = new ConcurrentHashMap<>();
+
+	private volatile Thread worker;
+
+	private volatile long startTime;
+
+	private long tick = 0;
+
+	public AlarmWheel(Listener listener) {
+		this(listener, TICK);
+	}
+
+	/**
+	 * 指定每一格的时间,一圈的时间为tickDuration*WHEEL_SIZE.
+	 */
+	public AlarmWheel(Listener listener, long tickDuration) {
+		this.listener = listener;
+		this.tickDuration = tickDuration;
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			wheel.add(new LinkedList<>());
+		}
+	}
+
+	public synchronized void start() {
+		if (null != worker) {
+			return;
+		}
+		startTime = System.currentTimeMillis();
+		tick = 0;
+		worker = new Thread(this::run, "calendar-alarm-wheel");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	public synchronized void stop() {
+		Thread thread = worker;
+		worker = null;
+		if (null != thread) {
+			thread.interrupt();
+		}
+	}
+
+	public int size() {
+		return scheduled.size();
+	}
+
+	/**
+	 * 放入一个日程提醒,提醒时间已过的在下一格发送.
+	 *
+	 * @return 是否放入,已经放入过的返回false
+	 */
+	public boolean schedule(Calendar_Event event) {
+		Date alarmTime = event.getAlarmTime();
+		if (null == alarmTime) {
+			return false;
+		}
+		if (null != scheduled.putIfAbsent(key(event), alarmTime.getTime())) {
+			return false;
+		}
+		pending.add(new Timeout(alarmTime.getTime(), event));
+		return true;
+	}
+
+	private String key(Calendar_Event event) {
+		return event.getId() + "#" + event.getAlarmTime().getTime();
+	}
+
+	private void run() {
+		while (Thread.currentThread() == worker) {
+			long deadline = startTime + (tick + 1) * tickDuration;
+			long sleep = deadline - System.currentTimeMillis();
+			if (sleep > 0) {
+				try {
+					Thread.sleep(sleep);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			try {
+				this.transfer();
+				List<Calendar_Event> list = this.expire(wheel.get((int) (tick % WHEEL_SIZE)), deadline);
+				tick++;
+				if (!list.isEmpty()) {
+					listener.fire(list);
+				}
+				if (tick % 60 == 0) {
+					this.purge();
+				}
+			} catch (Exception e) {
+				logger.error(e);
+			}
+		}
+	}
+
+	/* 将新放入的提醒分配到格子中 */
+	private void transfer() {
+		Timeout timeout;
+		while (null != (timeout = pending.poll())) {
+			long ticks = Math.max(tick, (timeout.deadline - startTime) / tickDuration);
+			timeout.rounds = (ticks - tick) / WHEEL_SIZE;
+			wheel.get((int) (ticks % WHEEL_SIZE)).add(timeout);
+		}
+	}
+
+	private List<Calendar_Event> expire(LinkedList<Timeout> bucket, long deadline) {
+		List<Calendar_Event> list = new ArrayList<>();
+		Iterator<Timeout> iterator = bucket.iterator();
+		while (iterator.hasNext()) {
+			Timeout timeout = iterator.next();
+			if ((timeout.rounds <= 0) && (timeout.deadline <= deadline)) {
+				iterator.remove();
+				list.add(timeout.event);
+			} else {
+				timeout.rounds--;
+			}
+		}
+		return list;
+	}
+
+	/* 清理已经到期很久的标识 */
+	private void purge() {
+		long expired = System.currentTimeMillis() - KEEP;
+		scheduled.entrySet().removeIf(o -> o.getValue() < expired);
+	}
+
+	public interface Listener {
+		void fire(List<Calendar_Event> events) throws Exception;
+	}
+
+	private static class Timeout {
+
+		private long deadline;
+
+		private long rounds;
+
+		private Calendar_Event event;
+
+		private Timeout(long deadline, Calendar_Event event) {
+			this.deadline = deadline;
+			this.event = event;
+		}
+
+	}
+
+}
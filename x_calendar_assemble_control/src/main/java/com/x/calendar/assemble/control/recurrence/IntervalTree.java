@@ -0,0 +1,120 @@
+package com.x.calendar.assemble.control.recurrence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 只读的区间树,按区间开始时间排序后以数组中点为根构成平衡二叉树,每个节点记录子树中最大的结束时间.<br/>
+ * 构建O(nlogn),查询与[from,to]有交集的区间O(logn+k),构建后不再修改,数据变化时整体重建.
+ *
+ * @param <T> 区间携带的对象
+ */
+public class IntervalTree<T> {
+
+	private final long[] starts;
+
+	private final long[] ends;
+
+	private final long[] maxEnds;
+
+	private final List<T> values;
+
+	private IntervalTree(List<Interval<T>> intervals) {
+		intervals.sort(Comparator.comparingLong(o -> o.start));
+		int size = intervals.size();
+		this.starts = new long[size];
+		this.ends = new long[size];
+		this.maxEnds = new long[size];
+		this.values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Interval<T> o = intervals.get(i);
+			starts[i] = o.start;
+			ends[i] = o.end;
+			values.add(o.value);
+		}
+		this.max(0, size);
+	}
+
+	private long max(int low, int high) {
+		if (low >= high) {
+			return Long.MIN_VALUE;
+		}
+		int mid = (low + high) >>> 1;
+		long value = Math.max(ends[mid], Math.max(max(low, mid), max(mid + 1, high)));
+		maxEnds[mid] = value;
+		return value;
+	}
+
+	public int size() {
+		return values.size();
+	}
+
+	/**
+	 * 查询与[from,to]有交集的区间对象,按区间开始时间升序.
+	 */
+	public List<T> query(long from, long to) {
+		List<T> list = new ArrayList<>();
+		this.query(0, values.size(), from, to, list);
+		return list;
+	}
+
+	private void query(int low, int high, long from, long to, List<T> list) {
+		if (low >= high) {
+			return;
+		}
+		int mid = (low + high) >>> 1;
+		/* 子树中所有区间都在查询范围之前结束 */
+		if (maxEnds[mid] < from) {
+			return;
+		}
+		this.query(low, mid, from, to, list);
+		/* 当前节点以及右子树的区间都在查询范围之后开始 */
+		if (starts[mid] > to) {
+			return;
+		}
+		if (ends[mid] >= from) {
+			list.add(values.get(mid));
+		}
+		this.query(mid + 1, high, from, to, list);
+	}
+
+	public static <T> Builder<T> builder() {
+		return new Builder<>();
+	}
+
+	public static class Builder<T> {
+
+		private List<Interval<T>> intervals = new ArrayList<>();
+
+		/**
+		 * 添加一个闭区间[start,end],end小于start时视为一个时间点.
+		 */
+		public Builder<T> add(long start, long end, T value) {
+			intervals.add(new Interval<>(start, Math.max(start, end), value));
+			return this;
+		}
+
+		public IntervalTree<T> build() {
+			return new IntervalTree<>(intervals);
+		}
+
+	}
+
+	private static class Interval<T> {
+
+		private long start;
+
+		private long end;
+
+		private T value;
+
+		private Interval(long start, long end, T value) {
+			this.start = start;
+			this.end = end;
+			this.value = value;
+		}
+
+	}
+
+}
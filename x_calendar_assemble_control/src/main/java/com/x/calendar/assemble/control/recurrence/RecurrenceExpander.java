@@ -0,0 +1,237 @@
+package com.x.calendar.assemble.control.recurrence;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.entity.JpaObject;
+import com.x.base.core.project.tools.ListTools;
+import com.x.calendar.core.entity.Calendar_Event;
+import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
+
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.parameter.Value;
+
+/**
+ * 重复日程主体的展开工具.<br/>
+ * 重复日程不再预先按月生成日程事件记录,查询时按重复规则在查询范围内展开为不持久化的日程事件.<br/>
+ * 展开的日程事件ID由重复主体ID和日期组成(repeatMasterId_yyyyMMdd),需要单独修改或者删除时按此ID生成记录.
+ */
+public class RecurrenceExpander {
+
+	private static final Pattern PATTERN_OCCURRENCE = Pattern.compile("^(.+)_(\\d{8})$");
+
+	private static final String FORMAT_DAY = "yyyyMMdd";
+
+	private static final String FORMAT_MONTH = "yyyy-MM";
+
+	private static final String FORMAT_TIME = "yyyy-MM-dd HH:mm:ss";
+
+	private RecurrenceExpander() {
+	}
+
+	public static String occurrenceId(String repeatMasterId, Date startTime) {
+		return repeatMasterId + "_" + new SimpleDateFormat(FORMAT_DAY).format(startTime);
+	}
+
+	public static boolean isOccurrenceId(String id) {
+		return StringUtils.isNotEmpty(id) && PATTERN_OCCURRENCE.matcher(id).matches();
+	}
+
+	public static String repeatMasterId(String occurrenceId) {
+		Matcher matcher = PATTERN_OCCURRENCE.matcher(occurrenceId);
+		return matcher.matches() ? matcher.group(1) : null;
+	}
+
+	public static Date day(String occurrenceId) throws Exception {
+		Matcher matcher = PATTERN_OCCURRENCE.matcher(occurrenceId);
+		return matcher.matches() ? new SimpleDateFormat(FORMAT_DAY).parse(matcher.group(2)) : null;
+	}
+
+	public static String month(Date date) {
+		return new SimpleDateFormat(FORMAT_MONTH).format(date);
+	}
+
+	/**
+	 * 以开始时间为基准计算提醒时间,配置格式为"天,时,分,秒",配置不正确时返回null.
+	 */
+	public static Date alarmTime(Date startTime, String config) {
+		if ((null == startTime) || StringUtils.isEmpty(config)) {
+			return null;
+		}
+		String[] values = config.trim().split(",");
+		if (values.length != 4) {
+			return null;
+		}
+		try {
+			Calendar cal = Calendar.getInstance();
+			cal.setTime(startTime);
+			cal.add(Calendar.DATE, Integer.parseInt(values[0].trim()));
+			cal.add(Calendar.HOUR, Integer.parseInt(values[1].trim()));
+			cal.add(Calendar.MINUTE, Integer.parseInt(values[2].trim()));
+			cal.add(Calendar.SECOND, Integer.parseInt(values[3].trim()));
+			return cal.getTime();
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 提醒时间相对于开始时间的偏移量(毫秒),配置不正确时返回null.
+	 */
+	public static Long alarmOffset(Calendar_EventRepeatMaster master) {
+		Date alarmTime = alarmTime(master.getStartTime(), master.getValarmTime_config());
+		return (null == alarmTime) ? null : alarmTime.getTime() - master.getStartTime().getTime();
+	}
+
+	/**
+	 * 重复主体展开的模板,每个重复主体只复制一次属性,展开时逐个字段赋值.
+	 */
+	public static Calendar_Event template(Calendar_EventRepeatMaster master) throws Exception {
+		Calendar_Event template = new Calendar_Event();
+		master.copyTo(template, JpaObject.FieldsUnmodify);
+		template.setRepeatMasterId(master.getId());
+		template.setCreatePerson(master.getCreatePerson());
+		template.setParticipants(ListTools.isEmpty(master.getParticipants()) ? new ArrayList<>()
+				: new ArrayList<>(master.getParticipants()));
+		if (StringUtils.isNotEmpty(master.getCreatePerson())) {
+			template.addParticipants(master.getCreatePerson());
+		}
+		template.setIsAllDayEvent(master.getIsAllDayEvent());
+		template.setDaysOfDuration(master.getDaysOfDuration());
+		template.setCreateTime(master.getCreateTime());
+		template.setUpdateTime(master.getUpdateTime());
+		return template;
+	}
+
+	/**
+	 * 展开重复主体在[start,end]范围内(与范围有交集)的日程事件.<br/>
+	 * 已经按月生成过记录的月份(createdMonthList)以及排除日期(recurrenceExc)不展开,已经有记录的开始时间通过excludes排除.
+	 *
+	 * @param excludes 已经存在记录的日程事件开始时间(yyyy-MM-dd HH:mm:ss),可以为null
+	 */
+	public static List<Calendar_Event> expand(Calendar_EventRepeatMaster master, Calendar_Event template, Date start,
+			Date end, Set<String> excludes) throws Exception {
+		List<Calendar_Event> list = new ArrayList<>();
+		if (StringUtils.isEmpty(master.getRecurrenceRule()) || (null == master.getStartTime())
+				|| (null == master.getEndTime())) {
+			return list;
+		}
+		long duration = Math.max(0, master.getEndTime().getTime() - master.getStartTime().getTime());
+		/* 开始时间在查询范围之前但持续到查询范围内的日程也需要展开 */
+		Date from = new Date(start.getTime() - duration);
+		/* 按日期计算时结束日期当天不包括在内,多取一天后再按具体时间过滤 */
+		Date to = new Date(end.getTime() + 1000L * 60 * 60 * 24);
+		Recur recur = new Recur(master.getRecurrenceRule());
+		DateList dates = recur.getDates(new net.fortuna.ical4j.model.Date(master.getStartTime()),
+				new net.fortuna.ical4j.model.Date(from), new net.fortuna.ical4j.model.Date(to), Value.DATE);
+		if (dates.isEmpty()) {
+			return list;
+		}
+		Set<String> excludeDays = excludeDays(master.getRecurrenceExc());
+		Date recurrenceEnd = master.getIsAllDayEvent() ? master.getRecurrenceEndDate() : null;
+		SimpleDateFormat dayFormat = new SimpleDateFormat(FORMAT_DAY);
+		SimpleDateFormat monthFormat = new SimpleDateFormat(FORMAT_MONTH);
+		SimpleDateFormat timeFormat = new SimpleDateFormat(FORMAT_TIME);
+		Calendar seed = Calendar.getInstance();
+		seed.setTime(master.getStartTime());
+		Long alarmOffset = master.getAlarm() ? alarmOffset(master) : null;
+		for (Object obj : dates) {
+			Calendar day = Calendar.getInstance();
+			day.clear();
+			day.setTimeInMillis(((Date) obj).getTime());
+			/* 与Calendar_EventRepeatMaster.getRecurringDatesInPeriod一致,规避全天事件的ical4j问题 */
+			if ((null != recurrenceEnd) && day.getTime().after(recurrenceEnd)) {
+				continue;
+			}
+			Calendar begin = Calendar.getInstance();
+			begin.clear();
+			begin.set(day.get(Calendar.YEAR), day.get(Calendar.MONTH), day.get(Calendar.DAY_OF_MONTH),
+					seed.get(Calendar.HOUR_OF_DAY), seed.get(Calendar.MINUTE), seed.get(Calendar.SECOND));
+			Date startTime = begin.getTime();
+			Date endTime = new Date(startTime.getTime() + duration);
+			if (startTime.after(end) || endTime.before(start)) {
+				continue;
+			}
+			if (excludeDays.contains(dayFormat.format(startTime))
+					|| ListTools.contains(master.getCreatedMonthList(), monthFormat.format(startTime))) {
+				continue;
+			}
+			String startTimeStr = timeFormat.format(startTime);
+			if ((null != excludes) && excludes.contains(startTimeStr)) {
+				continue;
+			}
+			Calendar_Event o = occurrence(template, startTime, endTime);
+			o.setId(master.getId() + "_" + dayFormat.format(startTime));
+			o.setStartTimeStr(startTimeStr);
+			o.setEndTimeStr(timeFormat.format(endTime));
+			if (null != alarmOffset) {
+				o.setAlarmTime(new Date(startTime.getTime() + alarmOffset));
+			} else {
+				o.setAlarm(false);
+			}
+			list.add(o);
+		}
+		return list;
+	}
+
+	private static Set<String> excludeDays(String recurrenceExc) {
+		Set<String> set = new HashSet<>();
+		if (StringUtils.isNotEmpty(recurrenceExc)) {
+			for (String str : StringUtils.split(recurrenceExc, ",")) {
+				str = StringUtils.trim(str);
+				if ((str.length() >= 8) && StringUtils.isNumeric(str.substring(0, 8))) {
+					set.add(str.substring(0, 8));
+				}
+			}
+		}
+		return set;
+	}
+
+	private static Calendar_Event occurrence(Calendar_Event template, Date startTime, Date endTime) {
+		Calendar_Event o = new Calendar_Event(null, template.getTitle(), startTime, endTime);
+		o.setCalendarId(template.getCalendarId());
+		o.setRepeatMasterId(template.getRepeatMasterId());
+		o.setEventType(template.getEventType());
+		o.setColor(template.getColor());
+		o.setComment(template.getComment());
+		o.setCommentId(template.getCommentId());
+		o.setLocationName(template.getLocationName());
+		o.setLongitude(template.getLongitude());
+		o.setLatitude(template.getLatitude());
+		o.setRecurrenceRule(template.getRecurrenceRule());
+		o.setRecurrenceExc(template.getRecurrenceExc());
+		o.setAlarm(template.getAlarm());
+		o.setAlarmAlready(false);
+		o.setValarmTime_config(template.getValarmTime_config());
+		o.setValarm_mailto(template.getValarm_mailto());
+		o.setValarm_Summary(template.getValarm_Summary());
+		o.setValarm_description(template.getValarm_description());
+		o.setIsAllDayEvent(template.getIsAllDayEvent());
+		o.setDaysOfDuration(template.getDaysOfDuration());
+		o.setIsPublic(template.getIsPublic());
+		o.setSource(template.getSource());
+		o.setBundle(template.getBundle());
+		o.setCreatePerson(template.getCreatePerson());
+		o.setUpdatePerson(template.getUpdatePerson());
+		o.setTargetType(template.getTargetType());
+		o.setParticipants(template.getParticipants());
+		o.setManageablePersonList(template.getManageablePersonList());
+		o.setViewablePersonList(template.getViewablePersonList());
+		o.setViewableUnitList(template.getViewableUnitList());
+		o.setViewableGroupList(template.getViewableGroupList());
+		o.setCreateTime(template.getCreateTime());
+		o.setUpdateTime(template.getUpdateTime());
+		return o;
+	}
+
+}
@@ -0,0 +1,347 @@
+package com.x.calendar.assemble.control.recurrence;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import javax.persistence.Tuple;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.project.tools.ListTools;
+import com.x.calendar.assemble.control.Business;
+import com.x.calendar.core.entity.Calendar_Event;
+import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
+
+import net.fortuna.ical4j.model.Recur;
+
+/**
+ * 重复日程主体的内存索引.<br/>
+ * 每个日历的重复主体按生效区间(第一次开始时间到重复截止时间)构建一棵区间树,查询时只展开与查询范围有交集的重复主体.<br/>
+ * 所有设置了提醒的重复主体按提醒生效区间构建一棵区间树,供提醒时间轮按时间窗口取出即将到期的提醒.<br/>
+ * 重复主体或者日程事件修改后调用invalidate,另外索引最多保留TTL,多个节点时其他节点的修改在TTL后生效.
+ */
+public class RecurrenceIndex {
+
+	private static final long TTL = 1000L * 60;
+
+	private static final int MAX_CALENDAR_SIZE = 10000;
+
+	/* 没有截止时间的重复主体的区间结束时间,留出余量避免计算提醒偏移时溢出 */
+	private static final long FOREVER = Long.MAX_VALUE / 2;
+
+	private static final Map<String, Node> CALENDARS = new ConcurrentHashMap<>();
+
+	private static final AtomicLong EPOCH = new AtomicLong();
+
+	private static volatile Node alarmNode;
+
+	private RecurrenceIndex() {
+	}
+
+	/**
+	 * 日历或者重复主体发生变化,calendarId为空时清空所有索引.
+	 */
+	public static void invalidate(String calendarId) {
+		EPOCH.incrementAndGet();
+		if (StringUtils.isEmpty(calendarId)) {
+			CALENDARS.clear();
+		} else {
+			CALENDARS.remove(calendarId);
+		}
+		alarmNode = null;
+	}
+
+	/**
+	 * 按条件展开指定日历中重复主体在查询范围内的日程事件,条件与Calendar_EventFactory.listWithCondition一致.<br/>
+	 * 已经生成记录的日程事件不在返回结果中,由数据库查询返回.
+	 *
+	 * @param calendarIds 为空时查询所有日历
+	 */
+	public static List<Calendar_Event> list(Business business, String key, String eventType, String source,
+			String createPerson, List<String> calendarIds, String personName, List<String> unitNames,
+			List<String> groupNames, Date startTime, Date endTime) throws Exception {
+		List<Calendar_Event> list = new ArrayList<>();
+		if (ListTools.isEmpty(calendarIds)) {
+			calendarIds = business.calendar_EventRepeatMasterFactory().listCalendarIds();
+		}
+		Pattern pattern = like(key);
+		for (Node node : nodes(business, calendarIds)) {
+			for (Entry entry : node.tree.query(startTime.getTime(), endTime.getTime())) {
+				Calendar_EventRepeatMaster master = entry.master;
+				if ((StringUtils.isNotEmpty(eventType) && (!StringUtils.equals(eventType, master.getEventType())))
+						|| (StringUtils.isNotEmpty(source) && (!StringUtils.equals(source, master.getSource())))
+						|| (StringUtils.isNotEmpty(createPerson)
+								&& (!StringUtils.equals(createPerson, master.getCreatePerson())))) {
+					continue;
+				}
+				if ((null != pattern) && (!matches(pattern, master.getTitle()))
+						&& (!matches(pattern, master.getComment()))) {
+					continue;
+				}
+				if (!permission(master, personName, unitNames, groupNames)) {
+					continue;
+				}
+				list.addAll(RecurrenceExpander.expand(master, entry.template, startTime, endTime, entry.excludes));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * 展开提醒时间在[from,to)范围内的重复日程事件.
+	 */
+	public static List<Calendar_Event> listAlarm(Business business, Date from, Date to) throws Exception {
+		List<Calendar_Event> list = new ArrayList<>();
+		Node node = alarmNode(business);
+		for (Entry entry : node.tree.query(from.getTime(), to.getTime())) {
+			Date start = new Date(from.getTime() - entry.alarmOffset);
+			Date end = new Date(to.getTime() - entry.alarmOffset);
+			for (Calendar_Event o : RecurrenceExpander.expand(entry.master, entry.template, start, end,
+					entry.excludes)) {
+				if ((null != o.getAlarmTime()) && (o.getAlarmTime().getTime() >= from.getTime())
+						&& (o.getAlarmTime().getTime() < to.getTime())) {
+					list.add(o);
+				}
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * 按展开的日程事件ID查找当前仍然有效的重复日程提醒,重复主体已经修改或者取消提醒时返回null.
+	 */
+	public static Calendar_Event alarm(Business business, String occurrenceId) throws Exception {
+		String repeatMasterId = RecurrenceExpander.repeatMasterId(occurrenceId);
+		if (null == repeatMasterId) {
+			return null;
+		}
+		Entry entry = alarmNode(business).entries.get(repeatMasterId);
+		if (null == entry) {
+			return null;
+		}
+		return occurrence(entry.master, entry.template, entry.excludes, occurrenceId);
+	}
+
+	/**
+	 * 按展开的日程事件ID构建日程事件,不生成记录,用于查看查询时展开的重复日程.<br/>
+	 * 重复主体不存在或者该日期不再展开(已经生成记录或者排除)时返回null.
+	 */
+	public static Calendar_Event occurrence(Business business, String occurrenceId) throws Exception {
+		String repeatMasterId = RecurrenceExpander.repeatMasterId(occurrenceId);
+		if (null == repeatMasterId) {
+			return null;
+		}
+		Calendar_EventRepeatMaster master = business.calendar_EventRepeatMasterFactory().get(repeatMasterId);
+		if (null == master) {
+			return null;
+		}
+		List<List<Calendar_EventRepeatMaster>> group = new ArrayList<>();
+		group.add(ListTools.toList(master));
+		return occurrence(master, RecurrenceExpander.template(master), excludes(business, group).get(master.getId()),
+				occurrenceId);
+	}
+
+	private static Calendar_Event occurrence(Calendar_EventRepeatMaster master, Calendar_Event template,
+			Set<String> excludes, String occurrenceId) throws Exception {
+		Date day = RecurrenceExpander.day(occurrenceId);
+		if (null == day) {
+			return null;
+		}
+		/* 持续多天的日程按开始日期确定ID,范围覆盖当天即可 */
+		Date end = new Date(day.getTime() + 1000L * 60 * 60 * 24 - 1);
+		for (Calendar_Event o : RecurrenceExpander.expand(master, template, day, end, excludes)) {
+			if (StringUtils.equals(o.getId(), occurrenceId)) {
+				return o;
+			}
+		}
+		return null;
+	}
+
+	private static List<Node> nodes(Business business, List<String> calendarIds) throws Exception {
+		long now = System.currentTimeMillis();
+		List<Node> nodes = new ArrayList<>();
+		List<String> missing = new ArrayList<>();
+		for (String calendarId : calendarIds) {
+			Node node = CALENDARS.get(calendarId);
+			if ((null != node) && ((now - node.loaded) < TTL)) {
+				nodes.add(node);
+			} else if (!missing.contains(calendarId)) {
+				missing.add(calendarId);
+			}
+		}
+		if (!missing.isEmpty()) {
+			long epoch = EPOCH.get();
+			Map<String, List<Calendar_EventRepeatMaster>> group = new HashMap<>();
+			for (Calendar_EventRepeatMaster o : business.calendar_EventRepeatMasterFactory()
+					.listWithCalendarIds(missing)) {
+				group.computeIfAbsent(o.getCalendarId(), k -> new ArrayList<>()).add(o);
+			}
+			Map<String, Set<String>> excludes = excludes(business, group.values());
+			if (CALENDARS.size() > MAX_CALENDAR_SIZE) {
+				CALENDARS.values().removeIf(o -> (now - o.loaded) >= TTL);
+			}
+			for (String calendarId : missing) {
+				Node node = build(group.get(calendarId), excludes, false, now);
+				nodes.add(node);
+				/* 加载期间有修改的不放入缓存,下次查询重新加载 */
+				if (EPOCH.get() == epoch) {
+					CALENDARS.put(calendarId, node);
+				}
+			}
+		}
+		return nodes;
+	}
+
+	private static Node alarmNode(Business business) throws Exception {
+		long now = System.currentTimeMillis();
+		Node node = alarmNode;
+		if ((null == node) || ((now - node.loaded) >= TTL)) {
+			long epoch = EPOCH.get();
+			List<Calendar_EventRepeatMaster> masters = business.calendar_EventRepeatMasterFactory().listWithAlarm();
+			List<List<Calendar_EventRepeatMaster>> group = new ArrayList<>();
+			group.add(masters);
+			node = build(masters, excludes(business, group), true, now);
+			if (EPOCH.get() == epoch) {
+				alarmNode = node;
+			}
+		}
+		return node;
+	}
+
+	/* 重复主体已经存在记录的日程事件开始时间,展开时排除 */
+	private static Map<String, Set<String>> excludes(Business business,
+			Iterable<List<Calendar_EventRepeatMaster>> group) throws Exception {
+		List<String> ids = new ArrayList<>();
+		for (List<Calendar_EventRepeatMaster> list : group) {
+			for (Calendar_EventRepeatMaster o : list) {
+				ids.add(o.getId());
+			}
+		}
+		Map<String, Set<String>> map = new HashMap<>();
+		for (Tuple o : business.calendar_EventFactory().listStartTimeStrWithRepeatMasters(ids)) {
+			map.computeIfAbsent(o.get(0, String.class), k -> new HashSet<>()).add(o.get(1, String.class));
+		}
+		return map;
+	}
+
+	private static Node build(List<Calendar_EventRepeatMaster> masters, Map<String, Set<String>> excludes,
+			boolean alarm, long loaded) throws Exception {
+		IntervalTree.Builder<Entry> builder = IntervalTree.builder();
+		Map<String, Entry> entries = new HashMap<>();
+		if (null != masters) {
+			for (Calendar_EventRepeatMaster master : masters) {
+				if (StringUtils.isEmpty(master.getRecurrenceRule()) || (null == master.getStartTime())
+						|| (null == master.getEndTime())) {
+					continue;
+				}
+				Entry entry = new Entry();
+				entry.master = master;
+				entry.template = RecurrenceExpander.template(master);
+				entry.excludes = excludes.get(master.getId());
+				long start = master.getStartTime().getTime();
+				long end = until(master);
+				if (alarm) {
+					Long offset = RecurrenceExpander.alarmOffset(master);
+					if (null == offset) {
+						continue;
+					}
+					entry.alarmOffset = offset;
+					builder.add(start + offset, end + offset, entry);
+				} else {
+					builder.add(start, end, entry);
+				}
+				entries.put(master.getId(), entry);
+			}
+		}
+		Node node = new Node();
+		node.tree = builder.build();
+		node.entries = entries;
+		node.loaded = loaded;
+		return node;
+	}
+
+	/* 重复截止时间加上单次持续时间,没有截止时间(包括按次数重复)的视为一直有效 */
+	private static long until(Calendar_EventRepeatMaster master) {
+		try {
+			Date until = new Recur(master.getRecurrenceRule()).getUntil();
+			if (null != until) {
+				return until.getTime() + Math.max(0, master.getEndTime().getTime() - master.getStartTime().getTime())
+						+ 1000L * 60 * 60 * 24;
+			}
+		} catch (Exception e) {
+			return FOREVER;
+		}
+		return FOREVER;
+	}
+
+	private static boolean permission(Calendar_EventRepeatMaster master, String personName, List<String> unitNames,
+			List<String> groupNames) throws Exception {
+		if (StringUtils.isEmpty(personName) && ListTools.isEmpty(unitNames) && ListTools.isEmpty(groupNames)) {
+			return true;
+		}
+		return (null != master.getIsPublic() && master.getIsPublic())
+				|| (StringUtils.isNotEmpty(personName) && (ListTools.contains(master.getManageablePersonList(), personName)
+						|| ListTools.contains(master.getViewablePersonList(), personName)))
+				|| ListTools.containsAny(master.getViewableUnitList(), unitNames)
+				|| ListTools.containsAny(master.getViewableGroupList(), groupNames);
+	}
+
+	/* 将like表达式转换为正则表达式,与数据库查询的模糊匹配一致 */
+	private static Pattern like(String key) {
+		if (StringUtils.isEmpty(key)) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (char c : key.toCharArray()) {
+			if ((c == '%') || (c == '_')) {
+				if (literal.length() > 0) {
+					sb.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				sb.append((c == '%') ? ".*" : ".");
+			} else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0) {
+			sb.append(Pattern.quote(literal.toString()));
+		}
+		return Pattern.compile(sb.toString(), Pattern.DOTALL);
+	}
+
+	private static boolean matches(Pattern pattern, String value) {
+		return (null != value) && pattern.matcher(value).matches();
+	}
+
+	private static class Node {
+
+		private IntervalTree<Entry> tree;
+
+		private Map<String, Entry> entries;
+
+		private long loaded;
+
+	}
+
+	private static class Entry {
+
+		private Calendar_EventRepeatMaster master;
+
+		private Calendar_Event template;
+
+		private Set<String> excludes;
+
+		private long alarmOffset;
+
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.x.calendar.assemble.control.schedule;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 
@@ -13,12 +15,19 @@ import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.schedule.AbstractJob;
 import com.x.base.core.project.tools.ListTools;
 import com.x.calendar.assemble.control.Business;
+import com.x.calendar.assemble.control.ThisApplication;
 import com.x.calendar.assemble.control.factory.MessageFactory;
+import com.x.calendar.assemble.control.recurrence.RecurrenceExpander;
+import com.x.calendar.assemble.control.recurrence.RecurrenceIndex;
 import com.x.calendar.assemble.control.service.Calendar_EventServiceAdv;
 import com.x.calendar.core.entity.Calendar_Event;
+import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
 
 /**
- * 查询需要提醒的日程或者事件，并且按要求发送提醒消息
+ * 查询即将需要提醒的日程或者事件，放入提醒时间轮，到期后按要求发送提醒消息
+ * 1、已经生成记录的日程事件：一次查询出提醒时间在窗口内并且未提醒的日程事件
+ * 2、重复日程：从重复主体索引中展开提醒时间在窗口内的日程事件
+ * 3、时间轮到期后批量校验日程事件是否仍然需要提醒，在数据库中认领后再发送消息，多个节点不会重复发送
  * 
  * @author O2LEE
  *
@@ -26,14 +35,20 @@ import com.x.calendar.core.entity.Calendar_Event;
 public class AlarmTrigger extends AbstractJob {
 
 	private static Logger logger = LoggerFactory.getLogger(AlarmTrigger.class);
+
+	/* 每次向后计划的时间窗口，比定时任务的间隔长，保证两次任务之间的提醒都已经放入时间轮 */
+	private static final long WINDOW = 1000L * 60;
+
+	/* 重复日程已经计划到的时间 */
+	private static volatile Date plannedUntil = null;
+
 	protected Calendar_EventServiceAdv calendar_EventServiceAdv = new Calendar_EventServiceAdv();
 
 	@Override
 	public void schedule(JobExecutionContext jobExecutionContext) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			Business business = new Business(emc);
-			alarm(business);
-			logger.info("The trigger for calendar alarm execute completed." + new Date());
+			plan(business);
 		} catch (Exception e) {
 			logger.error(e);
 			throw new JobExecutionException(e);
@@ -41,36 +56,115 @@ public class AlarmTrigger extends AbstractJob {
 	}
 
 	/**
-	 * 执行日程事件提醒 1、查询需要提醒的日程事件ID列表 2、发送消息
+	 * 将时间窗口内需要提醒的日程事件放入时间轮
 	 * 
 	 * @param business
-	 * @return
 	 * @throws Exception
 	 */
-	private boolean alarm(Business business) throws Exception {
-		// 1、查询需要提醒的日程事件ID列表 当前时间已经到达或者超过提醒时间，并且提醒标识为未提醒（false）
-		List<String> ids = null;
-		Calendar_Event calendar_Event = null;
-		try {
-			ids = calendar_EventServiceAdv.listNeedAlarmEventIds(new Date());
-		} catch (Exception e) {
-			e.printStackTrace();
+	private void plan(Business business) throws Exception {
+		Date now = new Date();
+		Date until = new Date(now.getTime() + WINDOW);
+		int count = 0;
+		// 1、当前时间窗口内到达提醒时间，并且提醒标识为未提醒（false）的日程事件
+		List<Calendar_Event> list = calendar_EventServiceAdv.listNeedAlarm(until);
+		if (ListTools.isNotEmpty(list)) {
+			for (Calendar_Event o : list) {
+				if (ThisApplication.alarmWheel.schedule(o)) {
+					count++;
+				}
+			}
+		}
+		// 2、重复日程展开的日程事件，从上次计划到的时间开始，服务启动时只补发最近一个窗口内的提醒
+		Date from = plannedUntil;
+		if ((null == from) || from.before(new Date(now.getTime() - WINDOW))) {
+			from = new Date(now.getTime() - WINDOW);
+		}
+		if (from.before(until)) {
+			for (Calendar_Event o : RecurrenceIndex.listAlarm(business, from, until)) {
+				if (ThisApplication.alarmWheel.schedule(o)) {
+					count++;
+				}
+			}
+			plannedUntil = until;
 		}
-		if (ListTools.isNotEmpty(ids)) {
-			try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-				for (String id : ids) {
-					calendar_Event = calendar_EventServiceAdv.get(id);
-					if (calendar_Event != null) {
-						MessageFactory.send_alarm(emc, calendar_Event);
-						logger.info("send message:{}.", calendar_Event.getTitle());
+		if (count > 0) {
+			logger.info("The trigger planned " + count + " calendar alarms.");
+		}
+	}
+
+	/**
+	 * 时间轮到期的日程事件，发送前重新校验，日程修改、删除或者已经提醒过的不再发送
+	 * 多个节点的时间轮可能放入了同一个提醒，发送前在数据库中认领，只有认领成功的节点发送：
+	 * 已经生成记录的日程事件按提醒标识认领，重复日程展开的日程事件按重复主体已经发送的最后提醒时间认领
+	 * 
+	 * @param events
+	 * @throws Exception
+	 */
+	public static void fire(List<Calendar_Event> events) throws Exception {
+		List<String> ids = new ArrayList<>();
+		List<Calendar_Event> occurrences = new ArrayList<>();
+		for (Calendar_Event o : events) {
+			if (RecurrenceExpander.isOccurrenceId(o.getId())) {
+				occurrences.add(o);
+			} else {
+				ids.add(o.getId());
+			}
+		}
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			List<Calendar_Event> records = new ArrayList<>();
+			List<Calendar_Event> expanded = new ArrayList<>();
+			if (!ids.isEmpty()) {
+				for (Calendar_Event o : business.calendar_EventFactory().list(ids)) {
+					if (o.getAlarm() && (!o.getAlarmAlready()) && (null != o.getAlarmTime())
+							&& (o.getAlarmTime().getTime() <= System.currentTimeMillis())) {
+						records.add(o);
 					}
 				}
-			} catch (Exception e) {
-				throw e;
 			}
-			logger.info("The trigger sent " + ids.size() + " calendar alarms.");
+			for (Calendar_Event o : occurrences) {
+				/* 重复日程展开的日程事件可能已经按月生成了记录，此时按记录处理 */
+				Calendar_Event event = emc.find(o.getId(), Calendar_Event.class);
+				if (null != event) {
+					if (event.getAlarm() && (!event.getAlarmAlready()) && (null != event.getAlarmTime())
+							&& (event.getAlarmTime().getTime() <= System.currentTimeMillis())) {
+						records.add(event);
+					}
+				} else {
+					event = RecurrenceIndex.alarm(business, o.getId());
+					if ((null != event) && (null != event.getAlarmTime())
+							&& (event.getAlarmTime().getTime() == o.getAlarmTime().getTime())) {
+						expanded.add(event);
+					}
+				}
+			}
+			/* 同一重复主体按提醒时间先后认领，较早的提醒不会因为较晚的提醒先认领而丢失 */
+			expanded.sort(Comparator.comparing(Calendar_Event::getAlarmTime));
+			List<Calendar_Event> list = new ArrayList<>();
+			for (Calendar_Event o : records) {
+				emc.beginTransaction(Calendar_Event.class);
+				boolean claimed = business.calendar_EventFactory().claimAlarm(o.getId());
+				emc.commit();
+				if (claimed) {
+					list.add(o);
+				}
+			}
+			for (Calendar_Event o : expanded) {
+				emc.beginTransaction(Calendar_EventRepeatMaster.class);
+				boolean claimed = business.calendar_EventRepeatMasterFactory().claimAlarm(o.getRepeatMasterId(),
+						o.getAlarmTime());
+				emc.commit();
+				if (claimed) {
+					list.add(o);
+				}
+			}
+			for (Calendar_Event o : list) {
+				MessageFactory.send_alarm(emc, o);
+			}
+			if (!list.isEmpty()) {
+				logger.info("The trigger sent " + list.size() + " calendar alarms.");
+			}
 		}
-		return false;
 	}
 
 }
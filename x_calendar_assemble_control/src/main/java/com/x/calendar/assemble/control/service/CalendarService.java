@@ -10,6 +10,7 @@ import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.tools.ListTools;
 import com.x.calendar.assemble.control.Business;
+import com.x.calendar.assemble.control.recurrence.RecurrenceIndex;
 import com.x.calendar.core.entity.Calendar;
 import com.x.calendar.core.entity.Calendar_Event;
 import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
@@ -79,6 +80,7 @@ public class CalendarService {
 			//删除日历信息
 			emc.remove( calendar, CheckRemoveType.all );
 			emc.commit();
+			RecurrenceIndex.invalidate( id );
 		}
 	}
 
@@ -1,6 +1,5 @@
 package com.x.calendar.assemble.control.service;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -12,10 +11,13 @@ import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.tools.ListTools;
 import com.x.calendar.assemble.control.Business;
-import com.x.calendar.common.date.DateOperation;
+import com.x.calendar.assemble.control.recurrence.RecurrenceExpander;
+import com.x.calendar.assemble.control.recurrence.RecurrenceIndex;
 import com.x.calendar.core.entity.Calendar_Event;
 import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
 
+import net.fortuna.ical4j.model.Recur;
+
 
 /**
  * 日历重复信息主体记录信息服务类
@@ -157,6 +159,7 @@ public class Calendar_EventRepeatMasterService {
 
 	/**
 	 * 检查该repeatMaster下所有的记录是不是全都是已经删除了，如果没有有效的记录的话，就全部删除掉
+	 * 重复日程不再按月预先生成记录，没有记录时还需要判断重复规则是否还会展开出日程事件，没有截止时间的重复主体一直保留
 	 * @param emc
 	 * @param repeatMasterId
 	 * @throws Exception 
@@ -165,66 +168,22 @@ public class Calendar_EventRepeatMasterService {
 		Business business =  new Business( emc );
 		long count = business.calendar_EventFactory().countWithRepeatMaster( repeatMasterId );
 		if( count == 0 ) {
-			//删除repeatMaster
 			Calendar_EventRepeatMaster calendar_EventRepeatMaster = emc.find( repeatMasterId, Calendar_EventRepeatMaster.class );
+			if( calendar_EventRepeatMaster == null ) {
+				return;
+			}
+			if( StringUtils.isNotEmpty( calendar_EventRepeatMaster.getRecurrenceRule() )) {
+				Date until = new Recur( calendar_EventRepeatMaster.getRecurrenceRule() ).getUntil();
+				if( until == null || ListTools.isNotEmpty( RecurrenceExpander.expand( calendar_EventRepeatMaster, 
+						RecurrenceExpander.template( calendar_EventRepeatMaster ), calendar_EventRepeatMaster.getStartTime(), until, null ) )) {
+					return;
+				}
+			}
+			//删除repeatMaster
 			emc.beginTransaction( Calendar_EventRepeatMaster.class );
 			emc.remove( calendar_EventRepeatMaster, CheckRemoveType.all );
 			emc.commit(); 
+			RecurrenceIndex.invalidate( calendar_EventRepeatMaster.getCalendarId() );
 		}
 	}
-
-	/**
-	 * 根据条件和时间范围查询需要进行事件生成的重复主体ID列表,  时间根据已经生成过的日期来判断
-	 * @param emc
-	 * @param calendarIds
-	 * @param eventType
-	 * @param startTime
-	 * @param endTime
-	 * @param personName
-	 * @param unitNames
-	 * @param groupNames
-	 * @return
-	 * @throws Exception 
-	 */
-	public List<String> listNeedRepeatMaster( EntityManagerContainer emc, List<String> calendarIds, String eventType,
-			Date startTime, Date endTime, String personName, List<String> unitNames, List<String> groupNames) throws Exception {
-		Business business =  new Business( emc );
-		List<String> result = new ArrayList<>();
-		List<String> ids = null;
-		//两个时间之间的月份查出来，看看这些月份是否需要生成日历事件
-		List<String> needCreateMonths = new DateOperation().listMonthsBetweenDate(startTime, endTime);
-		if( ListTools.isNotEmpty( needCreateMonths ) ) {
-			for(String createMonth : needCreateMonths) {
-				ids = business.calendar_EventRepeatMasterFactory().listNeedRepeatMaster( calendarIds, eventType,
-						createMonth, personName, unitNames,  groupNames);
-				if( ListTools.isNotEmpty( ids )) {
-					for( String id : ids ) {
-						if( !result.contains( id )) {
-							result.add( id );
-						}
-					}
-				}
-			}
-		}		
-		return result;
-	}
-
-	/**
-	 * 根据条件和时间范围查询需要进行事件生成的重复主体ID列表,  时间根据已经生成过的日期来判断
-	 * @param emc
-	 * @param calendarIds
-	 * @param eventType
-	 * @param createMonth
-	 * @param personName
-	 * @param unitNames
-	 * @param groupNames
-	 * @return
-	 * @throws Exception
-	 */
-	public List<String> listNeedRepeatMaster( EntityManagerContainer emc, List<String> calendarIds, String eventType,
-			String createMonth, String personName, List<String> unitNames, List<String> groupNames) throws Exception {
-		Business business =  new Business( emc );		
-		return business.calendar_EventRepeatMasterFactory().listNeedRepeatMaster( calendarIds, eventType,
-				createMonth, personName, unitNames,  groupNames);
-	}
 }
@@ -6,6 +6,7 @@ import java.util.List;
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.calendar.assemble.control.Business;
+import com.x.calendar.assemble.control.recurrence.RecurrenceIndex;
 import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
 
 
@@ -52,6 +53,7 @@ public class Calendar_EventRepeatMasterServiceAdv{
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			business = new Business(emc);
 			calendar_record_old = business.calendar_EventRepeatMasterFactory().get( calendar_record.getId() );
+			RecurrenceIndex.invalidate( null );
 			if( calendar_record_old != null ){
 				calendar_record.setId( calendar_record_old.getId() );
 				return calendar_EventRepeatMasterService.update( emc, calendar_record, true );	
@@ -117,6 +119,7 @@ public class Calendar_EventRepeatMasterServiceAdv{
 	public void destoryWithMasterId(String id) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			 calendar_EventRepeatMasterService.destoryWithMasterId(emc, id, null );
+			 RecurrenceIndex.invalidate( null );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -14,6 +14,7 @@ import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.tools.ListTools;
 import com.x.calendar.assemble.control.Business;
+import com.x.calendar.assemble.control.recurrence.RecurrenceExpander;
 import com.x.calendar.common.date.DateOperation;
 import com.x.calendar.core.entity.Calendar_Event;
 import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
@@ -185,6 +186,7 @@ public class Calendar_EventService {
 	 */
 	public List<String> createCalendarWithMaster( EntityManagerContainer emc, List<String> repeatMasterIds, Date startTime, Date endTime, List<String> needCreateMonths ) throws Exception {
 		List<String> event_ids = new ArrayList<>();
+		Date now = new Date();
 		if( ListTools.isNotEmpty( repeatMasterIds )) {
 			Business business =  new Business( emc );
 			List<Calendar_Event> calendarEvents = null;
@@ -200,25 +202,17 @@ public class Calendar_EventService {
 						if ( !business.calendar_EventFactory().eventExists( calendar_Event ) ) {							
 							calendar_Event.setCreatePerson( eventRepeatMaster.getCreatePerson() );
 							calendar_Event.addParticipants( eventRepeatMaster.getCreatePerson() );
-							calendar_Event.setRepeatMasterId(eventRepeatMaster.getId());							
+							calendar_Event.setRepeatMasterId(eventRepeatMaster.getId());
+							//使用与查询时展开一致的ID，之前展开返回的ID在生成记录后仍然有效
+							calendar_Event.setId( RecurrenceExpander.occurrenceId( eventRepeatMaster.getId(), calendar_Event.getStartTime() ) );
 		
 							//计算提醒时间，以开始时间为基准
 							if( calendar_Event.getAlarm() ) {
-								String[] alarm_config = calendar_Event.getValarmTime_config().trim().split(","); 
-								if( alarm_config.length == 4 ) {
-									int day, hour, min, sec = 0;
-									Date alarmTime = null;
-									try {
-										day = Integer.parseInt( alarm_config[0].trim() );
-										hour = Integer.parseInt( alarm_config[01].trim() );
-										min = Integer.parseInt( alarm_config[2].trim() );
-										sec = Integer.parseInt( alarm_config[3].trim() );
-										alarmTime = dateOperation.caculateNewDate( calendar_Event.getStartTime(), day, hour, min, sec );
-										calendar_Event.setAlarmTime(alarmTime);
-									}catch( Exception e ) {
-										calendar_Event.setAlarm( false );
-										calendar_Event.setValarmTime_config( "0,0,0,0" );
-									}				 
+								Date alarmTime = RecurrenceExpander.alarmTime( calendar_Event.getStartTime(), calendar_Event.getValarmTime_config() );
+								if( alarmTime != null ) {
+									calendar_Event.setAlarmTime(alarmTime);
+									//已经过了提醒时间的不再补发提醒
+									calendar_Event.setAlarmAlready( alarmTime.before( now ) );
 								}else {
 									calendar_Event.setAlarm( false );
 									calendar_Event.setValarmTime_config( "0,0,0,0" );
@@ -248,14 +242,14 @@ public class Calendar_EventService {
 	}
 	
 	/**
-	 * 查询需要提醒的日程事件列表
+	 * 查询提醒时间在指定时间之前并且还未提醒的日程事件列表
 	 * @param date
 	 * @return
 	 * @throws Exception 
 	 */
-	public List<String> listNeedAlarmEventIds(EntityManagerContainer emc, Date date) throws Exception {
+	public List<Calendar_Event> listNeedAlarm(EntityManagerContainer emc, Date date) throws Exception {
 		Business business =  new Business( emc );
-		return business.calendar_EventFactory().listNeedAlarmEventIds( date );
+		return business.calendar_EventFactory().listNeedAlarm( date );
 	}
 
 	public List<String> destoryWithBundle(EntityManagerContainer emc, String bundle) throws Exception {
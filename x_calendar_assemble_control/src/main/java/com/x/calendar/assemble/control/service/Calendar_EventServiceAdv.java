@@ -20,6 +20,8 @@ import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.tools.ListTools;
 import com.x.calendar.assemble.control.Business;
+import com.x.calendar.assemble.control.recurrence.RecurrenceExpander;
+import com.x.calendar.assemble.control.recurrence.RecurrenceIndex;
 import com.x.calendar.common.date.DateOperation;
 import com.x.calendar.core.entity.Calendar_Event;
 import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
@@ -70,19 +72,83 @@ public class Calendar_EventServiceAdv{
 	}	
 	
 	/**
-	 * 根据ID获取指定日历记录信息
+	 * 根据ID获取指定日历记录信息，查询时展开的重复日程按重复主体构建，不生成记录
 	 * @param id
 	 * @return
 	 * @throws Exception
 	 */
 	public Calendar_Event get(String id) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			return emc.find(id, Calendar_Event.class);
+			Calendar_Event calendar_Event = emc.find(id, Calendar_Event.class);
+			if( calendar_Event == null && RecurrenceExpander.isOccurrenceId( id ) ) {
+				calendar_Event = RecurrenceIndex.occurrence( new Business( emc ), id );
+			}
+			return calendar_Event;
+		} catch ( Exception e ) {
+			throw e;
+		}
+	}
+
+	/**
+	 * 根据ID获取指定日历记录信息用于修改或者删除，查询时展开的重复日程先生成所在月份的日程事件记录再获取
+	 * @param id
+	 * @return
+	 * @throws Exception
+	 */
+	public Calendar_Event getForUpdate(String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Calendar_Event calendar_Event = emc.find(id, Calendar_Event.class);
+			if( calendar_Event == null && RecurrenceExpander.isOccurrenceId( id ) ) {
+				//查询时展开的重复日程，生成所在月份的日程事件记录后再获取，便于单独修改或者删除
+				calendar_Event = createOccurrence( emc, id );
+			}
+			return calendar_Event;
 		} catch ( Exception e ) {
 			throw e;
 		}
 	}
 
+	/**
+	 * 为查询时展开的重复日程事件生成所在月份的日程事件记录，该月份已经生成过记录的（包括已经删除的）不再生成
+	 * @param emc
+	 * @param id 展开时的日程事件ID:repeatMasterId_yyyyMMdd
+	 * @return
+	 * @throws Exception
+	 */
+	private Calendar_Event createOccurrence( EntityManagerContainer emc, String id ) throws Exception {
+		if( createMonth( emc, RecurrenceExpander.repeatMasterId( id ), RecurrenceExpander.day( id ) ) ) {
+			return emc.find( id, Calendar_Event.class );
+		}
+		return null;
+	}
+
+	/**
+	 * 为重复主体生成指定日期所在月份的日程事件记录，生成后该月份不再展开，以记录为准
+	 * 单独修改或者删除重复日程中的某一个事件之前需要先生成该月份的记录，否则修改或者删除后查询时会重新展开
+	 * @param emc
+	 * @param repeatMasterId
+	 * @param date
+	 * @return 是否生成了记录，该月份已经生成过或者重复主体不存在返回false
+	 * @throws Exception
+	 */
+	private boolean createMonth( EntityManagerContainer emc, String repeatMasterId, Date date ) throws Exception {
+		Calendar_EventRepeatMaster calendar_EventRepeatMaster = emc.find( repeatMasterId, Calendar_EventRepeatMaster.class );
+		if( calendar_EventRepeatMaster == null || date == null ) {
+			return false;
+		}
+		String month = RecurrenceExpander.month( date );
+		if( ListTools.contains( calendar_EventRepeatMaster.getCreatedMonthList(), month )) {
+			return false;
+		}
+		Date startTime = dateOperation.getBeginTimeInDay( dateOperation.getFirstDayInMonth( date ) );
+		Date endTime = dateOperation.getEndDayInMonth( date );
+		List<String> months = new ArrayList<>();
+		months.add( month );
+		calendar_EventService.createCalendarWithMaster( emc, ListTools.toList( repeatMasterId ), startTime, endTime, months );
+		RecurrenceIndex.invalidate( calendar_EventRepeatMaster.getCalendarId() );
+		return true;
+	}
+
 	/**
 	 * 保存日历记录信息
 	 * 2019-11-11 添加逻辑，适应超长的备注信息，如果备注信息超长，则将信息存储到Comment表中，并且在event和eventmaster里存储引用的ID
@@ -136,6 +202,7 @@ public class Calendar_EventServiceAdv{
 			//保存日程信息
 			calendar_event = calendar_EventService.create( emc, calendar_event, false );
 			emc.commit();
+			RecurrenceIndex.invalidate( calendar_event.getCalendarId() );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -265,6 +332,7 @@ public class Calendar_EventServiceAdv{
 				}
 			}
 			emc.commit();
+			RecurrenceIndex.invalidate( null );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -379,6 +447,7 @@ public class Calendar_EventServiceAdv{
 			emc.check( calendar_EventRepeatMaster, CheckPersistType.all );
 			emc.persist( calendar_EventRepeatMaster_new, CheckPersistType.all  );
 			emc.commit();
+			RecurrenceIndex.invalidate( null );
 
 		} catch ( Exception e ) {
 			throw e;
@@ -412,6 +481,10 @@ public class Calendar_EventServiceAdv{
 			if( old_event == null ) {
 				throw new Exception("calendar event is not exsits. ID:" + calendar_event.getId() );
 			}
+			if( StringUtils.isNotEmpty( old_event.getRepeatMasterId() )) {
+				//重复日程先生成所在月份的记录，修改后不再按原来的时间展开
+				createMonth( emc, old_event.getRepeatMasterId(), old_event.getStartTime() );
+			}
 			calendar_event.copyTo( old_event, JpaObject.FieldsUnmodify );
 			if( StringUtils.isEmpty( calendar_event.getId() )) {
 				old_event.setId( Calendar_Event.createId() );
@@ -449,6 +522,7 @@ public class Calendar_EventServiceAdv{
 			//保存日程信息
 			calendar_event = calendar_EventService.update( emc, old_event, false );
 			emc.commit();
+			RecurrenceIndex.invalidate( null );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -485,7 +559,7 @@ public class Calendar_EventServiceAdv{
 	}
 
 	/**
-	 * 根据条件查询指定的日历记录信息ID列表
+	 * 根据条件查询日历记录信息列表，包括已经存在记录的日程事件以及重复日程在时间范围内展开的日程事件
 	 * @param key
 	 * @param eventType
 	 * @param source
@@ -499,7 +573,7 @@ public class Calendar_EventServiceAdv{
 	 * @return
 	 * @throws Exception
 	 */
-	public List<String> listWithCondition( String key, String eventType, String source, String createPerson, List<String> calendarIds, 
+	public List<Calendar_Event> listWithCondition( String key, String eventType, String source, String createPerson, List<String> calendarIds, 
 			String personName, List<String> unitNames, List<String> groupNames, Date startTime, Date endTime ) throws Exception {
 		if( startTime == null ) {
 			startTime = new Date();
@@ -515,28 +589,16 @@ public class Calendar_EventServiceAdv{
 		}
 		
 		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
-			//两个时间之间的月份查出来，看看这些月份是否需要生成日历事件
-			List<String> needCreateMonths = new DateOperation().listMonthsBetweenDate( startTime, endTime );
-			
-			if( ListTools.isNotEmpty( needCreateMonths )) {
-				List<String> repeatMasterIds = new ArrayList<>();
-				List<String> repeatMasterIds_month = null;
-
-				for( String createMonth : needCreateMonths ) {
-					//先看看有没有需要生成的日历重复主体
-					repeatMasterIds_month = calendar_EventRepeatMasterService.listNeedRepeatMaster( emc, calendarIds,  eventType, createMonth, personName, unitNames, groupNames);
-					if( ListTools.isNotEmpty( repeatMasterIds_month )){
-						repeatMasterIds.addAll( repeatMasterIds_month );
-					}
-				}
-				if( ListTools.isNotEmpty( repeatMasterIds )) {
-					//根据日期范围为指定的日期重复主体生成日历事件信息
-					calendar_EventService.createCalendarWithMaster( emc, repeatMasterIds, startTime, endTime, needCreateMonths );
-				}
+			Business business = new Business( emc );
+			List<Calendar_Event> result = new ArrayList<>();
+			//从日历事件信息表里按条件查询已经存在记录的日程事件
+			List<String> ids = calendar_EventService.listWithCondition( emc, key, eventType, source, createPerson, calendarIds, personName, unitNames, groupNames, startTime, endTime );
+			if( ListTools.isNotEmpty( ids )) {
+				result.addAll( calendar_EventService.list( emc, ids ) );
 			}
-			
-			//最后从日历事件信息表里按条件进行数据查询返回
-			return calendar_EventService.listWithCondition( emc, key, eventType, source, createPerson, calendarIds, personName, unitNames, groupNames, startTime, endTime );
+			//重复日程不再按月生成记录，根据重复主体在查询时间范围内展开
+			result.addAll( RecurrenceIndex.list( business, key, eventType, source, createPerson, calendarIds, personName, unitNames, groupNames, startTime, endTime ) );
+			return result;
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -586,7 +648,13 @@ public class Calendar_EventServiceAdv{
 	 */
 	public void destory(String id) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			 calendar_EventService.destory(emc, id );
+			Calendar_Event calendar_Event = emc.find( id, Calendar_Event.class );
+			if( calendar_Event != null && StringUtils.isNotEmpty( calendar_Event.getRepeatMasterId() )) {
+				//重复日程先生成所在月份的记录，删除后不再展开
+				createMonth( emc, calendar_Event.getRepeatMasterId(), calendar_Event.getStartTime() );
+				RecurrenceIndex.invalidate( calendar_Event.getCalendarId() );
+			}
+			calendar_EventService.destory(emc, id );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -595,6 +663,7 @@ public class Calendar_EventServiceAdv{
 	public void destory(List<String> ids) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			 calendar_EventService.destory(emc, ids );
+			 RecurrenceIndex.invalidate( null );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -654,6 +723,7 @@ public class Calendar_EventServiceAdv{
 			emc.beginTransaction( Calendar_EventRepeatMaster.class );
 			emc.check( calendar_EventRepeatMaster, CheckPersistType.all );
 			emc.commit();
+			RecurrenceIndex.invalidate( calendar_EventRepeatMaster.getCalendarId() );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -829,17 +899,17 @@ public class Calendar_EventServiceAdv{
 	}
 	
 	/**
-	 * 查询需要提醒的日程事件ID列表
+	 * 查询提醒时间在指定时间之前并且还未提醒的日程事件列表
 	 * @param date
 	 * @return
 	 * @throws Exception 
 	 */
-	public List<String> listNeedAlarmEventIds(Date date) throws Exception {
+	public List<Calendar_Event> listNeedAlarm(Date date) throws Exception {
 		if( date == null ) {
 			date = new Date();
 		}
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			return calendar_EventService.listNeedAlarmEventIds( emc, date );
+			return calendar_EventService.listNeedAlarm( emc, date );
 		} catch ( Exception e ) {
 			throw e;
 		}
@@ -0,0 +1,321 @@
+package com.x.calendar.assemble.control.test.recurrence;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.calendar.assemble.control.Business;
+import com.x.calendar.assemble.control.recurrence.AlarmWheel;
+import com.x.calendar.assemble.control.recurrence.IntervalTree;
+import com.x.calendar.assemble.control.recurrence.RecurrenceExpander;
+import com.x.calendar.assemble.control.recurrence.RecurrenceIndex;
+import com.x.calendar.core.entity.Calendar_Event;
+import com.x.calendar.core.entity.Calendar_EventRepeatMaster;
+
+/**
+ * 重复日程在查询时展开.<br/>
+ * 区间树与逐个比较的结果一致;排除日期、截止时间以及已经生成记录的日程不展开;提醒时间轮超过一圈的提醒按圈数到期;
+ * 在内存数据库上订阅50个日历查看全年,与预先逐条生成日程事件记录的方式比较.
+ */
+public class TestClient {
+
+	private static final String PERSON = "test@test@P";
+
+	private static final long HOUR = 1000L * 60 * 60;
+
+	@BeforeClass
+	public static void init() throws Exception {
+		EntityManagerContainerFactory.init("recurrence/persistence.xml");
+		RecurrenceIndex.invalidate(null);
+	}
+
+	@AfterClass
+	public static void close() throws Exception {
+		EntityManagerContainerFactory.close();
+	}
+
+	private Date time(String str) throws Exception {
+		return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(str);
+	}
+
+	private List<String> days(List<Calendar_Event> list) {
+		return list.stream().map(o -> new SimpleDateFormat("yyyyMMdd").format(o.getStartTime())).sorted()
+				.collect(Collectors.toList());
+	}
+
+	private Calendar_EventRepeatMaster master(String calendarId, String title, Date startTime, long duration,
+			String rule) throws Exception {
+		Calendar_EventRepeatMaster o = new Calendar_EventRepeatMaster(Calendar_EventRepeatMaster.createId(), title,
+				startTime, new Date(startTime.getTime() + duration), rule);
+		o.setCalendarId(calendarId);
+		o.setEventType("CAL_EVENT");
+		o.setSource("PERSONAL");
+		o.setCreatePerson(PERSON);
+		o.setIsPublic(true);
+		return o;
+	}
+
+	private void persist(Calendar_EventRepeatMaster... masters) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.beginTransaction(Calendar_EventRepeatMaster.class);
+			for (Calendar_EventRepeatMaster o : masters) {
+				emc.persist(o, CheckPersistType.none);
+			}
+			emc.commit();
+		}
+		RecurrenceIndex.invalidate(null);
+	}
+
+	private List<Calendar_Event> list(List<String> calendarIds, Date start, Date end) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			return RecurrenceIndex.list(new Business(emc), null, null, null, null, calendarIds, null, null, null,
+					start, end);
+		}
+	}
+
+	@Test
+	public void testIntervalTree() throws Exception {
+		Random random = new Random(7);
+		List<long[]> intervals = new ArrayList<>();
+		IntervalTree.Builder<Integer> builder = IntervalTree.builder();
+		for (int i = 0; i < 2000; i++) {
+			long start = random.nextInt(100000);
+			long end = start + random.nextInt(5000) - 100;
+			intervals.add(new long[] { start, Math.max(start, end) });
+			builder.add(start, end, i);
+		}
+		IntervalTree<Integer> tree = builder.build();
+		Assert.assertEquals(2000, tree.size());
+		for (int i = 0; i < 500; i++) {
+			long from = random.nextInt(110000) - 5000;
+			long to = from + random.nextInt(3000);
+			Set<Integer> expected = new HashSet<>();
+			for (int j = 0; j < intervals.size(); j++) {
+				if ((intervals.get(j)[0] <= to) && (intervals.get(j)[1] >= from)) {
+					expected.add(j);
+				}
+			}
+			List<Integer> actual = tree.query(from, to);
+			Assert.assertEquals(expected.size(), actual.size());
+			Assert.assertEquals(expected, new HashSet<>(actual));
+		}
+		Assert.assertTrue(IntervalTree.<Integer>builder().build().query(0, Long.MAX_VALUE).isEmpty());
+	}
+
+	/* 排除日期、已经生成记录的开始时间以及截止日期之后都不展开 */
+	@Test
+	public void testExpandExceptionsUntil() throws Exception {
+		Calendar_EventRepeatMaster master = this.master("c0", "daily", this.time("2026-01-01 09:00:00"), HOUR,
+				"FREQ=DAILY;UNTIL=20260110");
+		master.setRecurrenceExc("20260103,20260105");
+		Set<String> excludes = new HashSet<>(Arrays.asList("2026-01-07 09:00:00"));
+		List<Calendar_Event> list = RecurrenceExpander.expand(master, RecurrenceExpander.template(master),
+				this.time("2026-01-01 00:00:00"), this.time("2026-01-31 23:59:59"), excludes);
+		Assert.assertEquals(Arrays.asList("20260101", "20260102", "20260104", "20260106", "20260108", "20260109",
+				"20260110"), this.days(list));
+		Calendar_Event first = list.get(0);
+		Assert.assertEquals(master.getId() + "_20260101", first.getId());
+		Assert.assertTrue(RecurrenceExpander.isOccurrenceId(first.getId()));
+		Assert.assertEquals(master.getId(), RecurrenceExpander.repeatMasterId(first.getId()));
+		Assert.assertEquals("2026-01-01 10:00:00", first.getEndTimeStr());
+		/* 查询范围内的部分 */
+		list = RecurrenceExpander.expand(master, RecurrenceExpander.template(master), this.time("2026-01-04 00:00:00"),
+				this.time("2026-01-08 23:59:59"), excludes);
+		Assert.assertEquals(Arrays.asList("20260104", "20260106", "20260108"), this.days(list));
+		/* 已经按月生成记录的月份不展开 */
+		master.setCreatedMonthList(new ArrayList<>(Arrays.asList("2026-01")));
+		Assert.assertTrue(RecurrenceExpander.expand(master, RecurrenceExpander.template(master),
+				this.time("2026-01-01 00:00:00"), this.time("2026-01-31 23:59:59"), null).isEmpty());
+	}
+
+	/* 开始时间在查询范围之前,持续到查询范围内的日程也要展开 */
+	@Test
+	public void testExpandOverlap() throws Exception {
+		Calendar_EventRepeatMaster master = this.master("c0", "night", this.time("2026-03-01 23:00:00"), 2 * HOUR,
+				"FREQ=WEEKLY;COUNT=4");
+		List<Calendar_Event> list = RecurrenceExpander.expand(master, RecurrenceExpander.template(master),
+				this.time("2026-03-09 00:30:00"), this.time("2026-03-31 23:59:59"), null);
+		Assert.assertEquals(Arrays.asList("20260308", "20260315", "20260322"), this.days(list));
+	}
+
+	/* 索引按日历和截止时间筛选重复主体,已经生成记录的日程由数据库返回 */
+	@Test
+	public void testIndex() throws Exception {
+		Calendar_EventRepeatMaster ended = this.master("index_a", "ended", this.time("2026-01-01 09:00:00"), HOUR,
+				"FREQ=DAILY;UNTIL=20260131");
+		Calendar_EventRepeatMaster weekly = this.master("index_b", "weekly", this.time("2026-01-02 14:00:00"), HOUR,
+				"FREQ=WEEKLY");
+		weekly.setAlarm(true);
+		weekly.setValarmTime_config("0,0,-10,0");
+		Calendar_EventRepeatMaster other = this.master("index_c", "other", this.time("2026-01-01 08:00:00"), HOUR,
+				"FREQ=DAILY");
+		this.persist(ended, weekly, other);
+		List<Calendar_Event> list = this.list(Arrays.asList("index_a", "index_b"), this.time("2026-02-01 00:00:00"),
+				this.time("2026-02-28 23:59:59"));
+		Assert.assertEquals(Arrays.asList("20260206", "20260213", "20260220", "20260227"), this.days(list));
+		list = this.list(Arrays.asList("index_a", "index_b"), this.time("2026-01-30 00:00:00"),
+				this.time("2026-01-31 23:59:59"));
+		Assert.assertEquals(Arrays.asList("20260130", "20260130", "20260131"), this.days(list));
+		/* 单独修改过的日程已经生成记录,展开时排除 */
+		Calendar_Event changed = list.stream().filter(o -> o.getRepeatMasterId().equals(weekly.getId())).findFirst()
+				.get();
+		changed.setTitle("changed");
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.beginTransaction(Calendar_Event.class);
+			emc.persist(changed, CheckPersistType.none);
+			emc.commit();
+		}
+		RecurrenceIndex.invalidate("index_b");
+		list = this.list(Arrays.asList("index_a", "index_b"), this.time("2026-01-30 00:00:00"),
+				this.time("2026-01-31 23:59:59"));
+		Assert.assertEquals(Arrays.asList("20260130", "20260131"), this.days(list));
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			Assert.assertNull(RecurrenceIndex.occurrence(business, changed.getId()));
+			Assert.assertNotNull(RecurrenceIndex.occurrence(business, weekly.getId() + "_20260206"));
+			/* 提醒按提醒时间所在的窗口取出 */
+			List<Calendar_Event> alarms = RecurrenceIndex.listAlarm(business, this.time("2026-02-06 13:45:00"),
+					this.time("2026-02-06 13:55:00"));
+			Assert.assertEquals(1, alarms.size());
+			Assert.assertEquals(this.time("2026-02-06 13:50:00"), alarms.get(0).getAlarmTime());
+			Assert.assertTrue(RecurrenceIndex.listAlarm(business, this.time("2026-02-06 13:51:00"),
+					this.time("2026-02-06 14:30:00")).isEmpty());
+		}
+	}
+
+	/* 多个节点同时发送同一个提醒时只有一个认领成功 */
+	@Test
+	public void testClaimAlarm() throws Exception {
+		Calendar_EventRepeatMaster master = this.master("claim", "claim", this.time("2026-01-01 09:00:00"), HOUR,
+				"FREQ=DAILY");
+		this.persist(master);
+		Calendar_Event event = new Calendar_Event(Calendar_Event.createId(), "claim", this.time("2026-01-01 09:00:00"),
+				this.time("2026-01-01 10:00:00"));
+		event.setCalendarId("claim");
+		event.setAlarmAlready(false);
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.beginTransaction(Calendar_Event.class);
+			emc.persist(event, CheckPersistType.none);
+			emc.commit();
+		}
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			emc.beginTransaction(Calendar_Event.class);
+			emc.beginTransaction(Calendar_EventRepeatMaster.class);
+			Assert.assertTrue(business.calendar_EventFactory().claimAlarm(event.getId()));
+			Assert.assertFalse(business.calendar_EventFactory().claimAlarm(event.getId()));
+			Date first = this.time("2026-01-02 08:50:00");
+			Assert.assertTrue(business.calendar_EventRepeatMasterFactory().claimAlarm(master.getId(), first));
+			Assert.assertFalse(business.calendar_EventRepeatMasterFactory().claimAlarm(master.getId(), first));
+			Assert.assertTrue(business.calendar_EventRepeatMasterFactory().claimAlarm(master.getId(),
+					this.time("2026-01-03 08:50:00")));
+			emc.commit();
+		}
+	}
+
+	/* 每格5毫秒,一圈2.56秒,超过两圈的提醒不能在前几圈提前到期 */
+	@Test
+	public void testAlarmWheelRounds() throws Exception {
+		Map<String, Long> fired = new ConcurrentHashMap<>();
+		AlarmWheel wheel = new AlarmWheel(events -> {
+			for (Calendar_Event o : events) {
+				fired.put(o.getId(), System.currentTimeMillis());
+			}
+		}, 5);
+		wheel.start();
+		try {
+			long now = System.currentTimeMillis();
+			Calendar_Event late = new Calendar_Event("late", "late", new Date(now), new Date(now));
+			late.setAlarmTime(new Date(now + 6000));
+			Calendar_Event near = new Calendar_Event("near", "near", new Date(now), new Date(now));
+			near.setAlarmTime(new Date(now + 300));
+			Calendar_Event past = new Calendar_Event("past", "past", new Date(now), new Date(now));
+			past.setAlarmTime(new Date(now - 60000));
+			Assert.assertTrue(wheel.schedule(late));
+			Assert.assertTrue(wheel.schedule(near));
+			Assert.assertTrue(wheel.schedule(past));
+			Assert.assertFalse(wheel.schedule(late));
+			Thread.sleep(3000);
+			Assert.assertTrue(fired.containsKey("past"));
+			Assert.assertTrue(fired.get("past") - now < 200);
+			Assert.assertTrue(fired.get("near") >= now + 300);
+			Assert.assertFalse(fired.containsKey("late"));
+			Thread.sleep(3500);
+			Assert.assertTrue(fired.containsKey("late"));
+			Assert.assertTrue(fired.get("late") >= now + 6000);
+			Assert.assertTrue(fired.get("late") < now + 6200);
+		} finally {
+			wheel.stop();
+		}
+	}
+
+	/**
+	 * 订阅50个日历,每个日历一个每天重复的日程,查看全年.<br/>
+	 * 原有方式查看前需要为每个月生成日程事件记录再查询;现在只读取重复主体并在内存中展开,不写入数据库.
+	 */
+	@Test
+	public void testYearView50() throws Exception {
+		int size = 50;
+		List<String> calendarIds = new ArrayList<>();
+		List<Calendar_EventRepeatMaster> masters = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			String calendarId = "year_" + i;
+			calendarIds.add(calendarId);
+			masters.add(this.master(calendarId, "daily" + i, this.time("2025-06-01 09:00:00"), HOUR, "FREQ=DAILY"));
+		}
+		this.persist(masters.toArray(new Calendar_EventRepeatMaster[size]));
+		Date start = this.time("2026-01-01 00:00:00");
+		Date end = this.time("2026-12-31 23:59:59");
+		/* 预热 */
+		this.list(calendarIds, start, end);
+		RecurrenceIndex.invalidate(null);
+		long begin = System.currentTimeMillis();
+		List<Calendar_Event> list = this.list(calendarIds, start, end);
+		long expand = System.currentTimeMillis() - begin;
+		begin = System.currentTimeMillis();
+		this.list(calendarIds, start, end);
+		long cached = System.currentTimeMillis() - begin;
+		Assert.assertEquals(size * 365, list.size());
+		Assert.assertEquals(0L, this.countEvent(calendarIds));
+
+		begin = System.currentTimeMillis();
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.beginTransaction(Calendar_Event.class);
+			for (Calendar_Event o : list) {
+				emc.persist(o, CheckPersistType.none);
+			}
+			emc.commit();
+		}
+		long materialized = this.countEvent(calendarIds);
+		long write = System.currentTimeMillis() - begin;
+		Assert.assertEquals(size * 365L, materialized);
+		System.out.println("year view, " + size + " calendars, " + list.size() + " events, expand:" + expand
+				+ "ms, cached index:" + cached + "ms, write rows then query:" + write + "ms.");
+	}
+
+	private long countEvent(List<String> calendarIds) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			return (Long) emc.get(Calendar_Event.class)
+					.createQuery("select count(o) from " + Calendar_Event.class.getName()
+							+ " o where o.calendarId in :calendarIds")
+					.setParameter("calendarIds", calendarIds).getSingleResult();
+		}
+	}
+
+}
@@ -397,6 +397,13 @@ public class Calendar_EventRepeatMaster extends SliceJpaObject implements Clonea
 	@CheckPersist(allowEmpty = false)
 	private String repeatStatus = "等待生成";
 
+	public static final String alarmFiredTime_FIELDNAME = "alarmFiredTime";
+	@FieldDescribe("展开的日程事件已经发送提醒的最后提醒时间，多个节点发送前按此时间确认同一提醒只发送一次")
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = ColumnNamePrefix + alarmFiredTime_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private Date alarmFiredTime;
+
 	public Date getRecurrenceStartTime() {
 		return recurrenceStartTime;
 	}
@@ -531,6 +538,10 @@ public class Calendar_EventRepeatMaster extends SliceJpaObject implements Clonea
 		return repeatStatus;
 	}
 
+	public Date getAlarmFiredTime() {
+		return alarmFiredTime;
+	}
+
 	public void setCalendarId(String calendarId) {
 		this.calendarId = calendarId;
 	}
@@ -675,6 +686,10 @@ public class Calendar_EventRepeatMaster extends SliceJpaObject implements Clonea
 		this.repeatStatus = repeatStatus;
 	}
 
+	public void setAlarmFiredTime(Date alarmFiredTime) {
+		this.alarmFiredTime = alarmFiredTime;
+	}
+
 	public Boolean getAlarm() {
 		return alarm;
 	}
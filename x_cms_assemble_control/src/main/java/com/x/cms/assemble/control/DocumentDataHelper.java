@@ -111,6 +111,7 @@ public class DocumentDataHelper {
 		}
 		if ((!removes.isEmpty()) || (!adds.isEmpty())) {
 			emc.beginTransaction(Item.class);
+			this.emc.notifyAfterCommit(Item.class, this.docId);
 			if ((!removes.isEmpty())) {
 				for (Item o : removes) {
 					emc.remove(o);
@@ -138,6 +139,7 @@ public class DocumentDataHelper {
 	public void remove() throws Exception {
 		if ((!items.isEmpty())) {
 			emc.beginTransaction(Item.class);
+			this.emc.notifyAfterCommit(Item.class, this.docId);
 			for (Item o : items) {
 				emc.remove(o);
 			}
@@ -5,6 +5,7 @@ import com.x.base.core.project.message.MessageConnector;
 import com.x.cms.assemble.control.queue.*;
 import com.x.cms.assemble.control.timertask.Timertask_BatchOperationTask;
 import com.x.cms.assemble.control.timertask.Timertask_CheckDocumentReviewStatus;
+import com.x.cms.assemble.control.timertask.Timertask_DocumentViewCountFlush;
 import com.x.cms.assemble.control.timertask.Timertask_InitOperationRunning;
 import com.x.cms.assemble.control.timertask.Timertask_LogRecordCheckTask;
 
@@ -36,7 +37,7 @@ public class ThisApplication {
 		queueDataRowImport = new QueueDataRowImport();
 		//Document变更标题时也需要更新一下热点图片里的数据
 		queueDocumentUpdate = new QueueDocumentUpdate();
-		//Document被访问时，需要将总的访问量更新到item的document中，便于视图使用，在队列里异步修改
+		//Document被访问时，需要将总的访问量更新到item的document中，便于视图使用，定时合并后在队列里异步修改
 		queueDocumentViewCountUpdate = new QueueDocumentViewCountUpdate();
 		//Document发布时，向所有阅读者推送通知
 		queueSendDocumentNotify = new QueueSendDocumentNotify();
@@ -55,6 +56,8 @@ public class ThisApplication {
 		context.schedule( Timertask_BatchOperationTask.class, "0 */5 * * * ?" );
 		context.scheduleLocal( Timertask_CheckDocumentReviewStatus.class, 1200 );
 		context.scheduleLocal( Timertask_InitOperationRunning.class, 150 );
+		// 每30秒将累计的文档访问次数更新到item
+		context.scheduleLocal( Timertask_DocumentViewCountFlush.class, 30, 30 );
 	}
 
 	public static void destroy() {
@@ -13,6 +13,7 @@ import com.x.cms.core.express.tools.filter.QueryFilter;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -440,8 +441,7 @@ public class DocumentFactory extends AbstractFactory {
 			subquery.select(root2);
 			Predicate p_permission = cb1.conjunction();
 			p_permission = cb1.and(p_permission,
-					cb1.or(cb1.equal( root2.get( Review_.permissionObj), "*"),
-							cb1.equal( root2.get( Review_.permissionObj ), personName )));
+					root2.get( Review_.permissionObj ).in( this.business().reviewFactory().listPrincipalsWithPerson( personName ) ));
 			p_permission = cb1.and(p_permission, cb1.equal(root.get(Document_.id), root2.get(Review_.docId)));
 			subquery.where(p_permission);
 			p = cb.and(p, cb.exists(subquery));
@@ -496,8 +496,7 @@ public class DocumentFactory extends AbstractFactory {
 			subquery.select(root2);
 			Predicate p_permission = cb1.conjunction();
 			p_permission = cb1.and(p_permission,
-					cb1.or(cb1.equal( root2.get( Review_.permissionObj), "*"),
-							cb1.equal( root2.get( Review_.permissionObj ), personName )));
+					root2.get( Review_.permissionObj ).in( this.business().reviewFactory().listPrincipalsWithPerson( personName ) ));
 			p_permission = cb1.and(p_permission, cb1.equal(root.get(Document_.id), root2.get(Review_.docId)));
 			subquery.where(p_permission);
 			p = cb.and(p, cb.exists(subquery));
@@ -609,4 +608,21 @@ public class DocumentFactory extends AbstractFactory {
 //		cq.select(root.get( Document_.id));
 //		return em.createQuery(cq.where(p)).setMaxResults(maxCount).getResultList();
 //	}
-}
\ No newline at end of file
+
+	/**
+	 * 在文档的访问量上累加一段时间内合并的访问次数，由数据库完成累加，多个节点同时更新时不会互相覆盖，需要在事务中调用
+	 * @param id
+	 * @param count
+	 * @return 是否更新成功
+	 * @throws Exception
+	 */
+	public boolean increaseViewCount( String id, Long count ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( Document.class );
+		Query query = em.createQuery( "update " + Document.class.getName()
+				+ " o set o.viewCount = case when o.viewCount is null then :count else o.viewCount + :count end"
+				+ " where o.id = :id" );
+		query.setParameter( "count", count );
+		query.setParameter( "id", id );
+		return query.executeUpdate() > 0;
+	}
+}
@@ -4,6 +4,7 @@ import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -83,6 +84,23 @@ public class DocumentViewRecordFactory extends AbstractFactory {
 		return em.createQuery( cq.where(p) ).getResultList();
 	}
 	
+	/**
+	 * 根据文档ID列表和访问人列表，列示对应的访问记录
+	 * @param documentIds
+	 * @param personNames
+	 * @return
+	 * @throws Exception
+	 */
+	public List<DocumentViewRecord> listWithDocsAndPersons( List<String> documentIds, List<String> personNames ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( DocumentViewRecord.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<DocumentViewRecord> cq = cb.createQuery( DocumentViewRecord.class );
+		Root<DocumentViewRecord> root = cq.from( DocumentViewRecord.class );
+		Predicate p = root.get( DocumentViewRecord_.documentId ).in( documentIds );
+		p = cb.and( p, root.get( DocumentViewRecord_.viewerName ).in( personNames ) );
+		return em.createQuery( cq.where(p) ).getResultList();
+	}
+
 	/**
 	 * 根据文档ID，计算该文档所有的访问次数
 	 * @param docId
@@ -200,5 +218,24 @@ public class DocumentViewRecordFactory extends AbstractFactory {
 		p = cb.and( p, root.get( DocumentViewRecord_.categoryId ).in( categoryIds ));
 		cq.select(root.get( DocumentViewRecord_.documentId ));
 		return em.createQuery(cq.where(p)).getResultList();
-	}	
-}
\ No newline at end of file
+	}
+
+	/**
+	 * 在访问记录上累加一段时间内合并的访问次数并更新最后访问时间，由数据库完成累加，多个节点同时更新时不会互相覆盖，需要在事务中调用
+	 * @param id
+	 * @param count
+	 * @param lastViewTime
+	 * @return 是否更新成功
+	 * @throws Exception
+	 */
+	public boolean increaseViewCount( String id, Integer count, Date lastViewTime ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get( DocumentViewRecord.class );
+		Query query = em.createQuery( "update " + DocumentViewRecord.class.getName()
+				+ " o set o.viewCount = case when o.viewCount is null then :count else o.viewCount + :count end,"
+				+ " o.lastViewTime = :lastViewTime where o.id = :id" );
+		query.setParameter( "count", count );
+		query.setParameter( "lastViewTime", lastViewTime );
+		query.setParameter( "id", id );
+		return query.executeUpdate() > 0;
+	}
+}
@@ -48,6 +48,20 @@ public class ItemFactory extends AbstractFactory {
 		return list;
 	}
 
+	public List<Item> listWithDocmentsWithPath(List<String> docIds, String... paths) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(Item.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Item> cq = cb.createQuery(Item.class);
+		Root<Item> root = cq.from(Item.class);
+		Predicate p = root.get(Item_.bundle).in(docIds);
+		p = cb.and(p, cb.equal(root.get(Item_.itemCategory), itemCategory));
+		for (int i = 0; (i < paths.length && i < 8); i++) {
+			p = cb.and(p, cb.equal(root.get(("path" + i)), paths[i]));
+		}
+		cq.select(root).where(p);
+		return em.createQuery(cq).getResultList();
+	}
+
 	public Item getWithDocmentWithPath(String docId, String path0, String path1, String path2, String path3, String path4,
 			String path5, String path6, String path7) throws Exception {
 		EntityManager em = this.entityManagerContainer().get(Item.class);
@@ -1,5 +1,7 @@
 package com.x.cms.assemble.control.factory;
 
+import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.project.config.Config;
 import com.x.base.core.project.exception.ExceptionWhen;
 import com.x.base.core.project.tools.ListTools;
 import com.x.cms.assemble.control.AbstractFactory;
@@ -10,6 +12,8 @@ import com.x.cms.core.entity.Review;
 import com.x.cms.core.entity.Review_;
 import com.x.cms.core.express.tools.CriteriaBuilderTools;
 import com.x.cms.core.express.tools.filter.QueryFilter;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.EntityManager;
@@ -20,6 +24,11 @@ import java.util.List;
  * 文档权限控制信息服务类
  */
 public class ReviewFactory extends AbstractFactory {
+
+	/* 人员可以匹配的Review权限对象,组织架构变化后最多延迟5分钟生效 */
+	private static Ehcache principalCache = ApplicationCache.instance().getCache(
+			ApplicationCache.concreteCacheKey( ReviewFactory.class.getName(), "principal" ), 10000,
+			ApplicationCache.MINUTES_5, ApplicationCache.MINUTES_5 );
 	
 	public ReviewFactory( Business business) throws Exception {
 		super(business);
@@ -124,10 +133,7 @@ public class ReviewFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Long> cq = cb.createQuery(Long.class);
 		Root<Review> root = cq.from(Review.class);
-		Predicate p_permission = cb.equal( root.get( Review_.permissionObj ), "*");
-		if( StringUtils.isNotEmpty( personName )) {
-			p_permission = CriteriaBuilderTools.predicate_or( cb, p_permission, cb.equal( root.get( Review_.permissionObj ), personName ) );
-		}
+		Predicate p_permission = this.permissionPredicate( root, personName );
 		Predicate p = CriteriaBuilderTools.composePredicateWithQueryFilter( Review_.class, cb, p_permission, root, queryFilter );
 		cq.select(cb.count(root)).where(p);
 		return em.createQuery(cq).getSingleResult();
@@ -148,10 +154,7 @@ public class ReviewFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Review> cq = cb.createQuery(Review.class);
 		Root<Review> root = cq.from(Review.class);
-		Predicate p_permission = cb.equal( root.get( Review_.permissionObj ), "*");
-		if( StringUtils.isNotEmpty( personName )) {
-			p_permission = CriteriaBuilderTools.predicate_or( cb, p_permission, cb.equal( root.get( Review_.permissionObj ), personName ) );
-		}
+		Predicate p_permission = this.permissionPredicate( root, personName );
 		Predicate p = CriteriaBuilderTools.composePredicateWithQueryFilter( Review_.class, cb, p_permission, root, queryFilter );
 		
 		List<Order> orders = new ArrayList<>();
@@ -189,10 +192,7 @@ public class ReviewFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Review> cq = cb.createQuery(Review.class);
 		Root<Review> root = cq.from(Review.class);
-		Predicate p_permission = cb.equal( root.get( Review_.permissionObj ), "*");
-		if( StringUtils.isNotEmpty( personName )) {
-			p_permission = CriteriaBuilderTools.predicate_or( cb, p_permission, cb.equal( root.get( Review_.permissionObj ), personName ) );
-		}
+		Predicate p_permission = this.permissionPredicate( root, personName );
 		Predicate p = CriteriaBuilderTools.composePredicateWithQueryFilter( Review_.class, cb, p_permission, root, queryFilter );
 		if( StringUtils.isNotEmpty( sequenceFieldValue ) ) {
 			Predicate p_seq = cb.isNotNull( root.get( Review_.docSequence ) );
@@ -239,10 +239,7 @@ public class ReviewFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Review> cq = cb.createQuery(Review.class);
 		Root<Review> root = cq.from(Review.class);
-		Predicate p_permission = cb.equal( root.get( Review_.permissionObj ), "*");
-		if( StringUtils.isNotEmpty( personName )) {
-			p_permission = CriteriaBuilderTools.predicate_or( cb, p_permission, cb.equal( root.get( Review_.permissionObj ), personName ) );
-		}
+		Predicate p_permission = this.permissionPredicate( root, personName );
 		Predicate p = CriteriaBuilderTools.composePredicateWithQueryFilter( Review_.class, cb, p_permission, root, queryFilter );
 		if( StringUtils.isNotEmpty( sequenceFieldValue ) ) {
 			Predicate p_seq = cb.isNotNull( root.get( Review_.docSequence ) );
@@ -288,10 +285,7 @@ public class ReviewFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Review> cq = cb.createQuery(Review.class);
 		Root<Review> root = cq.from(Review.class);
-		Predicate p_permission = cb.equal( root.get( Review_.permissionObj ), "*");
-		if( StringUtils.isNotEmpty( personName )) {
-			p_permission = CriteriaBuilderTools.predicate_or( cb, p_permission, cb.equal( root.get( Review_.permissionObj ), personName ) );
-		}
+		Predicate p_permission = this.permissionPredicate( root, personName );
 		Predicate p = CriteriaBuilderTools.composePredicateWithQueryFilter( Review_.class, cb, p_permission, root, queryFilter );
 		
 		//排序，添加排序列，默认使用sequence
@@ -319,10 +313,7 @@ public class ReviewFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<String> cq = cb.createQuery(String.class);
 		Root<Review> root = cq.from(Review.class);
-		Predicate p_permission = cb.equal( root.get( Review_.permissionObj ), "*");
-		if( StringUtils.isNotEmpty( personName )) {
-			p_permission = CriteriaBuilderTools.predicate_or( cb, p_permission, cb.equal( root.get( Review_.permissionObj ), personName ) );
-		}
+		Predicate p_permission = this.permissionPredicate( root, personName );
 		Predicate p = CriteriaBuilderTools.composePredicateWithQueryFilter( Review_.class, cb, p_permission, root, queryFilter );
 		cq.select(root.get( Review_.docId )).where(p);
 		
@@ -335,10 +326,7 @@ public class ReviewFactory extends AbstractFactory {
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Review> cq = cb.createQuery(Review.class);
 		Root<Review> root = cq.from(Review.class);
-		Predicate p_permission = cb.equal( root.get( Review_.permissionObj ), "*");
-		if( StringUtils.isNotEmpty( personName )) {
-			p_permission = CriteriaBuilderTools.predicate_or( cb, p_permission, cb.equal( root.get( Review_.permissionObj ), personName ) );
-		}
+		Predicate p_permission = this.permissionPredicate( root, personName );
 		if( StringUtils.isNotEmpty( orderField ) ) {
 			Order orderWithField = CriteriaBuilderTools.getOrder( cb, root, Review_.class, orderField, orderType );
 			if( orderWithField != null ){
@@ -355,4 +343,48 @@ public class ReviewFactory extends AbstractFactory {
 		}
 		return docIds;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * 查询人员在Review中可以匹配的所有权限对象：所有人(*)，人员本身，所属的组织(含上级组织)，群组(含上级群组)以及角色<br/>
+	 * 如果没有启用principal模式，Review中只有人员和*，只返回*和人员本身
+	 * @param personName
+	 * @return
+	 * @throws Exception
+	 */
+	@SuppressWarnings("unchecked")
+	public List<String> listPrincipalsWithPerson( String personName ) throws Exception {
+		List<String> principals = new ArrayList<>();
+		principals.add( "*" );
+		if( StringUtils.isEmpty( personName )) {
+			return principals;
+		}
+		principals.add( personName );
+		if( !Config.cms().principalReview() ) {
+			return principals;
+		}
+		Element element = principalCache.get( personName );
+		if( element != null && element.getObjectValue() != null ) {
+			return (List<String>) element.getObjectValue();
+		}
+		principals = ListTools.add( principals, true, true, this.business().organization().unit().listWithPersonSupNested( personName ) );
+		List<String> groups = this.business().organization().group().listWithPerson( personName );
+		if( ListTools.isNotEmpty( groups )) {
+			principals = ListTools.add( principals, true, true, groups );
+			principals = ListTools.add( principals, true, true, this.business().organization().group().listWithGroupSupNested( groups ) );
+		}
+		principals = ListTools.add( principals, true, true, this.business().organization().role().listWithPerson( personName ) );
+		principalCache.put( new Element( personName, principals ));
+		return principals;
+	}
+
+	/**
+	 * 文档可见权限条件：Review的权限对象在人员可以匹配的权限对象中
+	 * @param root
+	 * @param personName
+	 * @return
+	 * @throws Exception
+	 */
+	private Predicate permissionPredicate( Root<Review> root, String personName ) throws Exception {
+		return root.get( Review_.permissionObj ).in( this.listPrincipalsWithPerson( personName ) );
+	}
+}
@@ -6,6 +6,7 @@ import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.AuditLog;
 import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.WoId;
@@ -22,7 +23,9 @@ import com.x.cms.core.entity.Review;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ActionEraseDocumentWithAppInfo extends BaseAction {
 
@@ -83,6 +86,7 @@ public class ActionEraseDocumentWithAppInfo extends BaseAction {
 						if( ListTools.isNotEmpty(  idsForDelete )) {
 							for( String docId : idsForDelete ) {
 								logger.info("system try to delete document. id: '"+docId+"'" );
+								Map<FileInfo, StorageMapping> derivatives = new HashMap<>();
 								emc.beginTransaction( Document.class );
 								emc.beginTransaction( FileInfo.class );
 								try {
@@ -103,6 +107,7 @@ public class ActionEraseDocumentWithAppInfo extends BaseAction {
 												if( "ATTACHMENT".equals( fileInfo.getFileType() )){
 													mapping = ThisApplication.context().storageMappings().get( FileInfo.class, fileInfo.getStorage() );
 													fileInfo.deleteContent( mapping );
+													derivatives.put( fileInfo, mapping );
 												}
 											}
 											emc.remove( fileInfo, CheckRemoveType.all );
@@ -117,6 +122,8 @@ public class ActionEraseDocumentWithAppInfo extends BaseAction {
 								}
 								//先提交事务
 								emc.commit();
+								//衍生内容在附件删除提交后清理，失败不影响附件的删除
+								derivatives.forEach( ( o, m ) -> Derivative.deleteQuietly( m, o ) );
 
 								try {
 									//删除该文档对应的所有Review信息
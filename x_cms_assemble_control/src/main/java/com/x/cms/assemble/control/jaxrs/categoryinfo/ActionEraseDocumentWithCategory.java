@@ -6,6 +6,7 @@ import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.AuditLog;
 import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.WoId;
@@ -22,7 +23,9 @@ import com.x.query.core.entity.Item;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ActionEraseDocumentWithCategory extends BaseAction {
 
@@ -81,7 +84,7 @@ public class ActionEraseDocumentWithCategory extends BaseAction {
 						logger.info(">>>>正在根据categoryId查询"+queryMaxCount+"个需要删除的文档ID列表。");
 						idsForDelete = documentServiceAdv.listIdsByCategoryId( id, queryMaxCount );
 						if( ListTools.isNotEmpty(  idsForDelete )) {
-							
+							Map<FileInfo, StorageMapping> derivatives = new HashMap<>();
 							emc.beginTransaction( Document.class );
 							emc.beginTransaction( Item.class );
 							emc.beginTransaction( FileInfo.class );
@@ -103,6 +106,7 @@ public class ActionEraseDocumentWithCategory extends BaseAction {
 												if( "ATTACHMENT".equals( fileInfo.getFileType() )){
 													mapping = ThisApplication.context().storageMappings().get( FileInfo.class, fileInfo.getStorage() );
 													fileInfo.deleteContent( mapping );
+													derivatives.put( fileInfo, mapping );
 												}
 											}
 											emc.remove( fileInfo, CheckRemoveType.all );
@@ -115,6 +119,8 @@ public class ActionEraseDocumentWithCategory extends BaseAction {
 								}
 							}
 							emc.commit();
+							//衍生内容在附件删除提交后清理，失败不影响附件的删除
+							derivatives.forEach( ( o, m ) -> Derivative.deleteQuietly( m, o ) );
 							ApplicationCache.notify( Document.class );
 						}
 						count = documentServiceAdv.countByCategoryId( id );
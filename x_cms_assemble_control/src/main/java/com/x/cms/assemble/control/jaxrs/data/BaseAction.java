@@ -49,6 +49,7 @@ public class BaseAction extends StandardJaxrsAction {
 		if (null != title && !Objects.equals(title, document.getTitle())) {
 			business.entityManagerContainer().beginTransaction(Document.class);
 			business.entityManagerContainer().beginTransaction(Item.class);
+			business.entityManagerContainer().notifyAfterCommit(Item.class, document.getId());
 			if ((null != title) && (!Objects.equals(title, document.getTitle()))) {
 				document.setTitle(title);
 			}
@@ -65,6 +66,7 @@ public class BaseAction extends StandardJaxrsAction {
 		
 		if ((!removes.isEmpty()) || (!adds.isEmpty())) {
 			business.entityManagerContainer().beginTransaction(Item.class);
+			business.entityManagerContainer().notifyAfterCommit(Item.class, document.getId());
 			for (Item _o : removes) {
 				business.entityManagerContainer().remove(_o);
 			}
@@ -94,6 +96,7 @@ public class BaseAction extends StandardJaxrsAction {
 				cursorPaths[3], cursorPaths[4], cursorPaths[5], cursorPaths[6], cursorPaths[7]);
 		DataItemConverter<Item> converter = new DataItemConverter<>(Item.class);
 		business.entityManagerContainer().beginTransaction(Item.class);
+		business.entityManagerContainer().notifyAfterCommit(Item.class, document.getId());
 		if ((null != cursor) && cursor.getItemType().equals(ItemType.a)) {
 			/* 向数组里面添加一个成员对象 */
 			Integer index = business.itemFactory().getArrayLastIndexWithDocmentWithPath(document.getId(), paths);
@@ -128,6 +131,7 @@ public class BaseAction extends StandardJaxrsAction {
 			throw new Exception( "data{docId:" + document.getId() + "} on path:" + StringUtils.join(paths, ".") + " is not existed.");
 		}
 		business.entityManagerContainer().beginTransaction(Item.class);
+		business.entityManagerContainer().notifyAfterCommit(Item.class, document.getId());
 		for (Item o : exists) {
 			business.entityManagerContainer().remove(o);
 		}
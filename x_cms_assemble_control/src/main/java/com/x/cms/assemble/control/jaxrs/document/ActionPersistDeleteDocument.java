@@ -6,6 +6,7 @@ import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.AuditLog;
 import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.WoId;
@@ -21,7 +22,9 @@ import com.x.cms.core.entity.FileInfo;
 import com.x.query.core.entity.Item;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ActionPersistDeleteDocument extends BaseAction {
 
@@ -53,6 +56,7 @@ public class ActionPersistDeleteDocument extends BaseAction {
 			DocumentDataHelper documentDataHelper = new DocumentDataHelper( emc, document );
 			documentDataHelper.remove();
 			
+			Map<FileInfo, StorageMapping> derivatives = new HashMap<>();
 			allFileInfoIds = business.getFileInfoFactory().listAllByDocument( id );
 			if( allFileInfoIds != null && !allFileInfoIds.isEmpty() ){
 				for( String fileInfoId : allFileInfoIds ){
@@ -61,6 +65,7 @@ public class ActionPersistDeleteDocument extends BaseAction {
 						if( "ATTACHMENT".equals( fileInfo.getFileType() )){
 							mapping = ThisApplication.context().storageMappings().get( FileInfo.class, fileInfo.getStorage() );
 							fileInfo.deleteContent(mapping);
+							derivatives.put( fileInfo, mapping );
 						}
 					}
 					emc.remove( fileInfo, CheckRemoveType.all );
@@ -78,6 +83,8 @@ public class ActionPersistDeleteDocument extends BaseAction {
 			//删除文档信息
 			emc.remove( document, CheckRemoveType.all );
 			emc.commit();
+			//衍生内容在附件删除提交后清理，失败不影响附件的删除
+			derivatives.forEach( ( o, m ) -> Derivative.deleteQuietly( m, o ) );
 			
 			ApplicationCache.notify( Document.class );
 			ApplicationCache.notify( DocumentCommentInfo.class );
@@ -73,23 +73,16 @@ public class ActionQueryViewDocument extends BaseAction {
 		}
 		
 		if (check ) {
-			//只要不是管理员访问，则记录该文档的访问记录
+			//只要不是管理员访问，则记录该文档的访问记录，定时合并后异步写入访问记录以及Document和item里的访问量
 			if ( !"xadmin".equalsIgnoreCase( personName) ) {
-				try {
-					viewCount = documentViewRecordServiceAdv.addViewRecord( id, personName );
-					result.getData().document.setViewCount( viewCount );
-				} catch (Exception e) {
-					logger.error(e, effectivePerson, request, null);
-				}
+				ThisApplication.queueDocumentViewCountUpdate.increase( id, personName );
 			}
-			
-			//异步更新item里的访问量，便于视图统计
 			try {
-				ThisApplication.queueDocumentViewCountUpdate.send( result.getData().getDocument() );
-			} catch ( Exception e1 ) {
-				e1.printStackTrace();
+				viewCount = documentViewRecordServiceAdv.getViewCount( id ) + ThisApplication.queueDocumentViewCountUpdate.pending( id );
+				result.getData().document.setViewCount( viewCount );
+			} catch (Exception e) {
+				logger.error(e, effectivePerson, request, null);
 			}
-			
 		}
 		return result;			
 	}
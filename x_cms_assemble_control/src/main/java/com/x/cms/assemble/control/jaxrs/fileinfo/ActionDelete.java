@@ -6,6 +6,7 @@ import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.AuditLog;
 import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.WoId;
@@ -71,6 +72,8 @@ public class ActionDelete extends BaseAction {
 			emc.beginTransaction(Document.class);
 			emc.remove(fileInfo, CheckRemoveType.all);
 			emc.commit();
+			// 衍生内容在附件删除提交后清理，失败不影响附件的删除
+			Derivative.deleteQuietly(mapping, fileInfo);
 			
 			List<String> keys = new ArrayList<>();
 			keys.add( "file.all" ); //清除文档的附件列表缓存
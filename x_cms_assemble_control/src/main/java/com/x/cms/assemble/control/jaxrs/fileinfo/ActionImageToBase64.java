@@ -1,10 +1,7 @@
 package com.x.cms.assemble.control.jaxrs.fileinfo;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 
-import javax.imageio.ImageIO;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.codec.binary.Base64;
@@ -14,11 +11,14 @@ import org.imgscalr.Scalr;
 
 import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
+import com.x.base.core.project.derivative.DerivativeStore;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.http.WrapOutString;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.tools.ImageTools;
 import com.x.cms.assemble.control.ThisApplication;
 import com.x.cms.core.entity.FileInfo;
 
@@ -89,38 +89,46 @@ public class ActionImageToBase64 extends BaseAction {
 					//logger.error( e, effectivePerson, request, null);
 				}
 			}
-			BufferedImage image = null;
-			ByteArrayInputStream input = null;
-			ByteArrayOutputStream output_for_ftp = new ByteArrayOutputStream();
-			ByteArrayOutputStream output = new ByteArrayOutputStream();
-			StorageMapping mapping = ThisApplication.context().storageMappings().get( FileInfo.class, fileInfo.getStorage());
-			try{
-				fileInfo.readContent( mapping, output_for_ftp );
-				input = new ByteArrayInputStream( output_for_ftp.toByteArray() );
-				image = ImageIO.read( input );
-				int width = image.getWidth();
-				int height = image.getHeight();
-				if ( sizeNum > 0 ) {
-					if( width * height > sizeNum * sizeNum ){
-						image = Scalr.resize( image, sizeNum );
+			if( check ){
+				try{
+					StorageMapping mapping = ThisApplication.context().storageMappings().get( FileInfo.class, fileInfo.getStorage());
+					final FileInfo source = fileInfo;
+					final int limit = sizeNum;
+					/* 缩放后的图片按文件版本保存在存储器中,不需要每次重新解码原图 */
+					Derivative derivative = DerivativeStore.get( mapping, Derivative.key( fileInfo ), "limit_" + limit + ".png",
+							() -> limit( source.readContent( mapping ), limit ) );
+					if( derivative == null ){
+						throw new Exception( "can not read image:" + id + "." );
 					}
-				}							
-				ImageIO.write( image, "png", output );
-				wrap = new WrapOutString();
-				wrap.setValue(Base64.encodeBase64String( output.toByteArray() ));
-				cache.put(new Element( cacheKey, wrap ));
-				result.setData( wrap );
-			}catch( Exception e ){
-				check = false;
-				Exception exception = new ExceptionFileInfoBase64Encode( e, id );
-				result.error( exception );
-				logger.error( e, effectivePerson, request, null);
+					wrap = new WrapOutString();
+					wrap.setValue(Base64.encodeBase64String( derivative.readContent( mapping ) ));
+					cache.put(new Element( cacheKey, wrap ));
+					result.setData( wrap );
+				}catch( Exception e ){
+					check = false;
+					Exception exception = new ExceptionFileInfoBase64Encode( e, id );
+					result.error( exception );
+					logger.error( e, effectivePerson, request, null);
+				}
 			}
 		}
 		
 		return result;
 	}
 
+	private byte[] limit( byte[] bytes, int size ) throws Exception {
+		BufferedImage image = ImageTools.read( bytes, size, size );
+		if( image == null ){
+			return null;
+		}
+		if ( size > 0 ) {
+			if( image.getWidth() * image.getHeight() > size * size ){
+				image = Scalr.resize( image, size );
+			}
+		}
+		return ImageTools.png( image );
+	}
+
 	private boolean isImage(FileInfo fileInfo) {
 		if( fileInfo == null || StringUtils.isEmpty(fileInfo.getExtension()) ){
 			return false;
@@ -1,5 +1,14 @@
 package com.x.cms.assemble.control.queue;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
@@ -8,43 +17,209 @@ import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.dataitem.DataItemConverter;
 import com.x.base.core.entity.dataitem.ItemCategory;
 import com.x.base.core.project.gson.XGsonBuilder;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.queue.AbstractQueue;
+import com.x.base.core.project.tools.ListTools;
 import com.x.cms.assemble.control.Business;
+import com.x.cms.assemble.control.service.DocumentViewRecordServiceAdv;
 import com.x.cms.core.entity.Document;
 import com.x.query.core.entity.Item;
 
 /**
- * Document被访问时，需要将总的访问量更新到item的document中，便于视图使用，在队列里异步修改
+ * Document被访问时，需要记录访问人的访问次数，并将总的访问量更新到Document以及item的document中，便于视图使用<br/>
+ * 访问时只在内存中按文档和访问人累加访问次数，定时将一段时间内的访问合并为一条消息，在队列里每篇文档只更新一次访问记录和访问量
  */
-public class QueueDocumentViewCountUpdate extends AbstractQueue<Document> {
-	
+public class QueueDocumentViewCountUpdate extends AbstractQueue<Map<String, Long>> {
+
+	private static Logger logger = LoggerFactory.getLogger( QueueDocumentViewCountUpdate.class );
+
+	private static final String PATH_DOCUMENT = "$document";
+
+	/* 文档ID与访问人之间的分隔符 */
+	private static final String SEPARATOR = "#";
+
+	/* 每批查询和更新的文档数量 */
+	private static final int BATCH_SIZE = 200;
+
 	private Gson gson = XGsonBuilder.instance();
 
-	public void execute( Document obj ) throws Exception {
-		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			Document document = emc.find( obj.getId(), Document.class);
-			JsonElement jsonElement = null;
-			
-			if ( null == document ) {
-				throw new ExceptionDocumentNotExists( obj.getId() );
+	private DocumentViewRecordServiceAdv documentViewRecordServiceAdv = new DocumentViewRecordServiceAdv();
+
+	/* 尚未写入的访问次数，key为 文档ID#访问人 */
+	private Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	/* 尚未写入的按文档合计的访问次数，用于返回访问量 */
+	private Map<String, LongAdder> documentCounters = new ConcurrentHashMap<>();
+
+	/**
+	 * 记录一次文档访问
+	 * @param docId
+	 * @param personName
+	 */
+	public void increase( String docId, String personName ) {
+		increase( counters, docId + SEPARATOR + personName );
+		increase( documentCounters, docId );
+	}
+
+	private void increase( Map<String, LongAdder> map, String key ) {
+		increase( map, key, 1L );
+	}
+
+	/**
+	 * 在计数器上累加，累加在compute中完成，与取走计数器的remove互斥，取走后不会再有访问累加到旧的计数器上
+	 * @param map
+	 * @param key
+	 * @param count
+	 */
+	private void increase( Map<String, LongAdder> map, String key, long count ) {
+		map.compute( key, ( k, v ) -> {
+			LongAdder adder = ( null == v ) ? new LongAdder() : v;
+			adder.add( count );
+			return adder;
+		});
+	}
+
+	/**
+	 * 文档在本节点上尚未写入的访问次数
+	 * @param docId
+	 * @return
+	 */
+	public long pending( String docId ) {
+		LongAdder adder = documentCounters.get( docId );
+		return null == adder ? 0L : adder.sum();
+	}
+
+	/**
+	 * 将累计的访问次数合并为一条消息放入队列
+	 * @throws Exception
+	 */
+	public void flush() throws Exception {
+		Map<String, Long> deltas = this.drain();
+		if( !deltas.isEmpty() ) {
+			this.send( deltas );
+		}
+	}
+
+	private Map<String, Long> drain() {
+		Map<String, Long> deltas = drain( counters );
+		//按文档的合计只用于显示，与访问记录同时清零
+		drain( documentCounters );
+		return deltas;
+	}
+
+	/**
+	 * 逐个取走计数器后再合计，取走的计数器不会再被累加，合计值就是这段时间内的全部访问次数
+	 * @param map
+	 * @return
+	 */
+	private Map<String, Long> drain( Map<String, LongAdder> map ) {
+		Map<String, Long> deltas = new HashMap<>();
+		for( String key : new ArrayList<>( map.keySet() ) ) {
+			LongAdder adder = map.remove( key );
+			if( null != adder && adder.sum() > 0 ) {
+				deltas.put( key, adder.sum() );
 			}
-			if( obj.getViewCount() > document.getViewCount() ) {
-				document.setViewCount( obj.getViewCount() );
+		}
+		return deltas;
+	}
+
+	/**
+	 * 写入失败的访问次数重新放回计数器，下次合并时再次写入
+	 * @param deltas 访问人 -> 访问次数
+	 * @param docId
+	 */
+	private void requeue( String docId, Map<String, Long> deltas ) {
+		for( Entry<String, Long> entry : deltas.entrySet() ) {
+			increase( counters, docId + SEPARATOR + entry.getKey(), entry.getValue() );
+			increase( documentCounters, docId, entry.getValue() );
+		}
+	}
+
+	public void execute( Map<String, Long> deltas ) throws Exception {
+		Map<String, Map<String, Long>> documentDeltas = new HashMap<>();
+		long views = 0;
+		for( Entry<String, Long> entry : deltas.entrySet() ) {
+			String docId = StringUtils.substringBefore( entry.getKey(), SEPARATOR );
+			String personName = StringUtils.substringAfter( entry.getKey(), SEPARATOR );
+			documentDeltas.computeIfAbsent( docId, k -> new HashMap<>() ).put( personName, entry.getValue() );
+			views += entry.getValue();
+		}
+		List<String> ids = new ArrayList<>( documentDeltas.keySet() );
+		for( List<String> batch : ListTools.batch( ids, BATCH_SIZE ) ) {
+			Map<String, Map<String, Long>> map = new HashMap<>();
+			for( String id : batch ) {
+				map.put( id, documentDeltas.get( id ) );
+			}
+			try {
+				documentViewRecordServiceAdv.addViewRecords( map );
+			} catch (Exception e) {
+				logger.error( e );
+				//访问记录和访问量在同一个事务中写入，失败时全部重新放回
+				map.forEach( this::requeue );
+				continue;
+			}
+			try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+				updateViewCount( new Business(emc), batch );
+			}
+		}
+		logger.debug( "update view count of {} documents for {} views.", ids.size(), views );
+	}
+
+	/**
+	 * 访问量以Document中的viewCount为准，只修改$document.viewCount这一条item
+	 * @param business
+	 * @param ids
+	 * @throws Exception
+	 */
+	private void updateViewCount( Business business, List<String> ids ) throws Exception {
+		EntityManagerContainer emc = business.entityManagerContainer();
+		Map<String, Long> viewCounts = new HashMap<>();
+		for( Document o : emc.fetch( ids, Document.class, ListTools.toList( Document.viewCount_FIELDNAME ) ) ) {
+			viewCounts.put( o.getId(), o.getViewCount() == null ? 0L : o.getViewCount() );
+		}
+		List<Item> items = business.itemFactory().listWithDocmentsWithPath( new ArrayList<>( viewCounts.keySet() ),
+				PATH_DOCUMENT, Document.viewCount_FIELDNAME );
+		List<String> withoutItems = new ArrayList<>( viewCounts.keySet() );
+		emc.beginTransaction( Item.class );
+		for( Item item : items ) {
+			withoutItems.remove( item.getBundle() );
+			Double value = viewCounts.get( item.getBundle() ).doubleValue();
+			if( !Objects.equals( item.getNumberValue(), value ) ) {
+				item.value( value );
+			}
+		}
+		emc.commit();
+		//还没有生成item的文档，按原来的方式整体更新$document
+		for( String id : withoutItems ) {
+			Document document = emc.find( id, Document.class );
+			if( null != document ) {
+				updateData( business, document, gson.toJsonTree( document ), PATH_DOCUMENT );
 			}
-			jsonElement = gson.toJsonTree( document );
-			
-			/** 更新DataItem数据. */
-			updateData( new Business(emc), document, jsonElement, "$document" );
 		}
 	}
-	
+
+	@Override
+	public void stop() {
+		super.stop();
+		try {
+			//停止前将还没有更新的访问次数直接写入
+			Map<String, Long> deltas = this.drain();
+			if( !deltas.isEmpty() ) {
+				this.execute( deltas );
+			}
+		} catch (Exception e) {
+			logger.error( e );
+		}
+	}
+
 	void updateData(Business business, Document document, JsonElement jsonElement, String... paths) throws Exception {
 		DataItemConverter<Item> converter = new DataItemConverter<>(Item.class);
 		List<Item> exists = business.itemFactory().listWithDocmentWithPath( document.getId(), paths );
 		List<Item> currents = converter.disassemble(jsonElement, paths);
 		List<Item> removes = converter.subtract(exists, currents);
 		List<Item> adds = converter.subtract(currents, exists);
-		
+
 		if ((!removes.isEmpty()) || (!adds.isEmpty())) {
 			business.entityManagerContainer().beginTransaction(Item.class);
 			for (Item _o : removes) {
@@ -57,7 +232,7 @@ public class QueueDocumentViewCountUpdate extends AbstractQueue<Document> {
 			business.entityManagerContainer().commit();
 		}
 	}
-	
+
 	void fill(Item o, Document document) {
 		/** 将DateItem与Document放在同一个分区 */
 		o.setDistributeFactor(document.getDistributeFactor());
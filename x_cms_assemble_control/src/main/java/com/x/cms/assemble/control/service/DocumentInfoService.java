@@ -5,6 +5,7 @@ import com.x.base.core.entity.JpaObject;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
 import com.x.base.core.project.tools.ListTools;
 import com.x.cms.assemble.control.Business;
@@ -20,7 +21,9 @@ import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DocumentInfoService {
 
@@ -339,6 +342,7 @@ public class DocumentInfoService {
 		DocumentDataHelper documentDataHelper = new DocumentDataHelper( emc, document );
 		documentDataHelper.remove();
 		
+		Map<FileInfo, StorageMapping> derivatives = new HashMap<>();
 		allFileInfoIds = business.getFileInfoFactory().listAllByDocument( docId );
 		if( ListTools.isNotEmpty( allFileInfoIds ) ){
 			StorageMapping mapping = null;
@@ -349,6 +353,7 @@ public class DocumentInfoService {
 					if( "ATTACHMENT".equals( fileInfo.getFileType() )){
 						mapping = ThisApplication.context().storageMappings().get( FileInfo.class, fileInfo.getStorage() );
 						fileInfo.deleteContent(mapping);
+						derivatives.put( fileInfo, mapping );
 					}
 				}
 				emc.remove( fileInfo, CheckRemoveType.all );
@@ -367,6 +372,8 @@ public class DocumentInfoService {
 			emc.remove( document, CheckRemoveType.all );
 		}		
 		emc.commit();
+		//衍生内容在附件删除提交后清理，失败不影响附件的删除
+		derivatives.forEach( ( o, m ) -> Derivative.deleteQuietly( m, o ) );
 		
 		//压入队列，检查热点图片是否仍存在，如果存在则删除
 		ThisApplication.queueDocumentDelete.send( document.getId() );
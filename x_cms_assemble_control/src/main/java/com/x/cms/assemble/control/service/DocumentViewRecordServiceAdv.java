@@ -15,7 +15,10 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 
 /**
@@ -78,75 +81,86 @@ public class DocumentViewRecordServiceAdv {
 	}
 
 	/**
-	 * TODO:记录访问日志，一个用户一篇文档只保留一条记录，更新访问次数和最后访问时间
+	 * 记录一段时间内合并的访问次数，一个用户一篇文档只保留一条记录，累加访问次数并更新最后访问时间<br/>
+	 * 每篇文档的访问次数按合并后的增量只更新一次，已有记录和文档的访问次数由数据库累加，多个节点同时写入时不会互相覆盖
 	 * 
-	 * @param document
-	 * @param personName
+	 * @param deltas 文档ID -> ( 访问人 -> 访问次数 )
 	 * @throws Exception
 	 */
-	public Long addViewRecord( String docId, String personName ) throws Exception {
-		DocumentViewRecord documentViewRecord = null;
-		Document document = null;
-		Business business = null;
-		Long viewCount = 0L;
-		List<String> ids = null;
+	public void addViewRecords( Map<String, Map<String, Long>> deltas ) throws Exception {
+		List<String> personNames = new ArrayList<>();
+		for( Map<String, Long> map : deltas.values() ) {
+			for( String personName : map.keySet() ) {
+				if( !personNames.contains( personName ) ) {
+					personNames.add( personName );
+				}
+			}
+		}
+		Map<String, DocumentViewRecord> records = new HashMap<>();
+		String key = null;
+		Date now = new Date();
 		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
-			business = new Business( emc );
+			Business business = new Business( emc );
 			emc.beginTransaction( DocumentViewRecord.class );
-			
-			ids = business.documentViewRecordFactory().listByDocAndPerson( docId, personName );
-			document = emc.find( docId, Document.class );
-			
-			if( document == null ) {
-				throw new Exception("document not exists!ID:" + docId );
-			}
-			
-			if( ListTools.isNotEmpty( ids )){
-				int i = 0;
-				for( String id : ids ){
-					i++;
-					documentViewRecord = emc.find( id, DocumentViewRecord.class );
-					if( i == 1 ){
-						documentViewRecord.setLastViewTime( new Date() );
-						if( documentViewRecord.getViewCount() == null || documentViewRecord.getViewCount() == 0 ){
-							documentViewRecord.setViewCount( 1 );
-						}
-						documentViewRecord.setViewCount( documentViewRecord.getViewCount() + 1 );
-						emc.check( documentViewRecord, CheckPersistType.all ); 
-					}else{
+			emc.beginTransaction( Document.class );
+			for( List<String> persons : ListTools.batch( personNames, 500 ) ) {
+				for( DocumentViewRecord o : business.documentViewRecordFactory().listWithDocsAndPersons( new ArrayList<>( deltas.keySet() ), persons ) ) {
+					key = o.getDocumentId() + "#" + o.getViewerName();
+					if( records.containsKey( key ) ) {
 						//删除多余的日志数据
-						emc.remove( documentViewRecord, CheckRemoveType.all );
+						emc.remove( o, CheckRemoveType.all );
+					}else {
+						records.put( key, o );
 					}
 				}
-			}else{
-				if( document != null ){
-					documentViewRecord = new DocumentViewRecord();
-					documentViewRecord.setAppId( document.getAppId() );
-					documentViewRecord.setCategoryId( document.getCategoryId() );
-					documentViewRecord.setDocumentId( document.getId() );
-					documentViewRecord.setViewerName( personName );
-					documentViewRecord.setAppName( document.getAppName() );
-					documentViewRecord.setCategoryName( document.getCategoryName() );
-					documentViewRecord.setTitle( document.getTitle() );
-					documentViewRecord.setLastViewTime( new Date() );
-					documentViewRecord.setViewCount( 1 );
-					documentViewRecord.setViewerTopUnitName( userManagerService.getTopUnitNameWithPerson( personName ));
-					documentViewRecord.setViewerUnitName( userManagerService.getUnitNameWithPerson( personName ));
-					emc.persist( documentViewRecord, CheckPersistType.all ); 
+			}
+			for( Document document : emc.list( Document.class, deltas.keySet() ) ) {
+				long total = 0;
+				for( Entry<String, Long> entry : deltas.get( document.getId() ).entrySet() ) {
+					total += entry.getValue();
+					DocumentViewRecord documentViewRecord = records.get( document.getId() + "#" + entry.getKey() );
+					if( null != documentViewRecord ) {
+						business.documentViewRecordFactory().increaseViewCount( documentViewRecord.getId(), entry.getValue().intValue(), now );
+					}else {
+						documentViewRecord = new DocumentViewRecord();
+						documentViewRecord.setAppId( document.getAppId() );
+						documentViewRecord.setCategoryId( document.getCategoryId() );
+						documentViewRecord.setDocumentId( document.getId() );
+						documentViewRecord.setViewerName( entry.getKey() );
+						documentViewRecord.setAppName( document.getAppName() );
+						documentViewRecord.setCategoryName( document.getCategoryName() );
+						documentViewRecord.setTitle( document.getTitle() );
+						documentViewRecord.setLastViewTime( now );
+						documentViewRecord.setViewCount( entry.getValue().intValue() );
+						documentViewRecord.setViewerTopUnitName( userManagerService.getTopUnitNameWithPerson( entry.getKey() ));
+						documentViewRecord.setViewerUnitName( userManagerService.getUnitNameWithPerson( entry.getKey() ));
+						emc.persist( documentViewRecord, CheckPersistType.all );
+					}
 				}
+				business.getDocumentFactory().increaseViewCount( document.getId(), total );
 			}
 			emc.commit();
-			
-			emc.beginTransaction( Document.class );
-			viewCount = business.documentViewRecordFactory().sumWithDocmentId( docId );
-			document.setViewCount( viewCount );
-			emc.check( document, CheckPersistType.all ); 
-			emc.commit();
-			
 		} catch ( Exception e ) {
 			throw e;
-		}		
-		return viewCount;
+		}
+	}
+
+	/**
+	 * 查询文档已经记录的访问次数
+	 * @param docId
+	 * @return
+	 * @throws Exception
+	 */
+	public Long getViewCount( String docId ) throws Exception {
+		try ( EntityManagerContainer emc = EntityManagerContainerFactory.instance().create() ) {
+			Document document = emc.fetch( docId, Document.class, ListTools.toList( Document.viewCount_FIELDNAME ) );
+			if( null == document || null == document.getViewCount() ) {
+				return 0L;
+			}
+			return document.getViewCount();
+		} catch ( Exception e ) {
+			throw e;
+		}
 	}
 	
 	public List<DocumentViewRecord> listNextWithDocIds( String id, String docId, Integer count, String order) throws Exception {
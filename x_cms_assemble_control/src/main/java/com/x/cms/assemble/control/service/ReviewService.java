@@ -3,6 +3,7 @@ package com.x.cms.assemble.control.service;
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
+import com.x.base.core.project.config.Config;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.organization.Person;
@@ -120,14 +121,20 @@ public class ReviewService {
 				refreshDocumentReview( emc, appInfo, categoryInfo, document, persons );
 			}else if( "published".equalsIgnoreCase( document.getDocStatus() ) ) {
 				logger.debug( "refreshDocumentReview -> refresh review for published document: " + document.getTitle() );
-				List<String> persons = listPermissionPersons( appInfo, categoryInfo, document );
+				List<String> persons = null;
+				if( Config.cms().principalReview() ) {
+					//只保存权限对象，查询时与用户所属的组织、群组和角色匹配
+					persons = listPermissionPrincipals( appInfo, categoryInfo, document );
+				}else {
+					persons = listPermissionPersons( appInfo, categoryInfo, document );
+				}
 				//将文档新的权限与数据库中的权限进行比对，新建或者更新
 				logger.debug( "refreshDocumentReview -> there are "+ persons.size() +" permission in this document: " + document.getTitle() );
 				refreshDocumentReview( emc, appInfo, categoryInfo, document, persons );
 			}else if( "archived".equalsIgnoreCase( document.getDocStatus() ) ) {
 				logger.debug( "refreshDocumentReview -> refresh review for archived document: " + document.getTitle() );
 				//归档的文档应该只有管理员和拟稿人能看见
-				List<String> persons = listPublishAndManagePersons( appInfo, categoryInfo, document );
+				List<String> persons = listPublishAndManagePersons( appInfo, categoryInfo, document, Config.cms().principalReview() );
 				logger.debug( "refreshDocumentReview -> there are "+ persons.size() +" permission in this document: " + document.getTitle() );
 				refreshDocumentReview( emc, appInfo, categoryInfo, document, persons );
 			}
@@ -136,21 +143,21 @@ public class ReviewService {
 		}
 	}
 
-	private List<String> listPublishAndManagePersons(AppInfo appInfo, CategoryInfo categoryInfo, Document document) throws Exception {
+	private List<String> listPublishAndManagePersons(AppInfo appInfo, CategoryInfo categoryInfo, Document document, boolean principal) throws Exception {
 		List<String> persons = new ArrayList<>();
 		persons.add( document.getCreatorPerson() ); //创建者
 		persons = addListToList( persons, categoryInfo.getPublishablePersonList() );			
-		persons = addPermissionObj( persons, categoryInfo.getPublishableUnitList() );
-		persons = addPermissionObj( persons, categoryInfo.getPublishableGroupList() );
+		persons = addPermissionObj( persons, categoryInfo.getPublishableUnitList(), principal );
+		persons = addPermissionObj( persons, categoryInfo.getPublishableGroupList(), principal );
 		persons = addListToList( persons, categoryInfo.getManageablePersonList() );			
-		persons = addPermissionObj( persons, categoryInfo.getManageableUnitList() );
-		persons = addPermissionObj( persons, categoryInfo.getManageableGroupList() );
+		persons = addPermissionObj( persons, categoryInfo.getManageableUnitList(), principal );
+		persons = addPermissionObj( persons, categoryInfo.getManageableGroupList(), principal );
 		persons = addListToList( persons, appInfo.getManageablePersonList() );			
-		persons = addPermissionObj( persons, appInfo.getManageableUnitList() );
-		persons = addPermissionObj( persons, appInfo.getManageableGroupList() );
+		persons = addPermissionObj( persons, appInfo.getManageableUnitList(), principal );
+		persons = addPermissionObj( persons, appInfo.getManageableGroupList(), principal );
 		persons = addListToList( persons, appInfo.getPublishablePersonList() );			
-		persons = addPermissionObj( persons, appInfo.getPublishableUnitList() );
-		persons = addPermissionObj( persons, appInfo.getPublishableGroupList() );
+		persons = addPermissionObj( persons, appInfo.getPublishableUnitList(), principal );
+		persons = addPermissionObj( persons, appInfo.getPublishableGroupList(), principal );
 		return persons;
 	}
 
@@ -163,6 +170,37 @@ public class ReviewService {
 	 * @throws Exception 
 	 */
 	public List<String> listPermissionPersons( AppInfo appInfo, CategoryInfo categoryInfo, Document document ) throws Exception {
+		return listPermissionObjs( appInfo, categoryInfo, document, false );
+	}
+
+	/**
+	 * 列示一个文档涉及到的所有权限对象(人员、组织、群组、角色)，不拆解为人员<br/>
+	 * 文档权限与分类、栏目权限取交集时，如果交集无法用权限对象表示，则仍然拆解为人员
+	 * @param appInfo
+	 * @param categoryInfo
+	 * @param document
+	 * @return
+	 * @throws Exception
+	 */
+	public List<String> listPermissionPrincipals( AppInfo appInfo, CategoryInfo categoryInfo, Document document ) throws Exception {
+		List<String> permissionObjs = listPermissionObjs( appInfo, categoryInfo, document, true );
+		if( permissionObjs == null ) {
+			logger.debug("文档权限与分类、栏目权限的交集无法用权限对象表示，拆解为人员：" + document.getTitle() );
+			permissionObjs = listPermissionObjs( appInfo, categoryInfo, document, false );
+		}
+		return permissionObjs;
+	}
+
+	/**
+	 * 计算文档的可见权限，principal为false时将权限拆解为人员，为true时保留组织、群组和角色
+	 * @param appInfo
+	 * @param categoryInfo
+	 * @param document
+	 * @param principal
+	 * @return 交集无法用权限对象表示时返回null
+	 * @throws Exception
+	 */
+	private List<String> listPermissionObjs( AppInfo appInfo, CategoryInfo categoryInfo, Document document, boolean principal ) throws Exception {
 		List<String> permissionObjs = new ArrayList<>();
 		Boolean documentHasPermissionControl = documentViewPermissionExists(document);
 		Boolean categoryHasPermissionControl = categoryPermissionExists(categoryInfo);
@@ -183,19 +221,19 @@ public class ReviewService {
 				}else {
 					logger.debug("栏目没有阅读权限限制，分类没有阅读权限限制，文档有阅读权限限制。文档可见范围以文档的权限为主");
 					//栏目没有权限限制，分类没有权限限制，文档有权限限制，以文档的权限为主
-					permissionObjs = addDocumentAllPermission( permissionObjs, document );
+					permissionObjs = addDocumentAllPermission( permissionObjs, document, principal );
 				}
 			}else {
 				if( !documentHasPermissionControl ) {//如果文档没有权限控制，则添加分类的权限就可以了
 					logger.debug("栏目没有阅读权限限制，分类有阅读权限限制，文档没有阅读权限限制。文档可见范围以分类权限为主");
 					//栏目没有权限限制，分类有权限限制，文档没有权限限制，以分析权限为主
-					permissionObjs = addCategoryAllPermission( permissionObjs, categoryInfo );
+					permissionObjs = addCategoryAllPermission( permissionObjs, categoryInfo, principal );
 				}else { 
 					logger.debug("栏目没有阅读权限限制，分类有阅读权限限制，文档有阅读权限限制。文档可见范围以文档权限为主，交分类可见范围");
 					//栏目没有权限限制，分类有权限限制，文档有权限限制，以文档权限为主
-					permissionObjs = addDocumentAllPermission( permissionObjs, document );
+					permissionObjs = addDocumentAllPermission( permissionObjs, document, principal );
 					//因为分类有权限限制，所以将分类所有权限与文档权限取交集
-					permissionObjs.retainAll( addCategoryAllPermission( new ArrayList<>(), categoryInfo ) );
+					permissionObjs = retainPermissionObjs( permissionObjs, addCategoryAllPermission( new ArrayList<>(), categoryInfo, principal ), principal );
 				}
 			}
 		}else {//栏目有权限
@@ -203,32 +241,35 @@ public class ReviewService {
 				if( !documentHasPermissionControl ) {//文档没有权限
 					logger.debug("栏目有阅读权限限制，分类没有阅读权限限制，文档没有阅读权限限制。文档可见范围以栏目的权限为主");
 					//栏目有权限限制，分类没有权限限制，文档没有权限限制，以栏目的权限为主
-					permissionObjs = addAppInfoAllPermission( permissionObjs, appInfo );
+					permissionObjs = addAppInfoAllPermission( permissionObjs, appInfo, principal );
 				}else {
 					logger.debug("栏目有阅读权限限制，分类没有阅读权限限制，文档有阅读权限限制。文档可见范围以文档的权限为主，交栏目可见范围");
 					//栏目有权限限制，分类没有权限限制，文档有权限限制，以文档的权限为主
-					permissionObjs = addDocumentAllPermission( permissionObjs, document );
+					permissionObjs = addDocumentAllPermission( permissionObjs, document, principal );
 					//因为栏目有权限限制，所以将栏目所有权限与文档权限取交集
-					permissionObjs.retainAll( addAppInfoAllPermission( new ArrayList<>(), appInfo ) );
+					permissionObjs = retainPermissionObjs( permissionObjs, addAppInfoAllPermission( new ArrayList<>(), appInfo, principal ), principal );
 				}
 			}else {
 				if( !documentHasPermissionControl ) {//如果文档没有权限控制，则添加分类的权限就可以了
 					logger.debug("栏目有阅读权限限制，分类有阅读权限限制，文档没有阅读权限限制。文档可见范围以分类权限为主，交栏目可见范围");
 					//栏目有权限限制，分类有权限限制，文档没有权限限制，以分类权限为主
-					permissionObjs = addCategoryAllPermission( permissionObjs, categoryInfo );
+					permissionObjs = addCategoryAllPermission( permissionObjs, categoryInfo, principal );
 					//因为栏目有权限限制，所以将栏目所有权限与文档权限取交集
-					permissionObjs.retainAll( addAppInfoAllPermission( new ArrayList<>(), appInfo ) );
+					permissionObjs = retainPermissionObjs( permissionObjs, addAppInfoAllPermission( new ArrayList<>(), appInfo, principal ), principal );
 				}else { 
 					logger.debug("栏目有阅读权限限制，分类有阅读权限限制，文档有阅读权限限制。文档可见范围以文档权限为主，交分类和栏目可见范围");
 					//栏目有权限限制，分类有权限限制，文档有权限限制，以文档权限为主
-					permissionObjs = addDocumentAllPermission( permissionObjs, document );
+					permissionObjs = addDocumentAllPermission( permissionObjs, document, principal );
 					//因为分类有权限限制，所以将分类所有权限与文档权限取交集
-					permissionObjs.retainAll( addCategoryAllPermission( new ArrayList<>(), categoryInfo ) );
+					permissionObjs = retainPermissionObjs( permissionObjs, addCategoryAllPermission( new ArrayList<>(), categoryInfo, principal ), principal );
 					//因为栏目有权限限制，所以将栏目所有权限与文档权限取交集
-					permissionObjs.retainAll( addAppInfoAllPermission( new ArrayList<>(), appInfo ) );
+					permissionObjs = retainPermissionObjs( permissionObjs, addAppInfoAllPermission( new ArrayList<>(), appInfo, principal ), principal );
 				}
 			}
 		}
+		if( permissionObjs == null ) {
+			return null;
+		}
 		if( permissionObjs.contains("*")) {
 			//如果是全员可见，那么只需要保留一个权限记录即可
 			permissionObjs.clear();
@@ -315,10 +356,11 @@ public class ReviewService {
 	 * 将栏目所有的权限全部添加到权限列表里
 	 * @param permissionObjs
 	 * @param appInfo
+	 * @param principal 是否保留组织、群组和角色，不拆解为人员
 	 * @return
 	 * @throws Exception 
 	 */
-	private List<String> addAppInfoAllPermission(List<String> permissionObjs, AppInfo appInfo ) throws Exception {
+	private List<String> addAppInfoAllPermission(List<String> permissionObjs, AppInfo appInfo, boolean principal ) throws Exception {
 		if( permissionObjs == null ) {
 			permissionObjs = new ArrayList<>();
 		}
@@ -329,31 +371,31 @@ public class ReviewService {
 			permissionObjs.add( appInfo.getCreatorPerson() );
 		}
 		if( ListTools.isNotEmpty( appInfo.getViewablePersonList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getViewablePersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getViewablePersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getViewableUnitList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getViewableUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getViewableUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getViewableGroupList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getViewableGroupList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getViewableGroupList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getPublishablePersonList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getPublishablePersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getPublishablePersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getPublishableUnitList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getPublishableUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getPublishableUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getPublishableGroupList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getPublishableGroupList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getPublishableGroupList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getManageablePersonList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getManageablePersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getManageablePersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getManageableUnitList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getManageableUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getManageableUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( appInfo.getManageableGroupList())) {
-			permissionObjs = addPermissionObj( permissionObjs, appInfo.getManageableGroupList() );
+			permissionObjs = addPermissionObj( permissionObjs, appInfo.getManageableGroupList(), principal );
 		}
 		return permissionObjs;
 	}
@@ -362,10 +404,11 @@ public class ReviewService {
 	 * 将分类所有的权限全部添加到权限列表里
 	 * @param permissionObjs
 	 * @param categoryInfo
+	 * @param principal 是否保留组织、群组和角色，不拆解为人员
 	 * @return
 	 * @throws Exception 
 	 */
-	private List<String> addCategoryAllPermission(List<String> permissionObjs, CategoryInfo categoryInfo) throws Exception {
+	private List<String> addCategoryAllPermission(List<String> permissionObjs, CategoryInfo categoryInfo, boolean principal) throws Exception {
 		if( permissionObjs == null ) {
 			permissionObjs = new ArrayList<>();
 		}
@@ -376,31 +419,31 @@ public class ReviewService {
 			permissionObjs.add( categoryInfo.getCreatorPerson() );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getViewablePersonList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getViewablePersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getViewablePersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getViewableUnitList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getViewableUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getViewableUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getViewableGroupList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getViewableGroupList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getViewableGroupList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getPublishablePersonList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getPublishablePersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getPublishablePersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getPublishableUnitList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getPublishableUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getPublishableUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getPublishableGroupList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getPublishableGroupList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getPublishableGroupList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getManageablePersonList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getManageablePersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getManageablePersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getManageableUnitList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getManageableUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getManageableUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( categoryInfo.getManageableGroupList())) {
-			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getManageableGroupList() );
+			permissionObjs = addPermissionObj( permissionObjs, categoryInfo.getManageableGroupList(), principal );
 		}
 		return permissionObjs;
 	}
@@ -409,10 +452,11 @@ public class ReviewService {
 	 * 将文档内所有的权限全部添加到权限列表里
 	 * @param permissionObjs
 	 * @param document
+	 * @param principal 是否保留组织、群组和角色，不拆解为人员
 	 * @return
 	 * @throws Exception 
 	 */
-	private List<String> addDocumentAllPermission(List<String> permissionObjs, Document document) throws Exception {
+	private List<String> addDocumentAllPermission(List<String> permissionObjs, Document document, boolean principal) throws Exception {
 		if( permissionObjs == null ) {
 			permissionObjs = new ArrayList<>();
 		}
@@ -420,28 +464,28 @@ public class ReviewService {
 			return permissionObjs;
 		}
 		if( ListTools.isNotEmpty( document.getReadPersonList() ) ) {
-			permissionObjs = addPermissionObj( permissionObjs, document.getReadPersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, document.getReadPersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( document.getReadUnitList() ) ) {
-			permissionObjs = addPermissionObj( permissionObjs, document.getReadUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, document.getReadUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( document.getReadGroupList() ) ) {
-			permissionObjs = addPermissionObj( permissionObjs, document.getReadGroupList() );
+			permissionObjs = addPermissionObj( permissionObjs, document.getReadGroupList(), principal );
 		}
 		if( permissionObjs.contains( document.getCreatorPerson() )) {
 			permissionObjs.add( document.getCreatorPerson() );
 		}
 		if( ListTools.isNotEmpty( document.getAuthorPersonList() ) ) {//文档编辑者
-			permissionObjs = addPermissionObj( permissionObjs, document.getAuthorPersonList() );
+			permissionObjs = addPermissionObj( permissionObjs, document.getAuthorPersonList(), principal );
 		}
 		if( ListTools.isNotEmpty( document.getAuthorUnitList() ) ) {//文档编辑者-组织
-			permissionObjs = addPermissionObj( permissionObjs, document.getAuthorUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, document.getAuthorUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( document.getAuthorGroupList() ) ) {//文档编辑者-群组
-			permissionObjs = addPermissionObj( permissionObjs, document.getAuthorUnitList() );
+			permissionObjs = addPermissionObj( permissionObjs, document.getAuthorUnitList(), principal );
 		}
 		if( ListTools.isNotEmpty( document.getManagerList())) { //文档管理员
-			permissionObjs = addPermissionObj( permissionObjs, document.getManagerList() );
+			permissionObjs = addPermissionObj( permissionObjs, document.getManagerList(), principal );
 		}
 		return permissionObjs;
 	}
@@ -450,10 +494,11 @@ public class ReviewService {
 	 * 将指定的权限名称拆解人员，添加到permissionObjs，并且返回
 	 * @param permissionObjs
 	 * @param objNames
+	 * @param principal 是否保留组织、群组和角色，不拆解为人员
 	 * @return
 	 * @throws Exception 
 	 */
-	private List<String> addPermissionObj(List<String> permissionObjs, List<String> objNames ) throws Exception {
+	private List<String> addPermissionObj(List<String> permissionObjs, List<String> objNames, boolean principal ) throws Exception {
 		String result = null;
 		List<String> persons = null;
 		if( permissionObjs == null ) {
@@ -472,18 +517,30 @@ public class ReviewService {
 					}else if( objName.trim().endsWith( "@U" ) ) {//将组织拆解为人员
 						//判断一下，如果不是顶层组织，就或者顶层组织不唯一，才将组织解析为人员
 						if( !userManagerService.isTopUnit( objName ) || userManagerService.countTopUnit() > 1 ) {
-							persons = userManagerService.listPersonWithUnit( objName );
-							permissionObjs = addListToList( permissionObjs, persons );
+							if( principal ) {
+								permissionObjs = addStringToList( permissionObjs, objName );
+							}else {
+								persons = userManagerService.listPersonWithUnit( objName );
+								permissionObjs = addListToList( permissionObjs, persons );
+							}
 						}else {
 							//如果是顶层组织，并且顶层组织只有一个
 							permissionObjs = addStringToList( permissionObjs, "*" );
 						}
 					}else if( objName.trim().endsWith( "@G" ) ) {//将群组拆解为人员
-						persons = userManagerService.listPersonWithGroup( objName );
-						permissionObjs = addListToList( permissionObjs, persons );
+						if( principal ) {
+							permissionObjs = addStringToList( permissionObjs, objName );
+						}else {
+							persons = userManagerService.listPersonWithGroup( objName );
+							permissionObjs = addListToList( permissionObjs, persons );
+						}
 					}else if( objName.trim().endsWith( "@R" ) ) {
-						persons = userManagerService.listPersonWithRole( objName );
-						permissionObjs = addListToList( permissionObjs, persons );
+						if( principal ) {
+							permissionObjs = addStringToList( permissionObjs, objName );
+						}else {
+							persons = userManagerService.listPersonWithRole( objName );
+							permissionObjs = addListToList( permissionObjs, persons );
+						}
 					}else if( "*".equals( objName.trim() ) ) {
 						permissionObjs = addStringToList( permissionObjs, objName );
 					}
@@ -494,6 +551,28 @@ public class ReviewService {
 		return permissionObjs;
 	}
 	
+	/**
+	 * 文档权限与分类或者栏目的权限取交集<br/>
+	 * 权限对象模式下，只有分类或者栏目全员可见，或者包含文档所有的权限对象时，交集才是文档的权限对象，其他情况返回null
+	 * @param permissionObjs
+	 * @param limitObjs
+	 * @param principal
+	 * @return
+	 */
+	private List<String> retainPermissionObjs( List<String> permissionObjs, List<String> limitObjs, boolean principal ) {
+		if( permissionObjs == null ) {
+			return null;
+		}
+		if( !principal ) {
+			permissionObjs.retainAll( limitObjs );
+			return permissionObjs;
+		}
+		if( limitObjs.contains( "*" ) || limitObjs.containsAll( permissionObjs )) {
+			return permissionObjs;
+		}
+		return null;
+	}
+
 	/**
 	 * 将字符串添加到集合里，去重
 	 * @param list
@@ -569,14 +648,17 @@ public class ReviewService {
 			String personName = null;
 			for( String person : permissionPersons ) {
 				
-				if( !person.equalsIgnoreCase( "*" )) {
+				if( person.equalsIgnoreCase( "*" )) {
+					personName = "*";
+				}else if( StringUtils.endsWithAny( person, "@U", "@G", "@R" )) {
+					//权限对象模式下的组织、群组和角色，查询时匹配
+					personName = person;
+				}else {
 					//检查一下个人是否存在，防止姓名或者唯一标识变更过了导致文档权限不正确
 					personObj = userManagerService.getPerson( person );
 					if( personObj != null ) {
 						personName = personObj.getDistinguishedName();
 					}
-				}else {
-					personName = "*";
 				}
 				if( StringUtils.isNotEmpty( personName )) {
 					//查询一下，数据库里， 是否有相同的数据，如果有，就不再添加了
@@ -667,6 +749,12 @@ public class ReviewService {
 		review.setPermissionObj( person );
 		if( "*".equals( person ) ) {
 			review.setPermissionObjType( "*" );
+		}else if( person.endsWith( "@U" ) ) {
+			review.setPermissionObjType( "UNIT" );
+		}else if( person.endsWith( "@G" ) ) {
+			review.setPermissionObjType( "GROUP" );
+		}else if( person.endsWith( "@R" ) ) {
+			review.setPermissionObjType( "ROLE" );
 		}else {
 			review.setPermissionObjType( "PERSON" );
 		}
@@ -0,0 +1,19 @@
+package com.x.cms.assemble.control.timertask;
+
+import org.quartz.JobExecutionContext;
+
+import com.x.base.core.project.schedule.AbstractJob;
+import com.x.cms.assemble.control.ThisApplication;
+
+/**
+ * 将本节点累计的文档访问次数合并后放入队列，更新item中的访问量
+ *
+ */
+public class Timertask_DocumentViewCountFlush extends AbstractJob {
+
+	@Override
+	public void schedule(JobExecutionContext jobExecutionContext) throws Exception {
+		ThisApplication.queueDocumentViewCountUpdate.flush();
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.x.cms.assemble.control.test.review;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.project.tools.ListTools;
+import com.x.cms.assemble.control.service.ReviewService;
+import com.x.cms.core.entity.AppInfo;
+import com.x.cms.core.entity.CategoryInfo;
+import com.x.cms.core.entity.Document;
+
+/**
+ * principal模式下文档可见权限的计算,只使用人员,群组和角色,不需要访问组织服务.
+ */
+public class TestClient {
+
+	private static final String PERSON_A = "personA@a@P";
+
+	private static final String PERSON_B = "personB@b@P";
+
+	private static final String GROUP = "group1@g1@G";
+
+	private static final String ROLE = "role1@r1@R";
+
+	/* 栏目,分类都没有权限限制,所有人可见 */
+	@Test
+	public void testNoPermissionControl() throws Exception {
+		List<String> objs = new ReviewService().listPermissionPrincipals(new AppInfo(), new CategoryInfo(),
+				new Document());
+		Assert.assertEquals(ListTools.toList("*"), objs);
+	}
+
+	/* 只有文档有权限限制,保留群组和角色,不拆解为人员 */
+	@Test
+	public void testDocumentPrincipals() throws Exception {
+		Document document = new Document();
+		document.setReadPersonList(ListTools.toList(PERSON_A));
+		document.setReadGroupList(ListTools.toList(GROUP, ROLE));
+		List<String> objs = new ReviewService().listPermissionPrincipals(new AppInfo(), new CategoryInfo(),
+				document);
+		Assert.assertEquals(3, objs.size());
+		Assert.assertTrue(objs.containsAll(ListTools.toList(PERSON_A, GROUP, ROLE)));
+	}
+
+	/* 分类的可见范围包含文档全部权限对象时,交集仍然是文档的权限对象 */
+	@Test
+	public void testCategoryContainsDocument() throws Exception {
+		Document document = new Document();
+		document.setReadGroupList(ListTools.toList(GROUP));
+		CategoryInfo categoryInfo = new CategoryInfo();
+		categoryInfo.setViewableGroupList(ListTools.toList(GROUP));
+		categoryInfo.setViewablePersonList(ListTools.toList(PERSON_B));
+		List<String> objs = new ReviewService().listPermissionPrincipals(new AppInfo(), categoryInfo, document);
+		Assert.assertEquals(ListTools.toList(GROUP), objs);
+	}
+
+	/* 交集无法用权限对象表示时拆解为人员再取交集 */
+	@Test
+	public void testFallbackToPersons() throws Exception {
+		Document document = new Document();
+		document.setReadPersonList(ListTools.toList(PERSON_A, PERSON_B));
+		CategoryInfo categoryInfo = new CategoryInfo();
+		categoryInfo.setViewablePersonList(ListTools.toList(PERSON_A));
+		List<String> objs = new ReviewService().listPermissionPrincipals(new AppInfo(), categoryInfo, document);
+		Assert.assertEquals(ListTools.toList(PERSON_A), objs);
+	}
+
+	/* 数据类型的文档全员可见,由栏目和分类控制 */
+	@Test
+	public void testDataDocument() throws Exception {
+		Document document = new Document();
+		document.setDocumentType("数据");
+		document.setReadPersonList(ListTools.toList(PERSON_A));
+		List<String> objs = new ReviewService().listPermissionPrincipals(new AppInfo(), new CategoryInfo(),
+				document);
+		Assert.assertEquals(ListTools.toList("*"), objs);
+	}
+
+}
@@ -88,6 +88,24 @@ public class Business {
 		return recycle;
 	}
 
+	private FileChunkFactory fileChunk;
+
+	public FileChunkFactory fileChunk() throws Exception {
+		if (null == this.fileChunk) {
+			this.fileChunk = new FileChunkFactory(this);
+		}
+		return fileChunk;
+	}
+
+	private UploadSessionFactory uploadSession;
+
+	public UploadSessionFactory uploadSession() throws Exception {
+		if (null == this.uploadSession) {
+			this.uploadSession = new UploadSessionFactory(this);
+		}
+		return uploadSession;
+	}
+
 	private Organization organization;
 
 	public Organization organization() throws Exception {
@@ -0,0 +1,103 @@
+package com.x.file.assemble.control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.config.StorageMappings;
+import com.x.file.core.entity.open.FileChunk;
+
+/**
+ * 分块上传的文件块处理.<br/>
+ * 每个块在内存中最多占用MAX_CHUNK_SIZE,合并时逐块从存储读出顺序写入,整个文件不会进入内存.
+ */
+public class ChunkTools {
+
+	/* 单个文件块的最大长度 */
+	public static final int MAX_CHUNK_SIZE = 1024 * 1024 * 32;
+
+	/* 一个文件最多的块数量 */
+	public static final int MAX_CHUNK_COUNT = 100000;
+
+	private static final Pattern PATTERN_MD5 = Pattern.compile("^[0-9a-f]{32}$");
+
+	private ChunkTools() {
+	}
+
+	/* 块列表不为空,数量不超过上限,每个块都是小写的32位md5 */
+	public static boolean valid(List<String> chunkList) {
+		if ((null == chunkList) || chunkList.isEmpty() || (chunkList.size() > MAX_CHUNK_COUNT)) {
+			return false;
+		}
+		for (String str : chunkList) {
+			if ((null == str) || (!PATTERN_MD5.matcher(str).matches())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static String md5(byte[] bytes) {
+		return DigestUtils.md5Hex(bytes);
+	}
+
+	/**
+	 * 读取一个文件块,超过MAX_CHUNK_SIZE时返回null,不会读入超过上限的内容.
+	 */
+	public static byte[] read(InputStream input) throws Exception {
+		try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			long length = IOUtils.copyLarge(new BoundedInputStream(input, MAX_CHUNK_SIZE + 1L), baos);
+			if (length > MAX_CHUNK_SIZE) {
+				return null;
+			}
+			return baos.toByteArray();
+		}
+	}
+
+	/**
+	 * 保存文件块的内容,返回还未持久化的FileChunk.
+	 */
+	public static FileChunk save(StorageMapping mapping, String md5, byte[] bytes) throws Exception {
+		FileChunk chunk = new FileChunk(mapping.getName(), md5);
+		chunk.saveContent(mapping, bytes, chunk.getName());
+		return chunk;
+	}
+
+	/**
+	 * 按顺序将文件块写入output,同时计算整个文件的md5.
+	 *
+	 * @param chunkList 按顺序排列的块md5
+	 * @param chunks    块md5对应的FileChunk,必须包含chunkList中的所有块
+	 * @return 写入内容的md5
+	 */
+	public static String assemble(List<String> chunkList, Map<String, FileChunk> chunks, StorageMappings mappings,
+			OutputStream output) throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("MD5");
+		DigestOutputStream dos = new DigestOutputStream(output, digest);
+		for (String md5 : chunkList) {
+			FileChunk chunk = chunks.get(md5);
+			if (null == chunk) {
+				throw new Exception("chunk not exist:" + md5 + ".");
+			}
+			StorageMapping mapping = mappings.get(FileChunk.class, chunk.getStorage());
+			if (null == mapping) {
+				throw new Exception("storage not exist:" + chunk.getStorage() + ".");
+			}
+			chunk.readContent(mapping, dos);
+		}
+		dos.flush();
+		return Hex.encodeHexString(digest.digest());
+	}
+
+}
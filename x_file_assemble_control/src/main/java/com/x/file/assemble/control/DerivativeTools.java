@@ -0,0 +1,154 @@
+package com.x.file.assemble.control;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.imgscalr.Scalr;
+
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
+import com.x.base.core.project.derivative.DerivativeStore;
+import com.x.base.core.project.tools.DocumentTools;
+import com.x.base.core.project.tools.ImageTools;
+import com.x.file.core.entity.open.OriginFile;
+
+/**
+ * OriginFile的衍生内容(缩放图片和office预览).<br/>
+ * 按文件md5和转换规格保存在OriginFile所在的存储器中,相同内容的文件共享衍生内容.
+ */
+public class DerivativeTools {
+
+	private static final String[] IMAGE_EXTENSIONS = new String[] { "jpg", "png", "bmp", "gif" };
+
+	/* 上传时预先生成的常用缩略图尺寸 */
+	private static final int[][] THUMBNAILS = new int[][] { { 100, 100 }, { 200, 200 } };
+
+	/* 保存的宽度和高度,0代表不限制.其他尺寸由不小于它的保存尺寸缩放后直接返回,不保存,避免任意尺寸占满存储器 */
+	private static final int[] FIT_SIZES = new int[] { 100, 200, 400, 800, 1600 };
+
+	/* 保存的缩放比例,其他比例由不小于它的保存比例缩放后直接返回,不保存 */
+	private static final int[] SCALES = new int[] { 10, 25, 50, 75, 100 };
+
+	public static final String TYPE_PDF = "pdf";
+
+	public static final String TYPE_HTML = "html";
+
+	private DerivativeTools() {
+	}
+
+	private static String key(OriginFile originFile) {
+		if (StringUtils.isEmpty(originFile.getFileMd5())) {
+			return Derivative.key(originFile);
+		}
+		return Derivative.key(originFile.getFileMd5());
+	}
+
+	/**
+	 * 设定宽高后的图片(png格式),宽度或高度为0代表不限制,不是图片时返回null.<br/>
+	 * 只保存FIT_SIZES中的尺寸,其他尺寸由保存的尺寸缩放得到.
+	 */
+	public static byte[] fit(OriginFile originFile, StorageMapping mapping, int width, int height) throws Exception {
+		int fitWidth = bucket(FIT_SIZES, width);
+		int fitHeight = bucket(FIT_SIZES, height);
+		Derivative derivative = DerivativeStore.get(mapping, key(originFile),
+				"fit_" + fitWidth + "x" + fitHeight + ".png",
+				() -> fit(originFile.readContent(mapping), fitWidth, fitHeight));
+		if (null == derivative) {
+			return null;
+		}
+		byte[] bytes = derivative.readContent(mapping);
+		if ((fitWidth == width) && (fitHeight == height)) {
+			return bytes;
+		}
+		return fit(bytes, width, height);
+	}
+
+	/**
+	 * 按比例(1-100)缩放后的图片(png格式),不是图片时返回null.<br/>
+	 * 只保存SCALES中的比例,其他比例由保存的比例缩放得到.
+	 */
+	public static byte[] scale(OriginFile originFile, StorageMapping mapping, int scale) throws Exception {
+		int base = bucket(SCALES, scale);
+		Derivative derivative = DerivativeStore.get(mapping, key(originFile), "scale_" + base + ".png",
+				() -> scale(originFile.readContent(mapping), base, 100));
+		if (null == derivative) {
+			return null;
+		}
+		byte[] bytes = derivative.readContent(mapping);
+		if (base == scale) {
+			return bytes;
+		}
+		return scale(bytes, scale, base);
+	}
+
+	/* 不小于value的最小保存值,超出最大保存值时为0(不限制) */
+	private static int bucket(int[] values, int value) {
+		if (value <= 0) {
+			return 0;
+		}
+		for (int o : values) {
+			if (o >= value) {
+				return o;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * office文件转换后的pdf或者html,无法转换时返回null.
+	 */
+	public static Derivative office(OriginFile originFile, StorageMapping mapping, String name, String type)
+			throws Exception {
+		if (StringUtils.equalsIgnoreCase(TYPE_HTML, type)) {
+			return DerivativeStore.get(mapping, key(originFile), "office.html",
+					() -> DocumentTools.toHtml(name, originFile.readContent(mapping)));
+		}
+		return DerivativeStore.get(mapping, key(originFile), "office.pdf",
+				() -> DocumentTools.toPdf2(name, originFile.readContent(mapping)));
+	}
+
+	/**
+	 * 新上传的图片在后台生成常用尺寸的缩略图.
+	 */
+	public static void prepare(OriginFile originFile, StorageMapping mapping) {
+		if (!ArrayUtils.contains(IMAGE_EXTENSIONS, originFile.getExtension())) {
+			return;
+		}
+		for (int[] size : THUMBNAILS) {
+			DerivativeStore.prepare(mapping, key(originFile), "fit_" + size[0] + "x" + size[1] + ".png",
+					() -> fit(originFile.readContent(mapping), size[0], size[1]));
+		}
+	}
+
+	private static byte[] fit(byte[] bytes, int width, int height) throws Exception {
+		BufferedImage src = ImageTools.read(bytes, width, height);
+		if (null == src) {
+			return null;
+		}
+		int scalrWidth = (width == 0) ? src.getWidth() : width;
+		int scalrHeight = (height == 0) ? src.getHeight() : height;
+		Scalr.Mode mode = Scalr.Mode.FIT_TO_WIDTH;
+		if (src.getWidth() > src.getHeight()) {
+			mode = Scalr.Mode.FIT_TO_HEIGHT;
+		}
+		BufferedImage scalrImage = Scalr.resize(src, Scalr.Method.SPEED, mode,
+				NumberUtils.min(scalrWidth, src.getWidth()), NumberUtils.min(scalrHeight, src.getHeight()));
+		return ImageTools.png(scalrImage);
+	}
+
+	/* 将按base缩放的图片缩放为按scale缩放,base为100时即原图 */
+	private static byte[] scale(byte[] bytes, int scale, int base) throws Exception {
+		Dimension dimension = ImageTools.dimension(bytes);
+		if (null == dimension) {
+			return null;
+		}
+		int width = (dimension.width * scale) / base;
+		int height = (dimension.height * scale) / base;
+		BufferedImage src = ImageTools.read(bytes, width, height);
+		return ImageTools.png(Scalr.resize(src, width, height));
+	}
+
+}
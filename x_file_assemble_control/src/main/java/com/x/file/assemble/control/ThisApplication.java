@@ -5,6 +5,7 @@ import com.x.base.core.project.config.Config;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.message.MessageConnector;
 import com.x.file.assemble.control.jaxrs.file.FileRemoveQueue;
+import com.x.file.assemble.control.schedule.UploadSessionClean;
 
 public class ThisApplication {
 
@@ -22,6 +23,7 @@ public class ThisApplication {
 			fileRemoveQueue = new FileRemoveQueue();
 			MessageConnector.start(context());
 			context().startQueue(fileRemoveQueue);
+			context().schedule(UploadSessionClean.class, "0 30 3 * * ?");
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -0,0 +1,93 @@
+package com.x.file.assemble.control.factory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.time.DateUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.x.base.core.project.tools.ListTools;
+import com.x.file.assemble.control.AbstractFactory;
+import com.x.file.assemble.control.Business;
+import com.x.file.core.entity.open.FileChunk;
+import com.x.file.core.entity.open.FileChunk_;
+
+public class FileChunkFactory extends AbstractFactory {
+
+	/* 按主键查询时每批的数量 */
+	private static final int BATCH_SIZE = 500;
+
+	public FileChunkFactory(Business business) throws Exception {
+		super(business);
+	}
+
+	/**
+	 * 查询已经存在的文件块,key为块的md5,重复的块只查询一次.
+	 */
+	public Map<String, FileChunk> map(List<String> chunkList) throws Exception {
+		Map<String, FileChunk> map = new HashMap<>();
+		List<String> ids = new ArrayList<>(new LinkedHashSet<>(chunkList));
+		for (List<String> batch : ListTools.batch(ids, BATCH_SIZE)) {
+			for (FileChunk o : this.entityManagerContainer().list(FileChunk.class, batch)) {
+				map.put(o.getId(), o);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * 还没有上传的块在chunkList中的序号.
+	 */
+	public List<Integer> missing(List<String> chunkList, Map<String, FileChunk> chunks) {
+		List<Integer> list = new ArrayList<>();
+		for (int i = 0; i < chunkList.size(); i++) {
+			if (!chunks.containsKey(chunkList.get(i))) {
+				list.add(i);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * 被引用的块延长保留时间,一天内已经更新过的不再更新.需要在FileChunk的事务中调用.
+	 */
+	public int touch(Collection<FileChunk> chunks) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(FileChunk.class);
+		Date now = new Date();
+		List<String> ids = new ArrayList<>();
+		for (FileChunk o : chunks) {
+			ids.add(o.getId());
+		}
+		int count = 0;
+		for (List<String> batch : ListTools.batch(ids, BATCH_SIZE)) {
+			Query query = em.createQuery("update " + FileChunk.class.getName()
+					+ " o set o.lastUpdateTime = :now where o.id in :ids and o.lastUpdateTime < :touch");
+			query.setParameter("now", now);
+			query.setParameter("ids", batch);
+			query.setParameter("touch", DateUtils.addDays(now, -1));
+			count += query.executeUpdate();
+		}
+		return count;
+	}
+
+	public List<FileChunk> listExpired(Date date, int count) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(FileChunk.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<FileChunk> cq = cb.createQuery(FileChunk.class);
+		Root<FileChunk> root = cq.from(FileChunk.class);
+		Predicate p = cb.lessThan(root.get(FileChunk_.lastUpdateTime), date);
+		return em.createQuery(cq.where(p)).setMaxResults(count).getResultList();
+	}
+
+}
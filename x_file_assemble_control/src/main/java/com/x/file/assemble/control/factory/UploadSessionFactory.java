@@ -0,0 +1,32 @@
+package com.x.file.assemble.control.factory;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.x.file.assemble.control.AbstractFactory;
+import com.x.file.assemble.control.Business;
+import com.x.file.core.entity.personal.UploadSession;
+import com.x.file.core.entity.personal.UploadSession_;
+
+public class UploadSessionFactory extends AbstractFactory {
+
+	public UploadSessionFactory(Business business) throws Exception {
+		super(business);
+	}
+
+	public List<UploadSession> listExpired(Date date, int count) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(UploadSession.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<UploadSession> cq = cb.createQuery(UploadSession.class);
+		Root<UploadSession> root = cq.from(UploadSession.class);
+		Predicate p = cb.lessThan(root.get(UploadSession_.lastUpdateTime), date);
+		return em.createQuery(cq.where(p)).setMaxResults(count).getResultList();
+	}
+
+}
@@ -1,27 +1,20 @@
 package com.x.file.assemble.control.jaxrs.attachment;
 
-import java.io.ByteArrayOutputStream;
-
 import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
-import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.entity.StorageObject;
 import com.x.base.core.project.config.StorageMapping;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
-import com.x.base.core.project.jaxrs.WoFile;
+import com.x.base.core.project.jaxrs.WoStorageFile;
 import com.x.file.assemble.control.ThisApplication;
 import com.x.file.core.entity.personal.Attachment;
 
-import net.sf.ehcache.Ehcache;
-import net.sf.ehcache.Element;
-
 class ActionDownload extends StandardJaxrsAction {
 
-	private Ehcache cache = ApplicationCache.instance().getCache(Attachment.class);
-
 	ActionResult<Wo> execute(EffectivePerson effectivePerson, String id) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			ActionResult<Wo> result = new ActionResult<>();
@@ -36,29 +29,15 @@ class ActionDownload extends StandardJaxrsAction {
 					&& (!attachment.getEditorList().contains(effectivePerson.getDistinguishedName()))) {
 				throw new ExceptionAttachmentAccessDenied(effectivePerson, attachment);
 			}
-			String cacheKey = ApplicationCache.concreteCacheKey(this.getClass(), id);
-			Element element = cache.get(cacheKey);
-			if ((null != element) && (null != element.getObjectValue())) {
-				wo = (Wo) element.getObjectValue();
-			} else {
-				StorageMapping mapping = ThisApplication.context().storageMappings().get(Attachment.class,
-						attachment.getStorage());
-				if (null == mapping) {
-					throw new ExceptionStorageNotExist(attachment.getStorage());
-				}
-				try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-					attachment.readContent(mapping, os);
-					byte[] bs = os.toByteArray();
-					wo = new Wo(bs, this.contentType(false, attachment.getName()),
-							this.contentDisposition(false, attachment.getName()));
-					/**
-					 * 对10M以下的文件进行缓存
-					 */
-					if (bs.length < (1024 * 1024 * 10)) {
-						cache.put(new Element(cacheKey, wo));
-					}
-				}
+			StorageMapping mapping = ThisApplication.context().storageMappings().get(Attachment.class,
+					attachment.getStorage());
+			if (null == mapping) {
+				throw new ExceptionStorageNotExist(attachment.getStorage());
 			}
+			/* 直接从存储流出,不再将文件读入内存缓存 */
+			wo = new Wo(attachment, mapping, this.contentType(false, attachment.getName()),
+					this.contentDisposition(false, attachment.getName()));
+			wo.check();
 			result.setData(wo);
 			return result;
 		}
@@ -109,10 +88,11 @@ class ActionDownload extends StandardJaxrsAction {
 	//
 	// }
 
-	public static class Wo extends WoFile {
+	public static class Wo extends WoStorageFile {
 
-		public Wo(byte[] bytes, String contentType, String contentDisposition) {
-			super(bytes, contentType, contentDisposition);
+		public Wo(StorageObject storageObject, StorageMapping mapping, String contentType,
+				String contentDisposition) {
+			super(storageObject, mapping, contentType, contentDisposition);
 		}
 
 	}
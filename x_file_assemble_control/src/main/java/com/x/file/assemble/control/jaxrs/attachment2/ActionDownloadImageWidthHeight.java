@@ -1,31 +1,21 @@
 package com.x.file.assemble.control.jaxrs.attachment2;
 
+import org.apache.commons.lang3.ArrayUtils;
+
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
-import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
 import com.x.base.core.project.exception.ExceptionWhen;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.WoFile;
+import com.x.file.assemble.control.DerivativeTools;
 import com.x.file.assemble.control.ThisApplication;
 import com.x.file.core.entity.open.OriginFile;
 import com.x.file.core.entity.personal.Attachment2;
-import net.sf.ehcache.Ehcache;
-import net.sf.ehcache.Element;
-import org.apache.commons.io.output.ByteArrayOutputStream;
-import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.math.NumberUtils;
-import org.imgscalr.Scalr;
-
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 
 class ActionDownloadImageWidthHeight extends BaseAction {
 
-	private Ehcache cache = ApplicationCache.instance().getCache(ActionDownloadImageWidthHeight.class);
-
 	ActionResult<Wo> execute(EffectivePerson effectivePerson, String id, Integer width, Integer height)
 			throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
@@ -49,41 +39,18 @@ class ActionDownloadImageWidthHeight extends BaseAction {
 			if (null == originFile) {
 				throw new ExceptionAttachmentNotExist(id,attachment.getOriginFile());
 			}
-			Wo wo = null;
-			String cacheKey = ApplicationCache.concreteCacheKey(this.getClass(), id+width+height);
-			Element element = cache.get(cacheKey);
-			if ((null != element) && (null != element.getObjectValue())) {
-				wo = (Wo) element.getObjectValue();
-				result.setData(wo);
-			} else {
-				StorageMapping mapping = ThisApplication.context().storageMappings().get(OriginFile.class,
-						originFile.getStorage());
-				try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-					originFile.readContent(mapping, output);
-					try (ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray())) {
-						BufferedImage src = ImageIO.read(input);
-						int scalrWidth = (width == 0) ? src.getWidth() : width;
-						int scalrHeight = (height == 0) ? src.getHeight() : height;
-						Scalr.Mode mode = Scalr.Mode.FIT_TO_WIDTH;
-						if(src.getWidth()>src.getHeight()){
-							mode = Scalr.Mode.FIT_TO_HEIGHT;
-						}
-						BufferedImage scalrImage = Scalr.resize(src,Scalr.Method.SPEED, mode, NumberUtils.min(scalrWidth, src.getWidth()),
-								NumberUtils.min(scalrHeight, src.getHeight()));
-						try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-							ImageIO.write(scalrImage, "png", baos);
-							byte[] bs = baos.toByteArray();
-
-							wo = new Wo(bs, this.contentType(false, attachment.getName()),
-									this.contentDisposition(false, attachment.getName()));
-
-							cache.put(new Element(cacheKey, wo));
-							result.setData(wo);
-						}
-					}
-				}
+			StorageMapping mapping = ThisApplication.context().storageMappings().get(OriginFile.class,
+					originFile.getStorage());
+			if (null == mapping) {
+				throw new ExceptionStorageNotExist(originFile.getStorage());
 			}
-
+			byte[] bytes = DerivativeTools.fit(originFile, mapping, width, height);
+			if (null == bytes) {
+				throw new Exception("attachment not image file.");
+			}
+			Wo wo = new Wo(bytes, this.contentType(false, attachment.getName()),
+					this.contentDisposition(false, attachment.getName()));
+			result.setData(wo);
 			return result;
 		}
 	}
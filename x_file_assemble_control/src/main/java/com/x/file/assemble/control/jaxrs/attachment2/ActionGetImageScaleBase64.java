@@ -1,5 +1,8 @@
 package com.x.file.assemble.control.jaxrs.attachment2;
 
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.ArrayUtils;
+
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.project.config.StorageMapping;
@@ -7,17 +10,10 @@ import com.x.base.core.project.exception.ExceptionWhen;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.WrapString;
+import com.x.file.assemble.control.DerivativeTools;
 import com.x.file.assemble.control.ThisApplication;
 import com.x.file.core.entity.open.OriginFile;
 import com.x.file.core.entity.personal.Attachment2;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.output.ByteArrayOutputStream;
-import org.apache.commons.lang3.ArrayUtils;
-import org.imgscalr.Scalr;
-
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 
 class ActionGetImageScaleBase64 extends BaseAction {
 
@@ -42,22 +38,16 @@ class ActionGetImageScaleBase64 extends BaseAction {
 			}
 			StorageMapping mapping = ThisApplication.context().storageMappings().get(OriginFile.class,
 					originFile.getStorage());
-			try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-				originFile.readContent(mapping, output);
-				try (ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray())) {
-					BufferedImage src = ImageIO.read(input);
-					int width = (src.getWidth() * scale) / (int) 100;
-					int height = (src.getHeight() * scale) / (int) 100;
-					BufferedImage scalrImage = Scalr.resize(src, width, height);
-					try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-						ImageIO.write(scalrImage, "png", baos);
-						String str = Base64.encodeBase64String(baos.toByteArray());
-						Wo wo = new Wo();
-						wo.setValue(str);
-						result.setData(wo);
-					}
-				}
+			if (null == mapping) {
+				throw new ExceptionStorageNotExist(originFile.getStorage());
+			}
+			byte[] bytes = DerivativeTools.scale(originFile, mapping, scale);
+			if (null == bytes) {
+				throw new Exception("attachment not image file.");
 			}
+			Wo wo = new Wo();
+			wo.setValue(Base64.encodeBase64String(bytes));
+			result.setData(wo);
 			return result;
 		}
 	}
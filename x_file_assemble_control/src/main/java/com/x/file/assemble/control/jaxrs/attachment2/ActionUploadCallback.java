@@ -11,6 +11,7 @@ import com.x.base.core.project.jaxrs.WoCallback;
 import com.x.base.core.project.jaxrs.WoId;
 import com.x.base.core.project.tools.DefaultCharset;
 import com.x.file.assemble.control.Business;
+import com.x.file.assemble.control.DerivativeTools;
 import com.x.file.assemble.control.FileUtil;
 import com.x.file.assemble.control.ThisApplication;
 import com.x.file.core.entity.open.OriginFile;
@@ -92,6 +93,7 @@ class ActionUploadCallback extends StandardJaxrsAction {
 				emc.persist(originFile);
 				emc.persist(attachment2);
 				emc.commit();
+				DerivativeTools.prepare(originFile, mapping);
 			}else{
 				attachment2 = new Attachment2(fileName, effectivePerson.getDistinguishedName(),
 						folderId, originFile.getId(), originFile.getLength(), originFile.getType());
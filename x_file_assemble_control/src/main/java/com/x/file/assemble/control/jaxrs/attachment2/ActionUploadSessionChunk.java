@@ -0,0 +1,88 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import java.io.InputStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WoId;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.file.assemble.control.Business;
+import com.x.file.assemble.control.ChunkTools;
+import com.x.file.assemble.control.ThisApplication;
+import com.x.file.core.entity.open.FileChunk;
+import com.x.file.core.entity.personal.UploadSession;
+
+/**
+ * 上传一个文件块,不同的块可以并行上传,上传时不修改会话,块已经存在时直接返回.
+ */
+class ActionUploadSessionChunk extends BaseAction {
+
+	private static Logger logger = LoggerFactory.getLogger(ActionUploadSessionChunk.class);
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, String id, Integer index, InputStream input)
+			throws Exception {
+		ActionResult<Wo> result = new ActionResult<>();
+		String md5 = null;
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			UploadSession session = this.uploadSession(business, effectivePerson, id);
+			if ((null == index) || (index < 0) || (index >= session.getChunkList().size())) {
+				throw new ExceptionChunkIndexInvalid(index);
+			}
+			md5 = session.getChunkList().get(index);
+			if (null != emc.find(md5, FileChunk.class)) {
+				Wo wo = new Wo();
+				wo.setId(md5);
+				result.setData(wo);
+				return result;
+			}
+		}
+		byte[] bytes = ChunkTools.read(input);
+		if (null == bytes) {
+			throw new ExceptionChunkTooLarge(index);
+		}
+		String actual = ChunkTools.md5(bytes);
+		if (!StringUtils.equals(md5, actual)) {
+			throw new ExceptionChunkMd5NotMatch(index, md5, actual);
+		}
+		StorageMapping mapping = ThisApplication.context().storageMappings().random(FileChunk.class);
+		if (null == mapping) {
+			throw new ExceptionAllocateStorageMaaping();
+		}
+		/* 先写入内容再持久化,存在的FileChunk一定有内容 */
+		FileChunk chunk = ChunkTools.save(mapping, md5, bytes);
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.check(chunk, CheckPersistType.all);
+			emc.beginTransaction(FileChunk.class);
+			emc.persist(chunk);
+			emc.commit();
+		} catch (Exception e) {
+			/* 相同内容的块被并行上传,以先写入的为准 */
+			try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+				FileChunk exist = emc.find(md5, FileChunk.class);
+				if (null == exist) {
+					throw e;
+				}
+				if (!StringUtils.equals(exist.getStorage(), chunk.getStorage())) {
+					chunk.deleteContent(mapping);
+				}
+				logger.debug("chunk:{} already uploaded by another request.", md5);
+			}
+		}
+		Wo wo = new Wo();
+		wo.setId(md5);
+		result.setData(wo);
+		return result;
+	}
+
+	public static class Wo extends WoId {
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.config.Config;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WoId;
+import com.x.file.assemble.control.Business;
+import com.x.file.assemble.control.ChunkTools;
+import com.x.file.assemble.control.DerivativeTools;
+import com.x.file.assemble.control.ThisApplication;
+import com.x.file.core.entity.open.FileChunk;
+import com.x.file.core.entity.open.OriginFile;
+import com.x.file.core.entity.personal.Attachment2;
+import com.x.file.core.entity.personal.Folder2;
+import com.x.file.core.entity.personal.UploadSession;
+
+/**
+ * 所有块上传完成后合并为OriginFile并创建附件.<br/>
+ * 文件块按顺序流式写入本地临时文件并计算整个文件的md5,md5已经存在时直接引用已有的OriginFile,否则将临时文件流式写入存储.
+ */
+class ActionUploadSessionCommit extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			ActionResult<Wo> result = new ActionResult<>();
+			Business business = new Business(emc);
+			UploadSession session = this.uploadSession(business, effectivePerson, id);
+			String folderId = StringUtils.trimToNull(session.getFolder());
+			if ((null != folderId) && (null == emc.find(folderId, Folder2.class))) {
+				throw new ExceptionFolderNotExist(folderId);
+			}
+			if (this.exist(business, session.getName(), folderId)) {
+				throw new ExceptionSameNameFileExist(session.getName());
+			}
+			Map<String, FileChunk> chunks = business.fileChunk().map(session.getChunkList());
+			List<Integer> missing = business.fileChunk().missing(session.getChunkList(), chunks);
+			if (!missing.isEmpty()) {
+				throw new ExceptionChunkMissing(missing.size());
+			}
+			long length = 0;
+			for (String md5 : session.getChunkList()) {
+				length += chunks.get(md5).getLength();
+			}
+			if (length != session.getLength()) {
+				throw new ExceptionLengthNotMatch(session.getLength(), length);
+			}
+			File temp = new File(Config.dir_local_temp(), "upload_" + session.getId());
+			try {
+				FileUtils.forceMkdirParent(temp);
+				String fileMd5;
+				try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temp))) {
+					fileMd5 = ChunkTools.assemble(session.getChunkList(), chunks,
+							ThisApplication.context().storageMappings(), output);
+				}
+				if (StringUtils.isNotEmpty(session.getFileMd5()) && (!StringUtils.equals(session.getFileMd5(), fileMd5))) {
+					throw new ExceptionFileMd5NotMatch(session.getFileMd5(), fileMd5);
+				}
+				OriginFile originFile = business.originFile().getByMd5(fileMd5);
+				StorageMapping mapping = null;
+				if (null == originFile) {
+					mapping = ThisApplication.context().storageMappings().random(OriginFile.class);
+					if (null == mapping) {
+						throw new ExceptionAllocateStorageMaaping();
+					}
+					originFile = new OriginFile(mapping.getName(), session.getName(),
+							effectivePerson.getDistinguishedName(), fileMd5);
+					emc.check(originFile, CheckPersistType.all);
+					try (InputStream input = new BufferedInputStream(new FileInputStream(temp))) {
+						originFile.saveContentDirectly(mapping, input, session.getName());
+					}
+					emc.beginTransaction(OriginFile.class);
+					emc.persist(originFile);
+				}
+				Attachment2 attachment2 = new Attachment2(session.getName(), effectivePerson.getDistinguishedName(),
+						folderId, originFile.getId(), originFile.getLength(), originFile.getType());
+				emc.check(attachment2, CheckPersistType.all);
+				emc.beginTransaction(Attachment2.class);
+				emc.beginTransaction(UploadSession.class);
+				emc.beginTransaction(FileChunk.class);
+				emc.persist(attachment2);
+				emc.remove(session);
+				/* 会话删除后块不再被会话引用,延长保留时间使修改后重新上传的文件可以复用 */
+				business.fileChunk().touch(chunks.values());
+				emc.commit();
+				if (null != mapping) {
+					DerivativeTools.prepare(originFile, mapping);
+				}
+				Wo wo = new Wo();
+				wo.setId(attachment2.getId());
+				result.setData(wo);
+				return result;
+			} finally {
+				FileUtils.deleteQuietly(temp);
+			}
+		}
+	}
+
+	public static class Wo extends WoId {
+	}
+
+}
@@ -0,0 +1,172 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.gson.JsonElement;
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.file.assemble.control.Business;
+import com.x.file.assemble.control.ChunkTools;
+import com.x.file.core.entity.open.FileChunk;
+import com.x.file.core.entity.open.OriginFile;
+import com.x.file.core.entity.personal.Attachment2;
+import com.x.file.core.entity.personal.UploadSession;
+
+/**
+ * 创建分块上传会话,客户端提交按顺序划分的每个块的md5,返回还需要上传的块序号.<br/>
+ * 已经存在的块(包括之前上传过的文件中内容相同的块)不需要重新上传;如果整个文件的md5已经存在,直接创建附件.
+ */
+class ActionUploadSessionCreate extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, String folderId, JsonElement jsonElement)
+			throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			ActionResult<Wo> result = new ActionResult<>();
+			Business business = new Business(emc);
+			Wi wi = this.convertToWrapIn(jsonElement, Wi.class);
+			folderId = this.folder(business, effectivePerson, folderId);
+			String fileName = FilenameUtils.getName(StringUtils.trimToEmpty(wi.getFileName()));
+			/** 禁止不带扩展名的文件上传 */
+			if (StringUtils.isEmpty(FilenameUtils.getExtension(fileName))) {
+				throw new ExceptionEmptyExtension(fileName);
+			}
+			if (this.exist(business, fileName, folderId)) {
+				throw new ExceptionSameNameFileExist(fileName);
+			}
+			if (!ChunkTools.valid(wi.getChunkList())) {
+				throw new ExceptionChunkListInvalid(fileName);
+			}
+			if ((null == wi.getLength()) || (wi.getLength() < 1)
+					|| (wi.getLength() > ((long) ChunkTools.MAX_CHUNK_SIZE) * wi.getChunkList().size())) {
+				throw new ExceptionLengthInvalid(wi.getLength());
+			}
+			Wo wo = new Wo();
+			if (StringUtils.isNotEmpty(wi.getFileMd5())) {
+				OriginFile originFile = business.originFile().getByMd5(wi.getFileMd5());
+				if (null != originFile) {
+					/* 文件已经存在,不需要上传 */
+					Attachment2 attachment2 = new Attachment2(fileName, effectivePerson.getDistinguishedName(),
+							folderId, originFile.getId(), originFile.getLength(), originFile.getType());
+					emc.check(attachment2, CheckPersistType.all);
+					emc.beginTransaction(Attachment2.class);
+					emc.persist(attachment2);
+					emc.commit();
+					wo.setAttachment(attachment2.getId());
+					wo.setMissingList(new ArrayList<>());
+					result.setData(wo);
+					return result;
+				}
+			}
+			Map<String, FileChunk> chunks = business.fileChunk().map(wi.getChunkList());
+			UploadSession session = new UploadSession(fileName, effectivePerson.getDistinguishedName(), folderId,
+					wi.getLength(), StringUtils.lowerCase(wi.getFileMd5()), new ArrayList<>(wi.getChunkList()));
+			emc.check(session, CheckPersistType.all);
+			emc.beginTransaction(UploadSession.class);
+			emc.persist(session);
+			/* 复用的块延长保留时间 */
+			emc.beginTransaction(FileChunk.class);
+			business.fileChunk().touch(chunks.values());
+			emc.commit();
+			wo.setId(session.getId());
+			wo.setMissingList(business.fileChunk().missing(session.getChunkList(), chunks));
+			result.setData(wo);
+			return result;
+		}
+	}
+
+	public static class Wi extends GsonPropertyObject {
+
+		@FieldDescribe("文件名称.")
+		private String fileName;
+
+		@FieldDescribe("文件大小.")
+		private Long length;
+
+		@FieldDescribe("整个文件的md5值,可以为空.")
+		private String fileMd5;
+
+		@FieldDescribe("按顺序排列的每个文件块的md5值(小写).")
+		private List<String> chunkList;
+
+		public String getFileName() {
+			return fileName;
+		}
+
+		public void setFileName(String fileName) {
+			this.fileName = fileName;
+		}
+
+		public Long getLength() {
+			return length;
+		}
+
+		public void setLength(Long length) {
+			this.length = length;
+		}
+
+		public String getFileMd5() {
+			return fileMd5;
+		}
+
+		public void setFileMd5(String fileMd5) {
+			this.fileMd5 = fileMd5;
+		}
+
+		public List<String> getChunkList() {
+			return chunkList;
+		}
+
+		public void setChunkList(List<String> chunkList) {
+			this.chunkList = chunkList;
+		}
+
+	}
+
+	public static class Wo extends GsonPropertyObject {
+
+		@FieldDescribe("上传会话标识,文件已经存在时为空.")
+		private String id;
+
+		@FieldDescribe("文件已经存在时直接创建的附件标识.")
+		private String attachment;
+
+		@FieldDescribe("需要上传的文件块序号.")
+		private List<Integer> missingList;
+
+		public String getId() {
+			return id;
+		}
+
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		public String getAttachment() {
+			return attachment;
+		}
+
+		public void setAttachment(String attachment) {
+			this.attachment = attachment;
+		}
+
+		public List<Integer> getMissingList() {
+			return missingList;
+		}
+
+		public void setMissingList(List<Integer> missingList) {
+			this.missingList = missingList;
+		}
+
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WoId;
+import com.x.file.assemble.control.Business;
+import com.x.file.core.entity.personal.UploadSession;
+
+/**
+ * 取消上传,已经上传的文件块保留到过期后由定时任务清理,以便重新上传时复用.
+ */
+class ActionUploadSessionDelete extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			ActionResult<Wo> result = new ActionResult<>();
+			Business business = new Business(emc);
+			UploadSession session = this.uploadSession(business, effectivePerson, id);
+			emc.beginTransaction(UploadSession.class);
+			emc.remove(session);
+			emc.commit();
+			Wo wo = new Wo();
+			wo.setId(session.getId());
+			result.setData(wo);
+			return result;
+		}
+	}
+
+	public static class Wo extends WoId {
+	}
+
+}
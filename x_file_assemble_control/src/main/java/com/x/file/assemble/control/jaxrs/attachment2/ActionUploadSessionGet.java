@@ -0,0 +1,95 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import java.util.List;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.file.assemble.control.Business;
+import com.x.file.core.entity.personal.UploadSession;
+
+/**
+ * 查询上传会话的状态,断点续传时只需要上传missingList中的块.
+ */
+class ActionUploadSessionGet extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			ActionResult<Wo> result = new ActionResult<>();
+			Business business = new Business(emc);
+			UploadSession session = this.uploadSession(business, effectivePerson, id);
+			Wo wo = new Wo();
+			wo.setId(session.getId());
+			wo.setName(session.getName());
+			wo.setLength(session.getLength());
+			wo.setChunkCount(session.getChunkList().size());
+			wo.setMissingList(business.fileChunk().missing(session.getChunkList(),
+					business.fileChunk().map(session.getChunkList())));
+			result.setData(wo);
+			return result;
+		}
+	}
+
+	public static class Wo extends GsonPropertyObject {
+
+		@FieldDescribe("上传会话标识.")
+		private String id;
+
+		@FieldDescribe("文件名称.")
+		private String name;
+
+		@FieldDescribe("文件大小.")
+		private Long length;
+
+		@FieldDescribe("文件块数量.")
+		private Integer chunkCount;
+
+		@FieldDescribe("还需要上传的文件块序号.")
+		private List<Integer> missingList;
+
+		public String getId() {
+			return id;
+		}
+
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public Long getLength() {
+			return length;
+		}
+
+		public void setLength(Long length) {
+			this.length = length;
+		}
+
+		public Integer getChunkCount() {
+			return chunkCount;
+		}
+
+		public void setChunkCount(Integer chunkCount) {
+			this.chunkCount = chunkCount;
+		}
+
+		public List<Integer> getMissingList() {
+			return missingList;
+		}
+
+		public void setMissingList(List<Integer> missingList) {
+			this.missingList = missingList;
+		}
+
+	}
+
+}
@@ -1,10 +1,24 @@
 package com.x.file.assemble.control.jaxrs.attachment2;
 
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.apache.commons.lang3.StringUtils;
+
 import com.x.base.core.project.gson.XGsonBuilder;
+import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
 import com.x.base.core.project.message.MessageConnector;
 import com.x.base.core.project.organization.OrganizationDefinition;
+import com.x.file.assemble.control.Business;
 import com.x.file.core.entity.personal.Attachment;
+import com.x.file.core.entity.personal.Attachment2;
+import com.x.file.core.entity.personal.Attachment2_;
+import com.x.file.core.entity.personal.Folder2;
+import com.x.file.core.entity.personal.UploadSession;
 
 abstract class BaseAction extends StandardJaxrsAction {
 
@@ -42,4 +56,50 @@ abstract class BaseAction extends StandardJaxrsAction {
 		MessageConnector.send(MessageConnector.TYPE_ATTACHMENT_EDITORMODIFY, title, person,
 				XGsonBuilder.convert(attachment, Attachment.class));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * 校验目录权限,返回目录id,顶层目录返回null.
+	 */
+	protected String folder(Business business, EffectivePerson effectivePerson, String folderId) throws Exception {
+		if (StringUtils.isEmpty(folderId) || StringUtils.equalsIgnoreCase(folderId, EMPTY_SYMBOL)) {
+			return null;
+		}
+		Folder2 folder = business.entityManagerContainer().find(folderId, Folder2.class);
+		if (null == folder) {
+			throw new ExceptionFolderNotExist(folderId);
+		}
+		if ((!StringUtils.equals(business.organization().person().get(folder.getPerson()),
+				effectivePerson.getDistinguishedName())) && (effectivePerson.isNotManager())) {
+			throw new ExceptionFolderAccessDenied(effectivePerson, folder);
+		}
+		return folder.getId();
+	}
+
+	/* 同一目录下文件名唯一 */
+	protected boolean exist(Business business, String fileName, String folderId) throws Exception {
+		EntityManager em = business.entityManagerContainer().get(Attachment2.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+		Root<Attachment2> root = cq.from(Attachment2.class);
+		Predicate p = cb.equal(root.get(Attachment2_.name), fileName);
+		if (StringUtils.isNotEmpty(folderId)) {
+			p = cb.and(p, cb.equal(root.get(Attachment2_.folder), folderId));
+		} else {
+			p = cb.and(p, cb.or(cb.isNull(root.get(Attachment2_.folder)), cb.equal(root.get(Attachment2_.folder), "")));
+		}
+		return em.createQuery(cq.select(cb.count(root)).where(p)).getSingleResult() > 0;
+	}
+
+	/* 上传会话只有创建者可以访问 */
+	protected UploadSession uploadSession(Business business, EffectivePerson effectivePerson, String id)
+			throws Exception {
+		UploadSession session = business.entityManagerContainer().find(id, UploadSession.class);
+		if (null == session) {
+			throw new ExceptionUploadSessionNotExist(id);
+		}
+		if (!StringUtils.equals(session.getPerson(), effectivePerson.getDistinguishedName())) {
+			throw new ExceptionUploadSessionAccessDenied(effectivePerson, session);
+		}
+		return session;
+	}
+}
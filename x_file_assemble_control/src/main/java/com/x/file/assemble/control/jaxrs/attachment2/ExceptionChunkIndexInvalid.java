@@ -0,0 +1,12 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionChunkIndexInvalid extends PromptException {
+
+	private static final long serialVersionUID = 1199161779613809918L;
+
+	ExceptionChunkIndexInvalid(Integer index) {
+		super("文件块序号无效:{}.", index);
+	}
+}
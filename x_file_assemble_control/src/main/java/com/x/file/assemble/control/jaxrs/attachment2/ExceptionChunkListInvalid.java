@@ -0,0 +1,13 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+import com.x.file.assemble.control.ChunkTools;
+
+class ExceptionChunkListInvalid extends PromptException {
+
+	private static final long serialVersionUID = 3796453666338769786L;
+
+	ExceptionChunkListInvalid(String fileName) {
+		super("文件分块信息无效,每块必须是小写32位md5值,数量不能超过{}: {}.", ChunkTools.MAX_CHUNK_COUNT, fileName);
+	}
+}
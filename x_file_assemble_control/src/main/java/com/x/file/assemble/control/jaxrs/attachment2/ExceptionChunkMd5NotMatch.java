@@ -0,0 +1,12 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionChunkMd5NotMatch extends PromptException {
+
+	private static final long serialVersionUID = 2059195263737087881L;
+
+	ExceptionChunkMd5NotMatch(Integer index, String expected, String actual) {
+		super("文件块:{} md5不匹配, 期望:{}, 实际:{}.", index, expected, actual);
+	}
+}
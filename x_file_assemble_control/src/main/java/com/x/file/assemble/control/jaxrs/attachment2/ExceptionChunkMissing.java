@@ -0,0 +1,12 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionChunkMissing extends PromptException {
+
+	private static final long serialVersionUID = 8449352868956105123L;
+
+	ExceptionChunkMissing(Integer count) {
+		super("还有{}个文件块没有上传.", count);
+	}
+}
@@ -0,0 +1,13 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+import com.x.file.assemble.control.ChunkTools;
+
+class ExceptionChunkTooLarge extends PromptException {
+
+	private static final long serialVersionUID = 5466472508740367508L;
+
+	ExceptionChunkTooLarge(Integer index) {
+		super("文件块:{} 超过最大长度:{}.", index, ChunkTools.MAX_CHUNK_SIZE);
+	}
+}
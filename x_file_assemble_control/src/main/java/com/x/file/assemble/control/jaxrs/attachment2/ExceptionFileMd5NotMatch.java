@@ -0,0 +1,12 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionFileMd5NotMatch extends PromptException {
+
+	private static final long serialVersionUID = 6988773010550823441L;
+
+	ExceptionFileMd5NotMatch(String expected, String actual) {
+		super("文件md5不匹配, 期望:{}, 实际:{}.", expected, actual);
+	}
+}
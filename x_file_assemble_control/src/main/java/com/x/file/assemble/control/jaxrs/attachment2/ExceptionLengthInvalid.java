@@ -0,0 +1,12 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionLengthInvalid extends PromptException {
+
+	private static final long serialVersionUID = 5310428764930951172L;
+
+	ExceptionLengthInvalid(Long length) {
+		super("文件长度无效:{}.", length);
+	}
+}
@@ -0,0 +1,12 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionLengthNotMatch extends PromptException {
+
+	private static final long serialVersionUID = 8889856637779850092L;
+
+	ExceptionLengthNotMatch(Long expected, Long actual) {
+		super("文件长度不匹配, 期望:{}, 实际:{}.", expected, actual);
+	}
+}
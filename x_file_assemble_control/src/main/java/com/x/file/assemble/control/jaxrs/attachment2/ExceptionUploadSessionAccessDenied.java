@@ -0,0 +1,14 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.file.core.entity.personal.UploadSession;
+
+class ExceptionUploadSessionAccessDenied extends PromptException {
+
+	private static final long serialVersionUID = 3376499758814423715L;
+
+	ExceptionUploadSessionAccessDenied(EffectivePerson effectivePerson, UploadSession session) {
+		super("person: {} access upload session :{} denied.", effectivePerson.getDistinguishedName(), session.getId());
+	}
+}
@@ -0,0 +1,12 @@
+package com.x.file.assemble.control.jaxrs.attachment2;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionUploadSessionNotExist extends PromptException {
+
+	private static final long serialVersionUID = 4852521228285354116L;
+
+	ExceptionUploadSessionNotExist(String id) {
+		super("上传会话不存在:{}.", id);
+	}
+}
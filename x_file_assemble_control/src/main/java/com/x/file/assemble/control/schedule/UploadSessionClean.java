@@ -0,0 +1,79 @@
+package com.x.file.assemble.control.schedule;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.quartz.JobExecutionContext;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.schedule.AbstractJob;
+import com.x.file.assemble.control.Business;
+import com.x.file.assemble.control.ThisApplication;
+import com.x.file.core.entity.open.FileChunk;
+import com.x.file.core.entity.personal.UploadSession;
+
+/**
+ * 清理过期的分块上传会话和长期未被引用的文件块.<br/>
+ * 块在上传、被会话创建引用以及会话提交时更新时间(一天内只更新一次),块的保留时间比会话长一天以上,
+ * 所以未过期的会话引用的块不会在会话提交前被清理.
+ */
+public class UploadSessionClean extends AbstractJob {
+
+	private static Logger logger = LoggerFactory.getLogger(UploadSessionClean.class);
+
+	/* 会话的保留天数 */
+	private static final int SESSION_RETAIN_DAYS = 7;
+
+	/* 文件块的保留天数,需要大于会话保留天数加上块更新时间的间隔(一天) */
+	private static final int CHUNK_RETAIN_DAYS = 14;
+
+	private static final int BATCH_SIZE = 200;
+
+	@Override
+	public void schedule(JobExecutionContext jobExecutionContext) throws Exception {
+		Date sessionDate = DateUtils.addDays(new Date(), -SESSION_RETAIN_DAYS);
+		Date chunkDate = DateUtils.addDays(new Date(), -CHUNK_RETAIN_DAYS);
+		long sessionCount = 0;
+		long chunkCount = 0;
+		List<UploadSession> sessions;
+		do {
+			try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+				Business business = new Business(emc);
+				sessions = business.uploadSession().listExpired(sessionDate, BATCH_SIZE);
+				emc.beginTransaction(UploadSession.class);
+				for (UploadSession o : sessions) {
+					emc.remove(o);
+				}
+				emc.commit();
+				sessionCount += sessions.size();
+			}
+		} while (sessions.size() == BATCH_SIZE);
+		List<FileChunk> chunks;
+		do {
+			try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+				Business business = new Business(emc);
+				chunks = business.fileChunk().listExpired(chunkDate, BATCH_SIZE);
+				emc.beginTransaction(FileChunk.class);
+				for (FileChunk o : chunks) {
+					StorageMapping mapping = ThisApplication.context().storageMappings().get(FileChunk.class,
+							o.getStorage());
+					if (null != mapping) {
+						o.deleteContent(mapping);
+					} else {
+						logger.warn("can not find storage:{} of chunk:{}.", o.getStorage(), o.getId());
+					}
+					emc.remove(o);
+				}
+				emc.commit();
+				chunkCount += chunks.size();
+			}
+		} while (chunks.size() == BATCH_SIZE);
+		logger.info("clean upload session:{}, chunk:{}.", sessionCount, chunkCount);
+	}
+
+}
@@ -0,0 +1,319 @@
+package com.x.file.assemble.control.test.upload;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.StorageType;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.config.StorageMappings;
+import com.x.file.assemble.control.Business;
+import com.x.file.assemble.control.ChunkTools;
+import com.x.file.core.entity.open.FileChunk;
+import com.x.file.core.entity.open.OriginFile;
+import com.x.file.core.entity.personal.UploadSession;
+
+/**
+ * 分块上传吞吐测试,默认2GB文件,8MB一块,4个线程并行上传,可以通过-Dupload.size指定文件大小(MB).<br/>
+ * 原来的上传方式需要将整个文件作为一个byte[]读入内存,超过2GB的文件无法上传;分块上传每个请求只占用一个块的内存.<br/>
+ * 在内存数据库上按ActionUploadSessionCreate/Chunk/Get/Commit的步骤调用FileChunkFactory,
+ * 客户端只上传服务器返回的missingList中的块,修改文件中的几个块后重新上传,只需要传输发生变化的块.
+ */
+public class TestClient {
+
+	private static final int CHUNK_SIZE = 1024 * 1024 * 8;
+
+	private static final int THREADS = 4;
+
+	private static final String PERSON = "test@test@P";
+
+	@BeforeClass
+	public static void init() throws Exception {
+		EntityManagerContainerFactory.init("upload/persistence.xml");
+	}
+
+	@AfterClass
+	public static void close() throws Exception {
+		EntityManagerContainerFactory.close();
+	}
+
+	/* 按序号生成确定的块内容,changed不同时内容不同 */
+	private byte[] chunk(int index, int changed, int size) {
+		byte[] bytes = new byte[size];
+		new Random(index * 31L + changed).nextBytes(bytes);
+		return bytes;
+	}
+
+	/* 修改文件开头,中间和结尾的块 */
+	private boolean changed(int index, int count) {
+		return (index == 0) || (index == count / 2) || (index == count - 1);
+	}
+
+	private StorageMappings mappings(File dir) {
+		StorageMappings mappings = new StorageMappings();
+		mappings.put(StorageType.file, new CopyOnWriteArrayList<>(new StorageMapping[] { new StorageMapping(dir) }));
+		return mappings;
+	}
+
+	/* 与ActionUploadSessionCreate一致,返回会话和需要上传的块序号 */
+	private UploadSession create(List<String> chunkList, long length, List<Integer> missingList) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			Map<String, FileChunk> chunks = business.fileChunk().map(chunkList);
+			UploadSession session = new UploadSession("test.bin", PERSON, "", length, null,
+					new ArrayList<>(chunkList));
+			emc.check(session, CheckPersistType.all);
+			emc.beginTransaction(UploadSession.class);
+			emc.persist(session);
+			emc.beginTransaction(FileChunk.class);
+			business.fileChunk().touch(chunks.values());
+			emc.commit();
+			missingList.addAll(business.fileChunk().missing(session.getChunkList(), chunks));
+			return session;
+		}
+	}
+
+	/* 与ActionUploadSessionChunk一致,块已经存在时不保存,返回保存的字节数 */
+	private long chunk(StorageMappings mappings, UploadSession session, int index, byte[] bytes) throws Exception {
+		String md5 = session.getChunkList().get(index);
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			if (null != emc.find(md5, FileChunk.class)) {
+				return 0;
+			}
+		}
+		byte[] read = ChunkTools.read(new ByteArrayInputStream(bytes));
+		Assert.assertEquals(md5, ChunkTools.md5(read));
+		FileChunk chunk = ChunkTools.save(mappings.random(FileChunk.class), md5, read);
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.check(chunk, CheckPersistType.all);
+			emc.beginTransaction(FileChunk.class);
+			emc.persist(chunk);
+			emc.commit();
+		}
+		return read.length;
+	}
+
+	/* 与ActionUploadSessionGet一致 */
+	private List<Integer> missing(String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			UploadSession session = emc.find(id, UploadSession.class);
+			return business.fileChunk().missing(session.getChunkList(),
+					business.fileChunk().map(session.getChunkList()));
+		}
+	}
+
+	/* 与ActionUploadSessionCommit一致,合并到output并删除会话,返回文件md5 */
+	private String commit(StorageMappings mappings, String id, OutputStream output) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			UploadSession session = emc.find(id, UploadSession.class);
+			Map<String, FileChunk> chunks = business.fileChunk().map(session.getChunkList());
+			Assert.assertTrue(business.fileChunk().missing(session.getChunkList(), chunks).isEmpty());
+			String fileMd5 = ChunkTools.assemble(session.getChunkList(), chunks, mappings, output);
+			emc.beginTransaction(UploadSession.class);
+			emc.beginTransaction(FileChunk.class);
+			emc.remove(session);
+			business.fileChunk().touch(chunks.values());
+			emc.commit();
+			return fileMd5;
+		}
+	}
+
+	/* 模拟客户端:创建会话,并行上传missingList中的块,返回实际传输的字节数 */
+	private long upload(StorageMappings mappings, UploadSession session, List<Integer> missingList, int changedIndex)
+			throws Exception {
+		int count = session.getChunkList().size();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		AtomicLong transferred = new AtomicLong();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (Integer i : missingList) {
+				byte[] bytes = this.chunk(i, this.changed(i, count) ? changedIndex : 0, CHUNK_SIZE);
+				futures.add(executor.submit(() -> {
+					transferred.addAndGet(this.chunk(mappings, session, i, bytes));
+					return null;
+				}));
+				/* 控制未完成的块数量,避免生成数据占用过多内存 */
+				while (futures.size() > THREADS * 2) {
+					futures.remove(0).get();
+				}
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		return transferred.get();
+	}
+
+	@Test
+	public void testThroughput() throws Exception {
+		long size = Long.getLong("upload.size", 2048L) * 1024 * 1024;
+		int count = (int) (size / CHUNK_SIZE);
+		File dir = Files.createTempDirectory("o2upload").toFile();
+		try {
+			StorageMappings mappings = this.mappings(dir);
+			for (int round = 0; round < 2; round++) {
+				List<String> chunkList = new ArrayList<>();
+				MessageDigest digest = MessageDigest.getInstance("MD5");
+				for (int i = 0; i < count; i++) {
+					byte[] bytes = this.chunk(i, this.changed(i, count) ? round : 0, CHUNK_SIZE);
+					digest.update(bytes);
+					chunkList.add(ChunkTools.md5(bytes));
+				}
+				String expected = Hex.encodeHexString(digest.digest());
+				long start = System.nanoTime();
+				List<Integer> missingList = new ArrayList<>();
+				UploadSession session = this.create(chunkList, size, missingList);
+				long transferred = this.upload(mappings, session, missingList, round);
+				long uploadCost = System.nanoTime() - start;
+				Assert.assertTrue(this.missing(session.getId()).isEmpty());
+				File temp = new File(dir, "assemble.tmp");
+				start = System.nanoTime();
+				String fileMd5;
+				try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temp))) {
+					fileMd5 = this.commit(mappings, session.getId(), output);
+				}
+				OriginFile originFile = new OriginFile("test", "test" + round + ".bin", PERSON, fileMd5);
+				try (InputStream input = new BufferedInputStream(new FileInputStream(temp))) {
+					originFile.saveContentDirectly(mappings.random(OriginFile.class), input, originFile.getName());
+				}
+				long commitCost = System.nanoTime() - start;
+				FileUtils.deleteQuietly(temp);
+				Assert.assertEquals(expected, fileMd5);
+				Assert.assertEquals(size, originFile.getLength().longValue());
+				System.out.println("round " + round + ": file " + (size >> 20) + "MB, " + count + " chunks, missing "
+						+ missingList.size() + ", transferred " + (transferred >> 20) + "MB in "
+						+ (uploadCost / 1000000) + "ms, commit " + (size * 1000 / Math.max(1, commitCost))
+						+ "MB/s (" + (commitCost / 1000000) + "ms), heap used "
+						+ ((Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20) + "MB.");
+				if (round == 0) {
+					Assert.assertEquals(count, missingList.size());
+					Assert.assertEquals(size, transferred);
+				} else {
+					/* 修改后的文件只传输变化的块 */
+					Assert.assertEquals(Arrays.asList(0, count / 2, count - 1), missingList);
+					Assert.assertEquals(3L * CHUNK_SIZE, transferred);
+				}
+			}
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	/* 上传中断后通过会话查询剩余的块继续上传 */
+	@Test
+	public void testResume() throws Exception {
+		File dir = Files.createTempDirectory("o2upload").toFile();
+		try {
+			StorageMappings mappings = this.mappings(dir);
+			List<byte[]> list = new ArrayList<>();
+			List<String> chunkList = new ArrayList<>();
+			for (int i = 0; i < 6; i++) {
+				list.add(this.chunk(i, 100, 1024));
+				chunkList.add(ChunkTools.md5(list.get(i)));
+			}
+			List<Integer> missingList = new ArrayList<>();
+			UploadSession session = this.create(chunkList, 6 * 1024L, missingList);
+			Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), missingList);
+			for (int i = 0; i < 3; i++) {
+				this.chunk(mappings, session, i, list.get(i));
+			}
+			Assert.assertEquals(Arrays.asList(3, 4, 5), this.missing(session.getId()));
+			for (Integer i : this.missing(session.getId())) {
+				this.chunk(mappings, session, i, list.get(i));
+			}
+			Assert.assertTrue(this.missing(session.getId()).isEmpty());
+			try (OutputStream output = new ByteArrayOutputStream()) {
+				Assert.assertEquals(32, this.commit(mappings, session.getId(), output).length());
+			}
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+
+	/* 会话创建和提交时更新引用块的时间,块不会在会话过期前被清理 */
+	@Test
+	public void testTouch() throws Exception {
+		byte[] bytes = this.chunk(0, 200, 1024);
+		String md5 = ChunkTools.md5(bytes);
+		Date old = DateUtils.addDays(new Date(), -30);
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			FileChunk chunk = new FileChunk("test", md5);
+			chunk.setLength((long) bytes.length);
+			emc.check(chunk, CheckPersistType.all);
+			emc.beginTransaction(FileChunk.class);
+			emc.persist(chunk);
+			emc.commit();
+			/* 持久化时会设置为当前时间,通过更新语句模拟长期未使用的块 */
+			emc.beginTransaction(FileChunk.class);
+			emc.get(FileChunk.class)
+					.createQuery("update " + FileChunk.class.getName() + " o set o.lastUpdateTime = :old where o.id = :id")
+					.setParameter("old", old).setParameter("id", md5).executeUpdate();
+			emc.commit();
+		}
+		Date expired = DateUtils.addDays(new Date(), -14);
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Assert.assertTrue(this.ids(new Business(emc).fileChunk().listExpired(expired, 100)).contains(md5));
+		}
+		List<Integer> missingList = new ArrayList<>();
+		this.create(Arrays.asList(md5), bytes.length, missingList);
+		Assert.assertTrue(missingList.isEmpty());
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Assert.assertFalse(this.ids(new Business(emc).fileChunk().listExpired(expired, 100)).contains(md5));
+			Assert.assertTrue(emc.find(md5, FileChunk.class).getLastUpdateTime().after(old));
+		}
+	}
+
+	private List<String> ids(List<FileChunk> list) {
+		List<String> ids = new ArrayList<>();
+		for (FileChunk o : list) {
+			ids.add(o.getId());
+		}
+		return ids;
+	}
+
+	@Test
+	public void testRead() throws Exception {
+		Assert.assertNull(ChunkTools.read(new ByteArrayInputStream(new byte[ChunkTools.MAX_CHUNK_SIZE + 1])));
+		Assert.assertEquals(10, ChunkTools.read(new ByteArrayInputStream(new byte[10])).length);
+		List<String> list = new ArrayList<>();
+		list.add(ChunkTools.md5(new byte[1]));
+		Assert.assertTrue(ChunkTools.valid(list));
+		list.add("ABC");
+		Assert.assertFalse(ChunkTools.valid(list));
+	}
+
+}
@@ -28,6 +28,10 @@ public final class PersistenceProperties extends AbstractPersistenceProperties {
 		public static class Recycle {
 			public static final String table = "FILE_RECYCLE";
 		}
+
+		public static class UploadSession {
+			public static final String table = "FILE_UPLOADSESSION";
+		}
 	}
 
 	public static class Open {
@@ -37,6 +41,9 @@ public final class PersistenceProperties extends AbstractPersistenceProperties {
 		public static class OriginFile {
 			public static final String table = "FILE_ORIGINFILE";
 		}
+		public static class FileChunk {
+			public static final String table = "FILE_FILECHUNK";
+		}
 		public static class Link {
 			public static final String table = "FILE_LINK";
 		}
@@ -0,0 +1,192 @@
+package com.x.file.core.entity.open;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.openjpa.persistence.jdbc.Index;
+
+import com.x.base.core.entity.JpaObject;
+import com.x.base.core.entity.Storage;
+import com.x.base.core.entity.StorageObject;
+import com.x.base.core.entity.StorageType;
+import com.x.base.core.entity.annotation.CheckPersist;
+import com.x.base.core.entity.annotation.ContainerEntity;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.file.core.entity.PersistenceProperties;
+
+/**
+ * 分块上传的文件块,使用块内容的md5作为主键,相同内容的块只保存一份,在多次上传之间共享.<br/>
+ * 文件块在合并成OriginFile之后仍然保留一段时间,修改后重新上传的文件只需要传输发生变化的块.
+ */
+@ContainerEntity
+@Entity
+@Table(name = PersistenceProperties.Open.FileChunk.table, uniqueConstraints = {
+		@UniqueConstraint(name = PersistenceProperties.Open.FileChunk.table + JpaObject.IndexNameMiddle
+				+ JpaObject.DefaultUniqueConstraintSuffix, columnNames = { JpaObject.IDCOLUMN,
+						JpaObject.CREATETIMECOLUMN, JpaObject.UPDATETIMECOLUMN, JpaObject.SEQUENCECOLUMN }) })
+@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+@Storage(type = StorageType.file)
+public class FileChunk extends StorageObject {
+
+	private static final long serialVersionUID = -3829507153924412286L;
+
+	private static final String TABLE = PersistenceProperties.Open.FileChunk.table;
+
+	public static final String EXTENSION = "chunk";
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	@FieldDescribe("数据库主键,块内容的md5值.")
+	@Id
+	@Column(length = length_id, name = ColumnNamePrefix + id_FIELDNAME)
+	private String id = createId();
+
+	/* 以上为 JpaObject 默认字段 */
+
+	public void onPersist() throws Exception {
+		this.lastUpdateTime = new Date();
+	}
+
+	/* 更新运行方法 */
+
+	public FileChunk() {
+
+	}
+
+	public FileChunk(String storage, String md5) throws Exception {
+		if (StringUtils.isEmpty(storage)) {
+			throw new Exception("storage can not be empty.");
+		}
+		if (StringUtils.isEmpty(md5)) {
+			throw new Exception("md5 can not be empty.");
+		}
+		this.id = md5;
+		this.storage = storage;
+		this.name = md5 + "." + EXTENSION;
+		this.extension = EXTENSION;
+		this.lastUpdateTime = new Date();
+	}
+
+	@Override
+	public String path() throws Exception {
+		if (StringUtils.length(id) < 2) {
+			throw new Exception("id can not be empty.");
+		}
+		/* 按md5前两位分目录,避免单个目录下文件过多 */
+		return EXTENSION + PATHSEPARATOR + StringUtils.substring(id, 0, 2) + PATHSEPARATOR + id + "." + EXTENSION;
+	}
+
+	@Override
+	public String getStorage() {
+		return storage;
+	}
+
+	@Override
+	public void setStorage(String storage) {
+		this.storage = storage;
+	}
+
+	@Override
+	public Long getLength() {
+		return length;
+	}
+
+	@Override
+	public void setLength(Long length) {
+		this.length = length;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public String getExtension() {
+		return extension;
+	}
+
+	@Override
+	public void setExtension(String extension) {
+		this.extension = extension;
+	}
+
+	@Override
+	public Date getLastUpdateTime() {
+		return lastUpdateTime;
+	}
+
+	@Override
+	public void setLastUpdateTime(Date lastUpdateTime) {
+		this.lastUpdateTime = lastUpdateTime;
+	}
+
+	@Override
+	public Boolean getDeepPath() {
+		return BooleanUtils.isTrue(this.deepPath);
+	}
+
+	@Override
+	public void setDeepPath(Boolean deepPath) {
+		this.deepPath = deepPath;
+	}
+
+	public static final String name_FIELDNAME = "name";
+	@FieldDescribe("文件块名称.")
+	@Column(length = length_255B, name = ColumnNamePrefix + name_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private String name;
+
+	public static final String extension_FIELDNAME = "extension";
+	@FieldDescribe("扩展名.")
+	@Column(length = JpaObject.length_64B, name = ColumnNamePrefix + extension_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private String extension;
+
+	public static final String storage_FIELDNAME = "storage";
+	@FieldDescribe("存储器的名称,也就是多个存放节点的名字.")
+	@Column(length = JpaObject.length_64B, name = ColumnNamePrefix + storage_FIELDNAME)
+	@CheckPersist(allowEmpty = false, simplyString = true)
+	@Index(name = TABLE + IndexNameMiddle + storage_FIELDNAME)
+	private String storage;
+
+	public static final String length_FIELDNAME = "length";
+	@FieldDescribe("文件块大小.")
+	@Column(name = ColumnNamePrefix + length_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private Long length;
+
+	public static final String lastUpdateTime_FIELDNAME = "lastUpdateTime";
+	@FieldDescribe("最后使用时间,长期未被上传引用的文件块会被清理.")
+	@Column(name = ColumnNamePrefix + lastUpdateTime_FIELDNAME)
+	@Index(name = TABLE + IndexNameMiddle + lastUpdateTime_FIELDNAME)
+	@CheckPersist(allowEmpty = false)
+	private Date lastUpdateTime;
+
+	public static final String deepPath_FIELDNAME = "deepPath";
+	@FieldDescribe("是否使用更深的路径.")
+	@CheckPersist(allowEmpty = true)
+	@Column(name = ColumnNamePrefix + deepPath_FIELDNAME)
+	private Boolean deepPath;
+
+}
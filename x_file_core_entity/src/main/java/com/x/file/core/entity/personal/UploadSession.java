@@ -0,0 +1,186 @@
+package com.x.file.core.entity.personal;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.OrderColumn;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.openjpa.persistence.PersistentCollection;
+import org.apache.openjpa.persistence.jdbc.ContainerTable;
+import org.apache.openjpa.persistence.jdbc.ElementColumn;
+import org.apache.openjpa.persistence.jdbc.Index;
+
+import com.x.base.core.entity.JpaObject;
+import com.x.base.core.entity.SliceJpaObject;
+import com.x.base.core.entity.annotation.CheckPersist;
+import com.x.base.core.entity.annotation.ContainerEntity;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.file.core.entity.PersistenceProperties;
+
+/**
+ * 分块上传会话,记录文件按顺序划分的每一块的md5值,上传完所有块后合并为OriginFile并创建Attachment2.
+ */
+@ContainerEntity
+@Entity
+@Table(name = PersistenceProperties.Personal.UploadSession.table, uniqueConstraints = {
+		@UniqueConstraint(name = PersistenceProperties.Personal.UploadSession.table + JpaObject.IndexNameMiddle
+				+ JpaObject.DefaultUniqueConstraintSuffix, columnNames = { JpaObject.IDCOLUMN,
+						JpaObject.CREATETIMECOLUMN, JpaObject.UPDATETIMECOLUMN, JpaObject.SEQUENCECOLUMN }) })
+@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+public class UploadSession extends SliceJpaObject {
+
+	private static final long serialVersionUID = 6262457026604093105L;
+
+	private static final String TABLE = PersistenceProperties.Personal.UploadSession.table;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	@FieldDescribe("数据库主键,自动生成.")
+	@Id
+	@Column(length = length_id, name = ColumnNamePrefix + id_FIELDNAME)
+	private String id = createId();
+
+	/* 以上为 JpaObject 默认字段 */
+
+	public void onPersist() throws Exception {
+		this.lastUpdateTime = new Date();
+		this.folder = StringUtils.trimToEmpty(this.folder);
+	}
+
+	public UploadSession() {
+
+	}
+
+	public UploadSession(String name, String person, String folder, Long length, String fileMd5,
+			List<String> chunkList) {
+		this.name = name;
+		this.person = person;
+		this.folder = folder;
+		this.length = length;
+		this.fileMd5 = fileMd5;
+		this.chunkList = chunkList;
+		this.lastUpdateTime = new Date();
+	}
+
+	/* 更新运行方法 */
+
+	public static final String person_FIELDNAME = "person";
+	@FieldDescribe("上传用户.")
+	@Column(length = length_255B, name = ColumnNamePrefix + person_FIELDNAME)
+	@Index(name = TABLE + IndexNameMiddle + person_FIELDNAME)
+	@CheckPersist(allowEmpty = false)
+	private String person;
+
+	public static final String name_FIELDNAME = "name";
+	@FieldDescribe("文件名称.")
+	@Column(length = length_255B, name = ColumnNamePrefix + name_FIELDNAME)
+	@CheckPersist(allowEmpty = false, fileNameString = true)
+	private String name;
+
+	public static final String folder_FIELDNAME = "folder";
+	@FieldDescribe("文件所属目录,为空表示顶层目录.")
+	@Column(length = JpaObject.length_id, name = ColumnNamePrefix + folder_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private String folder;
+
+	public static final String length_FIELDNAME = "length";
+	@FieldDescribe("文件大小.")
+	@Column(name = ColumnNamePrefix + length_FIELDNAME)
+	@CheckPersist(allowEmpty = false)
+	private Long length;
+
+	public static final String fileMd5_FIELDNAME = "fileMd5";
+	@FieldDescribe("客户端提供的整个文件的md5值,可以为空,合并时以实际计算的为准.")
+	@Column(length = JpaObject.length_64B, name = ColumnNamePrefix + fileMd5_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private String fileMd5;
+
+	public static final String lastUpdateTime_FIELDNAME = "lastUpdateTime";
+	@FieldDescribe("最后更新时间")
+	@Column(name = ColumnNamePrefix + lastUpdateTime_FIELDNAME)
+	@Index(name = TABLE + IndexNameMiddle + lastUpdateTime_FIELDNAME)
+	@CheckPersist(allowEmpty = false)
+	private Date lastUpdateTime;
+
+	public static final String chunkList_FIELDNAME = "chunkList";
+	@FieldDescribe("按顺序排列的文件块md5值,同一内容的块可以出现多次.")
+	@PersistentCollection(fetch = FetchType.EAGER)
+	@OrderColumn(name = ORDERCOLUMNCOLUMN)
+	@ContainerTable(name = TABLE + ContainerTableNameMiddle + chunkList_FIELDNAME, joinIndex = @Index(name = TABLE
+			+ IndexNameMiddle + chunkList_FIELDNAME + JoinIndexNameSuffix))
+	@ElementColumn(length = JpaObject.length_64B, name = ColumnNamePrefix + chunkList_FIELDNAME)
+	@CheckPersist(allowEmpty = false)
+	private List<String> chunkList;
+
+	public String getPerson() {
+		return person;
+	}
+
+	public void setPerson(String person) {
+		this.person = person;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getFolder() {
+		return folder;
+	}
+
+	public void setFolder(String folder) {
+		this.folder = folder;
+	}
+
+	public Long getLength() {
+		return length;
+	}
+
+	public void setLength(Long length) {
+		this.length = length;
+	}
+
+	public String getFileMd5() {
+		return fileMd5;
+	}
+
+	public void setFileMd5(String fileMd5) {
+		this.fileMd5 = fileMd5;
+	}
+
+	public Date getLastUpdateTime() {
+		return lastUpdateTime;
+	}
+
+	public void setLastUpdateTime(Date lastUpdateTime) {
+		this.lastUpdateTime = lastUpdateTime;
+	}
+
+	public List<String> getChunkList() {
+		return chunkList;
+	}
+
+	public void setChunkList(List<String> chunkList) {
+		this.chunkList = chunkList;
+	}
+
+}
@@ -22,6 +22,11 @@ public class DingdingConsumeQueue extends AbstractQueue<Message> {
 
 	private static Logger logger = LoggerFactory.getLogger(DingdingConsumeQueue.class);
 
+	@Override
+	protected boolean durable() {
+		return true;
+	}
+
 	protected void execute(Message message) throws Exception {
 
 		if (Config.dingding().getEnable() && Config.dingding().getMessageEnable()) {
@@ -22,6 +22,11 @@ public class PmsConsumeQueue extends AbstractQueue<Message> {
 
 	private static Logger logger = LoggerFactory.getLogger(PmsConsumeQueue.class);
 
+	@Override
+	protected boolean durable() {
+		return true;
+	}
+
 	private static final String TASK_FIRST = "first";
 
 	protected void execute(Message message) throws Exception {
@@ -21,6 +21,11 @@ public class QiyeweixinConsumeQueue extends AbstractQueue<Message> {
 
 	private static Logger logger = LoggerFactory.getLogger(QiyeweixinConsumeQueue.class);
 
+	@Override
+	protected boolean durable() {
+		return true;
+	}
+
 	protected void execute(Message message) throws Exception {
 
 		if (Config.qiyeweixin().getEnable() && Config.qiyeweixin().getMessageEnable()) {
@@ -7,6 +7,7 @@ import com.x.base.core.project.Context;
 import com.x.base.core.project.config.Config;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.message.assemble.communicate.schedule.Clean;
+import com.x.message.assemble.communicate.ws.collaboration.WsPresence;
 
 public class ThisApplication {
 
@@ -14,6 +15,8 @@ public class ThisApplication {
 
 	public static WsConsumeQueue wsConsumeQueue = new WsConsumeQueue();
 
+	public static WsConsumedQueue wsConsumedQueue = new WsConsumedQueue();
+
 	public static PmsConsumeQueue pmsConsumeQueue = new PmsConsumeQueue();
 
 	public static CalendarConsumeQueue calendarConsumeQueue = new CalendarConsumeQueue();
@@ -35,6 +38,8 @@ public class ThisApplication {
 			LoggerFactory.setLevel(Config.logLevel().x_message_assemble_communicate());
 			if (Config.communicate().wsEnable()) {
 				wsConsumeQueue.start();
+				wsConsumedQueue.start();
+				WsPresence.start();
 			}
 			if (Config.communicate().pmsEnable()) {
 				pmsConsumeQueue.start();
@@ -70,6 +75,8 @@ public class ThisApplication {
 	public static void destroy() {
 		try {
 			wsConsumeQueue.stop();
+			wsConsumedQueue.stop();
+			WsPresence.stop();
 			pmsConsumeQueue.stop();
 			calendarConsumeQueue.stop();
 			qiyeweixinConsumeQueue.stop();
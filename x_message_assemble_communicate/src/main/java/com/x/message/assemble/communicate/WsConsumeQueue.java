@@ -1,20 +1,23 @@
 package com.x.message.assemble.communicate;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import com.google.gson.JsonElement;
-import com.x.base.core.container.EntityManagerContainer;
-import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.project.Application;
 import com.x.base.core.project.x_message_assemble_communicate;
+import com.x.base.core.project.config.Config;
 import com.x.base.core.project.gson.XGsonBuilder;
-import com.x.base.core.project.jaxrs.WrapBoolean;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.message.MessageConnector;
 import com.x.base.core.project.message.WsMessage;
 import com.x.base.core.project.queue.AbstractQueue;
+import com.x.message.assemble.communicate.ws.collaboration.WsPresence;
+import com.x.message.assemble.communicate.ws.collaboration.WsSessions;
 import com.x.message.core.entity.Message;
 
 public class WsConsumeQueue extends AbstractQueue<Message> {
@@ -32,28 +35,68 @@ public class WsConsumeQueue extends AbstractQueue<Message> {
 		ws.setTitle(message.getTitle());
 		JsonElement jsonElement = XGsonBuilder.instance().fromJson(message.getBody(), JsonElement.class);
 		ws.setBody(jsonElement);
-		Boolean result = false;
 		/* 跳过第一条待办的提醒 */
 		if (StringUtils.equalsIgnoreCase(ws.getType(), MessageConnector.TYPE_TASK_CREATE)
 				&& BooleanUtils.isTrue(XGsonBuilder.extractBoolean(jsonElement, TASK_FIRST))
 				&& StringUtils.equals(XGsonBuilder.extractString(jsonElement, WORKCREATETYPE), SURFACE)) {
-			result = true;
-		} else {
-			for (Application app : ThisApplication.context().applications().get(x_message_assemble_communicate.class)) {
-				WrapBoolean wrapBoolean = ThisApplication.context().applications()
-						.postQuery(app, MessageConnector.CONSUME_WS, ws).getData(WrapBoolean.class);
-				result = result || wrapBoolean.getValue();
+			WsConsumedQueue.written(message.getId());
+			return;
+		}
+		/* 消息写入连接后由连接所在的节点标记为已消费,没有写入的消息保持未消费,用户重新连接时补发 */
+		for (Application app : this.route(ws.getPerson())) {
+			if (StringUtils.equals(app.getNode(), Config.node())) {
+				WsSessions.instance().send(ws.getPerson(), XGsonBuilder.toJson(ws),
+						() -> WsConsumedQueue.written(message.getId()));
+			} else {
+				Wi wi = new Wi();
+				wi.setType(ws.getType());
+				wi.setPerson(ws.getPerson());
+				wi.setTitle(ws.getTitle());
+				wi.setBody(ws.getBody());
+				wi.setMessageId(message.getId());
+				ThisApplication.context().applications().postQuery(app, MessageConnector.CONSUME_WS, wi);
 			}
 		}
-		if (result) {
-			try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-				Message messageEntityObject = emc.find(message.getId(), Message.class);
-				if (null != messageEntityObject) {
-					emc.beginTransaction(Message.class);
-					messageEntityObject.setConsumed(true);
-					emc.commit();
-				}
+	}
+
+	/**
+	 * 用户连接所在的节点.只有一个节点时不需要查询;查询失败时发送到所有节点.<br/>
+	 * 用户不在线时返回空,消息保持未消费,用户连接时补发.
+	 */
+	private List<Application> route(String person) throws Exception {
+		List<Application> apps = ThisApplication.context().applications().get(x_message_assemble_communicate.class);
+		if ((null == apps) || (apps.size() <= 1)) {
+			return (null == apps) ? new ArrayList<>() : apps;
+		}
+		List<String> nodes;
+		try {
+			nodes = WsPresence.nodes(person);
+		} catch (Exception e) {
+			logger.warn("lookup websocket presence error:{}, send to all node.", e.getMessage());
+			return apps;
+		}
+		List<Application> list = new ArrayList<>();
+		for (Application app : apps) {
+			if (nodes.contains(app.getNode()) || (StringUtils.equals(app.getNode(), Config.node())
+					&& WsSessions.instance().online(person))) {
+				list.add(app);
 			}
 		}
+		return list;
+	}
+
+	/* 发送到其他节点的消息,携带消息id由接收节点在写入连接后标记为已消费 */
+	public static class Wi extends WsMessage {
+
+		private String messageId;
+
+		public String getMessageId() {
+			return messageId;
+		}
+
+		public void setMessageId(String messageId) {
+			this.messageId = messageId;
+		}
+
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.x.message.assemble.communicate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.BooleanUtils;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.queue.AbstractQueue;
+import com.x.message.core.entity.Message;
+
+/**
+ * webSocket消息写入连接成功后标记为已消费.<br/>
+ * 写入回调在webSocket的发送线程中执行,不直接访问数据库;没有进入队列的消息保持未消费,用户重新连接时补发.
+ */
+public class WsConsumedQueue extends AbstractQueue<String> {
+
+	private static Logger logger = LoggerFactory.getLogger(WsConsumedQueue.class);
+
+	public static void written(String id) {
+		try {
+			if (!ThisApplication.wsConsumedQueue.offer(id, 1, TimeUnit.SECONDS)) {
+				logger.warn("websocket consumed queue is full, message:{} remains unconsumed.", id);
+			}
+		} catch (Exception e) {
+			logger.error(e);
+		}
+	}
+
+	protected void execute(String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Message message = emc.find(id, Message.class);
+			if ((null != message) && BooleanUtils.isNotTrue(message.getConsumed())) {
+				emc.beginTransaction(Message.class);
+				message.setConsumed(true);
+				emc.commit();
+			}
+		}
+	}
+}
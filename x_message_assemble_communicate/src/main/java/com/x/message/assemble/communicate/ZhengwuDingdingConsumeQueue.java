@@ -14,6 +14,11 @@ public class ZhengwuDingdingConsumeQueue extends AbstractQueue<Message> {
 
 	private static Logger logger = LoggerFactory.getLogger(ZhengwuDingdingConsumeQueue.class);
 
+	@Override
+	protected boolean durable() {
+		return true;
+	}
+
 	protected void execute(Message message) throws Exception {
 
 		if (Config.zhengwuDingding().getEnable() && Config.zhengwuDingding().getMessageEnable()) {
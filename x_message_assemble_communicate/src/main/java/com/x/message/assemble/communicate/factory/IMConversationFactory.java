@@ -1,15 +1,25 @@
 package com.x.message.assemble.communicate.factory;
 
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.tools.ListTools;
 import com.x.message.assemble.communicate.AbstractFactory;
 import com.x.message.assemble.communicate.Business;
 import com.x.message.core.entity.*;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.ObjectUtils;
 
 public class IMConversationFactory extends AbstractFactory {
 
@@ -34,6 +44,173 @@ public class IMConversationFactory extends AbstractFactory {
 	}
 
 
+	/**
+	 * 获取成员包含person的会话
+	 * @param person
+	 * @return
+	 * @throws Exception
+	 */
+	public List<IMConversation> listConversationObjectWithPerson(String person) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(IMConversation.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<IMConversation> cq = cb.createQuery(IMConversation.class);
+		Root<IMConversation> root = cq.from(IMConversation.class);
+		Predicate p = cb.isMember(person, root.get(IMConversation_.personList));
+		cq.select(root).where(p);
+		return em.createQuery(cq).getResultList();
+	}
+
+	/**
+	 * 用户所有的会话扩展
+	 * @param person
+	 * @return
+	 * @throws Exception
+	 */
+	public List<IMConversationExt> listConversationExtWithPerson(String person) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(IMConversationExt.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<IMConversationExt> cq = cb.createQuery(IMConversationExt.class);
+		Root<IMConversationExt> root = cq.from(IMConversationExt.class);
+		Predicate p = cb.equal(root.get(IMConversationExt_.person), person);
+		cq.select(root).where(p);
+		return em.createQuery(cq).getResultList();
+	}
+
+	/**
+	 * 会话所有成员的会话扩展
+	 * @param conversationId
+	 * @return
+	 * @throws Exception
+	 */
+	public List<IMConversationExt> listConversationExtWithConversation(String conversationId) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(IMConversationExt.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<IMConversationExt> cq = cb.createQuery(IMConversationExt.class);
+		Root<IMConversationExt> root = cq.from(IMConversationExt.class);
+		Predicate p = cb.equal(root.get(IMConversationExt_.conversationId), conversationId);
+		cq.select(root).where(p);
+		return em.createQuery(cq).getResultList();
+	}
+
+	/**
+	 * 新消息,除发送人外已经维护未读数量的成员未读数量加1,需要在IMConversationExt的事务中执行
+	 * @param conversationId
+	 * @param sender
+	 * @return 更新的数量
+	 * @throws Exception
+	 */
+	public int increaseUnreadNumber(String conversationId, String sender) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(IMConversationExt.class);
+		Query query = em.createQuery("update " + IMConversationExt.class.getName()
+				+ " o set o.unreadNumber = o.unreadNumber + 1 where o.conversationId = :conversationId"
+				+ " and o.person <> :sender and o.unreadNumber is not null");
+		query.setParameter("conversationId", conversationId);
+		query.setParameter("sender", sender);
+		return query.executeUpdate();
+	}
+
+	/**
+	 * 阅读会话,未读数量只扣减阅读时看到的数量,阅读期间新消息的增加不会被覆盖,需要在IMConversationExt的事务中执行<br/>
+	 * 未读数量已经不是看到的值(被其他阅读扣减或者发送消息时计算了未读数量)时不更新
+	 * @param id 会话扩展id
+	 * @param seen 阅读时看到的未读数量,为空表示还没有维护未读数量
+	 * @param lastReadTime
+	 * @return 是否更新
+	 * @throws Exception
+	 */
+	public boolean readUnreadNumber(String id, Long seen, Date lastReadTime) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(IMConversationExt.class);
+		Query query;
+		if (null == seen) {
+			query = em.createQuery("update " + IMConversationExt.class.getName()
+					+ " o set o.unreadNumber = :zero, o.lastReadTime = :lastReadTime"
+					+ " where o.id = :id and o.unreadNumber is null");
+			query.setParameter("zero", 0L);
+		} else {
+			query = em.createQuery("update " + IMConversationExt.class.getName()
+					+ " o set o.unreadNumber = o.unreadNumber - :seen, o.lastReadTime = :lastReadTime"
+					+ " where o.id = :id and o.unreadNumber >= :seen");
+			query.setParameter("seen", seen);
+		}
+		query.setParameter("lastReadTime", lastReadTime);
+		query.setParameter("id", id);
+		return query.executeUpdate() > 0;
+	}
+
+	/**
+	 * 没有会话扩展的会话未读数量,即会话中其他人发送的消息数量
+	 * @param person
+	 * @param conversationIds
+	 * @return 会话id与未读数量,没有消息的会话不在其中
+	 * @throws Exception
+	 */
+	public Map<String, Long> unreadNumberWithoutExt(String person, List<String> conversationIds) throws Exception {
+		Map<String, Long> map = new HashMap<>();
+		if (conversationIds.isEmpty()) {
+			return map;
+		}
+		EntityManager em = this.entityManagerContainer().get(IMMsg.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		for (List<String> ids : ListTools.batch(conversationIds,
+				EntityManagerContainerFactory.instance().getInClauseLimit(IMMsg.class))) {
+			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
+			Root<IMMsg> root = cq.from(IMMsg.class);
+			Predicate p = root.get(IMMsg_.conversationId).in(ids);
+			p = cb.and(p, cb.notEqual(root.get(IMMsg_.createPerson), person));
+			cq.multiselect(root.get(IMMsg_.conversationId), cb.count(root)).where(p)
+					.groupBy(root.get(IMMsg_.conversationId));
+			for (Tuple o : em.createQuery(cq).getResultList()) {
+				map.put(o.get(0, String.class), o.get(1, Long.class));
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * 批量获取会话中的最后一条消息,用于还没有记录最后一条消息id的会话<br/>
+	 * 创建时间相同的多条消息取id最大的一条,保证每次结果一致
+	 * @param conversationIds
+	 * @return 会话id与最后一条消息
+	 * @throws Exception
+	 */
+	public Map<String, IMMsg> lastMessages(List<String> conversationIds) throws Exception {
+		Map<String, IMMsg> map = new HashMap<>();
+		if (conversationIds.isEmpty()) {
+			return map;
+		}
+		EntityManager em = this.entityManagerContainer().get(IMMsg.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		for (List<String> ids : ListTools.batch(conversationIds,
+				EntityManagerContainerFactory.instance().getInClauseLimit(IMMsg.class))) {
+			CriteriaQuery<IMMsg> cq = cb.createQuery(IMMsg.class);
+			Root<IMMsg> root = cq.from(IMMsg.class);
+			Subquery<Date> sq = cq.subquery(Date.class);
+			Root<IMMsg> sub = sq.from(IMMsg.class);
+			sq.select(cb.greatest(sub.get(IMMsg_.createTime)))
+					.where(cb.equal(sub.get(IMMsg_.conversationId), root.get(IMMsg_.conversationId)));
+			Predicate p = root.get(IMMsg_.conversationId).in(ids);
+			p = cb.and(p, cb.equal(root.get(IMMsg_.createTime), sq));
+			for (IMMsg o : em.createQuery(cq.select(root).where(p)).getResultList()) {
+				map.merge(o.getConversationId(), o, IMConversationFactory::later);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * 两条消息中较晚的一条,创建时间相同时取id较大的一条
+	 * @param o1
+	 * @param o2
+	 * @return
+	 */
+	public static IMMsg later(IMMsg o1, IMMsg o2) {
+		int compare = ObjectUtils.compare(o1.getCreateTime(), o2.getCreateTime());
+		if (compare == 0) {
+			compare = ObjectUtils.compare(o1.getId(), o2.getId());
+		}
+		return (compare >= 0) ? o1 : o2;
+	}
+
 	/**
 	 * 查询当前用户会话扩展
 	 * @param person
@@ -28,13 +28,18 @@ public class ActionConversationRead extends BaseAction  {
                 ext.setConversationId(conversationId);
                 ext.setPerson(effectivePerson.getDistinguishedName());
                 ext.setLastReadTime(new Date());
+                ext.setUnreadNumber(0L);
                 emc.beginTransaction(IMConversationExt.class);
                 emc.persist(ext, CheckPersistType.all);
                 emc.commit();
             }else {
-                ext.setLastReadTime(new Date());
+                /* 不能直接写回0,会覆盖阅读期间发送消息增加的未读数量.条件不满足时重新读取后再扣减 */
+                Date now = new Date();
                 emc.beginTransaction(IMConversationExt.class);
-                emc.persist(ext, CheckPersistType.all);
+                for (int i = 0; i < 3 && !business.imConversationFactory().readUnreadNumber(ext.getId(),
+                        ext.getUnreadNumber(), now); i++) {
+                    emc.get(IMConversationExt.class).refresh(ext);
+                }
                 emc.commit();
             }
 
@@ -15,6 +15,7 @@ import com.x.message.assemble.communicate.Business;
 import com.x.message.core.entity.IMConversation;
 import com.x.message.core.entity.IMConversationExt;
 import com.x.message.core.entity.IMMsg;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.List;
 
@@ -34,19 +35,27 @@ public class ActionGetConversation extends BaseAction {
                     .getConversationExt(effectivePerson.getDistinguishedName(), wo.getId());
             if (ext != null) {
                 wo.setIsTop(ext.getIsTop());
-                wo.setUnreadNumber(business.imConversationFactory().unreadNumber(ext));
+                if (ext.getUnreadNumber() != null) {
+                    wo.setUnreadNumber(ext.getUnreadNumber());
+                } else {
+                    wo.setUnreadNumber(business.imConversationFactory().unreadNumber(ext));
+                }
             }else {
                 IMConversationExt conversationExt = new IMConversationExt();
                 conversationExt.setConversationId(conversation.getId());
                 conversationExt.setPerson(effectivePerson.getDistinguishedName());
+                conversationExt.setUnreadNumber(business.imConversationFactory().unreadNumber(conversationExt));
                 emc.beginTransaction(IMConversationExt.class);
                 emc.persist(conversationExt, CheckPersistType.all);
                 emc.commit();
                 wo.setIsTop(false);
-                wo.setUnreadNumber(business.imConversationFactory().unreadNumber(conversationExt));
+                wo.setUnreadNumber(conversationExt.getUnreadNumber());
 
             }
-            wo.setLastMessage(WoMsg.copier.copy(business.imConversationFactory().lastMessage(wo.getId())));
+            IMMsg lastMessage = StringUtils.isNotEmpty(conversation.getLastMessageId())
+                    ? emc.find(conversation.getLastMessageId(), IMMsg.class)
+                    : business.imConversationFactory().lastMessage(wo.getId());
+            wo.setLastMessage(WoMsg.copier.copy(lastMessage));
             result.setData(wo);
             return result;
         }
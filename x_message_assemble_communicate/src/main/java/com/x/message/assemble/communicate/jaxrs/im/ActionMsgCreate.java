@@ -12,11 +12,16 @@ import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.message.MessageConnector;
+import com.x.message.assemble.communicate.Business;
 import com.x.message.core.entity.IMConversation;
+import com.x.message.core.entity.IMConversationExt;
 import com.x.message.core.entity.IMMsg;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 import static com.x.message.core.entity.IMConversation.CONVERSATION_TYPE_GROUP;
@@ -49,9 +54,12 @@ public class ActionMsgCreate extends BaseAction {
             emc.beginTransaction(IMConversation.class);
             IMConversation conversation = emc.find(msg.getConversationId(), IMConversation.class);
             conversation.setLastMessageTime(new Date());
+            conversation.setLastMessageId(msg.getId());
             emc.check(conversation, CheckPersistType.all);
             emc.commit();
 
+            this.increaseUnreadNumber(new Business(emc), conversation, effectivePerson.getDistinguishedName());
+
             //发送消息
             List<String> persons = conversation.getPersonList();
             persons.removeIf(s -> (effectivePerson.getDistinguishedName().equals(s)));
@@ -75,6 +83,38 @@ public class ActionMsgCreate extends BaseAction {
 
 
 
+    /**
+     * 除发送人外的成员未读数量加1.已经维护未读数量的通过一条更新语句增加,
+     * 没有会话扩展或者还没有维护未读数量的成员通过消息计算一次.
+     */
+    private void increaseUnreadNumber(Business business, IMConversation conversation, String sender)
+            throws Exception {
+        EntityManagerContainer emc = business.entityManagerContainer();
+        emc.beginTransaction(IMConversationExt.class);
+        business.imConversationFactory().increaseUnreadNumber(conversation.getId(), sender);
+        Map<String, IMConversationExt> exts = new HashMap<>();
+        for (IMConversationExt ext : business.imConversationFactory()
+                .listConversationExtWithConversation(conversation.getId())) {
+            exts.put(ext.getPerson(), ext);
+        }
+        for (String person : conversation.getPersonList()) {
+            if (StringUtils.equals(person, sender)) {
+                continue;
+            }
+            IMConversationExt ext = exts.get(person);
+            if (ext == null) {
+                ext = new IMConversationExt();
+                ext.setConversationId(conversation.getId());
+                ext.setPerson(person);
+                ext.setUnreadNumber(business.imConversationFactory().unreadNumber(ext));
+                emc.persist(ext, CheckPersistType.all);
+            } else if (ext.getUnreadNumber() == null) {
+                ext.setUnreadNumber(business.imConversationFactory().unreadNumber(ext));
+            }
+        }
+        emc.commit();
+    }
+
     public static class Wo extends IMMsg {
 
         private static final long serialVersionUID = 3434938936805201380L;
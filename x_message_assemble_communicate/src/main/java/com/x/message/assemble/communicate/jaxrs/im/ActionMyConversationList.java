@@ -14,8 +14,12 @@ import com.x.message.assemble.communicate.Business;
 import com.x.message.core.entity.IMConversation;
 import com.x.message.core.entity.IMConversationExt;
 import com.x.message.core.entity.IMMsg;
+import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 public class ActionMyConversationList extends BaseAction {
@@ -27,22 +31,72 @@ public class ActionMyConversationList extends BaseAction {
         try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
             ActionResult<List<Wo>> result = new ActionResult<>();
             Business business = new Business(emc);
-            List<String> ids = business.imConversationFactory().listConversationWithPerson(effectivePerson.getDistinguishedName());
-            List<Wo> wos = Wo.copier.copy(emc.list(IMConversation.class, ids));
+            String person = effectivePerson.getDistinguishedName();
+            List<Wo> wos = Wo.copier.copy(business.imConversationFactory().listConversationObjectWithPerson(person));
+            Map<String, IMConversationExt> exts = new HashMap<>();
+            for (IMConversationExt ext : business.imConversationFactory().listConversationExtWithPerson(person)) {
+                exts.put(ext.getConversationId(), ext);
+            }
+            /* 未读数量和最后一条消息优先使用会话上维护的值,还没有维护的会话批量计算 */
+            List<String> withoutExts = new ArrayList<>();
+            List<IMConversationExt> uncounted = new ArrayList<>();
+            List<String> lastMessageIds = new ArrayList<>();
+            List<String> withoutLastMessageIds = new ArrayList<>();
             for (Wo wo : wos) {
-                IMConversationExt ext = business.imConversationFactory()
-                        .getConversationExt(effectivePerson.getDistinguishedName(), wo.getId());
-                if (ext != null) {
+                IMConversationExt ext = exts.get(wo.getId());
+                if (ext == null) {
+                    withoutExts.add(wo.getId());
+                } else {
                     wo.setIsTop(ext.getIsTop());
-                    wo.setUnreadNumber(business.imConversationFactory().unreadNumber(ext));
+                    if (ext.getUnreadNumber() == null) {
+                        uncounted.add(ext);
+                    }
+                    wo.setUnreadNumber(ext.getUnreadNumber());
+                }
+                if (StringUtils.isNotEmpty(wo.getLastMessageId())) {
+                    lastMessageIds.add(wo.getLastMessageId());
+                } else if (wo.getLastMessageTime() != null) {
+                    withoutLastMessageIds.add(wo.getId());
+                }
+            }
+            if (!uncounted.isEmpty()) {
+                this.count(business, uncounted, wos);
+            }
+            Map<String, Long> unreadNumbers = business.imConversationFactory().unreadNumberWithoutExt(person,
+                    withoutExts);
+            Map<String, IMMsg> lastMessages = business.imConversationFactory().lastMessages(withoutLastMessageIds);
+            for (IMMsg msg : emc.list(IMMsg.class, lastMessageIds)) {
+                lastMessages.put(msg.getConversationId(), msg);
+            }
+            for (Wo wo : wos) {
+                if (!exts.containsKey(wo.getId())) {
+                    wo.setUnreadNumber(unreadNumbers.getOrDefault(wo.getId(), 0L));
+                }
+                IMMsg msg = lastMessages.get(wo.getId());
+                if (msg != null) {
+                    wo.setLastMessage(WoMsg.copier.copy(msg));
                 }
-                wo.setLastMessage(WoMsg.copier.copy(business.imConversationFactory().lastMessage(wo.getId())));
             }
             result.setData(wos);
             return result;
         }
     }
 
+    /* 升级前的会话扩展没有未读数量,计算一次后保存,之后由发送消息和阅读维护 */
+    private void count(Business business, List<IMConversationExt> exts, List<Wo> wos) throws Exception {
+        Map<String, Wo> map = new HashMap<>();
+        for (Wo wo : wos) {
+            map.put(wo.getId(), wo);
+        }
+        EntityManagerContainer emc = business.entityManagerContainer();
+        emc.beginTransaction(IMConversationExt.class);
+        for (IMConversationExt ext : exts) {
+            ext.setUnreadNumber(business.imConversationFactory().unreadNumber(ext));
+            map.get(ext.getConversationId()).setUnreadNumber(ext.getUnreadNumber());
+        }
+        emc.commit();
+    }
+
     public static class Wo extends IMConversation {
 
         @FieldDescribe( "是否置顶." )
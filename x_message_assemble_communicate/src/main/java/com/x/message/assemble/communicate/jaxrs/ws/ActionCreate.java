@@ -1,9 +1,5 @@
 package com.x.message.assemble.communicate.jaxrs.ws;
 
-import java.util.Map.Entry;
-
-import javax.websocket.Session;
-
 import org.apache.commons.lang3.StringUtils;
 
 import com.google.gson.JsonElement;
@@ -13,7 +9,8 @@ import com.x.base.core.project.jaxrs.WrapBoolean;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.message.WsMessage;
-import com.x.message.assemble.communicate.ws.collaboration.ActionCollaboration;
+import com.x.message.assemble.communicate.WsConsumedQueue;
+import com.x.message.assemble.communicate.ws.collaboration.WsSessions;
 
 class ActionCreate extends BaseAction {
 
@@ -25,15 +22,17 @@ class ActionCreate extends BaseAction {
 		Wo wo = new Wo();
 		wo.setValue(false);
 
-		for (Entry<Session, String> entry : ActionCollaboration.clients.entrySet()) {
-			if (StringUtils.equals(entry.getValue(), wi.getPerson())) {
-				Session session = entry.getKey();
-				if (session != null && session.isOpen()) {
-					logger.debug(effectivePerson, "send ws, message: {}.", wi);
-					session.getBasicRemote().sendText(jsonElement.toString());
-					wo.setValue(true);
-				}
-			}
+		logger.debug(effectivePerson, "send ws, message: {}.", wi);
+		String messageId = wi.getMessageId();
+		if (jsonElement.isJsonObject()) {
+			jsonElement.getAsJsonObject().remove(Wi.messageId_FIELDNAME);
+		}
+		if (StringUtils.isEmpty(messageId)) {
+			wo.setValue(WsSessions.instance().send(wi.getPerson(), jsonElement.toString()) > 0);
+		} else {
+			/* 写入连接后标记为已消费 */
+			wo.setValue(WsSessions.instance().send(wi.getPerson(), jsonElement.toString(),
+					() -> WsConsumedQueue.written(messageId)) > 0);
 		}
 
 		result.setData(wo);
@@ -41,6 +40,19 @@ class ActionCreate extends BaseAction {
 	}
 
 	public static class Wi extends WsMessage {
+
+		public static final String messageId_FIELDNAME = "messageId";
+
+		private String messageId;
+
+		public String getMessageId() {
+			return messageId;
+		}
+
+		public void setMessageId(String messageId) {
+			this.messageId = messageId;
+		}
+
 	}
 
 	public static class Wo extends WrapBoolean {
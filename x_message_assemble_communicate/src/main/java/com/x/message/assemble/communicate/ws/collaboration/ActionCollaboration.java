@@ -3,7 +3,6 @@ package com.x.message.assemble.communicate.ws.collaboration;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -24,6 +23,7 @@ import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.message.MessageConnector;
 import com.x.base.core.project.message.WsMessage;
+import com.x.message.assemble.communicate.WsConsumedQueue;
 import com.x.message.core.entity.Message;
 import com.x.message.core.entity.Message_;
 import org.apache.commons.lang3.StringUtils;
@@ -33,8 +33,6 @@ public class ActionCollaboration {
 
 	private static Logger logger = LoggerFactory.getLogger(ActionCollaboration.class);
 
-	public static final ConcurrentHashMap<Session, String> clients = new ConcurrentHashMap<Session, String>();
-
 	@OnOpen
 	public void open(Session session) {
 		EffectivePerson effectivePerson = (EffectivePerson) session.getUserProperties().get(HttpToken.X_Person);
@@ -43,33 +41,49 @@ public class ActionCollaboration {
 		if (TokenType.anonymous.equals(effectivePerson.getTokenType())) {
 			return;
 		} else {
-			clients.put(session, effectivePerson.getDistinguishedName());
-			try {
-				List<Message> messages = this.load(effectivePerson);
-				WsMessage ws = null;
-				for (Message o : messages) {
-					ws = new WsMessage();
-					ws.setType(o.getType());
-					ws.setPerson(o.getPerson());
-					ws.setTitle(o.getTitle());
-					JsonElement jsonElement = XGsonBuilder.instance().fromJson(o.getBody(), JsonElement.class);
-					ws.setBody(jsonElement);
-					session.getBasicRemote().sendText(XGsonBuilder.toJson(ws));
-				}
-			} catch (Exception e) {
-				logger.error(e);
+			if (WsSessions.instance().register(session, effectivePerson.getDistinguishedName())) {
+				WsPresence.online(effectivePerson.getDistinguishedName());
+			}
+			replay(effectivePerson.getDistinguishedName(), session);
+		}
+	}
+
+	/**
+	 * 补发用户未消费的消息,session为空时发送给用户在本节点上的所有连接.<br/>
+	 * 消息写入连接后才标记为已消费,发送缓冲中被丢弃的消息在下一次连接时再次补发.
+	 */
+	static void replay(String person, Session session) {
+		for (Message o : load(person)) {
+			WsMessage ws = new WsMessage();
+			ws.setType(o.getType());
+			ws.setPerson(o.getPerson());
+			ws.setTitle(o.getTitle());
+			JsonElement jsonElement = XGsonBuilder.instance().fromJson(o.getBody(), JsonElement.class);
+			ws.setBody(jsonElement);
+			String id = o.getId();
+			if (null == session) {
+				WsSessions.instance().send(person, XGsonBuilder.toJson(ws), () -> WsConsumedQueue.written(id));
+			} else {
+				WsSessions.instance().send(session, XGsonBuilder.toJson(ws), () -> WsConsumedQueue.written(id));
 			}
 		}
 	}
 
 	@OnClose
 	public void close(Session session, CloseReason reason) throws IOException {
-		clients.remove(session);
+		this.unregister(session);
 	}
 
 	@OnError
-	public void error(Throwable t) throws Throwable {
+	public void error(Session session, Throwable t) throws Throwable {
+		this.unregister(session);
+	}
 
+	private void unregister(Session session) {
+		if (WsSessions.instance().unregister(session)) {
+			EffectivePerson effectivePerson = (EffectivePerson) session.getUserProperties().get(HttpToken.X_Person);
+			WsPresence.offline(effectivePerson.getDistinguishedName());
+		}
 	}
 
 	@OnMessage
@@ -82,27 +96,22 @@ public class ActionCollaboration {
 		}
 		// 建立心跳，维持websocket链接
 		if (input.equalsIgnoreCase("heartbeat")) {
-			session.getBasicRemote().sendText("heartbeat");
+			WsSessions.instance().send(session, "heartbeat");
 		}
 	}
 
-	private List<Message> load(EffectivePerson effectivePerson) {
+	private static List<Message> load(String person) {
 		List<Message> os = new ArrayList<>();
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			EntityManager em = emc.get(Message.class);
 			CriteriaBuilder cb = em.getCriteriaBuilder();
 			CriteriaQuery<Message> cq = cb.createQuery(Message.class);
 			Root<Message> root = cq.from(Message.class);
-			Predicate p = cb.equal(root.get(Message_.person), effectivePerson.getDistinguishedName());
+			Predicate p = cb.equal(root.get(Message_.person), person);
 			p = cb.and(p, cb.equal(root.get(Message_.consumer), MessageConnector.CONSUME_WS));
 			p = cb.and(p, cb.equal(root.get(Message_.consumed), false));
 			cq.select(root).where(p).orderBy(cb.asc(root.get(Message_.createTime)));
 			os = em.createQuery(cq).setMaxResults(100).getResultList();
-			emc.beginTransaction(Message.class);
-			for (Message o : os) {
-				o.setConsumed(true);
-			}
-			emc.commit();
 		} catch (Exception e) {
 			logger.error(e);
 		}
@@ -0,0 +1,267 @@
+package com.x.message.assemble.communicate.ws.collaboration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.BooleanUtils;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.project.config.Config;
+import com.x.base.core.project.connection.CipherConnectionAction;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.jaxrs.WrapString;
+import com.x.base.core.project.jaxrs.WrapStringList;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.message.core.entity.Message;
+
+/**
+ * 向center上报本节点的在线用户,用于消息只发送到用户连接所在的节点.<br/>
+ * 用户上线下线合并后立即上报,每分钟全量上报一次,全量上报同时作为节点心跳,center重启或者上报失败后由全量上报恢复.<br/>
+ * 查询结果在各节点缓存PRESENCE_TTL秒,上报用户变化后通知各节点清除该用户的缓存;缓存过期后补发一次上线用户的未消费消息,
+ * 覆盖其他节点在用户上线前查询并缓存了不在线的情况.
+ */
+public class WsPresence {
+
+	private static Logger logger = LoggerFactory.getLogger(WsPresence.class);
+
+	private static final String PATH = "wspresence";
+
+	private static final String PATH_LOOKUP = "lookup";
+
+	/* 全量上报周期 */
+	private static final long FULL_INTERVAL = 60 * 1000L;
+
+	/* 上报失败后重试的间隔 */
+	private static final long RETRY_INTERVAL = 5 * 1000L;
+
+	/* 查询结果缓存的秒数 */
+	private static final int PRESENCE_TTL = 10;
+
+	/* 上线用户补发未消费消息的延迟,大于缓存时间 */
+	private static final long REPLAY_DELAY = (PRESENCE_TTL + 5) * 1000L;
+
+	private static final int PRESENCE_CACHE_SIZE = 100000;
+
+	private static final String PRESENCE_CACHE_NAME = ApplicationCache.concreteCacheKey(Message.class.getName(),
+			WsPresence.class.getName());
+
+	/* 用户状态变化,true为上线 */
+	private static final Map<String, Boolean> CHANGES = new ConcurrentHashMap<>();
+
+	private static final LinkedBlockingQueue<Boolean> SIGNAL = new LinkedBlockingQueue<>();
+
+	private static volatile ReportThread reportThread;
+
+	private static volatile ScheduledExecutorService replayExecutor;
+
+	private WsPresence() {
+	}
+
+	public static void online(String person) {
+		if (null != reportThread) {
+			CHANGES.put(person, true);
+			SIGNAL.offer(true);
+		}
+	}
+
+	public static void offline(String person) {
+		if (null != reportThread) {
+			CHANGES.put(person, false);
+			SIGNAL.offer(true);
+		}
+	}
+
+	/* 用户连接所在的节点,优先使用缓存 */
+	@SuppressWarnings("unchecked")
+	public static List<String> nodes(String person) throws Exception {
+		Ehcache cache = ApplicationCache.instance().getCache(PRESENCE_CACHE_NAME, PRESENCE_CACHE_SIZE, PRESENCE_TTL,
+				PRESENCE_TTL);
+		Element element = cache.get(person);
+		if ((null != element) && (null != element.getObjectValue())) {
+			return (List<String>) element.getObjectValue();
+		}
+		List<String> nodes = lookup(person);
+		cache.put(new Element(person, nodes));
+		return nodes;
+	}
+
+	/* 查询用户连接所在的节点 */
+	public static List<String> lookup(String person) throws Exception {
+		WrapString wi = new WrapString();
+		wi.setValue(person);
+		return CipherConnectionAction.post(false, Config.url_x_program_center_jaxrs(PATH, PATH_LOOKUP), wi)
+				.getData(WrapStringList.class).getValueList();
+	}
+
+	public static synchronized void start() {
+		if (null == reportThread) {
+			replayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "WsPresence-replay");
+				thread.setDaemon(true);
+				return thread;
+			});
+			reportThread = new ReportThread();
+			reportThread.start();
+			SIGNAL.offer(true);
+		}
+	}
+
+	public static synchronized void stop() {
+		if (null != reportThread) {
+			reportThread.turn = false;
+			SIGNAL.offer(false);
+			reportThread = null;
+			replayExecutor.shutdownNow();
+			replayExecutor = null;
+		}
+	}
+
+	private static class ReportThread extends Thread {
+
+		private volatile boolean turn = true;
+
+		private long fullTime = 0;
+
+		private ReportThread() {
+			super("WsPresence-report");
+			this.setDaemon(true);
+		}
+
+		public void run() {
+			while (turn) {
+				try {
+					if (BooleanUtils.isFalse(SIGNAL.poll(FULL_INTERVAL, TimeUnit.MILLISECONDS))) {
+						break;
+					}
+					SIGNAL.clear();
+					if ((System.currentTimeMillis() - fullTime) >= FULL_INTERVAL) {
+						this.full();
+					} else {
+						this.delta();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch (Exception e) {
+					logger.warn("report websocket presence error:{}.", e.getMessage());
+					/* 上报失败,稍后进行全量上报 */
+					fullTime = 0;
+					this.retry();
+				}
+			}
+		}
+
+		private void retry() {
+			try {
+				Thread.sleep(RETRY_INTERVAL);
+				SIGNAL.offer(true);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void full() throws Exception {
+			CHANGES.clear();
+			Wi wi = new Wi();
+			wi.setNode(Config.node());
+			wi.setFull(true);
+			wi.setOnlineList(WsSessions.instance().persons());
+			CipherConnectionAction.put(false, Config.url_x_program_center_jaxrs(PATH), wi);
+			fullTime = System.currentTimeMillis();
+		}
+
+		private void delta() throws Exception {
+			Wi wi = new Wi();
+			wi.setNode(Config.node());
+			wi.setFull(false);
+			for (Entry<String, Boolean> entry : new ArrayList<>(CHANGES.entrySet())) {
+				CHANGES.remove(entry.getKey(), entry.getValue());
+				/* 以本节点当前的连接为准,忽略已经被后续变化抵消的状态 */
+				if (WsSessions.instance().online(entry.getKey())) {
+					wi.getOnlineList().add(entry.getKey());
+				} else {
+					wi.getOfflineList().add(entry.getKey());
+				}
+			}
+			if (!(wi.getOnlineList().isEmpty() && wi.getOfflineList().isEmpty())) {
+				CipherConnectionAction.put(false, Config.url_x_program_center_jaxrs(PATH), wi);
+				List<Object> persons = new ArrayList<>();
+				persons.addAll(wi.getOnlineList());
+				persons.addAll(wi.getOfflineList());
+				ApplicationCache.notify(Message.class, persons);
+				this.replay(wi.getOnlineList());
+			}
+		}
+
+		/* 其他节点缓存过期后仍然在线的用户补发未消费的消息 */
+		private void replay(List<String> persons) {
+			ScheduledExecutorService executor = replayExecutor;
+			if (null == executor) {
+				return;
+			}
+			for (String person : persons) {
+				executor.schedule(() -> {
+					if (WsSessions.instance().online(person)) {
+						ActionCollaboration.replay(person, null);
+					}
+				}, REPLAY_DELAY, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	public static class Wi extends GsonPropertyObject {
+
+		private String node;
+
+		private Boolean full;
+
+		private List<String> onlineList = new ArrayList<>();
+
+		private List<String> offlineList = new ArrayList<>();
+
+		public String getNode() {
+			return node;
+		}
+
+		public void setNode(String node) {
+			this.node = node;
+		}
+
+		public Boolean getFull() {
+			return full;
+		}
+
+		public void setFull(Boolean full) {
+			this.full = full;
+		}
+
+		public List<String> getOnlineList() {
+			return onlineList;
+		}
+
+		public void setOnlineList(List<String> onlineList) {
+			this.onlineList = onlineList;
+		}
+
+		public List<String> getOfflineList() {
+			return offlineList;
+		}
+
+		public void setOfflineList(List<String> offlineList) {
+			this.offlineList = offlineList;
+		}
+
+	}
+
+}
@@ -0,0 +1,313 @@
+package com.x.message.assemble.communicate.ws.collaboration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+
+/**
+ * 本节点上的webSocket连接.<br/>
+ * 按用户索引连接,发送时只访问目标用户的连接.每个连接有一个有界的发送缓冲,消息异步逐条发送,同一个连接同时只有一个发送在进行;
+ * 缓冲满或者一条消息长时间没有发送完成的连接视为慢消费者,关闭连接,客户端重连后通过未消费消息补发.<br/>
+ * 消息写入连接成功后才回调written,由回调将消息标记为已消费,缓冲中被丢弃的消息保持未消费.
+ */
+public class WsSessions {
+
+	private static Logger logger = LoggerFactory.getLogger(WsSessions.class);
+
+	/* 每个连接缓冲的最大消息数 */
+	public static final int DEFAULT_MAX_PENDING = 256;
+
+	/* 每个连接缓冲的最大字节数(按字符计) */
+	public static final long DEFAULT_MAX_PENDING_BYTES = 1024 * 1024L;
+
+	/* 一条消息发送超过这个时间没有完成视为慢消费者 */
+	public static final long DEFAULT_SEND_TIMEOUT = 30 * 1000L;
+
+	private static WsSessions INSTANCE = new WsSessions(DEFAULT_MAX_PENDING, DEFAULT_MAX_PENDING_BYTES,
+			DEFAULT_SEND_TIMEOUT);
+
+	public static WsSessions instance() {
+		return INSTANCE;
+	}
+
+	private int maxPending;
+
+	private long maxPendingBytes;
+
+	private long sendTimeout;
+
+	/* 用户与连接 */
+	private Map<String, Set<Outbound>> persons = new ConcurrentHashMap<>();
+
+	private Map<String, Outbound> outbounds = new ConcurrentHashMap<>();
+
+	private LongAdder sentCount = new LongAdder();
+
+	private LongAdder evictedCount = new LongAdder();
+
+	public WsSessions(int maxPending, long maxPendingBytes, long sendTimeout) {
+		this.maxPending = maxPending;
+		this.maxPendingBytes = maxPendingBytes;
+		this.sendTimeout = sendTimeout;
+	}
+
+	/**
+	 * 登记连接
+	 *
+	 * @return 是否为该用户在本节点上的第一个连接
+	 */
+	public boolean register(Session session, String person) {
+		Outbound outbound = new Outbound(session, person);
+		outbounds.put(session.getId(), outbound);
+		boolean[] first = new boolean[] { false };
+		persons.compute(person, (k, v) -> {
+			if (null == v) {
+				v = ConcurrentHashMap.newKeySet();
+				first[0] = true;
+			}
+			v.add(outbound);
+			return v;
+		});
+		return first[0];
+	}
+
+	/**
+	 * 注销连接,重复注销没有影响
+	 *
+	 * @return 是否为该用户在本节点上的最后一个连接
+	 */
+	public boolean unregister(Session session) {
+		Outbound outbound = outbounds.remove(session.getId());
+		if (null == outbound) {
+			return false;
+		}
+		outbound.closed = true;
+		outbound.clear();
+		boolean[] last = new boolean[] { false };
+		persons.computeIfPresent(outbound.person, (k, v) -> {
+			v.remove(outbound);
+			last[0] = v.isEmpty();
+			return last[0] ? null : v;
+		});
+		return last[0];
+	}
+
+	public int send(String person, String text) {
+		return this.send(person, text, null);
+	}
+
+	/**
+	 * 发送给用户在本节点上的所有连接,任意一个连接写入成功后回调一次written
+	 *
+	 * @return 接收消息的连接数量
+	 */
+	public int send(String person, String text, Runnable written) {
+		Set<Outbound> set = persons.get(person);
+		if (null == set) {
+			return 0;
+		}
+		Runnable once = once(written);
+		int count = 0;
+		for (Outbound outbound : set) {
+			if (outbound.offer(text, once)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public boolean send(Session session, String text) {
+		return this.send(session, text, null);
+	}
+
+	/* 发送给指定连接 */
+	public boolean send(Session session, String text, Runnable written) {
+		Outbound outbound = outbounds.get(session.getId());
+		return (null != outbound) && outbound.offer(text, written);
+	}
+
+	private static Runnable once(Runnable written) {
+		if (null == written) {
+			return null;
+		}
+		AtomicBoolean done = new AtomicBoolean(false);
+		return () -> {
+			if (done.compareAndSet(false, true)) {
+				written.run();
+			}
+		};
+	}
+
+	public boolean online(String person) {
+		return persons.containsKey(person);
+	}
+
+	/* 本节点上的在线用户 */
+	public List<String> persons() {
+		return new ArrayList<>(persons.keySet());
+	}
+
+	public int sessionCount() {
+		return outbounds.size();
+	}
+
+	public int personCount() {
+		return persons.size();
+	}
+
+	public long sentCount() {
+		return sentCount.sum();
+	}
+
+	public long evictedCount() {
+		return evictedCount.sum();
+	}
+
+	/* 慢消费者,关闭连接 */
+	private void evict(Outbound outbound, String reason) {
+		if (outbound.closed) {
+			return;
+		}
+		evictedCount.increment();
+		logger.warn("evict websocket session:{}, person:{}, reason:{}.", outbound.session.getId(), outbound.person,
+				reason);
+		this.unregister(outbound.session);
+		try {
+			outbound.session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, reason));
+		} catch (Exception e) {
+			logger.debug("close websocket session error:{}.", e.getMessage());
+		}
+	}
+
+	/* 连接的发送缓冲 */
+	private class Outbound implements SendHandler {
+
+		private Session session;
+
+		private String person;
+
+		private ConcurrentLinkedQueue<Pending> pendings = new ConcurrentLinkedQueue<>();
+
+		/* 正在发送的消息 */
+		private volatile Pending current;
+
+		private AtomicInteger pendingCount = new AtomicInteger(0);
+
+		private AtomicLong pendingBytes = new AtomicLong(0);
+
+		private AtomicBoolean sending = new AtomicBoolean(false);
+
+		private volatile long sendTime = 0;
+
+		private volatile boolean closed = false;
+
+		private Outbound(Session session, String person) {
+			this.session = session;
+			this.person = person;
+		}
+
+		private boolean offer(String text, Runnable written) {
+			if (closed || (!session.isOpen())) {
+				return false;
+			}
+			if (sending.get() && ((System.currentTimeMillis() - sendTime) > sendTimeout)) {
+				evict(this, "send timeout");
+				return false;
+			}
+			if ((pendingCount.get() >= maxPending) || ((pendingBytes.get() + text.length()) > maxPendingBytes)) {
+				evict(this, "outbound buffer overflow");
+				return false;
+			}
+			pendingCount.incrementAndGet();
+			pendingBytes.addAndGet(text.length());
+			pendings.add(new Pending(text, written));
+			this.drain();
+			return true;
+		}
+
+		/* 没有正在进行的发送时取出一条发送,发送完成的回调中继续 */
+		private void drain() {
+			while (!closed) {
+				if (!sending.compareAndSet(false, true)) {
+					return;
+				}
+				Pending pending = pendings.poll();
+				if (null != pending) {
+					pendingCount.decrementAndGet();
+					pendingBytes.addAndGet(-pending.text.length());
+					sendTime = System.currentTimeMillis();
+					current = pending;
+					try {
+						session.getAsyncRemote().sendText(pending.text, this);
+					} catch (Exception e) {
+						sending.set(false);
+						evict(this, "send error: " + e.getMessage());
+					}
+					return;
+				}
+				sending.set(false);
+				/* 释放标记后可能有新消息进入 */
+				if (pendings.isEmpty()) {
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void onResult(SendResult result) {
+			Pending pending = current;
+			current = null;
+			sending.set(false);
+			if (result.isOK()) {
+				sentCount.increment();
+				if ((null != pending) && (null != pending.written)) {
+					try {
+						pending.written.run();
+					} catch (Exception e) {
+						logger.error(e);
+					}
+				}
+				this.drain();
+			} else {
+				evict(this, "send failure: "
+						+ ((null == result.getException()) ? "" : result.getException().getMessage()));
+			}
+		}
+
+		private void clear() {
+			pendings.clear();
+			pendingCount.set(0);
+			pendingBytes.set(0);
+		}
+
+	}
+
+	private static class Pending {
+
+		private String text;
+
+		private Runnable written;
+
+		private Pending(String text, Runnable written) {
+			this.text = text;
+			this.written = written;
+		}
+
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.x.message.assemble.communicate.test.im;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.message.assemble.communicate.factory.IMConversationFactory;
+import com.x.message.core.entity.IMMsg;
+
+/**
+ * 会话最后一条消息的选取,创建时间相同的消息无论查询返回的顺序如何都取同一条.
+ */
+public class TestClient {
+
+	private IMMsg msg(String id, String conversationId, long time) {
+		IMMsg o = new IMMsg();
+		o.setId(id);
+		o.setConversationId(conversationId);
+		o.setCreateTime(new Date(time));
+		return o;
+	}
+
+	@Test
+	public void testLater() {
+		IMMsg m1 = msg("m1", "c1", 1000L);
+		IMMsg m2 = msg("m2", "c1", 2000L);
+		IMMsg m3 = msg("m3", "c1", 2000L);
+		Assert.assertSame(m2, IMConversationFactory.later(m1, m2));
+		Assert.assertSame(m2, IMConversationFactory.later(m2, m1));
+		Assert.assertSame(m3, IMConversationFactory.later(m2, m3));
+		Assert.assertSame(m3, IMConversationFactory.later(m3, m2));
+	}
+
+	/* 与lastMessages中的合并方式一致,打乱顺序后结果不变 */
+	@Test
+	public void testLastMessagesDeterministic() {
+		List<IMMsg> list = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			list.add(msg("c1m" + i, "c1", 5000L));
+			list.add(msg("c2m" + i, "c2", 1000L * i));
+		}
+		Random random = new Random(1);
+		for (int n = 0; n < 20; n++) {
+			Collections.shuffle(list, random);
+			Map<String, IMMsg> map = new HashMap<>();
+			for (IMMsg o : list) {
+				map.merge(o.getConversationId(), o, IMConversationFactory::later);
+			}
+			Assert.assertEquals("c1m9", map.get("c1").getId());
+			Assert.assertEquals("c2m9", map.get("c2").getId());
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+package com.x.message.assemble.communicate.test.unread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.message.assemble.communicate.Business;
+import com.x.message.core.entity.IMConversation;
+import com.x.message.core.entity.IMConversationExt;
+import com.x.message.core.entity.IMMsg;
+
+/**
+ * 会话未读数量的维护,在内存数据库上直接调用IMConversationFactory.<br/>
+ * 发送消息时通过一条更新语句增加,阅读时只扣减看到的数量,阅读期间新到的消息保持未读.
+ */
+public class TestClient {
+
+	private static final String SENDER = "sender@s@P";
+	private static final String READER = "reader@r@P";
+
+	@BeforeClass
+	public static void init() throws Exception {
+		EntityManagerContainerFactory.init("im/persistence.xml");
+	}
+
+	@AfterClass
+	public static void close() throws Exception {
+		EntityManagerContainerFactory.close();
+	}
+
+	private IMConversation conversation(EntityManagerContainer emc, String... persons) throws Exception {
+		IMConversation o = new IMConversation();
+		o.setType("group");
+		o.setTitle("test");
+		o.setPersonList(new ArrayList<>(Arrays.asList(persons)));
+		emc.beginTransaction(IMConversation.class);
+		emc.persist(o, CheckPersistType.none);
+		emc.commit();
+		return o;
+	}
+
+	private IMConversationExt ext(EntityManagerContainer emc, String conversationId, String person, Long unread)
+			throws Exception {
+		IMConversationExt o = new IMConversationExt();
+		o.setConversationId(conversationId);
+		o.setPerson(person);
+		o.setUnreadNumber(unread);
+		emc.beginTransaction(IMConversationExt.class);
+		emc.persist(o, CheckPersistType.all);
+		emc.commit();
+		return o;
+	}
+
+	/* 与ActionMsgCreate一致,消息保存与未读数量增加在各自的事务中 */
+	private IMMsg send(EntityManagerContainer emc, IMConversation conversation, String sender, Date time)
+			throws Exception {
+		IMMsg msg = new IMMsg();
+		msg.setConversationId(conversation.getId());
+		msg.setCreatePerson(sender);
+		msg.setBody("{}");
+		msg.setCreateTime(time);
+		emc.beginTransaction(IMMsg.class);
+		emc.persist(msg, CheckPersistType.none);
+		emc.commit();
+		emc.beginTransaction(IMConversationExt.class);
+		new Business(emc).imConversationFactory().increaseUnreadNumber(conversation.getId(), sender);
+		emc.commit();
+		return msg;
+	}
+
+	private Long unread(String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			return emc.find(id, IMConversationExt.class).getUnreadNumber();
+		}
+	}
+
+	@Test
+	public void testIncreaseExceptSender() throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			IMConversation conversation = conversation(emc, SENDER, READER);
+			IMConversationExt own = ext(emc, conversation.getId(), SENDER, 0L);
+			IMConversationExt ext = ext(emc, conversation.getId(), READER, 0L);
+			send(emc, conversation, SENDER, new Date());
+			send(emc, conversation, SENDER, new Date());
+			Assert.assertEquals(Long.valueOf(2L), unread(ext.getId()));
+			Assert.assertEquals(Long.valueOf(0L), unread(own.getId()));
+		}
+	}
+
+	/* 没有维护未读数量的会话扩展不参与增加,由列表或者发送消息时通过消息计算 */
+	@Test
+	public void testIncreaseSkipUncounted() throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			IMConversation conversation = conversation(emc, SENDER, READER);
+			IMConversationExt ext = ext(emc, conversation.getId(), READER, null);
+			send(emc, conversation, SENDER, new Date());
+			Assert.assertNull(unread(ext.getId()));
+			emc.beginTransaction(IMConversationExt.class);
+			Assert.assertEquals(Long.valueOf(1L), new Business(emc).imConversationFactory().unreadNumber(ext));
+			emc.commit();
+		}
+	}
+
+	/* 读取未读数量后到达的消息在阅读后仍然是未读 */
+	@Test
+	public void testReadKeepsArrivedMessage() throws Exception {
+		IMConversation conversation;
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			conversation = conversation(emc, SENDER, READER);
+			ext(emc, conversation.getId(), READER, 0L);
+			send(emc, conversation, SENDER, new Date());
+			send(emc, conversation, SENDER, new Date());
+		}
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create();
+				EntityManagerContainer other = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			IMConversationExt ext = business.imConversationFactory().getConversationExt(READER, conversation.getId());
+			Assert.assertEquals(Long.valueOf(2L), ext.getUnreadNumber());
+			send(other, conversation, SENDER, new Date());
+			emc.beginTransaction(IMConversationExt.class);
+			Assert.assertTrue(
+					business.imConversationFactory().readUnreadNumber(ext.getId(), ext.getUnreadNumber(), new Date()));
+			emc.commit();
+			Assert.assertEquals(Long.valueOf(1L), unread(ext.getId()));
+		}
+	}
+
+	/* 看到的数量已经被其他阅读扣减时不更新,重新读取后再扣减 */
+	@Test
+	public void testReadConflict() throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			IMConversation conversation = conversation(emc, SENDER, READER);
+			IMConversationExt ext = ext(emc, conversation.getId(), READER, 0L);
+			send(emc, conversation, SENDER, new Date());
+			send(emc, conversation, SENDER, new Date());
+			Business business = new Business(emc);
+			emc.beginTransaction(IMConversationExt.class);
+			Assert.assertTrue(business.imConversationFactory().readUnreadNumber(ext.getId(), 2L, new Date()));
+			emc.commit();
+			emc.beginTransaction(IMConversationExt.class);
+			Assert.assertFalse(business.imConversationFactory().readUnreadNumber(ext.getId(), 2L, new Date()));
+			Assert.assertFalse(business.imConversationFactory().readUnreadNumber(ext.getId(), null, new Date()));
+			emc.commit();
+			Assert.assertEquals(Long.valueOf(0L), unread(ext.getId()));
+		}
+	}
+
+	@Test
+	public void testReadUncounted() throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			IMConversation conversation = conversation(emc, SENDER, READER);
+			IMConversationExt ext = ext(emc, conversation.getId(), READER, null);
+			send(emc, conversation, SENDER, new Date());
+			emc.beginTransaction(IMConversationExt.class);
+			Assert.assertTrue(new Business(emc).imConversationFactory().readUnreadNumber(ext.getId(), null,
+					new Date()));
+			emc.commit();
+			Assert.assertEquals(Long.valueOf(0L), unread(ext.getId()));
+			send(emc, conversation, SENDER, new Date());
+			Assert.assertEquals(Long.valueOf(1L), unread(ext.getId()));
+		}
+	}
+
+	/**
+	 * 一个用户500个会话,每个会话若干条消息.<br/>
+	 * 原有方式每个会话查询会话扩展、计算未读数量、查询最后一条消息,共3N+2次查询;
+	 * 现在读取会话、会话扩展以及按最后一条消息id批量获取消息,查询次数与会话数量无关.
+	 */
+	@Test
+	public void testConversationList500() throws Exception {
+		String person = "bench@b@P";
+		int size = 500;
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			long time = System.currentTimeMillis() - 1000000L;
+			for (int i = 0; i < size; i++) {
+				IMConversation conversation = conversation(emc, person, SENDER);
+				ext(emc, conversation.getId(), person, 0L);
+				IMMsg last = null;
+				for (int j = 0; j < (i % 5); j++) {
+					last = send(emc, conversation, SENDER, new Date(time + (i * 10L) + j));
+				}
+				if (null != last) {
+					emc.beginTransaction(IMConversation.class);
+					IMConversation o = emc.find(conversation.getId(), IMConversation.class);
+					o.setLastMessageId(last.getId());
+					o.setLastMessageTime(last.getCreateTime());
+					emc.commit();
+				}
+			}
+		}
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			long start = System.currentTimeMillis();
+			Map<String, Long> counted = new HashMap<>();
+			Map<String, String> lastCounted = new HashMap<>();
+			for (String id : business.imConversationFactory().listConversationWithPerson(person)) {
+				IMConversationExt ext = business.imConversationFactory().getConversationExt(person, id);
+				counted.put(id, business.imConversationFactory().unreadNumber(ext));
+				IMMsg msg = business.imConversationFactory().lastMessage(id);
+				lastCounted.put(id, (null == msg) ? null : msg.getId());
+			}
+			long perConversation = System.currentTimeMillis() - start;
+
+			start = System.currentTimeMillis();
+			Map<String, Long> maintained = new HashMap<>();
+			Map<String, String> lastMaintained = new HashMap<>();
+			List<String> lastMessageIds = new ArrayList<>();
+			for (IMConversationExt ext : business.imConversationFactory().listConversationExtWithPerson(person)) {
+				maintained.put(ext.getConversationId(), ext.getUnreadNumber());
+			}
+			for (IMConversation o : business.imConversationFactory().listConversationObjectWithPerson(person)) {
+				lastMaintained.put(o.getId(), null);
+				if (StringUtils.isNotEmpty(o.getLastMessageId())) {
+					lastMessageIds.add(o.getLastMessageId());
+				}
+			}
+			for (IMMsg msg : emc.list(IMMsg.class, lastMessageIds)) {
+				lastMaintained.put(msg.getConversationId(), msg.getId());
+			}
+			long setBased = System.currentTimeMillis() - start;
+
+			System.out.println("conversation list, " + size + " conversations, per conversation:" + perConversation
+					+ "ms, set based:" + setBased + "ms.");
+			Assert.assertEquals(size, counted.size());
+			Assert.assertEquals(counted, maintained);
+			Assert.assertEquals(lastCounted, lastMaintained);
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.x.message.assemble.communicate.test.ws;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.message.assemble.communicate.ws.collaboration.WsSessions;
+
+public class TestClient {
+
+	private static final int SESSION_COUNT = 50000;
+
+	/* 每个用户2个连接 */
+	private static final int PERSON_COUNT = SESSION_COUNT / 2;
+
+	private static final int MESSAGE_COUNT = 200000;
+
+	/* 模拟连接,slow为true时发送永远不完成 */
+	private Session session(String id, boolean slow, AtomicLong delivered) {
+		AtomicBoolean open = new AtomicBoolean(true);
+		RemoteEndpoint.Async async = (RemoteEndpoint.Async) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { RemoteEndpoint.Async.class }, (proxy, method, args) -> {
+					if (method.getName().equals("sendText") && (args.length == 2)) {
+						if (!slow) {
+							delivered.incrementAndGet();
+							((SendHandler) args[1]).onResult(new SendResult());
+						}
+					}
+					return null;
+				});
+		return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Session.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getId":
+						return id;
+					case "isOpen":
+						return open.get();
+					case "close":
+						open.set(false);
+						return null;
+					case "getAsyncRemote":
+						return async;
+					case "hashCode":
+						return id.hashCode();
+					case "equals":
+						return proxy == args[0];
+					default:
+						return null;
+					}
+				});
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		WsSessions sessions = new WsSessions(WsSessions.DEFAULT_MAX_PENDING, WsSessions.DEFAULT_MAX_PENDING_BYTES,
+				WsSessions.DEFAULT_SEND_TIMEOUT);
+		AtomicLong delivered = new AtomicLong();
+		Map<Session, String> clients = new ConcurrentHashMap<>();
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < SESSION_COUNT; i++) {
+			Session session = this.session("s" + i, false, delivered);
+			sessions.register(session, "person" + (i % PERSON_COUNT));
+			clients.put(session, "person" + (i % PERSON_COUNT));
+		}
+		System.out.println("register " + SESSION_COUNT + " sessions: " + (System.currentTimeMillis() - start) + "ms, "
+				+ sessions.personCount() + " persons.");
+		Assert.assertEquals(SESSION_COUNT, sessions.sessionCount());
+		Assert.assertEquals(PERSON_COUNT, sessions.personCount());
+
+		Random random = new Random(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		start = System.currentTimeMillis();
+		for (int i = 0; i < MESSAGE_COUNT; i++) {
+			String person = "person" + random.nextInt(PERSON_COUNT);
+			executor.execute(() -> sessions.send(person, "{\"type\":\"test\"}"));
+		}
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.MINUTES);
+		long elapsed = System.currentTimeMillis() - start;
+		System.out.println("indexed send " + MESSAGE_COUNT + " messages: " + elapsed + "ms, delivered: "
+				+ delivered.get());
+		Assert.assertEquals(MESSAGE_COUNT * 2L, delivered.get());
+
+		/* 原来的方式,每条消息遍历所有连接,只发送1000条 */
+		start = System.currentTimeMillis();
+		long scan = 0;
+		for (int i = 0; i < 1000; i++) {
+			String person = "person" + random.nextInt(PERSON_COUNT);
+			for (Map.Entry<Session, String> entry : clients.entrySet()) {
+				if (entry.getValue().equals(person)) {
+					scan++;
+				}
+			}
+		}
+		System.out.println("full scan 1000 messages: " + (System.currentTimeMillis() - start) + "ms, matched: " + scan);
+	}
+
+	@Test
+	public void testSlowConsumer() throws Exception {
+		WsSessions sessions = new WsSessions(16, WsSessions.DEFAULT_MAX_PENDING_BYTES,
+				WsSessions.DEFAULT_SEND_TIMEOUT);
+		AtomicLong delivered = new AtomicLong();
+		Session fast = this.session("fast", false, delivered);
+		Session slow = this.session("slow", true, delivered);
+		sessions.register(fast, "person");
+		sessions.register(slow, "person");
+		List<Integer> counts = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			counts.add(sessions.send("person", "message" + i));
+		}
+		/* 慢连接在缓冲满后被关闭,不影响同一用户的其他连接 */
+		Assert.assertFalse(slow.isOpen());
+		Assert.assertTrue(fast.isOpen());
+		Assert.assertEquals(1, sessions.evictedCount());
+		Assert.assertEquals(1, sessions.sessionCount());
+		Assert.assertEquals(100, delivered.get());
+		Assert.assertEquals(Integer.valueOf(1), counts.get(99));
+		Assert.assertTrue(sessions.unregister(fast));
+		Assert.assertEquals(0, sessions.personCount());
+	}
+
+	/* 写入连接成功后才回调,多个连接只回调一次,慢连接缓冲中被丢弃的消息不回调 */
+	@Test
+	public void testWritten() throws Exception {
+		WsSessions sessions = new WsSessions(4, WsSessions.DEFAULT_MAX_PENDING_BYTES, WsSessions.DEFAULT_SEND_TIMEOUT);
+		AtomicLong delivered = new AtomicLong();
+		Session fast1 = this.session("fast1", false, delivered);
+		Session fast2 = this.session("fast2", false, delivered);
+		sessions.register(fast1, "person1");
+		sessions.register(fast2, "person1");
+		AtomicLong written = new AtomicLong();
+		for (int i = 0; i < 10; i++) {
+			sessions.send("person1", "message" + i, written::incrementAndGet);
+		}
+		Assert.assertEquals(20, delivered.get());
+		Assert.assertEquals(10, written.get());
+
+		Session slow = this.session("slow", true, delivered);
+		sessions.register(slow, "person2");
+		AtomicLong unwritten = new AtomicLong();
+		for (int i = 0; i < 10; i++) {
+			sessions.send("person2", "message" + i, unwritten::incrementAndGet);
+		}
+		Assert.assertFalse(slow.isOpen());
+		Assert.assertFalse(sessions.online("person2"));
+		Assert.assertEquals(0, unwritten.get());
+	}
+
+}
@@ -102,6 +102,12 @@ public class IMConversation extends SliceJpaObject  {
     @CheckPersist(allowEmpty = true)
     private Date lastMessageTime;
 
+    public static final String lastMessageId_FIELDNAME = "lastMessageId";
+    @FieldDescribe("会话最后一条消息id")
+    @Column(length = length_id, name = ColumnNamePrefix + lastMessageId_FIELDNAME)
+    @CheckPersist(allowEmpty = true)
+    private String lastMessageId;
+
 
     public String getType() {
         return type;
@@ -150,4 +156,12 @@ public class IMConversation extends SliceJpaObject  {
     public void setLastMessageTime(Date lastMessageTime) {
         this.lastMessageTime = lastMessageTime;
     }
+
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(String lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
 }
@@ -79,6 +79,12 @@ public class IMConversationExt extends SliceJpaObject  {
     @CheckPersist(allowEmpty = true)
     private Date lastReadTime;
 
+    public static final String unreadNumber_FIELDNAME = "unreadNumber";
+    @FieldDescribe("未读消息数量,发送消息时增加,阅读时清零,为空时需要通过消息计算.")
+    @Column(name = ColumnNamePrefix + unreadNumber_FIELDNAME)
+    @CheckPersist(allowEmpty = true)
+    private Long unreadNumber;
+
 
     public String getConversationId() {
         return conversationId;
@@ -111,4 +117,12 @@ public class IMConversationExt extends SliceJpaObject  {
     public void setLastReadTime(Date lastReadTime) {
         this.lastReadTime = lastReadTime;
     }
+
+    public Long getUnreadNumber() {
+        return unreadNumber;
+    }
+
+    public void setUnreadNumber(Long unreadNumber) {
+        this.unreadNumber = unreadNumber;
+    }
 }
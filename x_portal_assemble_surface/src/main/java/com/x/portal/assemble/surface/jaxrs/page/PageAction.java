@@ -12,6 +12,7 @@ import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import com.x.base.core.project.annotation.JaxrsDescribe;
 import com.x.base.core.project.annotation.JaxrsMethodDescribe;
@@ -21,6 +22,7 @@ import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.http.HttpMediaType;
 import com.x.base.core.project.jaxrs.ResponseFactory;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
+import com.x.base.core.project.jaxrs.WoArtifact;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 
@@ -39,13 +41,22 @@ public class PageAction extends StandardJaxrsAction {
 			@JaxrsParameterDescribe("标识") @PathParam("id") String id) {
 		ActionResult<ActionGet.Wo> result = new ActionResult<>();
 		EffectivePerson effectivePerson = this.effectivePerson(request);
+		String version = null;
 		try {
-			result = new ActionGet().execute(effectivePerson, id);
+			ActionGet action = new ActionGet();
+			version = action.version(effectivePerson, id);
+			/* 页面没有修改时直接返回304,不需要组装和序列化页面 */
+			Response response = ResponseFactory.getNotModifiedResponse(request, version);
+			if (null != response) {
+				asyncResponse.resume(response);
+				return;
+			}
+			result = action.execute(effectivePerson, id);
 		} catch (Exception e) {
 			logger.error(e, effectivePerson, request, null);
 			result.error(e);
 		}
-		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result));
+		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result, version));
 	}
 
 	@JaxrsMethodDescribe(value = "获取Page内容Mobile.", action = ActionGetMobile.class)
@@ -57,8 +68,76 @@ public class PageAction extends StandardJaxrsAction {
 			@JaxrsParameterDescribe("标识") @PathParam("id") String id) {
 		ActionResult<ActionGetMobile.Wo> result = new ActionResult<>();
 		EffectivePerson effectivePerson = this.effectivePerson(request);
+		String version = null;
+		try {
+			ActionGetMobile action = new ActionGetMobile();
+			version = action.version(effectivePerson, id);
+			if (null != version) {
+				version += "#mobile";
+			}
+			/* 页面没有修改时直接返回304,不需要组装和序列化页面 */
+			Response response = ResponseFactory.getNotModifiedResponse(request, version);
+			if (null != response) {
+				asyncResponse.resume(response);
+				return;
+			}
+			result = action.execute(effectivePerson, id);
+		} catch (Exception e) {
+			logger.error(e, effectivePerson, request, null);
+			result.error(e);
+		}
+		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result, version));
+	}
+
+	@JaxrsMethodDescribe(value = "按内容hash获取页面内容,hash一致时允许长期缓存.", action = ActionGetArtifact.class)
+	@GET
+	@Path("{id}/artifact/{hash}")
+	@Produces(HttpMediaType.APPLICATION_JSON_UTF_8)
+	@Consumes(MediaType.APPLICATION_JSON)
+	public void getArtifact(@Suspended final AsyncResponse asyncResponse, @Context HttpServletRequest request,
+			@JaxrsParameterDescribe("标识") @PathParam("id") String id,
+			@JaxrsParameterDescribe("内容hash") @PathParam("hash") String hash) {
+		ActionResult<WoArtifact> result = new ActionResult<>();
+		EffectivePerson effectivePerson = this.effectivePerson(request);
+		try {
+			result = new ActionGetArtifact().execute(effectivePerson, id, hash, false);
+		} catch (Exception e) {
+			logger.error(e, effectivePerson, request, null);
+			result.error(e);
+		}
+		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result));
+	}
+
+	@JaxrsMethodDescribe(value = "按内容hash获取移动端页面内容,hash一致时允许长期缓存.", action = ActionGetArtifact.class)
+	@GET
+	@Path("{id}/mobile/artifact/{hash}")
+	@Produces(HttpMediaType.APPLICATION_JSON_UTF_8)
+	@Consumes(MediaType.APPLICATION_JSON)
+	public void getArtifactMobile(@Suspended final AsyncResponse asyncResponse, @Context HttpServletRequest request,
+			@JaxrsParameterDescribe("标识") @PathParam("id") String id,
+			@JaxrsParameterDescribe("内容hash") @PathParam("hash") String hash) {
+		ActionResult<WoArtifact> result = new ActionResult<>();
+		EffectivePerson effectivePerson = this.effectivePerson(request);
+		try {
+			result = new ActionGetArtifact().execute(effectivePerson, id, hash, true);
+		} catch (Exception e) {
+			logger.error(e, effectivePerson, request, null);
+			result.error(e);
+		}
+		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result));
+	}
+
+	@JaxrsMethodDescribe(value = "列示属于指定Portal的Page内容hash.", action = ActionManifest.class)
+	@GET
+	@Path("list/portal/{portal}/manifest")
+	@Produces(HttpMediaType.APPLICATION_JSON_UTF_8)
+	@Consumes(MediaType.APPLICATION_JSON)
+	public void manifest(@Suspended final AsyncResponse asyncResponse, @Context HttpServletRequest request,
+			@JaxrsParameterDescribe("门户") @PathParam("portal") String portal) {
+		ActionResult<List<ActionManifest.Wo>> result = new ActionResult<>();
+		EffectivePerson effectivePerson = this.effectivePerson(request);
 		try {
-			result = new ActionGetMobile().execute(effectivePerson, id);
+			result = new ActionManifest().execute(effectivePerson, portal);
 		} catch (Exception e) {
 			logger.error(e, effectivePerson, request, null);
 			result.error(e);
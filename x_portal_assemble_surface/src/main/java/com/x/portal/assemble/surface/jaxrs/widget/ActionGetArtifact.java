@@ -0,0 +1,20 @@
+package com.x.portal.assemble.surface.jaxrs.widget;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WoArtifact;
+
+class ActionGetArtifact extends BaseAction {
+
+	ActionResult<WoArtifact> execute(EffectivePerson effectivePerson, String id, String hash, boolean mobile)
+			throws Exception {
+		ActionResult<WoArtifact> result = new ActionResult<>();
+		WoArtifact wo = this.artifact(effectivePerson, id, mobile);
+		/* hash一致时内容不会变化,可以长期缓存;不一致时返回当前内容,不允许长期缓存 */
+		result.setData(StringUtils.equals(hash, wo.getHash()) ? wo.immutable() : wo);
+		return result;
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.x.portal.assemble.surface.jaxrs.widget;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.portal.assemble.surface.Business;
+import com.x.portal.core.entity.Portal;
+
+/**
+ * 列示门户中所有部件内容的hash,客户端只需要获取hash变化的部件.
+ */
+class ActionManifest extends BaseAction {
+
+	ActionResult<List<Wo>> execute(EffectivePerson effectivePerson, String portalId) throws Exception {
+		ActionResult<List<Wo>> result = new ActionResult<>();
+		List<String> ids = null;
+		Map<String, String> versions = new HashMap<>();
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			Portal portal = business.portal().pick(portalId);
+			if (null == portal) {
+				throw new ExceptionPortalNotExist(portalId);
+			}
+			if (!business.portal().visible(effectivePerson, portal)) {
+				throw new ExceptionPortalAccessDenied(effectivePerson.getDistinguishedName(), portal.getName(),
+						portal.getId());
+			}
+			ids = business.widget().listWithPortal(portal.getId());
+			for (String id : ids) {
+				versions.put(id, this.version(business, effectivePerson, id));
+			}
+		}
+		List<Wo> wos = new ArrayList<>();
+		for (String id : ids) {
+			Wo wo = new Wo();
+			wo.setId(id);
+			wo.setHash(this.artifact(effectivePerson, id, false, versions.get(id)).getHash());
+			wo.setMobileHash(this.artifact(effectivePerson, id, true, versions.get(id)).getHash());
+			wos.add(wo);
+		}
+		result.setData(wos);
+		return result;
+	}
+
+	public static class Wo extends GsonPropertyObject {
+
+		@FieldDescribe("部件标识.")
+		private String id;
+
+		@FieldDescribe("部件内容hash.")
+		private String hash;
+
+		@FieldDescribe("移动端部件内容hash.")
+		private String mobileHash;
+
+		public String getId() {
+			return id;
+		}
+
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		public String getHash() {
+			return hash;
+		}
+
+		public void setHash(String hash) {
+			this.hash = hash;
+		}
+
+		public String getMobileHash() {
+			return mobileHash;
+		}
+
+		public void setMobileHash(String mobileHash) {
+			this.mobileHash = mobileHash;
+		}
+
+	}
+
+}
@@ -1,13 +1,74 @@
 package com.x.portal.assemble.surface.jaxrs.widget;
 
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
+import com.x.base.core.project.jaxrs.WoArtifact;
+import com.x.portal.assemble.surface.Business;
+import com.x.portal.core.entity.Portal;
 import com.x.portal.core.entity.Widget;
 
 import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
 
 abstract class BaseAction extends StandardJaxrsAction {
 
 	Ehcache widgetCache = ApplicationCache.instance().getCache(Widget.class);
 
+	/**
+	 * 部件的版本,部件不存在或者门户不可见时返回null,由execute报告错误
+	 */
+	String version(EffectivePerson effectivePerson, String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			return this.version(new Business(emc), effectivePerson, id);
+		}
+	}
+
+	String version(Business business, EffectivePerson effectivePerson, String id) throws Exception {
+		Widget widget = business.widget().pick(id);
+		if ((null == widget) || (null == widget.getUpdateTime())) {
+			return null;
+		}
+		Portal portal = business.portal().pick(widget.getPortal());
+		if ((null == portal) || (!business.portal().visible(effectivePerson, portal))) {
+			return null;
+		}
+		return widget.getId() + "#" + widget.getUpdateTime().getTime();
+	}
+
+	/**
+	 * 预先生成的部件内容,按版本缓存,设计修改后缓存被清除,下次访问时重新生成.
+	 */
+	WoArtifact artifact(EffectivePerson effectivePerson, String id, boolean mobile) throws Exception {
+		return this.artifact(effectivePerson, id, mobile, this.version(effectivePerson, id));
+	}
+
+	/**
+	 * 使用已经计算好的版本获取预先生成的部件内容.
+	 */
+	WoArtifact artifact(EffectivePerson effectivePerson, String id, boolean mobile, String version)
+			throws Exception {
+		if (null == version) {
+			return WoArtifact.json(this.render(effectivePerson, id, mobile));
+		}
+		String key = "artifact#" + version + (mobile ? "#mobile" : "");
+		Element element = widgetCache.get(key);
+		if ((null != element) && (null != element.getObjectValue())) {
+			return (WoArtifact) element.getObjectValue();
+		}
+		WoArtifact wo = WoArtifact.json(this.render(effectivePerson, id, mobile));
+		widgetCache.put(new Element(key, wo));
+		return wo;
+	}
+
+	private ActionResult<?> render(EffectivePerson effectivePerson, String id, boolean mobile) throws Exception {
+		if (mobile) {
+			return new ActionGetMobile().execute(effectivePerson, id);
+		}
+		return new ActionGet().execute(effectivePerson, id);
+	}
+
 }
@@ -17,6 +17,8 @@ import com.x.base.core.project.tools.DateRange;
 import com.x.base.core.project.tools.DateTools;
 import com.x.base.core.project.tools.ListTools;
 import com.x.processplatform.assemble.bam.Business;
+import com.x.processplatform.assemble.bam.ThisApplication;
+import com.x.processplatform.assemble.bam.stub.UnitStubs;
 import com.x.processplatform.core.entity.content.Task;
 import com.x.processplatform.core.entity.content.TaskCompleted;
 import com.x.processplatform.core.entity.content.TaskCompleted_;
@@ -48,13 +50,22 @@ class BaseAction extends StandardJaxrsAction {
 		return range;
 	}
 
+	/** 优先使用运行统计中已经加载的组织层级,避免每个组织每个月都调用一次组织服务 */
+	protected List<String> listUnitSubNested(Business business, String unit) throws Exception {
+		UnitStubs stubs = ThisApplication.state.getUnitStubs();
+		if (stubs.hasUnit(unit)) {
+			return stubs.listSubNested(unit);
+		}
+		return business.organization().unit().listWithUnitSubNested(unit);
+	}
+
 	/** 统计 */
 	protected Long countStartTask(Business business, DateRange dateRange, String applicationId, String processId,
 			String activityId, String unit, String person) throws Exception {
 		List<String> units = new ArrayList<>();
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 		}
 		Long c = this.countStartTaskTask(business, dateRange, applicationId, processId, activityId, units, person);
 		c += this.countStartTaskTaskCompleted(business, dateRange, applicationId, processId, activityId, units, person);
@@ -132,7 +143,7 @@ class BaseAction extends StandardJaxrsAction {
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			List<String> units = new ArrayList<>();
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 			p = cb.and(p, root.get(TaskCompleted_.unit).in(units));
 		}
 		if (!StringUtils.equals(person, StandardJaxrsAction.EMPTY_SYMBOL)) {
@@ -161,7 +172,7 @@ class BaseAction extends StandardJaxrsAction {
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			List<String> units = new ArrayList<>();
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 			p = cb.and(p, root.get(TaskCompleted_.unit).in(units));
 		}
 		if (!StringUtils.equals(person, StandardJaxrsAction.EMPTY_SYMBOL)) {
@@ -176,7 +187,7 @@ class BaseAction extends StandardJaxrsAction {
 		List<String> units = new ArrayList<>();
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 		}
 		Long c = this.countExpiredTaskTask(business, dateRange, applicationId, processId, activityId, units, person);
 		c += this.countExpiredTaskTaskCompleted(business, dateRange, applicationId, processId, activityId, units,
@@ -242,7 +253,7 @@ class BaseAction extends StandardJaxrsAction {
 		List<String> units = new ArrayList<>();
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 		}
 		Long c = this.countStartWorkWork(business, dateRange, applicationId, processId, units, person);
 		c += this.countStartWorkWorkCompleted(business, dateRange, applicationId, processId, units, person);
@@ -311,7 +322,7 @@ class BaseAction extends StandardJaxrsAction {
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			List<String> units = new ArrayList<>();
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 			p = cb.and(p, root.get(WorkCompleted_.creatorUnit).in(units));
 		}
 		if (!StringUtils.equals(person, StandardJaxrsAction.EMPTY_SYMBOL)) {
@@ -337,7 +348,7 @@ class BaseAction extends StandardJaxrsAction {
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			List<String> units = new ArrayList<>();
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 			p = cb.and(p, root.get(WorkCompleted_.creatorUnit).in(units));
 		}
 		if (!StringUtils.equals(person, StandardJaxrsAction.EMPTY_SYMBOL)) {
@@ -363,7 +374,7 @@ class BaseAction extends StandardJaxrsAction {
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			List<String> units = new ArrayList<>();
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 			p = cb.and(p, root.get(TaskCompleted_.creatorUnit).in(units));
 		}
 		if (!StringUtils.equals(person, StandardJaxrsAction.EMPTY_SYMBOL)) {
@@ -378,7 +389,7 @@ class BaseAction extends StandardJaxrsAction {
 		List<String> units = new ArrayList<>();
 		if (!StringUtils.equals(unit, StandardJaxrsAction.EMPTY_SYMBOL)) {
 			units.add(unit);
-			units.addAll(business.organization().unit().listWithUnitSubNested(unit));
+			units.addAll(this.listUnitSubNested(business, unit));
 		}
 		Long c = this.countExpiredWorkWork(business, dateRange, applicationId, processId, units, person);
 		c += this.countExpiredWorkWorkCompleted(business, dateRange, applicationId, processId, units, person);
@@ -0,0 +1,464 @@
+package com.x.processplatform.assemble.bam.jaxrs.state;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.processplatform.assemble.bam.Business;
+import com.x.processplatform.core.entity.content.Task;
+import com.x.processplatform.core.entity.content.TaskCompleted;
+import com.x.processplatform.core.entity.content.TaskCompleted_;
+import com.x.processplatform.core.entity.content.Task_;
+import com.x.processplatform.core.entity.content.Work;
+import com.x.processplatform.core.entity.content.WorkCompleted;
+import com.x.processplatform.core.entity.content.WorkCompleted_;
+import com.x.processplatform.core.entity.content.Work_;
+
+/**
+ * 运行统计的汇总,每次统计对Task,TaskCompleted,Work,WorkCompleted各扫描一次,按组织,个人,应用,流程,活动汇总到内存中.<br/>
+ * 扫描按sequence分批读取需要的字段,替代原来每个组织,个人,应用,流程,活动分别count的方式.<br/>
+ * 组织和个人的已办按完成时间统计,应用,流程,活动的已办按开始时间统计,与原来的统计口径一致.
+ */
+public class Rollup {
+
+	private static final int BATCH_SIZE = 2000;
+
+	private static final long HOUR = 1000L * 60L * 60L;
+
+	private static final long DAY = HOUR * 24L;
+
+	private static final long MINUTE = 1000L * 60L;
+
+	private long start;
+
+	private long current;
+
+	private Map<String, Counter> unit = new HashMap<>();
+
+	private Map<String, Counter> person = new HashMap<>();
+
+	private Map<String, Counter> application = new HashMap<>();
+
+	private Map<String, Counter> process = new HashMap<>();
+
+	private Map<String, Counter> activity = new HashMap<>();
+
+	/* 待办按等待时长分段:半天,一天,两天,三天,超过三天 */
+	private int[] taskSpans = new int[5];
+
+	private long taskDuration = 0;
+
+	/* 工作按等待时长分段:三天,一周,两周,一个月,超过一个月 */
+	private int[] workSpans = new int[5];
+
+	private long workDuration = 0;
+
+	public Rollup(Date start, Date current) {
+		this.start = start.getTime();
+		this.current = current.getTime();
+	}
+
+	public Rollup scan(Business business) throws Exception {
+		this.scanTask(business);
+		this.scanTaskCompleted(business);
+		this.scanWork(business);
+		this.scanWorkCompleted(business);
+		return this;
+	}
+
+	public void addTask(String unit, String person, String application, String process, String activity,
+			Date startTime, Date expireTime) {
+		if ((null == startTime) || (startTime.getTime() <= start)) {
+			return;
+		}
+		long duration = current - startTime.getTime();
+		boolean expired = (null != expireTime) && (expireTime.getTime() < current);
+		for (Counter o : this.counters(unit, person, application, process, activity)) {
+			o.taskCount++;
+			o.taskDuration += duration;
+			if (expired) {
+				o.taskExpiredCount++;
+			}
+		}
+		if (duration > (DAY * 3L)) {
+			taskSpans[4]++;
+		} else if (duration > (DAY * 2L)) {
+			taskSpans[3]++;
+		} else if (duration > DAY) {
+			taskSpans[2]++;
+		} else if (duration > (HOUR * 12L)) {
+			taskSpans[1]++;
+		} else {
+			taskSpans[0]++;
+		}
+		taskDuration += duration;
+	}
+
+	public void addTaskCompleted(String unit, String person, String application, String process, String activity,
+			Date startTime, Date completedTime, Boolean expired, Long duration) {
+		long value = (null == duration) ? 0L : duration;
+		boolean isExpired = BooleanUtils.isTrue(expired);
+		if ((null != completedTime) && (completedTime.getTime() > start)) {
+			for (Counter o : this.counters(unit, person, null, null, null)) {
+				o.taskCompletedCount++;
+				o.taskCompletedDuration += value;
+				if (isExpired) {
+					o.taskCompletedExpiredCount++;
+				}
+			}
+		}
+		if ((null != startTime) && (startTime.getTime() > start)) {
+			for (Counter o : this.counters(null, null, application, process, activity)) {
+				o.taskCompletedCount++;
+				o.taskCompletedDuration += value;
+				if (isExpired) {
+					o.taskCompletedExpiredCount++;
+				}
+			}
+		}
+	}
+
+	public void addWork(String application, String process, String activity, Date startTime, Date expireTime) {
+		if ((null == startTime) || (startTime.getTime() <= start)) {
+			return;
+		}
+		long duration = current - startTime.getTime();
+		boolean expired = (null != expireTime) && (expireTime.getTime() < current);
+		for (Counter o : this.counters(null, null, application, process, activity)) {
+			o.workCount++;
+			o.workDuration += duration;
+			if (expired) {
+				o.workExpiredCount++;
+			}
+		}
+		/* 与原来的分段方式一致 */
+		if (duration > (DAY * 30L)) {
+			workSpans[4]++;
+		} else {
+			workSpans[0]++;
+		}
+		workDuration += duration;
+	}
+
+	public void addWorkCompleted(String application, String process, Date startTime, Boolean expired,
+			Long duration) {
+		if ((null == startTime) || (startTime.getTime() <= start)) {
+			return;
+		}
+		long value = (null == duration) ? 0L : duration;
+		for (Counter o : this.counters(null, null, application, process, null)) {
+			o.workCompletedCount++;
+			o.workCompletedDuration += value;
+			if (BooleanUtils.isTrue(expired)) {
+				o.workCompletedExpiredCount++;
+			}
+		}
+	}
+
+	private Counter[] counters(String unit, String person, String application, String process, String activity) {
+		Counter[] os = new Counter[5];
+		int i = 0;
+		if (StringUtils.isNotEmpty(unit)) {
+			os[i++] = this.unit.computeIfAbsent(unit, k -> new Counter());
+		}
+		if (StringUtils.isNotEmpty(person)) {
+			os[i++] = this.person.computeIfAbsent(person, k -> new Counter());
+		}
+		if (StringUtils.isNotEmpty(application)) {
+			os[i++] = this.application.computeIfAbsent(application, k -> new Counter());
+		}
+		if (StringUtils.isNotEmpty(process)) {
+			os[i++] = this.process.computeIfAbsent(process, k -> new Counter());
+		}
+		if (StringUtils.isNotEmpty(activity)) {
+			os[i++] = this.activity.computeIfAbsent(activity, k -> new Counter());
+		}
+		Counter[] list = new Counter[i];
+		System.arraycopy(os, 0, list, 0, i);
+		return list;
+	}
+
+	/**
+	 * 组织及其所有下级组织的汇总,superiors为组织与上级组织的对应关系,每个组织的汇总沿上级逐级累加,只需要遍历一次.
+	 */
+	public Map<String, Counter> unitWithSubNested(Map<String, String> superiors) {
+		Map<String, Counter> map = new HashMap<>();
+		for (Map.Entry<String, Counter> entry : unit.entrySet()) {
+			String value = entry.getKey();
+			/* 避免组织数据错误形成环 */
+			int depth = 0;
+			while (StringUtils.isNotEmpty(value) && (depth++ < 100)) {
+				map.computeIfAbsent(value, k -> new Counter()).add(entry.getValue());
+				value = superiors.get(value);
+			}
+		}
+		return map;
+	}
+
+	public Counter unit(String value) {
+		return unit.getOrDefault(value, Counter.EMPTY);
+	}
+
+	public Counter person(String value) {
+		return person.getOrDefault(value, Counter.EMPTY);
+	}
+
+	public Counter application(String value) {
+		return application.getOrDefault(value, Counter.EMPTY);
+	}
+
+	public Counter process(String value) {
+		return process.getOrDefault(value, Counter.EMPTY);
+	}
+
+	public Counter activity(String value) {
+		return activity.getOrDefault(value, Counter.EMPTY);
+	}
+
+	public ActionRunning.WoTask runningTask() {
+		ActionRunning.WoTask wo = new ActionRunning.WoTask();
+		wo.setDuration(taskDuration / MINUTE);
+		wo.setHalfDay(taskSpans[0]);
+		wo.setOneDay(taskSpans[1]);
+		wo.setTwoDay(taskSpans[2]);
+		wo.setThreeDay(taskSpans[3]);
+		wo.setMoreDay(taskSpans[4]);
+		return wo;
+	}
+
+	public ActionRunning.WoWork runningWork() {
+		ActionRunning.WoWork wo = new ActionRunning.WoWork();
+		wo.setDuration(workDuration / MINUTE);
+		wo.setThreeDay(workSpans[0]);
+		wo.setOneWeek(workSpans[1]);
+		wo.setTwoWeek(workSpans[2]);
+		wo.setOneMonth(workSpans[3]);
+		wo.setMoreMonth(workSpans[4]);
+		return wo;
+	}
+
+	private void scanTask(Business business) throws Exception {
+		EntityManager em = business.entityManagerContainer().get(Task.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		String sequence = null;
+		List<Tuple> os;
+		do {
+			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
+			Root<Task> root = cq.from(Task.class);
+			Path<String> sequence_path = root.get(Task_.sequence);
+			Path<String> unit_path = root.get(Task_.unit);
+			Path<String> person_path = root.get(Task_.person);
+			Path<String> application_path = root.get(Task_.application);
+			Path<String> process_path = root.get(Task_.process);
+			Path<String> activity_path = root.get(Task_.activity);
+			Path<Date> startTime_path = root.get(Task_.startTime);
+			Path<Date> expireTime_path = root.get(Task_.expireTime);
+			Predicate p = cb.greaterThan(startTime_path, new Date(start));
+			if (null != sequence) {
+				p = cb.and(p, cb.greaterThan(sequence_path, sequence));
+			}
+			cq.multiselect(sequence_path, unit_path, person_path, application_path, process_path, activity_path,
+					startTime_path, expireTime_path).where(p).orderBy(cb.asc(sequence_path));
+			os = em.createQuery(cq).setMaxResults(BATCH_SIZE).getResultList();
+			for (Tuple o : os) {
+				this.addTask(o.get(unit_path), o.get(person_path), o.get(application_path), o.get(process_path),
+						o.get(activity_path), o.get(startTime_path), o.get(expireTime_path));
+				sequence = o.get(sequence_path);
+			}
+		} while (os.size() == BATCH_SIZE);
+	}
+
+	private void scanTaskCompleted(Business business) throws Exception {
+		EntityManager em = business.entityManagerContainer().get(TaskCompleted.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		String sequence = null;
+		List<Tuple> os;
+		do {
+			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
+			Root<TaskCompleted> root = cq.from(TaskCompleted.class);
+			Path<String> sequence_path = root.get(TaskCompleted_.sequence);
+			Path<String> unit_path = root.get(TaskCompleted_.unit);
+			Path<String> person_path = root.get(TaskCompleted_.person);
+			Path<String> application_path = root.get(TaskCompleted_.application);
+			Path<String> process_path = root.get(TaskCompleted_.process);
+			Path<String> activity_path = root.get(TaskCompleted_.activity);
+			Path<Date> startTime_path = root.get(TaskCompleted_.startTime);
+			Path<Date> completedTime_path = root.get(TaskCompleted_.completedTime);
+			Path<Boolean> expired_path = root.get(TaskCompleted_.expired);
+			Path<Long> duration_path = root.get(TaskCompleted_.duration);
+			Predicate p = cb.or(cb.greaterThan(startTime_path, new Date(start)),
+					cb.greaterThan(completedTime_path, new Date(start)));
+			if (null != sequence) {
+				p = cb.and(p, cb.greaterThan(sequence_path, sequence));
+			}
+			cq.multiselect(sequence_path, unit_path, person_path, application_path, process_path, activity_path,
+					startTime_path, completedTime_path, expired_path, duration_path).where(p)
+					.orderBy(cb.asc(sequence_path));
+			os = em.createQuery(cq).setMaxResults(BATCH_SIZE).getResultList();
+			for (Tuple o : os) {
+				this.addTaskCompleted(o.get(unit_path), o.get(person_path), o.get(application_path),
+						o.get(process_path), o.get(activity_path), o.get(startTime_path), o.get(completedTime_path),
+						o.get(expired_path), o.get(duration_path));
+				sequence = o.get(sequence_path);
+			}
+		} while (os.size() == BATCH_SIZE);
+	}
+
+	private void scanWork(Business business) throws Exception {
+		EntityManager em = business.entityManagerContainer().get(Work.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		String sequence = null;
+		List<Tuple> os;
+		do {
+			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
+			Root<Work> root = cq.from(Work.class);
+			Path<String> sequence_path = root.get(Work_.sequence);
+			Path<String> application_path = root.get(Work_.application);
+			Path<String> process_path = root.get(Work_.process);
+			Path<String> activity_path = root.get(Work_.activity);
+			Path<Date> startTime_path = root.get(Work_.startTime);
+			Path<Date> expireTime_path = root.get(Work_.expireTime);
+			Predicate p = cb.greaterThan(startTime_path, new Date(start));
+			if (null != sequence) {
+				p = cb.and(p, cb.greaterThan(sequence_path, sequence));
+			}
+			cq.multiselect(sequence_path, application_path, process_path, activity_path, startTime_path,
+					expireTime_path).where(p).orderBy(cb.asc(sequence_path));
+			os = em.createQuery(cq).setMaxResults(BATCH_SIZE).getResultList();
+			for (Tuple o : os) {
+				this.addWork(o.get(application_path), o.get(process_path), o.get(activity_path),
+						o.get(startTime_path), o.get(expireTime_path));
+				sequence = o.get(sequence_path);
+			}
+		} while (os.size() == BATCH_SIZE);
+	}
+
+	private void scanWorkCompleted(Business business) throws Exception {
+		EntityManager em = business.entityManagerContainer().get(WorkCompleted.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		String sequence = null;
+		List<Tuple> os;
+		do {
+			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
+			Root<WorkCompleted> root = cq.from(WorkCompleted.class);
+			Path<String> sequence_path = root.get(WorkCompleted_.sequence);
+			Path<String> application_path = root.get(WorkCompleted_.application);
+			Path<String> process_path = root.get(WorkCompleted_.process);
+			Path<Date> startTime_path = root.get(WorkCompleted_.startTime);
+			Path<Boolean> expired_path = root.get(WorkCompleted_.expired);
+			Path<Long> duration_path = root.get(WorkCompleted_.duration);
+			Predicate p = cb.greaterThan(startTime_path, new Date(start));
+			if (null != sequence) {
+				p = cb.and(p, cb.greaterThan(sequence_path, sequence));
+			}
+			cq.multiselect(sequence_path, application_path, process_path, startTime_path, expired_path,
+					duration_path).where(p).orderBy(cb.asc(sequence_path));
+			os = em.createQuery(cq).setMaxResults(BATCH_SIZE).getResultList();
+			for (Tuple o : os) {
+				this.addWorkCompleted(o.get(application_path), o.get(process_path), o.get(startTime_path),
+						o.get(expired_path), o.get(duration_path));
+				sequence = o.get(sequence_path);
+			}
+		} while (os.size() == BATCH_SIZE);
+	}
+
+	/**
+	 * 一个维度值的计数,待办和工作的时长为毫秒,已办和已完成工作的时长与实体中的duration一致.
+	 */
+	public static class Counter {
+
+		static final Counter EMPTY = new Counter();
+
+		long taskCount;
+		long taskExpiredCount;
+		long taskDuration;
+		long taskCompletedCount;
+		long taskCompletedExpiredCount;
+		long taskCompletedDuration;
+		long workCount;
+		long workExpiredCount;
+		long workDuration;
+		long workCompletedCount;
+		long workCompletedExpiredCount;
+		long workCompletedDuration;
+
+		void add(Counter o) {
+			taskCount += o.taskCount;
+			taskExpiredCount += o.taskExpiredCount;
+			taskDuration += o.taskDuration;
+			taskCompletedCount += o.taskCompletedCount;
+			taskCompletedExpiredCount += o.taskCompletedExpiredCount;
+			taskCompletedDuration += o.taskCompletedDuration;
+			workCount += o.workCount;
+			workExpiredCount += o.workExpiredCount;
+			workDuration += o.workDuration;
+			workCompletedCount += o.workCompletedCount;
+			workCompletedExpiredCount += o.workCompletedExpiredCount;
+			workCompletedDuration += o.workCompletedDuration;
+		}
+
+		public long getTaskCount() {
+			return taskCount;
+		}
+
+		public long getTaskExpiredCount() {
+			return taskExpiredCount;
+		}
+
+		/* 分钟 */
+		public long getTaskDurationMinutes() {
+			return taskDuration / MINUTE;
+		}
+
+		public long getTaskCompletedCount() {
+			return taskCompletedCount;
+		}
+
+		public long getTaskCompletedExpiredCount() {
+			return taskCompletedExpiredCount;
+		}
+
+		public long getTaskCompletedDuration() {
+			return taskCompletedDuration;
+		}
+
+		public long getWorkCount() {
+			return workCount;
+		}
+
+		public long getWorkExpiredCount() {
+			return workExpiredCount;
+		}
+
+		/* 分钟 */
+		public long getWorkDurationMinutes() {
+			return workDuration / MINUTE;
+		}
+
+		public long getWorkCompletedCount() {
+			return workCompletedCount;
+		}
+
+		public long getWorkCompletedExpiredCount() {
+			return workCompletedExpiredCount;
+		}
+
+		public long getWorkCompletedDuration() {
+			return workCompletedDuration;
+		}
+
+	}
+
+}
@@ -21,6 +21,7 @@ public class TimerUnitStubs extends ActionBase {
 			UnitStub stub = new UnitStub();
 			stub.setName(o.getName());
 			stub.setValue(o.getDistinguishedName());
+			stub.setSuperior(o.getSuperior());
 			list.add(stub);
 		}
 		list = list.stream().sorted(Comparator.comparing(UnitStub::getName, Comparator.nullsLast(String::compareTo)))
@@ -1,5 +1,8 @@
 package com.x.processplatform.assemble.bam.schedule;
 
+import java.util.Calendar;
+import java.util.Date;
+
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 
@@ -9,6 +12,7 @@ import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.schedule.AbstractJob;
 import com.x.processplatform.assemble.bam.Business;
+import com.x.processplatform.assemble.bam.jaxrs.state.Rollup;
 import com.x.processplatform.assemble.bam.jaxrs.state.TimerApplicationStubs;
 import com.x.processplatform.assemble.bam.jaxrs.state.TimerCategory;
 import com.x.processplatform.assemble.bam.jaxrs.state.TimerOrganization;
@@ -29,9 +33,13 @@ public class StateTimer extends AbstractJob {
 			new TimerPersonStubs().execute(business);
 			new TimerApplicationStubs().execute(business);
 			new TimerSummary().execute(business);
-			new TimerRunning().execute(business);
-			new TimerOrganization().execute(business);
-			new TimerCategory().execute(business);
+			/* 运行,组织,分类统计共用一次扫描的汇总结果 */
+			Calendar cal = Calendar.getInstance();
+			cal.add(Calendar.YEAR, -1);
+			Rollup rollup = new Rollup(cal.getTime(), new Date()).scan(business);
+			new TimerRunning().execute(business, rollup);
+			new TimerOrganization().execute(business, rollup);
+			new TimerCategory().execute(business, rollup);
 		} catch (Exception e) {
 			logger.error(e);
 			throw new JobExecutionException(e);
@@ -8,6 +8,7 @@ public class UnitStub extends GsonPropertyObject {
 	private String value;
 	private Integer level;
 	private String levelName;
+	private String superior;
 
 	public String getName() {
 		return name;
@@ -41,4 +42,12 @@ public class UnitStub extends GsonPropertyObject {
 		this.levelName = levelName;
 	}
 
+	public String getSuperior() {
+		return superior;
+	}
+
+	public void setSuperior(String superior) {
+		this.superior = superior;
+	}
+
 }
@@ -1,9 +1,76 @@
 package com.x.processplatform.assemble.bam.stub;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.apache.commons.lang3.StringUtils;
+
 public class UnitStubs extends CopyOnWriteArrayList<UnitStub> {
 
 	private static final long serialVersionUID = 8860312903495286211L;
 
+	/* 组织与上级组织的对应关系,由组织列表生成,组织列表整体替换所以只需要生成一次 */
+	private transient volatile Map<String, String> superiors;
+
+	/* 组织与直接下级组织的对应关系 */
+	private transient volatile Map<String, List<String>> subs;
+
+	public Map<String, String> superiors() {
+		if (null == superiors) {
+			Map<String, String> map = new HashMap<>();
+			for (UnitStub o : this) {
+				if (StringUtils.isNotEmpty(o.getSuperior())) {
+					map.put(o.getValue(), o.getSuperior());
+				}
+			}
+			superiors = map;
+		}
+		return superiors;
+	}
+
+	/**
+	 * 是否包含组织层级,组织列表为空或者还没有上级信息时返回false
+	 */
+	public boolean hasUnit(String unit) {
+		return this.subs().containsKey(unit) || this.superiors().containsKey(unit);
+	}
+
+	/**
+	 * 在内存中查找所有下级组织,替代逐个组织调用listWithUnitSubNested
+	 */
+	public List<String> listSubNested(String unit) {
+		List<String> list = new ArrayList<>();
+		Map<String, List<String>> map = this.subs();
+		Set<String> visited = new HashSet<>();
+		visited.add(unit);
+		List<String> queue = new ArrayList<>();
+		queue.add(unit);
+		for (int i = 0; i < queue.size(); i++) {
+			for (String o : map.getOrDefault(queue.get(i), Collections.emptyList())) {
+				if (visited.add(o)) {
+					list.add(o);
+					queue.add(o);
+				}
+			}
+		}
+		return list;
+	}
+
+	private Map<String, List<String>> subs() {
+		if (null == subs) {
+			Map<String, List<String>> map = new HashMap<>();
+			for (Map.Entry<String, String> entry : this.superiors().entrySet()) {
+				map.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+			}
+			subs = map;
+		}
+		return subs;
+	}
+
 }
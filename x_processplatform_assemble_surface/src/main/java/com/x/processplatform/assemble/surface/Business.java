@@ -11,6 +11,7 @@ import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.exception.PromptException;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.organization.OrganizationDefinition;
@@ -18,6 +19,7 @@ import com.x.base.core.project.tools.ListTools;
 import com.x.organization.core.express.Organization;
 import com.x.processplatform.assemble.surface.factory.content.AttachmentFactory;
 import com.x.processplatform.assemble.surface.factory.content.ItemFactory;
+import com.x.processplatform.assemble.surface.factory.content.JobAccessFactory;
 import com.x.processplatform.assemble.surface.factory.content.JobFactory;
 import com.x.processplatform.assemble.surface.factory.content.ReadCompletedFactory;
 import com.x.processplatform.assemble.surface.factory.content.ReadFactory;
@@ -67,6 +69,9 @@ import com.x.processplatform.core.entity.element.Application;
 import com.x.processplatform.core.entity.element.Manual;
 import com.x.processplatform.core.entity.element.Process;
 
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
 public class Business {
 
 	private EntityManagerContainer emc;
@@ -160,6 +165,15 @@ public class Business {
 		return workLog;
 	}
 
+	private JobAccessFactory jobAccess;
+
+	public JobAccessFactory jobAccess() throws Exception {
+		if (null == this.jobAccess) {
+			this.jobAccess = new JobAccessFactory(this);
+		}
+		return jobAccess;
+	}
+
 	private TaskFactory task;
 
 	public TaskFactory task() throws Exception {
@@ -469,13 +483,29 @@ public class Business {
 		return o;
 	}
 
+	/* 个人的角色判断缓存5分钟,避免每次权限判断都调用组织服务 */
+	private static Ehcache roleCache = ApplicationCache.instance().getCache(Business.class.getName() + ".role", 10000,
+			ApplicationCache.MINUTES_5, ApplicationCache.MINUTES_5);
+
+	public boolean hasRole(EffectivePerson effectivePerson, String... roles) throws Exception {
+		String key = ApplicationCache.concreteCacheKey(effectivePerson.getDistinguishedName(),
+				StringUtils.join(roles, ","));
+		Element element = roleCache.get(key);
+		if ((null != element) && (null != element.getObjectValue())) {
+			return (Boolean) element.getObjectValue();
+		}
+		boolean value = BooleanUtils.isTrue(organization().person().hasRole(effectivePerson, roles));
+		roleCache.put(new Element(key, value));
+		return value;
+	}
+
 	public Boolean canManageApplication(EffectivePerson effectivePerson, Application application) throws Exception {
 		if (effectivePerson.isManager()) {
 			return true;
 		} else if ((null != application) && effectivePerson.isPerson(application.getControllerList())) {
 			return true;
 		} else {
-			if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+			if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 					OrganizationDefinition.ProcessPlatformManager)) {
 				return true;
 			}
@@ -499,7 +529,7 @@ public class Business {
 		} else if ((null != application) && effectivePerson.isPerson(application.getControllerList())) {
 			return true;
 		} else {
-			if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+			if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 					OrganizationDefinition.ProcessPlatformManager)) {
 				return true;
 			}
@@ -635,9 +665,6 @@ public class Business {
 		}
 		Application application = application().pick(work.getApplication());
 		Process process = process().pick(work.getProcess());
-		Long taskCompletedCount = taskCompleted().countWithPersonWithWork(effectivePerson.getDistinguishedName(), work);
-		Long readCompletedCount = readCompleted().countWithPersonWithWork(effectivePerson.getDistinguishedName(), work);
-		Long reviewCount = review().countWithPersonWithWork(effectivePerson.getDistinguishedName(), work);
 		/* 工作是否可以打开(管理员 或 有task,taskCompleted,read,readCompleted,review的人) */
 		control.setAllowVisit(false);
 		/* 工作是否可以流转(有task的人) */
@@ -655,8 +682,9 @@ public class Business {
 		/* 工作是否可删除(管理员 或者 此活动在流程设计中允许删除且当前待办人是文件的创建者) */
 		control.setAllowDelete(false);
 		/* 设置allowVisit */
-		if ((null != task) || (null != read) || (taskCompletedCount > 0) || (readCompletedCount > 0)
-				|| (reviewCount > 0)) {
+		if ((null != task) || (null != read)
+				|| this.jobAccess().has(work.getJob(), effectivePerson.getDistinguishedName(),
+						JobAccessFactory.TASKCOMPLETED | JobAccessFactory.READCOMPLETED | JobAccessFactory.REVIEW)) {
 			control.setAllowVisit(true);
 		} else if (effectivePerson.isPerson(work.getCreatorPerson())) {
 			control.setAllowVisit(true);
@@ -705,7 +733,7 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			/** 管理员可以调度 */
 			control.setAllowReroute(true);
-		} else if (organization().person().hasRole(effectivePerson, OrganizationDefinition.ProcessPlatformManager)) {
+		} else if (this.hasRole(effectivePerson, OrganizationDefinition.ProcessPlatformManager)) {
 			/** 有流程管理角色的可以 */
 			control.setAllowReroute(true);
 		} else if (null != activity && BooleanUtils.isTrue(activity.getAllowReroute())) {
@@ -746,20 +774,15 @@ public class Business {
 			control.setAllowVisit(true);
 		} else if (effectivePerson.isPerson(workCompleted.getCreatorPerson())) {
 			control.setAllowVisit(true);
-		} else if (taskCompleted().countWithPersonWithWorkCompleted(effectivePerson.getDistinguishedName(),
-				workCompleted) > 0) {
-			control.setAllowVisit(true);
-		} else if (read().countWithPersonWithWorkCompleted(effectivePerson.getDistinguishedName(), workCompleted) > 0) {
-			control.setAllowVisit(true);
-		} else if (readCompleted().countWithPersonWithWorkCompleted(effectivePerson.getDistinguishedName(),
-				workCompleted) > 0) {
-			control.setAllowVisit(true);
-		} else if (review().countWithPersonWithWorkCompleted(effectivePerson.getDistinguishedName(),
-				workCompleted) > 0) {
+		} else if (this.jobAccess().has(workCompleted.getJob(), effectivePerson.getDistinguishedName(),
+				JobAccessFactory.TASKCOMPLETED | JobAccessFactory.READ | JobAccessFactory.READCOMPLETED
+						| JobAccessFactory.REVIEW)) {
 			control.setAllowVisit(true);
 		}
 		/* 设置 allowReadProcessing */
-		if (read().countWithPersonWithWorkCompleted(effectivePerson.getDistinguishedName(), workCompleted) > 0) {
+		/* 只是界面上的处理标志,处理待阅时会再次检查待阅,这里直接使用缓存的索引 */
+		if (this.jobAccess().get(workCompleted.getJob()).has(effectivePerson.getDistinguishedName(),
+				JobAccessFactory.READ)) {
 			control.setAllowReadProcessing(true);
 		}
 		/* 设置 allowDelete */
@@ -779,7 +802,7 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			return true;
 		}
-		if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+		if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 				OrganizationDefinition.ProcessPlatformCreator)) {
 			return true;
 		}
@@ -808,7 +831,7 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			return true;
 		}
-		if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+		if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 				OrganizationDefinition.ProcessPlatformCreator)) {
 			return true;
 		}
@@ -837,7 +860,7 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			return true;
 		}
-		if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+		if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 				OrganizationDefinition.ProcessPlatformCreator)) {
 			return true;
 		}
@@ -866,7 +889,7 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			return true;
 		}
-		if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+		if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 				OrganizationDefinition.ProcessPlatformCreator)) {
 			return true;
 		}
@@ -895,7 +918,7 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			return true;
 		}
-		if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+		if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 				OrganizationDefinition.ProcessPlatformCreator)) {
 			return true;
 		}
@@ -924,27 +947,10 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			return true;
 		}
-		if (emc.countEqualAndEqual(TaskCompleted.class, TaskCompleted.person_FIELDNAME,
-				effectivePerson.getDistinguishedName(), TaskCompleted.job_FIELDNAME, work.getJob()) > 0) {
-			return true;
-		}
-		if (emc.countEqualAndEqual(ReadCompleted.class, ReadCompleted.person_FIELDNAME,
-				effectivePerson.getDistinguishedName(), ReadCompleted.job_FIELDNAME, work.getJob()) > 0) {
-			return true;
-		}
-		if (emc.countEqualAndEqual(Task.class, Task.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-				Task.job_FIELDNAME, work.getJob()) > 0) {
-			return true;
-		}
-		if (emc.countEqualAndEqual(Read.class, Read.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-				Read.job_FIELDNAME, work.getJob()) > 0) {
-			return true;
-		}
-		if (emc.countEqualAndEqual(Review.class, Review.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-				Review.job_FIELDNAME, work.getJob()) > 0) {
+		if (this.jobAccess().participant(work.getJob(), effectivePerson.getDistinguishedName())) {
 			return true;
 		}
-		if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+		if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 				OrganizationDefinition.ProcessPlatformManager)) {
 			return true;
 		}
@@ -973,23 +979,10 @@ public class Business {
 		if (effectivePerson.isManager()) {
 			return true;
 		}
-		if (emc.countEqualAndEqual(TaskCompleted.class, TaskCompleted.person_FIELDNAME,
-				effectivePerson.getDistinguishedName(), TaskCompleted.job_FIELDNAME, workCompleted.getJob()) > 0) {
-			return true;
-		}
-		if (emc.countEqualAndEqual(ReadCompleted.class, ReadCompleted.person_FIELDNAME,
-				effectivePerson.getDistinguishedName(), ReadCompleted.job_FIELDNAME, workCompleted.getJob()) > 0) {
-			return true;
-		}
-		if (emc.countEqualAndEqual(Read.class, Read.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-				Read.job_FIELDNAME, workCompleted.getJob()) > 0) {
-			return true;
-		}
-		if (emc.countEqualAndEqual(Review.class, Review.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-				Review.job_FIELDNAME, workCompleted.getJob()) > 0) {
+		if (this.jobAccess().participant(workCompleted.getJob(), effectivePerson.getDistinguishedName())) {
 			return true;
 		}
-		if (organization().person().hasRole(effectivePerson, OrganizationDefinition.Manager,
+		if (this.hasRole(effectivePerson, OrganizationDefinition.Manager,
 				OrganizationDefinition.ProcessPlatformManager)) {
 			return true;
 		}
@@ -1022,24 +1015,11 @@ public class Business {
 		if (effectivePerson.isPerson(work.getCreatorPerson())) {
 			return true;
 		}
-		if (emc.countEqualAndEqual(TaskCompleted.class, TaskCompleted.person_FIELDNAME,
-				effectivePerson.getDistinguishedName(), TaskCompleted.job_FIELDNAME, work.getJob()) == 0) {
-			if (emc.countEqualAndEqual(ReadCompleted.class, ReadCompleted.person_FIELDNAME,
-					effectivePerson.getDistinguishedName(), ReadCompleted.job_FIELDNAME, work.getJob()) == 0) {
-				if (emc.countEqualAndEqual(Task.class, Task.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-						Task.job_FIELDNAME, work.getJob()) == 0) {
-					if (emc.countEqualAndEqual(Read.class, Read.person_FIELDNAME,
-							effectivePerson.getDistinguishedName(), Read.job_FIELDNAME, work.getJob()) == 0) {
-						if (emc.countEqualAndEqual(Review.class, Review.person_FIELDNAME,
-								effectivePerson.getDistinguishedName(), Review.job_FIELDNAME, work.getJob()) == 0) {
-							Application application = application().pick(work.getApplication());
-							Process process = process().pick(work.getProcess());
-							if (!canManageApplicationOrProcess(effectivePerson, application, process)) {
-								return false;
-							}
-						}
-					}
-				}
+		if (!this.jobAccess().participant(work.getJob(), effectivePerson.getDistinguishedName())) {
+			Application application = application().pick(work.getApplication());
+			Process process = process().pick(work.getProcess());
+			if (!canManageApplicationOrProcess(effectivePerson, application, process)) {
+				return false;
 			}
 		}
 		return true;
@@ -1088,24 +1068,11 @@ public class Business {
 		if (effectivePerson.isPerson(creatorPerson)) {
 			return true;
 		}
-		if (emc.countEqualAndEqual(TaskCompleted.class, TaskCompleted.person_FIELDNAME,
-				effectivePerson.getDistinguishedName(), TaskCompleted.job_FIELDNAME, job) == 0) {
-			if (emc.countEqualAndEqual(ReadCompleted.class, ReadCompleted.person_FIELDNAME,
-					effectivePerson.getDistinguishedName(), ReadCompleted.job_FIELDNAME, job) == 0) {
-				if (emc.countEqualAndEqual(Task.class, Task.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-						Task.job_FIELDNAME, job) == 0) {
-					if (emc.countEqualAndEqual(Read.class, Read.person_FIELDNAME,
-							effectivePerson.getDistinguishedName(), Read.job_FIELDNAME, job) == 0) {
-						if (emc.countEqualAndEqual(Review.class, Review.person_FIELDNAME,
-								effectivePerson.getDistinguishedName(), Review.job_FIELDNAME, job) == 0) {
-							Application application = application().pick(applicationId);
-							Process process = process().pick(processId);
-							if (!canManageApplicationOrProcess(effectivePerson, application, process)) {
-								return false;
-							}
-						}
-					}
-				}
+		if (!this.jobAccess().participant(job, effectivePerson.getDistinguishedName())) {
+			Application application = application().pick(applicationId);
+			Process process = process().pick(processId);
+			if (!canManageApplicationOrProcess(effectivePerson, application, process)) {
+				return false;
 			}
 		}
 		return true;
@@ -1138,24 +1105,11 @@ public class Business {
 		if (effectivePerson.isPerson(creatorPerson)) {
 			return true;
 		}
-		if (emc.countEqualAndEqual(TaskCompleted.class, TaskCompleted.person_FIELDNAME,
-				effectivePerson.getDistinguishedName(), TaskCompleted.job_FIELDNAME, job) == 0) {
-			if (emc.countEqualAndEqual(ReadCompleted.class, ReadCompleted.person_FIELDNAME,
-					effectivePerson.getDistinguishedName(), ReadCompleted.job_FIELDNAME, job) == 0) {
-				if (emc.countEqualAndEqual(Task.class, Task.person_FIELDNAME, effectivePerson.getDistinguishedName(),
-						Task.job_FIELDNAME, job) == 0) {
-					if (emc.countEqualAndEqual(Read.class, Read.person_FIELDNAME,
-							effectivePerson.getDistinguishedName(), Read.job_FIELDNAME, job) == 0) {
-						if (emc.countEqualAndEqual(Review.class, Review.person_FIELDNAME,
-								effectivePerson.getDistinguishedName(), Review.job_FIELDNAME, job) == 0) {
-							Application application = application().pick(applicationId);
-							Process process = process().pick(processId);
-							if (!canManageApplicationOrProcess(effectivePerson, application, process)) {
-								return false;
-							}
-						}
-					}
-				}
+		if (!this.jobAccess().participant(job, effectivePerson.getDistinguishedName())) {
+			Application application = application().pick(applicationId);
+			Process process = process().pick(processId);
+			if (!canManageApplicationOrProcess(effectivePerson, application, process)) {
+				return false;
 			}
 		}
 		return true;
@@ -0,0 +1,139 @@
+package com.x.processplatform.assemble.surface.factory.content;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import com.x.base.core.entity.JpaObject;
+import com.x.base.core.project.cache.ApplicationCache;
+import com.x.processplatform.assemble.surface.AbstractFactory;
+import com.x.processplatform.assemble.surface.Business;
+import com.x.processplatform.core.entity.content.Read;
+import com.x.processplatform.core.entity.content.ReadCompleted;
+import com.x.processplatform.core.entity.content.Review;
+import com.x.processplatform.core.entity.content.Task;
+import com.x.processplatform.core.entity.content.TaskCompleted;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+/**
+ * 按job索引参与人,记录每个人在job中是否有待办,已办,待阅,已阅和参阅,打开工作时的权限判断只需要查找一次索引.<br/>
+ * 索引缓存在内存中,缓存名包含Task,TaskCompleted,Read,ReadCompleted,Review,processing在这些对象变化后按job发送缓存清除通知.<br/>
+ * 缓存清除通知是异步的,缓存中没有权限时重新从数据库加载一次,新增的参与人不会因为缓存没有及时清除而被拒绝.
+ */
+public class JobAccessFactory extends AbstractFactory {
+
+	public static final int TASK = 1;
+
+	public static final int TASKCOMPLETED = 1 << 1;
+
+	public static final int READ = 1 << 2;
+
+	public static final int READCOMPLETED = 1 << 3;
+
+	public static final int REVIEW = 1 << 4;
+
+	private static Ehcache cache = ApplicationCache.instance().getCache(
+			ApplicationCache.concreteCacheKey(Task.class.getName(), TaskCompleted.class.getName(), Read.class.getName(),
+					ReadCompleted.class.getName(), Review.class.getName()),
+			5000, ApplicationCache.MINUTES_10, ApplicationCache.MINUTES_30);
+
+	public JobAccessFactory(Business business) throws Exception {
+		super(business);
+	}
+
+	/* 本次请求中已经从数据库重新加载的索引 */
+	private Map<String, JobAccess> loaded = new HashMap<>();
+
+	public JobAccess get(String job) throws Exception {
+		JobAccess access = loaded.get(job);
+		if (null != access) {
+			return access;
+		}
+		Element element = cache.get(job);
+		if ((null != element) && (null != element.getObjectValue())) {
+			return (JobAccess) element.getObjectValue();
+		}
+		return this.load(job);
+	}
+
+	/**
+	 * 是否有指定的任意一种参与方式,缓存的索引只用于确认有权限,没有权限时以数据库为准.
+	 */
+	public boolean has(String job, String person, int flags) throws Exception {
+		if (this.get(job).has(person, flags)) {
+			return true;
+		}
+		return (!loaded.containsKey(job)) && this.load(job).has(person, flags);
+	}
+
+	/**
+	 * 是否参与过此job,缓存的索引只用于确认有权限,没有权限时以数据库为准.
+	 */
+	public boolean participant(String job, String person) throws Exception {
+		if (this.get(job).participant(person)) {
+			return true;
+		}
+		return (!loaded.containsKey(job)) && this.load(job).participant(person);
+	}
+
+	private JobAccess load(String job) throws Exception {
+		JobAccess access = new JobAccess();
+		this.load(access, Task.class, Task.person_FIELDNAME, Task.job_FIELDNAME, job, TASK);
+		this.load(access, TaskCompleted.class, TaskCompleted.person_FIELDNAME, TaskCompleted.job_FIELDNAME, job,
+				TASKCOMPLETED);
+		this.load(access, Read.class, Read.person_FIELDNAME, Read.job_FIELDNAME, job, READ);
+		this.load(access, ReadCompleted.class, ReadCompleted.person_FIELDNAME, ReadCompleted.job_FIELDNAME, job,
+				READCOMPLETED);
+		this.load(access, Review.class, Review.person_FIELDNAME, Review.job_FIELDNAME, job, REVIEW);
+		loaded.put(job, access);
+		cache.put(new Element(job, access));
+		return access;
+	}
+
+	private <T extends JpaObject> void load(JobAccess access, Class<T> cls, String personField, String jobField,
+			String job, int flag) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(cls);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<String> cq = cb.createQuery(String.class);
+		Root<T> root = cq.from(cls);
+		cq.select(root.<String>get(personField)).where(cb.equal(root.get(jobField), job)).distinct(true);
+		for (String person : em.createQuery(cq).getResultList()) {
+			access.add(person, flag);
+		}
+	}
+
+	/**
+	 * job的参与人索引,key为个人,value为参与方式的标志位.
+	 */
+	public static class JobAccess {
+
+		private Map<String, Integer> persons = new HashMap<>();
+
+		public void add(String person, int flag) {
+			persons.merge(person, flag, (o, n) -> o | n);
+		}
+
+		/* 是否有指定的任意一种参与方式 */
+		public boolean has(String person, int flags) {
+			Integer value = persons.get(person);
+			return (null != value) && ((value & flags) != 0);
+		}
+
+		/* 是否参与过此job */
+		public boolean participant(String person) {
+			return persons.containsKey(person);
+		}
+
+		public int size() {
+			return persons.size();
+		}
+
+	}
+
+}
@@ -5,6 +5,9 @@ import org.apache.commons.io.FilenameUtils;
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.project.annotation.ActionLogger;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
+import com.x.base.core.project.derivative.DerivativeStore;
 import com.x.base.core.project.exception.ExceptionAccessDenied;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.http.ActionResult;
@@ -15,6 +18,7 @@ import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.tools.DocumentTools;
 import com.x.base.core.project.tools.StringTools;
 import com.x.processplatform.assemble.surface.Business;
+import com.x.processplatform.assemble.surface.ThisApplication;
 import com.x.processplatform.assemble.surface.WorkCompletedControl;
 import com.x.processplatform.assemble.surface.WorkControl;
 import com.x.processplatform.core.entity.content.Attachment;
@@ -41,10 +45,22 @@ class ActionPreviewImage extends BaseAction {
 			}
 		}
 
-		byte[] bytes = DocumentTools.toImage(attachment.getName(), attachment.getBytes(), "", page);
+		StorageMapping mapping = ThisApplication.context().storageMappings().get(Attachment.class,
+				attachment.getStorage());
+		if (null == mapping) {
+			throw new ExceptionStorageNotExist(attachment.getStorage());
+		}
+		/* 转换后的图片按附件版本和页码保存,附件内容不变时不再重复转换 */
+		final Attachment source = attachment;
+		Derivative derivative = DerivativeStore.get(mapping, Derivative.key(attachment),
+				"preview_" + page + ".png",
+				() -> DocumentTools.toImage(source.getName(), source.readContent(mapping), "", page));
+		if (null == derivative) {
+			throw new ExceptionPreviewNotSupported(attachment.getName());
+		}
 		PreviewImageResultObject obj = new PreviewImageResultObject();
 		obj.setPerson(effectivePerson.getDistinguishedName());
-		obj.setBytes(bytes);
+		obj.setDerivative(derivative);
 		obj.setName(FilenameUtils.getBaseName(attachment.getName()) + ".png");
 
 		String cacheKey = StringTools.uniqueToken();
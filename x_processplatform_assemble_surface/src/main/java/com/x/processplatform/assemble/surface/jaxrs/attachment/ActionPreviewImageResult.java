@@ -4,12 +4,16 @@ import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.StorageObject;
+import com.x.base.core.project.config.StorageMapping;
 import com.x.base.core.project.exception.ExceptionAccessDenied;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
-import com.x.base.core.project.jaxrs.WoFile;
+import com.x.base.core.project.jaxrs.WoStorageFile;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
+import com.x.processplatform.assemble.surface.ThisApplication;
+import com.x.processplatform.core.entity.content.Attachment;
 
 import net.sf.ehcache.Element;
 
@@ -26,7 +30,12 @@ class ActionPreviewImageResult extends BaseAction {
 			if (!StringUtils.equals(effectivePerson.getDistinguishedName(), obj.getPerson())) {
 				throw new ExceptionAccessDenied(effectivePerson);
 			}
-			wo = new Wo(obj.getBytes(), this.contentType(true, obj.getName()),
+			StorageMapping mapping = ThisApplication.context().storageMappings().get(Attachment.class,
+					obj.getDerivative().getStorage());
+			if (null == mapping) {
+				throw new ExceptionStorageNotExist(obj.getDerivative().getStorage());
+			}
+			wo = new Wo(obj.getDerivative().storageObject(), mapping, this.contentType(true, obj.getName()),
 					this.contentDisposition(true, obj.getName()));
 			result.setData(wo);
 		} else {
@@ -36,10 +45,11 @@ class ActionPreviewImageResult extends BaseAction {
 		return result;
 	}
 
-	public static class Wo extends WoFile {
+	public static class Wo extends WoStorageFile {
 
-		public Wo(byte[] bytes, String contentType, String contentDisposition) {
-			super(bytes, contentType, contentDisposition);
+		public Wo(StorageObject storageObject, StorageMapping mapping, String contentType,
+				String contentDisposition) {
+			super(storageObject, mapping, contentType, contentDisposition);
 		}
 
 	}
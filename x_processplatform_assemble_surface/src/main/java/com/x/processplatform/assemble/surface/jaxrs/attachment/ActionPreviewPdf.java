@@ -4,6 +4,9 @@ import org.apache.commons.io.FilenameUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
+import com.x.base.core.project.derivative.DerivativeStore;
 import com.x.base.core.project.exception.ExceptionAccessDenied;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.http.ActionResult;
@@ -14,6 +17,7 @@ import com.x.base.core.project.logger.LoggerFactory;
 import com.x.base.core.project.tools.DocumentTools;
 import com.x.base.core.project.tools.StringTools;
 import com.x.processplatform.assemble.surface.Business;
+import com.x.processplatform.assemble.surface.ThisApplication;
 import com.x.processplatform.assemble.surface.WorkCompletedControl;
 import com.x.processplatform.assemble.surface.WorkControl;
 import com.x.processplatform.core.entity.content.Attachment;
@@ -40,11 +44,21 @@ class ActionPreviewPdf extends BaseAction {
 			}
 		}
 
-		byte[] bytes = DocumentTools.toPdf(attachment.getName(), attachment.getBytes(), "");
-
+		StorageMapping mapping = ThisApplication.context().storageMappings().get(Attachment.class,
+				attachment.getStorage());
+		if (null == mapping) {
+			throw new ExceptionStorageNotExist(attachment.getStorage());
+		}
+		/* 转换后的pdf按附件版本保存,附件内容不变时不再重复转换 */
+		final Attachment source = attachment;
+		Derivative derivative = DerivativeStore.get(mapping, Derivative.key(attachment), "preview.pdf",
+				() -> DocumentTools.toPdf(source.getName(), source.readContent(mapping), ""));
+		if (null == derivative) {
+			throw new ExceptionPreviewNotSupported(attachment.getName());
+		}
 		PreviewPdfResultObject obj = new PreviewPdfResultObject();
 		obj.setPerson(effectivePerson.getDistinguishedName());
-		obj.setBytes(bytes);
+		obj.setDerivative(derivative);
 		obj.setName(FilenameUtils.getBaseName(attachment.getName()) + ".pdf");
 
 		String cacheKey = StringTools.uniqueToken();
@@ -1,6 +1,7 @@
 package com.x.processplatform.assemble.surface.jaxrs.attachment;
 
 import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.gson.GsonPropertyObject;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
@@ -87,16 +88,16 @@ abstract class BaseAction extends StandardJaxrsAction {
 
 	public static class PreviewPdfResultObject extends GsonPropertyObject {
 
-		private byte[] bytes;
+		private Derivative derivative;
 		private String name;
 		private String person;
 
-		public byte[] getBytes() {
-			return bytes;
+		public Derivative getDerivative() {
+			return derivative;
 		}
 
-		public void setBytes(byte[] bytes) {
-			this.bytes = bytes;
+		public void setDerivative(Derivative derivative) {
+			this.derivative = derivative;
 		}
 
 		public String getName() {
@@ -121,16 +122,16 @@ abstract class BaseAction extends StandardJaxrsAction {
 
 	public static class PreviewImageResultObject extends GsonPropertyObject {
 
-		private byte[] bytes;
+		private Derivative derivative;
 		private String name;
 		private String person;
 
-		public byte[] getBytes() {
-			return bytes;
+		public Derivative getDerivative() {
+			return derivative;
 		}
 
-		public void setBytes(byte[] bytes) {
-			this.bytes = bytes;
+		public void setDerivative(Derivative derivative) {
+			this.derivative = derivative;
 		}
 
 		public String getName() {
@@ -0,0 +1,13 @@
+package com.x.processplatform.assemble.surface.jaxrs.attachment;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionPreviewNotSupported extends PromptException {
+
+	private static final long serialVersionUID = 6420318806572315847L;
+
+	ExceptionPreviewNotSupported(String name) {
+		super("文件不支持预览:{}.", name);
+	}
+
+}
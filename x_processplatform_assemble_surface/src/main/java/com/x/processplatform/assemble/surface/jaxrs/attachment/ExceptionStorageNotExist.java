@@ -0,0 +1,13 @@
+package com.x.processplatform.assemble.surface.jaxrs.attachment;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionStorageNotExist extends PromptException {
+
+	private static final long serialVersionUID = -2871590420541392271L;
+
+	ExceptionStorageNotExist(String storage) {
+		super("存储器不存在:{}.", storage);
+	}
+
+}
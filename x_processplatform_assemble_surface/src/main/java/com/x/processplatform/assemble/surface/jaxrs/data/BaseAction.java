@@ -147,6 +147,7 @@ abstract class BaseAction extends StandardJaxrsAction {
 		List<Item> adds = converter.subtract(currents, exists);
 		if ((!removes.isEmpty()) || (!adds.isEmpty())) {
 			business.entityManagerContainer().beginTransaction(Item.class);
+			business.entityManagerContainer().notifyAfterCommit(Item.class, work.getJob());
 			for (Item _o : removes) {
 				business.entityManagerContainer().remove(_o);
 			}
@@ -181,6 +182,7 @@ abstract class BaseAction extends StandardJaxrsAction {
 		List<Item> adds = converter.subtract(currents, exists);
 		if ((!removes.isEmpty()) || (!adds.isEmpty())) {
 			business.entityManagerContainer().beginTransaction(Item.class);
+			business.entityManagerContainer().notifyAfterCommit(Item.class, workCompleted.getJob());
 			for (Item _o : removes) {
 				business.entityManagerContainer().remove(_o);
 			}
@@ -221,6 +223,7 @@ abstract class BaseAction extends StandardJaxrsAction {
 				cursorPaths[3], cursorPaths[4], cursorPaths[5], cursorPaths[6], cursorPaths[7]);
 		DataItemConverter<Item> converter = new DataItemConverter<>(Item.class);
 		business.entityManagerContainer().beginTransaction(Item.class);
+		business.entityManagerContainer().notifyAfterCommit(Item.class, work.getJob());
 		if ((null != cursor) && cursor.getItemType().equals(ItemType.a)) {
 			/* 向数组里面添加一个成员对象 */
 			Integer index = business.item().getArrayLastIndexWithJobWithPath(work.getJob(), paths);
@@ -258,6 +261,7 @@ abstract class BaseAction extends StandardJaxrsAction {
 					"data{job:" + work.getJob() + "} on path:" + StringUtils.join(paths, ".") + " is not existed.");
 		}
 		business.entityManagerContainer().beginTransaction(Item.class);
+		business.entityManagerContainer().notifyAfterCommit(Item.class, work.getJob());
 		for (Item o : exists) {
 			business.entityManagerContainer().remove(o);
 		}
@@ -1,9 +1,25 @@
 package com.x.processplatform.assemble.surface.jaxrs.form;
 
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
+import com.x.processplatform.assemble.surface.Business;
+import com.x.processplatform.core.entity.element.Form;
 
 abstract class BaseAction extends StandardJaxrsAction {
 
-	 
+	/**
+	 * 表单的版本,用于ETag,表单不存在时返回null
+	 */
+	String version(String flag) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			Form form = business.form().pick(flag);
+			if ((null == form) || (null == form.getUpdateTime())) {
+				return null;
+			}
+			return form.getId() + "#" + form.getUpdateTime().getTime();
+		}
+	}
 
-}
\ No newline at end of file
+}
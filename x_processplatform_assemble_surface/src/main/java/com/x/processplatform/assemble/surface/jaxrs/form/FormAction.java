@@ -11,6 +11,7 @@ import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 import com.google.gson.JsonElement;
 import com.x.base.core.project.annotation.JaxrsDescribe;
@@ -79,13 +80,22 @@ public class FormAction extends StandardJaxrsAction {
 			@JaxrsParameterDescribe("表单标识") @PathParam("flag") String flag) {
 		ActionResult<ActionGet.Wo> result = new ActionResult<>();
 		EffectivePerson effectivePerson = this.effectivePerson(request);
+		String version = null;
 		try {
-			result = new ActionGet().execute(effectivePerson, flag);
+			ActionGet action = new ActionGet();
+			version = action.version(flag);
+			/* 表单没有修改时直接返回304,不需要组装和序列化表单 */
+			Response response = ResponseFactory.getNotModifiedResponse(request, version);
+			if (null != response) {
+				asyncResponse.resume(response);
+				return;
+			}
+			result = action.execute(effectivePerson, flag);
 		} catch (Exception e) {
 			logger.error(e, effectivePerson, request, null);
 			result.error(e);
 		}
-		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result));
+		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result, version));
 	}
 
 	@JaxrsMethodDescribe(value = "获取移动端表单.", action = ActionGetMobile.class)
@@ -97,13 +107,25 @@ public class FormAction extends StandardJaxrsAction {
 			@JaxrsParameterDescribe("表单标识") @PathParam("flag") String flag) {
 		ActionResult<ActionGetMobile.Wo> result = new ActionResult<>();
 		EffectivePerson effectivePerson = this.effectivePerson(request);
+		String version = null;
 		try {
-			result = new ActionGetMobile().execute(effectivePerson, flag);
+			ActionGetMobile action = new ActionGetMobile();
+			version = action.version(flag);
+			if (null != version) {
+				version += "#mobile";
+			}
+			/* 表单没有修改时直接返回304,不需要组装和序列化表单 */
+			Response response = ResponseFactory.getNotModifiedResponse(request, version);
+			if (null != response) {
+				asyncResponse.resume(response);
+				return;
+			}
+			result = action.execute(effectivePerson, flag);
 		} catch (Exception e) {
 			logger.error(e, effectivePerson, request, null);
 			result.error(e);
 		}
-		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result));
+		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result, version));
 	}
 
 	@JaxrsMethodDescribe(value = "根据标识和应用标识获取表单.", action = ActionGetWithApplication.class)
@@ -0,0 +1,52 @@
+package com.x.processplatform.assemble.surface.jaxrs.keylock;
+
+import com.google.gson.JsonElement;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WrapBoolean;
+import com.x.base.core.project.lock.LeaseLocks;
+
+class ActionUnlock extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, JsonElement jsonElement) throws Exception {
+		ActionResult<Wo> result = new ActionResult<>();
+		Wi wi = this.convertToWrapIn(jsonElement, Wi.class);
+		Wo wo = new Wo();
+		wo.setValue((null != wi.getToken())
+				&& LeaseLocks.release(leaseKey(wi.getKey()), effectivePerson.getDistinguishedName(), wi.getToken()));
+		result.setData(wo);
+		return result;
+	}
+
+	public static class Wo extends WrapBoolean {
+
+	}
+
+	public static class Wi extends GsonPropertyObject {
+
+		@FieldDescribe("所定值")
+		private String key;
+
+		@FieldDescribe("锁定时返回的令牌")
+		private Long token;
+
+		public String getKey() {
+			return key;
+		}
+
+		public void setKey(String key) {
+			this.key = key;
+		}
+
+		public Long getToken() {
+			return token;
+		}
+
+		public void setToken(Long token) {
+			this.token = token;
+		}
+
+	}
+}
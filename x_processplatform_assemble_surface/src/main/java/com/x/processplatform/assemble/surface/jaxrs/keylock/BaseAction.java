@@ -4,4 +4,12 @@ import com.x.base.core.project.jaxrs.StandardJaxrsAction;
 
 abstract class BaseAction extends StandardJaxrsAction {
 
+	/* 锁定时长,与原来KeyLock的清理周期一致,持有者重复锁定即续约 */
+	static final long TTL = 2 * 60 * 1000L;
+
+	/* 区分不同应用的锁定值 */
+	static String leaseKey(String key) {
+		return "processplatform#" + key;
+	}
+
 }
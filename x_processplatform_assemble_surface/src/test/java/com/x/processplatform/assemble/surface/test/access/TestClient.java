@@ -0,0 +1,155 @@
+package com.x.processplatform.assemble.surface.test.access;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.processplatform.assemble.surface.factory.content.JobAccessFactory;
+import com.x.processplatform.assemble.surface.factory.content.JobAccessFactory.JobAccess;
+
+/**
+ * 打开工作时权限判断的对比,500个job,每个job的待办,已办,待阅,已阅,参阅各有20人.<br/>
+ * 原来每次判断分别count待办,已办,待阅,已阅,参阅,使用job参与人索引后每个job只在第一次打开时查询一次.
+ */
+public class TestClient {
+
+	private static final int JOB_COUNT = 500;
+
+	private static final int PERSON_COUNT = 20;
+
+	private static final int CHECK_COUNT = 20000;
+
+	private static final String[] TABLES = new String[] { "task", "taskcompleted", "read", "readcompleted", "review" };
+
+	private static final int[] FLAGS = new int[] { JobAccessFactory.TASK, JobAccessFactory.TASKCOMPLETED,
+			JobAccessFactory.READ, JobAccessFactory.READCOMPLETED, JobAccessFactory.REVIEW };
+
+	private Connection prepare() throws Exception {
+		Connection conn = DriverManager.getConnection("jdbc:h2:mem:access" + System.nanoTime());
+		try (Statement st = conn.createStatement()) {
+			for (String table : TABLES) {
+				st.execute("create table " + table + "(id varchar(64) primary key, job varchar(64), person varchar(255))");
+				st.execute("create index " + table + "_job on " + table + "(job)");
+				st.execute("create index " + table + "_person on " + table + "(person)");
+			}
+		}
+		for (int t = 0; t < TABLES.length; t++) {
+			try (PreparedStatement ps = conn.prepareStatement("insert into " + TABLES[t] + " values(?,?,?)")) {
+				for (int i = 0; i < JOB_COUNT; i++) {
+					for (int j = 0; j < PERSON_COUNT; j++) {
+						ps.setString(1, TABLES[t] + i + "_" + j);
+						ps.setString(2, "job" + i);
+						/* 不同类型的参与人部分重叠 */
+						ps.setString(3, this.person(i, j + t * PERSON_COUNT / 2));
+						ps.addBatch();
+					}
+				}
+				ps.executeBatch();
+			}
+		}
+		return conn;
+	}
+
+	private String person(int job, int i) {
+		return "person" + ((job * 7 + i) % 1000) + "@p@P";
+	}
+
+	/* 原来的方式,依次count,有一个大于0即返回 */
+	private boolean before(Connection conn, String job, String person, int[] queries) throws Exception {
+		for (String table : TABLES) {
+			try (PreparedStatement ps = conn
+					.prepareStatement("select count(*) from " + table + " where person = ? and job = ?")) {
+				ps.setString(1, person);
+				ps.setString(2, job);
+				queries[0]++;
+				try (ResultSet rs = ps.executeQuery()) {
+					rs.next();
+					if (rs.getLong(1) > 0) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/* 使用job参与人索引,索引不存在时每个类型查询一次 */
+	private boolean after(Connection conn, Map<String, JobAccess> cache, String job, String person, int[] queries)
+			throws Exception {
+		JobAccess access = cache.get(job);
+		if (null == access) {
+			access = new JobAccess();
+			for (int t = 0; t < TABLES.length; t++) {
+				try (PreparedStatement ps = conn
+						.prepareStatement("select distinct person from " + TABLES[t] + " where job = ?")) {
+					ps.setString(1, job);
+					queries[0]++;
+					try (ResultSet rs = ps.executeQuery()) {
+						while (rs.next()) {
+							access.add(rs.getString(1), FLAGS[t]);
+						}
+					}
+				}
+			}
+			cache.put(job, access);
+		}
+		return access.participant(person);
+	}
+
+	@Test
+	public void testControl() throws Exception {
+		try (Connection conn = this.prepare()) {
+			Random random = new Random(1);
+			String[] jobs = new String[CHECK_COUNT];
+			String[] persons = new String[CHECK_COUNT];
+			for (int i = 0; i < CHECK_COUNT; i++) {
+				int job = random.nextInt(JOB_COUNT);
+				jobs[i] = "job" + job;
+				/* 一半是参与人,一半是其他人 */
+				persons[i] = (i % 2 == 0) ? this.person(job, random.nextInt(PERSON_COUNT * 3))
+						: "other" + random.nextInt(1000) + "@o@P";
+			}
+			boolean[] expected = new boolean[CHECK_COUNT];
+			int[] beforeQueries = new int[1];
+			long start = System.nanoTime();
+			for (int i = 0; i < CHECK_COUNT; i++) {
+				expected[i] = this.before(conn, jobs[i], persons[i], beforeQueries);
+			}
+			long beforeCost = (System.nanoTime() - start) / CHECK_COUNT;
+			int[] afterQueries = new int[1];
+			Map<String, JobAccess> cache = new HashMap<>();
+			start = System.nanoTime();
+			for (int i = 0; i < CHECK_COUNT; i++) {
+				Assert.assertEquals(expected[i], this.after(conn, cache, jobs[i], persons[i], afterQueries));
+			}
+			long afterCost = (System.nanoTime() - start) / CHECK_COUNT;
+			System.out.println(CHECK_COUNT + " control checks, before: " + beforeQueries[0] + " queries, " + beforeCost
+					+ "ns/check; after: " + afterQueries[0] + " queries, " + afterCost + "ns/check.");
+			Assert.assertTrue(afterQueries[0] <= JOB_COUNT * TABLES.length);
+			Assert.assertTrue(afterQueries[0] < beforeQueries[0]);
+		}
+	}
+
+	@Test
+	public void testFlags() {
+		JobAccess access = new JobAccess();
+		access.add("a", JobAccessFactory.TASK);
+		access.add("a", JobAccessFactory.REVIEW);
+		access.add("b", JobAccessFactory.READ);
+		Assert.assertTrue(access.has("a", JobAccessFactory.TASK));
+		Assert.assertTrue(access.has("a", JobAccessFactory.READ | JobAccessFactory.REVIEW));
+		Assert.assertFalse(access.has("a", JobAccessFactory.READ));
+		Assert.assertTrue(access.has("b", JobAccessFactory.READ));
+		Assert.assertFalse(access.participant("c"));
+		Assert.assertEquals(2, access.size());
+	}
+
+}
@@ -111,6 +111,7 @@ public class WorkDataHelper {
 		}
 		if ((!removes.isEmpty()) || (!adds.isEmpty())) {
 			emc.beginTransaction(Item.class);
+			this.emc.notifyAfterCommit(Item.class, this.job);
 			if ((!removes.isEmpty())) {
 				for (Item o : removes) {
 					emc.remove(o);
@@ -141,6 +142,7 @@ public class WorkDataHelper {
 	public void remove() throws Exception {
 		if ((!items.isEmpty())) {
 			emc.beginTransaction(Item.class);
+			this.emc.notifyAfterCommit(Item.class, this.job);
 			for (Item o : items) {
 				emc.remove(o);
 			}
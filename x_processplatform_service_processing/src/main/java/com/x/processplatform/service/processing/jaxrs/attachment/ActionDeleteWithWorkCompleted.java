@@ -7,6 +7,7 @@ import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.ActionLogger;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
 import com.x.base.core.project.http.ActionResult;
@@ -62,6 +63,10 @@ class ActionDeleteWithWorkCompleted extends BaseAction {
 					emc.beginTransaction(Attachment.class);
 					emc.remove(attachment, CheckRemoveType.all);
 					emc.commit();
+					/* 衍生内容在附件删除提交后清理,失败不影响附件的删除 */
+					if (null != mapping) {
+						Derivative.deleteQuietly(mapping, attachment);
+					}
 					wo.setId(attachment.getId());
 				}
 				return "";
@@ -1,12 +1,15 @@
 package com.x.processplatform.service.processing.jaxrs.job;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
@@ -32,6 +35,7 @@ public class ActionDelete extends BaseAction {
 		Callable<ActionResult<List<Wo>>> callable = new Callable<ActionResult<List<Wo>>>() {
 			public ActionResult<List<Wo>> call() throws Exception {
 				List<Wo> wos = new ArrayList<>();
+				Map<Attachment, StorageMapping> derivatives = new HashMap<>();
 				try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 					emc.beginTransaction(Task.class);
 					emc.beginTransaction(TaskCompleted.class);
@@ -67,6 +71,7 @@ public class ActionDelete extends BaseAction {
 						/* 如果没有附件存储的对象就算了 */
 						if (null != mapping) {
 							o.deleteContent(mapping);
+							derivatives.put(o, mapping);
 						}
 						emc.remove(o);
 					}
@@ -100,8 +105,11 @@ public class ActionDelete extends BaseAction {
 						wo.setId(o.getId());
 						wos.add(wo);
 					}
+					emc.notifyAfterCommit(Task.class, job);
 					emc.commit();
 				}
+				/* 衍生内容在附件删除提交后清理,失败不影响附件的删除 */
+				derivatives.forEach((o, mapping) -> Derivative.deleteQuietly(mapping, o));
 				ActionResult<List<Wo>> result = new ActionResult<>();
 				result.setData(wos);
 				return result;
@@ -13,6 +13,7 @@ import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.project.annotation.ActionLogger;
 import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
 import com.x.base.core.project.gson.GsonPropertyObject;
@@ -123,6 +124,7 @@ class ActionCreateWithWork extends BaseAction {
 							}
 						}
 						emc.commit();
+						ApplicationCache.notify(Read.class, work.getJob());
 						if (BooleanUtils.isTrue(wi.getNotify())) {
 							for (Read read : adds) {
 								MessageFactory.read_create(read);
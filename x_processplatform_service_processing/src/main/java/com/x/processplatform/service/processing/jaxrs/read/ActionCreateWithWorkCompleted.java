@@ -16,6 +16,7 @@ import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.project.annotation.ActionLogger;
 import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
 import com.x.base.core.project.gson.GsonPropertyObject;
@@ -135,6 +136,7 @@ class ActionCreateWithWorkCompleted extends BaseAction {
 							}
 						}
 						emc.commit();
+						ApplicationCache.notify(Read.class, workCompleted.getJob());
 						if (BooleanUtils.isTrue(wi.getNotify())) {
 							for (Read read : adds) {
 								MessageFactory.read_create(read);
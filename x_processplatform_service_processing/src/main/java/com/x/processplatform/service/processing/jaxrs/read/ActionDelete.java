@@ -45,6 +45,7 @@ class ActionDelete extends BaseAction {
 					}
 					emc.beginTransaction(Read.class);
 					emc.remove(read, CheckRemoveType.all);
+					emc.notifyAfterCommit(Read.class, read.getJob());
 					emc.commit();
 					MessageFactory.read_delete(read);
 
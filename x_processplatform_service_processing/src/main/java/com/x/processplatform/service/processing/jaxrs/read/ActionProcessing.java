@@ -10,6 +10,7 @@ import com.x.base.core.entity.JpaObject;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.ActionLogger;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.Config;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
@@ -69,6 +70,7 @@ class ActionProcessing extends BaseAction {
 					}
 					emc.remove(read, CheckRemoveType.all);
 					emc.commit();
+					ApplicationCache.notify(Read.class, read.getJob());
 					MessageFactory.read_to_readCompleted(readCompleted);
 
 					wo.setId(read.getId());
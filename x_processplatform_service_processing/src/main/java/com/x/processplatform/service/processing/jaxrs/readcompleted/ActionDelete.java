@@ -46,6 +46,7 @@ class ActionDelete extends BaseAction {
 					}
 					emc.beginTransaction(ReadCompleted.class);
 					emc.remove(readCompleted, CheckRemoveType.all);
+					emc.notifyAfterCommit(ReadCompleted.class, readCompleted.getJob());
 					emc.commit();
 					MessageFactory.readCompleted_delete(readCompleted);
 					wo.setId(readCompleted.getId());
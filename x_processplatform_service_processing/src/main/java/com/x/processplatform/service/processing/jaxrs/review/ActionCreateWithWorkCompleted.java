@@ -8,6 +8,7 @@ import com.google.gson.JsonElement;
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
 import com.x.base.core.project.gson.GsonPropertyObject;
@@ -64,6 +65,7 @@ class ActionCreateWithWorkCompleted extends BaseAction {
 							wos.add(wo);
 						}
 						emc.commit();
+						ApplicationCache.notify(Review.class, workCompleted.getJob());
 					}
 				}
 				return "";
@@ -41,6 +41,7 @@ class ActionDelete extends BaseAction {
 					}
 					emc.beginTransaction(Review.class);
 					emc.remove(review, CheckRemoveType.all);
+					emc.notifyAfterCommit(Review.class, review.getJob());
 					emc.commit();
 					MessageFactory.review_delete(review);
 					wo.setId(review.getId());
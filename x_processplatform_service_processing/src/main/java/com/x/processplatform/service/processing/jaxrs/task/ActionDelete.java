@@ -40,6 +40,7 @@ class ActionDelete extends BaseAction {
 					}
 					emc.beginTransaction(Task.class);
 					emc.remove(task, CheckRemoveType.all);
+					emc.notifyAfterCommit(Task.class, task.getJob());
 					emc.commit();
 					MessageFactory.task_delete(task);
 					wo.setId(task.getId());
@@ -65,6 +65,7 @@ class ActionGrab extends BaseAction {
 						}
 					}
 					work.setManualTaskIdentityList(ListTools.toList(task.getIdentity()));
+					emc.notifyAfterCommit(Task.class, task.getJob());
 					emc.commit();
 					wo.setId(task.getId());
 					result.setData(wo);
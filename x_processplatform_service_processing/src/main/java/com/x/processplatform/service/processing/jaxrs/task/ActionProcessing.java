@@ -15,6 +15,7 @@ import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.ActionLogger;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.Config;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
@@ -131,6 +132,7 @@ class ActionProcessing extends BaseAction {
 					emc.persist(taskCompleted, CheckPersistType.all);
 					emc.remove(task, CheckRemoveType.all);
 					emc.commit();
+					ApplicationCache.notify(Task.class, task.getJob());
 					/* 待办执行后脚本,不能修改数据. */
 					if (null != manual) {
 						if (StringUtils.isNotEmpty(manual.getManualAfterTaskScript())
@@ -13,6 +13,7 @@ import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.Config;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
@@ -94,6 +95,7 @@ class ActionReset extends BaseAction {
 					work.setManualTaskIdentityList(ListTools.trim(os, true, true));
 					emc.check(work, CheckPersistType.all);
 					emc.commit();
+					ApplicationCache.notify(Task.class, work.getJob());
 					ProcessingAttributes processingAttributes = new ProcessingAttributes();
 					processingAttributes.setDebugger(effectivePerson.getDebugger());
 					Processing processing = new Processing(processingAttributes);
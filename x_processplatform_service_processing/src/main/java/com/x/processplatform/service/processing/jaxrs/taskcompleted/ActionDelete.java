@@ -61,6 +61,7 @@ class ActionDelete extends BaseAction {
 						latest.setLatest(true);
 					}
 					emc.remove(taskCompleted, CheckRemoveType.all);
+					emc.notifyAfterCommit(TaskCompleted.class, taskCompleted.getJob());
 					emc.commit();
 
 					wo.setId(taskCompleted.getId());
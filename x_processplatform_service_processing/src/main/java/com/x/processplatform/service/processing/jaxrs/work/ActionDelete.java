@@ -1,12 +1,15 @@
 package com.x.processplatform.service.processing.jaxrs.work;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
 import com.x.base.core.project.http.ActionResult;
@@ -63,6 +66,7 @@ class ActionDelete extends BaseAction {
 						}
 						emc.beginTransaction(Work.class);
 						emc.remove(work, CheckRemoveType.all);
+						emc.notifyAfterCommit(Task.class, work.getJob());
 						emc.commit();
 					} else {
 						deleteTask(business, work.getJob());
@@ -70,13 +74,16 @@ class ActionDelete extends BaseAction {
 						deleteRead(business, work.getJob());
 						deleteReadCompleted(business, work.getJob());
 						deleteReview(business, work.getJob());
-						deleteAttachment(business, work.getJob());
+						Map<Attachment, StorageMapping> derivatives = deleteAttachment(business, work.getJob());
 						deleteWorkLog(business, work.getJob());
 						deleteItem(business, work.getJob());
 						deleteDocumentVersion(business, work.getJob());
 						deleteRecord(business, work.getJob());
 						deleteWork(business, work);
+						emc.notifyAfterCommit(Task.class, work.getJob());
 						emc.commit();
+						/* 衍生内容在附件删除提交后清理,失败不影响附件的删除 */
+						derivatives.forEach((o, mapping) -> Derivative.deleteQuietly(mapping, o));
 					}
 					ActionResult<Wo> result = new ActionResult<>();
 					Wo wo = new Wo();
@@ -145,7 +152,8 @@ class ActionDelete extends BaseAction {
 		}
 	}
 
-	private void deleteAttachment(Business business, String job) throws Exception {
+	private Map<Attachment, StorageMapping> deleteAttachment(Business business, String job) throws Exception {
+		Map<Attachment, StorageMapping> derivatives = new HashMap<>();
 		List<String> ids = business.entityManagerContainer().idsEqual(Attachment.class, Attachment.job_FIELDNAME, job);
 		if (ListTools.isNotEmpty(ids)) {
 			business.entityManagerContainer().beginTransaction(Attachment.class);
@@ -157,11 +165,13 @@ class ActionDelete extends BaseAction {
 							obj.getStorage());
 					if (null != mapping) {
 						obj.deleteContent(mapping);
+						derivatives.put(obj, mapping);
 					}
 					business.entityManagerContainer().remove(obj, CheckRemoveType.all);
 				}
 			}
 		}
+		return derivatives;
 	}
 
 	private void deleteWorkLog(Business business, String job) throws Exception {
@@ -15,6 +15,7 @@ import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.project.Applications;
 import com.x.base.core.project.x_processplatform_service_processing;
 import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
 import com.x.base.core.project.executor.ProcessPlatformExecutorFactory;
 import com.x.base.core.project.gson.GsonPropertyObject;
@@ -98,6 +99,9 @@ class ActionManualAppendIdentity extends BaseAction {
 					}
 
 					emc.commit();
+					if (!addReviews.isEmpty()) {
+						ApplicationCache.notify(Review.class, work.getJob());
+					}
 
 					wo.setTaskIdentityList(taskIdentities);
 				}
@@ -28,6 +28,7 @@ import com.x.processplatform.core.express.ProcessingAttributes;
 import com.x.processplatform.service.processing.Business;
 import com.x.processplatform.service.processing.MessageFactory;
 import com.x.processplatform.service.processing.ThisApplication;
+import com.x.query.core.entity.Item;
 
 class ActionReroute extends BaseAction {
 
@@ -76,6 +77,9 @@ class ActionReroute extends BaseAction {
 					removeTask(business, work);
 					removeOtherWork(business, work);
 					removeOtherWorkLog(business, work);
+					emc.notifyAfterCommit(Task.class, work.getJob());
+					/* 工作的活动或状态改变,清除视图的物化行 */
+					emc.notifyAfterCommit(Item.class, work.getJob());
 					emc.commit();
 					return "";
 				}
@@ -40,6 +40,7 @@ import com.x.processplatform.core.express.ProcessingAttributes;
 import com.x.processplatform.service.processing.Business;
 import com.x.processplatform.service.processing.MessageFactory;
 import com.x.processplatform.service.processing.ThisApplication;
+import com.x.query.core.entity.Item;
 
 class ActionRollback extends BaseAction {
 
@@ -125,6 +126,9 @@ class ActionRollback extends BaseAction {
 
 					rollbackWorkLog(business, work, nodes, workLogs);
 
+					emc.notifyAfterCommit(Task.class, work.getJob());
+					/* 工作的活动或状态改变,清除视图的物化行 */
+					emc.notifyAfterCommit(Item.class, work.getJob());
 					emc.commit();
 					wo.setId(work.getId());
 					ActionResult<Wo> result = new ActionResult<>();
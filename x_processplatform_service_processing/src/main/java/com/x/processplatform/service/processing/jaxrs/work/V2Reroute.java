@@ -27,6 +27,7 @@ import com.x.processplatform.core.express.service.processing.jaxrs.work.V2Rerout
 import com.x.processplatform.service.processing.Business;
 import com.x.processplatform.service.processing.MessageFactory;
 import com.x.processplatform.service.processing.jaxrs.work.V2Retract.Wo;
+import com.x.query.core.entity.Item;
 
 class V2Reroute extends BaseAction {
 
@@ -84,6 +85,9 @@ class V2Reroute extends BaseAction {
 						removeOtherWorkLog(business, work);
 					}
 					emc.check(work, CheckPersistType.all);
+					emc.notifyAfterCommit(Task.class, work.getJob());
+					/* 工作的活动或状态改变,清除视图的物化行 */
+					emc.notifyAfterCommit(Item.class, work.getJob());
 					emc.commit();
 				}
 
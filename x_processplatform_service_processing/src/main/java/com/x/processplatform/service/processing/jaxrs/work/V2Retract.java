@@ -31,6 +31,7 @@ import com.x.processplatform.core.entity.element.util.WorkLogTree.Node;
 import com.x.processplatform.core.entity.element.util.WorkLogTree.Nodes;
 import com.x.processplatform.core.express.service.processing.jaxrs.work.V2RetractWi;
 import com.x.processplatform.service.processing.Business;
+import com.x.query.core.entity.Item;
 
 class V2Retract extends BaseAction {
 
@@ -94,6 +95,9 @@ class V2Retract extends BaseAction {
 						work.setManualTaskIdentityList(manualTaskIdentityList);
 					}
 
+					emc.notifyAfterCommit(Task.class, work.getJob());
+					/* 工作的活动或状态改变,清除视图的物化行 */
+					emc.notifyAfterCommit(Item.class, work.getJob());
 					emc.commit();
 				}
 
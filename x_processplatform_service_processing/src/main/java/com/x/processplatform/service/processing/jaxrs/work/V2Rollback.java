@@ -32,6 +32,7 @@ import com.x.processplatform.core.entity.element.util.WorkLogTree.Node;
 import com.x.processplatform.core.entity.element.util.WorkLogTree.Nodes;
 import com.x.processplatform.core.express.service.processing.jaxrs.work.V2RollbackWi;
 import com.x.processplatform.service.processing.Business;
+import com.x.query.core.entity.Item;
 
 class V2Rollback extends BaseAction {
 
@@ -109,6 +110,9 @@ class V2Rollback extends BaseAction {
 					}
 
 					work.setManualTaskIdentityList(ListTools.trim(manualTaskIdentityList, true, true));
+					emc.notifyAfterCommit(Task.class, work.getJob());
+					/* 工作的活动或状态改变,清除视图的物化行 */
+					emc.notifyAfterCommit(Item.class, work.getJob());
 					emc.commit();
 				}
 
@@ -37,6 +37,7 @@ import com.x.processplatform.core.entity.element.util.WorkLogTree.Nodes;
 import com.x.processplatform.core.express.ProcessingAttributes;
 import com.x.processplatform.service.processing.Business;
 import com.x.processplatform.service.processing.ThisApplication;
+import com.x.query.core.entity.Item;
 
 class ActionRollback extends BaseAction {
 
@@ -132,6 +133,9 @@ class ActionRollback extends BaseAction {
 
 					emc.remove(workCompleted);
 
+					emc.notifyAfterCommit(TaskCompleted.class, work.getJob());
+					/* 工作的活动或状态改变,清除视图的物化行 */
+					emc.notifyAfterCommit(Item.class, work.getJob());
 					emc.commit();
 
 					wo.setId(work.getId());
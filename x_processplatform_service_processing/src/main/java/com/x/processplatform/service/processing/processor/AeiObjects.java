@@ -21,7 +21,9 @@ import com.x.base.core.entity.JpaObject;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.entity.annotation.CheckRemoveType;
 import com.x.base.core.entity.dynamic.DynamicEntity;
+import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.derivative.Derivative;
 import com.x.base.core.project.gson.GsonPropertyObject;
 import com.x.base.core.project.gson.XGsonBuilder;
 import com.x.base.core.project.logger.Logger;
@@ -59,6 +61,7 @@ import com.x.processplatform.service.processing.WorkContext;
 import com.x.processplatform.service.processing.WorkDataHelper;
 import com.x.processplatform.service.processing.configurator.ActivityProcessingConfigurator;
 import com.x.processplatform.service.processing.configurator.ProcessingConfigurator;
+import com.x.query.core.entity.Item;
 
 public class AeiObjects extends GsonPropertyObject {
 
@@ -542,10 +545,37 @@ public class AeiObjects extends GsonPropertyObject {
 		// this.getWorkDataHelper().update(this.getData());
 		this.commitData();
 		this.commitDynamicEntity();
+		/* 流转到达、完成都会改变视图读取的工作状态,即使数据没有变化也清除该job的物化行 */
+		this.entityManagerContainer().notifyAfterCommit(Item.class, this.getWork().getJob());
 		this.entityManagerContainer().commit();
+		this.deleteAttachmentDerivative();
+		this.notifyJobAccess();
 		this.message();
 	}
 
+	/* 删除附件的衍生内容在提交之后进行,失败不影响流转 */
+	private void deleteAttachmentDerivative() throws Exception {
+		for (Attachment o : this.getDeleteAttachments()) {
+			StorageMapping mapping = ThisApplication.context().storageMappings().get(Attachment.class,
+					o.getStorage());
+			if (null != mapping) {
+				Derivative.deleteQuietly(mapping, o);
+			}
+		}
+	}
+
+	/* 参与人发生变化,通知surface清除job的参与人索引 */
+	private void notifyJobAccess() throws Exception {
+		if (ListTools.isNotEmpty(this.getCreateTasks()) || ListTools.isNotEmpty(this.getDeleteTasks())
+				|| ListTools.isNotEmpty(this.getCreateTaskCompleteds())
+				|| ListTools.isNotEmpty(this.getDeleteTaskCompleteds()) || ListTools.isNotEmpty(this.getCreateReads())
+				|| ListTools.isNotEmpty(this.getDeleteReads()) || ListTools.isNotEmpty(this.getCreateReadCompleteds())
+				|| ListTools.isNotEmpty(this.getDeleteReadCompleteds()) || ListTools.isNotEmpty(this.getCreateReviews())
+				|| ListTools.isNotEmpty(this.getDeleteReviews())) {
+			ApplicationCache.notify(Task.class, this.getWork().getJob());
+		}
+	}
+
 	private void modify() {
 		this.modifyTaskCompleted();
 		this.modifyRead();
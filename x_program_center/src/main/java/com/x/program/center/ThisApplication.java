@@ -3,6 +3,7 @@ package com.x.program.center;
 import com.google.gson.internal.LinkedTreeMap;
 import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.Config;
+import com.x.base.core.project.lock.LeaseTable;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.program.center.schedule.*;
 
@@ -33,6 +34,9 @@ public class ThisApplication {
 
 	public static Map<String, Map<String, LinkedTreeMap>> metricsReportMap = new ConcurrentHashMap<>();
 
+	/* 租约锁,leaselock接口和schedule触发共用 */
+	public static LeaseTable leaseTable = new LeaseTable();
+
 	public static void init() {
 		try {
 			LoggerFactory.setLevel(Config.logLevel().x_program_center());
@@ -22,6 +22,7 @@ import com.x.program.center.jaxrs.distribute.DistributeAction;
 import com.x.program.center.jaxrs.input.InputAction;
 import com.x.program.center.jaxrs.invoke.InvokeAction;
 import com.x.program.center.jaxrs.jest.JestAction;
+import com.x.program.center.jaxrs.leaselock.LeaseLockAction;
 import com.x.program.center.jaxrs.module.ModuleAction;
 import com.x.program.center.jaxrs.output.OutputAction;
 import com.x.program.center.jaxrs.pms.PmsAction;
@@ -32,6 +33,7 @@ import com.x.program.center.jaxrs.test.TestAction;
 import com.x.program.center.jaxrs.unexpectederrorlog.UnexpectedErrorLogAction;
 import com.x.program.center.jaxrs.validation.ValidationAction;
 import com.x.program.center.jaxrs.warnlog.WarnLogAction;
+import com.x.program.center.jaxrs.wspresence.WsPresenceAction;
 import com.x.program.center.jaxrs.zhengwudingding.ZhengwuDingdingAction;
 
 @ApplicationPath("jaxrs")
@@ -66,6 +68,8 @@ public class ActionApplication extends AbstractActionApplication {
 		classes.add(TestAction.class);
 		classes.add(OutputAction.class);
 		classes.add(InputAction.class);
+		classes.add(WsPresenceAction.class);
+		classes.add(LeaseLockAction.class);
 		return classes;
 	}
 }
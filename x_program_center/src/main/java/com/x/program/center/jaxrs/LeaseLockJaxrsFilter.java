@@ -0,0 +1,10 @@
+package com.x.program.center.jaxrs;
+
+import javax.servlet.annotation.WebFilter;
+
+import com.x.base.core.project.jaxrs.CipherManagerJaxrsFilter;
+
+@WebFilter(urlPatterns = "/jaxrs/leaselock/*", asyncSupported = true)
+public class LeaseLockJaxrsFilter extends CipherManagerJaxrsFilter {
+
+}
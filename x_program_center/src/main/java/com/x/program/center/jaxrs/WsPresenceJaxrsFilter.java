@@ -0,0 +1,10 @@
+package com.x.program.center.jaxrs;
+
+import javax.servlet.annotation.WebFilter;
+
+import com.x.base.core.project.jaxrs.CipherManagerJaxrsFilter;
+
+@WebFilter(urlPatterns = "/jaxrs/wspresence/*", asyncSupported = true)
+public class WsPresenceJaxrsFilter extends CipherManagerJaxrsFilter {
+
+}
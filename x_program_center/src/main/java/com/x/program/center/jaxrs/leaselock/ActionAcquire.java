@@ -0,0 +1,29 @@
+package com.x.program.center.jaxrs.leaselock;
+
+import com.google.gson.JsonElement;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.lock.Lease;
+import com.x.base.core.project.lock.LeaseLocks;
+
+class ActionAcquire extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, JsonElement jsonElement) throws Exception {
+		ActionResult<Wo> result = new ActionResult<>();
+		Wi wi = this.convertToWrapIn(jsonElement, Wi.class);
+		check(wi);
+		clean();
+		Lease lease = TABLE.acquire(wi.getKey(), wi.getOwner(), ttl(wi.getTtl()));
+		result.setData(wrap(lease, new Wo()));
+		return result;
+	}
+
+	public static class Wi extends LeaseLocks.Wi {
+
+	}
+
+	public static class Wo extends Lease {
+
+	}
+
+}
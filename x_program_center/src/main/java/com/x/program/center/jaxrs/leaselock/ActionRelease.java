@@ -0,0 +1,32 @@
+package com.x.program.center.jaxrs.leaselock;
+
+import com.google.gson.JsonElement;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WrapBoolean;
+import com.x.base.core.project.lock.LeaseLocks;
+
+class ActionRelease extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, JsonElement jsonElement) throws Exception {
+		ActionResult<Wo> result = new ActionResult<>();
+		Wi wi = this.convertToWrapIn(jsonElement, Wi.class);
+		check(wi);
+		if (null == wi.getToken()) {
+			throw new ExceptionEmptyToken();
+		}
+		Wo wo = new Wo();
+		wo.setValue(TABLE.release(wi.getKey(), wi.getOwner(), wi.getToken()));
+		result.setData(wo);
+		return result;
+	}
+
+	public static class Wi extends LeaseLocks.Wi {
+
+	}
+
+	public static class Wo extends WrapBoolean {
+
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.x.program.center.jaxrs.leaselock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.x.base.core.project.jaxrs.StandardJaxrsAction;
+import com.x.base.core.project.lock.Lease;
+import com.x.base.core.project.lock.LeaseLocks;
+import com.x.base.core.project.lock.LeaseTable;
+import com.x.program.center.ThisApplication;
+
+abstract class BaseAction extends StandardJaxrsAction {
+
+	/* 默认租约时长 */
+	static final long DEFAULT_TTL = 2 * 60 * 1000L;
+
+	/* 最长租约时长,避免持有者异常退出后长时间无法申请 */
+	static final long MAX_TTL = 30 * 60 * 1000L;
+
+	/* 到期租约的清理间隔 */
+	private static final long CLEAN_INTERVAL = 60 * 1000L;
+
+	static final LeaseTable TABLE = ThisApplication.leaseTable;
+
+	private static final AtomicLong LAST_CLEAN = new AtomicLong(System.currentTimeMillis());
+
+	static long ttl(Long ttl) {
+		if ((null == ttl) || (ttl <= 0)) {
+			return DEFAULT_TTL;
+		}
+		return Math.min(ttl, MAX_TTL);
+	}
+
+	static void check(LeaseLocks.Wi wi) throws Exception {
+		if (StringUtils.isEmpty(wi.getKey())) {
+			throw new ExceptionEmptyKey();
+		}
+		if (StringUtils.isEmpty(wi.getOwner())) {
+			throw new ExceptionEmptyOwner();
+		}
+	}
+
+	static <T extends Lease> T wrap(Lease lease, T wo) {
+		wo.setSuccess(lease.getSuccess());
+		wo.setKey(lease.getKey());
+		wo.setOwner(lease.getOwner());
+		wo.setToken(lease.getToken());
+		wo.setExpireTime(lease.getExpireTime());
+		return wo;
+	}
+
+	static void clean() {
+		long now = System.currentTimeMillis();
+		long last = LAST_CLEAN.get();
+		if (((now - last) > CLEAN_INTERVAL) && LAST_CLEAN.compareAndSet(last, now)) {
+			TABLE.clean();
+		}
+	}
+
+}
@@ -0,0 +1,12 @@
+package com.x.program.center.jaxrs.leaselock;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionEmptyKey extends PromptException {
+
+	private static final long serialVersionUID = 6120548915630476592L;
+
+	ExceptionEmptyKey() {
+		super("锁定值不能为空.");
+	}
+}
@@ -0,0 +1,12 @@
+package com.x.program.center.jaxrs.leaselock;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionEmptyOwner extends PromptException {
+
+	private static final long serialVersionUID = -2870313853306186354L;
+
+	ExceptionEmptyOwner() {
+		super("持有者不能为空.");
+	}
+}
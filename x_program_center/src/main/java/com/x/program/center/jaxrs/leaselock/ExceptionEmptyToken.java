@@ -0,0 +1,12 @@
+package com.x.program.center.jaxrs.leaselock;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionEmptyToken extends PromptException {
+
+	private static final long serialVersionUID = 3871162092531578871L;
+
+	ExceptionEmptyToken() {
+		super("令牌不能为空.");
+	}
+}
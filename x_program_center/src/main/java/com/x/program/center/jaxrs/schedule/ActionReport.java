@@ -5,6 +5,7 @@ import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.JpaObject;
 import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.base.core.project.annotation.FieldDescribe;
 import com.x.base.core.project.bean.WrapCopier;
 import com.x.base.core.project.bean.WrapCopierFactory;
 import com.x.base.core.project.exception.ExceptionAccessDenied;
@@ -12,6 +13,7 @@ import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.WrapBoolean;
 import com.x.program.center.core.entity.ScheduleLog;
+import com.x.program.center.schedule.FireSchedule;
 
 class ActionReport extends BaseAction {
 
@@ -24,6 +26,8 @@ class ActionReport extends BaseAction {
 			ActionResult<Wo> result = new ActionResult<>();
 			emc.beginTransaction(ScheduleLog.class);
 			ScheduleLog log = Wi.copier.copy(wi);
+			/* 释放运行租约,记录实际开始运行时间相对计划时间的延迟 */
+			log.setLag(FireSchedule.finish(wi.getClassName(), wi.getLeaseToken(), wi.getFireTime()));
 			emc.persist(log, CheckPersistType.all);
 			emc.commit();
 			Wo wo = new Wo();
@@ -38,6 +42,17 @@ class ActionReport extends BaseAction {
 		private static final long serialVersionUID = 1996856138701159925L;
 		static WrapCopier<Wi, ScheduleLog> copier = WrapCopierFactory.wi(Wi.class, ScheduleLog.class, null,
 				JpaObject.FieldsUnmodify);
+
+		@FieldDescribe("运行租约令牌.")
+		private Long leaseToken;
+
+		public Long getLeaseToken() {
+			return leaseToken;
+		}
+
+		public void setLeaseToken(Long leaseToken) {
+			this.leaseToken = leaseToken;
+		}
 	}
 
 	public static class Wo extends WrapBoolean {
@@ -0,0 +1,28 @@
+package com.x.program.center.jaxrs.wspresence;
+
+import com.google.gson.JsonElement;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WrapString;
+import com.x.base.core.project.jaxrs.WrapStringList;
+
+class ActionLookup extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, JsonElement jsonElement) throws Exception {
+		ActionResult<Wo> result = new ActionResult<>();
+		Wi wi = this.convertToWrapIn(jsonElement, Wi.class);
+		Wo wo = new Wo();
+		wo.setValueList(lookup(wi.getValue()));
+		result.setData(wo);
+		return result;
+	}
+
+	public static class Wi extends WrapString {
+
+	}
+
+	public static class Wo extends WrapStringList {
+
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.x.program.center.jaxrs.wspresence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.gson.JsonElement;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.base.core.project.jaxrs.WrapBoolean;
+
+class ActionReport extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, JsonElement jsonElement) throws Exception {
+		ActionResult<Wo> result = new ActionResult<>();
+		Wi wi = this.convertToWrapIn(jsonElement, Wi.class);
+		if (StringUtils.isEmpty(wi.getNode())) {
+			throw new ExceptionEmptyNode();
+		}
+		if (BooleanUtils.isTrue(wi.getFull())) {
+			replace(wi.getNode(), wi.getOnlineList());
+		} else {
+			online(wi.getNode(), wi.getOnlineList());
+			offline(wi.getNode(), wi.getOfflineList());
+		}
+		report(wi.getNode());
+		Wo wo = new Wo();
+		wo.setValue(true);
+		result.setData(wo);
+		return result;
+	}
+
+	public static class Wi extends GsonPropertyObject {
+
+		@FieldDescribe("节点.")
+		private String node;
+
+		@FieldDescribe("是否为全量上报,全量上报时onlineList为节点上所有在线用户.")
+		private Boolean full;
+
+		@FieldDescribe("上线用户.")
+		private List<String> onlineList = new ArrayList<>();
+
+		@FieldDescribe("下线用户.")
+		private List<String> offlineList = new ArrayList<>();
+
+		public String getNode() {
+			return node;
+		}
+
+		public void setNode(String node) {
+			this.node = node;
+		}
+
+		public Boolean getFull() {
+			return full;
+		}
+
+		public void setFull(Boolean full) {
+			this.full = full;
+		}
+
+		public List<String> getOnlineList() {
+			return onlineList;
+		}
+
+		public void setOnlineList(List<String> onlineList) {
+			this.onlineList = onlineList;
+		}
+
+		public List<String> getOfflineList() {
+			return offlineList;
+		}
+
+		public void setOfflineList(List<String> offlineList) {
+			this.offlineList = offlineList;
+		}
+
+	}
+
+	public static class Wo extends WrapBoolean {
+
+	}
+
+}
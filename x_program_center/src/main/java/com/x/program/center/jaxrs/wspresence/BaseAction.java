@@ -0,0 +1,72 @@
+package com.x.program.center.jaxrs.wspresence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.x.base.core.project.jaxrs.StandardJaxrsAction;
+
+abstract class BaseAction extends StandardJaxrsAction {
+
+	/* 节点超过这个时间没有上报视为离线,为节点全量上报周期的3倍 */
+	static final long NODE_EXPIRE = 3 * 60 * 1000L;
+
+	/* 用户所在的节点 */
+	private static final Map<String, Set<String>> PERSONS = new ConcurrentHashMap<>();
+
+	/* 节点最近一次上报的时间 */
+	private static final Map<String, Long> NODES = new ConcurrentHashMap<>();
+
+	static void online(String node, Collection<String> persons) {
+		for (String person : persons) {
+			PERSONS.computeIfAbsent(person, k -> ConcurrentHashMap.newKeySet()).add(node);
+		}
+	}
+
+	static void offline(String node, Collection<String> persons) {
+		for (String person : persons) {
+			PERSONS.computeIfPresent(person, (k, v) -> {
+				v.remove(node);
+				return v.isEmpty() ? null : v;
+			});
+		}
+	}
+
+	/* 全量上报,删除节点上已经不存在的用户 */
+	static void replace(String node, Collection<String> persons) {
+		Set<String> set = new HashSet<>(persons);
+		List<String> removes = new ArrayList<>();
+		for (Entry<String, Set<String>> entry : PERSONS.entrySet()) {
+			if (entry.getValue().contains(node) && (!set.contains(entry.getKey()))) {
+				removes.add(entry.getKey());
+			}
+		}
+		offline(node, removes);
+		online(node, set);
+	}
+
+	static void report(String node) {
+		NODES.put(node, System.currentTimeMillis());
+	}
+
+	static List<String> lookup(String person) {
+		List<String> list = new ArrayList<>();
+		Set<String> nodes = PERSONS.get(person);
+		if (null != nodes) {
+			long now = System.currentTimeMillis();
+			for (String node : nodes) {
+				Long time = NODES.get(node);
+				if ((null != time) && ((now - time) < NODE_EXPIRE)) {
+					list.add(node);
+				}
+			}
+		}
+		return list;
+	}
+
+}
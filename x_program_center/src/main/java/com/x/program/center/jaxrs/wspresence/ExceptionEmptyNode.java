@@ -0,0 +1,12 @@
+package com.x.program.center.jaxrs.wspresence;
+
+import com.x.base.core.project.exception.PromptException;
+
+class ExceptionEmptyNode extends PromptException {
+
+	private static final long serialVersionUID = -3439770681867963457L;
+
+	ExceptionEmptyNode() {
+		super("节点不能为空.");
+	}
+}
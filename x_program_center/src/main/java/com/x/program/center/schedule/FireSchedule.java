@@ -1,8 +1,11 @@
 package com.x.program.center.schedule;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -10,28 +13,38 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 
 import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.project.Application;
 import com.x.base.core.project.Applications;
 import com.x.base.core.project.connection.CipherConnectionAction;
+import com.x.base.core.project.lock.Lease;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.schedule.ScheduleLease;
 import com.x.base.core.project.schedule.ScheduleRequest;
 import com.x.base.core.project.tools.CronTools;
 import com.x.program.center.ThisApplication;
 import com.x.program.center.core.entity.ScheduleLog;
 import com.x.program.center.core.entity.ScheduleLog_;
 
+/**
+ * 按cron触发各应用的schedule.<br/>
+ * 每次触发先申请租约,租约存在时说明上一次运行还没有结束,同一个schedule在集群中同时只运行一次;<br/>
+ * 运行节点在运行期间续约,运行报告到达后释放租约.租约到期仍没有收到报告时记录一次失败的运行,并按原计划时间优先在其他节点重新触发.
+ */
 public class FireSchedule extends BaseAction {
 
 	private static Logger logger = LoggerFactory.getLogger(FireSchedule.class);
 
-	private static final CopyOnWriteArrayList<String> LOCK = new CopyOnWriteArrayList<>();
+	/* 正在运行的schedule,key为className */
+	private static final Map<String, Run> RUNS = new ConcurrentHashMap<>();
 
 	@Override
 	public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
@@ -49,27 +62,13 @@ public class FireSchedule extends BaseAction {
 		Applications applications = ThisApplication.context().applications();
 		applications.entrySet().stream().forEach(entry -> {
 			try {
-				Date now = new Date();
 				Application application = applications.randomWithScheduleWeight(entry.getKey());
 				for (ScheduleRequest request : application.getScheduleRequestList()) {
-					if (LOCK.contains(request.getClassName())) {
-						throw new ExceptionScheduleLastNotEnd(request, application.getClassName());
-					}
-					Date lastStartTime = this.getLastStartTime(request);
-					Date date = CronTools.next(request.getCron(), lastStartTime);
-					if (date.before(now)) {
-						try {
-							LOCK.add(request.getClassName());
-							logger.info("fire schedule className: {}, cron: {}, node: {}, application: {}.",
-									request.getClassName(), request.getCron(), application.getNode(),
-									application.getClassName());
-							String url = application.getUrlJaxrsRoot()
-									+ Applications.joinQueryUri("fireschedule", "classname", request.getClassName());
-							request.setLastStartTime(now);
-							CipherConnectionAction.get(false, url);
-						} finally {
-							LOCK.remove(request.getClassName());
-						}
+					/* 一个schedule触发失败不影响同一应用的其他schedule */
+					try {
+						this.fire(entry.getValue(), application, request);
+					} catch (Exception e) {
+						logger.error(e);
 					}
 				}
 			} catch (Exception e) {
@@ -78,6 +77,121 @@ public class FireSchedule extends BaseAction {
 		});
 	}
 
+	private void fire(List<Application> applications, Application application, ScheduleRequest request)
+			throws Exception {
+		Date now = new Date();
+		String abandonNode = null;
+		Run run = RUNS.get(request.getClassName());
+		if (null != run) {
+			if (null != ThisApplication.leaseTable.get(ScheduleLease.key(request.getClassName()))) {
+				throw new ExceptionScheduleLastNotEnd(request, application.getClassName());
+			}
+			if (RUNS.remove(request.getClassName(), run)) {
+				logger.warn("schedule lease expired without report, className: {}, node: {}, plan time: {}.",
+						request.getClassName(), run.getNode(), run.getPlanTime());
+				this.abandon(application, request, run);
+				request.setLastStartTime(run.getLastStartTime());
+				abandonNode = run.getNode();
+			}
+		}
+		Date lastStartTime = this.getLastStartTime(request);
+		Date date = CronTools.next(request.getCron(), lastStartTime);
+		if (date.before(now)) {
+			for (Application o : this.candidates(applications, application, abandonNode)) {
+				if (fire(o, request, date, lastStartTime)) {
+					request.setLastStartTime(now);
+					return;
+				}
+			}
+		}
+	}
+
+	/* 优先使用按权重选中的节点,其次是其他节点,运行中断的节点放在最后 */
+	private List<Application> candidates(List<Application> applications, Application application,
+			String abandonNode) {
+		List<Application> list = new ArrayList<>();
+		List<Application> abandons = new ArrayList<>();
+		for (Application o : applications) {
+			if ((o != application) && (o.getScheduleWeight() > 0)) {
+				if (StringUtils.equals(o.getNode(), abandonNode)) {
+					abandons.add(o);
+				} else {
+					list.add(o);
+				}
+			}
+		}
+		if (StringUtils.equals(application.getNode(), abandonNode)) {
+			abandons.add(0, application);
+		} else {
+			list.add(0, application);
+		}
+		list.addAll(abandons);
+		return list;
+	}
+
+	/**
+	 * 申请租约后通知节点运行,节点无法访问时释放租约并返回false.
+	 */
+	public static boolean fire(Application application, ScheduleRequest request, Date planTime, Date lastStartTime)
+			throws Exception {
+		String key = ScheduleLease.key(request.getClassName());
+		Lease lease = ThisApplication.leaseTable.acquire(key, application.getNode(), ScheduleLease.TTL);
+		if (BooleanUtils.isNotTrue(lease.getSuccess())) {
+			throw new ExceptionScheduleLastNotEnd(request, application.getClassName());
+		}
+		try {
+			logger.info("fire schedule className: {}, cron: {}, node: {}, application: {}, lease token: {}.",
+					request.getClassName(), request.getCron(), application.getNode(), application.getClassName(),
+					lease.getToken());
+			String url = application.getUrlJaxrsRoot() + Applications.joinQueryUri("fireschedule", "classname",
+					request.getClassName(), "lease", lease.getToken().toString());
+			CipherConnectionAction.get(false, url);
+		} catch (Exception e) {
+			ThisApplication.leaseTable.release(key, application.getNode(), lease.getToken());
+			logger.warn("fire schedule failure, className: {}, node: {}, application: {}.", request.getClassName(),
+					application.getNode(), application.getClassName());
+			logger.error(e);
+			return false;
+		}
+		RUNS.put(request.getClassName(), new Run(lease.getToken(), application.getNode(), planTime, lastStartTime));
+		return true;
+	}
+
+	/**
+	 * 收到运行报告后释放租约,返回实际开始运行时间与计划时间的差,不是通过租约触发的运行返回null.
+	 */
+	public static Long finish(String className, Long leaseToken, Date fireTime) {
+		Run run = RUNS.get(className);
+		if ((null == leaseToken) || (null == run) || (!Objects.equals(run.getToken(), leaseToken))) {
+			return null;
+		}
+		RUNS.remove(className, run);
+		ThisApplication.leaseTable.release(ScheduleLease.key(className), run.getNode(), leaseToken);
+		if ((null == fireTime) || (null == run.getPlanTime())) {
+			return null;
+		}
+		return Math.max(0L, fireTime.getTime() - run.getPlanTime().getTime());
+	}
+
+	/* 记录一次没有完成的运行 */
+	private void abandon(Application application, ScheduleRequest request, Run run) {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			ScheduleLog log = new ScheduleLog();
+			log.setClassName(request.getClassName());
+			log.setApplication(application.getClassName());
+			log.setNode(run.getNode());
+			log.setType("schedule");
+			log.setFireTime(run.getPlanTime());
+			log.setSuccess(false);
+			log.setStackTrace("lease expired without report, node may be down, token: " + run.getToken() + ".");
+			emc.beginTransaction(ScheduleLog.class);
+			emc.persist(log, CheckPersistType.all);
+			emc.commit();
+		} catch (Exception e) {
+			logger.error(e);
+		}
+	}
+
 	private Date getLastStartTime(ScheduleRequest request) throws Exception {
 		Date lastStartTime = request.getLastStartTime();
 		if (null == lastStartTime) {
@@ -98,4 +212,40 @@ public class FireSchedule extends BaseAction {
 		}
 		return lastStartTime;
 	}
-}
\ No newline at end of file
+
+	public static class Run {
+
+		private Long token;
+
+		private String node;
+
+		private Date planTime;
+
+		/* 触发前的上一次运行时间,运行中断后用于重新计算计划时间 */
+		private Date lastStartTime;
+
+		public Run(Long token, String node, Date planTime, Date lastStartTime) {
+			this.token = token;
+			this.node = node;
+			this.planTime = planTime;
+			this.lastStartTime = lastStartTime;
+		}
+
+		public Long getToken() {
+			return token;
+		}
+
+		public String getNode() {
+			return node;
+		}
+
+		public Date getPlanTime() {
+			return planTime;
+		}
+
+		public Date getLastStartTime() {
+			return lastStartTime;
+		}
+
+	}
+}
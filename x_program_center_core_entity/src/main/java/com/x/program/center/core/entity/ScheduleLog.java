@@ -101,6 +101,12 @@ public class ScheduleLog extends SliceJpaObject {
 	@Column(name = ColumnNamePrefix + elapsed_FIELDNAME)
 	private Long elapsed;
 
+	public static final String lag_FIELDNAME = "lag";
+	@FieldDescribe("延迟时长(毫秒),实际开始运行时间与计划运行时间的差.")
+	@CheckPersist(allowEmpty = true)
+	@Column(name = ColumnNamePrefix + lag_FIELDNAME)
+	private Long lag;
+
 	public static final String stackTrace_FIELDNAME = "stackTrace";
 	@FieldDescribe("错误堆栈.")
 	@Lob
@@ -164,6 +170,14 @@ public class ScheduleLog extends SliceJpaObject {
 		this.elapsed = elapsed;
 	}
 
+	public Long getLag() {
+		return lag;
+	}
+
+	public void setLag(Long lag) {
+		this.lag = lag;
+	}
+
 	public String getStackTrace() {
 		return stackTrace;
 	}
@@ -1,5 +1,7 @@
 package com.x.query.assemble.surface.jaxrs.view;
 
+import java.io.File;
+
 import org.apache.commons.lang3.StringUtils;
 
 import com.x.base.core.container.EntityManagerContainer;
@@ -8,7 +10,7 @@ import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.exception.ExceptionAccessDenied;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
-import com.x.base.core.project.jaxrs.WoFile;
+import com.x.base.core.project.jaxrs.WoLocalFile;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
 import com.x.query.assemble.surface.Business;
@@ -31,8 +33,11 @@ class ActionExcelResult extends BaseAction {
 				if (!StringUtils.equals(effectivePerson.getDistinguishedName(), obj.getPerson())) {
 					throw new ExceptionAccessDenied(effectivePerson);
 				}
-				Wo wo = new Wo(obj.getBytes(), this.contentType(true, obj.getName()),
-						this.contentDisposition(true, obj.getName()));
+				File file = new File(obj.getPath());
+				if (!file.exists()) {
+					throw new ExceptionExcelResultObject(flag);
+				}
+				Wo wo = new Wo(file, this.contentType(true, obj.getName()), this.contentDisposition(true, obj.getName()));
 				result.setData(wo);
 			} else {
 				throw new ExceptionExcelResultObject(flag);
@@ -41,10 +46,11 @@ class ActionExcelResult extends BaseAction {
 		}
 	}
 
-	public static class Wo extends WoFile {
+	/* 导出文件从临时目录直接流出,不读入内存 */
+	public static class Wo extends WoLocalFile {
 
-		public Wo(byte[] bytes, String contentType, String contentDisposition) {
-			super(bytes, contentType, contentDisposition);
+		public Wo(File file, String contentType, String contentDisposition) {
+			super(file, contentType, contentDisposition);
 		}
 
 	}
@@ -21,7 +21,6 @@ import com.x.query.assemble.surface.Business;
 import com.x.query.core.entity.Query;
 import com.x.query.core.entity.View;
 import com.x.query.core.express.plan.FilterEntry;
-import com.x.query.core.express.plan.Plan;
 import com.x.query.core.express.plan.Runtime;
 
 class ActionExcelWithQuery extends BaseAction {
@@ -50,8 +49,7 @@ class ActionExcelWithQuery extends BaseAction {
 			Runtime runtime = this.runtime(effectivePerson, business, view, wi.getFilterList(), wi.getParameter(),
 					wi.getCount());
 			runtime.bundleList = wi.getBundleList();
-			Plan plan = this.accessPlan(business, view, runtime);
-			String excelFlag = this.girdWriteToExcel(effectivePerson, business, plan, view);
+			String excelFlag = this.girdWriteToExcel(effectivePerson, business, view, runtime);
 			Wo wo = new Wo();
 			wo.setId(excelFlag);
 			result.setData(wo);
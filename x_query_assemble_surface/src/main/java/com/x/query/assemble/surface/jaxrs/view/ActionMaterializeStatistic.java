@@ -0,0 +1,70 @@
+package com.x.query.assemble.surface.jaxrs.view;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.annotation.FieldDescribe;
+import com.x.base.core.project.exception.ExceptionAccessDenied;
+import com.x.base.core.project.exception.ExceptionEntityNotExist;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+import com.x.query.assemble.surface.Business;
+import com.x.query.core.entity.Query;
+import com.x.query.core.entity.View;
+import com.x.query.core.express.plan.MaterializedRows;
+
+class ActionMaterializeStatistic extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson, String id) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business(emc);
+			ActionResult<Wo> result = new ActionResult<>();
+			View view = business.pick(id, View.class);
+			if (null == view) {
+				throw new ExceptionEntityNotExist(id, View.class);
+			}
+			Query query = business.pick(view.getQuery(), Query.class);
+			if (null == query) {
+				throw new ExceptionEntityNotExist(view.getQuery(), Query.class);
+			}
+			if (!business.readable(effectivePerson, query)) {
+				throw new ExceptionAccessDenied(effectivePerson, query);
+			}
+			if (!business.readable(effectivePerson, view)) {
+				throw new ExceptionAccessDenied(effectivePerson, view);
+			}
+			Wo wo = new Wo();
+			wo.setMaterialized(view.getMaterialized());
+			wo.setStatistic(MaterializedRows.statistic(view.getId()));
+			result.setData(wo);
+			return result;
+		}
+	}
+
+	public static class Wo extends GsonPropertyObject {
+
+		@FieldDescribe("是否使用物化行.")
+		private Boolean materialized;
+
+		@FieldDescribe("物化行的命中,延迟以及刷新开销.")
+		private MaterializedRows.Statistic statistic;
+
+		public Boolean getMaterialized() {
+			return materialized;
+		}
+
+		public void setMaterialized(Boolean materialized) {
+			this.materialized = materialized;
+		}
+
+		public MaterializedRows.Statistic getStatistic() {
+			return statistic;
+		}
+
+		public void setStatistic(MaterializedRows.Statistic statistic) {
+			this.statistic = statistic;
+		}
+
+	}
+
+}
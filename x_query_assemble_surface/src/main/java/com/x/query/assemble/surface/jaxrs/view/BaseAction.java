@@ -1,19 +1,21 @@
 package com.x.query.assemble.surface.jaxrs.view;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.project.config.Config;
 import com.x.base.core.project.gson.GsonPropertyObject;
 import com.x.base.core.project.http.EffectivePerson;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
@@ -33,6 +35,14 @@ import net.sf.ehcache.Element;
 
 abstract class BaseAction extends StandardJaxrsAction {
 
+	private static final String EXCEL_DIR = "viewExcel";
+
+	/* 每次执行plan的bundle数量 */
+	private static final int EXCEL_BUNDLE_PAGE_SIZE = 2000;
+
+	/* SXSSFWorkbook在内存中保留的行数 */
+	private static final int EXCEL_ROW_ACCESS_WINDOW = 200;
+
 	protected Plan accessPlan(Business business, View view, Runtime runtime) throws Exception {
 		Plan plan = null;
 		if (BooleanUtils.isTrue(view.getCacheAccess())) {
@@ -57,12 +67,14 @@ abstract class BaseAction extends StandardJaxrsAction {
 		case View.TYPE_CMS:
 			CmsPlan cmsPlan = gson.fromJson(view.getData(), CmsPlan.class);
 			cmsPlan.runtime = runtime;
+			cmsPlan.materializeFlag = materializeFlag(view);
 			cmsPlan.access();
 			plan = cmsPlan;
 			break;
 		default:
 			ProcessPlatformPlan processPlatformPlan = gson.fromJson(view.getData(), ProcessPlatformPlan.class);
 			processPlatformPlan.runtime = runtime;
+			processPlatformPlan.materializeFlag = materializeFlag(view);
 			processPlatformPlan.access();
 			plan = processPlatformPlan;
 			break;
@@ -73,17 +85,23 @@ abstract class BaseAction extends StandardJaxrsAction {
 		return plan;
 	}
 
+	private String materializeFlag(View view) {
+		return BooleanUtils.isTrue(view.getMaterialized()) ? view.getId() : null;
+	}
+
 	private List<String> fetchBundle(View view, Runtime runtime) throws Exception {
 		List<String> os = null;
 		switch (StringUtils.trimToEmpty(view.getType())) {
 		case View.TYPE_CMS:
 			CmsPlan cmsPlan = gson.fromJson(view.getData(), CmsPlan.class);
 			cmsPlan.runtime = runtime;
+			cmsPlan.materializeFlag = materializeFlag(view);
 			os = cmsPlan.fetchBundles();
 			break;
 		default:
 			ProcessPlatformPlan processPlatformPlan = gson.fromJson(view.getData(), ProcessPlatformPlan.class);
 			processPlatformPlan.runtime = runtime;
+			processPlatformPlan.materializeFlag = materializeFlag(view);
 			os = processPlatformPlan.fetchBundles();
 			break;
 		}
@@ -110,16 +128,17 @@ abstract class BaseAction extends StandardJaxrsAction {
 
 	public static class ExcelResultObject extends GsonPropertyObject {
 
-		private byte[] bytes;
+		/* 导出文件保存在临时目录中,这里只记录文件路径 */
+		private String path;
 		private String name;
 		private String person;
 
-		public byte[] getBytes() {
-			return bytes;
+		public String getPath() {
+			return path;
 		}
 
-		public void setBytes(byte[] bytes) {
-			this.bytes = bytes;
+		public void setPath(String path) {
+			this.path = path;
 		}
 
 		public String getName() {
@@ -140,46 +159,95 @@ abstract class BaseAction extends StandardJaxrsAction {
 
 	}
 
-	protected String girdWriteToExcel(EffectivePerson effectivePerson, Business business, Plan plan, View view)
-			throws Exception {
-		try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-			XSSFSheet sheet = workbook.createSheet("grid");
-			if (ListTools.isNotEmpty(plan.selectList)) {
-				XSSFRow r = sheet.createRow(0);
-				XSSFCell c = null;
-				int i = 0;
-				for (SelectEntry o : plan.selectList) {
-					c = r.createCell(i);
-					c.setCellValue(o.getDisplayName());
-					i++;
+	/**
+	 * 流式导出Excel.<br/>
+	 * 先取得排序后的全部bundle,再按页执行plan,每页的行写入SXSSFWorkbook后即释放,工作簿只在内存中保留最近的若干行,
+	 * 结果写入临时文件,缓存中只保存文件路径.
+	 */
+	protected String girdWriteToExcel(EffectivePerson effectivePerson, Business business, View view,
+			Runtime runtime) throws Exception {
+		List<String> bundles = ListTools.isNotEmpty(runtime.bundleList) ? runtime.bundleList
+				: this.fetchBundle(business, view, runtime);
+		/* 数量限制作用于整个导出,截取一次后按页执行plan时不再限制数量 */
+		if ((null != runtime.count) && (runtime.count > 0) && (runtime.count < bundles.size())) {
+			bundles = bundles.subList(0, runtime.count);
+		}
+		runtime.count = 0;
+		String flag = StringTools.uniqueToken();
+		File file = new File(excelDir(), flag + ".xlsx");
+		SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_ACCESS_WINDOW);
+		try (FileOutputStream os = new FileOutputStream(file)) {
+			workbook.setCompressTempFiles(true);
+			SXSSFSheet sheet = workbook.createSheet("grid");
+			int rowNumber = 0;
+			for (List<String> part : ListTools.batch(bundles, EXCEL_BUNDLE_PAGE_SIZE)) {
+				runtime.bundleList = part;
+				Plan plan = this.accessPlan(view, runtime);
+				if (rowNumber == 0) {
+					this.writeTitle(sheet, plan);
+					rowNumber++;
 				}
-			}
-			if (null != plan.grid) {
-				Row row = null;
-				XSSFRow r = null;
-				XSSFCell c = null;
-				int i = 0;
-				for (int j = 0; j < plan.grid.size(); j++) {
-					row = plan.grid.get(j);
-					r = sheet.createRow(j + 1);
-					i = 0;
-					for (SelectEntry o : plan.selectList) {
-						c = r.createCell(i);
-						c.setCellValue(Objects.toString(row.find(o.column)));
-						i++;
+				if (null != plan.grid) {
+					for (Row row : ListTools.orderWithKeys(plan.grid, part, o -> o.bundle)) {
+						SXSSFRow r = sheet.createRow(rowNumber++);
+						int i = 0;
+						for (SelectEntry o : plan.selectList) {
+							r.createCell(i++).setCellValue(Objects.toString(row.find(o.column)));
+						}
 					}
 				}
 			}
-			String name = view.getName() + ".xlsx";
+			if (rowNumber == 0) {
+				this.writeTitle(sheet, this.accessPlanTitle(view));
+			}
 			workbook.write(os);
-			ExcelResultObject obj = new ExcelResultObject();
-			obj.setBytes(os.toByteArray());
-			obj.setName(name);
-			obj.setPerson(effectivePerson.getDistinguishedName());
-			String flag = StringTools.uniqueToken();
-			business.cache().put(new Element(flag, obj));
-			return flag;
+		} catch (Exception e) {
+			FileUtils.deleteQuietly(file);
+			throw e;
+		} finally {
+			workbook.dispose();
+			workbook.close();
+		}
+		ExcelResultObject obj = new ExcelResultObject();
+		obj.setPath(file.getAbsolutePath());
+		obj.setName(view.getName() + ".xlsx");
+		obj.setPerson(effectivePerson.getDistinguishedName());
+		business.cache().put(new Element(flag, obj));
+		return flag;
+	}
+
+	private void writeTitle(SXSSFSheet sheet, Plan plan) {
+		if (ListTools.isNotEmpty(plan.selectList)) {
+			SXSSFRow r = sheet.createRow(0);
+			int i = 0;
+			for (SelectEntry o : plan.selectList) {
+				r.createCell(i++).setCellValue(o.getDisplayName());
+			}
+		}
+	}
+
+	/* 没有数据时只需要表头,不执行查询 */
+	private Plan accessPlanTitle(View view) throws Exception {
+		if (StringUtils.equals(View.TYPE_CMS, StringUtils.trimToEmpty(view.getType()))) {
+			return gson.fromJson(view.getData(), CmsPlan.class);
+		}
+		return gson.fromJson(view.getData(), ProcessPlatformPlan.class);
+	}
+
+	/* 导出文件目录,同时清理超过缓存有效期的文件 */
+	private static File excelDir() throws Exception {
+		File dir = new File(Config.dir_local_temp(), EXCEL_DIR);
+		FileUtils.forceMkdir(dir);
+		long expire = System.currentTimeMillis() - (ApplicationCache.MINUTES_30 * 1000L);
+		File[] files = dir.listFiles();
+		if (null != files) {
+			for (File o : files) {
+				if (o.lastModified() < expire) {
+					FileUtils.deleteQuietly(o);
+				}
+			}
 		}
+		return dir;
 	}
 
 	protected Runtime runtime(EffectivePerson effectivePerson, Business business, View view,
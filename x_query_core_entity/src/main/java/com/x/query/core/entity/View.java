@@ -211,6 +211,12 @@ public class View extends SliceJpaObject {
 	@CheckPersist(allowEmpty = true)
 	private Boolean cacheAccess;
 
+	public static final String materialized_FIELDNAME = "materialized";
+	@FieldDescribe("是否使用物化行,数据修改时只重新查询被修改的行.")
+	@Column(name = ColumnNamePrefix + materialized_FIELDNAME)
+	@CheckPersist(allowEmpty = true)
+	private Boolean materialized;
+
 	public static final String availableIdentityList_FIELDNAME = "availableIdentityList";
 	@FieldDescribe("允许使用的用户.")
 	@PersistentCollection(fetch = FetchType.EAGER)
@@ -367,6 +373,14 @@ public class View extends SliceJpaObject {
 		this.cacheAccess = cacheAccess;
 	}
 
+	public Boolean getMaterialized() {
+		return materialized;
+	}
+
+	public void setMaterialized(Boolean materialized) {
+		this.materialized = materialized;
+	}
+
 	public List<String> getAvailableIdentityList() {
 		return availableIdentityList;
 	}
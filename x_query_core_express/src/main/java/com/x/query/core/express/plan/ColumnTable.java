@@ -0,0 +1,131 @@
+package com.x.query.core.express.plan;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按列存储的取值表.<br/>
+ * 一批bundle的所有列通过一次查询取得,值按列以原始类型数组保存,全部取回后再一次性填充到Row中,查询线程不直接写Row.
+ */
+class ColumnTable {
+
+	private static final byte TYPE_NONE = 0;
+	private static final byte TYPE_STRING = 1;
+	private static final byte TYPE_DATE = 2;
+	private static final byte TYPE_BOOLEAN = 3;
+	private static final byte TYPE_NUMBER = 4;
+
+	private List<String> bundles;
+
+	private Map<String, Integer> positions;
+
+	private String[] columns;
+
+	/* 每一列每一行的值类型,按类型从对应的数组中取值,数组在第一次写入时创建 */
+	private byte[][] types;
+	private String[][] strings;
+	private long[][] dates;
+	private boolean[][] booleans;
+	private double[][] numbers;
+
+	ColumnTable(List<String> bundles, String[] columns) {
+		this.bundles = bundles;
+		this.columns = columns;
+		this.positions = new HashMap<>(bundles.size() * 2);
+		for (int i = 0; i < bundles.size(); i++) {
+			this.positions.put(bundles.get(i), i);
+		}
+		this.types = new byte[columns.length][];
+		this.strings = new String[columns.length][];
+		this.dates = new long[columns.length][];
+		this.booleans = new boolean[columns.length][];
+		this.numbers = new double[columns.length][];
+	}
+
+	/* 不在本批次中的bundle返回-1 */
+	int position(String bundle) {
+		Integer position = this.positions.get(bundle);
+		return (null == position) ? -1 : position;
+	}
+
+	void putString(int column, int position, String value) {
+		if (null == strings[column]) {
+			strings[column] = new String[bundles.size()];
+		}
+		strings[column][position] = value;
+		this.type(column, position, TYPE_STRING);
+	}
+
+	void putDate(int column, int position, Date value) {
+		if (null == dates[column]) {
+			dates[column] = new long[bundles.size()];
+		}
+		dates[column][position] = value.getTime();
+		this.type(column, position, TYPE_DATE);
+	}
+
+	void putBoolean(int column, int position, boolean value) {
+		if (null == booleans[column]) {
+			booleans[column] = new boolean[bundles.size()];
+		}
+		booleans[column][position] = value;
+		this.type(column, position, TYPE_BOOLEAN);
+	}
+
+	void putNumber(int column, int position, double value) {
+		if (null == numbers[column]) {
+			numbers[column] = new double[bundles.size()];
+		}
+		numbers[column][position] = value;
+		this.type(column, position, TYPE_NUMBER);
+	}
+
+	private void type(int column, int position, byte type) {
+		if (null == types[column]) {
+			types[column] = new byte[bundles.size()];
+		}
+		types[column][position] = type;
+	}
+
+	/* 取得某一行某一列的值,没有取到值返回null */
+	Object value(int column, int position) {
+		if (null == types[column]) {
+			return null;
+		}
+		switch (types[column][position]) {
+		case TYPE_STRING:
+			return strings[column][position];
+		case TYPE_DATE:
+			return new Date(dates[column][position]);
+		case TYPE_BOOLEAN:
+			return booleans[column][position];
+		case TYPE_NUMBER:
+			return numbers[column][position];
+		default:
+			return null;
+		}
+	}
+
+	List<String> getBundles() {
+		return bundles;
+	}
+
+	/* 将取得的值写入对应的行,没有取到值的保持默认值 */
+	void fill(Map<String, Row> rows) {
+		for (int i = 0; i < bundles.size(); i++) {
+			Row row = rows.get(bundles.get(i));
+			if (null == row) {
+				continue;
+			}
+			for (int c = 0; c < columns.length; c++) {
+				Object value = this.value(c, i);
+				if (null != value) {
+					row.put(columns[c], value);
+				}
+			}
+		}
+	}
+
+}
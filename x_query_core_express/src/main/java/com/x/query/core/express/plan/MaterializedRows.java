@@ -0,0 +1,188 @@
+package com.x.query.core.express.plan;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.x.base.core.project.cache.ApplicationCache;
+import com.x.base.core.project.gson.GsonPropertyObject;
+import com.x.query.core.entity.Item;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+/**
+ * 物化视图的行数据.<br/>
+ * 按bundle保存已经取得的各路径的值,多个视图共享同一个bundle的数据.业务数据修改后通过ApplicationCache.notify(Item.class,
+ * bundle)清除对应的bundle,流程的流转、完成、调度、回滚和撤回改变工作状态时同样按job通知,
+ * 下次执行时只重新查询被清除的bundle,缓存的存活时间作为通知丢失时的兜底.
+ */
+public class MaterializedRows {
+
+	private static final int CACHE_SIZE = 50000;
+
+	/* 已经查询过但是没有值的路径 */
+	private static final Object ABSENT = new Object();
+
+	private static final Map<String, Statistic> STATISTICS = new ConcurrentHashMap<>();
+
+	private MaterializedRows() {
+	}
+
+	private static Ehcache cache() {
+		return ApplicationCache.instance().getCache(
+				ApplicationCache.concreteCacheKey(Item.class.getName(), MaterializedRows.class.getName()), CACHE_SIZE,
+				ApplicationCache.MINUTES_10, ApplicationCache.MINUTES_10);
+	}
+
+	public static Statistic statistic(String flag) {
+		return STATISTICS.computeIfAbsent(flag, Statistic::new);
+	}
+
+	/**
+	 * 使用物化行填充,返回需要重新查询的bundle.
+	 *
+	 * @param paths 每一列对应的路径
+	 */
+	@SuppressWarnings("unchecked")
+	static List<String> take(List<String> bundles, String[] columns, String[] paths, Map<String, Row> rows,
+			Statistic statistic) {
+		Ehcache cache = cache();
+		List<String> misses = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		long oldest = now;
+		for (String bundle : bundles) {
+			Element element = cache.get(bundle);
+			Map<String, Object> values = (null == element) ? null : (Map<String, Object>) element.getObjectValue();
+			if ((null == values) || (!contains(values, paths))) {
+				misses.add(bundle);
+				continue;
+			}
+			oldest = Math.min(oldest, element.getCreationTime());
+			Row row = rows.get(bundle);
+			if (null != row) {
+				for (int i = 0; i < columns.length; i++) {
+					Object value = values.get(paths[i]);
+					if (ABSENT != value) {
+						row.put(columns[i], value);
+					}
+				}
+			}
+		}
+		statistic.take(bundles.size() - misses.size(), misses.size(), now - oldest);
+		return misses;
+	}
+
+	/* 保存查询得到的值,已有的bundle合并路径 */
+	@SuppressWarnings("unchecked")
+	static void put(ColumnTable columnTable, String[] paths) {
+		Ehcache cache = cache();
+		List<String> bundles = columnTable.getBundles();
+		for (int i = 0; i < bundles.size(); i++) {
+			Element element = cache.get(bundles.get(i));
+			Map<String, Object> values = (null == element) ? null : (Map<String, Object>) element.getObjectValue();
+			if (null == values) {
+				Element created = new Element(bundles.get(i), new ConcurrentHashMap<String, Object>());
+				Element exist = cache.putIfAbsent(created);
+				values = (Map<String, Object>) ((null == exist) ? created : exist).getObjectValue();
+			}
+			for (int c = 0; c < paths.length; c++) {
+				Object value = columnTable.value(c, i);
+				values.put(paths[c], (null == value) ? ABSENT : value);
+			}
+		}
+	}
+
+	private static boolean contains(Map<String, Object> values, String[] paths) {
+		for (String path : paths) {
+			if (!values.containsKey(path)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/* 物化视图的命中,延迟以及刷新开销 */
+	public static class Statistic extends GsonPropertyObject {
+
+		private String flag;
+
+		/* 从物化行读取的行数 */
+		private long hitCount = 0;
+
+		/* 重新查询的行数 */
+		private long missCount = 0;
+
+		private long refreshCount = 0;
+
+		/* 重新查询累计耗时,毫秒 */
+		private long refreshCost = 0;
+
+		private long lastRefreshCost = 0;
+
+		private Date lastRefreshTime;
+
+		/* 最近一次执行时读取到的最旧物化行的存在时间,毫秒 */
+		private long lastStaleness = 0;
+
+		private long maxStaleness = 0;
+
+		public Statistic(String flag) {
+			this.flag = flag;
+		}
+
+		synchronized void take(long hit, long miss, long staleness) {
+			this.hitCount += hit;
+			this.missCount += miss;
+			this.lastStaleness = staleness;
+			this.maxStaleness = Math.max(this.maxStaleness, staleness);
+		}
+
+		synchronized void refresh(long cost) {
+			this.refreshCount++;
+			this.refreshCost += cost;
+			this.lastRefreshCost = cost;
+			this.lastRefreshTime = new Date();
+		}
+
+		public String getFlag() {
+			return flag;
+		}
+
+		public synchronized long getHitCount() {
+			return hitCount;
+		}
+
+		public synchronized long getMissCount() {
+			return missCount;
+		}
+
+		public synchronized long getRefreshCount() {
+			return refreshCount;
+		}
+
+		public synchronized long getRefreshCost() {
+			return refreshCost;
+		}
+
+		public synchronized long getLastRefreshCost() {
+			return lastRefreshCost;
+		}
+
+		public synchronized Date getLastRefreshTime() {
+			return lastRefreshTime;
+		}
+
+		public synchronized long getLastStaleness() {
+			return lastStaleness;
+		}
+
+		public synchronized long getMaxStaleness() {
+			return maxStaleness;
+		}
+
+	}
+
+}
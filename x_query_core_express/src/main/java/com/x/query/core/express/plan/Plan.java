@@ -1,13 +1,18 @@
 package com.x.query.core.express.plan;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -16,8 +21,10 @@ import javax.persistence.EntityManager;
 import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.SingularAttribute;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 
@@ -29,7 +36,6 @@ import com.x.base.core.container.EntityManagerContainer;
 import com.x.base.core.container.factory.EntityManagerContainerFactory;
 import com.x.base.core.entity.dataitem.ItemPrimitiveType;
 import com.x.base.core.entity.dataitem.ItemStringValueType;
-import com.x.base.core.entity.tools.JpaObjectTools;
 import com.x.base.core.project.config.Config;
 import com.x.base.core.project.gson.GsonPropertyObject;
 import com.x.base.core.project.tools.ListTools;
@@ -54,6 +60,15 @@ public abstract class Plan extends GsonPropertyObject {
 
 	protected static final int SQL_STATEMENT_IN_BATCH = 3000;
 
+	private static final int PATH_DEPTH = 8;
+
+	private static final List<SingularAttribute<Item, String>> PATH_ATTRIBUTES = Arrays.asList(Item_.path0,
+			Item_.path1, Item_.path2, Item_.path3, Item_.path4, Item_.path5, Item_.path6, Item_.path7);
+
+	private static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+	private static final int ACCESS_TIMEOUT_SECONDS = 300;
+
 	public Runtime runtime;
 
 	public SelectEntries selectList = new SelectEntries();
@@ -88,6 +103,9 @@ public abstract class Plan extends GsonPropertyObject {
 
 	public Integer count;
 
+	/* 物化模式下的视图标识,为空时每次都重新查询,不输出 */
+	public transient String materializeFlag;
+
 	private Table order(Table table) {
 		Comparator<Row> comparator = new Comparator<Row>() {
 			@SuppressWarnings({ "rawtypes", "unchecked" })
@@ -210,22 +228,7 @@ public abstract class Plan extends GsonPropertyObject {
 			}
 
 			final Table fillTable = this.concreteTable(bundles);
-			List<CompletableFuture<Void>> futures = new TreeList<>();
-			for (List<String> _part_bundles : ListTools.batch(bundles, SQL_STATEMENT_IN_BATCH)) {
-				for (SelectEntry selectEntry : this.selectList) {
-					CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-						try {
-							this.fillSelectEntry(emc, _part_bundles, selectEntry, fillTable);
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
-					});
-					futures.add(future);
-				}
-			}
-			for (CompletableFuture<Void> future : futures) {
-				future.get(300, TimeUnit.SECONDS);
-			}
+			this.fill(bundles, this.selectList, fillTable);
 			Table table = this.order(fillTable);
 			/* 新增测试 */
 			if (!this.selectList.emptyColumnCode()) {
@@ -263,8 +266,7 @@ public abstract class Plan extends GsonPropertyObject {
 						text.append("}");
 						engine.eval(text.toString());
 						for (ExtractObject extractObject : extractObjects) {
-							table.get(extractObject.getBundle()).put(extractObject.getColumn(),
-									extractObject.getValue());
+							extractObject.getEntry().put(extractObject.getColumn(), extractObject.getValue());
 						}
 					}
 				}
@@ -353,22 +355,7 @@ public abstract class Plan extends GsonPropertyObject {
 			}
 			TreeList<String> os = new TreeList<>();
 			final Table fillTable = this.concreteTable(bundles);
-			List<CompletableFuture<Void>> futures = new TreeList<>();
-			for (List<String> _part_bundles : ListTools.batch(bundles, SQL_STATEMENT_IN_BATCH)) {
-				for (SelectEntry selectEntry : this.orderList) {
-					CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-						try {
-							this.fillSelectEntry(emc, _part_bundles, selectEntry, fillTable);
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
-					});
-					futures.add(future);
-				}
-			}
-			for (CompletableFuture<Void> future : futures) {
-				future.get(300, TimeUnit.SECONDS);
-			}
+			this.fill(bundles, this.orderList, fillTable);
 			Table table = this.order(fillTable);
 			if (null == group) {
 				for (Row row : table) {
@@ -435,107 +422,211 @@ public abstract class Plan extends GsonPropertyObject {
 		return table;
 	}
 
-	private void fillSelectEntry(EntityManagerContainer emc, List<String> bundles, SelectEntry selectEntry, Table table)
-			throws Exception {
-		/* oracle 将empty string 自动转换成null,需要判断 */
-		EntityManager em = emc.get(Item.class);
-		CriteriaBuilder cb = em.getCriteriaBuilder();
-		CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
-		Root<Item> root = cq.from(Item.class);
-		Predicate p = cb.isMember(root.get(Item_.bundle), cb.literal(bundles));
-		String[] paths = StringUtils.split(selectEntry.path, ".");
-		if ((paths.length > 0) && StringUtils.isNotEmpty(paths[0])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path0), paths[0]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path0)), cb.equal(root.get(Item_.path0), "")));
-		}
-		if ((paths.length > 1) && StringUtils.isNotEmpty(paths[1])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path1), paths[1]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path1)), cb.equal(root.get(Item_.path1), "")));
-		}
-		if ((paths.length > 2) && StringUtils.isNotEmpty(paths[2])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path2), paths[2]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path2)), cb.equal(root.get(Item_.path2), "")));
-		}
-		if ((paths.length > 3) && StringUtils.isNotEmpty(paths[3])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path3), paths[3]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path3)), cb.equal(root.get(Item_.path3), "")));
-		}
-		if ((paths.length > 4) && StringUtils.isNotEmpty(paths[4])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path4), paths[4]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path4)), cb.equal(root.get(Item_.path4), "")));
-		}
-		if ((paths.length > 5) && StringUtils.isNotEmpty(paths[5])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path5), paths[5]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path5)), cb.equal(root.get(Item_.path5), "")));
-		}
-		if ((paths.length > 6) && StringUtils.isNotEmpty(paths[6])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path6), paths[6]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path6)), cb.equal(root.get(Item_.path6), "")));
-		}
-		if ((paths.length > 7) && StringUtils.isNotEmpty(paths[7])) {
-			p = cb.and(p, cb.equal(root.get(Item_.path7), paths[7]));
-		} else {
-			p = cb.and(p, cb.or(cb.isNull(root.get(Item_.path7)), cb.equal(root.get(Item_.path7), "")));
-		}
-		cq.multiselect(root.get(Item_.bundle), root.get(Item_.itemPrimitiveType), root.get(Item_.itemStringValueType),
-				root.get(Item_.stringShortValue), root.get(Item_.stringLongValue), root.get(Item_.dateValue),
-				root.get(Item_.timeValue), root.get(Item_.dateTimeValue), root.get(Item_.booleanValue),
-				root.get(Item_.numberValue)).where(p);
-		List<Tuple> list = em.createQuery(cq).getResultList();
-		Row row = null;
-		for (Tuple o : list) {
-			row = table.get(Objects.toString(o.get(0)));
-			switch (ItemPrimitiveType.valueOf(Objects.toString(o.get(1)))) {
-			case s:
-				switch (ItemStringValueType.valueOf(Objects.toString(o.get(2)))) {
-				case s:
-					if (null != o.get(3)) {
-						if ((null != o.get(4)) && StringUtils.isNotEmpty(Objects.toString(o.get(4)))) {
-							row.put(selectEntry.getColumn(), Objects.toString(o.get(4)));
-						} else {
-							row.put(selectEntry.getColumn(), Objects.toString(o.get(3)));
-						}
-					}
-					break;
-				case d:
-					if (null != o.get(5)) {
-						row.put(selectEntry.getColumn(), JpaObjectTools.confirm((Date) o.get(5)));
-					}
-					break;
-				case t:
-					if (null != o.get(6)) {
-						row.put(selectEntry.getColumn(), JpaObjectTools.confirm((Date) o.get(6)));
+	/**
+	 * 按批次填充列值.<br/>
+	 * 每批bundle只执行一次查询,取得所有列对应路径的值,在EntityManagerContainer分段查询的有界线程池中执行,每个批次使用独立的EntityManager.
+	 * 超时或者出错时取消其余批次.
+	 */
+	private void fill(List<String> bundles, List<SelectEntry> selectEntries, Table table) throws Exception {
+		List<SelectEntry> entries = ListTools.trim(selectEntries, true, false);
+		if (entries.isEmpty() || bundles.isEmpty()) {
+			return;
+		}
+		String[] columns = new String[entries.size()];
+		String[] paths = new String[entries.size()];
+		for (int i = 0; i < entries.size(); i++) {
+			columns[i] = entries.get(i).getColumn();
+			paths[i] = pathKey(entries.get(i));
+		}
+		Map<String, Row> rows = new HashMap<>(table.size() * 2);
+		for (Row row : table) {
+			rows.put(row.bundle, row);
+		}
+		List<String> fetches = bundles;
+		MaterializedRows.Statistic statistic = null;
+		if (StringUtils.isNotEmpty(this.materializeFlag)) {
+			/* 物化模式下只查询没有物化行或者已经被清除的bundle */
+			statistic = MaterializedRows.statistic(this.materializeFlag);
+			fetches = MaterializedRows.take(bundles, columns, paths, rows, statistic);
+			if (fetches.isEmpty()) {
+				return;
+			}
+		}
+		long start = System.currentTimeMillis();
+		long deadline = start + ACCESS_TIMEOUT_SECONDS * 1000L;
+		List<Future<ColumnTable>> futures = new ArrayList<>();
+		try {
+			for (List<String> part : ListTools.batch(fetches, SQL_STATEMENT_IN_BATCH)) {
+				futures.add(EntityManagerContainer.fetchExecutor().submit(() -> this.pivot(part, columns, paths)));
+			}
+			for (Future<ColumnTable> future : futures) {
+				long wait = deadline - System.currentTimeMillis();
+				if (wait <= 0) {
+					throw new TimeoutException("access plan timeout after " + ACCESS_TIMEOUT_SECONDS + " seconds.");
+				}
+				ColumnTable columnTable = future.get(wait, TimeUnit.MILLISECONDS);
+				columnTable.fill(rows);
+				if (null != statistic) {
+					MaterializedRows.put(columnTable, paths);
+				}
+			}
+		} catch (Exception e) {
+			for (Future<ColumnTable> future : futures) {
+				future.cancel(true);
+			}
+			throw e;
+		}
+		if (null != statistic) {
+			statistic.refresh(System.currentTimeMillis() - start);
+		}
+	}
+
+	/* 路径最多8级,与Item的path0-path7对应 */
+	static String pathKey(SelectEntry entry) {
+		String[] paths = StringUtils.split(StringUtils.trimToEmpty(entry.path), ".");
+		return StringUtils.join(paths, ".", 0, Math.min(paths.length, PATH_DEPTH));
+	}
+
+	/* 一次查询取得一批bundle所有列的值,按路径分配到对应的列 */
+	private ColumnTable pivot(List<String> bundles, String[] columns, String[] paths) throws Exception {
+		Map<String, List<Integer>> pathColumns = new HashMap<>();
+		for (int i = 0; i < paths.length; i++) {
+			pathColumns.computeIfAbsent(paths[i], k -> new ArrayList<>()).add(i);
+		}
+		ColumnTable columnTable = new ColumnTable(bundles, columns);
+		EntityManager em = EntityManagerContainerFactory.instance().createEntityManager(Item.class);
+		try {
+			CriteriaBuilder cb = em.getCriteriaBuilder();
+			CriteriaQuery<Tuple> cq = cb.createQuery(Tuple.class);
+			Root<Item> root = cq.from(Item.class);
+			Predicate p = cb.isMember(root.get(Item_.bundle), cb.literal(bundles));
+			p = cb.and(p, this.pathPredicate(cb, root, pathColumns.keySet()));
+			cq.multiselect(root.get(Item_.bundle), root.get(Item_.path0), root.get(Item_.path1),
+					root.get(Item_.path2), root.get(Item_.path3), root.get(Item_.path4), root.get(Item_.path5),
+					root.get(Item_.path6), root.get(Item_.path7), root.get(Item_.itemPrimitiveType),
+					root.get(Item_.itemStringValueType), root.get(Item_.stringShortValue),
+					root.get(Item_.stringLongValue), root.get(Item_.dateValue), root.get(Item_.timeValue),
+					root.get(Item_.dateTimeValue), root.get(Item_.booleanValue), root.get(Item_.numberValue))
+					.where(p);
+			List<Tuple> list = em.createQuery(cq)
+					.setHint(QUERY_TIMEOUT_HINT, ACCESS_TIMEOUT_SECONDS * 1000).getResultList();
+			StringBuilder builder = new StringBuilder();
+			for (Tuple o : list) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedException("access plan canceled.");
+				}
+				int position = columnTable.position(Objects.toString(o.get(0)));
+				if (position < 0) {
+					continue;
+				}
+				List<Integer> matches = pathColumns.get(pathKey(builder, o));
+				if (null != matches) {
+					for (Integer column : matches) {
+						decode(columnTable, column, position, o);
 					}
-					break;
-				case dt:
-					if (null != o.get(7)) {
-						row.put(selectEntry.getColumn(), JpaObjectTools.confirm((Date) o.get(7)));
+				}
+			}
+		} finally {
+			em.close();
+		}
+		return columnTable;
+	}
+
+	/**
+	 * 每个不同的路径逐级匹配,与单列查询的条件一致,多个路径之间用or连接.<br/>
+	 * oracle 将empty string 自动转换成null,需要判断
+	 */
+	private Predicate pathPredicate(CriteriaBuilder cb, Root<Item> root, Collection<String> paths) {
+		List<Predicate> ps = new ArrayList<>();
+		for (String[] levels : pathLevels(paths)) {
+			Predicate[] os = new Predicate[PATH_DEPTH];
+			for (int i = 0; i < PATH_DEPTH; i++) {
+				Path<String> path = root.get(PATH_ATTRIBUTES.get(i));
+				if (StringUtils.isNotEmpty(levels[i])) {
+					os[i] = cb.equal(path, levels[i]);
+				} else {
+					os[i] = cb.or(cb.isNull(path), cb.equal(path, ""));
+				}
+			}
+			ps.add(cb.and(os));
+		}
+		return cb.or(ps.toArray(new Predicate[ps.size()]));
+	}
+
+	/* 将路径拆分为path0-path7每一级的值,没有的级别为null */
+	static List<String[]> pathLevels(Collection<String> paths) {
+		List<String[]> list = new ArrayList<>();
+		for (String path : paths) {
+			String[] levels = new String[PATH_DEPTH];
+			String[] parts = StringUtils.split(path, ".");
+			System.arraycopy(parts, 0, levels, 0, Math.min(parts.length, PATH_DEPTH));
+			list.add(levels);
+		}
+		return list;
+	}
+
+	/* 路径值用.连接,去除尾部空的部分,与selectEntry.path的格式一致 */
+	static String pathKey(StringBuilder builder, Tuple o) {
+		builder.setLength(0);
+		int length = 0;
+		for (int i = 1; i <= PATH_DEPTH; i++) {
+			String path = (String) o.get(i);
+			if (i > 1) {
+				builder.append(".");
+			}
+			if (StringUtils.isNotEmpty(path)) {
+				builder.append(path);
+				length = builder.length();
+			}
+		}
+		builder.setLength(length);
+		return builder.toString();
+	}
+
+	static void decode(ColumnTable columnTable, int column, int position, Tuple o) throws Exception {
+		switch (ItemPrimitiveType.valueOf(Objects.toString(o.get(9)))) {
+		case s:
+			switch (ItemStringValueType.valueOf(Objects.toString(o.get(10)))) {
+			case s:
+				if (null != o.get(11)) {
+					if ((null != o.get(12)) && StringUtils.isNotEmpty(Objects.toString(o.get(12)))) {
+						columnTable.putString(column, position, Objects.toString(o.get(12)));
+					} else {
+						columnTable.putString(column, position, Objects.toString(o.get(11)));
 					}
-					break;
-				default:
-					break;
 				}
 				break;
-			case b:
-				if (null != o.get(8)) {
-					row.put(selectEntry.getColumn(), (Boolean) o.get(8));
+			case d:
+				if (null != o.get(13)) {
+					columnTable.putDate(column, position, (Date) o.get(13));
 				}
 				break;
-			case n:
-				if (null != o.get(9)) {
-					row.put(selectEntry.getColumn(), (Number) o.get(9));
+			case t:
+				if (null != o.get(14)) {
+					columnTable.putDate(column, position, (Date) o.get(14));
+				}
+				break;
+			case dt:
+				if (null != o.get(15)) {
+					columnTable.putDate(column, position, (Date) o.get(15));
 				}
 				break;
 			default:
 				break;
 			}
+			break;
+		case b:
+			if (null != o.get(16)) {
+				columnTable.putBoolean(column, position, (Boolean) o.get(16));
+			}
+			break;
+		case n:
+			if (null != o.get(17)) {
+				columnTable.putNumber(column, position, ((Number) o.get(17)).doubleValue());
+			}
+			break;
+		default:
+			break;
 		}
 	}
 
@@ -0,0 +1,141 @@
+package com.x.query.core.express.plan;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.x.base.core.entity.dataitem.ItemPrimitiveType;
+import com.x.base.core.entity.dataitem.ItemStringValueType;
+import com.x.base.core.project.tools.ListTools;
+
+/**
+ * 按批次一次查询所有列时,路径条件,路径匹配和按列填充的测试.
+ */
+public class TestClient {
+
+	private SelectEntry entry(String column, String path) {
+		SelectEntry entry = new SelectEntry();
+		entry.column = column;
+		entry.path = path;
+		return entry;
+	}
+
+	/* 列的路径去除空的级别,最多8级 */
+	@Test
+	public void testEntryPathKey() {
+		Assert.assertEquals("a.b", Plan.pathKey(entry("c", " a..b ")));
+		Assert.assertEquals("", Plan.pathKey(entry("c", null)));
+		Assert.assertEquals("1.2.3.4.5.6.7.8", Plan.pathKey(entry("c", "1.2.3.4.5.6.7.8.9")));
+	}
+
+	/* 每个路径的每一级都参与查询条件,没有的级别为空 */
+	@Test
+	public void testPathLevels() {
+		List<String[]> list = Plan.pathLevels(ListTools.toList("a.b", "c", ""));
+		Assert.assertEquals(3, list.size());
+		Assert.assertArrayEquals(new String[] { "a", "b", null, null, null, null, null, null }, list.get(0));
+		Assert.assertArrayEquals(new String[] { "c", null, null, null, null, null, null, null }, list.get(1));
+		Assert.assertArrayEquals(new String[8], list.get(2));
+	}
+
+	/* 查询结果的路径与列的路径格式一致,oracle的null与空字符串相同处理 */
+	@Test
+	public void testTuplePathKey() {
+		StringBuilder builder = new StringBuilder();
+		Assert.assertEquals("a.b", Plan.pathKey(builder, tuple("b1", "a", "b", "", null, null, null, null, null)));
+		Assert.assertEquals("a", Plan.pathKey(builder, tuple("b1", "a", null, null, null, null, null, null, null)));
+		Assert.assertEquals("", Plan.pathKey(builder, tuple("b1", null, null, null, null, null, null, null, null)));
+	}
+
+	/* 按类型解码后填充到对应的行,没有取到值的列不写入 */
+	@Test
+	public void testDecodeAndFill() throws Exception {
+		List<String> bundles = ListTools.toList("b1", "b2", "b3");
+		ColumnTable columnTable = new ColumnTable(bundles, new String[] { "title", "amount", "done", "date" });
+		Date date = new Date(1000000L);
+		Plan.decode(columnTable, 0, columnTable.position("b1"), value(ItemPrimitiveType.s, ItemStringValueType.s,
+				"short", "long title", null, null));
+		Plan.decode(columnTable, 0, columnTable.position("b2"), value(ItemPrimitiveType.s, ItemStringValueType.s,
+				"short", "", null, null));
+		Plan.decode(columnTable, 1, columnTable.position("b1"), value(ItemPrimitiveType.n, null, null, null, null,
+				12));
+		Plan.decode(columnTable, 2, columnTable.position("b2"), value(ItemPrimitiveType.b, null, null, null, true,
+				null));
+		Plan.decode(columnTable, 3, columnTable.position("b3"), value(ItemPrimitiveType.s, ItemStringValueType.dt,
+				null, null, null, null, date));
+		Assert.assertEquals(-1, columnTable.position("b4"));
+		Map<String, Row> rows = new HashMap<>();
+		for (String bundle : bundles) {
+			rows.put(bundle, new Row(bundle));
+		}
+		columnTable.fill(rows);
+		Assert.assertEquals("long title", rows.get("b1").find("title"));
+		Assert.assertEquals(12d, rows.get("b1").find("amount"));
+		Assert.assertNull(rows.get("b1").find("done"));
+		Assert.assertEquals("short", rows.get("b2").find("title"));
+		Assert.assertEquals(true, rows.get("b2").find("done"));
+		Assert.assertEquals(date, rows.get("b3").find("date"));
+		Assert.assertEquals(1, rows.get("b3").data.size());
+	}
+
+	private Tuple value(ItemPrimitiveType primitiveType, ItemStringValueType stringValueType, String shortValue,
+			String longValue, Boolean booleanValue, Number numberValue) {
+		return value(primitiveType, stringValueType, shortValue, longValue, booleanValue, numberValue, null);
+	}
+
+	/* 与Plan.pivot中multiselect的顺序一致 */
+	private Tuple value(ItemPrimitiveType primitiveType, ItemStringValueType stringValueType, String shortValue,
+			String longValue, Boolean booleanValue, Number numberValue, Date dateTimeValue) {
+		return tuple("b", null, null, null, null, null, null, null, null, primitiveType, stringValueType, shortValue,
+				longValue, null, null, dateTimeValue, booleanValue, numberValue);
+	}
+
+	private Tuple tuple(Object... values) {
+		return new Tuple() {
+
+			@Override
+			public <X> X get(TupleElement<X> tupleElement) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public <X> X get(String alias, Class<X> type) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public Object get(String alias) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public <X> X get(int i, Class<X> type) {
+				return type.cast(values[i]);
+			}
+
+			@Override
+			public Object get(int i) {
+				return values[i];
+			}
+
+			@Override
+			public Object[] toArray() {
+				return values;
+			}
+
+			@Override
+			public List<TupleElement<?>> getElements() {
+				return new ArrayList<>();
+			}
+		};
+	}
+
+}
@@ -23,6 +23,7 @@ import com.x.base.core.entity.dataitem.ItemCategory;
 import com.x.base.core.project.cache.ApplicationCache;
 import com.x.base.core.project.config.StorageMapping;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
+import com.x.base.core.project.extract.TextExtractor;
 import com.x.base.core.project.gson.GsonPropertyObject;
 import com.x.base.core.project.http.ActionResult;
 import com.x.base.core.project.http.EffectivePerson;
@@ -40,7 +41,6 @@ import com.x.query.core.entity.neural.Model;
 import com.x.query.core.entity.neural.OutValue;
 import com.x.query.service.processing.Business;
 import com.x.query.service.processing.ThisApplication;
-import com.x.query.service.processing.helper.ExtractTextHelper;
 import com.x.query.service.processing.helper.LanguageProcessingHelper;
 
 import net.sf.ehcache.Element;
@@ -124,8 +124,14 @@ class ActionListCalculateWithWork extends BaseAction {
 			if (o.getLength() < MAX_ATTACHMENT_BYTE_LENGTH) {
 				mapping = ThisApplication.context().storageMappings().get(Attachment.class, o.getStorage());
 				if (null != mapping) {
-					o.dumpContent(mapping);
-					text.append(ExtractTextHelper.extract(o.getBytes(), o.getName(), true, true, true, false));
+					try {
+						text.append(
+								StringUtils.defaultString(TextExtractor.extract(o, mapping, true, true, true, false)));
+					} catch (Exception e) {
+						/* 抽取失败或超时的附件跳过,不影响计算 */
+						logger.warn("extract attachment text error, attachment:{}, name:{}, message:{}.", o.getId(),
+								o.getName(), e.getMessage());
+					}
 				}
 			}
 		}
@@ -54,6 +54,7 @@ import com.x.base.core.entity.dataitem.DataItemConverter;
 import com.x.base.core.entity.dataitem.ItemCategory;
 import com.x.base.core.project.config.StorageMapping;
 import com.x.base.core.project.exception.ExceptionEntityNotExist;
+import com.x.base.core.project.extract.TextExtractor;
 import com.x.base.core.project.gson.XGsonBuilder;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
@@ -73,7 +74,6 @@ import com.x.query.core.entity.neural.Model;
 import com.x.query.core.entity.neural.OutText;
 import com.x.query.service.processing.Business;
 import com.x.query.service.processing.ThisApplication;
-import com.x.query.service.processing.helper.ExtractTextHelper;
 import com.x.query.service.processing.helper.LanguageProcessingHelper;
 
 public class Generate {
@@ -446,8 +446,14 @@ public class Generate {
 				StorageMapping mapping = ThisApplication.context().storageMappings().get(Attachment.class,
 						att.getStorage());
 				if (null != mapping) {
-					att.dumpContent(mapping);
-					text.append(ExtractTextHelper.extract(att.getBytes(), att.getName(), true, true, true, false));
+					try {
+						text.append(StringUtils
+								.defaultString(TextExtractor.extract(att, mapping, true, true, true, false)));
+					} catch (Exception e) {
+						/* 抽取失败或超时的附件跳过,不影响条目生成 */
+						logger.warn("extract attachment text error, attachment:{}, name:{}, message:{}.", att.getId(),
+								att.getName(), e.getMessage());
+					}
 				}
 			}
 		}
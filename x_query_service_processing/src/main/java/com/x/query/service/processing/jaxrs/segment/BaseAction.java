@@ -8,6 +8,7 @@ import com.x.base.core.entity.StorageObject;
 import com.x.base.core.entity.annotation.CheckPersistType;
 import com.x.base.core.project.config.Config;
 import com.x.base.core.project.config.StorageMapping;
+import com.x.base.core.project.extract.TextExtractor;
 import com.x.base.core.project.jaxrs.StandardJaxrsAction;
 import com.x.base.core.project.logger.Logger;
 import com.x.base.core.project.logger.LoggerFactory;
@@ -120,17 +121,17 @@ abstract class BaseAction extends StandardJaxrsAction {
 							storageObject.getStorage());
 					if (null != mapping) {
 						/* 忽略设置强制不索引图片 */
-						return ExtractTextTools.extract(storageObject.readContent(mapping), storageObject.getName(),
+						return StringUtils.defaultString(TextExtractor.extract(storageObject, mapping,
 								Config.query().getExtractOffice(), Config.query().getExtractPdf(),
-								Config.query().getExtractText(), false);
+								Config.query().getExtractText(), false));
 					} else {
 						logger.print(
 								"storageMapping is null can not extract storageObject text, storageObject:{}, name:{}.",
 								storageObject.getId(), storageObject.getName());
 					}
 				} catch (Exception e) {
-					logger.print("error extract attachment text, storageObject:{}, name:{}.", storageObject.getId(),
-							storageObject.getName());
+					logger.print("error extract attachment text, storageObject:{}, name:{}, message:{}.",
+							storageObject.getId(), storageObject.getName(), e.getMessage());
 				}
 			}
 		} else {
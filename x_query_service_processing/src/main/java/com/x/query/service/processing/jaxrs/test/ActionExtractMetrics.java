@@ -0,0 +1,21 @@
+package com.x.query.service.processing.jaxrs.test;
+
+import com.x.base.core.project.extract.ExtractMetrics;
+import com.x.base.core.project.extract.TextExtractor;
+import com.x.base.core.project.gson.XGsonBuilder;
+import com.x.base.core.project.http.ActionResult;
+import com.x.base.core.project.http.EffectivePerson;
+
+class ActionExtractMetrics extends BaseAction {
+
+	ActionResult<Wo> execute(EffectivePerson effectivePerson) throws Exception {
+		ActionResult<Wo> result = new ActionResult<>();
+		Wo wo = XGsonBuilder.convert(TextExtractor.metrics(), Wo.class);
+		result.setData(wo);
+		return result;
+	}
+
+	public static class Wo extends ExtractMetrics {
+	}
+
+}
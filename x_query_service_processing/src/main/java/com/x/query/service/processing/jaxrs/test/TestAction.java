@@ -118,4 +118,21 @@ public class TestAction extends StandardJaxrsAction {
 
 	}
 
+	@JaxrsMethodDescribe(value = "文字转换的执行情况,包括吞吐量和失败数量.", action = ActionExtractMetrics.class)
+	@GET
+	@Path("extract/metrics")
+	@Produces(HttpMediaType.APPLICATION_JSON_UTF_8)
+	@Consumes(MediaType.APPLICATION_JSON)
+	public void extractMetrics(@Suspended final AsyncResponse asyncResponse, @Context HttpServletRequest request) {
+		ActionResult<ActionExtractMetrics.Wo> result = new ActionResult<>();
+		EffectivePerson effectivePerson = this.effectivePerson(request);
+		try {
+			result = new ActionExtractMetrics().execute(effectivePerson);
+		} catch (Exception e) {
+			logger.error(e, effectivePerson, request, null);
+			result.error(e);
+		}
+		asyncResponse.resume(ResponseFactory.getEntityTagActionResultResponse(request, result));
+	}
+
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.x.teamwork.assemble.control;
 import com.x.base.core.project.Context;
 import com.x.base.core.project.message.MessageConnector;
 import com.x.teamwork.assemble.control.queue.QueueBatchOperation;
+import com.x.teamwork.assemble.control.queue.TaskDeadlineQueue;
 import com.x.teamwork.assemble.control.service.SystemConfigPersistService;
 import com.x.teamwork.assemble.control.timertask.Timertask_BatchOperationTask;
 import com.x.teamwork.assemble.control.timertask.Timertask_CheckAllTaskOverTime;
@@ -12,6 +13,7 @@ public class ThisApplication {
 	
 	protected static Context context;
 	public static QueueBatchOperation queueBatchOperation;
+	public static TaskDeadlineQueue taskDeadlineQueue = new TaskDeadlineQueue();
 	
 	public static Context context() {
 		return context;
@@ -31,8 +33,9 @@ public class ThisApplication {
 			//每天凌晨把所有项目的所有工作任务的权限和review信息核对一次
 			context.schedule( Timertask_RefreshAllTaskReview.class, "0 0 2 * * ?" );
 			
-			//每30分钟核对一次所有的工作任务，判断工作任务是否已经超时
-			context.schedule( Timertask_CheckAllTaskOverTime.class, "0 0/30 * * * ?" );
+			//每5分钟将截止时间即将到达的工作任务放入截止时间队列，到期时标识超时并发送提醒
+			taskDeadlineQueue.start();
+			context.schedule( Timertask_CheckAllTaskOverTime.class, "0 0/5 * * * ?" );
 			
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -41,6 +44,7 @@ public class ThisApplication {
 
 	public static void destroy() {
 		try {
+			taskDeadlineQueue.stop();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -1,13 +1,16 @@
 package com.x.teamwork.assemble.control.factory;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -16,6 +19,8 @@ import com.x.teamwork.assemble.control.AbstractFactory;
 import com.x.teamwork.assemble.control.Business;
 import com.x.teamwork.core.entity.Task;
 import com.x.teamwork.core.entity.TaskDetail;
+import com.x.teamwork.core.entity.TaskListRele;
+import com.x.teamwork.core.entity.TaskListRele_;
 import com.x.teamwork.core.entity.Task_;
 
 
@@ -64,6 +69,41 @@ public class TaskFactory extends AbstractFactory {
 		return em.createQuery(cq.where(p)).getResultList();
 	}
 	
+	/**
+	 * 认领工作任务的超时标识，截止时间未修改并且未标识超时时才能认领成功
+	 * 多个节点同时处理同一个截止时间时只有一个节点认领成功，需要在事务中调用
+	 * @param id
+	 * @param endTime 放入队列时的截止时间
+	 * @return 是否认领成功
+	 * @throws Exception
+	 */
+	public boolean claimOvertime( String id, Date endTime ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(Task.class);
+		Query query = em.createQuery( "update " + Task.class.getName() + " o set o.overtime = true"
+				+ " where o.id = :id and o.endTime = :endTime and ( o.overtime is null or o.overtime = false )" );
+		query.setParameter( "id", id );
+		query.setParameter( "endTime", endTime );
+		return query.executeUpdate() > 0;
+	}
+
+	/**
+	 * 认领工作任务的即将超时提醒，截止时间未修改并且该截止时间还没有发送过提醒时才能认领成功
+	 * 多个节点同时处理同一个截止时间时只有一个节点认领成功，需要在事务中调用
+	 * @param id
+	 * @param endTime 放入队列时的截止时间
+	 * @return 是否认领成功
+	 * @throws Exception
+	 */
+	public boolean claimWarn( String id, Date endTime ) throws Exception {
+		EntityManager em = this.entityManagerContainer().get(Task.class);
+		Query query = em.createQuery( "update " + Task.class.getName() + " o set o.warnedEndTime = :endTime"
+				+ " where o.id = :id and o.endTime = :endTime"
+				+ " and ( o.warnedEndTime is null or o.warnedEndTime <> :endTime )" );
+		query.setParameter( "id", id );
+		query.setParameter( "endTime", endTime );
+		return query.executeUpdate() > 0;
+	}
+	
 	/**
 	 * 根据类别列示Task实体ID信息列表
 	 * @param application
@@ -163,4 +203,48 @@ public class TaskFactory extends AbstractFactory {
 		cq.select( root.get(Task_.id ) );
 		return em.createQuery(cq.where(p)).getResultList();
 	}
+
+	/**
+	 * 根据工作任务列表ID查询列表中所有的工作任务信息，通过关联表子查询一次查出，不再逐条查询
+	 * @param taskListId
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Task> listWithTaskListId( String taskListId ) throws Exception {
+		if( StringUtils.isEmpty( taskListId ) ){
+			return new ArrayList<Task>();
+		}
+		EntityManager em = this.entityManagerContainer().get(Task.class);
+		EntityManager em_rele = this.entityManagerContainer().get(TaskListRele.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Task> cq = cb.createQuery(Task.class);
+		Root<Task> root = cq.from(Task.class);
+		//每个实体单独一个持久化单元，关联表需要从自己的元模型中取得
+		Subquery<TaskListRele> subquery = cq.subquery(TaskListRele.class);
+		Root<TaskListRele> root_rele = subquery.from( em_rele.getMetamodel().entity( TaskListRele.class ) );
+		subquery.select( root_rele );
+		subquery.where( cb.and( cb.equal( root_rele.get( TaskListRele_.taskListId ), taskListId ), 
+				cb.equal( root_rele.get( TaskListRele_.taskId ), root.get( Task_.id ) ) ) );
+		return em.createQuery(cq.select(root).where( cb.exists( subquery ) )).getResultList();
+	}
+	
+	/**
+	 * 查询截止时间在指定时间之前并且还未标识超时的工作任务信息列表
+	 * @param date
+	 * @return
+	 * @throws Exception
+	 */
+	public List<Task> listNotOvertimeWithEndTimeBefore( Date date ) throws Exception {
+		if( date == null ){
+			return new ArrayList<Task>();
+		}
+		EntityManager em = this.entityManagerContainer().get(Task.class);
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		CriteriaQuery<Task> cq = cb.createQuery(Task.class);
+		Root<Task> root = cq.from(Task.class);
+		Predicate p = cb.lessThan( root.get( Task_.endTime ), date );
+		p = cb.and( p, cb.or( cb.isNull( root.get( Task_.overtime ) ), cb.isFalse( root.get( Task_.overtime ) ) ) );
+		cq.orderBy( cb.asc( root.get( Task_.endTime ) ) );
+		return em.createQuery(cq.where(p)).getResultList();
+	}
 }
@@ -1,5 +1,6 @@
 package com.x.teamwork.assemble.control.factory;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -10,6 +11,7 @@ import javax.persistence.criteria.Root;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.x.base.core.project.tools.ListTools;
 import com.x.teamwork.assemble.control.AbstractFactory;
 import com.x.teamwork.assemble.control.Business;
 import com.x.teamwork.core.entity.TaskTag;
@@ -121,4 +123,29 @@ public class TaskTagFactory extends AbstractFactory {
 		return em.createQuery(cq.where(p)).getResultList();
 	}
 	
+	/**
+	 * 根据多个工作任务ID和人员查询标签关联信息，按每批500个ID查询
+	 * @param taskIds
+	 * @param person
+	 * @return
+	 * @throws Exception
+	 */
+	public List<TaskTagRele> listReleWithTasksAndPerson( List<String> taskIds, String person ) throws Exception {
+		List<TaskTagRele> list = new ArrayList<>();
+		if( ListTools.isEmpty( taskIds ) ) {
+			return list;
+		}
+		EntityManager em = this.entityManagerContainer().get( TaskTagRele.class );
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		for( List<String> ids : ListTools.batch( taskIds, 500 ) ) {
+			CriteriaQuery<TaskTagRele> cq = cb.createQuery(TaskTagRele.class);
+			Root<TaskTagRele> root = cq.from(TaskTagRele.class);
+			Predicate p = root.get( TaskTagRele_.taskId ).in( ids );
+			p = CriteriaBuilderTools.predicate_and( cb, p, cb.equal( root.get( TaskTagRele_.owner ), person ) );
+			cq.orderBy( cb.asc( root.get( TaskTagRele_.createTime ) )  );
+			list.addAll( em.createQuery(cq.where(p)).getResultList() );
+		}
+		return list;
+	}
+	
 }
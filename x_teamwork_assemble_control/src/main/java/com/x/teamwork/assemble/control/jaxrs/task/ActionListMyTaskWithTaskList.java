@@ -2,6 +2,7 @@ package com.x.teamwork.assemble.control.jaxrs.task;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -56,8 +57,10 @@ public class ActionListMyTaskWithTaskList extends BaseAction {
 					if( ListTools.isNotEmpty( taskList )) {
 						total = Long.parseLong( taskList.size() + "" );
 						wos = Wo.copier.copy(taskList);
+						//一次查询所有任务的标签信息
+						Map<String, List<TaskTag>> tagMap = taskTagQueryService.listWithTasksAndPerson(effectivePerson, ListTools.extractField( wos, Task.id_FIELDNAME, String.class, true, true ) );
 						for( Wo wo : wos ) {
-							tags = taskTagQueryService.listWithTaskAndPerson(effectivePerson, wo );
+							tags = tagMap.get( wo.getId() );
 							if( ListTools.isNotEmpty( tags )) {
 								wo.setTags( WoTaskTag.copier.copy( tags ));
 							}
@@ -0,0 +1,223 @@
+package com.x.teamwork.assemble.control.queue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.project.logger.Logger;
+import com.x.base.core.project.logger.LoggerFactory;
+import com.x.base.core.project.tools.ListTools;
+import com.x.teamwork.assemble.control.Business;
+import com.x.teamwork.assemble.control.service.MessageFactory;
+import com.x.teamwork.core.entity.Task;
+
+/**
+ * 工作任务截止时间队列.<br/>
+ * 定时任务只查询截止时间在近期内并且未超时的工作任务放入队列,按到期时间排序,到期后批量核对并标识超时、发送提醒,不再扫描所有项目的所有工作任务.<br/>
+ * 同一个工作任务的同一个截止时间只放入一次,截止时间修改后按新的截止时间重新放入,原有的到期后核对截止时间不一致则忽略.<br/>
+ * 多个节点都会放入同一个截止时间,发送前在数据库中按截止时间认领超时标识和提醒标识,同一个提醒只由一个节点发送.
+ */
+public class TaskDeadlineQueue {
+
+	private static Logger logger = LoggerFactory.getLogger( TaskDeadlineQueue.class );
+
+	/* 截止时间之前多久发送即将超时提醒 */
+	public static final long WARN_BEFORE = 1000L * 60 * 30;
+
+	/* 已经到期的标识保留时间,避免重复放入 */
+	private static final long KEEP = 1000L * 60 * 60;
+
+	private static final int TYPE_WARN = 0;
+
+	private static final int TYPE_OVERTIME = 1;
+
+	private final DelayQueue<Deadline> queue = new DelayQueue<>();
+
+	private final Map<String, Long> scheduled = new ConcurrentHashMap<>();
+
+	private volatile Thread worker;
+
+	public synchronized void start() {
+		if( worker != null ) {
+			return;
+		}
+		worker = new Thread( this::run, "teamwork-task-deadline" );
+		worker.setDaemon( true );
+		worker.start();
+	}
+
+	public synchronized void stop() {
+		Thread thread = worker;
+		worker = null;
+		if( thread != null ) {
+			thread.interrupt();
+		}
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	/**
+	 * 将工作任务的即将超时提醒和超时标识放入队列，已经超过截止时间的不再发送即将超时提醒
+	 * @param task
+	 * @param now
+	 * @return 新放入队列的数量
+	 */
+	public int offer( Task task, long now ) {
+		if( task.getEndTime() == null || ( task.getOvertime() != null && task.getOvertime() )) {
+			return 0;
+		}
+		int count = 0;
+		long endTime = task.getEndTime().getTime();
+		if( now < endTime && offer( task.getId(), endTime, endTime - WARN_BEFORE, TYPE_WARN ) ) {
+			count++;
+		}
+		if( offer( task.getId(), endTime, endTime, TYPE_OVERTIME ) ) {
+			count++;
+		}
+		return count;
+	}
+
+	private boolean offer( String taskId, long endTime, long deadline, int type ) {
+		if( scheduled.putIfAbsent( taskId + "#" + type + "#" + endTime, endTime ) != null ) {
+			return false;
+		}
+		queue.offer( new Deadline( taskId, endTime, deadline, type ) );
+		return true;
+	}
+
+	private void run() {
+		long purged = System.currentTimeMillis();
+		while( Thread.currentThread() == worker ) {
+			List<Deadline> list = new ArrayList<>();
+			try {
+				list.add( queue.take() );
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			queue.drainTo( list );
+			try {
+				process( list );
+			} catch ( Exception e ) {
+				logger.error( e );
+			}
+			long now = System.currentTimeMillis();
+			if( now - purged > KEEP ) {
+				purged = now;
+				scheduled.entrySet().removeIf( o -> o.getValue() < now - KEEP );
+			}
+		}
+	}
+
+	/**
+	 * 批量核对到期的工作任务，一次查询所有工作任务，超时标识和提醒标识在一个事务中认领，提交后只发送认领成功的消息
+	 * @param list
+	 * @throws Exception
+	 */
+	private void process( List<Deadline> list ) throws Exception {
+		Map<String, List<Deadline>> map = new HashMap<>();
+		for( Deadline o : list ) {
+			map.computeIfAbsent( o.taskId, k -> new ArrayList<>() ).add( o );
+		}
+		List<Task> warns = new ArrayList<>();
+		List<Task> overtimes = new ArrayList<>();
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business( emc );
+			for( List<String> ids : ListTools.batch( new ArrayList<>( map.keySet() ), 500 ) ) {
+				for( Task task : business.taskFactory().list( ids ) ) {
+					if( task.getEndTime() == null || ( task.getOvertime() != null && task.getOvertime() )) {
+						continue;
+					}
+					boolean overtime = false;
+					boolean warn = false;
+					for( Deadline o : map.get( task.getId() ) ) {
+						//截止时间已经修改的忽略，按新的截止时间放入的记录处理
+						if( o.endTime == task.getEndTime().getTime() ) {
+							overtime = overtime || o.type == TYPE_OVERTIME;
+							warn = warn || o.type == TYPE_WARN;
+						}
+					}
+					if( overtime ) {
+						overtimes.add( task );
+					}else if( warn ) {
+						warns.add( task );
+					}
+				}
+			}
+			//多个节点的队列可能放入了同一个截止时间，在数据库中认领后再发送，只有认领成功的节点发送
+			if( !overtimes.isEmpty() || !warns.isEmpty() ) {
+				emc.beginTransaction( Task.class );
+				overtimes.removeIf( task -> !claim( business, task, true ) );
+				warns.removeIf( task -> !claim( business, task, false ) );
+				emc.commit();
+			}
+		}
+		for( Task task : overtimes ) {
+			send( task, true );
+		}
+		for( Task task : warns ) {
+			send( task, false );
+		}
+		if( !overtimes.isEmpty() ) {
+			logger.info( "TaskDeadlineQueue marked " + overtimes.size() + " tasks overtime." );
+		}
+	}
+
+	private boolean claim( Business business, Task task, boolean overtime ) {
+		try {
+			if( overtime ) {
+				return business.taskFactory().claimOvertime( task.getId(), task.getEndTime() );
+			}
+			return business.taskFactory().claimWarn( task.getId(), task.getEndTime() );
+		} catch ( Exception e ) {
+			logger.error( e );
+			return false;
+		}
+	}
+
+	private void send( Task task, Boolean overtime ) {
+		try {
+			MessageFactory.message_to_teamWorkOverTime( task, overtime );
+		} catch ( Exception e ) {
+			logger.error( e );
+		}
+	}
+
+	private static class Deadline implements Delayed {
+
+		private String taskId;
+
+		private long endTime;
+
+		private long deadline;
+
+		private int type;
+
+		private Deadline( String taskId, long endTime, long deadline, int type ) {
+			this.taskId = taskId;
+			this.endTime = endTime;
+			this.deadline = deadline;
+			this.type = type;
+		}
+
+		@Override
+		public long getDelay( TimeUnit unit ) {
+			return unit.convert( deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS );
+		}
+
+		@Override
+		public int compareTo( Delayed o ) {
+			return Long.compare( deadline, ( (Deadline) o ).deadline );
+		}
+
+	}
+}
@@ -1,6 +1,7 @@
 package com.x.teamwork.assemble.control.service;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -112,7 +113,9 @@ public class TaskListQueryService {
 				if( ListTools.isNotEmpty( taskListIds )) {
 					//看看这些TaskList所关联的所有的TaskId列表
 					taskIds_forTaskList = taskListService.listTaskIdsWithTaskListIds( emc, taskListIds );
-					taskIds_all.removeAll( taskIds_forTaskList );
+					if( ListTools.isNotEmpty( taskIds_forTaskList )) {
+						taskIds_all.removeAll( new HashSet<>( taskIds_forTaskList ) );
+					}
 					if( ListTools.isNotEmpty( taskIds_all )) {
 						//存在未分类的任务
 						hasTaskWithNoList = true;
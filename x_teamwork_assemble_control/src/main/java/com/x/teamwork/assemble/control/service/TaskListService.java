@@ -1,6 +1,7 @@
 package com.x.teamwork.assemble.control.service;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -108,7 +109,7 @@ class TaskListService {
 		taskListIds_forGroup = business.taskListFactory().listTaskListIdsWithGroup( taskGroupId, personName );
 		taskIds_forGroup = business.taskListFactory().listTaskIdsWithTaskGroupId( taskListIds_forGroup );
 		if( ListTools.isNotEmpty( taskIds_forGroup )) {
-			taskIds_all.removeAll( taskIds_forGroup );
+			taskIds_all.removeAll( new HashSet<>( taskIds_forGroup ) );
 		}
 		
 		return Long.parseLong( taskIds_all.size()+"" );
@@ -1,7 +1,13 @@
 package com.x.teamwork.assemble.control.service;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -127,57 +133,14 @@ public class TaskQueryService {
 		if ( StringUtils.isEmpty( taskListId )) {
 			return null;
 		}
-		
-		Task task = null;
-		TaskList taskList = null;
-		List<String> taskIds = null;
-		List<String> taskListIds = null;
-		List<String> taskIds_forTaskList = null;
-		List<TaskGroup> taskGroupList = null;
-		List<TaskListRele> taskListReles = null;
-		List<Task> resultList = new ArrayList<>();
-		
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			taskList = emc.find( taskListId, TaskList.class );
+			TaskList taskList = emc.find( taskListId, TaskList.class );
 			if( taskList != null ) {
-				//查询该TaskList下所有的任务列表
-				taskIds = taskListService.listTaskIdsWithTaskListId( emc, taskListId );
-				//查询这些任务在指定工作任务列表里的关联，按关联的排序号查询任务信息列表
-				taskListReles = taskListService.listReleWithTaskAndListId(emc, taskIds, taskListId );				
-				if( ListTools.isNotEmpty( taskListReles )) {
-					for( TaskListRele rele : taskListReles ) {
-						task = emc.find( rele.getTaskId(), Task.class );
-						task.setOrder( rele.getOrder() );
-						resultList.add( task );
-					}
-				}
-				return resultList;
+				//查询该TaskList下所有的任务，按关联的排序号排序
+				return listTaskInTaskList( emc, taskListId );
 			}else {
 				//查询所有未归类的任务列表
-				List<String> taskIds_all = new ArrayList<>();
-				//查询在指定项目里所有可见的工作任务列表
-				List<String> taskIds_all_tmp = reviewService.listTaskIdsWithPerson(emc, personName, projectId );
-				if( taskIds_all_tmp == null ) {
-					taskIds_all_tmp = new ArrayList<>();
-				}
-				for( String str : taskIds_all_tmp ) {
-					taskIds_all.add( str );
-				}
-				//查询默认的TaskGroup
-				taskGroupList = taskGroupService.listGroupByPersonAndProject( emc, personName, projectId);
-				if( ListTools.isNotEmpty( taskGroupList )) {
-					//查询该用户所有的TaskList的ID列表
-					taskListIds = taskListService.listTaskListIdsWithGroup( emc, taskGroupList.get(0).getId(), personName );
-					if( ListTools.isNotEmpty( taskListIds )) {
-						//看看这些TaskList所关联的所有的TaskId列表
-						taskIds_forTaskList = taskListService.listTaskIdsWithTaskListIds( emc, taskListIds );
-						if( taskIds_forTaskList == null ) {
-							taskIds_forTaskList = new ArrayList<>();
-						}
-						taskIds_all.removeAll( taskIds_forTaskList );
-					}
-				}
-				return new Business(emc).taskFactory().list(taskIds_all );
+				return listTaskWithoutTaskList( emc, projectId, personName );
 			}
 		} catch (Exception e) {
 			throw e;
@@ -196,66 +159,18 @@ public class TaskQueryService {
 		if ( StringUtils.isEmpty( taskListId )) {
 			return null;
 		}
-		
-		Task task = null;
-		TaskList taskList = null;
-		List<String> taskIds = null;
-		List<String> taskListIds = null;
-		List<String> taskIds_forTaskList = null;
-		List<TaskGroup> taskGroupList = null;
-		List<TaskListRele> taskListReles = null;
+		List<Task> taskList_all = null;
 		List<Task> resultList = new ArrayList<>();
-		
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
-			taskList = emc.find( taskListId, TaskList.class );
-			if( taskList != null ) {				
-				//查询该TaskList下所有的任务列表
-				taskIds = taskListService.listTaskIdsWithTaskListId( emc, taskListId );
-				//查询这些任务在指定工作任务列表里的关联，按关联的排序号查询任务信息列表
-				taskListReles = taskListService.listReleWithTaskAndListId(emc, taskIds, taskListId );				
-				if( ListTools.isNotEmpty( taskListReles )) {
-					for( TaskListRele rele : taskListReles ) {
-						task = emc.find( rele.getTaskId(), Task.class );
-						//只查询自己负责的任务
-						if( personName.equalsIgnoreCase( task.getExecutor() )) {
-							task.setOrder( rele.getOrder() );
-							resultList.add( task );
-						}
-					}
-				}
+			if( emc.find( taskListId, TaskList.class ) != null ) {				
+				taskList_all = listTaskInTaskList( emc, taskListId );
 			}else {
-				//查询所有未归类的任务列表
-				List<String> taskIds_all = new ArrayList<>();
-				//查询在指定项目里所有可见的工作任务列表
-				List<String> taskIds_all_tmp = reviewService.listTaskIdsWithPerson(emc, personName, projectId );
-				if( taskIds_all_tmp == null ) {
-					taskIds_all_tmp = new ArrayList<>();
-				}
-				for( String str : taskIds_all_tmp ) {
-					taskIds_all.add( str );
-				}
-				//查询默认的TaskGroup
-				taskGroupList = taskGroupService.listGroupByPersonAndProject( emc, personName, projectId);
-				if( ListTools.isNotEmpty( taskGroupList )) {
-					//查询该用户所有的TaskList的ID列表
-					taskListIds = taskListService.listTaskListIdsWithGroup( emc, taskGroupList.get(0).getId(), personName );
-					if( ListTools.isNotEmpty( taskListIds )) {
-						//看看这些TaskList所关联的所有的TaskId列表
-						taskIds_forTaskList = taskListService.listTaskIdsWithTaskListIds( emc, taskListIds );
-						if( taskIds_forTaskList == null ) {
-							taskIds_forTaskList = new ArrayList<>();
-						}
-						taskIds_all.removeAll( taskIds_forTaskList );
-					}
-				}
-				List<Task> taskListTmp = new Business(emc).taskFactory().list(taskIds_all );
-				if( ListTools.isNotEmpty( taskListTmp )) {
-					for( Task _task : taskListTmp ) {
-						//只查询自己负责的任务
-						if( personName.equalsIgnoreCase( _task.getExecutor() )) {
-							resultList.add( _task );
-						}
-					}
+				taskList_all = listTaskWithoutTaskList( emc, projectId, personName );
+			}
+			for( Task task : taskList_all ) {
+				//只查询自己负责的任务
+				if( personName.equalsIgnoreCase( task.getExecutor() )) {
+					resultList.add( task );
 				}
 			}
 		} catch (Exception e) {
@@ -264,6 +179,76 @@ public class TaskQueryService {
 		return resultList;
 	}
 	
+	/**
+	 * 查询工作任务列表中的所有工作任务，关联和任务各查询一次，按关联的排序号输出
+	 * @param emc
+	 * @param taskListId
+	 * @return
+	 * @throws Exception
+	 */
+	private List<Task> listTaskInTaskList( EntityManagerContainer emc, String taskListId ) throws Exception {
+		Business business = new Business( emc );
+		List<Task> resultList = new ArrayList<>();
+		List<TaskListRele> taskListReles = business.taskListFactory().listReleWithListId( taskListId );
+		if( ListTools.isEmpty( taskListReles )) {
+			return resultList;
+		}
+		Map<String, Task> taskMap = new HashMap<>();
+		for( Task task : business.taskFactory().listWithTaskListId( taskListId ) ) {
+			taskMap.put( task.getId(), task );
+		}
+		Task task = null;
+		for( TaskListRele rele : taskListReles ) {
+			//同一个任务有多条关联的只取排序在前的一条
+			task = taskMap.remove( rele.getTaskId() );
+			if( task != null ) {
+				task.setOrder( rele.getOrder() );
+				resultList.add( task );
+			}
+		}
+		return resultList;
+	}
+	
+	/**
+	 * 查询用户在项目中可见但没有归入默认TaskGroup中任何TaskList的工作任务
+	 * @param emc
+	 * @param projectId
+	 * @param personName
+	 * @return
+	 * @throws Exception
+	 */
+	private List<Task> listTaskWithoutTaskList( EntityManagerContainer emc, String projectId, String personName ) throws Exception {
+		Business business = new Business( emc );
+		//查询在指定项目里所有可见的工作任务列表，去重并保持原有顺序
+		Set<String> taskIds_all = new LinkedHashSet<>();
+		List<String> taskIds_all_tmp = reviewService.listTaskIdsWithPerson(emc, personName, projectId );
+		if( taskIds_all_tmp != null ) {
+			taskIds_all.addAll( taskIds_all_tmp );
+		}
+		//查询默认的TaskGroup
+		List<TaskGroup> taskGroupList = taskGroupService.listGroupByPersonAndProject( emc, personName, projectId);
+		if( ListTools.isNotEmpty( taskGroupList ) && !taskIds_all.isEmpty() ) {
+			//查询该用户所有的TaskList的ID列表
+			List<String> taskListIds = taskListService.listTaskListIdsWithGroup( emc, taskGroupList.get(0).getId(), personName );
+			if( ListTools.isNotEmpty( taskListIds )) {
+				//看看这些TaskList所关联的所有的TaskId列表，使用Set排除，避免List.removeAll的O(n*m)
+				List<String> taskIds_forTaskList = taskListService.listTaskIdsWithTaskListIds( emc, taskListIds );
+				if( ListTools.isNotEmpty( taskIds_forTaskList )) {
+					taskIds_all.removeAll( new HashSet<>( taskIds_forTaskList ) );
+				}
+			}
+		}
+		List<Task> resultList = new ArrayList<>();
+		if( taskIds_all.isEmpty() ) {
+			return resultList;
+		}
+		for( List<String> ids : ListTools.batch( new ArrayList<>( taskIds_all ), 500 ) ) {
+			resultList.addAll( business.taskFactory().list( ids ) );
+		}
+		resultList.sort( Comparator.comparing( Task::getCreateTime, Comparator.nullsLast( Comparator.naturalOrder() ) ) );
+		return resultList;
+	}
+	
 	/**
 	 * 在人员的可见范围之类，根据指定的工作任务ID，查询子任务列表
 	 * @param project
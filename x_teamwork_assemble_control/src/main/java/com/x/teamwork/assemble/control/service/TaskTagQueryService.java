@@ -1,7 +1,11 @@
 package com.x.teamwork.assemble.control.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -131,6 +135,44 @@ public class TaskTagQueryService {
 		}
 	}
 
+	/**
+	 * 批量查询多个工作任务在指定人员下的标签信息，一次查询关联和标签，按任务ID分组返回
+	 * @param effectivePerson
+	 * @param taskIds
+	 * @return
+	 * @throws Exception
+	 */
+	public Map<String, List<TaskTag>> listWithTasksAndPerson(EffectivePerson effectivePerson, List<String> taskIds) throws Exception {
+		Map<String, List<TaskTag>> map = new HashMap<>();
+		if( ListTools.isEmpty( taskIds )) {
+			return map;
+		}
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			List<TaskTagRele> reles = taskTagService.listReleWithTasksAndPerson(emc, taskIds, effectivePerson.getDistinguishedName());
+			if( ListTools.isEmpty( reles )) {
+				return map;
+			}
+			Set<String> tagIds = new HashSet<>();
+			for( TaskTagRele rele : reles ) {
+				tagIds.add( rele.getTagId() );
+			}
+			Map<String, TaskTag> tags = new HashMap<>();
+			for( TaskTag tag : emc.list( TaskTag.class, tagIds ) ) {
+				tags.put( tag.getId(), tag );
+			}
+			TaskTag tag = null;
+			for( TaskTagRele rele : reles ) {
+				tag = tags.get( rele.getTagId() );
+				if( tag != null ) {
+					map.computeIfAbsent( rele.getTaskId(), k -> new ArrayList<>() ).add( tag );
+				}
+			}
+			return map;
+		} catch (Exception e) {
+			throw e;
+		}
+	}
+
 	public List<String> listTaskIdsWithTagContent(  String tagName, String project, String personName ) throws Exception {
 		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
 			List<String> tagIds =  taskTagService.listTagIdsWithContent( emc, tagName, project, personName );
@@ -153,6 +153,11 @@ class TaskTagService {
 		return business.taskTagFactory().listReleWithTaskAndPerson( taskId, person);
 	}
 
+	public List<TaskTagRele> listReleWithTasksAndPerson(EntityManagerContainer emc, List<String> taskIds, String person) throws Exception {
+		Business business = new Business( emc );
+		return business.taskTagFactory().listReleWithTasksAndPerson( taskIds, person);
+	}
+
 	public List<String> listTagIdsWithContent(EntityManagerContainer emc, String tagName, String project, String personName ) throws Exception {
 		Business business = new Business( emc );
 		return business.taskTagFactory().listTagIdsWithTagNameAndProjectAndPerson( tagName, project, personName);
@@ -0,0 +1,275 @@
+package com.x.teamwork.assemble.control.test.board;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.x.base.core.container.EntityManagerContainer;
+import com.x.base.core.container.factory.EntityManagerContainerFactory;
+import com.x.base.core.entity.annotation.CheckPersistType;
+import com.x.teamwork.assemble.control.Business;
+import com.x.teamwork.assemble.control.queue.TaskDeadlineQueue;
+import com.x.teamwork.assemble.control.service.TaskQueryService;
+import com.x.teamwork.core.entity.Review;
+import com.x.teamwork.core.entity.Task;
+import com.x.teamwork.core.entity.TaskGroup;
+import com.x.teamwork.core.entity.TaskList;
+import com.x.teamwork.core.entity.TaskListRele;
+
+/**
+ * 看板列的加载和工作任务截止时间队列,在内存数据库上运行.<br/>
+ * 项目中5000个可见的工作任务,4000个平均归入默认TaskGroup的4个TaskList,1000个未归类.
+ * 列中的工作任务按关联的排序号输出,未归类的按创建时间输出,与原有逐条查询的结果一致.
+ */
+public class TestClient {
+
+	private static final String PERSON = "person@p@P";
+
+	private static final String OTHER = "other@o@P";
+
+	private static final String PROJECT = "project";
+
+	private static final int SIZE = 5000;
+
+	private static final int LIST_COUNT = 4;
+
+	private static final int IN_LIST = 4000;
+
+	private static List<String> taskIds = new ArrayList<>();
+
+	private static List<String> taskListIds = new ArrayList<>();
+
+	@BeforeClass
+	public static void init() throws Exception {
+		EntityManagerContainerFactory.init( "board/persistence.xml" );
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.beginTransaction( Task.class );
+			emc.beginTransaction( TaskList.class );
+			emc.beginTransaction( TaskListRele.class );
+			emc.beginTransaction( TaskGroup.class );
+			emc.beginTransaction( Review.class );
+			TaskGroup group = new TaskGroup();
+			group.setName( "default" );
+			group.setProject( PROJECT );
+			group.setOwner( PERSON );
+			emc.persist( group, CheckPersistType.none );
+			for( int i = 0; i < LIST_COUNT; i++ ) {
+				TaskList taskList = new TaskList();
+				taskList.setName( "list" + i );
+				taskList.setProject( PROJECT );
+				taskList.setOwner( PERSON );
+				taskList.setTaskGroup( group.getId() );
+				emc.persist( taskList, CheckPersistType.none );
+				taskListIds.add( taskList.getId() );
+			}
+			long time = System.currentTimeMillis() - 1000L * SIZE;
+			for( int i = 0; i < SIZE; i++ ) {
+				Task task = new Task();
+				task.setName( "task" + i );
+				task.setProject( PROJECT );
+				task.setExecutor( ( i % 2 == 0 ) ? PERSON : OTHER );
+				task.setCreateTime( new Date( time + 1000L * i ) );
+				emc.persist( task, CheckPersistType.none );
+				taskIds.add( task.getId() );
+				Review review = new Review();
+				review.setTaskId( task.getId() );
+				review.setProject( PROJECT );
+				review.setPermissionObj( PERSON );
+				emc.persist( review, CheckPersistType.none );
+				if( i < IN_LIST ) {
+					//列中的排序与创建顺序相反
+					emc.persist( rele( task.getId(), taskListIds.get( i % LIST_COUNT ), SIZE - i ), CheckPersistType.none );
+				}
+			}
+			//同一个任务重复的关联只取排序在前的一条
+			emc.persist( rele( taskIds.get( 0 ), taskListIds.get( 0 ), SIZE * 2 ), CheckPersistType.none );
+			emc.commit();
+		}
+	}
+
+	@AfterClass
+	public static void close() throws Exception {
+		EntityManagerContainerFactory.close();
+	}
+
+	private static TaskListRele rele( String taskId, String taskListId, int order ) {
+		TaskListRele rele = new TaskListRele();
+		rele.setProject( PROJECT );
+		rele.setTaskId( taskId );
+		rele.setTaskListId( taskListId );
+		rele.setOrder( order );
+		return rele;
+	}
+
+	private List<String> ids( List<Task> list ) {
+		List<String> ids = new ArrayList<>();
+		for( Task task : list ) {
+			ids.add( task.getId() );
+		}
+		return ids;
+	}
+
+	/* 原有方式：列中的每条关联单独查询工作任务 */
+	private List<Task> listInTaskListPerRele( String taskListId ) throws Exception {
+		List<Task> resultList = new ArrayList<>();
+		List<String> added = new ArrayList<>();
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			for( TaskListRele rele : new Business( emc ).taskListFactory().listReleWithListId( taskListId ) ) {
+				if( !added.contains( rele.getTaskId() )) {
+					added.add( rele.getTaskId() );
+					resultList.add( emc.find( rele.getTaskId(), Task.class ) );
+				}
+			}
+		}
+		return resultList;
+	}
+
+	/* 原有方式：可见任务列表使用List.removeAll排除已归类的任务 */
+	private List<Task> listWithoutTaskListRemoveAll() throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business( emc );
+			List<String> all = new ArrayList<>( business.reviewFactory().listTaskIdsWithPersonAndProject( PERSON, PROJECT ) );
+			all.removeAll( business.taskListFactory().listTaskIdWithTaskListIds( taskListIds ) );
+			List<Task> resultList = new ArrayList<>();
+			for( String id : all ) {
+				resultList.add( emc.find( id, Task.class ) );
+			}
+			resultList.sort( ( o1, o2 ) -> o1.getCreateTime().compareTo( o2.getCreateTime() ) );
+			return resultList;
+		}
+	}
+
+	@Test
+	public void testBoardOrdering() throws Exception {
+		TaskQueryService service = new TaskQueryService();
+		List<Task> column = service.listTaskWithTaskListId( PROJECT, taskListIds.get( 1 ), PERSON );
+		Assert.assertEquals( IN_LIST / LIST_COUNT, column.size() );
+		for( int i = 0; i < column.size(); i++ ) {
+			//列中按排序号升序，即创建顺序的倒序
+			Assert.assertEquals( taskIds.get( IN_LIST - 3 - i * LIST_COUNT ), column.get( i ).getId() );
+			Assert.assertEquals( Integer.valueOf( SIZE - IN_LIST + 3 + i * LIST_COUNT ), column.get( i ).getOrder() );
+		}
+		//重复的关联不重复输出
+		column = service.listTaskWithTaskListId( PROJECT, taskListIds.get( 0 ), PERSON );
+		Assert.assertEquals( IN_LIST / LIST_COUNT, column.size() );
+		Assert.assertEquals( taskIds.get( 0 ), column.get( column.size() - 1 ).getId() );
+		Assert.assertEquals( Integer.valueOf( SIZE ), column.get( column.size() - 1 ).getOrder() );
+		//未归类的按创建时间输出
+		List<Task> uncategorized = service.listTaskWithTaskListId( PROJECT, "none", PERSON );
+		Assert.assertEquals( taskIds.subList( IN_LIST, SIZE ), ids( uncategorized ) );
+		//只输出自己负责的
+		List<Task> mine = service.listMyTaskWithTaskListId( PROJECT, taskListIds.get( 0 ), PERSON );
+		Assert.assertEquals( IN_LIST / LIST_COUNT, mine.size() );
+		mine = service.listMyTaskWithTaskListId( PROJECT, taskListIds.get( 1 ), PERSON );
+		Assert.assertTrue( mine.isEmpty() );
+		mine = service.listMyTaskWithTaskListId( PROJECT, "none", PERSON );
+		Assert.assertEquals( ( SIZE - IN_LIST ) / 2, mine.size() );
+		for( Task task : mine ) {
+			Assert.assertEquals( PERSON, task.getExecutor() );
+		}
+	}
+
+	@Test
+	public void testBoard5k() throws Exception {
+		TaskQueryService service = new TaskQueryService();
+		//预热
+		service.listTaskWithTaskListId( PROJECT, taskListIds.get( 0 ), PERSON );
+		listInTaskListPerRele( taskListIds.get( 0 ) );
+
+		long start = System.currentTimeMillis();
+		List<Task> perRele = listInTaskListPerRele( taskListIds.get( 2 ) );
+		long perReleCost = System.currentTimeMillis() - start;
+		start = System.currentTimeMillis();
+		List<Task> setBased = service.listTaskWithTaskListId( PROJECT, taskListIds.get( 2 ), PERSON );
+		long setBasedCost = System.currentTimeMillis() - start;
+		Assert.assertEquals( ids( perRele ), ids( setBased ) );
+
+		start = System.currentTimeMillis();
+		List<Task> removeAll = listWithoutTaskListRemoveAll();
+		long removeAllCost = System.currentTimeMillis() - start;
+		start = System.currentTimeMillis();
+		List<Task> hashSet = service.listTaskWithTaskListId( PROJECT, "none", PERSON );
+		long hashSetCost = System.currentTimeMillis() - start;
+		Assert.assertEquals( ids( removeAll ), ids( hashSet ) );
+
+		System.out.println( "board, " + SIZE + " tasks, column of " + setBased.size() + " per rele:" + perReleCost
+				+ "ms, set based:" + setBasedCost + "ms; uncategorized " + hashSet.size() + " removeAll:"
+				+ removeAllCost + "ms, hash set:" + hashSetCost + "ms." );
+	}
+
+	private Task deadlineTask( String name, Date endTime ) throws Exception {
+		Task task = new Task();
+		task.setName( name );
+		task.setProject( "deadline" );
+		task.setExecutor( PERSON );
+		task.setEndTime( endTime );
+		task.setOvertime( false );
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.beginTransaction( Task.class );
+			emc.persist( task, CheckPersistType.none );
+			emc.commit();
+		}
+		return task;
+	}
+
+	private Task find( String id ) throws Exception {
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			return emc.find( id, Task.class );
+		}
+	}
+
+	/**
+	 * 同一个截止时间只放入一次；截止时间修改前放入的记录到期后核对不一致则忽略，按新的截止时间重新放入；
+	 * 到期后在数据库中认领，其他节点再认领同一个截止时间不会成功。
+	 */
+	@Test
+	public void testDeadlineQueue() throws Exception {
+		long now = System.currentTimeMillis();
+		Task due = deadlineTask( "due", new Date( now + 300 ) );
+		Task moved = deadlineTask( "moved", new Date( now + 300 ) );
+		//其他节点已经将截止时间延后，本节点仍按原有的截止时间放入
+		Date later = new Date( now + 1000L * 60 * 60 * 24 );
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			emc.beginTransaction( Task.class );
+			emc.find( moved.getId(), Task.class ).setEndTime( later );
+			emc.commit();
+		}
+		TaskDeadlineQueue queue = new TaskDeadlineQueue();
+		queue.start();
+		try {
+			Assert.assertEquals( 2, queue.offer( due, now ) );
+			Assert.assertEquals( 0, queue.offer( due, now ) );
+			Assert.assertEquals( 2, queue.offer( moved, now ) );
+			Thread.sleep( 1500 );
+			//按新的截止时间重新放入，到期前留在队列中
+			Assert.assertEquals( 0, queue.size() );
+			Assert.assertEquals( 2, queue.offer( find( moved.getId() ), now ) );
+			Assert.assertEquals( 2, queue.size() );
+		} finally {
+			queue.stop();
+		}
+		Task dueResult = find( due.getId() );
+		Assert.assertTrue( dueResult.getOvertime() );
+		Assert.assertEquals( due.getEndTime().getTime(), dueResult.getWarnedEndTime().getTime() );
+		Task movedResult = find( moved.getId() );
+		Assert.assertFalse( movedResult.getOvertime() );
+		Assert.assertNull( movedResult.getWarnedEndTime() );
+		//其他节点再认领相同的截止时间
+		try (EntityManagerContainer emc = EntityManagerContainerFactory.instance().create()) {
+			Business business = new Business( emc );
+			emc.beginTransaction( Task.class );
+			Assert.assertFalse( business.taskFactory().claimOvertime( due.getId(), dueResult.getEndTime() ) );
+			Assert.assertFalse( business.taskFactory().claimWarn( due.getId(), dueResult.getEndTime() ) );
+			Assert.assertFalse( business.taskFactory().claimOvertime( moved.getId(), due.getEndTime() ) );
+			Assert.assertTrue( business.taskFactory().claimWarn( moved.getId(), movedResult.getEndTime() ) );
+			Assert.assertFalse( business.taskFactory().claimWarn( moved.getId(), movedResult.getEndTime() ) );
+			emc.commit();
+		}
+	}
+
+}
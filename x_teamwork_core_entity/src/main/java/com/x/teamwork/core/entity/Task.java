@@ -158,6 +158,12 @@ public class Task extends SliceJpaObject {
 	@CheckPersist( allowEmpty = true )
 	private Boolean overtime = false;
 	
+	public static final String warnedEndTime_FIELDNAME = "warnedEndTime";
+	@FieldDescribe("已经发送即将超时提醒的截止时间，截止时间修改后重新提醒，多个节点按此确认同一提醒只发送一次")
+	@Column( name = ColumnNamePrefix + warnedEndTime_FIELDNAME)
+	@CheckPersist( allowEmpty = true )
+	private Date warnedEndTime;
+	
 	public static final String remindRelevance_FIELDNAME = "remindRelevance";
 	@FieldDescribe("提醒关联任务")
 	@Column( name = ColumnNamePrefix + remindRelevance_FIELDNAME)
@@ -347,6 +353,14 @@ public class Task extends SliceJpaObject {
 		this.overtime = overtime;
 	}
 
+	public Date getWarnedEndTime() {
+		return warnedEndTime;
+	}
+
+	public void setWarnedEndTime(Date warnedEndTime) {
+		this.warnedEndTime = warnedEndTime;
+	}
+
 	public Boolean getRemindRelevance() {
 		return remindRelevance;
 	}